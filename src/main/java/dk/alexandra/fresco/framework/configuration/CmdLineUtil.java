@@ -57,6 +57,7 @@ import dk.alexandra.fresco.suite.ProtocolSuite;
 import dk.alexandra.fresco.suite.bgw.configuration.BgwConfiguration;
 import dk.alexandra.fresco.suite.dummy.DummyConfiguration;
 import dk.alexandra.fresco.suite.spdz.configuration.SpdzConfiguration;
+import dk.alexandra.fresco.suite.spdz2k.configuration.Spdz2kConfiguration;
 
 
 /**
@@ -412,6 +413,9 @@ public class CmdLineUtil {
 			case "spdz":
 				this.psConf = SpdzConfiguration.fromCmdArgs(this.sceConf, remainingArgs);
 				break;
+			case "spdz2k":
+				this.psConf = Spdz2kConfiguration.fromCmdArgs(this.sceConf, remainingArgs);
+				break;
 			default:
 				throw new MPCException("Unknown protocol suite: " + this.getSCEConfiguration().getProtocolSuiteName());
 			}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.framework.math;
+
+import java.math.BigInteger;
+
+/**
+ * Generic arithmetic modulo any modulus. Sums and differences of reduced
+ * numbers are reduced by adding or subtracting p once, which is cheaper than a
+ * division.
+ */
+class BigIntegerArithmetic implements ModularArithmetic {
+
+	protected final BigInteger p;
+
+	BigIntegerArithmetic(BigInteger modulus) {
+		this.p = modulus;
+	}
+
+	@Override
+	public BigInteger getModulus() {
+		return p;
+	}
+
+	@Override
+	public BigInteger reduce(BigInteger x) {
+		if (x.signum() < 0 || x.compareTo(p) >= 0) {
+			return x.mod(p);
+		}
+		return x;
+	}
+
+	@Override
+	public BigInteger add(BigInteger a, BigInteger b) {
+		return reduceOnce(a.add(b));
+	}
+
+	@Override
+	public BigInteger subtract(BigInteger a, BigInteger b) {
+		return reduceOnce(a.subtract(b));
+	}
+
+	@Override
+	public BigInteger multiply(BigInteger a, BigInteger b) {
+		return a.multiply(b).mod(p);
+	}
+
+	/**
+	 * Reduces x by adding or subtracting p once, falling back to
+	 * {@link #reduce(BigInteger)} if that is not enough.
+	 */
+	protected BigInteger reduceOnce(BigInteger x) {
+		if (x.signum() < 0) {
+			x = x.add(p);
+			return x.signum() < 0 ? reduce(x) : x;
+		} else if (x.compareTo(p) >= 0) {
+			x = x.subtract(p);
+			return x.compareTo(p) >= 0 ? reduce(x) : x;
+		}
+		return x;
+	}
+}
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.framework.math;
+
+import java.math.BigInteger;
+
+/**
+ * Arithmetic modulo the Mersenne prime 2^61-1, computed on longs. Since 2^61 =
+ * 1 mod p, the 122 bit product of two numbers is reduced by adding its bits
+ * above bit 61 to its 61 lowest bits, followed by a branch-free correction.
+ */
+class Mersenne61Arithmetic implements ModularArithmetic {
+
+	static final long P = (1L << 61) - 1;
+
+	static final BigInteger MODULUS = BigInteger.valueOf(P);
+
+	@Override
+	public BigInteger getModulus() {
+		return MODULUS;
+	}
+
+	@Override
+	public BigInteger reduce(BigInteger x) {
+		return BigInteger.valueOf(toWord(x));
+	}
+
+	@Override
+	public BigInteger add(BigInteger a, BigInteger b) {
+		return BigInteger.valueOf(add(toWord(a), toWord(b)));
+	}
+
+	@Override
+	public BigInteger subtract(BigInteger a, BigInteger b) {
+		return BigInteger.valueOf(subtract(toWord(a), toWord(b)));
+	}
+
+	@Override
+	public BigInteger multiply(BigInteger a, BigInteger b) {
+		return BigInteger.valueOf(multiply(toWord(a), toWord(b)));
+	}
+
+	static long add(long a, long b) {
+		long s = a + b - P;
+		return s + ((s >> 63) & P);
+	}
+
+	static long subtract(long a, long b) {
+		long s = a - b;
+		return s + ((s >> 63) & P);
+	}
+
+	/**
+	 * @return a * b mod p for a, b in {0, ..., p-1}.
+	 */
+	static long multiply(long a, long b) {
+		long hi = WordArithmetic.multiplyHigh(a, b);
+		long lo = a * b;
+		// Both halves are below 2^61, so x < 2^62.
+		long x = (lo & P) + ((lo >>> 61) | (hi << 3));
+		x = (x & P) + (x >>> 61) - P;
+		return x + ((x >> 63) & P);
+	}
+
+	static long toWord(BigInteger x) {
+		if (x.signum() >= 0 && x.bitLength() < 64) {
+			long v = x.longValue();
+			v = (v & P) + (v >>> 61) - P;
+			return v + ((v >> 63) & P);
+		}
+		return x.mod(MODULUS).longValue();
+	}
+}
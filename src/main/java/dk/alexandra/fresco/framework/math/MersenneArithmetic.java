@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.framework.math;
+
+import java.math.BigInteger;
+
+/**
+ * Arithmetic modulo a Mersenne number p = 2^k-1. Since 2^k = 1 mod p, a number
+ * x is reduced by adding the bits above bit k to the k lowest bits, which
+ * only takes shifts and additions.
+ */
+class MersenneArithmetic extends BigIntegerArithmetic {
+
+	private final int k;
+
+	MersenneArithmetic(BigInteger modulus) {
+		super(modulus);
+		if (modulus.add(BigInteger.ONE).bitCount() != 1) {
+			throw new IllegalArgumentException(modulus + " is not a Mersenne number");
+		}
+		this.k = modulus.bitLength();
+	}
+
+	@Override
+	public BigInteger reduce(BigInteger x) {
+		if (x.signum() < 0) {
+			BigInteger r = reduce(x.negate());
+			return r.signum() == 0 ? r : p.subtract(r);
+		}
+		while (x.bitLength() > k) {
+			x = x.and(p).add(x.shiftRight(k));
+		}
+		return x.compareTo(p) >= 0 ? x.subtract(p) : x;
+	}
+
+	@Override
+	public BigInteger multiply(BigInteger a, BigInteger b) {
+		return reduce(a.multiply(b));
+	}
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.framework.math;
+
+import java.math.BigInteger;
+
+/**
+ * Arithmetic modulo a fixed modulus p on BigInteger values.
+ * 
+ * The operands may be any numbers, including negative numbers and numbers
+ * larger than p, while the results are always in {0, ..., p-1}. Use
+ * {@link #forModulus(BigInteger)} to get the fastest implementation for a
+ * given modulus. Implementations are immutable and thread safe.
+ */
+public interface ModularArithmetic {
+
+	/**
+	 * Odd moduli of at most this many bits are handled with long arithmetic.
+	 */
+	public static final int WORD_BIT_LENGTH = 62;
+
+	BigInteger getModulus();
+
+	/**
+	 * @return x mod p.
+	 */
+	BigInteger reduce(BigInteger x);
+
+	/**
+	 * @return a + b mod p.
+	 */
+	BigInteger add(BigInteger a, BigInteger b);
+
+	/**
+	 * @return a - b mod p.
+	 */
+	BigInteger subtract(BigInteger a, BigInteger b);
+
+	/**
+	 * @return a * b mod p.
+	 */
+	BigInteger multiply(BigInteger a, BigInteger b);
+
+	/**
+	 * Selects an implementation for the given modulus. Moduli of at most 62
+	 * bits are handled with long arithmetic, with a special reduction for the
+	 * Mersenne prime 2^61-1. Larger Mersenne numbers 2^k-1 are reduced by
+	 * shifts instead of divisions. Any other modulus is handled by plain
+	 * BigInteger arithmetic.
+	 * 
+	 * @param modulus
+	 *            a modulus larger than 1.
+	 */
+	public static ModularArithmetic forModulus(BigInteger modulus) {
+		if (modulus.compareTo(BigInteger.ONE) <= 0) {
+			throw new IllegalArgumentException("The modulus must be larger than 1, not " + modulus);
+		}
+		if (modulus.equals(Mersenne61Arithmetic.MODULUS)) {
+			return new Mersenne61Arithmetic();
+		}
+		if (modulus.bitLength() <= WORD_BIT_LENGTH && modulus.testBit(0)) {
+			return new WordArithmetic(modulus);
+		}
+		if (modulus.add(BigInteger.ONE).bitCount() == 1) {
+			return new MersenneArithmetic(modulus);
+		}
+		return new BigIntegerArithmetic(modulus);
+	}
+}
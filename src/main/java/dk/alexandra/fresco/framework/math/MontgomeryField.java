@@ -0,0 +1,380 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.framework.math;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Arithmetic modulo an odd modulus p on fixed-size, mutable elements, using
+ * Montgomery multiplication.
+ * 
+ * An element is a long[] of {@link #getLimbCount()} limbs, least significant
+ * first, each holding 32 bits. Using 32 of the 64 bits lets products and
+ * carries be computed exactly with plain long arithmetic, since Java 8 has no
+ * 128 bit multiplication. All operations write their result into a given
+ * array, which may be one of the operands, so a computation can reuse its
+ * elements instead of allocating new ones as BigInteger arithmetic does.
+ * 
+ * An element holds either the plain value x or its Montgomery form x*R mod
+ * p, where R = 2^(32*n) for n limbs. Addition and subtraction work on both
+ * forms. {@link #multiply(long[], long[], long[])} computes a*b/R, so the
+ * product of two Montgomery forms is a Montgomery form, and the product of a
+ * plain value and a Montgomery form is a plain value. The latter is the cheap
+ * way to multiply by a constant, since plain values convert to and from
+ * BigInteger without any multiplication (see {@link #setValue(BigInteger,
+ * long[])}), while a Montgomery conversion costs a multiplication.
+ * 
+ * Instances are immutable and thread safe.
+ */
+public final class MontgomeryField {
+
+	private static final long MASK = 0xFFFFFFFFL;
+
+	private final BigInteger modulus;
+	private final int n;
+	private final long[] p;
+	private final long pInv;
+	private final long[] r2;
+	private final long[] one;
+	private final long[] plainOne;
+	private final ThreadLocal<long[]> scratch;
+
+	/**
+	 * @param modulus
+	 *            an odd modulus larger than 1.
+	 */
+	public MontgomeryField(BigInteger modulus) {
+		if (modulus.signum() <= 0 || !modulus.testBit(0) || modulus.equals(BigInteger.ONE)) {
+			throw new IllegalArgumentException("Montgomery arithmetic needs an odd modulus larger than 1, not "
+					+ modulus);
+		}
+		this.modulus = modulus;
+		this.n = (modulus.bitLength() + 31) / 32;
+		this.p = toLimbs(modulus, n);
+		BigInteger base = BigInteger.ONE.shiftLeft(32);
+		this.pInv = modulus.negate().modInverse(base).longValue();
+		BigInteger r = BigInteger.ONE.shiftLeft(32 * n);
+		this.r2 = toLimbs(r.multiply(r).mod(modulus), n);
+		this.one = toLimbs(r.mod(modulus), n);
+		this.plainOne = new long[n];
+		this.plainOne[0] = 1;
+		final int scratchSize = n + 2;
+		this.scratch = new ThreadLocal<long[]>() {
+			@Override
+			protected long[] initialValue() {
+				return new long[scratchSize];
+			}
+		};
+	}
+
+	public BigInteger getModulus() {
+		return modulus;
+	}
+
+	/**
+	 * @return the number of limbs of an element.
+	 */
+	public int getLimbCount() {
+		return n;
+	}
+
+	/**
+	 * @return a new element with value 0.
+	 */
+	public long[] newElement() {
+		return new long[n];
+	}
+
+	/**
+	 * @return a new scratch buffer for
+	 *         {@link #multiply(long[], long[], long[], long[])}.
+	 */
+	public long[] newScratch() {
+		return new long[n + 2];
+	}
+
+	/**
+	 * @return a new element holding the Montgomery form of 1.
+	 */
+	public long[] one() {
+		return one.clone();
+	}
+
+	/**
+	 * @return a new element holding the Montgomery form of x mod p.
+	 */
+	public long[] fromBigInteger(BigInteger x) {
+		long[] res = new long[n];
+		fromBigInteger(x, res);
+		return res;
+	}
+
+	/**
+	 * Sets out to the Montgomery form of x mod p.
+	 */
+	public void fromBigInteger(BigInteger x, long[] out) {
+		setValue(x, out);
+		toMontgomery(out, out);
+	}
+
+	/**
+	 * @return the value of an element in Montgomery form as a number in {0,
+	 *         ..., p-1}.
+	 */
+	public BigInteger toBigInteger(long[] a) {
+		long[] plain = new long[n];
+		fromMontgomery(a, plain);
+		return getValue(plain);
+	}
+
+	/**
+	 * Sets out to the plain value x mod p.
+	 */
+	public void setValue(BigInteger x, long[] out) {
+		if (x.signum() < 0 || x.compareTo(modulus) >= 0) {
+			x = x.mod(modulus);
+		}
+		byte[] bytes = x.toByteArray();
+		for (int i = 0; i < n; i++) {
+			long limb = 0;
+			int offset = bytes.length - 4 * i;
+			for (int k = 1; k <= 4 && offset - k >= 0; k++) {
+				limb |= (bytes[offset - k] & 0xFFL) << (8 * (k - 1));
+			}
+			out[i] = limb;
+		}
+	}
+
+	/**
+	 * @return the plain value held by an element, as a number in {0, ...,
+	 *         p-1}.
+	 */
+	public BigInteger getValue(long[] a) {
+		byte[] bytes = new byte[4 * n + 1];
+		for (int i = 0; i < n; i++) {
+			long limb = a[i];
+			int offset = bytes.length - 4 * i;
+			bytes[offset - 1] = (byte) limb;
+			bytes[offset - 2] = (byte) (limb >>> 8);
+			bytes[offset - 3] = (byte) (limb >>> 16);
+			bytes[offset - 4] = (byte) (limb >>> 24);
+		}
+		return new BigInteger(bytes);
+	}
+
+	/**
+	 * Sets out to the Montgomery form of the plain value a.
+	 */
+	public void toMontgomery(long[] a, long[] out) {
+		multiply(a, r2, out);
+	}
+
+	/**
+	 * Sets out to the plain value of the Montgomery form a.
+	 */
+	public void fromMontgomery(long[] a, long[] out) {
+		multiply(a, plainOne, out);
+	}
+
+	/**
+	 * Computes sum_i xs[i]*ys[i] mod p with one Montgomery multiplication per
+	 * term and no conversions to Montgomery form, except for the result.
+	 */
+	public BigInteger innerProduct(BigInteger[] xs, BigInteger[] ys) {
+		if (xs.length != ys.length) {
+			throw new IllegalArgumentException("Cannot take the inner product of vectors of length "
+					+ xs.length + " and " + ys.length);
+		}
+		long[] x = new long[n];
+		long[] y = new long[n];
+		long[] sum = new long[n];
+		long[] t = newScratch();
+		for (int i = 0; i < xs.length; i++) {
+			setValue(xs[i], x);
+			setValue(ys[i], y);
+			// x*y/R
+			multiply(x, y, x, t);
+			add(sum, x, sum);
+		}
+		// sum is now the inner product divided by R.
+		toMontgomery(sum, sum);
+		return getValue(sum);
+	}
+
+	/**
+	 * Copies a into out.
+	 */
+	public void copy(long[] a, long[] out) {
+		System.arraycopy(a, 0, out, 0, n);
+	}
+
+	public boolean isZero(long[] a) {
+		for (int i = 0; i < n; i++) {
+			if (a[i] != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public boolean equals(long[] a, long[] b) {
+		for (int i = 0; i < n; i++) {
+			if (a[i] != b[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Sets out to a + b mod p.
+	 */
+	public void add(long[] a, long[] b, long[] out) {
+		long carry = 0;
+		for (int i = 0; i < n; i++) {
+			long s = a[i] + b[i] + carry;
+			out[i] = s & MASK;
+			carry = s >>> 32;
+		}
+		if (carry != 0 || !lessThanModulus(out)) {
+			subtractModulus(out);
+		}
+	}
+
+	/**
+	 * Sets out to a - b mod p.
+	 */
+	public void subtract(long[] a, long[] b, long[] out) {
+		long borrow = 0;
+		for (int i = 0; i < n; i++) {
+			long d = a[i] - b[i] - borrow;
+			out[i] = d & MASK;
+			borrow = d >>> 63;
+		}
+		if (borrow != 0) {
+			long carry = 0;
+			for (int i = 0; i < n; i++) {
+				long s = out[i] + p[i] + carry;
+				out[i] = s & MASK;
+				carry = s >>> 32;
+			}
+		}
+	}
+
+	/**
+	 * Sets out to -a mod p.
+	 */
+	public void negate(long[] a, long[] out) {
+		if (isZero(a)) {
+			copy(a, out);
+			return;
+		}
+		long borrow = 0;
+		for (int i = 0; i < n; i++) {
+			long d = p[i] - a[i] - borrow;
+			out[i] = d & MASK;
+			borrow = d >>> 63;
+		}
+	}
+
+	/**
+	 * Sets out to a * b / R mod p, using the CIOS variant of Montgomery
+	 * multiplication. Out may be one of the operands. The intermediate result
+	 * is kept in a scratch buffer of the calling thread.
+	 */
+	public void multiply(long[] a, long[] b, long[] out) {
+		multiply(a, b, out, scratch.get());
+	}
+
+	/**
+	 * As {@link #multiply(long[], long[], long[])}, but keeping the
+	 * intermediate result in the given scratch buffer, which saves the
+	 * thread local lookup in loops.
+	 * 
+	 * @param t
+	 *            a buffer from {@link #newScratch()}. Its contents are
+	 *            overwritten.
+	 */
+	public void multiply(long[] a, long[] b, long[] out, long[] t) {
+		Arrays.fill(t, 0);
+		for (int i = 0; i < n; i++) {
+			long bi = b[i];
+			long carry = 0;
+			for (int j = 0; j < n; j++) {
+				long s = t[j] + a[j] * bi + carry;
+				t[j] = s & MASK;
+				carry = s >>> 32;
+			}
+			long s = t[n] + carry;
+			t[n] = s & MASK;
+			t[n + 1] = s >>> 32;
+
+			long m = (t[0] * pInv) & MASK;
+			s = t[0] + m * p[0];
+			carry = s >>> 32;
+			for (int j = 1; j < n; j++) {
+				s = t[j] + m * p[j] + carry;
+				t[j - 1] = s & MASK;
+				carry = s >>> 32;
+			}
+			s = t[n] + carry;
+			t[n - 1] = s & MASK;
+			t[n] = t[n + 1] + (s >>> 32);
+		}
+		System.arraycopy(t, 0, out, 0, n);
+		if (t[n] != 0 || !lessThanModulus(out)) {
+			subtractModulus(out);
+		}
+	}
+
+	private boolean lessThanModulus(long[] a) {
+		for (int i = n - 1; i >= 0; i--) {
+			if (a[i] != p[i]) {
+				return a[i] < p[i];
+			}
+		}
+		return false;
+	}
+
+	private void subtractModulus(long[] a) {
+		long borrow = 0;
+		for (int i = 0; i < n; i++) {
+			long d = a[i] - p[i] - borrow;
+			a[i] = d & MASK;
+			borrow = d >>> 63;
+		}
+	}
+
+	private static long[] toLimbs(BigInteger x, int n) {
+		long[] res = new long[n];
+		for (int i = 0; i < n; i++) {
+			res[i] = x.shiftRight(32 * i).longValue() & MASK;
+		}
+		return res;
+	}
+}
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.framework.math;
+
+import java.math.BigInteger;
+
+/**
+ * Arithmetic modulo an odd modulus p of at most 62 bits, computed on longs.
+ * Products are reduced with Montgomery reduction with R = 2^64, and sums and
+ * differences with a branch-free correction. As p < 2^62, intermediate
+ * results never reach the sign bit.
+ */
+class WordArithmetic implements ModularArithmetic {
+
+	private static final long MASK = 0xFFFFFFFFL;
+
+	private final BigInteger modulus;
+	private final long p;
+	private final long pNeg;
+	private final long r2;
+
+	WordArithmetic(BigInteger modulus) {
+		if (modulus.bitLength() > WORD_BIT_LENGTH || !modulus.testBit(0)) {
+			throw new IllegalArgumentException("Word arithmetic needs an odd modulus of at most "
+					+ WORD_BIT_LENGTH + " bits, not " + modulus);
+		}
+		this.modulus = modulus;
+		this.p = modulus.longValue();
+		// Newton iteration for p^-1 mod 2^64, doubling the correct bits each time.
+		long inv = p;
+		for (int i = 0; i < 5; i++) {
+			inv *= 2 - p * inv;
+		}
+		this.pNeg = -inv;
+		this.r2 = BigInteger.ONE.shiftLeft(128).mod(modulus).longValue();
+	}
+
+	@Override
+	public BigInteger getModulus() {
+		return modulus;
+	}
+
+	@Override
+	public BigInteger reduce(BigInteger x) {
+		return BigInteger.valueOf(toWord(x));
+	}
+
+	@Override
+	public BigInteger add(BigInteger a, BigInteger b) {
+		return BigInteger.valueOf(add(toWord(a), toWord(b)));
+	}
+
+	@Override
+	public BigInteger subtract(BigInteger a, BigInteger b) {
+		return BigInteger.valueOf(subtract(toWord(a), toWord(b)));
+	}
+
+	@Override
+	public BigInteger multiply(BigInteger a, BigInteger b) {
+		return BigInteger.valueOf(multiply(toWord(a), toWord(b)));
+	}
+
+	long add(long a, long b) {
+		long s = a + b - p;
+		return s + ((s >> 63) & p);
+	}
+
+	long subtract(long a, long b) {
+		long s = a - b;
+		return s + ((s >> 63) & p);
+	}
+
+	/**
+	 * @return a * b mod p for a, b in {0, ..., p-1}.
+	 */
+	long multiply(long a, long b) {
+		// a*b/R, then multiply by R^2/R to cancel the division.
+		long t = redc(multiplyHigh(a, b), a * b);
+		return redc(multiplyHigh(t, r2), t * r2);
+	}
+
+	/**
+	 * @return (hi*2^64 + lo)/R mod p, for a number hi*2^64 + lo less than
+	 *         p*R.
+	 */
+	private long redc(long hi, long lo) {
+		long m = lo * pNeg;
+		// lo + m*p = 0 mod 2^64, so the low half carries exactly when lo != 0.
+		long carry = (lo | -lo) >>> 63;
+		long t = hi + multiplyHigh(m, p) + carry - p;
+		return t + ((t >> 63) & p);
+	}
+
+	long toWord(BigInteger x) {
+		if (x.signum() >= 0 && x.bitLength() < 64) {
+			long v = x.longValue();
+			return v < p ? v : v % p;
+		}
+		return x.mod(modulus).longValue();
+	}
+
+	/**
+	 * @return the high 64 bits of the unsigned 128 bit product x*y. Java 8 has
+	 *         no intrinsic for this, so it is computed from 32 bit halves.
+	 */
+	static long multiplyHigh(long x, long y) {
+		long x0 = x & MASK;
+		long x1 = x >>> 32;
+		long y0 = y & MASK;
+		long y1 = y >>> 32;
+		long w0 = x0 * y0;
+		long t = x1 * y0 + (w0 >>> 32);
+		long w1 = (t & MASK) + x0 * y1;
+		return x1 * y1 + (t >>> 32) + (w1 >>> 32);
+	}
+}
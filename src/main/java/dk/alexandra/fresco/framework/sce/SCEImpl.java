@@ -27,7 +27,6 @@
 package dk.alexandra.fresco.framework.sce;
 
 import java.io.IOException;
-import java.math.BigInteger;
 import java.security.SecureRandom;
 import java.util.Map;
 import java.util.Random;
@@ -55,7 +54,6 @@ import dk.alexandra.fresco.framework.sce.resources.threads.ThreadPoolImpl;
 import dk.alexandra.fresco.suite.ProtocolSuite;
 import dk.alexandra.fresco.suite.bgw.BgwFactory;
 import dk.alexandra.fresco.suite.bgw.BgwProtocolSuite;
-import dk.alexandra.fresco.suite.bgw.configuration.BgwConfiguration;
 import dk.alexandra.fresco.suite.bgw.configuration.BgwConfigurationFromProperties;
 import dk.alexandra.fresco.suite.dummy.DummyConfiguration;
 import dk.alexandra.fresco.suite.dummy.DummyFactory;
@@ -64,6 +62,9 @@ import dk.alexandra.fresco.suite.spdz.configuration.SpdzConfiguration;
 import dk.alexandra.fresco.suite.spdz.configuration.SpdzConfigurationFromProperties;
 import dk.alexandra.fresco.suite.spdz.evaluation.strategy.SpdzProtocolSuite;
 import dk.alexandra.fresco.suite.spdz.utils.SpdzFactory;
+import dk.alexandra.fresco.suite.spdz2k.Spdz2kFactory;
+import dk.alexandra.fresco.suite.spdz2k.Spdz2kProtocolSuite;
+import dk.alexandra.fresco.suite.spdz2k.configuration.Spdz2kConfigurationFromProperties;
 
 /**
  * Secure Computation Engine - responsible for having the overview of things and
@@ -131,6 +132,17 @@ public class SCEImpl implements SCE {
 		if (this.evaluator instanceof ParallelEvaluator || this.evaluator instanceof BatchedParallelEvaluator) {
 			channelAmount = noOfvmThreads;
 		}
+		String runtime = sceConf.getProtocolSuiteName();
+		if (psConf == null) {
+			// The configuration decides the channels of the suite, so the
+			// default is needed before the network is set up.
+			psConf = getDefaultConfiguration(runtime);
+		}
+		if (psConf != null && psConf.getNoOfExtraChannels() > 0) {
+			// Channels of the protocol suite come after those of all VM
+			// threads, whatever the evaluator.
+			channelAmount = Math.max(noOfvmThreads, 1) + psConf.getNoOfExtraChannels();
+		}
 		ScapiNetworkImpl network = new ScapiNetworkImpl(conf, channelAmount);
 
 		if (noOfvmThreads == -1) {
@@ -152,48 +164,58 @@ public class SCEImpl implements SCE {
 		this.resourcePool.initilizeStorage();
 		this.resourcePool.initializeNetwork();		
 
-		String runtime = sceConf.getProtocolSuiteName();
 		switch (runtime.toLowerCase()) {
 		case "spdz":
-			this.protocolSuite = SpdzProtocolSuite.getInstance(this.resourcePool.getMyId());
-			if (psConf == null) {
-				psConf = new SpdzConfigurationFromProperties();
-			}			
+			this.protocolSuite = new SpdzProtocolSuite();
 			this.protocolSuite.init(this.resourcePool, psConf);
-			// TODO: Fix this storage crap - not optimal to have the '0' put
-			// there. Need to make the provider decoupled from the storage.
-			dk.alexandra.fresco.suite.spdz.storage.SpdzStorage spdzStorage = ((SpdzProtocolSuite) this.protocolSuite)
-					.getStore(0);
 			int maxBitLength = ((SpdzConfiguration) psConf).getMaxBitLength();
-			this.protocolFactory = new SpdzFactory(spdzStorage, this.resourcePool.getMyId(), maxBitLength);
+			this.protocolFactory = new SpdzFactory((SpdzProtocolSuite) this.protocolSuite,
+					this.resourcePool.getMyId(), maxBitLength);
 			break;
 		case "bgw":
-			this.protocolSuite = BgwProtocolSuite.getInstance();
-			if (psConf == null) {
-				psConf = new BgwConfigurationFromProperties();
-			}
+			this.protocolSuite = new BgwProtocolSuite();
 			this.protocolSuite.init(this.resourcePool, psConf);
-			int threshold = ((BgwConfiguration) psConf).getThreshold();
-			BigInteger modulus = ((BgwConfiguration) psConf).getModulus();
-			this.protocolFactory = new BgwFactory(this.resourcePool.getMyId(), this.resourcePool.getNoOfParties(),
-					threshold, modulus);
+			this.protocolFactory = new BgwFactory((BgwProtocolSuite) this.protocolSuite,
+					this.resourcePool.getMyId(), this.resourcePool.getNoOfParties());
+			break;
+		case "spdz2k":
+			this.protocolSuite = new Spdz2kProtocolSuite();
+			this.protocolSuite.init(this.resourcePool, psConf);
+			this.protocolFactory = new Spdz2kFactory((Spdz2kProtocolSuite) this.protocolSuite,
+					this.resourcePool.getMyId());
 			break;
 		case "dummy":
 			this.protocolSuite = new DummyProtocolSuite();
-			if (psConf == null) {
-				psConf = new DummyConfiguration();
-			}
 			this.protocolSuite.init(this.resourcePool, psConf);
 			this.protocolFactory = new DummyFactory();
 			break;
 		default:
 			throw new IllegalArgumentException(
-					"Could not understand the specified runtime. This framework currently supports:\n\t-spdz\n\t-bgw\n\t-dummy");
+					"Could not understand the specified runtime. This framework currently supports:\n\t-spdz\n\t-spdz2k\n\t-bgw\n\t-dummy");
 		}
 
 		this.setup = true;
 	}
 
+	/**
+	 * @return the configuration read from properties of the given protocol
+	 *         suite, or null if the suite is unknown.
+	 */
+	private static ProtocolSuiteConfiguration getDefaultConfiguration(String runtime) {
+		switch (runtime.toLowerCase()) {
+		case "spdz":
+			return new SpdzConfigurationFromProperties();
+		case "bgw":
+			return new BgwConfigurationFromProperties();
+		case "spdz2k":
+			return new Spdz2kConfigurationFromProperties();
+		case "dummy":
+			return new DummyConfiguration();
+		default:
+			return null;
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -34,6 +34,17 @@ package dk.alexandra.fresco.framework.sce.configuration;
  *
  */
 public interface ProtocolSuiteConfiguration {
-	
+
+	/**
+	 * The number of network channels the protocol suite needs for itself, on
+	 * top of the channels used by the VM threads. They are named after the
+	 * channels of the VM threads, i.e. the first is named by the number of VM
+	 * threads.
+	 * 
+	 * @return the number of extra channels.
+	 */
+	default int getNoOfExtraChannels() {
+		return 0;
+	}
 
 }
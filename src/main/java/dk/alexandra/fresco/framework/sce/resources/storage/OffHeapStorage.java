@@ -0,0 +1,498 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.framework.sce.resources.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.Reporter;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzStorageCodecs;
+
+/**
+ * Thread safe streamed storage keeping the streams off the Java heap.
+ * 
+ * Each stream is a queue of segments, i.e. direct byte buffers of a fixed
+ * size, holding the serialized items as length prefixed records. This keeps
+ * large amounts of preprocessed data out of reach of the garbage collector.
+ * The total size of the resident segments is capped. When a new segment would
+ * exceed the cap, full segments of the least recently used streams are spilled
+ * to files in the spill directory, and they are read back when the stream
+ * reaches them.
+ * 
+ * Streams are locked individually, so threads using different streams do not
+ * block each other. The keyed objects of the {@link Storage} interface are
+ * kept serialized on the heap, as they are few and small.
+ * 
+ * Items are encoded by the {@link StorageCodec} registered for their class,
+ * and by Java serialization if there is none. By default the storage has
+ * codecs for the SPDZ preprocessed data, see {@link SpdzStorageCodecs}.
+ */
+public class OffHeapStorage implements StreamedStorage {
+
+	public static final long DEFAULT_MAX_RESIDENT_BYTES = 256L << 20;
+	public static final int DEFAULT_SEGMENT_SIZE = 1 << 20;
+
+	/**
+	 * Tag of items stored using Java serialization. Items encoded by a codec
+	 * are tagged by the index of the codec plus one.
+	 */
+	private static final byte JAVA_SERIALIZATION = 0;
+	private static final int MAX_CODECS = 255;
+
+	private final long maxResidentBytes;
+	private final int segmentSize;
+	private final File spillDirectory;
+	private final StorageCodec<?>[] codecs;
+	private final Map<Class<?>, Integer> tags;
+
+	private final Map<String, Map<String, byte[]>> objects;
+	private final Map<String, Stream> streams;
+	private final AtomicLong residentBytes = new AtomicLong();
+	private final AtomicLong clock = new AtomicLong();
+	private final AtomicLong spillCounter = new AtomicLong();
+
+	/**
+	 * Creates a storage with the default cap and segment size, spilling to
+	 * the temporary directory.
+	 */
+	public OffHeapStorage() {
+		this(DEFAULT_MAX_RESIDENT_BYTES, DEFAULT_SEGMENT_SIZE,
+				new File(System.getProperty("java.io.tmpdir")));
+	}
+
+	/**
+	 * @param maxResidentBytes
+	 *            the maximal number of bytes kept in memory by the streams. It
+	 *            can be exceeded if no segments can be spilled, as the
+	 *            segment currently being written by each stream stays
+	 *            resident.
+	 * @param segmentSize
+	 *            the size of each segment. Items larger than this get a
+	 *            segment of their own.
+	 * @param spillDirectory
+	 *            the directory to spill segments to.
+	 */
+	public OffHeapStorage(long maxResidentBytes, int segmentSize,
+			File spillDirectory) {
+		this(maxResidentBytes, segmentSize, spillDirectory,
+				SpdzStorageCodecs.getCodecs());
+	}
+
+	/**
+	 * As {@link #OffHeapStorage(long, int, File)}, but encoding items with
+	 * the given codecs.
+	 * 
+	 * @param codecs
+	 *            the codecs, at most one per type.
+	 */
+	public OffHeapStorage(long maxResidentBytes, int segmentSize,
+			File spillDirectory, List<StorageCodec<?>> codecs) {
+		if (codecs.size() > MAX_CODECS) {
+			throw new MPCException("At most " + MAX_CODECS + " codecs are supported");
+		}
+		this.maxResidentBytes = maxResidentBytes;
+		this.segmentSize = segmentSize;
+		this.spillDirectory = spillDirectory;
+		this.codecs = codecs.toArray(new StorageCodec<?>[codecs.size()]);
+		this.tags = new HashMap<Class<?>, Integer>();
+		for (int i = 0; i < this.codecs.length; i++) {
+			if (tags.put(this.codecs[i].getType(), i + 1) != null) {
+				throw new MPCException("More than one codec for "
+						+ this.codecs[i].getType());
+			}
+		}
+		this.objects = new ConcurrentHashMap<String, Map<String, byte[]>>();
+		this.streams = new ConcurrentHashMap<String, Stream>();
+	}
+
+	@Override
+	public boolean putObject(String name, String key, Serializable o) {
+		Map<String, byte[]> table = objects.get(name);
+		if (table == null) {
+			objects.putIfAbsent(name, new ConcurrentHashMap<String, byte[]>());
+			table = objects.get(name);
+		}
+		table.put(key, serialize(o));
+		return true;
+	}
+
+	@Override
+	public <T extends Serializable> T getObject(String name, String key) {
+		Map<String, byte[]> table = objects.get(name);
+		if (table == null) {
+			return null;
+		}
+		byte[] bytes = table.get(key);
+		if (bytes == null) {
+			return null;
+		}
+		return deserialize(bytes, 0, bytes.length);
+	}
+
+	@Override
+	public boolean removeFromStorage(String name, String key) {
+		Map<String, byte[]> table = objects.get(name);
+		return table != null && table.remove(key) != null;
+	}
+
+	@Override
+	public boolean removeNameFromStorage(String name) {
+		return objects.remove(name) != null;
+	}
+
+	@Override
+	public <T extends Serializable> T getNext(String name) {
+		Stream stream = streams.get(name);
+		if (stream == null) {
+			throw new MPCException("Could not find any store with name " + name);
+		}
+		byte[] bytes;
+		stream.lock.lock();
+		try {
+			bytes = stream.poll();
+		} finally {
+			stream.lock.unlock();
+		}
+		if (bytes == null) {
+			throw new MPCException("No more elements in store with name " + name);
+		}
+		return deserialize(bytes, 0, bytes.length);
+	}
+
+	@Override
+	public boolean putNext(String name, Serializable o) {
+		byte[] bytes = serialize(o);
+		Stream stream = streams.get(name);
+		if (stream == null) {
+			streams.putIfAbsent(name, new Stream(name));
+			stream = streams.get(name);
+		}
+		stream.lock.lock();
+		try {
+			stream.offer(bytes);
+		} finally {
+			stream.lock.unlock();
+		}
+		return true;
+	}
+
+	/**
+	 * Releases all segments and deletes the spilled ones.
+	 */
+	@Override
+	public void shutdown() {
+		for (Stream stream : streams.values()) {
+			stream.lock.lock();
+			try {
+				stream.clear();
+			} finally {
+				stream.lock.unlock();
+			}
+		}
+		streams.clear();
+		objects.clear();
+	}
+
+	/**
+	 * @return the number of bytes currently held in memory by the streams.
+	 */
+	public long getResidentBytes() {
+		return residentBytes.get();
+	}
+
+	/**
+	 * @return the number of segments spilled to disk so far.
+	 */
+	public long getSpillCount() {
+		return spillCounter.get();
+	}
+
+	/**
+	 * Allocates a segment of the given size, first spilling cold segments if
+	 * the cap would be exceeded. The size is reserved by a compare-and-set, so
+	 * threads allocating at the same time cannot together exceed the cap while
+	 * there are segments left to spill.
+	 */
+	private ByteBuffer allocate(int size, Stream owner) {
+		while (true) {
+			long resident = residentBytes.get();
+			if (resident + size <= maxResidentBytes) {
+				if (residentBytes.compareAndSet(resident, resident + size)) {
+					break;
+				}
+			} else if (!spillColdest(owner)) {
+				// Nothing left to spill, so the cap is exceeded.
+				residentBytes.addAndGet(size);
+				break;
+			}
+		}
+		return ByteBuffer.allocateDirect(size);
+	}
+
+	/**
+	 * Spills a full segment of the least recently used stream having one. The
+	 * owner is already locked by the calling thread. Other streams are only
+	 * spilled if their lock is free, so two threads spilling each other's
+	 * streams cannot deadlock.
+	 * 
+	 * @return false if no segment could be spilled.
+	 */
+	private boolean spillColdest(Stream owner) {
+		List<Stream> candidates = new ArrayList<Stream>(streams.values());
+		Collections.sort(candidates, new Comparator<Stream>() {
+			@Override
+			public int compare(Stream s1, Stream s2) {
+				return Long.compare(s1.lastUsed, s2.lastUsed);
+			}
+		});
+		for (Stream victim : candidates) {
+			if (victim != owner && !victim.lock.tryLock()) {
+				continue;
+			}
+			try {
+				if (victim.spillOne()) {
+					return true;
+				}
+			} finally {
+				if (victim != owner) {
+					victim.lock.unlock();
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Encodes the item as its tag followed by the encoding of its codec, or
+	 * its Java serialization.
+	 */
+	@SuppressWarnings("unchecked")
+	private byte[] serialize(Serializable o) {
+		Integer tag = o == null ? null : tags.get(o.getClass());
+		if (tag != null) {
+			StorageCodec<Serializable> codec = (StorageCodec<Serializable>) codecs[tag - 1];
+			int size = codec.getSize(o);
+			if (size >= 0) {
+				ByteBuffer buffer = ByteBuffer.allocate(1 + size);
+				buffer.put(tag.byteValue());
+				codec.encode(o, buffer);
+				return buffer.array();
+			}
+		}
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		bos.write(JAVA_SERIALIZATION);
+		try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+			oos.writeObject(o);
+		} catch (IOException e) {
+			throw new StorageException("Could not serialize " + o, e);
+		}
+		return bos.toByteArray();
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T extends Serializable> T deserialize(byte[] bytes,
+			int offset, int length) {
+		int tag = bytes[offset] & 0xff;
+		if (tag != JAVA_SERIALIZATION) {
+			return (T) codecs[tag - 1].decode(
+					ByteBuffer.wrap(bytes, offset + 1, length - 1));
+		}
+		try (ObjectInputStream ois = new ObjectInputStream(
+				new ByteArrayInputStream(bytes, offset + 1, length - 1))) {
+			return (T) ois.readObject();
+		} catch (IOException | ClassNotFoundException e) {
+			throw new StorageException("Could not deserialize stored item", e);
+		}
+	}
+
+	/**
+	 * A segment of a stream, either resident in a direct buffer or spilled to
+	 * a file. Records are written from the start of the buffer and read from
+	 * readPosition.
+	 */
+	private static class Segment {
+
+		private ByteBuffer buffer;
+		private File file;
+		private int size;
+		private int readPosition = 0;
+	}
+
+	private class Stream {
+
+		private final String name;
+		private final ReentrantLock lock = new ReentrantLock();
+		private final Deque<Segment> segments = new ArrayDeque<Segment>();
+		private volatile long lastUsed;
+
+		private Stream(String name) {
+			this.name = name;
+		}
+
+		private void offer(byte[] bytes) {
+			lastUsed = clock.incrementAndGet();
+			int needed = 4 + bytes.length;
+			Segment tail = segments.peekLast();
+			if (tail == null || tail.buffer == null
+					|| tail.buffer.remaining() < needed) {
+				tail = new Segment();
+				tail.size = Math.max(segmentSize, needed);
+				tail.buffer = allocate(tail.size, this);
+				segments.addLast(tail);
+			}
+			tail.buffer.putInt(bytes.length);
+			tail.buffer.put(bytes);
+		}
+
+		private byte[] poll() {
+			lastUsed = clock.incrementAndGet();
+			while (true) {
+				Segment head = segments.peekFirst();
+				if (head == null) {
+					return null;
+				}
+				if (head.buffer == null) {
+					restore(head);
+				}
+				if (head.readPosition < head.buffer.position()) {
+					ByteBuffer view = head.buffer.duplicate();
+					view.position(head.readPosition);
+					byte[] bytes = new byte[view.getInt()];
+					view.get(bytes);
+					head.readPosition = view.position();
+					return bytes;
+				}
+				if (head != segments.peekLast()) {
+					release(segments.pollFirst());
+				} else {
+					// Reuse the tail, as everything written to it is read.
+					head.buffer.clear();
+					head.readPosition = 0;
+					return null;
+				}
+			}
+		}
+
+		private Segment findSpillable() {
+			Iterator<Segment> it = segments.descendingIterator();
+			if (it.hasNext()) {
+				// The tail is still being written.
+				it.next();
+			}
+			while (it.hasNext()) {
+				Segment s = it.next();
+				if (s.buffer != null) {
+					return s;
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Spills the full, resident segment which will be read last.
+		 * 
+		 * @return false if there was no such segment.
+		 */
+		private boolean spillOne() {
+			Segment s = findSpillable();
+			if (s == null) {
+				return false;
+			}
+			s.file = new File(spillDirectory, "fresco-spill-" + Integer.toHexString(
+					System.identityHashCode(OffHeapStorage.this)) + "-"
+					+ spillCounter.incrementAndGet());
+			s.file.deleteOnExit();
+			ByteBuffer data = s.buffer.duplicate();
+			data.flip();
+			try (RandomAccessFile raf = new RandomAccessFile(s.file, "rw")) {
+				FileChannel channel = raf.getChannel();
+				while (data.hasRemaining()) {
+					channel.write(data);
+				}
+			} catch (IOException e) {
+				throw new StorageException("Could not spill stream " + name
+						+ " to " + s.file, e);
+			}
+			release(s);
+			return true;
+		}
+
+		private void restore(Segment s) {
+			ByteBuffer buffer = allocate(s.size, this);
+			try (RandomAccessFile raf = new RandomAccessFile(s.file, "r")) {
+				FileChannel channel = raf.getChannel();
+				while (channel.read(buffer) > 0) {
+				}
+			} catch (IOException e) {
+				throw new StorageException("Could not read spilled stream "
+						+ name + " from " + s.file, e);
+			}
+			if (!s.file.delete()) {
+				Reporter.warn("Could not delete spill file " + s.file);
+			}
+			s.file = null;
+			s.buffer = buffer;
+		}
+
+		private void release(Segment s) {
+			if (s.buffer != null) {
+				residentBytes.addAndGet(-s.size);
+				s.buffer = null;
+			} else if (s.file != null) {
+				s.file.delete();
+			}
+		}
+
+		private void clear() {
+			for (Segment s : segments) {
+				release(s);
+			}
+			segments.clear();
+		}
+	}
+}
@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.framework.sce.resources.storage;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+
+/**
+ * Binary encoding of a type of stored items, used by {@link OffHeapStorage}
+ * instead of Java serialization for the types it has a codec for.
+ * 
+ * @param <T>
+ *            the type of items encoded. Only items of exactly this class are
+ *            given to the codec.
+ */
+public interface StorageCodec<T extends Serializable> {
+
+	public Class<T> getType();
+
+	/**
+	 * @param item
+	 *            the item.
+	 * @return the number of bytes {@link #encode(Serializable, ByteBuffer)}
+	 *         writes for the item, or -1 if the codec cannot encode it, in
+	 *         which case it is stored using Java serialization.
+	 */
+	public int getSize(T item);
+
+	/**
+	 * Writes the item at the position of the buffer.
+	 */
+	public void encode(T item, ByteBuffer buffer);
+
+	/**
+	 * Reads an item written by {@link #encode(Serializable, ByteBuffer)} from
+	 * the position of the buffer.
+	 */
+	public T decode(ByteBuffer buffer);
+}
@@ -30,7 +30,8 @@ public enum StorageStrategy {
 
 	IN_MEMORY,
 	STREAMED_STORAGE,
-	MYSQL;
+	MYSQL,
+	OFF_HEAP;
 	
 	public static Storage fromString(String storageString) {
 		final String ss = storageString.toUpperCase();
@@ -44,6 +45,9 @@ public enum StorageStrategy {
 		case "STREAMED_STORAGE":
 		case "FILE_BASED_STORAGE":
 			return new FilebasedStreamedStorageImpl(new InMemoryStorage());
+		case "OFF_HEAP":
+		case "OFFHEAP":
+			return new OffHeapStorage();
 		default:
 			return null;
 		}
@@ -56,6 +60,8 @@ public enum StorageStrategy {
 			return MYSQL.name();
 		} else if(storage instanceof FilebasedStreamedStorageImpl){
 			return STREAMED_STORAGE.name();
+		} else if(storage instanceof OffHeapStorage){
+			return OFF_HEAP.name();
 		} else {
 			return null;
 		}
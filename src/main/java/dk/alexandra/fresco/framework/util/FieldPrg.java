@@ -0,0 +1,276 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.framework.util;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import dk.alexandra.fresco.framework.MPCException;
+
+/**
+ * A pseudo random generator based on AES in counter mode. It expands 16 byte
+ * seeds, such as the keys coming out of oblivious transfers, public coins or
+ * seeds shared between parties, into bit strings and field elements.
+ * 
+ * Field elements are sampled uniformly by rejection sampling, which avoids
+ * the cost of a modular reduction per element.
+ */
+public class FieldPrg {
+
+	/**
+	 * The number of bytes in a seed.
+	 */
+	public static final int SEED_SIZE = 16;
+
+	/**
+	 * The public key of the fixed-key AES used by
+	 * {@link #expand(byte[][], int, BigInteger)}.
+	 */
+	private static final byte[] FIXED_KEY = "FRESCO MASCOT PR".getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * The number of samples tried per element by
+	 * {@link #expand(byte[][], int, BigInteger)} before falling back to
+	 * sampling blocks one by one.
+	 */
+	private static final int OVERSAMPLING = 4;
+
+	private final Cipher cipher;
+	private final BigInteger modulus;
+	private final int sampleSize;
+	private final int topMask;
+	private final byte[] modulusBytes;
+
+	/**
+	 * @param seed
+	 *            a 16 byte seed.
+	 */
+	public FieldPrg(byte[] seed) {
+		this(seed, null);
+	}
+
+	/**
+	 * @param seed
+	 *            a 16 byte seed.
+	 * @param modulus
+	 *            the modulus of the field elements to generate.
+	 */
+	public FieldPrg(byte[] seed, BigInteger modulus) {
+		if (seed.length != SEED_SIZE) {
+			throw new MPCException("Seeds must be " + SEED_SIZE + " bytes, not " + seed.length);
+		}
+		this.modulus = modulus;
+		if (modulus == null) {
+			this.sampleSize = 0;
+			this.topMask = 0;
+			this.modulusBytes = null;
+		} else {
+			this.sampleSize = (modulus.bitLength() + 7) / 8;
+			this.topMask = getTopMask(modulus);
+			this.modulusBytes = toBytes(modulus);
+		}
+		try {
+			this.cipher = Cipher.getInstance("AES/CTR/NoPadding");
+			this.cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(seed, "AES"),
+					new IvParameterSpec(new byte[16]));
+		} catch (GeneralSecurityException e) {
+			throw new MPCException("Could not initialize AES-CTR generator", e);
+		}
+	}
+
+	/**
+	 * @return the next amount bytes of the stream.
+	 */
+	public byte[] nextBytes(int amount) {
+		byte[] res = new byte[amount];
+		try {
+			cipher.update(res, 0, amount, res, 0);
+		} catch (GeneralSecurityException e) {
+			throw new MPCException("Could not generate pseudo random bytes", e);
+		}
+		return res;
+	}
+
+	/**
+	 * @return the next field element of the stream.
+	 */
+	public BigInteger nextElement() {
+		while (true) {
+			BigInteger res = accept(nextBytes(sampleSize), 0, modulusBytes, topMask);
+			if (res != null) {
+				return res;
+			}
+		}
+	}
+
+	/**
+	 * Samples the elements from one block of the stream, which is much faster
+	 * than sampling them one by one. The part of the stream that is used only
+	 * depends on the amount, so two generators with the same seed stay in
+	 * sync as long as they are called with the same amounts.
+	 * 
+	 * @return the next amount field elements of the stream.
+	 */
+	public BigInteger[] nextElements(int amount) {
+		BigInteger[] res = new BigInteger[amount];
+		byte[] bytes = nextBytes(2 * amount * sampleSize);
+		int filled = 0;
+		for (int offset = 0; offset < bytes.length && filled < amount; offset += sampleSize) {
+			BigInteger x = accept(bytes, offset, modulusBytes, topMask);
+			if (x != null) {
+				res[filled++] = x;
+			}
+		}
+		while (filled < amount) {
+			res[filled++] = nextElement();
+		}
+		return res;
+	}
+
+	/**
+	 * Expands each of many seeds into a few field elements. Block i of the
+	 * stream of seed s is AES_K(s xor i) xor s xor i for a fixed public key K
+	 * (fixed-key AES in Matyas-Meyer-Oseas mode), so all seeds are expanded
+	 * with a single bulk call to AES instead of keying AES with every seed.
+	 * This is a secure PRG as long as the seeds are random, as the keys of
+	 * the random OTs are.
+	 * 
+	 * @param seeds
+	 *            16 byte random seeds.
+	 * @param amount
+	 *            the number of elements per seed.
+	 * @param modulus
+	 *            the modulus of the field elements.
+	 * @return amount field elements for every seed.
+	 */
+	public static BigInteger[][] expand(byte[][] seeds, int amount, BigInteger modulus) {
+		int sampleSize = (modulus.bitLength() + 7) / 8;
+		int topMask = getTopMask(modulus);
+		byte[] modulusBytes = toBytes(modulus);
+		int blocks = (OVERSAMPLING * amount * sampleSize + 15) / 16;
+		Cipher aes;
+		try {
+			aes = Cipher.getInstance("AES/ECB/NoPadding");
+			aes.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(FIXED_KEY, "AES"));
+		} catch (GeneralSecurityException e) {
+			throw new MPCException("Could not initialize fixed-key AES", e);
+		}
+		byte[] input = new byte[seeds.length * blocks * 16];
+		for (int s = 0; s < seeds.length; s++) {
+			for (int i = 0; i < blocks; i++) {
+				setBlock(input, (s * blocks + i) * 16, seeds[s], i);
+			}
+		}
+		byte[] output = encrypt(aes, input);
+		for (int k = 0; k < output.length; k++) {
+			output[k] ^= input[k];
+		}
+
+		BigInteger[][] res = new BigInteger[seeds.length][amount];
+		for (int s = 0; s < seeds.length; s++) {
+			int filled = 0;
+			int offset = s * blocks * 16;
+			int end = offset + blocks * 16 - sampleSize;
+			for (; offset <= end && filled < amount; offset += sampleSize) {
+				BigInteger x = accept(output, offset, modulusBytes, topMask);
+				if (x != null) {
+					res[s][filled++] = x;
+				}
+			}
+			// Unlikely: continue the stream of this seed block by block.
+			int counter = blocks;
+			while (filled < amount) {
+				byte[] in = new byte[sampleSize + 15 & ~15];
+				for (int i = 0; i < in.length / 16; i++) {
+					setBlock(in, i * 16, seeds[s], counter++);
+				}
+				byte[] out = encrypt(aes, in);
+				for (int k = 0; k < sampleSize; k++) {
+					out[k] ^= in[k];
+				}
+				BigInteger x = accept(out, 0, modulusBytes, topMask);
+				if (x != null) {
+					res[s][filled++] = x;
+				}
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Interprets sampleSize bytes, with the bits above the bit length of the
+	 * modulus cleared, as a number and accepts it if it is below the
+	 * modulus. Rejected samples are discarded without creating a BigInteger.
+	 * 
+	 * @return the sampled number, or null if rejected.
+	 */
+	private static BigInteger accept(byte[] bytes, int offset, byte[] modulusBytes, int topMask) {
+		int first = bytes[offset] & topMask;
+		int cmp = first - (modulusBytes[0] & 0xff);
+		for (int k = 1; cmp == 0 && k < modulusBytes.length; k++) {
+			cmp = (bytes[offset + k] & 0xff) - (modulusBytes[k] & 0xff);
+		}
+		if (cmp >= 0) {
+			return null;
+		}
+		byte[] sample = Arrays.copyOfRange(bytes, offset, offset + modulusBytes.length);
+		sample[0] = (byte) first;
+		return new BigInteger(1, sample);
+	}
+
+	private static int getTopMask(BigInteger modulus) {
+		int sampleSize = (modulus.bitLength() + 7) / 8;
+		return (1 << (modulus.bitLength() - 8 * (sampleSize - 1))) - 1;
+	}
+
+	private static byte[] toBytes(BigInteger modulus) {
+		byte[] b = modulus.toByteArray();
+		int sampleSize = (modulus.bitLength() + 7) / 8;
+		return Arrays.copyOfRange(b, b.length - sampleSize, b.length);
+	}
+
+	private static void setBlock(byte[] blocks, int offset, byte[] seed, int counter) {
+		System.arraycopy(seed, 0, blocks, offset, 16);
+		blocks[offset + 12] ^= (byte) (counter >>> 24);
+		blocks[offset + 13] ^= (byte) (counter >>> 16);
+		blocks[offset + 14] ^= (byte) (counter >>> 8);
+		blocks[offset + 15] ^= (byte) counter;
+	}
+
+	private static byte[] encrypt(Cipher aes, byte[] input) {
+		try {
+			return aes.doFinal(input);
+		} catch (GeneralSecurityException e) {
+			throw new MPCException("Could not evaluate fixed-key AES", e);
+		}
+	}
+}
@@ -73,7 +73,7 @@ public class MiscOIntGenerators {
 			// Generate a new set of OInts and store them...
 			result = new OInt[l+1];
 
-			BigInteger[] coefficients = Util.constructPolynomial(l);
+			BigInteger[] coefficients = Util.constructPolynomial(l, provider.getModulus());
 			for (int i=0; i<=l ; i++) {
 				result[i] = provider.getOInt();
 				result[i].setValue(coefficients[coefficients.length - 1 - i]);
@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.lib.compare;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import dk.alexandra.fresco.framework.ProtocolProducer;
+import dk.alexandra.fresco.framework.value.OInt;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.lib.field.integer.BasicNumericFactory;
+import dk.alexandra.fresco.lib.helper.AbstractRoundBasedProtocol;
+import dk.alexandra.fresco.lib.helper.CopyProtocolImpl;
+import dk.alexandra.fresco.lib.helper.ParallelProtocolProducer;
+import dk.alexandra.fresco.lib.helper.sequential.SequentialProtocolProducer;
+import dk.alexandra.fresco.lib.math.linalg.InnerProductFactory;
+
+/**
+ * Generates a random additive mask r along with the bits of r mod 2^l from
+ * inputs of all parties. Party j inputs random bits b_j,i for 0 <= i < l and a
+ * random h_j < 2^k. The bits of the mask are the XOR of the b_j,i, computed
+ * using n-1 multiplications each, and r = sum_i 2^i*(XOR_j b_j,i) +
+ * 2^l*sum_j h_j.
+ * 
+ * Unlike {@link RandomAdditiveMaskCircuitImpl} r is not uniform in
+ * Z_{2^{l+k}} but in the sum of n such ranges, which masks values of l bits
+ * equally well but needs log(n) more bits of the field.
+ */
+public class RandomAdditiveMaskFromInputsCircuitImpl extends
+		AbstractRoundBasedProtocol implements RandomAdditiveMaskCircuit {
+
+	private final int bitLength;
+	private final int securityParameter;
+	private final int myId;
+	private final int noOfParties;
+	private final Random rand;
+	private final BasicNumericFactory bnf;
+	private final InnerProductFactory innerProductFactory;
+	private final MiscOIntGenerators misc;
+	private final SInt[] r;
+
+	private int round = 0;
+	private SInt[][] bits;
+	private SInt[] highs;
+
+	/**
+	 * @param bitLength
+	 *            the desired number of least significant bits, l
+	 * @param securityParameter
+	 *            the desired security parameter, k
+	 * @param rValue
+	 *            output - the mask r
+	 * @param myId
+	 *            the id of this party
+	 * @param noOfParties
+	 *            the number of parties, n
+	 */
+	public RandomAdditiveMaskFromInputsCircuitImpl(int bitLength,
+			int securityParameter, SInt rValue, int myId, int noOfParties,
+			Random rand, BasicNumericFactory bnf,
+			InnerProductFactory innerProductFactory, MiscOIntGenerators misc) {
+		this.bitLength = bitLength;
+		this.securityParameter = securityParameter;
+		this.myId = myId;
+		this.noOfParties = noOfParties;
+		this.rand = rand;
+		this.bnf = bnf;
+		this.innerProductFactory = innerProductFactory;
+		this.misc = misc;
+		// r[i] = i'th bit; 0 <= i < bitLength
+		// r[bitLength] = r
+		this.r = new SInt[bitLength + 1];
+		for (int i = 0; i < bitLength; i++) {
+			r[i] = bnf.getSInt();
+		}
+		r[bitLength] = rValue;
+		setOutputValues(r);
+	}
+
+	@Override
+	public ProtocolProducer nextGateProducer() {
+		ProtocolProducer gp = null;
+		switch (round) {
+		case 0:
+			// Every party inputs its bits and its high part.
+			ParallelProtocolProducer inputs = new ParallelProtocolProducer();
+			bits = new SInt[noOfParties][bitLength];
+			highs = new SInt[noOfParties];
+			for (int j = 0; j < noOfParties; j++) {
+				int party = j + 1;
+				for (int i = 0; i < bitLength; i++) {
+					bits[j][i] = bnf.getSInt();
+					inputs.append(bnf.getCloseProtocol(party,
+							input(party, 1),
+							bits[j][i]));
+				}
+				highs[j] = bnf.getSInt();
+				inputs.append(bnf.getCloseProtocol(party,
+						input(party, securityParameter),
+						highs[j]));
+			}
+			gp = inputs;
+			break;
+		case 1:
+			// r[i] = XOR_j bits[j][i], where x XOR y = x + y - 2xy.
+			ParallelProtocolProducer xors = new ParallelProtocolProducer();
+			for (int i = 0; i < bitLength; i++) {
+				SequentialProtocolProducer xor = new SequentialProtocolProducer();
+				SInt current = bits[0][i];
+				for (int j = 1; j < noOfParties; j++) {
+					SInt product = bnf.getSInt();
+					SInt sum = bnf.getSInt();
+					SInt doubled = bnf.getSInt();
+					SInt next = j == noOfParties - 1 ? r[i] : bnf.getSInt();
+					xor.append(new ParallelProtocolProducer(
+							bnf.getMultCircuit(current, bits[j][i], product),
+							bnf.getAddProtocol(current, bits[j][i], sum)));
+					xor.append(bnf.getAddProtocol(product, product, doubled));
+					xor.append(bnf.getSubtractCircuit(sum, doubled, next));
+					current = next;
+				}
+				if (noOfParties == 1) {
+					xor.append(new CopyProtocolImpl<SInt>(current, r[i]));
+				}
+				xors.append(xor);
+			}
+			gp = xors;
+			break;
+		case 2:
+			// r = sum_i 2^i*r[i] + 2^l*sum_j highs[j]
+			SInt[] terms = new SInt[bitLength + noOfParties];
+			OInt[] coefficients = new OInt[bitLength + noOfParties];
+			System.arraycopy(r, 0, terms, 0, bitLength);
+			System.arraycopy(highs, 0, terms, bitLength, noOfParties);
+			OInt[] twoPows = misc.getTwoPowers(bitLength + 1);
+			System.arraycopy(twoPows, 0, coefficients, 0, bitLength);
+			for (int j = 0; j < noOfParties; j++) {
+				coefficients[bitLength + j] = twoPows[bitLength];
+			}
+			gp = innerProductFactory.getInnerProductCircuit(terms,
+					coefficients, r[bitLength]);
+			break;
+		default:
+			bits = null;
+			highs = null;
+		}
+		round++;
+		return gp;
+	}
+
+	/**
+	 * @return a random value of the given bit length to be input by the given
+	 *         party, known only to that party.
+	 */
+	private OInt input(int party, int bits) {
+		OInt open = bnf.getOInt();
+		if (party == myId) {
+			open.setValue(new BigInteger(bits, rand));
+		}
+		return open;
+	}
+}
@@ -26,7 +26,10 @@
  *******************************************************************************/
 package dk.alexandra.fresco.lib.field.integer;
 
+import java.math.BigInteger;
+
 import dk.alexandra.fresco.framework.ProtocolFactory;
+import dk.alexandra.fresco.framework.value.OInt;
 import dk.alexandra.fresco.framework.value.OIntFactory;
 import dk.alexandra.fresco.framework.value.SInt;
 import dk.alexandra.fresco.framework.value.SIntFactory;
@@ -48,6 +51,15 @@ public interface BasicNumericFactory extends SIntFactory, OIntFactory,
 	 */
 	public int getMaxBitLength();
 
+	/**
+	 * Returns the modulus of the field. Computations over different fields
+	 * may run in the same JVM, so public constants of a computation must be
+	 * computed modulo this and not any process wide modulus.
+	 * 
+	 * @return
+	 */
+	public BigInteger getModulus();
+
 	/**
 	 * Returns the largest possible value containable in the field that we can
 	 * still multiply with and get no overflow.
@@ -55,4 +67,28 @@ public interface BasicNumericFactory extends SIntFactory, OIntFactory,
 	 * @return
 	 */
 	public SInt getSqrtOfMaxValue();
+
+	/**
+	 * Returns a secret shared, publicly known constant without scheduling a
+	 * protocol. The same instance may be returned for every request of the
+	 * same constant, so it must never be used as the output of a protocol.
+	 * Use {@link #getSInt(int, SInt)} to load a constant into a value that is
+	 * later overwritten.
+	 * 
+	 * @param i
+	 *            the constant.
+	 * @return a shared value holding the constant.
+	 */
+	public SInt getKnownConstantSInt(int i);
+
+	/**
+	 * Returns a public constant. The same instance may be returned for every
+	 * request of the same constant, so it must never be used as the output of
+	 * a protocol.
+	 * 
+	 * @param i
+	 *            the constant.
+	 * @return a shared value holding the constant.
+	 */
+	public OInt getKnownConstantOInt(int i);
 }
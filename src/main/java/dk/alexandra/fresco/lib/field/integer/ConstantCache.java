@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.lib.field.integer;
+
+import java.math.BigInteger;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import dk.alexandra.fresco.framework.value.OInt;
+import dk.alexandra.fresco.framework.value.OIntFactory;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.framework.value.SIntFactory;
+
+/**
+ * Caches the publicly known constants of a factory, such that circuits asking
+ * for e.g. the constant one in every iteration share a single value instead
+ * of creating a new one each time. The values are created locally by the
+ * factory the first time they are requested. Threads requesting the same
+ * constant at the same time get the same value.
+ */
+public class ConstantCache {
+
+	private final SIntFactory sIntFactory;
+	private final OIntFactory oIntFactory;
+	private final ConcurrentMap<Integer, SInt> sInts;
+	private final ConcurrentMap<Integer, OInt> oInts;
+	private final Function<Integer, SInt> newSInt;
+	private final Function<Integer, OInt> newOInt;
+
+	public ConstantCache(SIntFactory sIntFactory, OIntFactory oIntFactory) {
+		this.sIntFactory = sIntFactory;
+		this.oIntFactory = oIntFactory;
+		this.sInts = new ConcurrentHashMap<Integer, SInt>();
+		this.oInts = new ConcurrentHashMap<Integer, OInt>();
+		this.newSInt = new Function<Integer, SInt>() {
+			@SuppressWarnings("deprecation")
+			@Override
+			public SInt apply(Integer i) {
+				return sIntFactory.getSInt(i);
+			}
+		};
+		this.newOInt = new Function<Integer, OInt>() {
+			@Override
+			public OInt apply(Integer i) {
+				return oIntFactory.getOInt(BigInteger.valueOf(i));
+			}
+		};
+	}
+
+	/**
+	 * @param i
+	 *            the constant.
+	 * @return the shared secret value holding the constant.
+	 */
+	public SInt getSInt(int i) {
+		// Look up first, as computeIfAbsent locks even if the value exists.
+		SInt constant = sInts.get(i);
+		if (constant == null) {
+			constant = sInts.computeIfAbsent(i, newSInt);
+		}
+		return constant;
+	}
+
+	/**
+	 * @param i
+	 *            the constant.
+	 * @return the shared open value holding the constant.
+	 */
+	public OInt getOInt(int i) {
+		OInt constant = oInts.get(i);
+		if (constant == null) {
+			constant = oInts.computeIfAbsent(i, newOInt);
+		}
+		return constant;
+	}
+}
@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.lib.field.integer;
+
+import dk.alexandra.fresco.framework.value.OInt;
+import dk.alexandra.fresco.framework.value.SInt;
+
+/**
+ * A factory for protocols computing a linear combination of secret shared
+ * values in one step. Protocol suites where this is a local operation can
+ * implement it natively, so that a long chain of additions and
+ * multiplications by constants costs a single reduction and a single new
+ * value instead of one per operation.
+ * 
+ * Builders and circuits check whether their {@link BasicNumericFactory} also
+ * implements this interface, and fall back to additions otherwise.
+ */
+public interface LinearCombinationFactory {
+
+	/**
+	 * @param coefficients
+	 *            input - the public coefficients c_i, or null if all
+	 *            coefficients are 1.
+	 * @param values
+	 *            input - the secret shared values [x_i].
+	 * @param out
+	 *            output - [out] = sum_i c_i*[x_i].
+	 * @return
+	 */
+	public LinearCombinationProtocol getLinearCombinationProtocol(OInt[] coefficients,
+			SInt[] values, SInt out);
+}
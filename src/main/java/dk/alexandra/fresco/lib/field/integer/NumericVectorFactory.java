@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.lib.field.integer;
+
+import dk.alexandra.fresco.framework.value.OInt;
+import dk.alexandra.fresco.framework.value.SInt;
+
+/**
+ * A factory for protocols multiplying, opening or inputting whole vectors of
+ * secret shared values. Protocol suites sending a message per multiplication,
+ * opening or input can implement these natively, so that n operations in
+ * parallel cost one message per party per round instead of n.
+ * 
+ * Builders check whether their factory also implements this interface, and
+ * fall back to parallel protocols on single values otherwise.
+ */
+public interface NumericVectorFactory {
+
+	/**
+	 * @param left
+	 *            input - the secret shared values [x_i].
+	 * @param right
+	 *            input - the secret shared values [y_i], as many as there
+	 *            are x_i.
+	 * @param out
+	 *            output - [out_i] = [x_i*y_i].
+	 * @return
+	 */
+	public MultVectorProtocol getMultVectorProtocol(SInt[] left, SInt[] right, SInt[] out);
+
+	/**
+	 * @param closed
+	 *            input - the secret shared values to open towards all
+	 *            parties.
+	 * @param open
+	 *            output - the opened values, as many as there are closed
+	 *            values.
+	 * @return
+	 */
+	public OpenVectorProtocol getOpenVectorProtocol(SInt[] closed, OInt[] open);
+
+	/**
+	 * @param source
+	 *            the id of the party providing the inputs.
+	 * @param open
+	 *            input - the values to input. Only the values of the source
+	 *            are used.
+	 * @param closed
+	 *            output - the secret shared inputs, as many as there are open
+	 *            values.
+	 * @return
+	 */
+	public CloseVectorProtocol getCloseVectorProtocol(int source, OInt[] open, SInt[] closed);
+}
@@ -33,6 +33,7 @@ import dk.alexandra.fresco.framework.value.OInt;
 import dk.alexandra.fresco.framework.value.OIntFactory;
 import dk.alexandra.fresco.framework.value.SInt;
 import dk.alexandra.fresco.framework.value.SIntFactory;
+import dk.alexandra.fresco.lib.field.integer.NumericVectorFactory;
 import dk.alexandra.fresco.lib.field.integer.generic.IOIntProtocolFactory;
 import dk.alexandra.fresco.lib.helper.AbstractRepeatProtocol;
 
@@ -123,7 +124,9 @@ public class NumericIOBuilder extends AbstractProtocolBuilder {
 	}
 
 	/**
-	 * Appends a circuit to input a array of BigIntegers.
+	 * Appends a circuit to input a array of BigIntegers. If the provider of
+	 * input/output circuits is a {@link NumericVectorFactory} this is a single
+	 * protocol.
 	 * 
 	 * @param is
 	 *            the BigInteger values
@@ -137,6 +140,15 @@ public class NumericIOBuilder extends AbstractProtocolBuilder {
 		for (int i = 0; i < sis.length; i++) {
 			sis[i] = sip.getSInt();
 		}
+		if (iop instanceof NumericVectorFactory) {
+			OInt[] ois = new OInt[is.length];
+			for (int i = 0; i < ois.length; i++) {
+				ois[i] = oip.getOInt();
+				ois[i].setValue(is[i]);
+			}
+			append(((NumericVectorFactory) iop).getCloseVectorProtocol(targetID, ois, sis));
+			return sis;
+		}
 		append(new InputArray(is, sis, targetID));
 		return sis;
 	}
@@ -161,7 +173,8 @@ public class NumericIOBuilder extends AbstractProtocolBuilder {
 
 	/**
 	 * Appends a circuit to input an array of value by an other party. I.e., the
-	 * values or not held by this party.
+	 * values or not held by this party. If the provider of input/output
+	 * circuits is a {@link NumericVectorFactory} this is a single protocol.
 	 * 
 	 * @param length
 	 *            the length of the array
@@ -174,6 +187,14 @@ public class NumericIOBuilder extends AbstractProtocolBuilder {
 		for (int i = 0; i < length; i++) {
 			sis[i] = sip.getSInt();
 		}
+		if (iop instanceof NumericVectorFactory) {
+			OInt[] ois = new OInt[length];
+			for (int i = 0; i < length; i++) {
+				ois[i] = oip.getOInt();
+			}
+			append(((NumericVectorFactory) iop).getCloseVectorProtocol(targetID, ois, sis));
+			return sis;
+		}
 		append(new InputArray(sis, targetID));
 		return sis;
 	}
@@ -291,7 +312,8 @@ public class NumericIOBuilder extends AbstractProtocolBuilder {
 
 	/**
 	 * Appends a circuit to open an array of SInts. Output should be given to
-	 * all parties.
+	 * all parties. If the provider of input/output circuits is a
+	 * {@link NumericVectorFactory} this is a single protocol.
 	 * 
 	 * @param sis
 	 *            SInts to open
@@ -302,6 +324,10 @@ public class NumericIOBuilder extends AbstractProtocolBuilder {
 		for (int i = 0; i < sis.length; i++) {
 			ois[i] = oip.getOInt();
 		}
+		if (iop instanceof NumericVectorFactory) {
+			append(((NumericVectorFactory) iop).getOpenVectorProtocol(sis, ois));
+			return ois;
+		}
 		append(new OutputArray(sis, ois));
 		return ois;
 	}
@@ -27,13 +27,20 @@
 package dk.alexandra.fresco.lib.helper.builder;
 
 import java.math.BigInteger;
+import java.util.Arrays;
 
 import dk.alexandra.fresco.framework.ProtocolProducer;
+import dk.alexandra.fresco.framework.value.OInt;
 import dk.alexandra.fresco.framework.value.SInt;
 import dk.alexandra.fresco.lib.field.integer.BasicNumericFactory;
+import dk.alexandra.fresco.lib.field.integer.LinearCombinationFactory;
+import dk.alexandra.fresco.lib.field.integer.NumericVectorFactory;
+import dk.alexandra.fresco.lib.field.integer.SquareFactory;
 import dk.alexandra.fresco.lib.helper.AbstractRepeatProtocol;
 import dk.alexandra.fresco.lib.helper.builder.tree.TreeCircuit;
 import dk.alexandra.fresco.lib.helper.builder.tree.TreeCircuitNodeGenerator;
+import dk.alexandra.fresco.lib.math.linalg.MatrixFactory;
+import dk.alexandra.fresco.lib.math.linalg.MatrixMultProtocolImpl;
 
 public class NumericProtocolBuilder extends AbstractProtocolBuilder {
 
@@ -185,18 +192,12 @@ public class NumericProtocolBuilder extends AbstractProtocolBuilder {
 	 *         this array has the same length as lefthand input array
 	 */
 	public SInt[] add(SInt[] left, SInt[] right) {
-		SInt[] out = getSIntArray(left.length);
-		beginParScope();
-		try {
-			append(new ParAdditions(left, right, out));
-			for (int i = 0; i < left.length; i++) {
-				out[i] = add(left[i], right[i]);
-			}
-		} catch (IndexOutOfBoundsException e) {
+		if (right.length < left.length) {
 			throw new IllegalArgumentException("The righthand input array "
-					+ "most be at least as long as the left hand input arry", e);
+					+ "most be at least as long as the left hand input arry");
 		}
-		endCurScope();
+		SInt[] out = getSIntArray(left.length);
+		append(new ParAdditions(left, right, out));
 		return out;
 	}
 
@@ -209,6 +210,7 @@ public class NumericProtocolBuilder extends AbstractProtocolBuilder {
 		public ParAdditions(SInt[] left, SInt[] right, SInt[] out) {
 			this.left = left;
 			this.right = right;
+			this.out = out;
 		}
 
 		@Override
@@ -225,8 +227,10 @@ public class NumericProtocolBuilder extends AbstractProtocolBuilder {
 	}
 
 	/**
-	 * Appends a circuit that sums an array of terms. The method uses a
-	 * recursive tree algorithm to parallelize the computation.
+	 * Appends a circuit that sums an array of terms. If the factory is a
+	 * {@link LinearCombinationFactory} this is a single protocol, otherwise
+	 * the method uses a recursive tree algorithm to parallelize the
+	 * computation.
 	 * 
 	 * @param terms
 	 *            the terms to be summed up.
@@ -234,11 +238,47 @@ public class NumericProtocolBuilder extends AbstractProtocolBuilder {
 	 */
 	public SInt sum(SInt[] terms) {
 		SInt sum = getSInt();
+		if (bnp instanceof LinearCombinationFactory) {
+			append(((LinearCombinationFactory) bnp).getLinearCombinationProtocol(null, terms, sum));
+			return sum;
+		}
 		ProtocolProducer sumTree = new TreeCircuit(new SumNodeGenerator(terms, sum));
 		append(sumTree);
 		return sum;
 	}
 
+	/**
+	 * Appends a circuit computing sum_i coefficients[i]*terms[i]. If the
+	 * factory is a {@link LinearCombinationFactory} this is a single protocol,
+	 * otherwise the terms are multiplied by the coefficients in parallel and
+	 * summed up.
+	 * 
+	 * @param coefficients
+	 *            the public coefficients.
+	 * @param terms
+	 *            the terms, as many as there are coefficients.
+	 * @return an SInt that will be loaded with the linear combination.
+	 */
+	public SInt linearCombination(OInt[] coefficients, SInt[] terms) {
+		if (coefficients.length != terms.length) {
+			throw new IllegalArgumentException("Got " + coefficients.length
+					+ " coefficients for " + terms.length + " terms");
+		}
+		if (bnp instanceof LinearCombinationFactory) {
+			SInt result = getSInt();
+			append(((LinearCombinationFactory) bnp).getLinearCombinationProtocol(coefficients,
+					terms, result));
+			return result;
+		}
+		SInt[] products = getSIntArray(terms.length);
+		beginParScope();
+		for (int i = 0; i < terms.length; i++) {
+			append(bnp.getMultCircuit(coefficients[i], terms[i], products[i]));
+		}
+		endCurScope();
+		return sum(products);
+	}
+
 	private class SumNodeGenerator implements TreeCircuitNodeGenerator {
 
 		private SInt[] terms;
@@ -334,7 +374,8 @@ public class NumericProtocolBuilder extends AbstractProtocolBuilder {
 	}
 
 	/**
-	 * Multiplies two SInts
+	 * Multiplies two SInts. If both inputs are the same SInt, this is a
+	 * {@link #square(SInt)}.
 	 * 
 	 * @param left
 	 *            the lefthand input
@@ -343,11 +384,32 @@ public class NumericProtocolBuilder extends AbstractProtocolBuilder {
 	 * @return an SInt representing the result of the multiplication
 	 */
 	public SInt mult(SInt left, SInt right) {
+		if (left == right) {
+			return square(left);
+		}
 		SInt out = bnp.getSInt();
 		append(bnp.getMultCircuit(left, right, out));
 		return out;
 	}
 
+	/**
+	 * Squares an SInt. If the factory is a {@link SquareFactory} its square
+	 * protocol is used, otherwise the SInt is multiplied by itself.
+	 * 
+	 * @param value
+	 *            the input
+	 * @return an SInt representing the square of the input
+	 */
+	public SInt square(SInt value) {
+		SInt out = bnp.getSInt();
+		if (bnp instanceof SquareFactory) {
+			append(((SquareFactory) bnp).getSquareProtocol(value, out));
+		} else {
+			append(bnp.getMultCircuit(value, value, out));
+		}
+		return out;
+	}
+
 	/**
 	 * Scales the right side array of SInts.
 	 * 
@@ -359,6 +421,11 @@ public class NumericProtocolBuilder extends AbstractProtocolBuilder {
 	 * 
 	 */
 	public SInt[] scale(SInt scale, SInt[] right) {
+		if (bnp instanceof NumericVectorFactory) {
+			SInt[] left = new SInt[right.length];
+			Arrays.fill(left, scale);
+			return multVector(left, right);
+		}
 		SInt[] out = new SInt[right.length];
 		beginParScope();
 		for (int i = 0; i < right.length; i++) {
@@ -379,8 +446,17 @@ public class NumericProtocolBuilder extends AbstractProtocolBuilder {
 	 *            the righthand input array
 	 * @return an array of SInts representing the result of the multiplication.
 	 *         Note this array has the same length as lefthand input array.
+	 *         If the factory is a {@link NumericVectorFactory} this is a
+	 *         single protocol.
 	 */
 	public SInt[] mult(SInt[] left, SInt[] right) {
+		if (bnp instanceof NumericVectorFactory) {
+			if (right.length < left.length) {
+				throw new IllegalArgumentException("The righthand input array "
+						+ "most be at least as long as the left hand input arry");
+			}
+			return multVector(left, Arrays.copyOf(right, left.length));
+		}
 		SInt[] out = new SInt[left.length];
 		beginParScope();
 		try {
@@ -395,6 +471,12 @@ public class NumericProtocolBuilder extends AbstractProtocolBuilder {
 		return out;
 	}
 
+	private SInt[] multVector(SInt[] left, SInt[] right) {
+		SInt[] out = getSIntArray(left.length);
+		append(((NumericVectorFactory) bnp).getMultVectorProtocol(left, right, out));
+		return out;
+	}
+
 	/**
 	 * Subtracts the righthand SInt from the lefthand SInt.
 	 * 
@@ -445,6 +527,27 @@ public class NumericProtocolBuilder extends AbstractProtocolBuilder {
 		return innerProduct;
 	}
 
+	/**
+	 * Multiplies the lefthand matrix by the righthand matrix. If the factory
+	 * is a {@link MatrixFactory} this is a single protocol, otherwise the
+	 * matrices are multiplied entry by entry.
+	 * 
+	 * @param left
+	 *            the lefthand l x m matrix, given as an array of rows.
+	 * @param right
+	 *            the righthand m x n matrix, given as an array of rows.
+	 * @return an l x n matrix of SInts representing the product.
+	 */
+	public SInt[][] matrixMult(SInt[][] left, SInt[][] right) {
+		SInt[][] out = getSIntMatrix(left.length, right[0].length);
+		if (bnp instanceof MatrixFactory) {
+			append(((MatrixFactory) bnp).getMatrixMultProtocol(left, right, out));
+		} else {
+			append(new MatrixMultProtocolImpl(left, right, out, bnp));
+		}
+		return out;
+	}
+
 	@Override
 	public void addGateProducer(ProtocolProducer gp) {
 		append(gp);
@@ -79,9 +79,8 @@ public class BlandEnteringVariableCircuit extends AbstractSimpleProtocol {
 	
 	@Override
 	protected ProtocolProducer initializeGateProducer() {
-		SInt negativeOne = bnProvider.getSInt();
-		SInt one = bnProvider.getSInt();		
-		ProtocolProducer loadValues = new ParallelProtocolProducer(bnProvider.getSInt(-1, negativeOne), bnProvider.getSInt(1, one));
+		SInt negativeOne = bnProvider.getKnownConstantSInt(-1);
+		SInt one = bnProvider.getKnownConstantSInt(1);
 		
 		SInt[] updatedF = Util.sIntFill(new SInt[tableau.getF().length], bnProvider);
 		ProtocolProducer updateFProducer = getUpdateFProducer(updatedF);
@@ -132,7 +131,6 @@ public class BlandEnteringVariableCircuit extends AbstractSimpleProtocol {
 		decideTermination.append(bnProvider.getSubtractCircuit(one, termination, termination));
 		
 		SequentialProtocolProducer gp = new SequentialProtocolProducer(
-				loadValues,
 				updateFProducer,
 				signTest,
 				prefixSum,
@@ -31,6 +31,7 @@ import dk.alexandra.fresco.framework.ProtocolProducer;
 import dk.alexandra.fresco.framework.value.SInt;
 import dk.alexandra.fresco.framework.value.Value;
 import dk.alexandra.fresco.lib.field.integer.BasicNumericFactory;
+import dk.alexandra.fresco.lib.field.integer.LinearCombinationFactory;
 import dk.alexandra.fresco.lib.helper.AbstractRoundBasedProtocol;
 import dk.alexandra.fresco.lib.helper.ParallelProtocolProducer;
 import dk.alexandra.fresco.lib.helper.sequential.SequentialProtocolProducer;
@@ -98,8 +99,8 @@ public class ExitingVariableCircuit extends AbstractRoundBasedProtocol {
 	@Override
 	public ProtocolProducer nextGateProducer() {
 		SInt infinity = bnProvider.getSqrtOfMaxValue();
-		SInt one = bnProvider.getSInt(1);
-		SInt zero = bnProvider.getSInt(0);
+		SInt one = bnProvider.getKnownConstantSInt(1);
+		SInt zero = bnProvider.getKnownConstantSInt(0);
 		int tableauHeight = tableau.getC().getHeight() + 1;
 		if (round == 0) {
 			// Extract entering column
@@ -182,6 +183,21 @@ public class ExitingVariableCircuit extends AbstractRoundBasedProtocol {
 			round++;
 		} else if (round == 5) {
 			// Determine pivot
+			if (bnProvider instanceof LinearCombinationFactory) {
+				// Sum both columns in one step rather than a chain of additions.
+				SInt[] terms = new SInt[2 * (tableauHeight - 1)];
+				for (int i = 0; i < tableauHeight - 1; i++) {
+					terms[2 * i] = updatedEnteringColumn[i];
+					terms[2 * i + 1] = updateColumn[i];
+				}
+				SInt sum = bnProvider.getSInt();
+				ProtocolProducer sumProducer = ((LinearCombinationFactory) bnProvider)
+						.getLinearCombinationProtocol(null, terms, sum);
+				ProtocolProducer subtractOne = bnProvider.getSubtractCircuit(sum, one, pivot);
+				gp = new SequentialProtocolProducer(sumProducer, subtractOne);
+				round++;
+				return gp;
+			}
 			SInt[] parAdditionResults = new SInt[tableauHeight - 1];
 			ProtocolProducer[] parAdditions = new ProtocolProducer[tableauHeight - 1];
 			SInt[] seqAdditionResults = new SInt[tableauHeight - 1];
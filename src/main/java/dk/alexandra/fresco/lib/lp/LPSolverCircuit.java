@@ -74,7 +74,7 @@ public class LPSolverCircuit implements Protocol {
 			this.gp = null;
 			this.lpProvider = lpProvider;
 			this.bnProvider = bnProvider;
-			this.zero = bnProvider.getSInt(0);
+			this.zero = bnProvider.getKnownConstantSInt(0);
 			this.state = STATE.PHASE1;
 			iterations = 0;
 		} else {
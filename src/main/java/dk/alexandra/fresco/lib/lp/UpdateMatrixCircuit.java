@@ -34,11 +34,13 @@ import dk.alexandra.fresco.framework.value.Value;
 import dk.alexandra.fresco.lib.compare.ConditionalSelectCircuit;
 import dk.alexandra.fresco.lib.field.integer.AddProtocol;
 import dk.alexandra.fresco.lib.field.integer.BasicNumericFactory;
+import dk.alexandra.fresco.lib.field.integer.LinearCombinationFactory;
 import dk.alexandra.fresco.lib.field.integer.MultProtocol;
 import dk.alexandra.fresco.lib.field.integer.SubtractCircuit;
 import dk.alexandra.fresco.lib.helper.ParallelProtocolProducer;
 import dk.alexandra.fresco.lib.helper.sequential.SequentialProtocolProducer;
 import dk.alexandra.fresco.lib.math.inv.InversionProtocol;
+import dk.alexandra.fresco.lib.math.linalg.MatrixFactory;
 
 public class UpdateMatrixCircuit implements Protocol{
 
@@ -69,11 +71,12 @@ public class UpdateMatrixCircuit implements Protocol{
 			SInt p_prime_inv, pp, one;
 			p_prime_inv = numericProvider.getSInt();
 			pp = numericProvider.getSInt();
-			one = numericProvider.getSInt(1);
+			one = numericProvider.getKnownConstantSInt(1);
 			
 			InversionProtocol inv = lpProvider.getInversionProtocol(p_prime, p_prime_inv);
 			MultProtocol mult1 = numericProvider.getMultCircuit(p, p_prime_inv, pp);			
 			
+			boolean useMatrixMult = numericProvider instanceof MatrixFactory;
 			int h = oldUpdateMatrix.getHeight();
 			int w = oldUpdateMatrix.getWidth();
 			// These 3 for the generation of lambda_i's
@@ -111,7 +114,7 @@ public class UpdateMatrixCircuit implements Protocol{
 					if (j < oldUpdateMatrix.getWidth() - 1) {
 						mults_l_v[j][i] = numericProvider.getMultCircuit(L[j], oldUpdateMatrix.getElement(j, i), lambdas_i_jOuts[j][i]);
 					} else {
-						lambdas_i_jOuts[j][i] = numericProvider.getSInt(0);
+						lambdas_i_jOuts[j][i] = numericProvider.getKnownConstantSInt(0);
 					}
 					//TODO: Check that we add the correct amount. (from j=1 to m+1)
 					addsLambda_i[j][i] = numericProvider.getAddProtocol(lambdas_i_jOuts[j][i], lambdas_iOuts[i], lambdas_iOuts[i]);
@@ -120,7 +123,9 @@ public class UpdateMatrixCircuit implements Protocol{
 					subOuts[j][i] = numericProvider.getSInt();
 					subs[j][i] = numericProvider.getSubtractCircuit(oldUpdateMatrix.getElement(j, i), lambdas_i_jOuts[j][i], subOuts[j][i]);
 					mults_cAndLambda_iOuts[j][i] = numericProvider.getSInt();
-					mults_cAndLambda_i[j][i] = numericProvider.getMultCircuit(C[j], lambdas_iOuts[i], mults_cAndLambda_iOuts[j][i]);
+					if (!useMatrixMult) {
+						mults_cAndLambda_i[j][i] = numericProvider.getMultCircuit(C[j], lambdas_iOuts[i], mults_cAndLambda_iOuts[j][i]);
+					}
 					mults_sub_and_ppOuts[j][i] = numericProvider.getSInt();
 					mults_sub_and_pp[j][i] = numericProvider.getMultCircuit(subOuts[j][i], pp, mults_sub_and_ppOuts[j][i]);
 					adds[j][i] = numericProvider.getAddProtocol(mults_cAndLambda_iOuts[j][i], mults_sub_and_ppOuts[j][i], newUpdateMatrix.getIthRow(j)[i]);
@@ -136,6 +141,16 @@ public class UpdateMatrixCircuit implements Protocol{
 			//GateProducer gpAddsLambda = getParallelGP(addsLambda_i);
 			ParallelProtocolProducer gpAddsLambda = new ParallelProtocolProducer();
 			for (int i = 0; i < addsLambda_i[0].length; i ++) {
+				if (numericProvider instanceof LinearCombinationFactory) {
+					// Sum the column in one step rather than a chain of additions.
+					SInt[] column = new SInt[addsLambda_i.length];
+					for (int j = 0; j < column.length; j++) {
+						column[j] = lambdas_i_jOuts[j][i];
+					}
+					gpAddsLambda.append(((LinearCombinationFactory) numericProvider)
+							.getLinearCombinationProtocol(null, column, lambdas_iOuts[i]));
+					continue;
+				}
 				SequentialProtocolProducer seqAdd = new SequentialProtocolProducer();
 				for (int j = 0; j < addsLambda_i.length; j++) {
 					seqAdd.append(addsLambda_i[j][i]);
@@ -147,7 +162,18 @@ public class UpdateMatrixCircuit implements Protocol{
 			ProtocolProducer gpSub = getParallelGP(subs);
 			ParallelProtocolProducer gpAddAndSub = new ParallelProtocolProducer(gpAddsLambda, gpSub);
 			SequentialProtocolProducer seq2 = new SequentialProtocolProducer(par1, gpAddAndSub);
-			ProtocolProducer gpMultCAndLambda = getParallelGP(mults_cAndLambda_i);
+			ProtocolProducer gpMultCAndLambda;
+			if (useMatrixMult) {
+				// The products C[j]*lambda_i form the outer product of C and lambda.
+				SInt[][] column = new SInt[C.length][];
+				for (int j = 0; j < C.length; j++) {
+					column[j] = new SInt[] { C[j] };
+				}
+				gpMultCAndLambda = ((MatrixFactory) numericProvider).getMatrixMultProtocol(
+						column, new SInt[][] { lambdas_iOuts }, mults_cAndLambda_iOuts);
+			} else {
+				gpMultCAndLambda = getParallelGP(mults_cAndLambda_i);
+			}
 			ProtocolProducer gpMultSubAndPP = getParallelGP(mults_sub_and_pp);
 			ProtocolProducer gpAdds = getParallelGP(adds);
 			
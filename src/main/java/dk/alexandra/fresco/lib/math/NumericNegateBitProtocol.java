@@ -26,7 +26,6 @@
  *******************************************************************************/
 package dk.alexandra.fresco.lib.math;
 
-import java.math.BigInteger;
 
 import dk.alexandra.fresco.framework.NativeProtocol;
 import dk.alexandra.fresco.framework.Protocol;
@@ -58,7 +57,7 @@ public class NumericNegateBitProtocol implements Protocol{
 	@Override
 	public int getNextProtocols(NativeProtocol[] gates, int pos) {
 		if(gp == null){
-			OInt one = provider.getOInt(BigInteger.ONE);
+			OInt one = provider.getKnownConstantOInt(1);
 			Protocol subtractCircuit = provider.getSubtractCircuit(one, bit, out);
 			gp = new SequentialProtocolProducer(subtractCircuit);
 		}
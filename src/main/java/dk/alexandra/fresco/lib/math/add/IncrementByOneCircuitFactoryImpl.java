@@ -26,7 +26,6 @@
  *******************************************************************************/
 package dk.alexandra.fresco.lib.math.add;
 
-import java.math.BigInteger;
 
 import dk.alexandra.fresco.framework.ProtocolProducer;
 import dk.alexandra.fresco.framework.value.OInt;
@@ -43,7 +42,7 @@ public class IncrementByOneCircuitFactoryImpl implements IncrementByOneCircuitFa
 	
 	@Override
 	public ProtocolProducer getIncrementByOneCircuit(SInt in, SInt out) {
-		OInt one = bnf.getOInt(BigInteger.ONE);
+		OInt one = bnf.getKnownConstantOInt(1);
 		return bnf.getAddProtocol(in, one, out);
 	}
 
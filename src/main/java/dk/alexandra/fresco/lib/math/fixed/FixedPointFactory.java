@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.lib.math.fixed;
+
+import java.math.BigDecimal;
+
+import dk.alexandra.fresco.framework.Protocol;
+import dk.alexandra.fresco.framework.value.OInt;
+import dk.alexandra.fresco.framework.value.SInt;
+
+/**
+ * A factory for protocols on secret shared fixed-point numbers, see
+ * {@link SFixed}. Additions are local, while multiplications are followed by a
+ * probabilistic truncation that opens a single masked value. The result of a
+ * truncation is rounded either up or down, i.e., it may be one unit in the
+ * last place off the exact result.
+ */
+public interface FixedPointFactory {
+
+	/**
+	 * @return the number of fractional bits of the numbers.
+	 */
+	public int getPrecision();
+
+	/**
+	 * @return a new, uninitialized fixed-point number.
+	 */
+	public SFixed getSFixed();
+
+	/**
+	 * @param value
+	 *            a public value.
+	 * @param out
+	 *            output - the value as a secret shared number.
+	 */
+	public Protocol getKnownSFixedProtocol(BigDecimal value, SFixed out);
+
+	/**
+	 * @param source
+	 *            the id of the party providing the input.
+	 * @param value
+	 *            the value, only used by the source.
+	 * @param out
+	 *            output - the input as a secret shared number.
+	 */
+	public Protocol getCloseProtocol(int source, BigDecimal value, SFixed out);
+
+	/**
+	 * Opens a number. The opened value must be read using {@link #decode(OInt)}.
+	 * 
+	 * @param in
+	 *            input - the number to open.
+	 * @param out
+	 *            output - the encoded opened number.
+	 */
+	public Protocol getOpenProtocol(SFixed in, OInt out);
+
+	/**
+	 * @param opened
+	 *            an opened value produced by {@link #getOpenProtocol(SFixed, OInt)}.
+	 * @return the opened number.
+	 */
+	public BigDecimal decode(OInt opened);
+
+	public Protocol getAddProtocol(SFixed a, SFixed b, SFixed out);
+
+	public Protocol getSubtractProtocol(SFixed a, SFixed b, SFixed out);
+
+	/**
+	 * Multiplies two numbers and truncates the product back to the precision of
+	 * the factory.
+	 */
+	public Protocol getMultProtocol(SFixed a, SFixed b, SFixed out);
+
+	/**
+	 * Multiplies a number with a public constant, which is rounded to the
+	 * precision of the factory.
+	 */
+	public Protocol getMultProtocol(BigDecimal c, SFixed a, SFixed out);
+
+	/**
+	 * Divides a number by a public constant by multiplying with its reciprocal,
+	 * rounded to the precision of the factory.
+	 */
+	public Protocol getDivisionProtocol(SFixed a, BigDecimal divisor, SFixed out);
+
+	/**
+	 * @param result
+	 *            output - [1] (true) or [0] (false) (result of a <= b)
+	 */
+	public Protocol getComparisonProtocol(SFixed a, SFixed b, SInt result);
+
+	/**
+	 * Computes [in / 2^shift], rounded either up or down.
+	 * 
+	 * @param in
+	 *            input - an integer of at most the bit length of the factory,
+	 *            including the sign.
+	 * @param shift
+	 *            the number of bits to truncate.
+	 * @param out
+	 *            output - the truncated integer.
+	 */
+	public TruncationProtocol getTruncationProtocol(SInt in, int shift, SInt out);
+}
@@ -0,0 +1,251 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.lib.math.fixed;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.Protocol;
+import dk.alexandra.fresco.framework.ProtocolProducer;
+import dk.alexandra.fresco.framework.value.OInt;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.lib.compare.ComparisonProtocolFactory;
+import dk.alexandra.fresco.lib.compare.MiscOIntGenerators;
+import dk.alexandra.fresco.lib.compare.RandomAdditiveMaskFactory;
+import dk.alexandra.fresco.lib.field.integer.BasicNumericFactory;
+import dk.alexandra.fresco.lib.helper.AbstractSimpleProtocol;
+import dk.alexandra.fresco.lib.helper.sequential.SequentialProtocolProducer;
+import dk.alexandra.fresco.lib.math.inv.LocalInversionFactory;
+import dk.alexandra.fresco.lib.math.linalg.InnerProductFactory;
+import dk.alexandra.fresco.lib.math.linalg.InnerProductFactoryImpl;
+
+/**
+ * Implements fixed-point numbers on top of a {@link BasicNumericFactory}.
+ * Truncation masks come from a {@link RandomAdditiveMaskFactory}, e.g., a
+ * {@link dk.alexandra.fresco.lib.compare.RandomAdditiveMaskFactoryImpl} for
+ * suites with preprocessed random bits such as SPDZ, or a
+ * {@link dk.alexandra.fresco.lib.compare.RandomAdditiveMaskFromInputsFactoryImpl}
+ * for suites without, such as BGW.
+ * 
+ * Negative numbers are loaded and input as their residues modulo the modulus
+ * of the field, and opened offset by 2^(k-1), where k is the bit length of
+ * the factory, so that the opened value is non-negative.
+ */
+public class FixedPointFactoryImpl implements FixedPointFactory {
+
+	private final BasicNumericFactory bnf;
+	private final LocalInversionFactory localInvFactory;
+	private final RandomAdditiveMaskFactory maskFactory;
+	private final ComparisonProtocolFactory comparisonFactory;
+	private final InnerProductFactory innerProductFactory;
+	private final MiscOIntGenerators misc;
+	private final int precision;
+	private final int bitLength;
+	private final int securityParameter;
+	private final BigInteger offset;
+
+	/**
+	 * @param precision
+	 *            the number of fractional bits f.
+	 * @param bitLength
+	 *            the bit length k of the integer representations, including the
+	 *            sign. The product of two numbers must fit, i.e., if the
+	 *            numbers are at most 2^e in absolute value, k must be at least
+	 *            2(e + f) + 1. The field must hold numbers of k +
+	 *            securityParameter + 1 bits.
+	 * @param comparisonFactory
+	 *            the comparison factory, or null if comparisons are not
+	 *            needed.
+	 */
+	public FixedPointFactoryImpl(int precision, int bitLength,
+			int securityParameter, BasicNumericFactory bnf,
+			LocalInversionFactory localInvFactory,
+			RandomAdditiveMaskFactory maskFactory,
+			ComparisonProtocolFactory comparisonFactory) {
+		if (precision <= 0 || 2 * precision >= bitLength) {
+			throw new MPCException("A precision of " + precision
+					+ " bits does not fit a bit length of " + bitLength);
+		}
+		this.precision = precision;
+		this.bitLength = bitLength;
+		this.securityParameter = securityParameter;
+		this.bnf = bnf;
+		this.localInvFactory = localInvFactory;
+		this.maskFactory = maskFactory;
+		this.comparisonFactory = comparisonFactory;
+		this.innerProductFactory = new InnerProductFactoryImpl(bnf);
+		this.misc = new MiscOIntGenerators(bnf);
+		this.offset = BigInteger.ONE.shiftLeft(bitLength - 1);
+	}
+
+	@Override
+	public int getPrecision() {
+		return precision;
+	}
+
+	@Override
+	public SFixed getSFixed() {
+		return new SFixed(bnf.getSInt(), precision);
+	}
+
+	@Override
+	public Protocol getKnownSFixedProtocol(BigDecimal value, SFixed out) {
+		check(out);
+		return bnf.getSInt(encode(value).mod(bnf.getModulus()), out.getSInt());
+	}
+
+	@Override
+	public Protocol getCloseProtocol(int source, BigDecimal value, SFixed out) {
+		check(out);
+		OInt open = bnf.getOInt();
+		if (value != null) {
+			open.setValue(encode(value).mod(bnf.getModulus()));
+		}
+		return bnf.getCloseProtocol(source, open, out.getSInt());
+	}
+
+	@Override
+	public Protocol getOpenProtocol(SFixed in, OInt out) {
+		check(in);
+		SInt shifted = bnf.getSInt();
+		return sequential(
+				bnf.getAddProtocol(in.getSInt(), bnf.getOInt(offset), shifted),
+				bnf.getOpenProtocol(shifted, out));
+	}
+
+	@Override
+	public BigDecimal decode(OInt opened) {
+		return new BigDecimal(opened.getValue().subtract(offset), precision)
+				.multiply(BigDecimal.valueOf(5).pow(precision));
+	}
+
+	@Override
+	public Protocol getAddProtocol(SFixed a, SFixed b, SFixed out) {
+		check(a, b, out);
+		return bnf.getAddProtocol(a.getSInt(), b.getSInt(), out.getSInt());
+	}
+
+	@Override
+	public Protocol getSubtractProtocol(SFixed a, SFixed b, SFixed out) {
+		check(a, b, out);
+		return bnf.getSubtractCircuit(a.getSInt(), b.getSInt(), out.getSInt());
+	}
+
+	@Override
+	public Protocol getMultProtocol(SFixed a, SFixed b, SFixed out) {
+		check(a, b, out);
+		SInt product = bnf.getSInt();
+		return sequential(
+				bnf.getMultCircuit(a.getSInt(), b.getSInt(), product),
+				getTruncationProtocol(product, precision, out.getSInt()));
+	}
+
+	@Override
+	public Protocol getMultProtocol(BigDecimal c, SFixed a, SFixed out) {
+		check(a, out);
+		return scale(encode(c), a, out);
+	}
+
+	@Override
+	public Protocol getDivisionProtocol(SFixed a, BigDecimal divisor,
+			SFixed out) {
+		check(a, out);
+		if (divisor.signum() == 0) {
+			throw new MPCException("Cannot divide by zero");
+		}
+		BigDecimal reciprocal = new BigDecimal(BigInteger.ONE.shiftLeft(precision))
+				.divide(divisor, 0, RoundingMode.HALF_UP);
+		return scale(reciprocal.toBigIntegerExact(), a, out);
+	}
+
+	@Override
+	public Protocol getComparisonProtocol(SFixed a, SFixed b, SInt result) {
+		check(a, b);
+		if (comparisonFactory == null) {
+			throw new MPCException(
+					"Comparing fixed-point numbers requires a comparison factory");
+		}
+		return comparisonFactory.getGreaterThanProtocol(a.getSInt(),
+				b.getSInt(), result, false);
+	}
+
+	@Override
+	public TruncationProtocol getTruncationProtocol(SInt in, int shift,
+			SInt out) {
+		return new ProbabilisticTruncationProtocolImpl(in, shift, out,
+				bitLength, securityParameter, bnf, maskFactory,
+				localInvFactory, innerProductFactory, misc);
+	}
+
+	/**
+	 * Multiplies by the encoded constant c and truncates. A negative constant
+	 * is applied as its absolute value followed by a negation, so that OInts
+	 * stay non-negative.
+	 */
+	private Protocol scale(BigInteger c, SFixed a, SFixed out) {
+		SInt product = bnf.getSInt();
+		OInt constant = bnf.getOInt(c.abs());
+		Protocol mult = bnf.getMultCircuit(constant, a.getSInt(), product);
+		if (c.signum() >= 0) {
+			return sequential(mult,
+					getTruncationProtocol(product, precision, out.getSInt()));
+		}
+		SInt truncated = bnf.getSInt();
+		return sequential(mult,
+				getTruncationProtocol(product, precision, truncated),
+				bnf.getSubtractCircuit(bnf.getKnownConstantSInt(0), truncated, out.getSInt()));
+	}
+
+	/**
+	 * @return round(value * 2^f).
+	 */
+	private BigInteger encode(BigDecimal value) {
+		return value.multiply(new BigDecimal(BigInteger.ONE.shiftLeft(precision)))
+				.setScale(0, RoundingMode.HALF_UP).toBigIntegerExact();
+	}
+
+	private void check(SFixed... values) {
+		for (SFixed value : values) {
+			if (value.getPrecision() != precision) {
+				throw new MPCException("Expected a precision of " + precision
+						+ " bits but got " + value.getPrecision());
+			}
+		}
+	}
+
+	private static Protocol sequential(final ProtocolProducer... producers) {
+		return new AbstractSimpleProtocol() {
+
+			@Override
+			protected ProtocolProducer initializeGateProducer() {
+				return new SequentialProtocolProducer(producers);
+			}
+		};
+	}
+}
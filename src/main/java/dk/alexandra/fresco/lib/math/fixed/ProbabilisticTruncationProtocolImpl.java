@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.lib.math.fixed;
+
+import java.math.BigInteger;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.Protocol;
+import dk.alexandra.fresco.framework.ProtocolProducer;
+import dk.alexandra.fresco.framework.value.OInt;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.framework.value.Value;
+import dk.alexandra.fresco.lib.compare.MiscOIntGenerators;
+import dk.alexandra.fresco.lib.compare.RandomAdditiveMaskFactory;
+import dk.alexandra.fresco.lib.field.integer.BasicNumericFactory;
+import dk.alexandra.fresco.lib.helper.AbstractRoundBasedProtocol;
+import dk.alexandra.fresco.lib.helper.ParallelProtocolProducer;
+import dk.alexandra.fresco.lib.helper.sequential.SequentialProtocolProducer;
+import dk.alexandra.fresco.lib.math.inv.LocalInversionFactory;
+import dk.alexandra.fresco.lib.math.linalg.InnerProductFactory;
+
+/**
+ * Probabilistic truncation of a signed integer a of bit length k, following
+ * Catrina and Saxena, "Secure Computation With Fixed-Point Numbers". Using a
+ * random mask r = 2^m*r' + r'' with r'' < 2^m, the value c = 2^(k-1) + a + r is
+ * opened, and the result is (a - (c mod 2^m) + r'') * 2^(-m). This equals
+ * floor(a / 2^m) plus a carry of 0 or 1, which is 1 with probability
+ * (a mod 2^m) / 2^m.
+ * 
+ * The mask is taken from a {@link RandomAdditiveMaskFactory}, so apart from
+ * the preprocessing the protocol only opens the single value c.
+ */
+public class ProbabilisticTruncationProtocolImpl extends
+		AbstractRoundBasedProtocol implements TruncationProtocol {
+
+	private final SInt in;
+	private final int shift;
+	private final SInt out;
+	private final int bitLength;
+	private final int securityParameter;
+	private final BasicNumericFactory bnf;
+	private final RandomAdditiveMaskFactory maskFactory;
+	private final LocalInversionFactory localInvFactory;
+	private final InnerProductFactory innerProductFactory;
+	private final MiscOIntGenerators misc;
+
+	private int round = 0;
+	private SInt r;
+	private SInt[] rBits;
+	private SInt rLow;
+	private OInt twoToNegShift;
+	private OInt c;
+
+	/**
+	 * @param in
+	 *            input - an integer a with -2^(k-1) <= a < 2^(k-1).
+	 * @param shift
+	 *            the number of bits m to truncate, 0 < m < k.
+	 * @param out
+	 *            output - a / 2^m, rounded either up or down.
+	 * @param bitLength
+	 *            the bit length k of the input, including the sign.
+	 * @param securityParameter
+	 *            the statistical security parameter of the mask. The field
+	 *            must hold numbers of k + securityParameter + 1 bits.
+	 */
+	public ProbabilisticTruncationProtocolImpl(SInt in, int shift, SInt out,
+			int bitLength, int securityParameter, BasicNumericFactory bnf,
+			RandomAdditiveMaskFactory maskFactory,
+			LocalInversionFactory localInvFactory,
+			InnerProductFactory innerProductFactory, MiscOIntGenerators misc) {
+		if (shift <= 0 || shift >= bitLength) {
+			throw new MPCException("Cannot truncate " + shift
+					+ " bits of a " + bitLength + " bit number");
+		}
+		this.in = in;
+		this.shift = shift;
+		this.out = out;
+		this.bitLength = bitLength;
+		this.securityParameter = securityParameter;
+		this.bnf = bnf;
+		this.maskFactory = maskFactory;
+		this.localInvFactory = localInvFactory;
+		this.innerProductFactory = innerProductFactory;
+		this.misc = misc;
+		setInputValues(new Value[] { in });
+		setOutputValues(new Value[] { out });
+	}
+
+	@Override
+	public ProtocolProducer nextGateProducer() {
+		ProtocolProducer gp = null;
+		switch (round) {
+		case 0:
+			// Load r with the bits of r'' = r mod 2^m, and 2^(-m).
+			r = bnf.getSInt();
+			Protocol mask = maskFactory.getRandomAdditiveMaskCircuit(shift,
+					bitLength + securityParameter - shift, r);
+			rBits = new SInt[shift];
+			System.arraycopy(mask.getOutputValues(), 0, rBits, 0, shift);
+			OInt twoToShift = bnf.getOInt(BigInteger.ONE.shiftLeft(shift));
+			twoToNegShift = bnf.getOInt();
+			gp = new ParallelProtocolProducer(mask,
+					localInvFactory.getLocalInversionCircuit(twoToShift,
+							twoToNegShift));
+			break;
+		case 1:
+			// Compute r'' and open c = 2^(k-1) + a + r.
+			rLow = bnf.getSInt();
+			Protocol sumLow = innerProductFactory.getInnerProductCircuit(rBits,
+					misc.getTwoPowers(shift), rLow);
+			SInt shifted = bnf.getSInt();
+			SInt masked = bnf.getSInt();
+			c = bnf.getOInt();
+			OInt offset = bnf.getOInt(BigInteger.ONE.shiftLeft(bitLength - 1));
+			ProtocolProducer open = new SequentialProtocolProducer(
+					bnf.getAddProtocol(in, offset, shifted),
+					bnf.getAddProtocol(shifted, r, masked),
+					bnf.getOpenProtocol(masked, c));
+			gp = new ParallelProtocolProducer(sumLow, open);
+			break;
+		case 2:
+			// Compute (a - (c mod 2^m) + r'') * 2^(-m), which is local as c is
+			// now known.
+			BigInteger cLow = c.getValue().mod(BigInteger.ONE.shiftLeft(shift));
+			SInt tmp = bnf.getSInt();
+			SInt diff = bnf.getSInt();
+			// subtract the public cLow by adding its additive inverse
+			OInt minusCLow = bnf.getOInt(cLow.negate().mod(bnf.getModulus()));
+			gp = new SequentialProtocolProducer(
+					bnf.getAddProtocol(in, rLow, tmp),
+					bnf.getAddProtocol(tmp, minusCLow, diff),
+					bnf.getMultCircuit(twoToNegShift, diff, out));
+			break;
+		default:
+			r = null;
+			rBits = null;
+			rLow = null;
+			c = null;
+		}
+		round++;
+		return gp;
+	}
+}
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.lib.math.fixed;
+
+import java.io.Serializable;
+
+import dk.alexandra.fresco.framework.value.SInt;
+
+/**
+ * A secret shared fixed-point number. The number x is represented by the
+ * secret shared integer round(x * 2^precision), where negative numbers are
+ * represented by their additive inverse in the field.
+ */
+public class SFixed implements Serializable {
+
+	private static final long serialVersionUID = -2306417493468106851L;
+
+	private final SInt value;
+	private final int precision;
+
+	/**
+	 * @param value
+	 *            the secret shared integer representation.
+	 * @param precision
+	 *            the number of fractional bits.
+	 */
+	public SFixed(SInt value, int precision) {
+		this.value = value;
+		this.precision = precision;
+	}
+
+	/**
+	 * @return the secret shared integer round(x * 2^precision).
+	 */
+	public SInt getSInt() {
+		return value;
+	}
+
+	public int getPrecision() {
+		return precision;
+	}
+
+	@Override
+	public String toString() {
+		return "SFixed(" + value + ", precision=" + precision + ")";
+	}
+}
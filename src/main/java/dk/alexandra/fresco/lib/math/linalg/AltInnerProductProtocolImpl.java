@@ -30,6 +30,7 @@ import dk.alexandra.fresco.framework.MPCException;
 import dk.alexandra.fresco.framework.ProtocolProducer;
 import dk.alexandra.fresco.framework.value.SInt;
 import dk.alexandra.fresco.lib.field.integer.BasicNumericFactory;
+import dk.alexandra.fresco.lib.field.integer.LinearCombinationFactory;
 import dk.alexandra.fresco.lib.helper.AbstractSimpleProtocol;
 import dk.alexandra.fresco.lib.helper.CopyProtocolFactory;
 import dk.alexandra.fresco.lib.helper.builder.NumericProtocolBuilder;
@@ -60,9 +61,14 @@ public class AltInnerProductProtocolImpl extends AbstractSimpleProtocol implemen
 	protected ProtocolProducer initializeGateProducer() {
 		NumericProtocolBuilder ncb = new NumericProtocolBuilder(bnProvider);
 		SInt[] directProduct = ncb.mult(aVector, bVector);
-		SInt innerproduct = directProduct[0];
-		for (int i = 1; i < directProduct.length; i++) {
-			innerproduct = ncb.add(innerproduct, directProduct[i]);
+		SInt innerproduct;
+		if (bnProvider instanceof LinearCombinationFactory) {
+			innerproduct = ncb.sum(directProduct);
+		} else {
+			innerproduct = directProduct[0];
+			for (int i = 1; i < directProduct.length; i++) {
+				innerproduct = ncb.add(innerproduct, directProduct[i]);
+			}
 		}
 		ProtocolProducer copyResult = copyProvider.getCopyCircuit(innerproduct, this.result);
 		return new SequentialProtocolProducer(ncb.getCircuit(), copyResult);
@@ -31,6 +31,7 @@ import dk.alexandra.fresco.framework.ProtocolProducer;
 import dk.alexandra.fresco.framework.value.OInt;
 import dk.alexandra.fresco.framework.value.SInt;
 import dk.alexandra.fresco.lib.field.integer.BasicNumericFactory;
+import dk.alexandra.fresco.lib.field.integer.LinearCombinationFactory;
 import dk.alexandra.fresco.lib.helper.AbstractRoundBasedProtocol;
 import dk.alexandra.fresco.lib.helper.CopyProtocolImpl;
 import dk.alexandra.fresco.lib.helper.builder.NumericProtocolBuilder;
@@ -91,6 +92,23 @@ public class InnerProductProtocolImpl extends AbstractRoundBasedProtocol
 				}
 				return gp;
 			}
+			if (publicBVector != null && bnProvider instanceof LinearCombinationFactory) {
+				round = 2;
+				gp = ((LinearCombinationFactory) bnProvider).getLinearCombinationProtocol(
+						publicBVector, aVector, result);
+				return gp;
+			}
+			if (publicBVector == null && bnProvider instanceof MatrixFactory) {
+				// The inner product is the product of a row and a column.
+				round = 2;
+				SInt[][] column = new SInt[vectorLength][];
+				for (int i = 0; i < vectorLength; i++) {
+					column[i] = new SInt[] { bVector[i] };
+				}
+				gp = ((MatrixFactory) bnProvider).getMatrixMultProtocol(
+						new SInt[][] { aVector }, column, new SInt[][] { { result } });
+				return gp;
+			}
 			for (int i = 0; i < vectorLength; i++) {
 				results[i] = bnProvider.getSInt();
 			}
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.lib.math.linalg;
+
+import dk.alexandra.fresco.framework.value.SInt;
+
+/**
+ * A factory for protocols multiplying matrices of secret shared values.
+ * Protocol suites with preprocessed matrix triples can multiply an l x m by an
+ * m x n matrix opening only the l*m + m*n entries of the two masked matrices,
+ * where multiplying entry by entry opens two values for each of the l*m*n
+ * products.
+ * 
+ * Builders check whether their factory also implements this interface, and
+ * fall back to a {@link MatrixMultProtocolImpl} otherwise.
+ */
+public interface MatrixFactory {
+
+	/**
+	 * @param left
+	 *            input - the l x m matrix [A], given as an array of rows.
+	 * @param right
+	 *            input - the m x n matrix [B], given as an array of rows.
+	 * @param out
+	 *            output - the l x n matrix [A*B], given as an array of rows.
+	 * @return
+	 */
+	public MatrixMultProtocol getMatrixMultProtocol(SInt[][] left, SInt[][] right, SInt[][] out);
+}
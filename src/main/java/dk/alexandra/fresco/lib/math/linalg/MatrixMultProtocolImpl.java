@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.lib.math.linalg;
+
+import java.util.Arrays;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.ProtocolProducer;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.lib.field.integer.BasicNumericFactory;
+import dk.alexandra.fresco.lib.helper.AbstractSimpleProtocol;
+import dk.alexandra.fresco.lib.helper.CopyProtocolImpl;
+import dk.alexandra.fresco.lib.helper.builder.NumericProtocolBuilder;
+
+/**
+ * Multiplies two matrices entry by entry using the basic numeric protocols of
+ * any protocol suite. All l*m*n products are computed by a single vector
+ * multiplication, after which the m products making up each entry of the
+ * result are summed up in parallel.
+ */
+public class MatrixMultProtocolImpl extends AbstractSimpleProtocol implements
+		MatrixMultProtocol {
+
+	private final SInt[][] left, right, out;
+	private final BasicNumericFactory bnProvider;
+
+	public MatrixMultProtocolImpl(SInt[][] left, SInt[][] right, SInt[][] out,
+			BasicNumericFactory bnProvider) {
+		if (left.length != out.length || left[0].length != right.length
+				|| right[0].length != out[0].length) {
+			throw new MPCException("Cannot multiply a " + left.length + "x"
+					+ left[0].length + " matrix by a " + right.length + "x"
+					+ right[0].length + " matrix into a " + out.length + "x"
+					+ out[0].length + " matrix");
+		}
+		this.left = left;
+		this.right = right;
+		this.out = out;
+		this.bnProvider = bnProvider;
+	}
+
+	@Override
+	protected ProtocolProducer initializeGateProducer() {
+		int rows = left.length;
+		int inner = right.length;
+		int columns = right[0].length;
+		// Entry (i, j) of the result is the sum of products (i*columns+j)*inner
+		// up to (i*columns+j+1)*inner.
+		SInt[] lefts = new SInt[rows * columns * inner];
+		SInt[] rights = new SInt[lefts.length];
+		int pos = 0;
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < columns; j++) {
+				for (int k = 0; k < inner; k++) {
+					lefts[pos] = left[i][k];
+					rights[pos] = right[k][j];
+					pos++;
+				}
+			}
+		}
+		NumericProtocolBuilder builder = new NumericProtocolBuilder(bnProvider);
+		builder.beginSeqScope();
+		SInt[] products = builder.mult(lefts, rights);
+		builder.beginParScope();
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < columns; j++) {
+				int from = (i * columns + j) * inner;
+				builder.beginSeqScope();
+				SInt entry = (inner == 1) ? products[from] : builder.sum(Arrays
+						.copyOfRange(products, from, from + inner));
+				builder.addGateProducer(new CopyProtocolImpl<SInt>(entry, out[i][j]));
+				builder.endCurScope();
+			}
+		}
+		builder.endCurScope();
+		builder.endCurScope();
+		return builder.getCircuit();
+	}
+}
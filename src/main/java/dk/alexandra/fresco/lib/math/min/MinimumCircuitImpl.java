@@ -80,7 +80,7 @@ public class MinimumCircuitImpl implements MinimumCircuit {
 				ConditionalSelectCircuit cond = lpProvider
 						.getConditionalSelectCircuit(this.cs[0], this.xs[0],
 								this.xs[1], this.m);
-				SInt one = numericProvider.getSInt(1);
+				SInt one = numericProvider.getKnownConstantSInt(1);
 				SubtractCircuit subtract = numericProvider.getSubtractCircuit(
 						one, this.cs[0], this.cs[1]);
 				currGP = new SequentialProtocolProducer(new Protocol[] { comp, cond,
@@ -105,7 +105,7 @@ public class MinimumCircuitImpl implements MinimumCircuit {
 						c2_prime, this.cs[0]);
 				SubtractCircuit sub1 = numericProvider.getSubtractCircuit(
 						c2_prime, this.cs[0], this.cs[1]);
-				SInt one = numericProvider.getSInt(1);
+				SInt one = numericProvider.getKnownConstantSInt(1);
 				SInt tmp = numericProvider.getSInt();
 				SubtractCircuit sub2 = numericProvider.getSubtractCircuit(one,
 						this.cs[0], tmp);
@@ -167,7 +167,7 @@ public class MinimumCircuitImpl implements MinimumCircuit {
 						m2, c, false);
 				ConditionalSelectCircuit cond = lpProvider
 						.getConditionalSelectCircuit(c, m1, m2, m);
-				SInt one = numericProvider.getSInt(1);
+				SInt one = numericProvider.getKnownConstantSInt(1);
 				SInt oneMinusC = numericProvider.getSInt();
 				SubtractCircuit subtract = numericProvider.getSubtractCircuit(
 						one, c, oneMinusC);
@@ -76,7 +76,7 @@ public class MinimumFractionCircuitImpl implements MinimumFractionCircuit {
 				throw new MPCException("MinimumCircuit. k should never be 1. Just use the one you gave me as the minimum, fool ;)");
 			} else if (this.k == 2) {
 				ProtocolProducer comparison = minFraction(ns[0], ds[0], ns[1], ds[1], cs[0], nm, dm);
-				SInt one = numericProvider.getSInt(1);
+				SInt one = numericProvider.getKnownConstantSInt(1);
 				SubtractCircuit subtract = numericProvider.getSubtractCircuit(one, this.cs[0], this.cs[1]);
 				currGP = new SequentialProtocolProducer(comparison, subtract);
 			} else if (this.k == 3) {
@@ -90,7 +90,7 @@ public class MinimumFractionCircuitImpl implements MinimumFractionCircuit {
 				
 				MultProtocol mult1 = numericProvider.getMultCircuit(c1_prime, c2_prime, this.cs[0]);
 				SubtractCircuit sub1 = numericProvider.getSubtractCircuit(c2_prime, this.cs[0], this.cs[1]);
-				SInt one = numericProvider.getSInt(1);
+				SInt one = numericProvider.getKnownConstantSInt(1);
 				SInt tmp = numericProvider.getSInt();
 				SubtractCircuit sub2 = numericProvider.getSubtractCircuit(one, this.cs[0], tmp);
 				
@@ -154,7 +154,7 @@ public class MinimumFractionCircuitImpl implements MinimumFractionCircuit {
 			} else if (round == 1){
 				SInt c = numericProvider.getSInt();
 				ProtocolProducer min = minFraction(nm1, dm1, nm2, dm2, c, nm, dm);
-				SInt one = numericProvider.getSInt(1);
+				SInt one = numericProvider.getKnownConstantSInt(1);
 				SInt oneMinusC = numericProvider.getSInt();
 				SubtractCircuit subtract = numericProvider.getSubtractCircuit(one, c, oneMinusC);
 				VectorScale scale1 = new VectorScale(c, cs1_prime, cs, 0);
@@ -35,6 +35,7 @@ import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
 import dk.alexandra.fresco.suite.bgw.BgwProtocolSuite;
 import dk.alexandra.fresco.suite.dummy.DummyProtocolSuite;
 import dk.alexandra.fresco.suite.spdz.evaluation.strategy.SpdzProtocolSuite;
+import dk.alexandra.fresco.suite.spdz2k.Spdz2kProtocolSuite;
 
 public interface ProtocolSuite {
 
@@ -88,6 +89,7 @@ public interface ProtocolSuite {
 		res.add("dummy");
 		res.add("bgw");
 		res.add("spdz");
+		res.add("spdz2k");
 		return res;
 	}
 	
@@ -96,6 +98,8 @@ public interface ProtocolSuite {
 			return "bgw";
 		} else if(suite instanceof SpdzProtocolSuite) {
 			return "spdz";
+		} else if(suite instanceof Spdz2kProtocolSuite) {
+			return "spdz2k";
 		} else if(suite instanceof DummyProtocolSuite) {
 			return "dummy";
 		} else {
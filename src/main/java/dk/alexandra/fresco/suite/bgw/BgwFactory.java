@@ -38,6 +38,9 @@ import dk.alexandra.fresco.framework.value.SInt;
 import dk.alexandra.fresco.lib.field.integer.AddProtocol;
 import dk.alexandra.fresco.lib.field.integer.BasicNumericFactory;
 import dk.alexandra.fresco.lib.field.integer.CloseIntProtocol;
+import dk.alexandra.fresco.lib.field.integer.ConstantCache;
+import dk.alexandra.fresco.lib.field.integer.LinearCombinationFactory;
+import dk.alexandra.fresco.lib.field.integer.LinearCombinationProtocol;
 import dk.alexandra.fresco.lib.field.integer.MultProtocol;
 import dk.alexandra.fresco.lib.field.integer.OpenIntProtocol;
 import dk.alexandra.fresco.lib.field.integer.SubtractCircuit;
@@ -45,9 +48,12 @@ import dk.alexandra.fresco.lib.math.exp.ExpFromOIntFactory;
 import dk.alexandra.fresco.lib.math.inv.LocalInversionCircuit;
 import dk.alexandra.fresco.lib.math.inv.LocalInversionFactory;
 import dk.alexandra.fresco.suite.bgw.integer.BgwAddProtocol;
+import dk.alexandra.fresco.suite.bgw.integer.BgwAddWithPublicProtocol;
 import dk.alexandra.fresco.suite.bgw.integer.BgwCloseIntProtocol;
+import dk.alexandra.fresco.suite.bgw.integer.BgwDoubleSharingMultProtocol;
 import dk.alexandra.fresco.suite.bgw.integer.BgwInvertIntProtocol;
 import dk.alexandra.fresco.suite.bgw.integer.BgwKnownSIntProtocol;
+import dk.alexandra.fresco.suite.bgw.integer.BgwLinearCombinationProtocol;
 import dk.alexandra.fresco.suite.bgw.integer.BgwLocalInvProtocol;
 import dk.alexandra.fresco.suite.bgw.integer.BgwMultProtocol;
 import dk.alexandra.fresco.suite.bgw.integer.BgwMultWithPublicProtocol;
@@ -58,18 +64,27 @@ import dk.alexandra.fresco.suite.bgw.integer.BgwSInt;
 import dk.alexandra.fresco.suite.bgw.integer.BgwSubtractProtocol;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzOInt;
 
-public class BgwFactory implements BasicNumericFactory, LocalInversionFactory, ExpFromOIntFactory {
+public class BgwFactory implements BasicNumericFactory, LocalInversionFactory, ExpFromOIntFactory,
+		LinearCombinationFactory {
 
+	private BgwProtocolSuite suite;
 	private int myId;
 	private int noOfParties;
 	private int threshold;
 	private BigInteger mod;
-
-	public BgwFactory(int myId, int noOfParties, int threshold, BigInteger modulus) {
+	private ConstantCache constants;
+
+	/**
+	 * @param suite
+	 *            the initialized suite the protocols are evaluated in.
+	 */
+	public BgwFactory(BgwProtocolSuite suite, int myId, int noOfParties) {
+		this.suite = suite;
 		this.myId = myId;
 		this.noOfParties = noOfParties;
-		this.threshold = threshold;
-		this.mod = modulus;
+		this.threshold = suite.getThreshold();
+		this.mod = suite.getModulus();
+		this.constants = new ConstantCache(this, this);
 	}
 
 	@Override
@@ -79,7 +94,7 @@ public class BgwFactory implements BasicNumericFactory, LocalInversionFactory, E
 
 	@Override
 	public BgwSInt getSInt(BigInteger i) {
-		return new BgwSInt(new ShamirShare(myId, i));
+		return new BgwSInt(new ShamirShare(myId, i, mod));
 	}
 
 	@Override
@@ -88,7 +103,7 @@ public class BgwFactory implements BasicNumericFactory, LocalInversionFactory, E
 	}
 
 	public BgwRandomIntProtocol getRandomIntGate(SInt s) {
-		BgwRandomIntProtocol ig = new BgwRandomIntProtocol(s, noOfParties,
+		BgwRandomIntProtocol ig = new BgwRandomIntProtocol(suite, s, noOfParties,
 				threshold);
 		return ig;
 	}
@@ -116,12 +131,18 @@ public class BgwFactory implements BasicNumericFactory, LocalInversionFactory, E
 
 	@Override
 	public AddProtocol getAddProtocol(SInt a, SInt b, SInt out) {
-		return new BgwAddProtocol(a, b, out);
+		return new BgwAddProtocol(a, b, out, mod);
+	}
+
+	@Override
+	public LinearCombinationProtocol getLinearCombinationProtocol(OInt[] coefficients,
+			SInt[] values, SInt out) {
+		return new BgwLinearCombinationProtocol(coefficients, values, out, mod);
 	}
 
 	@Override
 	public SubtractCircuit getSubtractCircuit(SInt a, SInt b, SInt out) {
-		return new BgwSubtractProtocol(a, b, out);
+		return new BgwSubtractProtocol(a, b, out, mod);
 	}
 
 	@Override
@@ -132,7 +153,13 @@ public class BgwFactory implements BasicNumericFactory, LocalInversionFactory, E
 
 	@Override
 	public MultProtocol getMultCircuit(SInt a, SInt b, SInt out) {
-		return new BgwMultProtocol(a, b, out);
+		if (suite.useDoubleSharings()) {
+			// Taking the double sharing here keeps its preprocessing out of
+			// the evaluation.
+			return new BgwDoubleSharingMultProtocol(suite,
+					suite.getDoubleSharingPool().take(), a, b, out);
+		}
+		return new BgwMultProtocol(suite, a, b, out);
 	}
 
 	// test purpose only
@@ -147,33 +174,41 @@ public class BgwFactory implements BasicNumericFactory, LocalInversionFactory, E
 
 	@Override
 	public KnownSIntProtocol getSInt(BigInteger i, SInt si) {
-		return new BgwKnownSIntProtocol((BgwSInt)si, i);
+		return new BgwKnownSIntProtocol((BgwSInt)si, i, mod);
 	}
 
 	public int getMyId() {
 		return this.myId;
 	}
 
+	public int getNoOfParties() {
+		return this.noOfParties;
+	}
+
+	public BgwProtocolSuite getSuite() {
+		return this.suite;
+	}
+
 
 	@Override
 	public CloseIntProtocol getCloseProtocol(int source, OInt open, SInt closed) {
-		return new BgwCloseIntProtocol(open, closed, source);
+		return new BgwCloseIntProtocol(suite, open, closed, source);
 	}
 
 	@Override
 	public OpenIntProtocol getOpenProtocol(SInt closed, OInt open) {
-		return new BgwOpenIntProtocol(closed, open);
+		return new BgwOpenIntProtocol(suite, closed, open);
 	}
 
 	@Override
 	public OpenIntProtocol getOpenProtocol(int target, SInt closed, OInt open) {
-		return new BgwOpenIntProtocol(target, closed, open);
+		return new BgwOpenIntProtocol(suite, target, closed, open);
 	}
 
 	@Override
 	public AddProtocol getAddProtocol(SInt input, OInt openInput, SInt out) {
-		// TODO Auto-generated method stub
-		return null;
+		return new BgwAddWithPublicProtocol((BgwSInt) input, (BgwOInt) openInput,
+				(BgwSInt) out, mod);
 	}
 
 	@Override
@@ -185,12 +220,17 @@ public class BgwFactory implements BasicNumericFactory, LocalInversionFactory, E
 
 	@Override
 	public MultProtocol getMultCircuit(OInt a, SInt b, SInt c) {
-		return new BgwMultWithPublicProtocol((BgwOInt)a, (BgwSInt)b, (BgwSInt)c);
+		return new BgwMultWithPublicProtocol((BgwOInt)a, (BgwSInt)b, (BgwSInt)c, mod);
 	}
 
 	@Override
 	public int getMaxBitLength() {
-		return BgwProtocolSuite.getInstance().getMaxBitLength();
+		return suite.getMaxBitLength();
+	}
+
+	@Override
+	public BigInteger getModulus() {
+		return mod;
 	}
 
 	@Override
@@ -202,9 +242,19 @@ public class BgwFactory implements BasicNumericFactory, LocalInversionFactory, E
 		return this.getSInt(approxMaxSqrt);
 	}
 
+	@Override
+	public SInt getKnownConstantSInt(int i) {
+		return constants.getSInt(i);
+	}
+
+	@Override
+	public OInt getKnownConstantOInt(int i) {
+		return constants.getOInt(i);
+	}
+
 	@Override
 	public LocalInversionCircuit getLocalInversionCircuit(OInt x, OInt result) {
-		return new BgwLocalInvProtocol((BgwOInt)x, (BgwOInt)result);
+		return new BgwLocalInvProtocol((BgwOInt)x, (BgwOInt)result, mod);
 	}
 
 	@Override
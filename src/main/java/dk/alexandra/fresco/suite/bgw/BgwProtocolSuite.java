@@ -34,30 +34,35 @@ import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
 import dk.alexandra.fresco.suite.ProtocolSuite;
 import dk.alexandra.fresco.suite.bgw.configuration.BgwConfiguration;
 
+/**
+ * The BGW protocol suite. An instance holds the state of one party in one
+ * session, so each SCE has its own.
+ */
 public class BgwProtocolSuite implements ProtocolSuite {
 
-	private static BgwProtocolSuite instance;
-	
 	private int threshold;
 	private BigInteger modulus;
+	private ShamirSharing sharing;
+	private boolean useDoubleSharings;
+	private DoubleSharingPool pool;
 	
 	public BgwProtocolSuite() {
 		
 	}
 	
-	public static BgwProtocolSuite getInstance() {
-		if(instance == null) {
-			instance = new BgwProtocolSuite();
-		}
-		return instance;
-	}
-	
 	@Override
 	public void init(ResourcePool resourcePool, ProtocolSuiteConfiguration conf) {
 		BgwConfiguration sconf = (BgwConfiguration)conf;
 		this.threshold = sconf.getThreshold();
 		this.modulus = sconf.getModulus();
-		ShamirShare.setPrimeNumber(modulus);
+		this.sharing = new ShamirSharing(modulus);
+		this.useDoubleSharings = sconf.useDoubleSharings();
+		this.pool = null;
+		if (useDoubleSharings) {
+			this.pool = new DoubleSharingPool(resourcePool.getMyId(),
+					resourcePool.getNoOfParties(), threshold, sharing,
+					resourcePool.getNetwork());
+		}
 	}
 
 	@Override
@@ -87,4 +92,28 @@ public class BgwProtocolSuite implements ProtocolSuite {
 		return this.modulus;
 	}
 
+	/**
+	 * @return the sharing of this session, which caches the Lagrange
+	 *         coefficients for the modulus.
+	 */
+	public ShamirSharing getSharing() {
+		return this.sharing;
+	}
+
+	/**
+	 * @return true if multiplications use double sharings, see
+	 *         {@link BgwConfiguration#useDoubleSharings()}.
+	 */
+	public boolean useDoubleSharings() {
+		return this.useDoubleSharings;
+	}
+
+	/**
+	 * @return the double sharings of this party, or null if double sharings
+	 *         are not used.
+	 */
+	public DoubleSharingPool getDoubleSharingPool() {
+		return pool;
+	}
+
 }
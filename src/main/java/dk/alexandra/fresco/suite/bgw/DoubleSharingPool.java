@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.bgw;
+
+import java.io.IOException;
+import java.math.BigInteger;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.network.Network;
+
+/**
+ * Double random sharings of one party, used by the multiplication of Damgård
+ * and Nielsen. A double sharing is a random value r shared both with degree t
+ * and with degree 2t.
+ * 
+ * The double sharings are preprocessed over the raw network, separately from
+ * the evaluation of the multiplications: whenever a multiplication is created
+ * and the pool is empty, the parties deal {@link #DEAL_SIZE} double sharings
+ * in a single round before handing one out. In a deal every party shares a
+ * random value with both degrees for each batch of n - t double sharings, and
+ * the parties multiply the n dealt sharings of a batch by an (n - t) x n
+ * Vandermonde matrix. As at most t dealers are corrupt, the n - t results are
+ * random to the adversary.
+ * 
+ * As all parties create the multiplications in the same order, they deal at
+ * the same time and agree on the double sharing of each multiplication. The
+ * multiplications are created by the thread producing the protocols, while
+ * no batch is being evaluated, so the pool is not thread-safe and the deal
+ * uses the first channel.
+ */
+public class DoubleSharingPool {
+
+	/**
+	 * The number of double sharings dealt per round of preprocessing. It is
+	 * rounded up to a multiple of n - t.
+	 */
+	public static final int DEAL_SIZE = 1024;
+
+	private static final String CHANNEL = "0";
+
+	/**
+	 * My shares of a double sharing.
+	 */
+	public static class DoubleSharing {
+
+		private final long index;
+		private final BigInteger low, high;
+
+		private DoubleSharing(long index, BigInteger low, BigInteger high) {
+			this.index = index;
+			this.low = low;
+			this.high = high;
+		}
+
+		/**
+		 * @return the number of double sharings handed out before this one,
+		 *         which the multiplications use to take turns being the king.
+		 */
+		public long getIndex() {
+			return index;
+		}
+
+		/**
+		 * @return my share of degree t.
+		 */
+		public BigInteger getLow() {
+			return low;
+		}
+
+		/**
+		 * @return my share of degree 2t.
+		 */
+		public BigInteger getHigh() {
+			return high;
+		}
+	}
+
+	private final int myId;
+	private final int noOfParties;
+	private final int threshold;
+	private final ShamirSharing sharing;
+	private final Network network;
+
+	private BigInteger[] low, high;
+	private int next;
+	private long handedOut;
+
+	public DoubleSharingPool(int myId, int noOfParties, int threshold,
+			ShamirSharing sharing, Network network) {
+		this.myId = myId;
+		this.noOfParties = noOfParties;
+		this.threshold = threshold;
+		this.sharing = sharing;
+		this.network = network;
+		this.low = new BigInteger[0];
+		this.high = new BigInteger[0];
+	}
+
+	/**
+	 * Takes the next double sharing, dealing new ones first if the pool is
+	 * empty.
+	 */
+	public DoubleSharing take() {
+		if (next == low.length) {
+			deal();
+		}
+		DoubleSharing res = new DoubleSharing(handedOut, low[next], high[next]);
+		// drop the references, such that used shares can be collected
+		low[next] = null;
+		high[next] = null;
+		next++;
+		handedOut++;
+		return res;
+	}
+
+	/**
+	 * @return the number of double sharings handed out so far.
+	 */
+	public long getHandedOut() {
+		return handedOut;
+	}
+
+	private void deal() {
+		int batchSize = noOfParties - threshold;
+		int batches = (DEAL_SIZE + batchSize - 1) / batchSize;
+		// dealt[j] holds the shares for party j + 1, first those of degree t
+		// of each batch, then those of degree 2t.
+		BigInteger[][] dealt = new BigInteger[noOfParties][2 * batches];
+		for (int b = 0; b < batches; b++) {
+			BigInteger r = sharing.random();
+			ShamirShare[] l = sharing.createShares(r, noOfParties, threshold);
+			ShamirShare[] h = sharing.createShares(r, noOfParties, 2 * threshold);
+			for (int j = 0; j < noOfParties; j++) {
+				dealt[j][b] = l[j].getField();
+				dealt[j][batches + b] = h[j].getField();
+			}
+		}
+		BigInteger[][] received = new BigInteger[noOfParties][];
+		try {
+			for (int j = 1; j <= noOfParties; j++) {
+				if (j != myId) {
+					network.send(CHANNEL, j, dealt[j - 1]);
+				}
+			}
+			for (int j = 1; j <= noOfParties; j++) {
+				received[j - 1] = j == myId ? dealt[j - 1]
+						: network.<BigInteger[]> receive(CHANNEL, j);
+			}
+		} catch (IOException e) {
+			throw new MPCException("Could not deal double sharings.", e);
+		}
+		BigInteger modulus = sharing.getModulus();
+		this.low = new BigInteger[batches * batchSize];
+		this.high = new BigInteger[batches * batchSize];
+		for (int b = 0; b < batches; b++) {
+			for (int k = 0; k < batchSize; k++) {
+				BigInteger l = BigInteger.ZERO;
+				BigInteger h = BigInteger.ZERO;
+				for (int j = 0; j < noOfParties; j++) {
+					// the Vandermonde entry (j + 1)^k
+					BigInteger m = BigInteger.valueOf(j + 1).pow(k);
+					l = l.add(received[j][b].multiply(m));
+					h = h.add(received[j][batches + b].multiply(m));
+				}
+				low[b * batchSize + k] = l.mod(modulus);
+				high[b * batchSize + k] = h.mod(modulus);
+			}
+		}
+		this.next = 0;
+	}
+}
@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.bgw;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.util.FieldPrg;
+
+/**
+ * Creates and recombines Shamir shares modulo a prime for one session of
+ * BGW. The share of party i is the value of the polynomial in the point i.
+ * 
+ * The Lagrange coefficients for interpolating in 0 are computed once per set
+ * of points and cached. The cache is thread-safe, and the sets 1, ..., k,
+ * which are what the protocols use, are looked up without allocation.
+ * 
+ * The random coefficients of the polynomials come from an AES based
+ * {@link FieldPrg} per thread, each seeded from a {@link SecureRandom}.
+ * Primes of at most {@link #LONG_BIT_LENGTH} bits are handled with longs,
+ * as their products fit in a long.
+ */
+public class ShamirSharing {
+
+	/**
+	 * The bit length up to which shares are created and recombined using
+	 * longs instead of BigIntegers.
+	 */
+	public static final int LONG_BIT_LENGTH = 31;
+
+	/**
+	 * Points are sent as a single byte.
+	 */
+	private static final int MAX_POINT = 255;
+
+	private final BigInteger modulus;
+	private final long longModulus;
+	private final AtomicReferenceArray<BigInteger[]> prefixCoefficients;
+	private final ConcurrentMap<BitSet, BigInteger[]> subsetCoefficients;
+	private final ThreadLocal<FieldPrg> prgs;
+
+	public ShamirSharing(BigInteger modulus) {
+		this.modulus = modulus;
+		this.longModulus = modulus.bitLength() <= LONG_BIT_LENGTH ? modulus.longValue() : 0;
+		this.prefixCoefficients = new AtomicReferenceArray<BigInteger[]>(MAX_POINT + 1);
+		this.subsetCoefficients = new ConcurrentHashMap<BitSet, BigInteger[]>();
+		final SecureRandom seeds = new SecureRandom();
+		this.prgs = new ThreadLocal<FieldPrg>() {
+			@Override
+			protected FieldPrg initialValue() {
+				byte[] seed = new byte[FieldPrg.SEED_SIZE];
+				seeds.nextBytes(seed);
+				return new FieldPrg(seed, ShamirSharing.this.modulus);
+			}
+		};
+	}
+
+	public BigInteger getModulus() {
+		return modulus;
+	}
+
+	/**
+	 * @return true if shares are handled using longs.
+	 */
+	public boolean isLong() {
+		return longModulus != 0;
+	}
+
+	/**
+	 * @return a random field element from the generator of this thread.
+	 */
+	public BigInteger random() {
+		return prgs.get().nextElement();
+	}
+
+	/**
+	 * Shares a secret using a random polynomial of the given degree.
+	 * 
+	 * @return the shares of the points 1, ..., numberOfParties.
+	 */
+	public ShamirShare[] createShares(BigInteger secret, int numberOfParties, int threshold) {
+		if (numberOfParties > MAX_POINT) {
+			throw new MPCException("Cannot share among more than " + MAX_POINT + " parties");
+		}
+		BigInteger[] coefficients = threshold > 0 ? prgs.get().nextElements(threshold)
+				: new BigInteger[0];
+		ShamirShare[] shares = new ShamirShare[numberOfParties];
+		if (isLong()) {
+			long s = secret.mod(modulus).longValue();
+			long[] a = new long[threshold];
+			for (int j = 0; j < threshold; j++) {
+				a[j] = coefficients[j].longValue();
+			}
+			for (int x = 1; x <= numberOfParties; x++) {
+				// s + x (a_1 + x (a_2 + ... + x a_t))
+				long acc = 0;
+				for (int j = threshold - 1; j >= 0; j--) {
+					acc = (acc * x + a[j]) % longModulus;
+				}
+				acc = (acc * x + s) % longModulus;
+				shares[x - 1] = new ShamirShare(x, BigInteger.valueOf(acc), modulus);
+			}
+			return shares;
+		}
+		for (int x = 1; x <= numberOfParties; x++) {
+			BigInteger point = BigInteger.valueOf(x);
+			BigInteger acc = BigInteger.ZERO;
+			for (int j = threshold - 1; j >= 0; j--) {
+				acc = acc.add(coefficients[j]).multiply(point);
+			}
+			// the share is reduced by the constructor
+			shares[x - 1] = new ShamirShare(x, acc.add(secret), modulus);
+		}
+		return shares;
+	}
+
+	/**
+	 * Recombines the first count shares, where share i is the value in the
+	 * point i + 1. A polynomial of degree d needs d + 1 shares, so a product
+	 * of two sharings of degree t needs exactly 2t + 1.
+	 */
+	public BigInteger recombine(List<ShamirShare> shares, int count) {
+		if (shares.size() < count) {
+			throw new MPCException("Cannot recombine " + count + " shares from only "
+					+ shares.size());
+		}
+		BigInteger[] lambda = getCoefficients(count);
+		if (isLong()) {
+			long res = 0;
+			for (int i = 0; i < count; i++) {
+				long share = shares.get(i).getField().longValue();
+				res = (res + share * lambda[i].longValue()) % longModulus;
+			}
+			return BigInteger.valueOf(res);
+		}
+		BigInteger res = BigInteger.ZERO;
+		for (int i = 0; i < count; i++) {
+			res = res.add(shares.get(i).getField().multiply(lambda[i]));
+		}
+		return res.mod(modulus);
+	}
+
+	/**
+	 * Recombines shares of the given distinct points, share i being the value
+	 * in points[i].
+	 */
+	public BigInteger recombine(ShamirShare[] shares, int[] points) {
+		BigInteger[] lambda = getCoefficients(points);
+		BigInteger res = BigInteger.ZERO;
+		for (int i = 0; i < points.length; i++) {
+			res = res.add(shares[i].getField().multiply(lambda[i]));
+		}
+		return res.mod(modulus);
+	}
+
+	/**
+	 * @return the Lagrange coefficients interpolating in 0 from the points 1,
+	 *         ..., count.
+	 */
+	public BigInteger[] getCoefficients(int count) {
+		if (count < 1 || count > MAX_POINT) {
+			throw new MPCException("Cannot interpolate from " + count + " points");
+		}
+		BigInteger[] lambda = prefixCoefficients.get(count);
+		if (lambda == null) {
+			int[] points = new int[count];
+			for (int i = 0; i < count; i++) {
+				points[i] = i + 1;
+			}
+			lambda = computeCoefficients(points);
+			prefixCoefficients.compareAndSet(count, null, lambda);
+		}
+		return lambda;
+	}
+
+	/**
+	 * @return the Lagrange coefficients interpolating in 0 from the given
+	 *         distinct points, in the order of the points.
+	 */
+	public BigInteger[] getCoefficients(int[] points) {
+		BitSet key = new BitSet(MAX_POINT + 1);
+		boolean ascending = true;
+		for (int i = 0; i < points.length; i++) {
+			if (points[i] < 1 || points[i] > MAX_POINT || key.get(points[i])) {
+				throw new MPCException("Points must be distinct and in [1, " + MAX_POINT
+						+ "], got " + points[i]);
+			}
+			key.set(points[i]);
+			ascending &= i == 0 || points[i - 1] < points[i];
+		}
+		if (!ascending) {
+			// the cache is keyed by the set, so it only holds ascending orders
+			return computeCoefficients(points);
+		}
+		BigInteger[] lambda = subsetCoefficients.get(key);
+		if (lambda == null) {
+			lambda = computeCoefficients(points);
+			BigInteger[] existing = subsetCoefficients.putIfAbsent(key, lambda);
+			if (existing != null) {
+				lambda = existing;
+			}
+		}
+		return lambda;
+	}
+
+	/**
+	 * Computes lambda_i = prod_{k != i} x_k / (x_k - x_i), using a single
+	 * inversion per coefficient.
+	 */
+	private BigInteger[] computeCoefficients(int[] points) {
+		BigInteger[] lambda = new BigInteger[points.length];
+		for (int i = 0; i < points.length; i++) {
+			BigInteger numerator = BigInteger.ONE;
+			BigInteger denominator = BigInteger.ONE;
+			for (int k = 0; k < points.length; k++) {
+				if (k != i) {
+					numerator = numerator.multiply(BigInteger.valueOf(points[k])).mod(modulus);
+					denominator = denominator.multiply(BigInteger.valueOf(points[k] - points[i]))
+							.mod(modulus);
+				}
+			}
+			lambda[i] = numerator.multiply(denominator.modInverse(modulus)).mod(modulus);
+		}
+		return lambda;
+	}
+}
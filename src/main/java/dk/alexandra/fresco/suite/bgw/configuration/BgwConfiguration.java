@@ -53,6 +53,17 @@ public interface BgwConfiguration extends ProtocolSuiteConfiguration {
 	 * @return The modulus used in BGW
 	 */
 	BigInteger getModulus();
+
+	/**
+	 * @return true if multiplications should use random values shared with
+	 *         both degree t and 2t, as proposed by Damgård and Nielsen. Each
+	 *         party then sends O(n) field elements per multiplication instead
+	 *         of O(n^2), but a multiplication takes three rounds instead of
+	 *         two.
+	 */
+	default boolean useDoubleSharings() {
+		return false;
+	}
 	
 	/// Here comes methods for BGW specific parameters and their validation.
 	
@@ -73,6 +84,13 @@ public interface BgwConfiguration extends ProtocolSuiteConfiguration {
 				.required(false)
 				.hasArgs()
 				.build());
+
+		options.addOption(Option.builder("D")
+				.desc("Use double sharings for multiplication, i.e., O(n) instead of O(n^2) communication. Defaults to false.")
+				.longOpt("bgw.useDoubleSharings")
+				.required(false)
+				.hasArgs()
+				.build());
 		
 		CommandLineParser parser = new DefaultParser();
 		CommandLine cmd = parser.parse(options, args);
@@ -92,6 +110,7 @@ public interface BgwConfiguration extends ProtocolSuiteConfiguration {
 			if(!modulus.isProbablePrime(40)) {
 				throw new ParseException("BGW Modulus must be a prime number");
 			}
+			final boolean useDoubleSharings = Boolean.parseBoolean(p.getProperty("bgw.useDoubleSharings", "False"));
 			
 			return new BgwConfiguration() {
 
@@ -104,6 +123,11 @@ public interface BgwConfiguration extends ProtocolSuiteConfiguration {
 				public BigInteger getModulus() {
 					return modulus;
 				}
+
+				@Override
+				public boolean useDoubleSharings() {
+					return useDoubleSharings;
+				}
 				
 			};
 		} catch (NumberFormatException e) {
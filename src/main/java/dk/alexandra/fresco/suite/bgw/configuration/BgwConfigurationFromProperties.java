@@ -63,4 +63,9 @@ public class BgwConfigurationFromProperties implements BgwConfiguration {
 		}
 		return mod;
 	}
+
+	@Override
+	public boolean useDoubleSharings() {
+		return Boolean.parseBoolean(prop.getProperty("useDoubleSharings", "False"));
+	}
 }
@@ -26,6 +26,8 @@
  *******************************************************************************/
 package dk.alexandra.fresco.suite.bgw.integer;
 
+import java.math.BigInteger;
+
 import dk.alexandra.fresco.framework.network.SCENetwork;
 import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
 import dk.alexandra.fresco.framework.value.SInt;
@@ -39,17 +41,20 @@ public class BgwAddProtocol extends BgwProtocol implements AddProtocol {
 	private BgwSInt inA;
 	private BgwSInt inB;
 	private BgwSInt outC;
+	private BigInteger modulus;
 
-	public BgwAddProtocol(SInt inA, SInt inB, SInt outC) {
+	public BgwAddProtocol(SInt inA, SInt inB, SInt outC, BigInteger modulus) {
 		this.inA = (BgwSInt) inA;
 		this.inB = (BgwSInt) inB;
 		this.outC = (BgwSInt) outC;
+		this.modulus = modulus;
 	}
 
-	public BgwAddProtocol(BgwSInt inA, BgwSInt inB, BgwSInt outC) {
+	public BgwAddProtocol(BgwSInt inA, BgwSInt inB, BgwSInt outC, BigInteger modulus) {
 		this.inA = inA;
 		this.inB = inB;
 		this.outC = outC;
+		this.modulus = modulus;
 	}
 
 	@Override
@@ -71,7 +76,7 @@ public class BgwAddProtocol extends BgwProtocol implements AddProtocol {
 	public EvaluationStatus evaluate(int round, ResourcePool resourcePool,
 			SCENetwork network) {
 		outC.value = new ShamirShare(inA.value.getPoint(), inA.value.getField()
-				.add(inB.value.getField()));
+				.add(inB.value.getField()), modulus);
 		return EvaluationStatus.IS_DONE;
 	}
 
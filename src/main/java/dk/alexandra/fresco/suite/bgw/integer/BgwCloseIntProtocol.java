@@ -45,8 +45,10 @@ public class BgwCloseIntProtocol extends BgwProtocol implements
 	public OInt input;
 	public BgwSInt output;
 	private int inputter;
+	private BgwProtocolSuite suite;
 
-	public BgwCloseIntProtocol(OInt in, SInt out, int inputter) {
+	public BgwCloseIntProtocol(BgwProtocolSuite suite, OInt in, SInt out, int inputter) {
+		this.suite = suite;
 		input = in;
 		output = (BgwSInt) out;
 		this.inputter = inputter;
@@ -60,8 +62,8 @@ public class BgwCloseIntProtocol extends BgwProtocol implements
 		case 0:
 			if (inputter == myId) {
 				BigInteger secret = this.input.getValue();
-				ShamirShare[] shares = ShamirShare.createShares(secret,
-						resourcePool.getNoOfParties(), BgwProtocolSuite.getInstance().getThreshold());
+				ShamirShare[] shares = suite.getSharing().createShares(secret,
+						resourcePool.getNoOfParties(), suite.getThreshold());
 				network.sendSharesToAll(shares);
 			}
 			network.expectInputFromPlayer(inputter);
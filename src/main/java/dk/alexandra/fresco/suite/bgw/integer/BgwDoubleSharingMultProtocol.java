@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.bgw.integer;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.network.SCENetwork;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.framework.value.Value;
+import dk.alexandra.fresco.lib.field.integer.MultProtocol;
+import dk.alexandra.fresco.suite.bgw.BgwProtocol;
+import dk.alexandra.fresco.suite.bgw.BgwProtocolSuite;
+import dk.alexandra.fresco.suite.bgw.DoubleSharingPool;
+import dk.alexandra.fresco.suite.bgw.DoubleSharingPool.DoubleSharing;
+import dk.alexandra.fresco.suite.bgw.ShamirShare;
+
+/**
+ * Multiplication of Damgård and Nielsen, "Scalable and Unconditionally Secure
+ * Multiparty Computation". Given a random r shared with degree t and 2t, the
+ * parties send their shares of xy - r of degree 2t to a king, which opens it
+ * and sends it back, after which r + (xy - r) is a sharing of xy of degree t.
+ * 
+ * Each party sends one field element and the king n, where
+ * {@link BgwMultProtocol} has each party send n. The kings take turns, so the
+ * load is spread over the parties. The double sharing is preprocessed by the
+ * {@link DoubleSharingPool} and given to the protocol when it is created.
+ */
+public class BgwDoubleSharingMultProtocol extends BgwProtocol implements MultProtocol {
+
+	private BgwSInt inA;
+	private BgwSInt inB;
+	private BgwSInt outC;
+	private BgwProtocolSuite suite;
+	private DoubleSharing r;
+
+	public BgwDoubleSharingMultProtocol(BgwProtocolSuite suite, DoubleSharing r,
+			SInt inA, SInt inB, SInt outC) {
+		this.suite = suite;
+		this.r = r;
+		this.inA = (BgwSInt) inA;
+		this.inB = (BgwSInt) inB;
+		this.outC = (BgwSInt) outC;
+	}
+
+	@Override
+	public String toString() {
+		return "DoubleSharingMultGate(" + inA + "," + inB + "," + outC + ")";
+	}
+
+	@Override
+	public Value[] getInputValues() {
+		return new Value[] { inA, inB };
+	}
+
+	@Override
+	public Value[] getOutputValues() {
+		return new Value[] { outC };
+	}
+
+	@Override
+	public EvaluationStatus evaluate(int round, ResourcePool resourcePool,
+			SCENetwork network) {
+		int n = resourcePool.getNoOfParties();
+		int myId = resourcePool.getMyId();
+		int king = (int) (r.getIndex() % n) + 1;
+		BigInteger modulus = suite.getModulus();
+		switch (round) {
+		case 0:
+			BigInteger product = inA.value.getField().multiply(inB.value.getField());
+			network.send(king, new ShamirShare(myId, product.subtract(r.getHigh()), modulus));
+			if (myId == king) {
+				network.expectInputFromAll();
+			}
+			return EvaluationStatus.HAS_MORE_ROUNDS;
+		case 1:
+			if (myId == king) {
+				List<ShamirShare> shares = network.receiveFromAll();
+				BigInteger d = suite.getSharing().recombine(shares,
+						2 * suite.getThreshold() + 1);
+				network.sendToAll(d);
+			}
+			network.expectInputFromPlayer(king);
+			return EvaluationStatus.HAS_MORE_ROUNDS;
+		case 2:
+			BigInteger opened = network.receive(king);
+			outC.value = new ShamirShare(myId, r.getLow().add(opened), modulus);
+			r = null;
+			return EvaluationStatus.IS_DONE;
+		default:
+			throw new MPCException("Cannot evaluate rounds larger than 2.");
+		}
+	}
+
+}
@@ -33,7 +33,6 @@ import dk.alexandra.fresco.framework.Protocol;
 import dk.alexandra.fresco.framework.value.SInt;
 import dk.alexandra.fresco.framework.value.Value;
 import dk.alexandra.fresco.suite.bgw.BgwFactory;
-import dk.alexandra.fresco.suite.bgw.BgwProtocolSuite;
 
 /**
  * Helper class. Given a ShamirSInt s, it computes s^-1 mod p, for the prime p used in the ShamirShare class
@@ -115,8 +114,7 @@ public class BgwInvertIntProtocol implements Protocol {
 			}
 			return pos;
 		}else if(innerRound == 2){
-			BgwProtocolSuite suite = BgwProtocolSuite.getInstance();
-			BigInteger mod = suite.getModulus();
+			BigInteger mod = gp.getModulus();
 			BigInteger rinv = oprod.getValue().modInverse(mod);
 			output.value.setField(rinv.multiply(output.value.getField()).mod(mod));
 			innerRound++;
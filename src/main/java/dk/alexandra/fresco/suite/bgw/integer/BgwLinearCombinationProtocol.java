@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.bgw.integer;
+
+import java.math.BigInteger;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.network.SCENetwork;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.value.OInt;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.framework.value.Value;
+import dk.alexandra.fresco.lib.field.integer.LinearCombinationProtocol;
+import dk.alexandra.fresco.suite.bgw.BgwProtocol;
+import dk.alexandra.fresco.suite.bgw.ShamirShare;
+
+/**
+ * Computes sum_i c_i*[x_i] locally, as Shamir shares are linear. The sum is
+ * reduced once, when the resulting share is created.
+ */
+public class BgwLinearCombinationProtocol extends BgwProtocol implements
+		LinearCombinationProtocol {
+
+	private final OInt[] coefficients;
+	private final SInt[] values;
+	private final BgwSInt out;
+	private final BigInteger modulus;
+
+	public BgwLinearCombinationProtocol(OInt[] coefficients, SInt[] values, SInt out,
+			BigInteger modulus) {
+		if (coefficients != null && coefficients.length != values.length) {
+			throw new MPCException("Got " + coefficients.length + " coefficients for "
+					+ values.length + " values");
+		}
+		this.coefficients = coefficients;
+		this.values = values;
+		this.out = (BgwSInt) out;
+		this.modulus = modulus;
+	}
+
+	@Override
+	public String toString() {
+		return "ShamirLinearCombinationGate(" + values.length + " terms, " + out + ")";
+	}
+
+	@Override
+	public Value[] getInputValues() {
+		if (coefficients == null) {
+			return values;
+		}
+		Value[] inputs = new Value[coefficients.length + values.length];
+		System.arraycopy(coefficients, 0, inputs, 0, coefficients.length);
+		System.arraycopy(values, 0, inputs, coefficients.length, values.length);
+		return inputs;
+	}
+
+	@Override
+	public Value[] getOutputValues() {
+		return new Value[] { out };
+	}
+
+	@Override
+	public EvaluationStatus evaluate(int round, ResourcePool resourcePool,
+			SCENetwork network) {
+		BigInteger sum = BigInteger.ZERO;
+		for (int i = 0; i < values.length; i++) {
+			BigInteger x = ((BgwSInt) values[i]).value.getField();
+			if (coefficients == null) {
+				sum = sum.add(x);
+			} else {
+				sum = sum.add(x.multiply(coefficients[i].getValue()));
+			}
+		}
+		// The constructor reduces the sum.
+		out.value = new ShamirShare(resourcePool.getMyId(), sum, modulus);
+		return EvaluationStatus.IS_DONE;
+	}
+}
@@ -43,14 +43,18 @@ public class BgwMultProtocol extends BgwProtocol implements MultProtocol {
 	private BgwSInt inA;
 	private BgwSInt inB;
 	private BgwSInt outC;
+	private BgwProtocolSuite suite;
 
-	public BgwMultProtocol(SInt inA, SInt inB, SInt outC) {
+	public BgwMultProtocol(BgwProtocolSuite suite, SInt inA, SInt inB, SInt outC) {
+		this.suite = suite;
 		this.inA = (BgwSInt) inA;
 		this.inB = (BgwSInt) inB;
 		this.outC = (BgwSInt) outC;
 	}
 
-	public BgwMultProtocol(BgwSInt inA, BgwSInt inB, BgwSInt outC) {
+	public BgwMultProtocol(BgwProtocolSuite suite, BgwSInt inA, BgwSInt inB,
+			BgwSInt outC) {
+		this.suite = suite;
 		this.inA = inA;
 		this.inB = inB;
 		this.outC = outC;
@@ -75,19 +79,22 @@ public class BgwMultProtocol extends BgwProtocol implements MultProtocol {
 	public EvaluationStatus evaluate(int round, ResourcePool resourcePool,
 			SCENetwork network) {
 		int n = resourcePool.getNoOfParties();
-		int threshold = BgwProtocolSuite.getInstance().getThreshold();
+		int threshold = suite.getThreshold();
 		switch (round) {
 		case 0:
-			outC.value = inA.value.mult(inB.value);
-			ShamirShare[] reshares = ShamirShare.createShares(
+			outC.value = inA.value.mult(inB.value, suite.getModulus());
+			ShamirShare[] reshares = suite.getSharing().createShares(
 					outC.value.getField(), n, threshold);
 			network.sendSharesToAll(reshares);
 			network.expectInputFromAll();
 			return EvaluationStatus.HAS_MORE_ROUNDS;
 		case 1:
+			// The product has degree 2t, so the reshares of the first 2t + 1
+			// parties determine it.
 			List<ShamirShare> shares = network.receiveFromAll();
 			outC.value = new ShamirShare(resourcePool.getMyId(),
-					ShamirShare.recombine(shares, shares.size()));
+					suite.getSharing().recombine(shares, 2 * threshold + 1),
+					suite.getModulus());
 			return EvaluationStatus.IS_DONE;
 		default:
 			throw new MPCException("Cannot evaluate rounds larger than 1.");
@@ -26,49 +26,52 @@
  *******************************************************************************/
 package dk.alexandra.fresco.suite.bgw.integer;
 
-import dk.alexandra.fresco.framework.MPCException;
+import java.math.BigInteger;
+
 import dk.alexandra.fresco.framework.network.SCENetwork;
 import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
 import dk.alexandra.fresco.framework.value.Value;
 import dk.alexandra.fresco.lib.field.integer.MultProtocol;
 import dk.alexandra.fresco.suite.bgw.BgwProtocol;
-import dk.alexandra.fresco.suite.bgw.BgwProtocolSuite;
+import dk.alexandra.fresco.suite.bgw.ShamirShare;
 
 public class BgwMultWithPublicProtocol extends BgwProtocol implements MultProtocol{
 
 	private final BgwOInt inA;
 	private final BgwSInt inB;
 	private final BgwSInt outC;
+	private final BigInteger modulus;
 	
-	public BgwMultWithPublicProtocol(BgwOInt inA, BgwSInt inB, BgwSInt outC) {
+	public BgwMultWithPublicProtocol(BgwOInt inA, BgwSInt inB, BgwSInt outC,
+			BigInteger modulus) {
 		this.inA = inA;
 		this.inB = inB;
 		this.outC = outC;
+		this.modulus = modulus;
 	}
 	
 	@Override
 	public EvaluationStatus evaluate(int round, ResourcePool resourcePool,
 			SCENetwork network) {
-		int n = resourcePool.getNoOfParties();
-		int threshold = BgwProtocolSuite.getInstance().getThreshold();
-		switch (round) {
-		case 0:
-			throw new MPCException("Not implemented yet!");
-		default:
-			throw new MPCException("Cannot evaluate rounds larger than 1.");
-		}
+		// Multiplying a share by a public value is local.
+		outC.value = new ShamirShare(inB.value.getPoint(), inB.value.getField()
+				.multiply(inA.getValue()), modulus);
+		return EvaluationStatus.IS_DONE;
+	}
+
+	@Override
+	public String toString() {
+		return "ShamirMultWithPublicGate(" + inA + "," + inB + "," + outC + ")";
 	}
 
 	@Override
 	public Value[] getInputValues() {
-		// TODO Auto-generated method stub
-		return null;
+		return new Value[] { inA, inB };
 	}
 
 	@Override
 	public Value[] getOutputValues() {
-		// TODO Auto-generated method stub
-		return null;
+		return new Value[] { outC };
 	}
 
 }
@@ -37,6 +37,7 @@ import dk.alexandra.fresco.framework.value.SInt;
 import dk.alexandra.fresco.framework.value.Value;
 import dk.alexandra.fresco.lib.field.integer.OpenIntProtocol;
 import dk.alexandra.fresco.suite.bgw.BgwProtocol;
+import dk.alexandra.fresco.suite.bgw.BgwProtocolSuite;
 import dk.alexandra.fresco.suite.bgw.ShamirShare;
 
 /**
@@ -52,19 +53,23 @@ public class BgwOpenIntProtocol extends BgwProtocol implements OpenIntProtocol {
 	public BgwOInt output;
 
 	private int targetId = -1;
+	private BgwProtocolSuite suite;
 
-	public BgwOpenIntProtocol(SInt in, OInt out) {
+	public BgwOpenIntProtocol(BgwProtocolSuite suite, SInt in, OInt out) {
+		this.suite = suite;
 		input = (BgwSInt) in;
 		output = (BgwOInt) out;
 	}
 
-	public BgwOpenIntProtocol(int targetId, SInt in, OInt out) {
+	public BgwOpenIntProtocol(BgwProtocolSuite suite, int targetId, SInt in, OInt out) {
+		this.suite = suite;
 		this.targetId = targetId;
 		input = (BgwSInt) in;
 		output = (BgwOInt) out;
 	}
 
-	public BgwOpenIntProtocol(BgwSInt in, BgwOInt out) {
+	public BgwOpenIntProtocol(BgwProtocolSuite suite, BgwSInt in, BgwOInt out) {
+		this.suite = suite;
 		input = in;
 		output = out;
 	}
@@ -85,9 +90,10 @@ public class BgwOpenIntProtocol extends BgwProtocol implements OpenIntProtocol {
 			}
 			return EvaluationStatus.HAS_MORE_ROUNDS;
 		case 1:
+			// The shares have degree t, so t + 1 of them determine the value.
 			List<ShamirShare> shares = network.receiveFromAll();
-			BigInteger recombined = ShamirShare
-					.recombine(shares, shares.size());
+			BigInteger recombined = suite.getSharing().recombine(shares,
+					suite.getThreshold() + 1);
 			this.output.setValue(recombined);
 			return EvaluationStatus.IS_DONE;
 		default:
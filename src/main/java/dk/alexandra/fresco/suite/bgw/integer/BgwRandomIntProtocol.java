@@ -43,13 +43,16 @@ import dk.alexandra.fresco.suite.bgw.ShamirShare;
 public class BgwRandomIntProtocol extends BgwProtocol implements Protocol {
 
 	public BgwSInt output;
+	private BgwProtocolSuite suite;
 	private int parties, treshold;
 
 	public BgwRandomIntProtocol(SecureRandom rand, SInt out) {
 		output = (BgwSInt) out;
 	}
 
-	public BgwRandomIntProtocol(SInt out, int noOfParties, int treshold) {
+	public BgwRandomIntProtocol(BgwProtocolSuite suite, SInt out, int noOfParties,
+			int treshold) {
+		this.suite = suite;
 		output = (BgwSInt) out;
 		this.parties = noOfParties;
 		this.treshold = treshold;
@@ -60,21 +63,20 @@ public class BgwRandomIntProtocol extends BgwProtocol implements Protocol {
 			SCENetwork network) {
 		switch (round) {
 		case 0:
-			BgwProtocolSuite suite = BgwProtocolSuite.getInstance();
 			BigInteger mod = suite.getModulus();
 			BigInteger secret = new BigInteger(
 					mod.bitLength(), resourcePool.getSecureRandom())
 					.mod(mod);
-			ShamirShare[] reshares = ShamirShare.createShares(secret, parties,
+			ShamirShare[] reshares = suite.getSharing().createShares(secret, parties,
 					treshold);
 			network.sendSharesToAll(reshares);
 			network.expectInputFromAll();
 			return EvaluationStatus.HAS_MORE_ROUNDS;
 		case 1:
 			List<ShamirShare> tmp = network.receiveFromAll();
-			reshares = (ShamirShare[]) tmp.toArray();
-			BigInteger ll = ShamirShare.recombine(reshares, parties);
-			this.output.value = new ShamirShare(resourcePool.getMyId(), ll);
+			BigInteger ll = suite.getSharing().recombine(tmp, parties);
+			this.output.value = new ShamirShare(resourcePool.getMyId(), ll,
+					suite.getModulus());
 			return EvaluationStatus.IS_DONE;
 		}
 		throw new MPCException("Cannot evaluate rounds larger than 1");
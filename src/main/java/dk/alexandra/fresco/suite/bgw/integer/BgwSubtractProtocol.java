@@ -26,6 +26,8 @@
  *******************************************************************************/
 package dk.alexandra.fresco.suite.bgw.integer;
 
+import java.math.BigInteger;
+
 import dk.alexandra.fresco.framework.network.SCENetwork;
 import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
 import dk.alexandra.fresco.framework.value.SInt;
@@ -39,17 +41,20 @@ public class BgwSubtractProtocol extends BgwProtocol implements SubtractCircuit
 	private BgwSInt inA;
 	private BgwSInt inB;
 	private BgwSInt outC;
+	private BigInteger modulus;
 
-	public BgwSubtractProtocol(SInt inA, SInt inB, SInt outC) {
+	public BgwSubtractProtocol(SInt inA, SInt inB, SInt outC, BigInteger modulus) {
 		this.inA = (BgwSInt) inA;
 		this.inB = (BgwSInt) inB;
 		this.outC = (BgwSInt) outC;
+		this.modulus = modulus;
 	}
 
-	public BgwSubtractProtocol(BgwSInt inA, BgwSInt inB, BgwSInt outC) {
+	public BgwSubtractProtocol(BgwSInt inA, BgwSInt inB, BgwSInt outC, BigInteger modulus) {
 		this.inA = inA;
 		this.inB = inB;
 		this.outC = outC;
+		this.modulus = modulus;
 	}
 
 	@Override
@@ -71,7 +76,7 @@ public class BgwSubtractProtocol extends BgwProtocol implements SubtractCircuit
 	public EvaluationStatus evaluate(int round, ResourcePool resourcePool,
 			SCENetwork network) {
 		outC.value = new ShamirShare(inA.value.getPoint(), inA.value.getField()
-				.subtract(inB.value.getField()));
+				.subtract(inB.value.getField()), modulus);
 		return EvaluationStatus.IS_DONE;
 	}
 }
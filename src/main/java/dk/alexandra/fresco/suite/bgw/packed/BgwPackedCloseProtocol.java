@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.bgw.packed;
+
+import java.math.BigInteger;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.network.SCENetwork;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.value.OInt;
+import dk.alexandra.fresco.framework.value.Value;
+import dk.alexandra.fresco.suite.bgw.BgwProtocol;
+
+/**
+ * Inputs a vector of values, which the inputter shares k at a time and sends
+ * in one message to each party.
+ */
+public class BgwPackedCloseProtocol extends BgwProtocol {
+
+	private final PackedShamirSharing sharing;
+	private final int inputter;
+	private final OInt[] input;
+	private final BgwSIntVector output;
+
+	/**
+	 * @param input
+	 *            the values to input, only used by the inputter.
+	 */
+	public BgwPackedCloseProtocol(PackedShamirSharing sharing, int inputter, OInt[] input,
+			BgwSIntVector output) {
+		this.sharing = sharing;
+		this.inputter = inputter;
+		this.input = input;
+		this.output = output;
+	}
+
+	@Override
+	public EvaluationStatus evaluate(int round, ResourcePool resourcePool, SCENetwork network) {
+		switch (round) {
+		case 0:
+			if (inputter == resourcePool.getMyId()) {
+				int n = resourcePool.getNoOfParties();
+				int k = sharing.getPacking();
+				int blocks = sharing.getBlocks(output.getLength());
+				BigInteger[][] shares = new BigInteger[n][blocks];
+				for (int b = 0; b < blocks; b++) {
+					BigInteger[] secrets = new BigInteger[Math.min(k, output.getLength() - b * k)];
+					for (int s = 0; s < secrets.length; s++) {
+						secrets[s] = input[b * k + s].getValue();
+					}
+					BigInteger[] blockShares = sharing.share(secrets);
+					for (int i = 0; i < n; i++) {
+						shares[i][b] = blockShares[i];
+					}
+				}
+				network.sendSharesToAll(shares);
+			}
+			network.expectInputFromPlayer(inputter);
+			return EvaluationStatus.HAS_MORE_ROUNDS;
+		case 1:
+			output.shares = network.receive(inputter);
+			return EvaluationStatus.IS_DONE;
+		default:
+			throw new MPCException("Cannot evaluate rounds larger than 1.");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "PackedShamirInputGate(" + output + ")";
+	}
+
+	@Override
+	public Value[] getInputValues() {
+		return input;
+	}
+
+	@Override
+	public Value[] getOutputValues() {
+		return new Value[] { output };
+	}
+}
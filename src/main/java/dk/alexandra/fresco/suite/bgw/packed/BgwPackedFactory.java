@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.bgw.packed;
+
+import dk.alexandra.fresco.framework.ProtocolFactory;
+import dk.alexandra.fresco.framework.value.OInt;
+import dk.alexandra.fresco.suite.bgw.BgwFactory;
+import dk.alexandra.fresco.suite.bgw.BgwProtocolSuite;
+import dk.alexandra.fresco.suite.bgw.integer.BgwOInt;
+
+/**
+ * Factory for the packed variant of BGW, for evaluating the same circuit on
+ * many values at once. A {@link BgwSIntVector} holds k values per sharing,
+ * and the protocols work on whole vectors, so the inputs, products and
+ * outputs of a vector take one message per pair of parties. The threshold of
+ * the sharings is that of the {@link BgwProtocolSuite}, and the packing k is
+ * at most {@link PackedShamirSharing#getMaxPacking(int, int)}.
+ * 
+ * The protocols run in the {@link BgwProtocolSuite} of the given
+ * {@link BgwFactory}.
+ */
+public class BgwPackedFactory implements ProtocolFactory {
+
+	private final PackedShamirSharing sharing;
+
+	public BgwPackedFactory(BgwFactory factory, int packing) {
+		BgwProtocolSuite suite = factory.getSuite();
+		this.sharing = new PackedShamirSharing(suite.getSharing(),
+				factory.getNoOfParties(), suite.getThreshold(), packing);
+	}
+
+	public PackedShamirSharing getSharing() {
+		return sharing;
+	}
+
+	public BgwSIntVector getSIntVector(int length) {
+		return new BgwSIntVector(length);
+	}
+
+	public OInt[] getOIntVector(int length) {
+		OInt[] res = new OInt[length];
+		for (int i = 0; i < length; i++) {
+			res[i] = new BgwOInt();
+		}
+		return res;
+	}
+
+	/**
+	 * @param open
+	 *            the values to input, only used by the source.
+	 */
+	public BgwPackedCloseProtocol getCloseCircuit(int source, OInt[] open, BgwSIntVector closed) {
+		return new BgwPackedCloseProtocol(sharing, source, open, closed);
+	}
+
+	public BgwPackedOpenProtocol getOpenCircuit(BgwSIntVector closed, OInt[] open) {
+		return new BgwPackedOpenProtocol(sharing, closed, open);
+	}
+
+	public BgwPackedAddProtocol getAddCircuit(BgwSIntVector a, BgwSIntVector b, BgwSIntVector out) {
+		return new BgwPackedAddProtocol(sharing, a, b, out);
+	}
+
+	public BgwPackedMultProtocol getMultCircuit(BgwSIntVector a, BgwSIntVector b, BgwSIntVector out) {
+		return new BgwPackedMultProtocol(sharing, a, b, out);
+	}
+}
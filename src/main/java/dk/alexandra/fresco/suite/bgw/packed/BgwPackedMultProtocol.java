@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.bgw.packed;
+
+import java.math.BigInteger;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.network.SCENetwork;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.value.Value;
+import dk.alexandra.fresco.suite.bgw.BgwProtocol;
+
+/**
+ * Multiplies two vectors entrywise. The local products of the shares are a
+ * sharing of the products of degree 2d. Each of the parties 1, ..., 2d + 1
+ * reduces the degree by sharing its share of the product times the
+ * coefficients recombining the k secrets, and the parties sum the sharings
+ * they receive. So one share is sent from each dealer to each party per k
+ * products, where {@link dk.alexandra.fresco.suite.bgw.integer.BgwMultProtocol}
+ * sends one per product from every party.
+ */
+public class BgwPackedMultProtocol extends BgwProtocol {
+
+	private final PackedShamirSharing sharing;
+	private final BgwSIntVector left;
+	private final BgwSIntVector right;
+	private final BgwSIntVector out;
+
+	public BgwPackedMultProtocol(PackedShamirSharing sharing, BgwSIntVector left,
+			BgwSIntVector right, BgwSIntVector out) {
+		this.sharing = sharing;
+		this.left = left;
+		this.right = right;
+		this.out = out;
+	}
+
+	@Override
+	public EvaluationStatus evaluate(int round, ResourcePool resourcePool, SCENetwork network) {
+		int dealers = 2 * sharing.getDegree() + 1;
+		BigInteger modulus = sharing.getModulus();
+		switch (round) {
+		case 0:
+			int myId = resourcePool.getMyId();
+			if (myId <= dealers) {
+				int n = resourcePool.getNoOfParties();
+				int k = sharing.getPacking();
+				int blocks = left.shares.length;
+				BigInteger[] coefficients = new BigInteger[k];
+				for (int s = 0; s < k; s++) {
+					coefficients[s] = sharing.getReductionCoefficient(s, myId);
+				}
+				BigInteger[][] shares = new BigInteger[n][blocks];
+				BigInteger[] secrets = new BigInteger[k];
+				for (int b = 0; b < blocks; b++) {
+					BigInteger product = left.shares[b].multiply(right.shares[b]).mod(modulus);
+					for (int s = 0; s < k; s++) {
+						secrets[s] = coefficients[s].multiply(product);
+					}
+					BigInteger[] blockShares = sharing.share(secrets);
+					for (int i = 0; i < n; i++) {
+						shares[i][b] = blockShares[i];
+					}
+				}
+				network.sendSharesToAll(shares);
+			}
+			for (int i = 1; i <= dealers; i++) {
+				network.expectInputFromPlayer(i);
+			}
+			return EvaluationStatus.HAS_MORE_ROUNDS;
+		case 1:
+			BigInteger[] sums = new BigInteger[left.shares.length];
+			for (int i = 1; i <= dealers; i++) {
+				BigInteger[] received = network.receive(i);
+				for (int b = 0; b < sums.length; b++) {
+					sums[b] = i == 1 ? received[b] : sums[b].add(received[b]);
+				}
+			}
+			for (int b = 0; b < sums.length; b++) {
+				sums[b] = sums[b].mod(modulus);
+			}
+			out.shares = sums;
+			return EvaluationStatus.IS_DONE;
+		default:
+			throw new MPCException("Cannot evaluate rounds larger than 1.");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "PackedShamirMultGate(" + left + "," + right + "," + out + ")";
+	}
+
+	@Override
+	public Value[] getInputValues() {
+		return new Value[] { left, right };
+	}
+
+	@Override
+	public Value[] getOutputValues() {
+		return new Value[] { out };
+	}
+}
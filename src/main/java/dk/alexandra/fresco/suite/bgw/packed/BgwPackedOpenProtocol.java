@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.bgw.packed;
+
+import java.math.BigInteger;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.network.SCENetwork;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.value.OInt;
+import dk.alexandra.fresco.framework.value.Value;
+import dk.alexandra.fresco.suite.bgw.BgwProtocol;
+
+/**
+ * Opens a vector to all parties. The shares of the parties 1, ..., d + 1
+ * determine the sharings, so only they send their shares.
+ */
+public class BgwPackedOpenProtocol extends BgwProtocol {
+
+	private final PackedShamirSharing sharing;
+	private final BgwSIntVector input;
+	private final OInt[] output;
+
+	public BgwPackedOpenProtocol(PackedShamirSharing sharing, BgwSIntVector input, OInt[] output) {
+		this.sharing = sharing;
+		this.input = input;
+		this.output = output;
+	}
+
+	@Override
+	public EvaluationStatus evaluate(int round, ResourcePool resourcePool, SCENetwork network) {
+		int senders = sharing.getDegree() + 1;
+		switch (round) {
+		case 0:
+			if (resourcePool.getMyId() <= senders) {
+				network.sendToAll(input.shares);
+			}
+			for (int i = 1; i <= senders; i++) {
+				network.expectInputFromPlayer(i);
+			}
+			return EvaluationStatus.HAS_MORE_ROUNDS;
+		case 1:
+			BigInteger[][] received = new BigInteger[senders][];
+			for (int i = 1; i <= senders; i++) {
+				received[i - 1] = network.receive(i);
+			}
+			int k = sharing.getPacking();
+			BigInteger[] shares = new BigInteger[senders];
+			for (int b = 0; b < input.shares.length; b++) {
+				for (int i = 0; i < senders; i++) {
+					shares[i] = received[i][b];
+				}
+				BigInteger[] secrets = sharing.open(shares);
+				for (int s = 0; s < k && b * k + s < output.length; s++) {
+					output[b * k + s].setValue(secrets[s]);
+				}
+			}
+			return EvaluationStatus.IS_DONE;
+		default:
+			throw new MPCException("Cannot evaluate rounds larger than 1.");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "PackedShamirOpenGate(" + input + ")";
+	}
+
+	@Override
+	public Value[] getInputValues() {
+		return new Value[] { input };
+	}
+
+	@Override
+	public Value[] getOutputValues() {
+		return output;
+	}
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.bgw.packed;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.value.SInt;
+
+/**
+ * A vector of secret integers shared with packed Shamir secret sharing, i.e.,
+ * my shares of the blocks of k values.
+ */
+public class BgwSIntVector implements SInt {
+
+	private static final long serialVersionUID = -2408717394011874530L;
+
+	private int length;
+	public BigInteger[] shares;
+
+	public BgwSIntVector(int length) {
+		this.length = length;
+	}
+
+	/**
+	 * @return the number of values in the vector.
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	@Override
+	public String toString() {
+		return "PackedShamirSInt(" + length + ")";
+	}
+
+	@Override
+	public boolean isReady() {
+		return shares != null;
+	}
+
+	@Override
+	public byte[] getSerializableContent() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(length);
+			out.writeInt(shares.length);
+			for (BigInteger share : shares) {
+				byte[] b = share.toByteArray();
+				out.writeInt(b.length);
+				out.write(b);
+			}
+		} catch (IOException e) {
+			throw new MPCException("Could not serialize the vector.", e);
+		}
+		return bytes.toByteArray();
+	}
+
+	@Override
+	public void setSerializableContent(byte[] val) {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(val))) {
+			this.length = in.readInt();
+			this.shares = new BigInteger[in.readInt()];
+			for (int i = 0; i < shares.length; i++) {
+				byte[] b = new byte[in.readInt()];
+				in.readFully(b);
+				shares[i] = new BigInteger(b);
+			}
+		} catch (IOException e) {
+			throw new MPCException("Could not deserialize the vector.", e);
+		}
+	}
+
+}
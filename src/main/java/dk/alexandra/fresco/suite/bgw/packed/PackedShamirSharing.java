@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.bgw.packed;
+
+import java.math.BigInteger;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.suite.bgw.ShamirSharing;
+
+/**
+ * Packed Shamir secret sharing, as proposed by Franklin and Yung, where one
+ * polynomial holds k secrets in the points 0, -1, ..., -(k - 1). To hide the
+ * secrets from t parties, the polynomial has degree d = t + k - 1, and to
+ * multiply two sharings, the product of degree 2d must be determined by the n
+ * parties, i.e., 2d < n. Packing k values thus lowers the threshold by k - 1.
+ * 
+ * All sharing, opening and degree reduction is done by matrices of Lagrange
+ * coefficients computed once per session.
+ */
+public class PackedShamirSharing {
+
+	private final ShamirSharing sharing;
+	private final BigInteger modulus;
+	private final int noOfParties;
+	private final int threshold;
+	private final int packing;
+	private final int degree;
+
+	// shareMatrix[i][j]: the coefficient of node j in the share of party i + 1
+	private final BigInteger[][] shareMatrix;
+	// openMatrix[s][i]: the coefficient of party i + 1 in secret s
+	private final BigInteger[][] openMatrix;
+	// reduceMatrix[s][i]: the coefficient of party i + 1 in secret s of a
+	// product
+	private final BigInteger[][] reduceMatrix;
+
+	/**
+	 * @param sharing
+	 *            the sharing of the session, giving the modulus and the
+	 *            randomness.
+	 */
+	public PackedShamirSharing(ShamirSharing sharing, int noOfParties, int threshold, int packing) {
+		if (packing < 1 || packing > getMaxPacking(noOfParties, threshold)) {
+			throw new MPCException("Cannot pack " + packing + " values with threshold " + threshold
+					+ " among " + noOfParties + " parties, as n must exceed 2(t + k - 1).");
+		}
+		this.sharing = sharing;
+		this.modulus = sharing.getModulus();
+		this.noOfParties = noOfParties;
+		this.threshold = threshold;
+		this.packing = packing;
+		this.degree = threshold + packing - 1;
+
+		// the secrets followed by the t random values
+		BigInteger[] nodes = new BigInteger[degree + 1];
+		for (int j = 0; j <= degree; j++) {
+			nodes[j] = BigInteger.valueOf(-j).mod(modulus);
+		}
+		this.shareMatrix = new BigInteger[noOfParties][];
+		for (int i = 0; i < noOfParties; i++) {
+			shareMatrix[i] = lagrange(nodes, BigInteger.valueOf(i + 1));
+		}
+		this.openMatrix = new BigInteger[packing][];
+		this.reduceMatrix = new BigInteger[packing][];
+		BigInteger[] points = parties(degree + 1);
+		BigInteger[] productPoints = parties(2 * degree + 1);
+		for (int s = 0; s < packing; s++) {
+			openMatrix[s] = lagrange(points, nodes[s]);
+			reduceMatrix[s] = lagrange(productPoints, nodes[s]);
+		}
+	}
+
+	/**
+	 * @return the largest number of values that can be packed into one
+	 *         sharing, such that sharings can still be multiplied.
+	 */
+	public static int getMaxPacking(int noOfParties, int threshold) {
+		return (noOfParties - 1) / 2 - threshold + 1;
+	}
+
+	public int getPacking() {
+		return packing;
+	}
+
+	/**
+	 * @return the degree d = t + k - 1 of the sharings.
+	 */
+	public int getDegree() {
+		return degree;
+	}
+
+	public int getThreshold() {
+		return threshold;
+	}
+
+	public BigInteger getModulus() {
+		return modulus;
+	}
+
+	/**
+	 * @return the number of sharings needed to hold the given number of
+	 *         values.
+	 */
+	public int getBlocks(int length) {
+		return (length + packing - 1) / packing;
+	}
+
+	/**
+	 * Shares up to k secrets, padding with zeros.
+	 * 
+	 * @return the shares of the parties 1, ..., n.
+	 */
+	public BigInteger[] share(BigInteger[] secrets) {
+		BigInteger[] values = new BigInteger[degree + 1];
+		for (int j = 0; j < packing; j++) {
+			values[j] = j < secrets.length ? secrets[j] : BigInteger.ZERO;
+		}
+		for (int j = packing; j <= degree; j++) {
+			values[j] = sharing.random();
+		}
+		BigInteger[] shares = new BigInteger[noOfParties];
+		for (int i = 0; i < noOfParties; i++) {
+			shares[i] = innerProduct(shareMatrix[i], values);
+		}
+		return shares;
+	}
+
+	/**
+	 * Recombines the k secrets of a sharing of degree d.
+	 * 
+	 * @param shares
+	 *            the shares of at least the parties 1, ..., d + 1, in that
+	 *            order.
+	 */
+	public BigInteger[] open(BigInteger[] shares) {
+		BigInteger[] secrets = new BigInteger[packing];
+		for (int s = 0; s < packing; s++) {
+			secrets[s] = innerProduct(openMatrix[s], shares);
+		}
+		return secrets;
+	}
+
+	/**
+	 * A sharing of degree 2d is reduced by letting each of the parties 1, ...,
+	 * 2d + 1 share its share h times the reduction coefficients of the
+	 * secrets, and summing the sharings dealt.
+	 * 
+	 * @return the coefficient of the share of the party in the secret, when
+	 *         the secrets of a sharing of degree 2d are recombined.
+	 */
+	public BigInteger getReductionCoefficient(int secret, int party) {
+		return reduceMatrix[secret][party - 1];
+	}
+
+	private BigInteger innerProduct(BigInteger[] coefficients, BigInteger[] values) {
+		BigInteger res = BigInteger.ZERO;
+		for (int i = 0; i < coefficients.length; i++) {
+			res = res.add(coefficients[i].multiply(values[i]));
+		}
+		return res.mod(modulus);
+	}
+
+	private static BigInteger[] parties(int count) {
+		BigInteger[] points = new BigInteger[count];
+		for (int i = 0; i < count; i++) {
+			points[i] = BigInteger.valueOf(i + 1);
+		}
+		return points;
+	}
+
+	/**
+	 * @return the Lagrange basis polynomials of the nodes evaluated in x.
+	 */
+	private BigInteger[] lagrange(BigInteger[] nodes, BigInteger x) {
+		BigInteger[] basis = new BigInteger[nodes.length];
+		for (int m = 0; m < nodes.length; m++) {
+			BigInteger numerator = BigInteger.ONE;
+			BigInteger denominator = BigInteger.ONE;
+			for (int l = 0; l < nodes.length; l++) {
+				if (l != m) {
+					numerator = numerator.multiply(x.subtract(nodes[l])).mod(modulus);
+					denominator = denominator.multiply(nodes[m].subtract(nodes[l])).mod(modulus);
+				}
+			}
+			basis[m] = numerator.multiply(denominator.modInverse(modulus)).mod(modulus);
+		}
+		return basis;
+	}
+}
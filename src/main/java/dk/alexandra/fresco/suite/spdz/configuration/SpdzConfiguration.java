@@ -35,8 +35,11 @@ import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 
+import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
 import dk.alexandra.fresco.framework.sce.configuration.ProtocolSuiteConfiguration;
 import dk.alexandra.fresco.framework.sce.configuration.SCEConfiguration;
+import dk.alexandra.fresco.suite.spdz.storage.SharedDataPool;
+import dk.alexandra.fresco.suite.spdz.storage.TrustedDealer;
 
 public interface SpdzConfiguration extends ProtocolSuiteConfiguration {
 
@@ -60,6 +63,89 @@ public interface SpdzConfiguration extends ProtocolSuiteConfiguration {
 	 * @return
 	 */
 	public boolean useDummyData();
+
+	/**
+	 * The network configuration used to reach a {@link TrustedDealer} which
+	 * supplies preprocessed data while the computation runs. The computing
+	 * parties have the same ids as in the computation and the dealer has id
+	 * noOfParties + 1. Ports must differ from those used by the computation.
+	 * 
+	 * @return the dealer network configuration, or null if preprocessed data
+	 *         should be read from storage or be dummy data.
+	 */
+	default NetworkConfiguration getDealerConfiguration() {
+		return null;
+	}
+
+	/**
+	 * True: all VM threads draw preprocessed data from a single
+	 * {@link SharedDataPool}, such that threads doing most of the work can
+	 * use the data of the other threads. False: each thread only uses its own
+	 * preprocessed data.
+	 * 
+	 * @return
+	 */
+	default boolean useSharedPreprocessingPool() {
+		return false;
+	}
+
+	/**
+	 * The number of gates evaluated between two MAC checks. Independently of
+	 * this, outputs check the values opened in the batches before them, and
+	 * the remaining values are checked when the evaluation of an application
+	 * finishes, before it returns.
+	 * 
+	 * @return
+	 */
+	default int getMacCheckThreshold() {
+		return 100000;
+	}
+
+	/**
+	 * True: when the threshold is reached, the MAC check of the values opened
+	 * so far runs on a background thread, over the channel of the suite, while
+	 * evaluation continues. Outputs still wait for it to succeed and check the
+	 * values opened after it started before revealing anything, so only
+	 * checks of stretches without outputs run in the background. False:
+	 * evaluation stops until the check is done.
+	 * 
+	 * @return
+	 */
+	default boolean useAsynchronousMacCheck() {
+		return false;
+	}
+
+	/**
+	 * True: squares are computed from preprocessed square pairs, opening one
+	 * value instead of the two opened by a multiplication. The preprocessed
+	 * data must then hold square pairs, which data generated before square
+	 * pairs were introduced does not. False: squares are multiplications.
+	 * 
+	 * @return
+	 */
+	default boolean useSquarePairs() {
+		return false;
+	}
+
+	/**
+	 * True: matrix products are computed from preprocessed matrix triples,
+	 * opening only the two masked matrices. The preprocessed data must then
+	 * hold matrix triples of each shape multiplied. False: matrices are
+	 * multiplied entry by entry.
+	 * 
+	 * @return
+	 */
+	default boolean useMatrixTriples() {
+		return false;
+	}
+
+	/**
+	 * One channel for the MAC checks done while the VM threads use theirs.
+	 */
+	@Override
+	default int getNoOfExtraChannels() {
+		return 1;
+	}
 	
 	static SpdzConfiguration fromCmdArgs(SCEConfiguration sceConf,
 			String[] remainingArgs) throws ParseException {
@@ -80,6 +166,31 @@ public interface SpdzConfiguration extends ProtocolSuiteConfiguration {
 				.desc("Set to true to use dummy data as preprocessed data.")
 				.longOpt("spdz.useDummyData").required(false).hasArgs().build());
 
+		options.addOption(Option
+				.builder("D")
+				.desc("Set to true to let all threads share a single pool of preprocessed data.")
+				.longOpt("spdz.sharedPool").required(false).hasArgs().build());
+
+		options.addOption(Option
+				.builder("D")
+				.desc("The number of gates evaluated between two MAC checks. Defaults to 100000.")
+				.longOpt("spdz.macCheckThreshold").required(false).hasArgs().build());
+
+		options.addOption(Option
+				.builder("D")
+				.desc("Set to true to run MAC checks in the background while evaluation continues.")
+				.longOpt("spdz.asyncMacCheck").required(false).hasArgs().build());
+
+		options.addOption(Option
+				.builder("D")
+				.desc("Set to true to square using preprocessed square pairs.")
+				.longOpt("spdz.useSquarePairs").required(false).hasArgs().build());
+
+		options.addOption(Option
+				.builder("D")
+				.desc("Set to true to multiply matrices using preprocessed matrix triples.")
+				.longOpt("spdz.useMatrixTriples").required(false).hasArgs().build());
+
 		CommandLineParser parser = new DefaultParser();
 		CommandLine cmd = parser.parse(options, remainingArgs);
 
@@ -99,6 +210,14 @@ public interface SpdzConfiguration extends ProtocolSuiteConfiguration {
 
 		final String triplePath = p.getProperty("spdz.triplePath", "/triples");
 		final boolean useDummyData = Boolean.parseBoolean(p.getProperty("spdz.useDummyData", "False"));
+		final boolean sharedPool = Boolean.parseBoolean(p.getProperty("spdz.sharedPool", "False"));
+		final int macCheckThreshold = Integer.parseInt(p.getProperty("spdz.macCheckThreshold", "100000"));
+		if (macCheckThreshold < 1) {
+			throw new ParseException("spdz.macCheckThreshold must be > 0");
+		}
+		final boolean asyncMacCheck = Boolean.parseBoolean(p.getProperty("spdz.asyncMacCheck", "False"));
+		final boolean useSquarePairs = Boolean.parseBoolean(p.getProperty("spdz.useSquarePairs", "False"));
+		final boolean useMatrixTriples = Boolean.parseBoolean(p.getProperty("spdz.useMatrixTriples", "False"));
 
 		return new SpdzConfiguration() {
 
@@ -116,6 +235,31 @@ public interface SpdzConfiguration extends ProtocolSuiteConfiguration {
 			public boolean useDummyData() {
 				return useDummyData;
 			}
+
+			@Override
+			public boolean useSharedPreprocessingPool() {
+				return sharedPool;
+			}
+
+			@Override
+			public int getMacCheckThreshold() {
+				return macCheckThreshold;
+			}
+
+			@Override
+			public boolean useAsynchronousMacCheck() {
+				return asyncMacCheck;
+			}
+
+			@Override
+			public boolean useSquarePairs() {
+				return useSquarePairs;
+			}
+
+			@Override
+			public boolean useMatrixTriples() {
+				return useMatrixTriples;
+			}
 		};
 	}
 
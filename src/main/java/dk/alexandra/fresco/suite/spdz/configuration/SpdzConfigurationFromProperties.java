@@ -65,5 +65,30 @@ public class SpdzConfigurationFromProperties implements SpdzConfiguration {
 	public boolean useDummyData() {
 		return Boolean.parseBoolean(prop.getProperty("useDummyData", "False"));
 	}
+
+	@Override
+	public boolean useSharedPreprocessingPool() {
+		return Boolean.parseBoolean(prop.getProperty("sharedPool", "False"));
+	}
+
+	@Override
+	public int getMacCheckThreshold() {
+		return Integer.parseInt(prop.getProperty("macCheckThreshold", "100000"));
+	}
+
+	@Override
+	public boolean useAsynchronousMacCheck() {
+		return Boolean.parseBoolean(prop.getProperty("asyncMacCheck", "False"));
+	}
+
+	@Override
+	public boolean useSquarePairs() {
+		return Boolean.parseBoolean(prop.getProperty("useSquarePairs", "False"));
+	}
+
+	@Override
+	public boolean useMatrixTriples() {
+		return Boolean.parseBoolean(prop.getProperty("useMatrixTriples", "False"));
+	}
 	
 }
@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.datatypes;
+
+import java.io.Serializable;
+
+/**
+ * An extended doubly-authenticated bit (edaBit), i.e. a random shared value
+ * r of bit length l + k together with shares of its l least significant
+ * bits. The top k bits are only there to statistically hide values of bit
+ * length l masked by r.
+ */
+public class SpdzEdaBit implements Serializable {
+
+	private static final long serialVersionUID = -1218296433651063528L;
+
+	private SpdzElement r;
+	private SpdzElement[] bits;
+
+	public SpdzEdaBit(SpdzElement r, SpdzElement[] bits) {
+		this.r = r;
+		this.bits = bits;
+	}
+
+	public SpdzElement getR() {
+		return r;
+	}
+
+	/**
+	 * @return the l least significant bits of r, with index 0 being the least
+	 *         significant bit.
+	 */
+	public SpdzElement[] getBits() {
+		return bits;
+	}
+
+	@Override
+	public String toString() {
+		return "SpdzEdaBit [r=" + r + ", bits=" + bits.length + "]";
+	}
+}
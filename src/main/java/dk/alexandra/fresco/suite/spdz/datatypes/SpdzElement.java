@@ -29,7 +29,7 @@ package dk.alexandra.fresco.suite.spdz.datatypes;
 import java.io.Serializable;
 import java.math.BigInteger;
 
-import dk.alexandra.fresco.suite.spdz.utils.Util;
+import dk.alexandra.fresco.framework.math.ModularArithmetic;
 
 public class SpdzElement implements Serializable{
 	
@@ -48,38 +48,47 @@ public class SpdzElement implements Serializable{
 	}
 	
 	//Communication methods	
+	/**
+	 * Decodes an element encoded by {@link #toByteArray()}: the share
+	 * followed by the mac, both unsigned and of the same width.
+	 */
 	public SpdzElement(byte[] data){
-		int size = getSize();
+		int size = data.length / 2;
 		byte[] shareBytes = new byte[size];
 		byte[] macBytes = new byte[size];
-		for(int i = 0; i < data.length/2; i++){
-			shareBytes[i] = data[i];
-			macBytes[i] = data[size+i];
-		}
-		this.share = new BigInteger(shareBytes);
-		this.mac = new BigInteger(macBytes);
+		System.arraycopy(data, 0, shareBytes, 0, size);
+		System.arraycopy(data, size, macBytes, 0, size);
+		this.share = new BigInteger(1, shareBytes);
+		this.mac = new BigInteger(1, macBytes);
 	}
 
-	public static int getSize(){
-		return Util.size; //cause we only do partial openings meaning sending a share
-	}
-	
-	public byte[] toByteArray(){		
-		byte[] share_invert = new byte[getSize()];
-		byte[] mac_invert = new byte[getSize()];
-		copyAndInvertArray(share_invert, this.share.toByteArray());
-		copyAndInvertArray(mac_invert, this.mac.toByteArray());
-		byte[] res = new byte[getSize()*2];
-		System.arraycopy(share_invert, 0, res, 0, getSize());
-		System.arraycopy(mac_invert, 0, res, getSize(), getSize());
+	public byte[] toByteArray(){
+		byte[] shareBytes = unsignedBytes(this.share);
+		byte[] macBytes = unsignedBytes(this.mac);
+		int size = Math.max(shareBytes.length, macBytes.length);
+		byte[] res = new byte[size*2];
+		copyRightAligned(res, size, shareBytes);
+		copyRightAligned(res, 2*size, macBytes);
 		return res;		
 	}
-	
-	private void copyAndInvertArray(byte[] bytes, byte[] byteArray) {
-        for (int inx = 0; inx < byteArray.length; inx++) {       
-            bytes[bytes.length - byteArray.length + inx] = byteArray[inx];            
-        }
-    }
+
+	private static byte[] unsignedBytes(BigInteger value) {
+		byte[] bytes = value.toByteArray();
+		if (bytes.length > 1 && bytes[0] == 0) {
+			byte[] stripped = new byte[bytes.length - 1];
+			System.arraycopy(bytes, 1, stripped, 0, stripped.length);
+			return stripped;
+		}
+		return bytes;
+	}
+
+	/**
+	 * Copies byteArray into bytes right aligned so that it ends at the given
+	 * end index.
+	 */
+	private static void copyRightAligned(byte[] bytes, int end, byte[] byteArray) {
+		System.arraycopy(byteArray, 0, bytes, end - byteArray.length, byteArray.length);
+	}
 	
 	//get operations
 	public BigInteger getShare(){
@@ -90,10 +99,10 @@ public class SpdzElement implements Serializable{
 		return mac;
 	}
 	
-	//Arithmetic operations:
-	public SpdzElement add(SpdzElement e){
-		BigInteger rShare = this.share.add(e.getShare()).mod(Util.getModulus());
-		BigInteger rMac = this.mac.add(e.getMac()).mod(Util.getModulus());		
+	//Arithmetic operations, in the field of the given arithmetic:
+	public SpdzElement add(SpdzElement e, ModularArithmetic arithmetic){
+		BigInteger rShare = arithmetic.add(this.share, e.getShare());
+		BigInteger rMac = arithmetic.add(this.mac, e.getMac());		
 		return new SpdzElement(rShare, rMac);
 	}
 	
@@ -101,23 +110,24 @@ public class SpdzElement implements Serializable{
 	 * Public value added
 	 * @param e
 	 * @param myId
+	 * @param arithmetic
 	 * @return
 	 */
-	public SpdzElement add(SpdzElement e, int pID){
+	public SpdzElement add(SpdzElement e, int pID, ModularArithmetic arithmetic){
 		BigInteger rShare = this.share;
 		BigInteger rMac = this.mac;
-		rMac = rMac.add(e.getMac()).mod(Util.getModulus());
+		rMac = arithmetic.add(rMac, e.getMac());
 		if(pID == 1){
-			rShare = rShare.add(e.getShare()).mod(Util.getModulus());			
+			rShare = arithmetic.add(rShare, e.getShare());			
 		}
 		return new SpdzElement(rShare, rMac);
 	}
 	
-	public SpdzElement subtract(SpdzElement e){
+	public SpdzElement subtract(SpdzElement e, ModularArithmetic arithmetic){
 		BigInteger eShare = e.getShare();
-		BigInteger rShare = this.share.subtract(eShare).mod(Util.getModulus());
+		BigInteger rShare = arithmetic.subtract(this.share, eShare);
 		BigInteger eMac = e.getMac();
-		BigInteger rMac = this.mac.subtract(eMac).mod(Util.getModulus());				
+		BigInteger rMac = arithmetic.subtract(this.mac, eMac);				
 		return new SpdzElement(rShare, rMac);
 	}
 	
@@ -125,21 +135,22 @@ public class SpdzElement implements Serializable{
 	 * Public value subtracted
 	 * @param e
 	 * @param myId
+	 * @param arithmetic
 	 * @return
 	 */
-	public SpdzElement subtract(SpdzElement e, int pID) {
+	public SpdzElement subtract(SpdzElement e, int pID, ModularArithmetic arithmetic) {
 		BigInteger rShare = this.share;
 		if(pID == 1){
-			rShare = this.share.subtract(e.getShare()).mod(Util.getModulus());
+			rShare = arithmetic.subtract(this.share, e.getShare());
 		}
 		BigInteger eMac = e.getMac();
-		BigInteger rMac = this.mac.subtract(eMac).mod(Util.getModulus());				
+		BigInteger rMac = arithmetic.subtract(this.mac, eMac);				
 		return new SpdzElement(rShare, rMac);
 	}
 	
-	public SpdzElement multiply(BigInteger c){
-		BigInteger rShare = this.share.multiply(c).mod(Util.getModulus());
-		BigInteger rMac = this.mac.multiply(c).mod(Util.getModulus());				
+	public SpdzElement multiply(BigInteger c, ModularArithmetic arithmetic){
+		BigInteger rShare = arithmetic.multiply(this.share, c);
+		BigInteger rMac = arithmetic.multiply(this.mac, c);				
 		return new SpdzElement(rShare, rMac);		
 	}
 	
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.datatypes;
+
+import java.io.Serializable;
+
+import dk.alexandra.fresco.framework.MPCException;
+
+/**
+ * A matrix triple, i.e. random shared matrices A (rows x inner) and B (inner x
+ * columns) along with their product C = A*B. A matrix triple lets two secret
+ * matrices be multiplied opening only the two masked matrices, where
+ * multiplying entry by entry would use a triple for each of the rows * inner *
+ * columns products.
+ */
+public class SpdzMatrixTriple implements Serializable {
+
+	private static final long serialVersionUID = -1740254622087213839L;
+
+	private SpdzElement[][] a, b, c;
+
+	public SpdzMatrixTriple(SpdzElement[][] a, SpdzElement[][] b,
+			SpdzElement[][] c) {
+		if (a.length != c.length || b.length != a[0].length
+				|| b[0].length != c[0].length) {
+			throw new MPCException("Cannot make a matrix triple of shapes "
+					+ a.length + "x" + a[0].length + ", " + b.length + "x"
+					+ b[0].length + " and " + c.length + "x" + c[0].length);
+		}
+		this.a = a;
+		this.b = b;
+		this.c = c;
+	}
+
+	public SpdzElement[][] getA() {
+		return a;
+	}
+
+	public SpdzElement[][] getB() {
+		return b;
+	}
+
+	public SpdzElement[][] getC() {
+		return c;
+	}
+
+	public int getRows() {
+		return a.length;
+	}
+
+	public int getInner() {
+		return b.length;
+	}
+
+	public int getColumns() {
+		return c[0].length;
+	}
+
+	/**
+	 * @return the shape of this triple, as given by
+	 *         {@link #getShape(int, int, int)}.
+	 */
+	public String getShape() {
+		return getShape(getRows(), getInner(), getColumns());
+	}
+
+	/**
+	 * Matrix triples are stored and counted per shape, since a triple can only
+	 * be used for matrices of exactly its shape.
+	 * 
+	 * @return a name of the shape on the form "rows x inner x columns", e.g.
+	 *         "2x3x4".
+	 */
+	public static String getShape(int rows, int inner, int columns) {
+		return rows + "x" + inner + "x" + columns;
+	}
+
+	/**
+	 * @param shape
+	 *            a shape as returned by {@link #getShape(int, int, int)}.
+	 * @return the rows, inner dimension and columns of the shape.
+	 */
+	public static int[] parseShape(String shape) {
+		String[] parts = shape.trim().split("x");
+		if (parts.length != 3) {
+			throw new MPCException("Not a matrix triple shape: " + shape);
+		}
+		try {
+			return new int[] { Integer.parseInt(parts[0]),
+					Integer.parseInt(parts[1]), Integer.parseInt(parts[2]) };
+		} catch (NumberFormatException e) {
+			throw new MPCException("Not a matrix triple shape: " + shape, e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "SpdzMatrixTriple [shape=" + getShape() + "]";
+	}
+}
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.datatypes;
+
+import java.io.Serializable;
+
+import dk.alexandra.fresco.framework.value.SBool;
+
+/**
+ * A secret shared bit in SPDZ. SPDZ has no binary domain, so the bit is a
+ * {@link SpdzElement} in the field constrained to {0, 1}, authenticated
+ * under the same MAC key as {@link SpdzSInt}s. Such a bit is both a boolean
+ * and an arithmetic share, i.e., a doubly-authenticated bit, so converting
+ * it to a {@link SpdzSInt} is free.
+ */
+public class SpdzSBool implements SBool, Serializable {
+
+	private static final long serialVersionUID = -3524393460727546702L;
+
+	public SpdzElement value;
+
+	public SpdzSBool() {
+		this.value = null;
+	}
+
+	public SpdzSBool(SpdzElement e) {
+		this.value = e;
+	}
+
+	@Override
+	public String toString() {
+		return "SpdzSBool(" + this.value + ")";
+	}
+
+	@Override
+	public boolean isReady() {
+		return !(value == null);
+	}
+
+	@Override
+	public byte[] getSerializableContent() {
+		return this.value.toByteArray();
+	}
+
+	@Override
+	public void setSerializableContent(byte[] val) {
+		this.value = new SpdzElement(val);
+	}
+}
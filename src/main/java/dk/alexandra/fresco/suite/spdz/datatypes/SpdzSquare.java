@@ -26,7 +26,17 @@
  *******************************************************************************/
 package dk.alexandra.fresco.suite.spdz.datatypes;
 
-public class SpdzSquare {
+import java.io.Serializable;
+
+/**
+ * A square pair, i.e. a random shared value a and its square b = a^2.
+ */
+public class SpdzSquare implements Serializable {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 6529730398640547382L;
 
 	private SpdzElement a, b;	
 	
@@ -42,5 +52,10 @@ public class SpdzSquare {
 	public SpdzElement getB(){
 		return b;
 	}
+
+	@Override
+	public String toString() {
+		return "SpdzSquare [a=" + a + ", b=" + b + "]";
+	}
 	
 }
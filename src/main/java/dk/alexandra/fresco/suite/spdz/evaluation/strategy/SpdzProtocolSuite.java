@@ -29,39 +29,55 @@ package dk.alexandra.fresco.suite.spdz.evaluation.strategy;
 import java.io.IOException;
 import java.io.Serializable;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Random;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
 
 import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.NativeProtocol;
 import dk.alexandra.fresco.framework.NativeProtocol.EvaluationStatus;
 import dk.alexandra.fresco.framework.Reporter;
+import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
+import dk.alexandra.fresco.framework.math.ModularArithmetic;
 import dk.alexandra.fresco.framework.network.Network;
 import dk.alexandra.fresco.framework.network.SCENetworkImpl;
+import dk.alexandra.fresco.framework.network.ScapiNetworkImpl;
 import dk.alexandra.fresco.framework.sce.configuration.ProtocolSuiteConfiguration;
 import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.util.FieldPrg;
 import dk.alexandra.fresco.suite.ProtocolSuite;
 import dk.alexandra.fresco.suite.spdz.configuration.SpdzConfiguration;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzCommitment;
-import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzCommitProtocol;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzOpenCommitProtocol;
 import dk.alexandra.fresco.suite.spdz.storage.DataRetrieverImpl;
+import dk.alexandra.fresco.suite.spdz.storage.DealerDataSupplier;
+import dk.alexandra.fresco.suite.spdz.storage.MacCheckAccumulator;
+import dk.alexandra.fresco.suite.spdz.storage.ShardedDataLoader;
+import dk.alexandra.fresco.suite.spdz.storage.SharedDataPool;
 import dk.alexandra.fresco.suite.spdz.storage.SpdzStorage;
 import dk.alexandra.fresco.suite.spdz.storage.SpdzStorageConstants;
 import dk.alexandra.fresco.suite.spdz.storage.SpdzStorageDummyImpl;
 import dk.alexandra.fresco.suite.spdz.storage.SpdzStorageImpl;
+import dk.alexandra.fresco.suite.spdz.storage.TrustedDealer;
+import dk.alexandra.fresco.suite.spdz.utils.SpdzField;
 import dk.alexandra.fresco.suite.spdz.utils.Util;
 
 public class SpdzProtocolSuite implements ProtocolSuite {
 
-	private static Map<Integer, SpdzProtocolSuite> instances;
+	private static final int DEALER_TIMEOUT_MILLIS = 10000;
 
 	private Network network;
 	private Random rand;
@@ -69,23 +85,22 @@ public class SpdzProtocolSuite implements ProtocolSuite {
 	private ResourcePool rp;
 	private int gatesEvaluated = 0;
 	private int macCheckThreshold = 100000;
+	private byte[] macCheckSeed;
+	private long epoch;
+	private String macCheckChannel;
+	private ExecutorService macChecker;
+	private volatile Future<?> pendingCheck;
+	private EpochSums unchecked;
 	private BigInteger keyShare, p;
+	private SpdzField field;
 	private MessageDigest[] digs;
 	private SpdzConfiguration spdzConf;
+	private Network dealerNetwork;
+	private SharedDataPool pool;
 
 	public SpdzProtocolSuite() {
 	}
 
-	public static SpdzProtocolSuite getInstance(int id) {
-		if (instances == null) {
-			instances = new HashMap<Integer, SpdzProtocolSuite>();
-		}
-		if (instances.get(id) == null) {
-			instances.put(id, new SpdzProtocolSuite());
-		}
-		return instances.get(id);
-	}
-
 	public SpdzStorage getStore(int i) {
 		return store[i];
 	}
@@ -98,6 +113,13 @@ public class SpdzProtocolSuite implements ProtocolSuite {
 		return p;
 	}
 
+	/**
+	 * @return the field of the values of this suite.
+	 */
+	public SpdzField getField() {
+		return field;
+	}
+
 	public SpdzConfiguration getConf() {
 		return this.spdzConf;
 	}
@@ -112,8 +134,16 @@ public class SpdzProtocolSuite implements ProtocolSuite {
 		this.network = resourcePool.getNetwork();
 		int noOfThreads = resourcePool.getVMThreadCount();
 		this.store = new SpdzStorage[noOfThreads];
+		BigInteger[] dealerGlobals = null;
+		if (spdzConf.getDealerConfiguration() != null) {
+			dealerGlobals = connectToDealer(spdzConf.getDealerConfiguration(),
+					resourcePool.getNoOfParties(), noOfThreads);
+		}
 		for (int i = 0; i < noOfThreads; i++) {
-			if (spdzConf.useDummyData()) {
+			if (dealerGlobals != null) {
+				store[i] = new SpdzStorageImpl(new DealerDataSupplier(dealerNetwork, i,
+						resourcePool.getNoOfParties(), dealerGlobals));
+			} else if (spdzConf.useDummyData()) {
 				store[i] = new SpdzStorageDummyImpl(resourcePool.getMyId(), resourcePool.getNoOfParties());
 			} else {
 				store[i] = new SpdzStorageImpl(resourcePool, i+1);
@@ -139,53 +169,112 @@ public class SpdzProtocolSuite implements ProtocolSuite {
 		try {
 			this.store[0].getSSK();
 		} catch (MPCException e) {
-			// FIXME: This only retrieves data for a single thread. Needs to be
-			// done for each thread.
-			// FIXME: OR - remove this, and require that data is stored
-			// beforehand. It really should not be something this class should
-			// deal with.
-			DataRetrieverImpl retriever = new DataRetrieverImpl(resourcePool, spdzConf.getTriplePath(),
-					SpdzStorageConstants.STORAGE_NAME_PREFIX + rp.getMyId());
-			Callable<Boolean> fetchThread = new Callable<Boolean>() {
+			if (ShardedDataLoader.hasShards(spdzConf.getTriplePath(), resourcePool.getMyId())) {
+				// Sharded data holds data for each thread. Verify and load it
+				// all before evaluation starts.
+				ShardedDataLoader loader = new ShardedDataLoader(spdzConf.getTriplePath(),
+						resourcePool.getMyId(), resourcePool.getNoOfParties(), noOfThreads);
+				loader.loadInto(resourcePool.getStreamedStorage());
+			} else {
+				fetchUnshardedData(resourcePool);
+			}
+		}
 
-				@Override
-				public Boolean call() throws Exception {
-					try {
-						retriever.fetchAll();
-					} catch (Exception e) {
-						return false;
-					}
-					return true;
-				}
-			};
-			resourcePool.getThreadPool().submitTask(fetchThread);
+		this.pool = null;
+		if (spdzConf.useSharedPreprocessingPool() && noOfThreads > 1) {
+			this.pool = new SharedDataPool(store, resourcePool.getNoOfParties());
+			this.store = new SpdzStorage[noOfThreads];
+			for (int i = 0; i < noOfThreads; i++) {
+				store[i] = new SpdzStorageImpl(pool.getSupplier(i));
+			}
 		}
 
 		// Initialize various fields global to the computation.
 		this.keyShare = store[0].getSSK();
 		this.p = store[0].getSupplier().getModulus();
-		Util.setModulus(this.p);
-		byte[] bytes = p.toByteArray();
-		if (bytes[0] == 0) {
-			Util.size = p.toByteArray().length - 1;
-		} else {
-			Util.size = p.toByteArray().length;
+		this.field = new SpdzField(this.p);
+
+		this.macCheckThreshold = spdzConf.getMacCheckThreshold();
+		shutdownMacChecker();
+		this.macCheckChannel = String.valueOf(Math.max(noOfThreads, 1));
+		if (spdzConf.useAsynchronousMacCheck()) {
+			this.macChecker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "SPDZ MAC check");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		try {
+			BigInteger s = new BigInteger(p.bitLength(), rand).mod(p);
+			this.macCheckSeed = commitAndOpen(s, "0", this.digs[0]).mod(p).toByteArray();
+		} catch (IOException e) {
+			throw new MPCException("Could not toss the seed for the MAC check.", e);
+		}
+		this.epoch = 0;
+		this.unchecked = EpochSums.NONE;
+		startEpoch();
+	}
+
+	private void fetchUnshardedData(ResourcePool resourcePool) {
+		// FIXME: This only retrieves data for a single thread. Use sharded
+		// data (see FakeTripGen.writeShards) for multiple threads.
+		DataRetrieverImpl retriever = new DataRetrieverImpl(resourcePool, spdzConf.getTriplePath(),
+				SpdzStorageConstants.STORAGE_NAME_PREFIX + rp.getMyId());
+		Callable<Boolean> fetchThread = new Callable<Boolean>() {
+
+			@Override
+			public Boolean call() throws Exception {
+				try {
+					retriever.fetchAll();
+				} catch (Exception e) {
+					return false;
+				}
+				return true;
+			}
+		};
+		resourcePool.getThreadPool().submitTask(fetchThread);
+	}
+
+	private BigInteger[] connectToDealer(NetworkConfiguration dealerConf,
+			int noOfParties, int noOfThreads) {
+		disconnectFromDealer();
+		ScapiNetworkImpl net = new ScapiNetworkImpl(dealerConf,
+				TrustedDealer.getNoOfChannels(noOfParties, noOfThreads));
+		try {
+			net.connect(DEALER_TIMEOUT_MILLIS);
+		} catch (IOException e) {
+			throw new MPCException("Could not connect to the trusted dealer", e);
+		}
+		dealerNetwork = net;
+		try {
+			return DealerDataSupplier.receiveGlobals(dealerNetwork, noOfParties);
+		} catch (IOException e) {
+			throw new MPCException("Could not receive global information from the trusted dealer", e);
 		}
 	}
 
 	@Override
 	public void synchronize(int gatesEvaluated) throws MPCException {
+		if (pool != null) {
+			pool.endBatch();
+		}
+		// Seal the values opened in this batch, such that outputs of the next
+		// batches can have them checked first.
+		this.unchecked = this.unchecked.add(endEpoch());
 		this.gatesEvaluated += gatesEvaluated;
 		if (this.gatesEvaluated > macCheckThreshold) {
-			try {
-				for (int i = 1; i < store.length; i++) {
-					store[0].getOpenedValues().addAll(store[i].getOpenedValues());
-					store[0].getClosedValues().addAll(store[i].getClosedValues());
-					store[i].reset();
+			if (macChecker != null) {
+				startMacCheck();
+			} else {
+				try {
+					MACCheck();
+				} catch (IOException e) {
+					throw new MPCException("Could not complete MACCheck.", e);
 				}
-				MACCheck();
-			} catch (IOException e) {
-				throw new MPCException("Could not complete MACCheck.", e);
 			}
 			this.gatesEvaluated = 0;
 		}
@@ -201,157 +290,176 @@ public class SpdzProtocolSuite implements ProtocolSuite {
 		}
 	}
 
-	private void MACCheck() throws IOException {
-		// TODO: This is not truly random
-		BigInteger s = new BigInteger(Util.getModulus().bitLength(), rand).mod(Util.getModulus());
-		SpdzCommitment commitment = new SpdzCommitment(this.digs[0], s, rand);
-		Map<Integer, BigInteger> comms = new HashMap<Integer, BigInteger>();
-		SpdzCommitProtocol comm = new SpdzCommitProtocol(commitment, comms);
-		Map<Integer, BigInteger> ss = new HashMap<Integer, BigInteger>();
-		SpdzOpenCommitProtocol open = new SpdzOpenCommitProtocol(commitment, comms, ss);
-
-		SCENetworkImpl protocolNetwork = new SCENetworkImpl(this.rp.getNoOfParties(), 0);
-
-		EvaluationStatus status;
-		int i = 0;
-		do {
-			status = comm.evaluate(i, this.rp, protocolNetwork);
-			i++;
-			// send phase
-			Map<Integer, Queue<Serializable>> output = protocolNetwork.getOutputFromThisRound();
-			for (int pId : output.keySet()) {
-				// send array since queue is not serializable
-				network.send("0", pId, output.get(pId).toArray(new Serializable[0]));
-			}
+	/**
+	 * Checks the MACs of all values opened in the batches before the current
+	 * one, which are the only values an output of the current batch can
+	 * depend on. This must be called before revealing any output. It waits
+	 * for the background check, if any, and then checks the remaining values
+	 * on the channel of the suite. Only the first output of a batch checks
+	 * anything; the other outputs find nothing left to check.
+	 * 
+	 * @throws MPCException
+	 *             if the check failed.
+	 */
+	public synchronized void checkBeforeOutput() {
+		awaitMacCheck();
+		this.pendingCheck = null;
+		if (this.unchecked.t == 0) {
+			return;
+		}
+		EpochSums sums = this.unchecked;
+		this.unchecked = EpochSums.NONE;
+		try {
+			checkMacs(sums, macCheckChannel, new Util().getHashFunction());
+		} catch (IOException e) {
+			throw new MPCException("Could not complete MACCheck.", e);
+		}
+	}
 
-			// receive phase
-			Map<Integer, Queue<Serializable>> inputForThisRound = new HashMap<Integer, Queue<Serializable>>();
-			for (int pId : protocolNetwork.getExpectedInputForNextRound()) {
-				Serializable[] messages = network.receive("0", pId);
-				Queue<Serializable> q = new LinkedBlockingQueue<Serializable>();
-				// convert back from array to queue.
-				for (Serializable message : messages) {
-					q.offer(message);
-				}
-				inputForThisRound.put(pId, q);
+	/**
+	 * Waits for the background MAC check, if any, to complete.
+	 * 
+	 * @throws MPCException
+	 *             if the check failed.
+	 */
+	private void awaitMacCheck() {
+		Future<?> check = this.pendingCheck;
+		if (check == null) {
+			return;
+		}
+		try {
+			check.get();
+		} catch (InterruptedException e) {
+			throw new MPCException("Interrupted while waiting for the MAC check.", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof MPCException) {
+				throw (MPCException) e.getCause();
 			}
-			protocolNetwork.setInput(inputForThisRound);
-			protocolNetwork.nextRound();
-		} while (status != EvaluationStatus.IS_DONE);
+			throw new MPCException("Could not complete MACCheck.", e);
+		}
+	}
 
-		i = 0;
-		do {
-			status = open.evaluate(i, this.rp, protocolNetwork);
-			i++;
-			// send phase
-			Map<Integer, Queue<Serializable>> output = protocolNetwork.getOutputFromThisRound();
-			for (int pId : output.keySet()) {
-				// send array since queue is not serializable
-				network.send("0", pId, output.get(pId).toArray(new Serializable[0]));
+	/**
+	 * Checks the values opened since the last check on the background thread
+	 * while evaluation continues. At most one check runs at a time.
+	 */
+	private synchronized void startMacCheck() {
+		awaitMacCheck();
+		final EpochSums sums = this.unchecked;
+		this.unchecked = EpochSums.NONE;
+		final MessageDigest H = new Util().getHashFunction();
+		this.pendingCheck = macChecker.submit(new Callable<Void>() {
+
+			@Override
+			public Void call() throws IOException {
+				checkMacs(sums, macCheckChannel, H);
+				return null;
 			}
+		});
+	}
 
-			// receive phase
-			Map<Integer, Queue<Serializable>> inputForThisRound = new HashMap<Integer, Queue<Serializable>>();
-			for (int pId : protocolNetwork.getExpectedInputForNextRound()) {
-				Serializable[] messages = network.receive("0", pId);
-				Queue<Serializable> q = new LinkedBlockingQueue<Serializable>();
-				// convert back from array to queue.
-				for (Serializable message : messages) {
-					q.offer(message);
-				}
-				inputForThisRound.put(pId, q);
-			}
-			protocolNetwork.setInput(inputForThisRound);
-			protocolNetwork.nextRound();
-		} while (status != EvaluationStatus.IS_DONE);
+	private synchronized void MACCheck() throws IOException {
+		awaitMacCheck();
+		this.pendingCheck = null;
+		EpochSums sums = this.unchecked.add(endEpoch());
+		this.unchecked = EpochSums.NONE;
+		checkMacs(sums, "0", this.digs[0]);
+	}
 
-		// Add all s's to get the common random value:
-		s = BigInteger.ZERO;
-		for (BigInteger otherS : ss.values()) {
-			s = s.add(otherS);
+	/**
+	 * Checks the MACs of the values of an epoch.
+	 */
+	private void checkMacs(EpochSums sums, String channel, MessageDigest H) throws IOException {
+		// compute delta_i as: gamma_i - alpha_i*a
+		BigInteger delta = sums.gamma.subtract(keyShare.multiply(sums.a)).mod(p);
+		// Commit to delta and open it afterwards
+		BigInteger deltaSum = commitAndOpen(delta, channel, H).mod(p);
+		if (!deltaSum.equals(BigInteger.ZERO)) {			
+			throw new MPCException("The sum of delta's was not 0. Someone was corrupting something amongst " + sums.t
+					+ " macs. Sum was " + deltaSum.toString() + " Aborting!");
 		}
+	}
 
-		// TODO: Need to gather all values from all stores in a smart manner
-		// that makes the check good.
-		List<BigInteger> as = this.store[0].getOpenedValues();
-		int t = as.size();
-
-		BigInteger[] rs = new BigInteger[t];
-		MessageDigest H = new Util().getHashFunction();
-		BigInteger r_temp = s;
-		for (i = 0; i < t; i++) {
-			r_temp = new BigInteger(H.digest(r_temp.toByteArray())).mod(Util.getModulus());
-			rs[i] = r_temp;
-		}
+	/**
+	 * Combines the partial sums of all threads and starts the next epoch,
+	 * such that we only check the next macs, not those we already checked.
+	 * The accumulators have already folded all but the last incomplete batch
+	 * of every thread, so this takes little time.
+	 */
+	private EpochSums endEpoch() {
+		ModularArithmetic arithmetic = field.getArithmetic();
 		BigInteger a = BigInteger.ZERO;
-		int index = 0;
-		for (BigInteger aa : as) {
-			a = a.add(aa.multiply(rs[index++])).mod(Util.getModulus());
-		}
-		// compute gamma_i as the sum of all MAC's on the opened values times
-		// r_j.
-		List<SpdzElement> closedValues = store[0].getClosedValues();
-		if (closedValues.size() != t) {
-			throw new MPCException(
-					"Amount of closed values does not equal the amount of partially opened values. Aborting!");
-		}
 		BigInteger gamma = BigInteger.ZERO;
-		index = 0;
-		for (SpdzElement c : closedValues) {
-			gamma = gamma.add(rs[index++].multiply(c.getMac())).mod(Util.getModulus());
+		long t = 0;
+		for (SpdzStorage s : this.store) {
+			MacCheckAccumulator accumulator = s.getAccumulator();
+			accumulator.flush();
+			a = arithmetic.add(a, accumulator.getOpenedSum());
+			gamma = arithmetic.add(gamma, accumulator.getMacSum());
+			t += accumulator.getCount();
 		}
+		this.epoch++;
+		startEpoch();
+		return new EpochSums(a, gamma, t);
+	}
 
-		// compute delta_i as: gamma_i - alpha_i*a
-		BigInteger delta = gamma.subtract(store[0].getSSK().multiply(a)).mod(Util.getModulus());
-		// Commit to delta and open it afterwards
-		commitment = new SpdzCommitment(this.digs[0], delta, rand);
-		comms = new HashMap<Integer, BigInteger>();
-		comm = new SpdzCommitProtocol(commitment, comms);
-		ss = new HashMap<Integer, BigInteger>();
-		open = new SpdzOpenCommitProtocol(commitment, comms, ss);
-
-		status = null;
-		i = 0;
-		do {
-			status = comm.evaluate(i, this.rp, protocolNetwork);
-			i++;
-			// send phase
-			Map<Integer, Queue<Serializable>> output = protocolNetwork.getOutputFromThisRound();
-			for (int pId : output.keySet()) {
-				// send array since queue is not serializable
-				network.send("0", pId, output.get(pId).toArray(new Serializable[0]));
-			}
+	/**
+	 * Resets the MAC check accumulators of all threads with seeds derived
+	 * from the jointly tossed seed and the epoch number. The seeds need not be
+	 * secret, as the coefficients also depend on the opened values.
+	 */
+	private void startEpoch() {
+		MessageDigest H = this.digs[0];
+		for (int i = 0; i < this.store.length; i++) {
+			// Give each thread its own seed, such that errors in two threads
+			// opening the same values do not get the same coefficients.
+			H.update(macCheckSeed);
+			H.update(ByteBuffer.allocate(12).putLong(epoch).putInt(i).array());
+			byte[] seed = Arrays.copyOf(H.digest(), FieldPrg.SEED_SIZE);
+			this.store[i].getAccumulator().reset(field, seed);
+		}
+	}
 
-			// receive phase
-			Map<Integer, Queue<Serializable>> inputForThisRound = new HashMap<Integer, Queue<Serializable>>();
-			for (int pId : protocolNetwork.getExpectedInputForNextRound()) {
-				Serializable[] messages = network.receive("0", pId);
-				Queue<Serializable> q = new LinkedBlockingQueue<Serializable>();
-				// convert back from array to queue.
-				for (Serializable message : messages) {
-					q.offer(message);
-				}
-				inputForThisRound.put(pId, q);
-			}
-			protocolNetwork.setInput(inputForThisRound);
-			protocolNetwork.nextRound();
-		} while (status != EvaluationStatus.IS_DONE);
+	/**
+	 * Commits to the given value, opens all the commitments and returns the
+	 * sum of the values of all parties.
+	 */
+	private BigInteger commitAndOpen(BigInteger value, String channel, MessageDigest H) throws IOException {
+		SpdzCommitment commitment = new SpdzCommitment(H, value, rand, p);
+		Map<Integer, BigInteger> comms = new HashMap<Integer, BigInteger>();
+		SpdzCommitProtocol comm = new SpdzCommitProtocol(commitment, comms, H);
+		Map<Integer, BigInteger> ss = new HashMap<Integer, BigInteger>();
+		SpdzOpenCommitProtocol open = new SpdzOpenCommitProtocol(commitment, comms, ss, H, p);
+
+		SCENetworkImpl protocolNetwork = new SCENetworkImpl(this.rp.getNoOfParties(), 0);
+		evaluate(comm, protocolNetwork, channel);
+		evaluate(open, protocolNetwork, channel);
+
+		BigInteger sum = BigInteger.ZERO;
+		for (BigInteger v : ss.values()) {
+			sum = sum.add(v);
+		}
+		return sum;
+	}
 
-		i = 0;
+	private void evaluate(NativeProtocol protocol, SCENetworkImpl protocolNetwork, String channel)
+			throws IOException {
+		EvaluationStatus status;
+		int i = 0;
 		do {
-			status = open.evaluate(i, this.rp, protocolNetwork);
+			status = protocol.evaluate(i, this.rp, protocolNetwork);
 			i++;
 			// send phase
 			Map<Integer, Queue<Serializable>> output = protocolNetwork.getOutputFromThisRound();
 			for (int pId : output.keySet()) {
 				// send array since queue is not serializable
-				network.send("0", pId, output.get(pId).toArray(new Serializable[0]));
+				network.send(channel, pId, output.get(pId).toArray(new Serializable[0]));
 			}
 
 			// receive phase
 			Map<Integer, Queue<Serializable>> inputForThisRound = new HashMap<Integer, Queue<Serializable>>();
 			for (int pId : protocolNetwork.getExpectedInputForNextRound()) {
-				Serializable[] messages = network.receive("0", pId);
+				Serializable[] messages = network.receive(channel, pId);
 				Queue<Serializable> q = new LinkedBlockingQueue<Serializable>();
 				// convert back from array to queue.
 				for (Serializable message : messages) {
@@ -362,25 +470,63 @@ public class SpdzProtocolSuite implements ProtocolSuite {
 			protocolNetwork.setInput(inputForThisRound);
 			protocolNetwork.nextRound();
 		} while (status != EvaluationStatus.IS_DONE);
+	}
 
-		BigInteger deltaSum = BigInteger.ZERO;
-		for (BigInteger d : ss.values()) {
-			deltaSum = deltaSum.add(d);
+	private void shutdownMacChecker() {
+		if (macChecker != null) {
+			macChecker.shutdownNow();
+			macChecker = null;
 		}
-		deltaSum = deltaSum.mod(Util.getModulus());
-		if (!deltaSum.equals(BigInteger.ZERO)) {			
-			throw new MPCException("The sum of delta's was not 0. Someone was corrupting something amongst " + t
-					+ " macs. Sum was " + deltaSum.toString() + " Aborting!");
-		}
-		// clean up store before returning to evaluating such that we only
-		// evaluate the next macs, not those we already checked.
-		this.store[0].reset();
+		pendingCheck = null;
 	}
 
 	@Override
 	public void destroy() {
+		shutdownMacChecker();
 		for (SpdzStorage store : this.store) {
 			store.shutdown();
 		}
+		if (pool != null) {
+			pool.shutdown();
+		}
+		disconnectFromDealer();
+	}
+
+	private void disconnectFromDealer() {
+		if (dealerNetwork != null) {
+			try {
+				dealerNetwork.close();
+			} catch (IOException e) {
+				Reporter.warn("Could not close the connection to the trusted dealer");
+			}
+			dealerNetwork = null;
+		}
+	}
+
+	/**
+	 * The sums a and gamma of the MAC check of one or more epochs and the
+	 * number of values they cover. The sums of several epochs are checked at
+	 * once by adding them.
+	 */
+	private static class EpochSums {
+
+		private static final EpochSums NONE = new EpochSums(BigInteger.ZERO, BigInteger.ZERO, 0);
+
+		private final BigInteger a;
+		private final BigInteger gamma;
+		private final long t;
+
+		private EpochSums(BigInteger a, BigInteger gamma, long t) {
+			this.a = a;
+			this.gamma = gamma;
+			this.t = t;
+		}
+
+		private EpochSums add(EpochSums other) {
+			if (other.t == 0) {
+				return this;
+			}
+			return new EpochSums(a.add(other.a), gamma.add(other.gamma), t + other.t);
+		}
 	}
 }
@@ -0,0 +1,400 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.forecast;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import dk.alexandra.fresco.framework.value.KnownSIntProtocol;
+import dk.alexandra.fresco.framework.value.OInt;
+import dk.alexandra.fresco.framework.value.SBool;
+import dk.alexandra.fresco.framework.value.SBoolFactory;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.framework.value.Value;
+import dk.alexandra.fresco.lib.conversion.BitToNumeralCircuit;
+import dk.alexandra.fresco.lib.conversion.BitToNumeralCircuitFactory;
+import dk.alexandra.fresco.lib.conversion.NumeralToBitCircuit;
+import dk.alexandra.fresco.lib.conversion.NumeralToBitCircuitFactory;
+import dk.alexandra.fresco.lib.field.integer.AddProtocol;
+import dk.alexandra.fresco.lib.field.integer.BasicNumericFactory;
+import dk.alexandra.fresco.lib.field.integer.CloseIntProtocol;
+import dk.alexandra.fresco.lib.field.integer.CloseVectorProtocol;
+import dk.alexandra.fresco.lib.field.integer.ConstantCache;
+import dk.alexandra.fresco.lib.field.integer.LinearCombinationFactory;
+import dk.alexandra.fresco.lib.field.integer.LinearCombinationProtocol;
+import dk.alexandra.fresco.lib.field.integer.MultProtocol;
+import dk.alexandra.fresco.lib.field.integer.MultVectorProtocol;
+import dk.alexandra.fresco.lib.field.integer.NumericVectorFactory;
+import dk.alexandra.fresco.lib.field.integer.OpenIntProtocol;
+import dk.alexandra.fresco.lib.field.integer.OpenVectorProtocol;
+import dk.alexandra.fresco.lib.field.integer.SquareFactory;
+import dk.alexandra.fresco.lib.field.integer.SubtractCircuit;
+import dk.alexandra.fresco.lib.math.PreprocessedNumericBitFactory;
+import dk.alexandra.fresco.lib.math.exp.ExpFromOIntFactory;
+import dk.alexandra.fresco.lib.math.exp.PreprocessedExpPipeFactory;
+import dk.alexandra.fresco.lib.math.inv.LocalInversionCircuit;
+import dk.alexandra.fresco.lib.math.inv.LocalInversionFactory;
+import dk.alexandra.fresco.lib.math.linalg.MatrixFactory;
+import dk.alexandra.fresco.lib.math.linalg.MatrixMultProtocol;
+import dk.alexandra.fresco.lib.math.linalg.MatrixMultProtocolImpl;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzOInt;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSBool;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.forecast.DryRunProtocol.Kind;
+import dk.alexandra.fresco.suite.spdz.utils.SpdzFactory;
+import dk.alexandra.fresco.suite.spdz.utils.Util;
+
+/**
+ * Factory offering the same interfaces as the SPDZ factory, but producing
+ * {@link DryRunProtocol}s that only record the resources they would have
+ * used. Preprocessed data which the SPDZ factory consumes at build time
+ * (random elements, bits and exponentiation pipes) is recorded against thread
+ * 0, as this is where the SPDZ factory takes it from.
+ * 
+ */
+public class DryRunFactory implements BasicNumericFactory,
+		PreprocessedNumericBitFactory, PreprocessedExpPipeFactory,
+		ExpFromOIntFactory, LocalInversionFactory, LinearCombinationFactory,
+		NumericVectorFactory, SquareFactory, MatrixFactory, SBoolFactory,
+		NumeralToBitCircuitFactory, BitToNumeralCircuitFactory {
+
+	private static final int BUILD_TIME_THREAD = 0;
+
+	private final ResourceReport report;
+	private final BigInteger modulus;
+	private final int maxBitLength;
+	private final boolean useSquarePairs;
+	private final boolean useMatrixTriples;
+	private final ConstantCache constants;
+
+	/**
+	 * @param modulus
+	 *            the modulus the application will run with, used for public
+	 *            constants.
+	 */
+	public DryRunFactory(ResourceReport report, BigInteger modulus, int maxBitLength) {
+		this(report, modulus, maxBitLength, false);
+	}
+
+	/**
+	 * @param useSquarePairs
+	 *            whether the SPDZ configuration squares using square pairs,
+	 *            see
+	 *            {@link dk.alexandra.fresco.suite.spdz.configuration.SpdzConfiguration#useSquarePairs()}.
+	 */
+	public DryRunFactory(ResourceReport report, BigInteger modulus, int maxBitLength,
+			boolean useSquarePairs) {
+		this(report, modulus, maxBitLength, useSquarePairs, false);
+	}
+
+	/**
+	 * @param useMatrixTriples
+	 *            whether the SPDZ configuration multiplies matrices using
+	 *            matrix triples, see
+	 *            {@link dk.alexandra.fresco.suite.spdz.configuration.SpdzConfiguration#useMatrixTriples()}.
+	 */
+	public DryRunFactory(ResourceReport report, BigInteger modulus, int maxBitLength,
+			boolean useSquarePairs, boolean useMatrixTriples) {
+		this.report = report;
+		this.modulus = modulus;
+		this.maxBitLength = maxBitLength;
+		this.useSquarePairs = useSquarePairs;
+		this.useMatrixTriples = useMatrixTriples;
+		this.constants = new ConstantCache(this, this);
+	}
+
+	public ResourceReport getReport() {
+		return report;
+	}
+
+	private static SpdzSInt placeholderSInt() {
+		return new SpdzSInt(new SpdzElement(BigInteger.ZERO, BigInteger.ZERO));
+	}
+
+	private DryRunProtocol local(Value[] in, Value[] out) {
+		return new DryRunProtocol(Kind.LOCAL, report, 0, in, out);
+	}
+
+	@Override
+	public SInt getSInt() {
+		return new SpdzSInt();
+	}
+
+	@Override
+	@Deprecated
+	public SInt getSInt(int i) {
+		return placeholderSInt();
+	}
+
+	@Override
+	@Deprecated
+	public SInt getSInt(BigInteger i) {
+		return placeholderSInt();
+	}
+
+	@Override
+	public KnownSIntProtocol getSInt(int i, SInt si) {
+		return local(new Value[] {}, new Value[] { si });
+	}
+
+	@Override
+	public KnownSIntProtocol getSInt(BigInteger value, SInt sValue) {
+		return local(new Value[] {}, new Value[] { sValue });
+	}
+
+	@Override
+	public SInt getSqrtOfMaxValue() {
+		return placeholderSInt();
+	}
+
+	@Override
+	public SInt getKnownConstantSInt(int i) {
+		return constants.getSInt(i);
+	}
+
+	@Override
+	public OInt getKnownConstantOInt(int i) {
+		return constants.getOInt(i);
+	}
+
+	@Override
+	public SInt getRandomSecretSharedBit() {
+		report.recordBit(BUILD_TIME_THREAD);
+		return placeholderSInt();
+	}
+
+	@Override
+	public SInt[] getExponentiationPipe() {
+		report.recordExpPipe(BUILD_TIME_THREAD);
+		SInt[] pipe = new SInt[Util.EXP_PIPE_SIZE];
+		for (int i = 0; i < pipe.length; i++) {
+			pipe[i] = placeholderSInt();
+		}
+		return pipe;
+	}
+
+	@Override
+	public OInt[] getExpFromOInt(OInt value, int maxBitSize) {
+		OInt[] pipe = new OInt[Util.EXP_PIPE_SIZE - 1];
+		for (int i = 0; i < pipe.length; i++) {
+			pipe[i] = new SpdzOInt(BigInteger.ONE);
+		}
+		return pipe;
+	}
+
+	@Override
+	public SInt getRandomSInt() {
+		report.recordTriple(BUILD_TIME_THREAD);
+		return placeholderSInt();
+	}
+
+	@Override
+	public OInt getOInt() {
+		return new SpdzOInt();
+	}
+
+	@Override
+	public OInt getOInt(BigInteger i) {
+		return new SpdzOInt(i);
+	}
+
+	@Override
+	public OInt getRandomOInt() {
+		return new SpdzOInt(BigInteger.ONE);
+	}
+
+	@Override
+	public AddProtocol getAddProtocol(SInt a, SInt b, SInt out) {
+		return local(new Value[] { a, b }, new Value[] { out });
+	}
+
+	@Override
+	public AddProtocol getAddProtocol(SInt a, OInt b, SInt out) {
+		return local(new Value[] { a, b }, new Value[] { out });
+	}
+
+	@Override
+	public SubtractCircuit getSubtractCircuit(SInt a, SInt b, SInt out) {
+		return local(new Value[] { a, b }, new Value[] { out });
+	}
+
+	@Override
+	public SubtractCircuit getSubtractCircuit(OInt a, SInt b, SInt out) {
+		return local(new Value[] { a, b }, new Value[] { out });
+	}
+
+	@Override
+	public MultProtocol getMultCircuit(SInt a, SInt b, SInt out) {
+		return new DryRunProtocol(Kind.MULT, report, 0, new Value[] { a, b },
+				new Value[] { out });
+	}
+
+	@Override
+	public MultProtocol getMultCircuit(OInt a, SInt b, SInt out) {
+		return local(new Value[] { a, b }, new Value[] { out });
+	}
+
+	@Override
+	public LinearCombinationProtocol getLinearCombinationProtocol(OInt[] coefficients,
+			SInt[] values, SInt out) {
+		Value[] in = values;
+		if (coefficients != null) {
+			in = new Value[coefficients.length + values.length];
+			System.arraycopy(coefficients, 0, in, 0, coefficients.length);
+			System.arraycopy(values, 0, in, coefficients.length, values.length);
+		}
+		return local(in, new Value[] { out });
+	}
+
+	@Override
+	public MultVectorProtocol getMultVectorProtocol(SInt[] left, SInt[] right, SInt[] out) {
+		Value[] in = new Value[left.length + right.length];
+		System.arraycopy(left, 0, in, 0, left.length);
+		System.arraycopy(right, 0, in, left.length, right.length);
+		return new DryRunProtocol(Kind.MULT_VECTOR, report, 0, in, out);
+	}
+
+	@Override
+	public OpenVectorProtocol getOpenVectorProtocol(SInt[] closed, OInt[] open) {
+		return new DryRunProtocol(Kind.OPEN_VECTOR, report, 0, closed, open);
+	}
+
+	@Override
+	public CloseVectorProtocol getCloseVectorProtocol(int source, OInt[] open, SInt[] closed) {
+		return new DryRunProtocol(Kind.INPUT_VECTOR, report, source, open, closed);
+	}
+
+	@Override
+	public MultProtocol getSquareProtocol(SInt in, SInt out) {
+		if (useSquarePairs) {
+			return new DryRunProtocol(Kind.SQUARE, report, 0, new Value[] { in },
+					new Value[] { out });
+		}
+		return getMultCircuit(in, in, out);
+	}
+
+	@Override
+	public MatrixMultProtocol getMatrixMultProtocol(SInt[][] left, SInt[][] right, SInt[][] out) {
+		if (useMatrixTriples) {
+			return new DryRunProtocol(report, left.length, right.length,
+					right[0].length, flatten(left, right), flatten(out));
+		}
+		return new MatrixMultProtocolImpl(left, right, out, this);
+	}
+
+	private static Value[] flatten(SInt[][]... matrices) {
+		List<Value> values = new ArrayList<Value>();
+		for (SInt[][] matrix : matrices) {
+			for (SInt[] row : matrix) {
+				values.addAll(Arrays.asList(row));
+			}
+		}
+		return values.toArray(new Value[values.size()]);
+	}
+
+	@Override
+	public int getMaxBitLength() {
+		return maxBitLength;
+	}
+
+	@Override
+	public BigInteger getModulus() {
+		return modulus;
+	}
+
+	@Override
+	public LocalInversionCircuit getLocalInversionCircuit(OInt in, OInt out) {
+		return local(new Value[] { in }, new Value[] { out });
+	}
+
+	@Override
+	public SBool getSBool() {
+		return new SpdzSBool();
+	}
+
+	@Override
+	public SBool[] getSBools(int amount) {
+		SBool[] res = new SBool[amount];
+		for (int i = 0; i < amount; i++) {
+			res[i] = new SpdzSBool();
+		}
+		return res;
+	}
+
+	@Override
+	public SBool getKnownConstantSBool(boolean b) {
+		return new SpdzSBool(new SpdzElement(BigInteger.ZERO, BigInteger.ZERO));
+	}
+
+	@Override
+	public SBool[] getKnownConstantSBools(boolean[] bools) {
+		SBool[] res = new SBool[bools.length];
+		for (int i = 0; i < bools.length; i++) {
+			res[i] = getKnownConstantSBool(bools[i]);
+		}
+		return res;
+	}
+
+	@Override
+	public NumeralToBitCircuit getNumeralToBitCircuit(SInt in, SBool[] out) {
+		return new DryRunProtocol(report, out.length,
+				SpdzFactory.CONVERSION_SECURITY_PARAMETER, new Value[] { in }, out);
+	}
+
+	@Override
+	public BitToNumeralCircuit getBitToNumeralCircuit(SBool[] in, SInt out) {
+		return local(in, new Value[] { out });
+	}
+
+	@Override
+	public CloseIntProtocol getCloseProtocol(BigInteger open, SInt closed,
+			int targetID) {
+		return new DryRunProtocol(Kind.INPUT, report, targetID,
+				new Value[] {}, new Value[] { closed });
+	}
+
+	@Override
+	public CloseIntProtocol getCloseProtocol(int source, OInt open, SInt closed) {
+		return new DryRunProtocol(Kind.INPUT, report, source,
+				new Value[] { open }, new Value[] { closed });
+	}
+
+	@Override
+	public OpenIntProtocol getOpenProtocol(int target, SInt closed, OInt open) {
+		return new DryRunProtocol(Kind.OPEN_TO_PLAYER, report, target,
+				new Value[] { closed }, new Value[] { open });
+	}
+
+	@Override
+	public OpenIntProtocol getOpenProtocol(SInt closed, OInt open) {
+		return new DryRunProtocol(Kind.OPEN, report, 0,
+				new Value[] { closed }, new Value[] { open });
+	}
+}
@@ -0,0 +1,349 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.forecast;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.network.SCENetwork;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.value.KnownSIntProtocol;
+import dk.alexandra.fresco.framework.value.OInt;
+import dk.alexandra.fresco.framework.value.Value;
+import dk.alexandra.fresco.lib.conversion.BitToNumeralCircuit;
+import dk.alexandra.fresco.lib.conversion.NumeralToBitCircuit;
+import dk.alexandra.fresco.lib.field.integer.AddProtocol;
+import dk.alexandra.fresco.lib.field.integer.CloseIntProtocol;
+import dk.alexandra.fresco.lib.field.integer.CloseVectorProtocol;
+import dk.alexandra.fresco.lib.field.integer.LinearCombinationProtocol;
+import dk.alexandra.fresco.lib.field.integer.MultProtocol;
+import dk.alexandra.fresco.lib.field.integer.MultVectorProtocol;
+import dk.alexandra.fresco.lib.field.integer.OpenIntProtocol;
+import dk.alexandra.fresco.lib.field.integer.OpenVectorProtocol;
+import dk.alexandra.fresco.lib.field.integer.SubtractCircuit;
+import dk.alexandra.fresco.lib.helper.HalfCookedNativeProtocol;
+import dk.alexandra.fresco.lib.math.inv.LocalInversionCircuit;
+import dk.alexandra.fresco.lib.math.linalg.MatrixMultProtocol;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzMatrixTriple;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSBool;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.gates.SpdzNumeralToBitProtocol;
+
+/**
+ * Stand-in for the native SPDZ protocols used when dry-running an
+ * application. The protocol mimics the rounds, messages and preprocessed data
+ * consumption of the SPDZ protocol it replaces, but does no computation.
+ * Outputs are loaded with placeholder values so that protocol producers
+ * depending on them can continue.
+ * 
+ */
+public class DryRunProtocol extends HalfCookedNativeProtocol implements
+		AddProtocol, SubtractCircuit, MultProtocol, CloseIntProtocol,
+		OpenIntProtocol, KnownSIntProtocol, LocalInversionCircuit,
+		LinearCombinationProtocol, MultVectorProtocol, OpenVectorProtocol,
+		CloseVectorProtocol, MatrixMultProtocol, NumeralToBitCircuit,
+		BitToNumeralCircuit {
+
+	/**
+	 * The SPDZ protocols a dry-run protocol can stand in for.
+	 */
+	public enum Kind {
+		/** Local computation only, e.g. addition. */
+		LOCAL,
+		/** Multiplication of two secret values consuming a triple. */
+		MULT,
+		/** Input from a given player consuming an input mask. */
+		INPUT,
+		/** Opening a value towards all players. */
+		OPEN,
+		/** Opening a value towards a given player consuming an input mask. */
+		OPEN_TO_PLAYER,
+		/** Element-wise multiplication of vectors, one triple per output. */
+		MULT_VECTOR,
+		/** Opening a vector of values towards all players. */
+		OPEN_VECTOR,
+		/**
+		 * Input of a vector of values from a given player, one input mask per
+		 * value.
+		 */
+		INPUT_VECTOR,
+		/** Squaring a secret value consuming a square pair. */
+		SQUARE,
+		/** Multiplication of secret matrices consuming a matrix triple. */
+		MATRIX_MULT,
+		/**
+		 * Decomposition of a secret value into bits consuming an edaBit, see
+		 * {@link SpdzNumeralToBitProtocol}.
+		 */
+		NUMERAL_TO_BIT;
+	}
+
+	private static final int DIGEST_SIZE = 32;
+
+	private final Kind kind;
+	private final ResourceReport report;
+	private final int player;
+	private final Value[] inputs;
+	private final Value[] outputs;
+	private final int[] shape;
+
+	/**
+	 * @param kind
+	 *            the kind of SPDZ protocol this protocol stands in for.
+	 * @param report
+	 *            the report to record resource usage in.
+	 * @param player
+	 *            the inputting or receiving player for INPUT, INPUT_VECTOR
+	 *            and OPEN_TO_PLAYER. Ignored otherwise.
+	 * @param inputs
+	 *            the input values.
+	 * @param outputs
+	 *            the output values.
+	 */
+	public DryRunProtocol(Kind kind, ResourceReport report, int player,
+			Value[] inputs, Value[] outputs) {
+		this(kind, report, player, null, inputs, outputs);
+	}
+
+	/**
+	 * Creates a MATRIX_MULT protocol multiplying a rows x inner matrix by an
+	 * inner x columns matrix.
+	 */
+	public DryRunProtocol(ResourceReport report, int rows, int inner,
+			int columns, Value[] inputs, Value[] outputs) {
+		this(Kind.MATRIX_MULT, report, 0, new int[] { rows, inner, columns },
+				inputs, outputs);
+	}
+
+	/**
+	 * Creates a NUMERAL_TO_BIT protocol decomposing a value into the given
+	 * number of bits, masking it with securityParameter extra bits.
+	 */
+	public DryRunProtocol(ResourceReport report, int bitLength,
+			int securityParameter, Value[] inputs, Value[] outputs) {
+		this(Kind.NUMERAL_TO_BIT, report, 0,
+				new int[] { bitLength, securityParameter }, inputs, outputs);
+	}
+
+	private DryRunProtocol(Kind kind, ResourceReport report, int player,
+			int[] shape, Value[] inputs, Value[] outputs) {
+		this.kind = kind;
+		this.report = report;
+		this.player = player;
+		this.shape = shape;
+		this.inputs = inputs;
+		this.outputs = outputs;
+	}
+
+	@Override
+	public EvaluationStatus evaluate(int round, ResourcePool resourcePool,
+			SCENetwork network) {
+		int threadId = network.getThreadId();
+		switch (kind) {
+		case LOCAL:
+			loadOutputs();
+			return EvaluationStatus.IS_DONE;
+		case MULT:
+			if (round == 0) {
+				report.recordTriple(threadId);
+				network.sendToAll(new BigInteger[] { BigInteger.ZERO, BigInteger.ZERO });
+				network.expectInputFromAll();
+				return EvaluationStatus.HAS_MORE_ROUNDS;
+			}
+			report.recordOpenedValues(threadId, 2);
+			loadOutputs();
+			return EvaluationStatus.IS_DONE;
+		case SQUARE:
+			if (round == 0) {
+				report.recordSquare(threadId);
+				network.sendToAll(BigInteger.ZERO);
+				network.expectInputFromAll();
+				return EvaluationStatus.HAS_MORE_ROUNDS;
+			}
+			report.recordOpenedValues(threadId, 1);
+			loadOutputs();
+			return EvaluationStatus.IS_DONE;
+		case MATRIX_MULT:
+			int opened = shape[0] * shape[1] + shape[1] * shape[2];
+			if (round == 0) {
+				report.recordMatrixTriple(threadId,
+						SpdzMatrixTriple.getShape(shape[0], shape[1], shape[2]));
+				network.sendToAll(zeros(opened));
+				network.expectInputFromAll();
+				return EvaluationStatus.HAS_MORE_ROUNDS;
+			}
+			report.recordOpenedValues(threadId, opened);
+			loadOutputs();
+			return EvaluationStatus.IS_DONE;
+		case MULT_VECTOR:
+			if (round == 0) {
+				for (int i = 0; i < outputs.length; i++) {
+					report.recordTriple(threadId);
+				}
+				network.sendToAll(zeros(2 * outputs.length));
+				network.expectInputFromAll();
+				return EvaluationStatus.HAS_MORE_ROUNDS;
+			}
+			report.recordOpenedValues(threadId, 2 * outputs.length);
+			loadOutputs();
+			return EvaluationStatus.IS_DONE;
+		case NUMERAL_TO_BIT:
+			int[] sizes = SpdzNumeralToBitProtocol.getMultiplicationsPerRound(shape[0]);
+			if (round == 0) {
+				for (int i = 0; i < shape[0] + shape[1]; i++) {
+					report.recordBit(threadId);
+				}
+				network.sendToAll(BigInteger.ZERO);
+				network.expectInputFromAll();
+				return EvaluationStatus.HAS_MORE_ROUNDS;
+			}
+			report.recordOpenedValues(threadId, round == 1 ? 1 : 2 * sizes[round - 2]);
+			if (round - 1 < sizes.length) {
+				for (int i = 0; i < sizes[round - 1]; i++) {
+					report.recordTriple(threadId);
+				}
+				network.sendToAll(zeros(2 * sizes[round - 1]));
+				network.expectInputFromAll();
+				return EvaluationStatus.HAS_MORE_ROUNDS;
+			}
+			loadOutputs();
+			return EvaluationStatus.IS_DONE;
+		case OPEN_VECTOR:
+			if (round == 0) {
+				network.sendToAll(zeros(outputs.length));
+				network.expectInputFromAll();
+				return EvaluationStatus.HAS_MORE_ROUNDS;
+			}
+			report.recordOpenedValues(threadId, outputs.length);
+			loadOutputs();
+			return EvaluationStatus.IS_DONE;
+		case INPUT:
+			switch (round) {
+			case 0:
+				report.recordInputMask(threadId, player);
+				if (resourcePool.getMyId() == player) {
+					network.sendToAll(BigInteger.ZERO);
+				}
+				network.expectInputFromPlayer(player);
+				return EvaluationStatus.HAS_MORE_ROUNDS;
+			case 1:
+				network.sendToAll(new byte[DIGEST_SIZE]);
+				network.expectInputFromAll();
+				return EvaluationStatus.HAS_MORE_ROUNDS;
+			default:
+				loadOutputs();
+				return EvaluationStatus.IS_DONE;
+			}
+		case INPUT_VECTOR:
+			switch (round) {
+			case 0:
+				for (int i = 0; i < outputs.length; i++) {
+					report.recordInputMask(threadId, player);
+				}
+				if (resourcePool.getMyId() == player) {
+					network.sendToAll(zeros(outputs.length));
+				}
+				network.expectInputFromPlayer(player);
+				return EvaluationStatus.HAS_MORE_ROUNDS;
+			case 1:
+				network.sendToAll(new byte[DIGEST_SIZE]);
+				network.expectInputFromAll();
+				return EvaluationStatus.HAS_MORE_ROUNDS;
+			default:
+				loadOutputs();
+				return EvaluationStatus.IS_DONE;
+			}
+		case OPEN:
+		case OPEN_TO_PLAYER:
+			if (round == 0) {
+				if (kind == Kind.OPEN_TO_PLAYER) {
+					report.recordInputMask(threadId, player);
+				}
+				network.sendToAll(BigInteger.ZERO);
+				network.expectInputFromAll();
+				return EvaluationStatus.HAS_MORE_ROUNDS;
+			}
+			report.recordOpenedValues(threadId, 1);
+			if (kind == Kind.OPEN || resourcePool.getMyId() == player) {
+				loadOutputs();
+			}
+			return EvaluationStatus.IS_DONE;
+		default:
+			throw new MPCException("Unknown kind of dry-run protocol: " + kind);
+		}
+	}
+
+	private static BigInteger[] zeros(int n) {
+		BigInteger[] res = new BigInteger[n];
+		Arrays.fill(res, BigInteger.ZERO);
+		return res;
+	}
+
+	private void loadOutputs() {
+		for (Value v : outputs) {
+			load(v);
+		}
+	}
+
+	/**
+	 * Loads a placeholder into the given value. Open values are set to one
+	 * such that they can be inverted by subsequent local protocols.
+	 * 
+	 * @param v
+	 *            the value to load.
+	 */
+	static void load(Value v) {
+		if (v instanceof SpdzSInt) {
+			((SpdzSInt) v).value = new SpdzElement(BigInteger.ZERO, BigInteger.ZERO);
+		} else if (v instanceof SpdzSBool) {
+			((SpdzSBool) v).value = new SpdzElement(BigInteger.ZERO, BigInteger.ZERO);
+		} else if (v instanceof OInt) {
+			((OInt) v).setValue(BigInteger.ONE);
+		}
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	@Override
+	public Value[] getInputValues() {
+		return inputs;
+	}
+
+	@Override
+	public Value[] getOutputValues() {
+		return outputs;
+	}
+
+	@Override
+	public String toString() {
+		return "DryRunProtocol(" + kind + ")";
+	}
+}
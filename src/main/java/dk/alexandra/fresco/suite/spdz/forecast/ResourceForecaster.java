@@ -0,0 +1,300 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.forecast;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import dk.alexandra.fresco.framework.Application;
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.NativeProtocol;
+import dk.alexandra.fresco.framework.NativeProtocol.EvaluationStatus;
+import dk.alexandra.fresco.framework.ProtocolProducer;
+import dk.alexandra.fresco.framework.Reporter;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.network.SCENetworkImpl;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.sce.resources.storage.Storage;
+import dk.alexandra.fresco.framework.sce.resources.storage.StreamedStorage;
+import dk.alexandra.fresco.framework.sce.resources.threads.ProtocolThreadPool;
+import dk.alexandra.fresco.suite.spdz.utils.SpdzField;
+
+/**
+ * Dry-runs an application against the SPDZ protocol suite without any
+ * network, storage or preprocessed data. The application is built using a
+ * {@link DryRunFactory} and its native protocols are evaluated batch by batch
+ * the same way the evaluators do, splitting large batches across VM threads
+ * like the batched parallel evaluator. Messages are looped back locally and
+ * the bytes that would have been sent to the other parties are counted.
+ * 
+ * The resulting {@link ResourceReport} tells how much preprocessed data each
+ * thread would consume, and can be given to FakeTripGen or InitializeStorage
+ * to produce exactly that amount.
+ * 
+ * Note that applications branching on opened values may take different paths
+ * during the dry-run, since all opened values are one.
+ * 
+ */
+public class ResourceForecaster {
+
+	/**
+	 * Same as the evaluators; batches smaller than or equal to this are
+	 * evaluated by a single thread.
+	 */
+	private static final int SINGLE_THREAD_BATCH_LIMIT = 7;
+
+	private static final int MAX_EMPTY_BATCHES_IN_A_ROW = 10;
+
+	private final int myId;
+	private final int noOfParties;
+	private final int noOfThreads;
+	private final int maxBatchSize;
+	private final int maxBitLength;
+	private final SpdzField field;
+	private final boolean useSquarePairs;
+	private final boolean useMatrixTriples;
+
+	/**
+	 * @param myId
+	 *            the id of the party to forecast for.
+	 * @param noOfParties
+	 *            the number of parties.
+	 * @param noOfThreads
+	 *            the number of VM threads the application will be evaluated
+	 *            with.
+	 * @param maxBatchSize
+	 *            the maximum batch size of the evaluator.
+	 * @param modulus
+	 *            the modulus the application will run with. Used for sizing
+	 *            messages and computing public constants.
+	 * @param maxBitLength
+	 *            the max bit length given to the factory.
+	 */
+	public ResourceForecaster(int myId, int noOfParties, int noOfThreads,
+			int maxBatchSize, BigInteger modulus, int maxBitLength) {
+		this(myId, noOfParties, noOfThreads, maxBatchSize, modulus,
+				maxBitLength, false);
+	}
+
+	/**
+	 * As {@link #ResourceForecaster(int, int, int, int, BigInteger, int)}, but
+	 * forecasts square pairs instead of triples for squares if
+	 * useSquarePairs is true.
+	 */
+	public ResourceForecaster(int myId, int noOfParties, int noOfThreads,
+			int maxBatchSize, BigInteger modulus, int maxBitLength,
+			boolean useSquarePairs) {
+		this(myId, noOfParties, noOfThreads, maxBatchSize, modulus,
+				maxBitLength, useSquarePairs, false);
+	}
+
+	/**
+	 * As
+	 * {@link #ResourceForecaster(int, int, int, int, BigInteger, int, boolean)},
+	 * but forecasts matrix triples instead of triples for matrix products if
+	 * useMatrixTriples is true.
+	 */
+	public ResourceForecaster(int myId, int noOfParties, int noOfThreads,
+			int maxBatchSize, BigInteger modulus, int maxBitLength,
+			boolean useSquarePairs, boolean useMatrixTriples) {
+		if (myId < 1 || myId > noOfParties) {
+			throw new MPCException("Invalid party id " + myId + " for "
+					+ noOfParties + " parties");
+		}
+		if (noOfThreads < 1 || maxBatchSize < 1) {
+			throw new MPCException("Number of threads and batch size must be positive");
+		}
+		this.myId = myId;
+		this.noOfParties = noOfParties;
+		this.noOfThreads = noOfThreads;
+		this.maxBatchSize = maxBatchSize;
+		this.maxBitLength = maxBitLength;
+		this.useSquarePairs = useSquarePairs;
+		this.useMatrixTriples = useMatrixTriples;
+		this.field = new SpdzField(modulus);
+	}
+
+	/**
+	 * Dry-runs the given application.
+	 * 
+	 * @param application
+	 *            the application.
+	 * @return a report of the resources the application uses.
+	 */
+	public ResourceReport forecast(Application application) {
+		ResourceReport report = new ResourceReport(noOfParties, noOfThreads);
+		DryRunFactory factory = new DryRunFactory(report, field.getModulus(), maxBitLength, useSquarePairs,
+				useMatrixTriples);
+		ProtocolProducer producer = application.prepareApplication(factory);
+		ResourcePool pool = new DryRunResourcePool();
+		int zeroBatches = 0;
+		do {
+			NativeProtocol[] protocols = new NativeProtocol[maxBatchSize];
+			int numOfProtocols = producer.getNextProtocols(protocols, 0);
+			if (numOfProtocols == 0) {
+				zeroBatches++;
+				if (zeroBatches > MAX_EMPTY_BATCHES_IN_A_ROW) {
+					throw new MPCException("Number of empty batches in a row reached "
+							+ MAX_EMPTY_BATCHES_IN_A_ROW
+							+ "; probably there is a bug in your protocol producer.");
+				}
+			} else {
+				zeroBatches = 0;
+			}
+			report.recordBatch(numOfProtocols,
+					processBatch(protocols, numOfProtocols, pool, report));
+		} while (producer.hasNextProtocols());
+		Reporter.fine("Forecast done: " + report);
+		return report;
+	}
+
+	/**
+	 * Evaluates a batch, returning the number of rounds the batch takes.
+	 */
+	private int processBatch(NativeProtocol[] protocols, int numOfProtocols,
+			ResourcePool pool, ResourceReport report) {
+		int jobs = 1;
+		if (numOfProtocols > SINGLE_THREAD_BATCH_LIMIT) {
+			jobs = Math.min(noOfThreads, numOfProtocols);
+		}
+		int perJob = numOfProtocols / jobs;
+		int maxRounds = 0;
+		for (int i = 0; i < numOfProtocols; i++) {
+			int threadId = Math.min(i / perJob, jobs - 1);
+			int rounds = evaluate(protocols[i], threadId, pool, report);
+			maxRounds = Math.max(maxRounds, rounds);
+		}
+		return maxRounds;
+	}
+
+	private int evaluate(NativeProtocol protocol, int threadId,
+			ResourcePool pool, ResourceReport report) {
+		SCENetworkImpl network = new SCENetworkImpl(noOfParties, threadId);
+		int round = 0;
+		EvaluationStatus status;
+		do {
+			status = protocol.evaluate(round, pool, network);
+			Map<Integer, Queue<Serializable>> output = network.getOutputFromThisRound();
+			for (int pId : output.keySet()) {
+				if (pId != myId) {
+					for (Serializable s : output.get(pId)) {
+						report.recordBytesSent(sizeOf(s));
+					}
+				}
+			}
+			Queue<Serializable> own = output.get(myId);
+			Map<Integer, Queue<Serializable>> input = new HashMap<Integer, Queue<Serializable>>();
+			for (int pId : network.getExpectedInputForNextRound()) {
+				// The other parties are assumed to send what we send.
+				input.put(pId, own == null ? new LinkedBlockingQueue<Serializable>()
+						: new LinkedBlockingQueue<Serializable>(own));
+			}
+			network.setInput(input);
+			network.nextRound();
+			round++;
+		} while (status.equals(EvaluationStatus.HAS_MORE_ROUNDS));
+		return round;
+	}
+
+	private long sizeOf(Serializable s) {
+		if (s instanceof BigInteger) {
+			return field.getSize();
+		} else if (s instanceof BigInteger[]) {
+			return ((BigInteger[]) s).length * (long) field.getSize();
+		} else if (s instanceof byte[]) {
+			return ((byte[]) s).length;
+		} else if (s instanceof Serializable[]) {
+			long size = 0;
+			for (Serializable e : (Serializable[]) s) {
+				size += sizeOf(e);
+			}
+			return size;
+		}
+		return field.getSize();
+	}
+
+	/**
+	 * Resource pool given to protocols during the dry-run. Only the party
+	 * information is available.
+	 */
+	private class DryRunResourcePool implements ResourcePool {
+
+		private final Random random = new Random(0);
+		private final SecureRandom secureRandom = new SecureRandom();
+
+		@Override
+		public int getMyId() {
+			return myId;
+		}
+
+		@Override
+		public int getNoOfParties() {
+			return noOfParties;
+		}
+
+		@Override
+		public ProtocolThreadPool getThreadPool() {
+			return null;
+		}
+
+		@Override
+		public int getVMThreadCount() {
+			return noOfThreads;
+		}
+
+		@Override
+		public Network getNetwork() {
+			return null;
+		}
+
+		@Override
+		public Storage getStorage() {
+			return null;
+		}
+
+		@Override
+		public StreamedStorage getStreamedStorage() {
+			return null;
+		}
+
+		@Override
+		public Random getRandom() {
+			return random;
+		}
+
+		@Override
+		public SecureRandom getSecureRandom() {
+			return secureRandom;
+		}
+	}
+}
@@ -0,0 +1,463 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.forecast;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * The result of a dry-run of an application, i.e. the amount of preprocessed
+ * data, rounds and communication that the application will consume when
+ * evaluated by a single party. Preprocessed data is counted per VM thread,
+ * since each thread draws from its own storage.
+ * 
+ * The report can be written to and read from a properties file which is
+ * understood by {@link dk.alexandra.fresco.suite.spdz.storage.FakeTripGen}
+ * (using the -r argument), and can be given directly to the initializers in
+ * {@link dk.alexandra.fresco.suite.spdz.storage.InitializeStorage}.
+ * 
+ */
+public class ResourceReport implements Serializable {
+
+	private static final long serialVersionUID = -3061850263462547719L;
+
+	public static final String PARTIES_KEY = "parties";
+	public static final String THREADS_KEY = "threads";
+	public static final String TRIPLES_KEY = "triples";
+	public static final String BITS_KEY = "bits";
+	public static final String EXP_PIPES_KEY = "expPipes";
+	public static final String INPUT_MASKS_KEY = "inputMasks";
+	public static final String SQUARES_KEY = "squares";
+	/**
+	 * Prefix of the keys holding the matrix triples of each shape, e.g.
+	 * "matrixTriples.2x3x4".
+	 */
+	public static final String MATRIX_TRIPLES_KEY = "matrixTriples";
+	public static final String OPENED_VALUES_KEY = "openedValues";
+	public static final String ROUNDS_KEY = "rounds";
+	public static final String BATCHES_KEY = "batches";
+	public static final String NATIVE_PROTOCOLS_KEY = "nativeProtocols";
+	public static final String BYTES_SENT_KEY = "bytesSent";
+
+	private final int noOfParties;
+	private final int noOfThreads;
+
+	private long[] triples;
+	private long[] bits;
+	private long[] expPipes;
+	private long[] squares;
+	private long[][] inputMasks; // [thread][towards party - 1]
+	private SortedMap<String, long[]> matrixTriples; // shape -> [thread]
+	private long[] openedValues;
+
+	private long rounds;
+	private long batches;
+	private long nativeProtocols;
+	private long bytesSent;
+
+	public ResourceReport(int noOfParties, int noOfThreads) {
+		this.noOfParties = noOfParties;
+		this.noOfThreads = noOfThreads;
+		this.triples = new long[noOfThreads];
+		this.bits = new long[noOfThreads];
+		this.expPipes = new long[noOfThreads];
+		this.squares = new long[noOfThreads];
+		this.inputMasks = new long[noOfThreads][noOfParties];
+		this.matrixTriples = new TreeMap<String, long[]>();
+		this.openedValues = new long[noOfThreads];
+	}
+
+	public int getNoOfParties() {
+		return noOfParties;
+	}
+
+	public int getNoOfThreads() {
+		return noOfThreads;
+	}
+
+	// Recording
+
+	public void recordTriple(int threadId) {
+		triples[threadId]++;
+	}
+
+	public void recordBit(int threadId) {
+		bits[threadId]++;
+	}
+
+	public void recordExpPipe(int threadId) {
+		expPipes[threadId]++;
+	}
+
+	public void recordSquare(int threadId) {
+		squares[threadId]++;
+	}
+
+	/**
+	 * @param threadId
+	 *            the VM thread consuming the triple.
+	 * @param shape
+	 *            the shape of the triple, see
+	 *            {@link dk.alexandra.fresco.suite.spdz.datatypes.SpdzMatrixTriple#getShape(int, int, int)}.
+	 */
+	public void recordMatrixTriple(int threadId, String shape) {
+		long[] perThread = matrixTriples.get(shape);
+		if (perThread == null) {
+			perThread = new long[noOfThreads];
+			matrixTriples.put(shape, perThread);
+		}
+		perThread[threadId]++;
+	}
+
+	/**
+	 * @param threadId
+	 *            the VM thread consuming the mask.
+	 * @param towardPlayerId
+	 *            the id of the player knowing the mask. Id's start from 1.
+	 */
+	public void recordInputMask(int threadId, int towardPlayerId) {
+		inputMasks[threadId][towardPlayerId - 1]++;
+	}
+
+	public void recordOpenedValues(int threadId, int amount) {
+		openedValues[threadId] += amount;
+	}
+
+	public void recordBatch(int protocolsInBatch, int roundsInBatch) {
+		batches++;
+		nativeProtocols += protocolsInBatch;
+		rounds += roundsInBatch;
+	}
+
+	public void recordBytesSent(long bytes) {
+		bytesSent += bytes;
+	}
+
+	// Per thread queries
+
+	public long getTriples(int threadId) {
+		return triples[threadId];
+	}
+
+	public long getBits(int threadId) {
+		return bits[threadId];
+	}
+
+	public long getExpPipes(int threadId) {
+		return expPipes[threadId];
+	}
+
+	public long getSquares(int threadId) {
+		return squares[threadId];
+	}
+
+	public long getMatrixTriples(int threadId, String shape) {
+		long[] perThread = matrixTriples.get(shape);
+		return (perThread == null) ? 0 : perThread[threadId];
+	}
+
+	public long getInputMasks(int threadId, int towardPlayerId) {
+		return inputMasks[threadId][towardPlayerId - 1];
+	}
+
+	public long getOpenedValues(int threadId) {
+		return openedValues[threadId];
+	}
+
+	// Aggregated queries
+
+	public long getTotalTriples() {
+		return sum(triples);
+	}
+
+	public long getTotalBits() {
+		return sum(bits);
+	}
+
+	public long getTotalExpPipes() {
+		return sum(expPipes);
+	}
+
+	public long getTotalSquares() {
+		return sum(squares);
+	}
+
+	/**
+	 * @return the shapes of the matrix triples used, in sorted order.
+	 */
+	public Set<String> getMatrixTripleShapes() {
+		return Collections.unmodifiableSet(matrixTriples.keySet());
+	}
+
+	public long getTotalMatrixTriples(String shape) {
+		long[] perThread = matrixTriples.get(shape);
+		return (perThread == null) ? 0 : sum(perThread);
+	}
+
+	public long getTotalInputMasks(int towardPlayerId) {
+		long res = 0;
+		for (long[] perThread : inputMasks) {
+			res += perThread[towardPlayerId - 1];
+		}
+		return res;
+	}
+
+	public long getTotalOpenedValues() {
+		return sum(openedValues);
+	}
+
+	/**
+	 * @return the largest number of triples any single thread consumes.
+	 */
+	public long getMaxTriplesPerThread() {
+		return max(triples);
+	}
+
+	public long getMaxBitsPerThread() {
+		return max(bits);
+	}
+
+	public long getMaxExpPipesPerThread() {
+		return max(expPipes);
+	}
+
+	public long getMaxSquaresPerThread() {
+		return max(squares);
+	}
+
+	public long getMaxMatrixTriplesPerThread(String shape) {
+		long[] perThread = matrixTriples.get(shape);
+		return (perThread == null) ? 0 : max(perThread);
+	}
+
+	/**
+	 * @return the largest number of input masks any single thread consumes
+	 *         towards any single player.
+	 */
+	public long getMaxInputMasksPerThread() {
+		long res = 0;
+		for (long[] perThread : inputMasks) {
+			res = Math.max(res, max(perThread));
+		}
+		return res;
+	}
+
+	/**
+	 * @return the largest number of input masks consumed towards any single
+	 *         player, summed over all threads.
+	 */
+	public long getMaxTotalInputMasks() {
+		long res = 0;
+		for (int i = 1; i <= noOfParties; i++) {
+			res = Math.max(res, getTotalInputMasks(i));
+		}
+		return res;
+	}
+
+	public long getRounds() {
+		return rounds;
+	}
+
+	public long getBatches() {
+		return batches;
+	}
+
+	public long getNativeProtocols() {
+		return nativeProtocols;
+	}
+
+	/**
+	 * @return the estimated number of bytes this party sends to the other
+	 *         parties, excluding any framing done by the network layer.
+	 */
+	public long getBytesSent() {
+		return bytesSent;
+	}
+
+	/**
+	 * Returns the arguments needed by the main method of FakeTripGen in order
+	 * to generate exactly the preprocessed data needed.
+	 * 
+	 * @param modulus
+	 *            the modulus to generate data for.
+	 * @param directory
+	 *            the directory to store the generated files in.
+	 * @return arguments for FakeTripGen.
+	 */
+	public String[] toFakeTripGenArgs(BigInteger modulus, String directory) {
+		return new String[] { "-m=" + modulus, "-t=" + getTotalTriples(),
+				"-i=" + getMaxTotalInputMasks(), "-b=" + getTotalBits(),
+				"-e=" + getTotalExpPipes(), "-p=" + noOfParties,
+				"-d=" + directory, "-q=" + getTotalSquares() };
+	}
+
+	public Properties toProperties() {
+		Properties p = new Properties();
+		p.setProperty(PARTIES_KEY, "" + noOfParties);
+		p.setProperty(THREADS_KEY, "" + noOfThreads);
+		p.setProperty(TRIPLES_KEY, join(triples));
+		p.setProperty(BITS_KEY, join(bits));
+		p.setProperty(EXP_PIPES_KEY, join(expPipes));
+		p.setProperty(SQUARES_KEY, join(squares));
+		for (Map.Entry<String, long[]> e : matrixTriples.entrySet()) {
+			p.setProperty(MATRIX_TRIPLES_KEY + "." + e.getKey(), join(e.getValue()));
+		}
+		for (int i = 0; i < noOfParties; i++) {
+			long[] towards = new long[noOfThreads];
+			for (int t = 0; t < noOfThreads; t++) {
+				towards[t] = inputMasks[t][i];
+			}
+			p.setProperty(INPUT_MASKS_KEY + "." + (i + 1), join(towards));
+		}
+		p.setProperty(OPENED_VALUES_KEY, join(openedValues));
+		p.setProperty(ROUNDS_KEY, "" + rounds);
+		p.setProperty(BATCHES_KEY, "" + batches);
+		p.setProperty(NATIVE_PROTOCOLS_KEY, "" + nativeProtocols);
+		p.setProperty(BYTES_SENT_KEY, "" + bytesSent);
+		return p;
+	}
+
+	public static ResourceReport fromProperties(Properties p) {
+		int parties = Integer.parseInt(p.getProperty(PARTIES_KEY));
+		int threads = Integer.parseInt(p.getProperty(THREADS_KEY));
+		ResourceReport report = new ResourceReport(parties, threads);
+		report.triples = split(p.getProperty(TRIPLES_KEY), threads);
+		report.bits = split(p.getProperty(BITS_KEY), threads);
+		report.expPipes = split(p.getProperty(EXP_PIPES_KEY), threads);
+		report.squares = split(p.getProperty(SQUARES_KEY), threads);
+		for (String key : p.stringPropertyNames()) {
+			if (key.startsWith(MATRIX_TRIPLES_KEY + ".")) {
+				String shape = key.substring(MATRIX_TRIPLES_KEY.length() + 1);
+				report.matrixTriples.put(shape, split(p.getProperty(key), threads));
+			}
+		}
+		for (int i = 0; i < parties; i++) {
+			long[] towards = split(p.getProperty(INPUT_MASKS_KEY + "." + (i + 1)), threads);
+			for (int t = 0; t < threads; t++) {
+				report.inputMasks[t][i] = towards[t];
+			}
+		}
+		report.openedValues = split(p.getProperty(OPENED_VALUES_KEY), threads);
+		report.rounds = Long.parseLong(p.getProperty(ROUNDS_KEY, "0"));
+		report.batches = Long.parseLong(p.getProperty(BATCHES_KEY, "0"));
+		report.nativeProtocols = Long.parseLong(p.getProperty(NATIVE_PROTOCOLS_KEY, "0"));
+		report.bytesSent = Long.parseLong(p.getProperty(BYTES_SENT_KEY, "0"));
+		return report;
+	}
+
+	public void store(File f) throws IOException {
+		OutputStream out = new FileOutputStream(f);
+		try {
+			toProperties().store(out, "FRESCO SPDZ resource report");
+		} finally {
+			out.close();
+		}
+	}
+
+	public static ResourceReport load(File f) throws IOException {
+		InputStream in = new FileInputStream(f);
+		try {
+			Properties p = new Properties();
+			p.load(in);
+			return fromProperties(p);
+		} finally {
+			in.close();
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("ResourceReport [parties=" + noOfParties + ", threads=" + noOfThreads);
+		sb.append(", rounds=" + rounds + ", batches=" + batches);
+		sb.append(", nativeProtocols=" + nativeProtocols + ", bytesSent=" + bytesSent + "]");
+		for (int t = 0; t < noOfThreads; t++) {
+			sb.append("\n  thread " + t + ": triples=" + triples[t] + ", bits=" + bits[t]
+					+ ", expPipes=" + expPipes[t] + ", squares=" + squares[t]
+					+ ", openedValues=" + openedValues[t]
+					+ ", inputMasks=");
+			for (int i = 0; i < noOfParties; i++) {
+				sb.append((i == 0 ? "" : "/") + inputMasks[t][i]);
+			}
+			for (Map.Entry<String, long[]> e : matrixTriples.entrySet()) {
+				sb.append(", matrixTriples(" + e.getKey() + ")=" + e.getValue()[t]);
+			}
+		}
+		return sb.toString();
+	}
+
+	private static long sum(long[] values) {
+		long res = 0;
+		for (long v : values) {
+			res += v;
+		}
+		return res;
+	}
+
+	private static long max(long[] values) {
+		long res = 0;
+		for (long v : values) {
+			res = Math.max(res, v);
+		}
+		return res;
+	}
+
+	private static String join(long[] values) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) {
+				sb.append(",");
+			}
+			sb.append(values[i]);
+		}
+		return sb.toString();
+	}
+
+	private static long[] split(String value, int length) {
+		long[] res = new long[length];
+		if (value == null || value.isEmpty()) {
+			return res;
+		}
+		String[] parts = value.split(",");
+		for (int i = 0; i < parts.length && i < length; i++) {
+			res[i] = Long.parseLong(parts[i].trim());
+		}
+		return res;
+	}
+}
@@ -44,21 +44,22 @@ import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzOInt;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
 import dk.alexandra.fresco.suite.spdz.evaluation.strategy.SpdzProtocolSuite;
-import dk.alexandra.fresco.suite.spdz.utils.Util;
 
 public class DummyComparisonProtocol implements ComparisonProtocol {
 
 	private final SpdzSInt a, b, result;
 	private final BasicNumericFactory provider;
+	private final SpdzProtocolSuite suite;
 	private ProtocolProducer currGP;
 	private boolean done = false;
 
 	public DummyComparisonProtocol(SInt a, SInt b, SInt result,
-			BasicNumericFactory provider) {
+			BasicNumericFactory provider, SpdzProtocolSuite suite) {
 		this.a = (SpdzSInt) a;
 		this.b = (SpdzSInt) b;
 		this.result = (SpdzSInt) result;
 		this.provider = provider;
+		this.suite = suite;
 	}
 
 	@Override
@@ -116,8 +117,6 @@ public class DummyComparisonProtocol implements ComparisonProtocol {
 		@Override
 		public EvaluationStatus evaluate(int round, ResourcePool resourcePool,
 				SCENetwork network) {
-			SpdzProtocolSuite spdzPii = SpdzProtocolSuite
-					.getInstance(resourcePool.getMyId());
 			SpdzOInt min = null;
 			if (compareModP(a.getValue(), b.getValue()) <= 0) {
 				min = new SpdzOInt(BigInteger.ONE);
@@ -128,10 +127,10 @@ public class DummyComparisonProtocol implements ComparisonProtocol {
 			if (min.getValue().equals(BigInteger.ONE)) {
 				if (resourcePool.getMyId() == 1) {
 					elm = new SpdzElement(BigInteger.ONE, min.getValue()
-							.multiply(spdzPii.getStore(network.getThreadId()).getSSK()));
+							.multiply(suite.getStore(network.getThreadId()).getSSK()));
 				} else {
 					elm = new SpdzElement(BigInteger.ZERO, min.getValue()
-							.multiply(spdzPii.getStore(network.getThreadId()).getSSK()));
+							.multiply(suite.getStore(network.getThreadId()).getSSK()));
 				}
 			} else {
 				elm = new SpdzElement(BigInteger.ZERO, BigInteger.ZERO);
@@ -149,13 +148,14 @@ public class DummyComparisonProtocol implements ComparisonProtocol {
 		private int compareModP(BigInteger a, BigInteger b) {
 			BigInteger realA = a;
 			BigInteger realB = b;
-			BigInteger halfPoint = Util.getModulus().subtract(BigInteger.ONE)
+			BigInteger modulus = suite.getModulus();
+			BigInteger halfPoint = modulus.subtract(BigInteger.ONE)
 					.divide((BigInteger.valueOf(2)));
 			if (a.compareTo(halfPoint) > 0) {
-				realA = a.subtract(Util.getModulus());
+				realA = a.subtract(modulus);
 			}
 			if (b.compareTo(halfPoint) > 0) {
-				realB = b.subtract(Util.getModulus());
+				realB = b.subtract(modulus);
 			}
 			return realA.compareTo(realB);
 		}
@@ -26,6 +26,7 @@
  *******************************************************************************/
 package dk.alexandra.fresco.suite.spdz.gates;
 
+import dk.alexandra.fresco.framework.math.ModularArithmetic;
 import dk.alexandra.fresco.framework.network.SCENetwork;
 import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
 import dk.alexandra.fresco.framework.value.OInt;
@@ -34,6 +35,7 @@ import dk.alexandra.fresco.framework.value.Value;
 import dk.alexandra.fresco.lib.field.integer.AddProtocol;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzOInt;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.evaluation.strategy.SpdzProtocolSuite;
 import dk.alexandra.fresco.suite.spdz.utils.SpdzFactory;
 
 public class SpdzAddProtocol extends SpdzNativeProtocol implements AddProtocol {
@@ -41,17 +43,20 @@ public class SpdzAddProtocol extends SpdzNativeProtocol implements AddProtocol {
 	private SpdzSInt left, right, out;
 	private SpdzOInt oInt;
 	private SpdzFactory provider;
+	private SpdzProtocolSuite suite;
 
-	public SpdzAddProtocol(SInt left, SInt right, SInt out) {
+	public SpdzAddProtocol(SInt left, SInt right, SInt out, SpdzProtocolSuite suite) {
 		this.left = (SpdzSInt) left;
 		this.right = (SpdzSInt) right;
 		this.out = (SpdzSInt) out;
+		this.suite = suite;
 	}
 
-	public SpdzAddProtocol(SpdzSInt left, SpdzSInt right, SpdzSInt out) {
+	public SpdzAddProtocol(SpdzSInt left, SpdzSInt right, SpdzSInt out, SpdzProtocolSuite suite) {
 		this.left = left;
 		this.right = right;
 		this.out = out;
+		this.suite = suite;
 	}
 
 	public SpdzAddProtocol(SInt left, OInt right, SInt out, SpdzFactory provider) {
@@ -59,6 +64,7 @@ public class SpdzAddProtocol extends SpdzNativeProtocol implements AddProtocol {
 		this.oInt = (SpdzOInt) right;
 		this.out = (SpdzSInt) out;
 		this.provider = provider;
+		this.suite = provider.getProtocolSuite();
 	}
 
 	@Override
@@ -80,11 +86,12 @@ public class SpdzAddProtocol extends SpdzNativeProtocol implements AddProtocol {
 	@Override
 	public EvaluationStatus evaluate(int round, ResourcePool resourcePool,
 			SCENetwork network) {
+		ModularArithmetic arithmetic = suite.getField().getArithmetic();
 		if (oInt != null) {
 			SpdzSInt myShare = (SpdzSInt) provider.getSInt(oInt.getValue());
-			out.value = left.value.add(myShare.value);
+			out.value = left.value.add(myShare.value, arithmetic);
 		} else {
-			out.value = left.value.add(right.value);
+			out.value = left.value.add(right.value, arithmetic);
 		}
 		return EvaluationStatus.IS_DONE;
 	}
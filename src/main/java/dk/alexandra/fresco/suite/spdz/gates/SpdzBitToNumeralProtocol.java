@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.gates;
+
+import java.math.BigInteger;
+
+import dk.alexandra.fresco.framework.math.ModularArithmetic;
+import dk.alexandra.fresco.framework.network.SCENetwork;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.value.SBool;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.framework.value.Value;
+import dk.alexandra.fresco.lib.conversion.BitToNumeralCircuit;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSBool;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.evaluation.strategy.SpdzProtocolSuite;
+
+/**
+ * Computes sum_i 2^i*[b_i] of the bits b_0, ..., b_{l-1}. As a
+ * {@link SpdzSBool} is shared in the field, this is done locally in the same
+ * way as {@link SpdzLinearCombinationProtocol}.
+ */
+public class SpdzBitToNumeralProtocol extends SpdzNativeProtocol implements
+		BitToNumeralCircuit {
+
+	private SBool[] in;
+	private SpdzSInt out;
+	private SpdzProtocolSuite suite;
+
+	public SpdzBitToNumeralProtocol(SBool[] in, SInt out, SpdzProtocolSuite suite) {
+		this.in = in;
+		this.out = (SpdzSInt) out;
+		this.suite = suite;
+	}
+
+	@Override
+	public String toString() {
+		return "SpdzBitToNumeralGate(" + in.length + " bits, " + out.value + ")";
+	}
+
+	@Override
+	public Value[] getInputValues() {
+		return in;
+	}
+
+	@Override
+	public Value[] getOutputValues() {
+		return new Value[] { out };
+	}
+
+	@Override
+	public EvaluationStatus evaluate(int round, ResourcePool resourcePool,
+			SCENetwork network) {
+		BigInteger share = BigInteger.ZERO;
+		BigInteger mac = BigInteger.ZERO;
+		for (int i = in.length - 1; i >= 0; i--) {
+			SpdzElement b = ((SpdzSBool) in[i]).value;
+			share = share.shiftLeft(1).add(b.getShare());
+			mac = mac.shiftLeft(1).add(b.getMac());
+		}
+		ModularArithmetic arithmetic = suite.getField().getArithmetic();
+		out.value = new SpdzElement(arithmetic.reduce(share), arithmetic.reduce(mac));
+		return EvaluationStatus.IS_DONE;
+	}
+}
@@ -27,6 +27,7 @@
 package dk.alexandra.fresco.suite.spdz.gates;
 
 import java.math.BigInteger;
+import java.security.MessageDigest;
 import java.util.List;
 import java.util.Map;
 
@@ -35,7 +36,6 @@ import dk.alexandra.fresco.framework.network.SCENetwork;
 import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
 import dk.alexandra.fresco.framework.value.Value;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzCommitment;
-import dk.alexandra.fresco.suite.spdz.evaluation.strategy.SpdzProtocolSuite;
 
 public class SpdzCommitProtocol extends SpdzNativeProtocol {
 
@@ -43,11 +43,22 @@ public class SpdzCommitProtocol extends SpdzNativeProtocol {
 	protected Map<Integer, BigInteger> comms;
 	private boolean done = false;
 	private byte[] broadcastDigest;
+	private MessageDigest digest;
 
+	/**
+	 * @param commitment
+	 *            the commitment to send
+	 * @param comms
+	 *            receives the commitments of all parties
+	 * @param digest
+	 *            the digest used to validate the broadcast, which must not be
+	 *            used by other threads while the protocol runs
+	 */
 	public SpdzCommitProtocol(SpdzCommitment commitment,
-			Map<Integer, BigInteger> comms) {
+			Map<Integer, BigInteger> comms, MessageDigest digest) {
 		this.commitment = commitment;
 		this.comms = comms;
+		this.digest = digest;
 	}
 
 	@Override
@@ -77,11 +88,8 @@ public class SpdzCommitProtocol extends SpdzNativeProtocol {
 			if (players < 3) {
 				done = true;
 			} else {
-				broadcastDigest = sendBroadcastValidation(
-						SpdzProtocolSuite.getInstance(
-								resourcePool.getMyId()).getMessageDigest(
-								network.getThreadId()), network, commitments,
-						players);
+				broadcastDigest = sendBroadcastValidation(digest, network,
+						commitments, players);
 				network.expectInputFromAll();
 			}
 			break;
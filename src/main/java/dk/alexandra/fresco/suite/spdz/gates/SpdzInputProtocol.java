@@ -40,7 +40,6 @@ import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
 import dk.alexandra.fresco.suite.spdz.evaluation.strategy.SpdzProtocolSuite;
 import dk.alexandra.fresco.suite.spdz.storage.SpdzStorage;
-import dk.alexandra.fresco.suite.spdz.utils.Util;
 
 public class SpdzInputProtocol extends SpdzNativeProtocol implements CloseIntProtocol {
 
@@ -50,23 +49,27 @@ public class SpdzInputProtocol extends SpdzNativeProtocol implements CloseIntPro
 	protected SpdzSInt out;
 	protected int inputter;
 	private byte[] digest;
+	private SpdzProtocolSuite suite;
 
-	public SpdzInputProtocol(OInt input, SInt out, int inputter) {
+	public SpdzInputProtocol(OInt input, SInt out, int inputter, SpdzProtocolSuite suite) {
 		this.input = (input == null) ? null : input.getValue();
 		this.out = (SpdzSInt) out;
 		this.inputter = inputter;
+		this.suite = suite;
 	}
 
-	public SpdzInputProtocol(BigInteger input, SpdzSInt out, int inputter) {
+	public SpdzInputProtocol(BigInteger input, SpdzSInt out, int inputter, SpdzProtocolSuite suite) {
 		this.input = input;
 		this.out = out;
 		this.inputter = inputter;
+		this.suite = suite;
 	}
 
-	public SpdzInputProtocol(BigInteger input, SInt out, int inputter) {
+	public SpdzInputProtocol(BigInteger input, SInt out, int inputter, SpdzProtocolSuite suite) {
 		this.input = input;
 		this.out = (SpdzSInt) out;
 		this.inputter = inputter;
+		this.suite = suite;
 	}
 
 	public int getInputter() {
@@ -78,10 +81,8 @@ public class SpdzInputProtocol extends SpdzNativeProtocol implements CloseIntPro
 			SCENetwork network) {		
 		int myId = resourcePool.getMyId();
 		int players = resourcePool.getNoOfParties();
-		BigInteger modulus = Util.getModulus();
-		SpdzProtocolSuite spdzPii = SpdzProtocolSuite
-				.getInstance(myId);
-		SpdzStorage storage = spdzPii.getStore(network.getThreadId());
+		BigInteger modulus = suite.getModulus();
+		SpdzStorage storage = suite.getStore(network.getThreadId());
 		switch (round) {
 		case 0:
 			this.inputMask = storage.getSupplier().getNextInputMask(this.inputter);
@@ -95,7 +96,7 @@ public class SpdzInputProtocol extends SpdzNativeProtocol implements CloseIntPro
 		case 1:
 			this.value_masked = network.receive(inputter);
 			this.digest = sendBroadcastValidation(
-					spdzPii.getMessageDigest(network.getThreadId()), network,
+					suite.getMessageDigest(network.getThreadId()), network,
 					value_masked, players);
 			network.expectInputFromAll();
 			return EvaluationStatus.HAS_MORE_ROUNDS;
@@ -106,9 +107,9 @@ public class SpdzInputProtocol extends SpdzNativeProtocol implements CloseIntPro
 			}
 			SpdzElement value_masked_elm = new SpdzElement(value_masked,
 					storage.getSSK().multiply(value_masked)
-							.mod(Util.getModulus()));
+							.mod(modulus));
 			this.out.value = this.inputMask.getMask().add(value_masked_elm,
-					myId);
+					myId, suite.getField().getArithmetic());
 			return EvaluationStatus.IS_DONE;
 		}
 		throw new MPCException("Cannot evaluate rounds larger than 2");
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.gates;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.math.ModularArithmetic;
+import dk.alexandra.fresco.framework.network.SCENetwork;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.value.OInt;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.framework.value.Value;
+import dk.alexandra.fresco.lib.field.integer.CloseVectorProtocol;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.evaluation.strategy.SpdzProtocolSuite;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzStorage;
+
+/**
+ * Inputs a vector of values from a single party. This is the same as a
+ * {@link SpdzInputProtocol} per element, but the masked values are sent in a
+ * single array, and all parties broadcast a single digest of the whole array
+ * to validate that they received the same values. As with a repeated
+ * {@link SpdzInputProtocol}, the given arrays are read when the protocol is
+ * evaluated.
+ */
+public class SpdzInputVectorProtocol extends SpdzNativeProtocol implements CloseVectorProtocol {
+
+	private OInt[] in;
+	private SInt[] out;
+	private int inputter;
+	private SpdzInputMask[] inputMasks; // are opened by this gate.
+	private BigInteger[] valuesMasked;
+	private byte[] digest;
+	private SpdzProtocolSuite suite;
+
+	public SpdzInputVectorProtocol(OInt[] in, SInt[] out, int inputter, SpdzProtocolSuite suite) {
+		if (in.length != out.length) {
+			throw new IllegalArgumentException("Cannot input " + in.length + " values into "
+					+ out.length + " values");
+		}
+		this.in = in;
+		this.out = out;
+		this.inputter = inputter;
+		this.suite = suite;
+	}
+
+	public int getInputter() {
+		return inputter;
+	}
+
+	@Override
+	public EvaluationStatus evaluate(int round, ResourcePool resourcePool,
+			SCENetwork network) {
+		int myId = resourcePool.getMyId();
+		int players = resourcePool.getNoOfParties();
+		SpdzStorage storage = suite.getStore(network.getThreadId());
+		ModularArithmetic arithmetic = suite.getField().getArithmetic();
+		int n = out.length;
+		switch (round) {
+		case 0:
+			this.inputMasks = storage.getSupplier().getNextInputMasks(inputter, n);
+			if (myId == inputter) {
+				BigInteger[] bcValues = new BigInteger[n];
+				for (int i = 0; i < n; i++) {
+					bcValues[i] = arithmetic.reduce(in[i].getValue().subtract(
+							inputMasks[i].getRealValue()));
+				}
+				network.sendToAll(bcValues);
+			}
+			network.expectInputFromPlayer(inputter);
+			return EvaluationStatus.HAS_MORE_ROUNDS;
+		case 1:
+			this.valuesMasked = network.receive(inputter);
+			if (valuesMasked.length != n) {
+				throw new MPCException("Expected " + n + " masked values from party "
+						+ inputter + " but got " + valuesMasked.length);
+			}
+			this.digest = sendBroadcastValidation(
+					suite.getMessageDigest(network.getThreadId()), network,
+					Arrays.asList(valuesMasked), players);
+			network.expectInputFromAll();
+			return EvaluationStatus.HAS_MORE_ROUNDS;
+		case 2:
+			boolean validated = receiveBroadcastValidation(network, digest);
+			if (!validated) {
+				throw new MPCException("Broadcast digests did not match");
+			}
+			BigInteger ssk = storage.getSSK();
+			for (int i = 0; i < n; i++) {
+				SpdzElement valueMaskedElm = new SpdzElement(valuesMasked[i],
+						arithmetic.reduce(ssk.multiply(valuesMasked[i])));
+				((SpdzSInt) out[i]).value = inputMasks[i].getMask().add(valueMaskedElm, myId,
+						arithmetic);
+			}
+			// help the garbage collector.
+			in = null;
+			inputMasks = null;
+			valuesMasked = null;
+			return EvaluationStatus.IS_DONE;
+		default:
+			throw new MPCException("Cannot evaluate rounds larger than 2");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "SpdzInputVectorGate(" + out.length + " values from " + inputter + ")";
+	}
+
+	@Override
+	public Value[] getInputValues() {
+		// No point in getting input from an input gate...
+		return null;
+	}
+
+	@Override
+	public Value[] getOutputValues() {
+		return out;
+	}
+}
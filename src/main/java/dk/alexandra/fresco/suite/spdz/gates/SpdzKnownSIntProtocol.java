@@ -37,12 +37,12 @@ import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzOInt;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
 import dk.alexandra.fresco.suite.spdz.evaluation.strategy.SpdzProtocolSuite;
-import dk.alexandra.fresco.suite.spdz.utils.Util;
 
 public class SpdzKnownSIntProtocol extends SpdzNativeProtocol implements KnownSIntProtocol {
 
 	BigInteger value;
 	SpdzSInt sValue;
+	private SpdzProtocolSuite suite;
 
 	/**
 	 * Creates a gate loading a given value into a given SInt
@@ -51,10 +51,13 @@ public class SpdzKnownSIntProtocol extends SpdzNativeProtocol implements KnownSI
 	 *            the value
 	 * @param sValue
 	 *            the SInt
+	 * @param suite
+	 *            the protocol suite of the computation
 	 */
-	public SpdzKnownSIntProtocol(BigInteger value, SInt sValue) {
+	public SpdzKnownSIntProtocol(BigInteger value, SInt sValue, SpdzProtocolSuite suite) {
 		this.value = value;
 		this.sValue = (SpdzSInt) sValue;
+		this.suite = suite;
 	}
 
 	/**
@@ -64,9 +67,11 @@ public class SpdzKnownSIntProtocol extends SpdzNativeProtocol implements KnownSI
 	 *            the value
 	 * @param sValue
 	 *            the SInt
+	 * @param suite
+	 *            the protocol suite of the computation
 	 */
-	public SpdzKnownSIntProtocol(int value, SInt sValue) {
-		this(BigInteger.valueOf(value), sValue);
+	public SpdzKnownSIntProtocol(int value, SInt sValue, SpdzProtocolSuite suite) {
+		this(BigInteger.valueOf(value), sValue, suite);
 	}
 
 	@Override
@@ -83,11 +88,9 @@ public class SpdzKnownSIntProtocol extends SpdzNativeProtocol implements KnownSI
 	@Override
 	public EvaluationStatus evaluate(int round, ResourcePool resourcePool,
 			SCENetwork network) {
-		SpdzProtocolSuite spdzPii = SpdzProtocolSuite
-				.getInstance(resourcePool.getMyId());
-		value = value.mod(Util.getModulus());
+		value = value.mod(suite.getModulus());
 		SpdzElement elm;
-		BigInteger globalKeyShare = spdzPii.getStore(network.getThreadId())
+		BigInteger globalKeyShare = suite.getStore(network.getThreadId())
 				.getSSK();
 		if (resourcePool.getMyId() == 1) {
 			elm = new SpdzElement(value, value.multiply(globalKeyShare));
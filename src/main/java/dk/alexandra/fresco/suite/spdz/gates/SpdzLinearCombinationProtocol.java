@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.gates;
+
+import java.math.BigInteger;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.math.ModularArithmetic;
+import dk.alexandra.fresco.framework.network.SCENetwork;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.value.OInt;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.framework.value.Value;
+import dk.alexandra.fresco.lib.field.integer.LinearCombinationProtocol;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.evaluation.strategy.SpdzProtocolSuite;
+
+/**
+ * Computes sum_i c_i*[x_i] locally. Shares and MACs are accumulated as plain
+ * integers and reduced modulo p once at the end, instead of after every
+ * addition and multiplication.
+ */
+public class SpdzLinearCombinationProtocol extends SpdzNativeProtocol implements
+		LinearCombinationProtocol {
+
+	private OInt[] coefficients;
+	private SInt[] values;
+	private SpdzSInt out;
+	private SpdzProtocolSuite suite;
+
+	public SpdzLinearCombinationProtocol(OInt[] coefficients, SInt[] values, SInt out,
+			SpdzProtocolSuite suite) {
+		if (coefficients != null && coefficients.length != values.length) {
+			throw new MPCException("Got " + coefficients.length + " coefficients for "
+					+ values.length + " values");
+		}
+		this.coefficients = coefficients;
+		this.values = values;
+		this.out = (SpdzSInt) out;
+		this.suite = suite;
+	}
+
+	@Override
+	public String toString() {
+		return "SpdzLinearCombinationGate(" + values.length + " terms, " + out.value + ")";
+	}
+
+	@Override
+	public Value[] getInputValues() {
+		if (coefficients == null) {
+			return values;
+		}
+		Value[] inputs = new Value[coefficients.length + values.length];
+		System.arraycopy(coefficients, 0, inputs, 0, coefficients.length);
+		System.arraycopy(values, 0, inputs, coefficients.length, values.length);
+		return inputs;
+	}
+
+	@Override
+	public Value[] getOutputValues() {
+		return new Value[] { out };
+	}
+
+	@Override
+	public EvaluationStatus evaluate(int round, ResourcePool resourcePool,
+			SCENetwork network) {
+		BigInteger share = BigInteger.ZERO;
+		BigInteger mac = BigInteger.ZERO;
+		for (int i = 0; i < values.length; i++) {
+			SpdzElement x = ((SpdzSInt) values[i]).value;
+			if (coefficients == null) {
+				share = share.add(x.getShare());
+				mac = mac.add(x.getMac());
+			} else {
+				BigInteger c = coefficients[i].getValue();
+				share = share.add(x.getShare().multiply(c));
+				mac = mac.add(x.getMac().multiply(c));
+			}
+		}
+		ModularArithmetic arithmetic = suite.getField().getArithmetic();
+		out.value = new SpdzElement(arithmetic.reduce(share), arithmetic.reduce(mac));
+		return EvaluationStatus.IS_DONE;
+	}
+}
@@ -32,21 +32,24 @@ import dk.alexandra.fresco.framework.value.OInt;
 import dk.alexandra.fresco.framework.value.Value;
 import dk.alexandra.fresco.lib.math.inv.LocalInversionCircuit;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzOInt;
-import dk.alexandra.fresco.suite.spdz.utils.Util;
+import dk.alexandra.fresco.suite.spdz.evaluation.strategy.SpdzProtocolSuite;
 
 public class SpdzLocalInversionProtocol extends SpdzNativeProtocol implements
 		LocalInversionCircuit {
 
 	private SpdzOInt in, out;
+	private SpdzProtocolSuite suite;
 
-	public SpdzLocalInversionProtocol(OInt in, OInt out) {
+	public SpdzLocalInversionProtocol(OInt in, OInt out, SpdzProtocolSuite suite) {
 		this.in = (SpdzOInt) in;
 		this.out = (SpdzOInt) out;
+		this.suite = suite;
 	}
 
-	public SpdzLocalInversionProtocol(SpdzOInt in, SpdzOInt out) {
+	public SpdzLocalInversionProtocol(SpdzOInt in, SpdzOInt out, SpdzProtocolSuite suite) {
 		this.in = in;
 		this.out = out;
+		this.suite = suite;
 	}
 
 	@Override
@@ -63,7 +66,7 @@ public class SpdzLocalInversionProtocol extends SpdzNativeProtocol implements
 	public EvaluationStatus evaluate(int round, ResourcePool resourcePool,
 			SCENetwork network) {
 		try {
-			out.setValue(in.getValue().modInverse(Util.getModulus()));
+			out.setValue(in.getValue().modInverse(suite.getModulus()));
 		} catch (ArithmeticException e) {
 			System.out.println("Non invertable value: " + in.getValue());
 			throw e;
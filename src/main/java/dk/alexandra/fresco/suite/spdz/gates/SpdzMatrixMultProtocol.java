@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.gates;
+
+import java.math.BigInteger;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.math.ModularArithmetic;
+import dk.alexandra.fresco.framework.network.SCENetwork;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.framework.value.Value;
+import dk.alexandra.fresco.lib.math.linalg.MatrixMultProtocol;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzMatrixTriple;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.evaluation.strategy.SpdzProtocolSuite;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzStorage;
+
+/**
+ * Multiplies an l x m matrix [X] by an m x n matrix [Y] using a matrix triple
+ * ([A], [B], [C] = [A*B]). Only E = X - A and D = Y - B are opened, after which
+ * X*Y = C + E*B + A*D + E*D. This sends and MAC checks l*m + m*n values, where
+ * a {@link SpdzMultProtocol} per product would open 2*l*m*n values.
+ */
+public class SpdzMatrixMultProtocol extends SpdzNativeProtocol implements MatrixMultProtocol {
+
+	private SpdzSInt[][] left, right, out;
+	private SpdzMatrixTriple triple;
+	private SpdzElement[] differences; // my shares of the entries of E and D
+	private SpdzProtocolSuite suite;
+
+	public SpdzMatrixMultProtocol(SInt[][] left, SInt[][] right, SInt[][] out,
+			SpdzProtocolSuite suite) {
+		if (left.length != out.length || left[0].length != right.length
+				|| right[0].length != out[0].length) {
+			throw new IllegalArgumentException("Cannot multiply a " + left.length + "x"
+					+ left[0].length + " matrix by a " + right.length + "x"
+					+ right[0].length + " matrix into a " + out.length + "x"
+					+ out[0].length + " matrix");
+		}
+		this.left = toSpdz(left);
+		this.right = toSpdz(right);
+		this.out = toSpdz(out);
+		this.suite = suite;
+	}
+
+	private static SpdzSInt[][] toSpdz(SInt[][] matrix) {
+		SpdzSInt[][] res = new SpdzSInt[matrix.length][];
+		for (int i = 0; i < matrix.length; i++) {
+			res[i] = new SpdzSInt[matrix[i].length];
+			for (int j = 0; j < matrix[i].length; j++) {
+				res[i][j] = (SpdzSInt) matrix[i][j];
+			}
+		}
+		return res;
+	}
+
+	@Override
+	public EvaluationStatus evaluate(int round, ResourcePool resourcePool,
+			SCENetwork network) {
+		SpdzStorage store = suite.getStore(network.getThreadId());
+		ModularArithmetic arithmetic = suite.getField().getArithmetic();
+		int rows = left.length;
+		int inner = right.length;
+		int columns = right[0].length;
+		switch (round) {
+		case 0:
+			this.triple = store.getSupplier().getNextMatrixTriple(rows, inner, columns);
+			this.differences = new SpdzElement[rows * inner + inner * columns];
+			// Sent as the rows of E followed by the rows of D.
+			BigInteger[] shares = new BigInteger[differences.length];
+			int pos = 0;
+			for (int i = 0; i < rows; i++) {
+				for (int k = 0; k < inner; k++) {
+					differences[pos] = left[i][k].value.subtract(triple.getA()[i][k], arithmetic);
+					shares[pos] = differences[pos].getShare();
+					pos++;
+				}
+			}
+			for (int k = 0; k < inner; k++) {
+				for (int j = 0; j < columns; j++) {
+					differences[pos] = right[k][j].value.subtract(triple.getB()[k][j], arithmetic);
+					shares[pos] = differences[pos].getShare();
+					pos++;
+				}
+			}
+			network.sendToAll(shares);
+			network.expectInputFromAll();
+			return EvaluationStatus.HAS_MORE_ROUNDS;
+		case 1:
+			BigInteger[] opened = new BigInteger[differences.length];
+			for (int j = 0; j < opened.length; j++) {
+				opened[j] = BigInteger.ZERO;
+			}
+			for (int p = 1; p <= resourcePool.getNoOfParties(); p++) {
+				BigInteger[] received = network.receive(p);
+				if (received.length != opened.length) {
+					throw new MPCException("Expected " + opened.length
+							+ " shares from party " + p + " but got " + received.length);
+				}
+				for (int j = 0; j < opened.length; j++) {
+					opened[j] = opened[j].add(received[j]);
+				}
+			}
+			for (int j = 0; j < opened.length; j++) {
+				opened[j] = arithmetic.reduce(opened[j]);
+			}
+			BigInteger alpha = store.getSSK();
+			boolean addPublic = resourcePool.getMyId() == 1;
+			SpdzElement[][] a = triple.getA();
+			SpdzElement[][] b = triple.getB();
+			SpdzElement[][] c = triple.getC();
+			int offsetD = rows * inner;
+			for (int i = 0; i < rows; i++) {
+				for (int j = 0; j < columns; j++) {
+					// The sums are reduced once, when all terms are added.
+					BigInteger share = c[i][j].getShare();
+					BigInteger mac = c[i][j].getMac();
+					BigInteger ed = BigInteger.ZERO;
+					for (int k = 0; k < inner; k++) {
+						BigInteger e = opened[i * inner + k];
+						BigInteger d = opened[offsetD + k * columns + j];
+						share = share.add(e.multiply(b[k][j].getShare()))
+								.add(d.multiply(a[i][k].getShare()));
+						mac = mac.add(e.multiply(b[k][j].getMac()))
+								.add(d.multiply(a[i][k].getMac()));
+						ed = ed.add(e.multiply(d));
+					}
+					ed = arithmetic.reduce(ed);
+					if (addPublic) {
+						share = share.add(ed);
+					}
+					mac = mac.add(alpha.multiply(ed));
+					out[i][j].value = new SpdzElement(arithmetic.reduce(share),
+							arithmetic.reduce(mac));
+				}
+			}
+			store.addOpenedValues(opened);
+			store.addClosedValues(differences);
+			// help the garbage collector.
+			left = null;
+			right = null;
+			triple = null;
+			differences = null;
+			return EvaluationStatus.IS_DONE;
+		default:
+			throw new MPCException("Cannot evaluate rounds larger than 1");
+		}
+	}
+
+	@Override
+	public Value[] getInputValues() {
+		return flatten(left, right);
+	}
+
+	@Override
+	public Value[] getOutputValues() {
+		return flatten(out);
+	}
+
+	private static Value[] flatten(SpdzSInt[][]... matrices) {
+		int size = 0;
+		for (SpdzSInt[][] matrix : matrices) {
+			for (SpdzSInt[] row : matrix) {
+				size += row.length;
+			}
+		}
+		Value[] res = new Value[size];
+		int pos = 0;
+		for (SpdzSInt[][] matrix : matrices) {
+			for (SpdzSInt[] row : matrix) {
+				System.arraycopy(row, 0, res, pos, row.length);
+				pos += row.length;
+			}
+		}
+		return res;
+	}
+}
@@ -29,6 +29,8 @@ package dk.alexandra.fresco.suite.spdz.gates;
 import java.math.BigInteger;
 
 import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.math.ModularArithmetic;
+import dk.alexandra.fresco.framework.math.MontgomeryField;
 import dk.alexandra.fresco.framework.network.SCENetwork;
 import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
 import dk.alexandra.fresco.framework.value.OInt;
@@ -41,7 +43,7 @@ import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
 import dk.alexandra.fresco.suite.spdz.evaluation.strategy.SpdzProtocolSuite;
 import dk.alexandra.fresco.suite.spdz.storage.SpdzStorage;
-import dk.alexandra.fresco.suite.spdz.utils.Util;
+import dk.alexandra.fresco.suite.spdz.utils.SpdzField;
 
 public class SpdzMultProtocol extends SpdzNativeProtocol implements MultProtocol {
 
@@ -50,56 +52,60 @@ public class SpdzMultProtocol extends SpdzNativeProtocol implements MultProtocol
 	private SpdzTriple triple;
 	private SpdzElement epsilon, delta; // my share of the differences [x]-[a]
 										// and [y]-[b].
+	private SpdzProtocolSuite suite;
 
 	public boolean isInteractive() {
 		return (oIn1 == null);
 	}
 
-	public SpdzMultProtocol(SInt in1, SInt in2, SInt out) {
+	public SpdzMultProtocol(SInt in1, SInt in2, SInt out, SpdzProtocolSuite suite) {
 		this.in1 = (SpdzSInt) in1;
 		this.in2 = (SpdzSInt) in2;
 		this.out = (SpdzSInt) out;
+		this.suite = suite;
 	}
 
-	public SpdzMultProtocol(SpdzSInt in1, SpdzSInt in2, SpdzSInt out) {
+	public SpdzMultProtocol(SpdzSInt in1, SpdzSInt in2, SpdzSInt out, SpdzProtocolSuite suite) {
 		this.in1 = in1;
 		this.in2 = in2;
 		this.out = out;
+		this.suite = suite;
 	}
 
-	public SpdzMultProtocol(SpdzOInt oIn1, SpdzSInt in2, SpdzSInt out) {
+	public SpdzMultProtocol(SpdzOInt oIn1, SpdzSInt in2, SpdzSInt out, SpdzProtocolSuite suite) {
 		this.oIn1 = oIn1;
 		this.in2 = in2;
 		this.out = out;
+		this.suite = suite;
 	}
 
-	public SpdzMultProtocol(OInt oIn1, SInt in2, SInt out) {
+	public SpdzMultProtocol(OInt oIn1, SInt in2, SInt out, SpdzProtocolSuite suite) {
 		this.oIn1 = (SpdzOInt) oIn1;
 		this.in2 = (SpdzSInt) in2;
 		this.out = (SpdzSInt) out;
+		this.suite = suite;
 	}
 
 	@Override
 	public EvaluationStatus evaluate(int round, ResourcePool resourcePool,
 			SCENetwork network) {
-		SpdzProtocolSuite spdzPii = SpdzProtocolSuite
-				.getInstance(resourcePool.getMyId());
-		SpdzStorage store = spdzPii.getStore(network.getThreadId());
+		SpdzStorage store = suite.getStore(network.getThreadId());
+		ModularArithmetic arithmetic = suite.getField().getArithmetic();
 		int noOfPlayers = resourcePool.getNoOfParties();
 		switch (round) {
 		case 0:
 			try {
 				if (oIn1 != null) {
 					SpdzElement res = in2.value;
-					res = res.multiply(oIn1.getValue());
+					res = res.multiply(oIn1.getValue(), arithmetic);
 					out.value = res;
 					return EvaluationStatus.IS_DONE;
 				}
 
 				this.triple = store.getSupplier().getNextTriple();
 
-				SpdzElement epsilon = in1.value.subtract(triple.getA());
-				SpdzElement delta = in2.value.subtract(triple.getB());
+				SpdzElement epsilon = in1.value.subtract(triple.getA(), arithmetic);
+				SpdzElement delta = in2.value.subtract(triple.getB(), arithmetic);
 
 				network.sendToAll(new BigInteger[] { epsilon.getShare(),
 						delta.getShare() });
@@ -134,23 +140,16 @@ public class SpdzMultProtocol extends SpdzNativeProtocol implements MultProtocol
 				epsilonShares[i] = shares[0];
 				deltaShares[i] = shares[1];
 			}
-			SpdzElement res = triple.getC();
 			BigInteger e = epsilonShares[0];
 			BigInteger d = deltaShares[0];
 			for (int i = 1; i < epsilonShares.length; i++) {
 				e = e.add(epsilonShares[i]);
 				d = d.add(deltaShares[i]);
 			}
-			e = e.mod(Util.getModulus());
-			d = d.mod(Util.getModulus());
-
-			BigInteger eTimesd = e.multiply(d).mod(Util.getModulus());
-			SpdzElement ed = new SpdzElement(eTimesd, store.getSSK()
-					.multiply(eTimesd).mod(Util.getModulus()));
-			res = res.add(triple.getB().multiply(e))
-					.add(triple.getA().multiply(d))
-					.add(ed, resourcePool.getMyId());
-			out.value = res;
+			e = arithmetic.reduce(e);
+			d = arithmetic.reduce(d);
+
+			out.value = combine(suite.getField(), triple, e, d, store.getSSK(), resourcePool.getMyId());
 			// Set the opened and closed value.
 			store.addOpenedValue(e);
 			store.addOpenedValue(d);
@@ -177,4 +176,64 @@ public class SpdzMultProtocol extends SpdzNativeProtocol implements MultProtocol
 		return new Value[] { out };
 	}
 
+	/**
+	 * Computes the share of x*y from the triple (a, b, c) and the opened
+	 * differences e = x - a and d = y - b as c + b*e + a*d + e*d, where only
+	 * player 1 adds e*d to its share.
+	 */
+	static SpdzElement combine(SpdzField spdzField, SpdzTriple triple, BigInteger e,
+			BigInteger d, BigInteger alpha, int myId) {
+		MontgomeryField field = spdzField.getMontgomeryField();
+		if (field != null) {
+			return combine(field, triple, e, d, alpha, myId);
+		}
+		ModularArithmetic arithmetic = spdzField.getArithmetic();
+		BigInteger eTimesd = arithmetic.multiply(e, d);
+		SpdzElement ed = new SpdzElement(eTimesd, arithmetic.multiply(alpha, eTimesd));
+		return triple.getC().add(triple.getB().multiply(e, arithmetic), arithmetic)
+				.add(triple.getA().multiply(d, arithmetic), arithmetic)
+				.add(ed, myId, arithmetic);
+	}
+
+	/**
+	 * Computes c + b*e + a*d + e*d with the MAC alpha*e*d, where only player 1
+	 * adds e*d to its share. The shares of the triple stay plain values and
+	 * are multiplied by the Montgomery forms of e and d, which gives plain
+	 * values, so only e, d and alpha need a conversion.
+	 */
+	private static SpdzElement combine(MontgomeryField field, SpdzTriple triple,
+			BigInteger e, BigInteger d, BigInteger alpha, int myId) {
+		long[] eM = field.fromBigInteger(e);
+		long[] dM = field.fromBigInteger(d);
+		long[] alphaM = field.fromBigInteger(alpha);
+		long[] t = field.newScratch();
+		long[] ed = field.newElement();
+		field.setValue(e, ed);
+		field.multiply(ed, dM, ed, t);
+
+		long[] tmp = field.newElement();
+		long[] share = field.newElement();
+		field.setValue(triple.getC().getShare(), share);
+		field.setValue(triple.getB().getShare(), tmp);
+		field.multiply(tmp, eM, tmp, t);
+		field.add(share, tmp, share);
+		field.setValue(triple.getA().getShare(), tmp);
+		field.multiply(tmp, dM, tmp, t);
+		field.add(share, tmp, share);
+		if (myId == 1) {
+			field.add(share, ed, share);
+		}
+
+		long[] mac = field.newElement();
+		field.setValue(triple.getC().getMac(), mac);
+		field.setValue(triple.getB().getMac(), tmp);
+		field.multiply(tmp, eM, tmp, t);
+		field.add(mac, tmp, mac);
+		field.setValue(triple.getA().getMac(), tmp);
+		field.multiply(tmp, dM, tmp, t);
+		field.add(mac, tmp, mac);
+		field.multiply(ed, alphaM, tmp, t);
+		field.add(mac, tmp, mac);
+		return new SpdzElement(field.getValue(share), field.getValue(mac));
+	}
 }
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.gates;
+
+import java.math.BigInteger;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.math.ModularArithmetic;
+import dk.alexandra.fresco.framework.network.SCENetwork;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.framework.value.Value;
+import dk.alexandra.fresco.lib.field.integer.MultVectorProtocol;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+import dk.alexandra.fresco.suite.spdz.evaluation.strategy.SpdzProtocolSuite;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzStorage;
+
+/**
+ * Multiplies two vectors of secret shared values element-wise. This is the
+ * same as a {@link SpdzMultProtocol} per element, but the differences of all
+ * elements are sent to each party in a single array, and the opened values
+ * are added to the MAC check in one go.
+ */
+public class SpdzMultVectorProtocol extends SpdzNativeProtocol implements MultVectorProtocol {
+
+	private SpdzSInt[] left, right, out;
+	private SpdzTriple[] triples;
+	private SpdzElement[] differences; // my shares of [x_i]-[a_i] and [y_i]-[b_i]
+	private SpdzProtocolSuite suite;
+
+	public SpdzMultVectorProtocol(SInt[] left, SInt[] right, SInt[] out, SpdzProtocolSuite suite) {
+		if (left.length != right.length || left.length != out.length) {
+			throw new IllegalArgumentException("Cannot multiply vectors of lengths " + left.length
+					+ " and " + right.length + " into " + out.length + " values");
+		}
+		this.left = new SpdzSInt[left.length];
+		this.right = new SpdzSInt[right.length];
+		this.out = new SpdzSInt[out.length];
+		for (int i = 0; i < left.length; i++) {
+			this.left[i] = (SpdzSInt) left[i];
+			this.right[i] = (SpdzSInt) right[i];
+			this.out[i] = (SpdzSInt) out[i];
+		}
+		this.suite = suite;
+	}
+
+	@Override
+	public EvaluationStatus evaluate(int round, ResourcePool resourcePool,
+			SCENetwork network) {
+		SpdzStorage store = suite.getStore(network.getThreadId());
+		ModularArithmetic arithmetic = suite.getField().getArithmetic();
+		int n = out.length;
+		switch (round) {
+		case 0:
+			this.triples = new SpdzTriple[n];
+			this.differences = new SpdzElement[2 * n];
+			// Sent as epsilon_0, delta_0, epsilon_1, delta_1, ...
+			BigInteger[] shares = new BigInteger[2 * n];
+			for (int i = 0; i < n; i++) {
+				triples[i] = store.getSupplier().getNextTriple();
+				differences[2 * i] = left[i].value.subtract(triples[i].getA(), arithmetic);
+				differences[2 * i + 1] = right[i].value.subtract(triples[i].getB(), arithmetic);
+				shares[2 * i] = differences[2 * i].getShare();
+				shares[2 * i + 1] = differences[2 * i + 1].getShare();
+			}
+			network.sendToAll(shares);
+			network.expectInputFromAll();
+			return EvaluationStatus.HAS_MORE_ROUNDS;
+		case 1:
+			BigInteger[] opened = new BigInteger[2 * n];
+			for (int j = 0; j < opened.length; j++) {
+				opened[j] = BigInteger.ZERO;
+			}
+			for (int p = 1; p <= resourcePool.getNoOfParties(); p++) {
+				BigInteger[] received = network.receive(p);
+				if (received.length != opened.length) {
+					throw new MPCException("Expected " + opened.length
+							+ " shares from party " + p + " but got " + received.length);
+				}
+				for (int j = 0; j < opened.length; j++) {
+					opened[j] = opened[j].add(received[j]);
+				}
+			}
+			BigInteger alpha = store.getSSK();
+			int myId = resourcePool.getMyId();
+			for (int i = 0; i < n; i++) {
+				opened[2 * i] = arithmetic.reduce(opened[2 * i]);
+				opened[2 * i + 1] = arithmetic.reduce(opened[2 * i + 1]);
+				out[i].value = SpdzMultProtocol.combine(suite.getField(), triples[i],
+						opened[2 * i], opened[2 * i + 1], alpha, myId);
+			}
+			store.addOpenedValues(opened);
+			store.addClosedValues(differences);
+			// help the garbage collector.
+			left = null;
+			right = null;
+			triples = null;
+			differences = null;
+			return EvaluationStatus.IS_DONE;
+		default:
+			throw new MPCException("Cannot evaluate rounds larger than 1");
+		}
+	}
+
+	@Override
+	public Value[] getInputValues() {
+		Value[] res = new Value[2 * out.length];
+		System.arraycopy(left, 0, res, 0, left.length);
+		System.arraycopy(right, 0, res, left.length, right.length);
+		return res;
+	}
+
+	@Override
+	public Value[] getOutputValues() {
+		return out;
+	}
+}
@@ -27,6 +27,7 @@
 package dk.alexandra.fresco.suite.spdz.gates;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -47,12 +48,23 @@ public abstract class SpdzNativeProtocol extends HalfCookedNativeProtocol {
 	}
 	
 	protected byte[] sendBroadcastValidation(MessageDigest dig, SCENetwork network, List<BigInteger> bs, int players) {
+		byte[] digest = digest(dig, bs);
+		network.sendToAll(digest);		
+		return digest;
+	}
+
+	/**
+	 * Digests the values, each prefixed by its length so that different
+	 * lists never give the same input to the digest.
+	 */
+	static byte[] digest(MessageDigest dig, List<BigInteger> bs) {
 		for (BigInteger b: bs) {
-			dig.update(b.toByteArray());
+			byte[] bytes = b.toByteArray();
+			dig.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+			dig.update(bytes);
 		}
 		byte[] digest = dig.digest();
 		dig.reset();
-		network.sendToAll(digest);		
 		return digest;
 	}
 	
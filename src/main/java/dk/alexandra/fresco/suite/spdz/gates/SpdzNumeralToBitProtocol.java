@@ -0,0 +1,317 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.gates;
+
+import java.math.BigInteger;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.math.ModularArithmetic;
+import dk.alexandra.fresco.framework.network.SCENetwork;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.value.SBool;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.framework.value.Value;
+import dk.alexandra.fresco.lib.conversion.NumeralToBitCircuit;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzEdaBit;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSBool;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+import dk.alexandra.fresco.suite.spdz.evaluation.strategy.SpdzProtocolSuite;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzStorage;
+
+/**
+ * Decomposes a secret shared value x in [0, 2^l) into its l bits using an
+ * edaBit (r, r_0, ..., r_{l-1}) where r has bit length l + k:
+ * 
+ * <ol>
+ * <li>c = x + r is opened. As c is smaller than the modulus, x is the l
+ * least significant bits of c - r, and r statistically hides x.</li>
+ * <li>The borrows of the subtraction of the l least significant bits of r
+ * from those of c are computed by a parallel prefix over the (generate,
+ * propagate) pairs of the positions. Since c is public, the pairs of the
+ * single positions are linear in r_i, and each level of the prefix is one
+ * round of multiplications.</li>
+ * <li>The bits are x_i = c_i XOR r_i XOR borrow_i, where the last XOR takes a
+ * final round of multiplications.</li>
+ * </ol>
+ * 
+ * This takes 2 + ceil(log2(l)) rounds. All multiplications of a round are
+ * done with triples and sent as a single array like
+ * {@link SpdzMultVectorProtocol}.
+ */
+public class SpdzNumeralToBitProtocol extends SpdzNativeProtocol implements
+		NumeralToBitCircuit {
+
+	private SpdzSInt in;
+	private SpdzSBool[] out;
+	private final int bitLength;
+	private final int securityParameter;
+	private SpdzProtocolSuite suite;
+
+	private SpdzEdaBit edaBit;
+	private SpdzElement masked; // my share of [x]+[r]
+	private BigInteger c;
+	// Generate and propagate of the prefixes ending at each position, and
+	// the bits r_i XOR c_i.
+	private SpdzElement[] generate, propagate, xors;
+	private int span;
+	// The multiplications in flight.
+	private SpdzElement[] left, right;
+	private SpdzTriple[] triples;
+	private SpdzElement[] differences;
+
+	/**
+	 * @param in
+	 *            a value in [0, 2^l).
+	 * @param out
+	 *            the l bits of the value, index 0 being the least significant
+	 *            bit.
+	 * @param securityParameter
+	 *            the number of extra bits masking the value. The bit length
+	 *            l plus this plus one must be less than the bit length of
+	 *            the modulus, such that x + r does not wrap around.
+	 */
+	public SpdzNumeralToBitProtocol(SInt in, SBool[] out, int securityParameter,
+			SpdzProtocolSuite suite) {
+		if (out.length == 0) {
+			throw new MPCException("Cannot decompose a value into 0 bits");
+		}
+		if (out.length + securityParameter + 1 >= suite.getModulus().bitLength()) {
+			throw new MPCException("Cannot decompose values of " + out.length
+					+ " bits with security parameter " + securityParameter
+					+ " using a modulus of " + suite.getModulus().bitLength() + " bits");
+		}
+		this.in = (SpdzSInt) in;
+		this.out = new SpdzSBool[out.length];
+		for (int i = 0; i < out.length; i++) {
+			this.out[i] = (SpdzSBool) out[i];
+		}
+		this.bitLength = out.length;
+		this.securityParameter = securityParameter;
+		this.suite = suite;
+	}
+
+	/**
+	 * Gives the number of multiplications done in each round of the
+	 * decomposition of a value of the given bit length. The opening of the
+	 * masked value comes before these.
+	 */
+	public static int[] getMultiplicationsPerRound(int bitLength) {
+		int levels = 0;
+		while ((1 << levels) < bitLength) {
+			levels++;
+		}
+		int[] res = new int[bitLength == 1 ? 0 : levels + 1];
+		for (int level = 0; level < levels; level++) {
+			int s = 1 << level;
+			res[level] = (bitLength - s) + Math.max(0, bitLength - 2 * s);
+		}
+		if (bitLength > 1) {
+			res[levels] = bitLength - 1;
+		}
+		return res;
+	}
+
+	@Override
+	public EvaluationStatus evaluate(int round, ResourcePool resourcePool,
+			SCENetwork network) {
+		SpdzStorage store = suite.getStore(network.getThreadId());
+		ModularArithmetic arithmetic = suite.getField().getArithmetic();
+		int myId = resourcePool.getMyId();
+		SpdzElement one = new SpdzElement(BigInteger.ONE, store.getSSK());
+		if (round == 0) {
+			this.edaBit = store.getSupplier().getNextEdaBit(bitLength, securityParameter);
+			this.masked = in.value.add(edaBit.getR(), arithmetic);
+			network.sendToAll(masked.getShare());
+			network.expectInputFromAll();
+			return EvaluationStatus.HAS_MORE_ROUNDS;
+		}
+		if (round == 1) {
+			BigInteger sum = BigInteger.ZERO;
+			for (BigInteger share : network.<BigInteger> receiveFromAll()) {
+				sum = sum.add(share);
+			}
+			this.c = arithmetic.reduce(sum);
+			store.addOpenedValue(c);
+			store.addClosedValue(masked);
+			SpdzElement[] r = edaBit.getBits();
+			this.generate = new SpdzElement[bitLength];
+			this.propagate = new SpdzElement[bitLength];
+			this.xors = new SpdzElement[bitLength];
+			for (int i = 0; i < bitLength; i++) {
+				SpdzElement notR = not(r[i], one, myId, arithmetic);
+				if (c.testBit(i)) {
+					// 1 - r_i never borrows and propagates if r_i = 1
+					generate[i] = new SpdzElement(BigInteger.ZERO, BigInteger.ZERO);
+					propagate[i] = r[i];
+					xors[i] = notR;
+				} else {
+					// 0 - r_i borrows if r_i = 1 and propagates otherwise
+					generate[i] = r[i];
+					propagate[i] = notR;
+					xors[i] = r[i];
+				}
+			}
+			this.span = 1;
+			edaBit = null;
+			masked = null;
+			return next(store, arithmetic, myId, one, network);
+		}
+		SpdzElement[] products = receiveProducts(store, arithmetic, myId, network);
+		if (span < bitLength) {
+			// Combine the prefix ending at i with the one ending at i - span
+			SpdzElement[] newGenerate = generate.clone();
+			SpdzElement[] newPropagate = propagate.clone();
+			int j = 0;
+			for (int i = span; i < bitLength; i++) {
+				newGenerate[i] = generate[i].add(products[j++], arithmetic);
+				if (i >= 2 * span) {
+					newPropagate[i] = products[j++];
+				}
+			}
+			generate = newGenerate;
+			propagate = newPropagate;
+			span *= 2;
+			return next(store, arithmetic, myId, one, network);
+		}
+		// x_i = xors_i XOR borrow_i, where borrow_i = generate_{i-1}
+		out[0].value = xors[0];
+		for (int i = 1; i < bitLength; i++) {
+			SpdzElement twice = products[i - 1].multiply(BigInteger.valueOf(2), arithmetic);
+			out[i].value = xors[i].add(generate[i - 1], arithmetic).subtract(twice, arithmetic);
+		}
+		// help the garbage collector.
+		in = null;
+		generate = null;
+		propagate = null;
+		xors = null;
+		return EvaluationStatus.IS_DONE;
+	}
+
+	/**
+	 * Starts the multiplications of the next level of the prefix, or of the
+	 * final XORs if the prefixes are complete.
+	 */
+	private EvaluationStatus next(SpdzStorage store, ModularArithmetic arithmetic,
+			int myId, SpdzElement one, SCENetwork network) {
+		int[] sizes = getMultiplicationsPerRound(bitLength);
+		int level = Integer.numberOfTrailingZeros(span);
+		if (level >= sizes.length) {
+			// A single bit is c_0 XOR r_0.
+			out[0].value = xors[0];
+			in = null;
+			return EvaluationStatus.IS_DONE;
+		}
+		int n = sizes[level];
+		left = new SpdzElement[n];
+		right = new SpdzElement[n];
+		int j = 0;
+		if (span < bitLength) {
+			for (int i = span; i < bitLength; i++) {
+				left[j] = propagate[i];
+				right[j++] = generate[i - span];
+				if (i >= 2 * span) {
+					left[j] = propagate[i];
+					right[j++] = propagate[i - span];
+				}
+			}
+		} else {
+			for (int i = 1; i < bitLength; i++) {
+				left[j] = xors[i];
+				right[j++] = generate[i - 1];
+			}
+		}
+		sendProducts(store, arithmetic, network);
+		return EvaluationStatus.HAS_MORE_ROUNDS;
+	}
+
+	private void sendProducts(SpdzStorage store, ModularArithmetic arithmetic,
+			SCENetwork network) {
+		int n = left.length;
+		triples = new SpdzTriple[n];
+		differences = new SpdzElement[2 * n];
+		BigInteger[] shares = new BigInteger[2 * n];
+		for (int i = 0; i < n; i++) {
+			triples[i] = store.getSupplier().getNextTriple();
+			differences[2 * i] = left[i].subtract(triples[i].getA(), arithmetic);
+			differences[2 * i + 1] = right[i].subtract(triples[i].getB(), arithmetic);
+			shares[2 * i] = differences[2 * i].getShare();
+			shares[2 * i + 1] = differences[2 * i + 1].getShare();
+		}
+		network.sendToAll(shares);
+		network.expectInputFromAll();
+	}
+
+	private SpdzElement[] receiveProducts(SpdzStorage store, ModularArithmetic arithmetic,
+			int myId, SCENetwork network) {
+		int n = triples.length;
+		BigInteger[] opened = new BigInteger[2 * n];
+		for (int j = 0; j < opened.length; j++) {
+			opened[j] = BigInteger.ZERO;
+		}
+		for (BigInteger[] received : network.<BigInteger[]> receiveFromAll()) {
+			if (received.length != opened.length) {
+				throw new MPCException("Expected " + opened.length + " shares but got "
+						+ received.length);
+			}
+			for (int j = 0; j < opened.length; j++) {
+				opened[j] = opened[j].add(received[j]);
+			}
+		}
+		SpdzElement[] products = new SpdzElement[n];
+		for (int i = 0; i < n; i++) {
+			opened[2 * i] = arithmetic.reduce(opened[2 * i]);
+			opened[2 * i + 1] = arithmetic.reduce(opened[2 * i + 1]);
+			products[i] = SpdzMultProtocol.combine(suite.getField(), triples[i],
+					opened[2 * i], opened[2 * i + 1], store.getSSK(), myId);
+		}
+		store.addOpenedValues(opened);
+		store.addClosedValues(differences);
+		left = null;
+		right = null;
+		triples = null;
+		differences = null;
+		return products;
+	}
+
+	private static SpdzElement not(SpdzElement b, SpdzElement one, int myId,
+			ModularArithmetic arithmetic) {
+		return new SpdzElement(BigInteger.ZERO, BigInteger.ZERO).subtract(b, arithmetic)
+				.add(one, myId, arithmetic);
+	}
+
+	@Override
+	public Value[] getInputValues() {
+		return new Value[] { in };
+	}
+
+	@Override
+	public Value[] getOutputValues() {
+		return out;
+	}
+}
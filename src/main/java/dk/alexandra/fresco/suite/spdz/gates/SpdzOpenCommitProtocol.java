@@ -27,6 +27,7 @@
 package dk.alexandra.fresco.suite.spdz.gates;
 
 import java.math.BigInteger;
+import java.security.MessageDigest;
 import java.util.Arrays;
 import java.util.Map;
 
@@ -35,7 +36,6 @@ import dk.alexandra.fresco.framework.network.SCENetwork;
 import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
 import dk.alexandra.fresco.framework.value.Value;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzCommitment;
-import dk.alexandra.fresco.suite.spdz.evaluation.strategy.SpdzProtocolSuite;
 
 public class SpdzOpenCommitProtocol extends SpdzNativeProtocol {
 
@@ -45,12 +45,31 @@ public class SpdzOpenCommitProtocol extends SpdzNativeProtocol {
 	private boolean openingValidated;
 	private boolean done = false;
 	private byte[] digest;
+	private MessageDigest H;
+	private BigInteger modulus;
 
+	/**
+	 * @param commitment
+	 *            the commitment to open
+	 * @param commitments
+	 *            the commitments of all parties
+	 * @param ss
+	 *            receives the opened values of all parties
+	 * @param H
+	 *            the digest used to check the openings and validate the
+	 *            broadcast, which must not be used by other threads while
+	 *            the protocol runs
+	 * @param modulus
+	 *            the modulus of the commitments
+	 */
 	public SpdzOpenCommitProtocol(SpdzCommitment commitment,
-			Map<Integer, BigInteger> commitments, Map<Integer, BigInteger> ss) {
+			Map<Integer, BigInteger> commitments, Map<Integer, BigInteger> ss,
+			MessageDigest H, BigInteger modulus) {
 		this.commitment = commitment;
 		this.commitments = commitments;
 		this.ss = ss;
+		this.H = H;
+		this.modulus = modulus;
 	}
 
 	@Override
@@ -68,8 +87,6 @@ public class SpdzOpenCommitProtocol extends SpdzNativeProtocol {
 	@Override
 	public EvaluationStatus evaluate(int round, ResourcePool resourcePool,
 			SCENetwork network) {
-		SpdzProtocolSuite spdzPii = SpdzProtocolSuite
-				.getInstance(resourcePool.getMyId());
 		int players = resourcePool.getNoOfParties();
 		switch (round) {
 		case 0: // Send your opening to all players
@@ -86,9 +103,8 @@ public class SpdzOpenCommitProtocol extends SpdzNativeProtocol {
 			for (int i : openings.keySet()) {
 				BigInteger[] open = openings.get(i);
 				BigInteger com = commitments.get(i);
-				boolean validate = SpdzCommitment.checkCommitment(
-						spdzPii.getMessageDigest(network.getThreadId()), com,
-						open[0], open[1]);
+				boolean validate = SpdzCommitment.checkCommitment(H, com,
+						open[0], open[1], modulus);
 				openingValidated = openingValidated && validate;
 				ss.put(i, open[0]);
 				broadcastMessages[(i - 1) * 2] = open[0];
@@ -100,9 +116,8 @@ public class SpdzOpenCommitProtocol extends SpdzNativeProtocol {
 				}
 				done = true;
 			} else {
-				digest = sendBroadcastValidation(
-						spdzPii.getMessageDigest(network.getThreadId()),
-						network, Arrays.asList(broadcastMessages), players);
+				digest = sendBroadcastValidation(H, network,
+						Arrays.asList(broadcastMessages), players);
 				network.expectInputFromAll();
 			}
 			break;
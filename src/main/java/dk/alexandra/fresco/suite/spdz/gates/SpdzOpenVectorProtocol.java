@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.gates;
+
+import java.math.BigInteger;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.network.SCENetwork;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.value.OInt;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.framework.value.Value;
+import dk.alexandra.fresco.lib.field.integer.OpenVectorProtocol;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.evaluation.strategy.SpdzProtocolSuite;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzStorage;
+import dk.alexandra.fresco.suite.spdz.utils.SpdzField;
+
+/**
+ * Opens a vector of secret shared values towards all parties. This is the
+ * same as a {@link SpdzOutputToAllProtocol} per element, but the shares are
+ * sent to each party in a single array.
+ */
+public class SpdzOpenVectorProtocol extends SpdzNativeProtocol implements OpenVectorProtocol {
+
+	private SInt[] in;
+	private OInt[] out;
+	private SpdzProtocolSuite suite;
+
+	public SpdzOpenVectorProtocol(SInt[] in, OInt[] out, SpdzProtocolSuite suite) {
+		if (in.length != out.length) {
+			throw new IllegalArgumentException("Cannot open " + in.length + " values into "
+					+ out.length + " values");
+		}
+		this.in = in;
+		this.out = out;
+		this.suite = suite;
+	}
+
+	@Override
+	public EvaluationStatus evaluate(int round, ResourcePool resourcePool,
+			SCENetwork network) {
+		switch (round) {
+		case 0:
+			// Check every value the output may depend on before revealing it.
+			suite.checkBeforeOutput();
+			BigInteger[] shares = new BigInteger[in.length];
+			for (int i = 0; i < in.length; i++) {
+				shares[i] = ((SpdzSInt) in[i]).value.getShare();
+			}
+			network.sendToAll(shares);
+			network.expectInputFromAll();
+			return EvaluationStatus.HAS_MORE_ROUNDS;
+		case 1:
+			BigInteger[] opened = new BigInteger[in.length];
+			for (int i = 0; i < opened.length; i++) {
+				opened[i] = BigInteger.ZERO;
+			}
+			for (int p = 1; p <= resourcePool.getNoOfParties(); p++) {
+				BigInteger[] received = network.receive(p);
+				if (received.length != opened.length) {
+					throw new MPCException("Expected " + opened.length
+							+ " shares from party " + p + " but got " + received.length);
+				}
+				for (int i = 0; i < opened.length; i++) {
+					opened[i] = opened[i].add(received[i]);
+				}
+			}
+			SpdzField field = suite.getField();
+			SpdzElement[] closed = new SpdzElement[in.length];
+			for (int i = 0; i < opened.length; i++) {
+				opened[i] = field.getArithmetic().reduce(opened[i]);
+				closed[i] = ((SpdzSInt) in[i]).value;
+				out[i].setValue(field.convertRepresentation(opened[i]));
+			}
+			SpdzStorage storage = suite.getStore(network.getThreadId());
+			storage.addOpenedValues(opened);
+			storage.addClosedValues(closed);
+			return EvaluationStatus.IS_DONE;
+		default:
+			throw new MPCException("No more rounds to evaluate.");
+		}
+	}
+
+	@Override
+	public Value[] getInputValues() {
+		return in;
+	}
+
+	@Override
+	public Value[] getOutputValues() {
+		return out;
+	}
+}
@@ -42,7 +42,6 @@ import dk.alexandra.fresco.suite.spdz.datatypes.SpdzOInt;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
 import dk.alexandra.fresco.suite.spdz.evaluation.strategy.SpdzProtocolSuite;
 import dk.alexandra.fresco.suite.spdz.storage.SpdzStorage;
-import dk.alexandra.fresco.suite.spdz.utils.Util;
 
 public class SpdzOutputProtocol extends SpdzNativeProtocol implements OpenIntProtocol {
 
@@ -50,11 +49,13 @@ public class SpdzOutputProtocol extends SpdzNativeProtocol implements OpenIntPro
 	private SpdzOInt out;
 	private int target_player;
 	private SpdzInputMask mask;
+	private SpdzProtocolSuite suite;
 
-	public SpdzOutputProtocol(SInt in, OInt out, int target_player) {
+	public SpdzOutputProtocol(SInt in, OInt out, int target_player, SpdzProtocolSuite suite) {
 		this.in = (SpdzSInt) in;
 		this.out = (SpdzOInt) out;
 		this.target_player = target_player;
+		this.suite = suite;
 	}
 
 	public int getTarget() {
@@ -74,15 +75,15 @@ public class SpdzOutputProtocol extends SpdzNativeProtocol implements OpenIntPro
 	@Override
 	public EvaluationStatus evaluate(int round, ResourcePool resourcePool,
 			SCENetwork network) {
-		SpdzProtocolSuite spdzpii = SpdzProtocolSuite
-				.getInstance(resourcePool.getMyId());
 		int myId = resourcePool.getMyId();		
-		SpdzStorage storage = spdzpii.getStore(network.getThreadId());		
+		SpdzStorage storage = suite.getStore(network.getThreadId());		
 		
 		switch (round) {
 		case 0: 
+			// Check every value the output may depend on before revealing it.
+			suite.checkBeforeOutput();
 			this.mask = storage.getSupplier().getNextInputMask(target_player);
-			SpdzElement inMinusMask = this.in.value.subtract(this.mask.getMask());
+			SpdzElement inMinusMask = this.in.value.subtract(this.mask.getMask(), suite.getField().getArithmetic());
 			storage.addClosedValue(inMinusMask);
 			network.sendToAll(inMinusMask.getShare());
 			network.expectInputFromAll();
@@ -93,12 +94,12 @@ public class SpdzOutputProtocol extends SpdzNativeProtocol implements OpenIntPro
 			for (BigInteger share : shares) {
 				openedVal = openedVal.add(share);
 			}
-			openedVal = openedVal.mod(Util.getModulus());
+			openedVal = openedVal.mod(suite.getModulus());
 			storage.addOpenedValue(openedVal);
 			if(target_player == myId) {
 				openedVal = openedVal.add(this.mask.getRealValue());
 				BigInteger tmpOut = openedVal;
-				tmpOut = Util.convertRepresentation(tmpOut);
+				tmpOut = suite.getField().convertRepresentation(tmpOut);
 				out.setValue(tmpOut);
 			}
 			return EvaluationStatus.IS_DONE;
@@ -40,27 +40,28 @@ import dk.alexandra.fresco.suite.spdz.datatypes.SpdzOInt;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
 import dk.alexandra.fresco.suite.spdz.evaluation.strategy.SpdzProtocolSuite;
 import dk.alexandra.fresco.suite.spdz.storage.SpdzStorage;
-import dk.alexandra.fresco.suite.spdz.utils.Util;
 
 public class SpdzOutputToAllProtocol extends SpdzNativeProtocol implements
 		OpenIntProtocol {
 
 	private SpdzSInt in;
 	private SpdzOInt out;
+	private SpdzProtocolSuite suite;
 
-	public SpdzOutputToAllProtocol(SInt in, OInt out) {
+	public SpdzOutputToAllProtocol(SInt in, OInt out, SpdzProtocolSuite suite) {
 		this.in = (SpdzSInt) in;
 		this.out = (SpdzOInt) out;
+		this.suite = suite;
 	}
 
 	@Override
 	public EvaluationStatus evaluate(int round, ResourcePool resourcePool,
 			SCENetwork network) {
-		SpdzProtocolSuite spdzpii = SpdzProtocolSuite
-				.getInstance(resourcePool.getMyId());
-		SpdzStorage storage = spdzpii.getStore(network.getThreadId());
+		SpdzStorage storage = suite.getStore(network.getThreadId());
 		switch (round) {
 		case 0:
+			// Check every value the output may depend on before revealing it.
+			suite.checkBeforeOutput();
 			network.sendToAll(in.value.getShare());
 			network.expectInputFromAll();
 			return EvaluationStatus.HAS_MORE_ROUNDS;
@@ -70,11 +71,11 @@ public class SpdzOutputToAllProtocol extends SpdzNativeProtocol implements
 			for (BigInteger share : shares) {
 				openedVal = openedVal.add(share);
 			}
-			openedVal = openedVal.mod(Util.getModulus());
+			openedVal = openedVal.mod(suite.getModulus());
 			storage.addOpenedValue(openedVal);
 			storage.addClosedValue(in.value);
 			BigInteger tmpOut = openedVal;
-			tmpOut = Util.convertRepresentation(tmpOut);
+			tmpOut = suite.getField().convertRepresentation(tmpOut);
 			out.setValue(tmpOut);
 			return EvaluationStatus.IS_DONE;
 		default:
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.gates;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.network.SCENetwork;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.framework.value.Value;
+import dk.alexandra.fresco.lib.field.integer.MultProtocol;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSquare;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+import dk.alexandra.fresco.suite.spdz.evaluation.strategy.SpdzProtocolSuite;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzStorage;
+
+/**
+ * Squares a secret shared value using a square pair (a, b = a^2). Only the
+ * difference e = x - a is opened, after which x^2 = b + 2*e*a + e^2. This
+ * halves the values sent and MAC checked compared to a
+ * {@link SpdzMultProtocol} of x by itself.
+ */
+public class SpdzSquareProtocol extends SpdzNativeProtocol implements MultProtocol {
+
+	private SpdzSInt in, out;
+	private SpdzSquare square;
+	private SpdzElement epsilon; // my share of [x]-[a]
+	private SpdzProtocolSuite suite;
+
+	public SpdzSquareProtocol(SInt in, SInt out, SpdzProtocolSuite suite) {
+		this.in = (SpdzSInt) in;
+		this.out = (SpdzSInt) out;
+		this.suite = suite;
+	}
+
+	@Override
+	public EvaluationStatus evaluate(int round, ResourcePool resourcePool,
+			SCENetwork network) {
+		SpdzStorage store = suite.getStore(network.getThreadId());
+		switch (round) {
+		case 0:
+			this.square = store.getSupplier().getNextSquare();
+			this.epsilon = in.value.subtract(square.getA(), suite.getField().getArithmetic());
+			network.sendToAll(epsilon.getShare());
+			network.expectInputFromAll();
+			return EvaluationStatus.HAS_MORE_ROUNDS;
+		case 1:
+			List<BigInteger> shares = network.receiveFromAll();
+			BigInteger e = BigInteger.ZERO;
+			for (BigInteger share : shares) {
+				e = e.add(share);
+			}
+			e = suite.getField().getArithmetic().reduce(e);
+			// (a, a, b) is a triple, and with d = e the product is x^2.
+			SpdzTriple triple = new SpdzTriple(square.getA(), square.getA(), square.getB());
+			out.value = SpdzMultProtocol.combine(suite.getField(), triple, e, e,
+					store.getSSK(), resourcePool.getMyId());
+			store.addOpenedValue(e);
+			store.addClosedValue(epsilon);
+			// help the garbage collector.
+			in = null;
+			square = null;
+			epsilon = null;
+			return EvaluationStatus.IS_DONE;
+		default:
+			throw new MPCException("Cannot evaluate rounds larger than 1");
+		}
+	}
+
+	@Override
+	public Value[] getInputValues() {
+		return new Value[] { in };
+	}
+
+	@Override
+	public Value[] getOutputValues() {
+		return new Value[] { out };
+	}
+}
@@ -26,6 +26,7 @@
  *******************************************************************************/
 package dk.alexandra.fresco.suite.spdz.gates;
 
+import dk.alexandra.fresco.framework.math.ModularArithmetic;
 import dk.alexandra.fresco.framework.network.SCENetwork;
 import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
 import dk.alexandra.fresco.framework.value.OInt;
@@ -90,12 +91,13 @@ public class SpdzSubtractProtocol extends SpdzNativeProtocol implements Subtract
 	@Override
 	public EvaluationStatus evaluate(int round, ResourcePool resourcePool,
 			SCENetwork network) {
+		ModularArithmetic arithmetic = provider.getProtocolSuite().getField().getArithmetic();
 		if (openLeft != null) {
 			SpdzSInt converted = (SpdzSInt) provider.getSInt(openLeft
 					.getValue());
-			out.value = converted.value.subtract(right.value);
+			out.value = converted.value.subtract(right.value, arithmetic);
 		} else {
-			SpdzElement elm = left.value.subtract(right.value);
+			SpdzElement elm = left.value.subtract(right.value, arithmetic);
 			out.value = elm;
 		}
 		return EvaluationStatus.IS_DONE;
@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.mascot;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.util.FieldPrg;
+
+/**
+ * Random 1-out-of-2 oblivious transfers based on the "simplest OT" protocol
+ * of Chou and Orlandi, run in the 2048 bit MODP group of RFC 3526. It is only
+ * used to get the {@link OTExtensionReceiver#KAPPA} base OTs needed by the OT
+ * extension, so speed is not a concern.
+ * 
+ * The sender sends A = g^a. For every OT the receiver with choice c sends B =
+ * g^b if c = 0 and B = A*g^b otherwise. The sender gets the keys H(B^a) and
+ * H((B/A)^a), and the receiver gets H(A^b), which equals the key of its
+ * choice.
+ */
+public class BaseOT {
+
+	/**
+	 * The 2048 bit safe prime of RFC 3526, group 14.
+	 */
+	public static final BigInteger P = new BigInteger(
+			"FFFFFFFFFFFFFFFFC90FDAA22168C234C4C6628B80DC1CD1"
+			+ "29024E088A67CC74020BBEA63B139B22514A08798E3404DD"
+			+ "EF9519B3CD3A431B302B0A6DF25F14374FE1356D6D51C245"
+			+ "E485B576625E7EC6F44C42E9A637ED6B0BFF5CB6F406B7ED"
+			+ "EE386BFB5A899FA5AE9F24117C4B1FE649286651ECE45B3D"
+			+ "C2007CB8A163BF0598DA48361C55D39A69163FA8FD24CF5F"
+			+ "83655D23DCA3AD961C62F356208552BB9ED529077096966D"
+			+ "670C354E4ABC9804F1746C08CA18217C32905E462E36CE3B"
+			+ "E39E772C180E86039B2783A2EC07A28FB5C55DF06F4C52C9"
+			+ "DE2BCBF6955817183995497CEA956AE515D2261898FA0510"
+			+ "15728E5A8AACAA68FFFFFFFFFFFFFFFF", 16);
+
+	/**
+	 * The generator of the subgroup of quadratic residues.
+	 */
+	public static final BigInteger G = BigInteger.valueOf(2);
+
+	/**
+	 * The bit length of the secret exponents.
+	 */
+	private static final int EXPONENT_BITS = 256;
+
+	/**
+	 * The sender side of a batch of base OTs.
+	 */
+	public static class Sender {
+
+		private final BigInteger a;
+		private final BigInteger bigA;
+
+		public Sender(SecureRandom rand) {
+			this.a = new BigInteger(EXPONENT_BITS, rand);
+			this.bigA = G.modPow(a, P);
+		}
+
+		/**
+		 * @return the message to send to the receiver.
+		 */
+		public BigInteger getMessage() {
+			return bigA;
+		}
+
+		/**
+		 * @param receiverMessage
+		 *            the message of the receiver.
+		 * @return the two keys of every OT.
+		 */
+		public byte[][][] getKeys(BigInteger[] receiverMessage) {
+			BigInteger aInv = bigA.modPow(a, P).modInverse(P);
+			byte[][][] keys = new byte[receiverMessage.length][2][];
+			for (int i = 0; i < receiverMessage.length; i++) {
+				BigInteger b = checkGroupElement(receiverMessage[i]);
+				BigInteger k0 = b.modPow(a, P);
+				BigInteger k1 = k0.multiply(aInv).mod(P);
+				keys[i][0] = hash(i, bigA, b, k0);
+				keys[i][1] = hash(i, bigA, b, k1);
+			}
+			return keys;
+		}
+	}
+
+	/**
+	 * The receiver side of a batch of base OTs.
+	 */
+	public static class Receiver {
+
+		private final boolean[] choices;
+		private final BigInteger[] b;
+		private BigInteger bigA;
+		private BigInteger[] message;
+
+		public Receiver(SecureRandom rand, boolean[] choices) {
+			this.choices = Arrays.copyOf(choices, choices.length);
+			this.b = new BigInteger[choices.length];
+			for (int i = 0; i < choices.length; i++) {
+				b[i] = new BigInteger(EXPONENT_BITS, rand);
+			}
+		}
+
+		/**
+		 * @param senderMessage
+		 *            the message of the sender.
+		 * @return the message to send to the sender.
+		 */
+		public BigInteger[] getMessage(BigInteger senderMessage) {
+			this.bigA = checkGroupElement(senderMessage);
+			this.message = new BigInteger[choices.length];
+			for (int i = 0; i < choices.length; i++) {
+				BigInteger gb = G.modPow(b[i], P);
+				message[i] = choices[i] ? gb.multiply(bigA).mod(P) : gb;
+			}
+			return message;
+		}
+
+		/**
+		 * @return the key of the choice of every OT.
+		 */
+		public byte[][] getKeys() {
+			byte[][] keys = new byte[choices.length][];
+			for (int i = 0; i < choices.length; i++) {
+				keys[i] = hash(i, bigA, message[i], bigA.modPow(b[i], P));
+			}
+			return keys;
+		}
+	}
+
+	private static BigInteger checkGroupElement(BigInteger x) {
+		if (x == null || x.compareTo(BigInteger.ONE) <= 0
+				|| x.compareTo(P.subtract(BigInteger.ONE)) >= 0) {
+			throw new MPCException("Received an invalid group element in base OT");
+		}
+		return x;
+	}
+
+	private static byte[] hash(int index, BigInteger bigA, BigInteger b, BigInteger k) {
+		try {
+			MessageDigest md = MessageDigest.getInstance("SHA-256");
+			md.update(ByteBuffer.allocate(4).putInt(index).array());
+			md.update(bigA.toByteArray());
+			md.update(b.toByteArray());
+			md.update(k.toByteArray());
+			return Arrays.copyOf(md.digest(), FieldPrg.SEED_SIZE);
+		} catch (NoSuchAlgorithmException e) {
+			throw new MPCException("SHA-256 is not available", e);
+		}
+	}
+}
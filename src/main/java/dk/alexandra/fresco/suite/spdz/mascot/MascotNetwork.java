@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.mascot;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.util.FieldPrg;
+
+/**
+ * The communication of one MASCOT generator, which uses a single channel of a
+ * FRESCO {@link Network}.
+ * 
+ * All communication is done as pairwise exchanges, where the party with the
+ * lowest id sends first, and each party handles the other parties in
+ * ascending order. Since the messages can be large, this avoids the deadlock
+ * of two parties blocking on sending to each other over TCP.
+ */
+public class MascotNetwork {
+
+	private final Network network;
+	private final String channel;
+	private final int myId;
+	private final int noOfParties;
+
+	/**
+	 * @param network
+	 *            a connected network.
+	 * @param channel
+	 *            the channel used by this generator only.
+	 * @param myId
+	 *            the id of this party.
+	 * @param noOfParties
+	 *            the number of parties.
+	 */
+	public MascotNetwork(Network network, String channel, int myId, int noOfParties) {
+		this.network = network;
+		this.channel = channel;
+		this.myId = myId;
+		this.noOfParties = noOfParties;
+	}
+
+	public int getMyId() {
+		return myId;
+	}
+
+	public int getNoOfParties() {
+		return noOfParties;
+	}
+
+	/**
+	 * Sends a message to every other party and receives one from each of
+	 * them.
+	 * 
+	 * @param outgoing
+	 *            the message for each other party. A party may be left out, in
+	 *            which case null is sent.
+	 * @return the message received from each other party.
+	 */
+	public <T extends Serializable> Map<Integer, T> exchange(
+			Map<Integer, ? extends Serializable> outgoing) {
+		Map<Integer, T> incoming = new HashMap<Integer, T>();
+		try {
+			for (int other = 1; other <= noOfParties; other++) {
+				if (other == myId) {
+					continue;
+				}
+				Serializable out = outgoing.get(other);
+				T in;
+				if (myId < other) {
+					network.send(channel, other, out);
+					in = network.<T> receive(channel, other);
+				} else {
+					in = network.<T> receive(channel, other);
+					network.send(channel, other, out);
+				}
+				incoming.put(other, in);
+			}
+		} catch (IOException e) {
+			throw new MPCException("Could not communicate on channel " + channel, e);
+		}
+		return incoming;
+	}
+
+	/**
+	 * Sends the same message to every other party and receives one from each
+	 * of them.
+	 */
+	public <T extends Serializable> Map<Integer, T> broadcast(Serializable message) {
+		Map<Integer, Serializable> outgoing = new HashMap<Integer, Serializable>();
+		for (int other = 1; other <= noOfParties; other++) {
+			if (other != myId) {
+				outgoing.put(other, message);
+			}
+		}
+		return exchange(outgoing);
+	}
+
+	/**
+	 * Commits to a value, opens it and checks the openings of the other
+	 * parties.
+	 * 
+	 * @return the values of all parties, indexed by party id - 1.
+	 * @throws MPCException
+	 *             if a party opened to another value than it committed to.
+	 */
+	public byte[][] commitAndOpen(byte[] value, SecureRandom rand) {
+		byte[] opening = new byte[value.length + FieldPrg.SEED_SIZE];
+		System.arraycopy(value, 0, opening, 0, value.length);
+		byte[] nonce = new byte[FieldPrg.SEED_SIZE];
+		rand.nextBytes(nonce);
+		System.arraycopy(nonce, 0, opening, value.length, nonce.length);
+		Map<Integer, byte[]> commitments = broadcast(hash(opening));
+		Map<Integer, byte[]> openings = broadcast(opening);
+		byte[][] values = new byte[noOfParties][];
+		values[myId - 1] = value;
+		for (Map.Entry<Integer, byte[]> e : openings.entrySet()) {
+			byte[] o = e.getValue();
+			if (o == null || o.length != opening.length
+					|| !Arrays.equals(hash(o), commitments.get(e.getKey()))) {
+				throw new MPCException("Party " + e.getKey() + " did not open its commitment");
+			}
+			values[e.getKey() - 1] = Arrays.copyOf(o, value.length);
+		}
+		return values;
+	}
+
+	/**
+	 * Tosses public random coins.
+	 * 
+	 * @return a generator of the coins, identical for all parties.
+	 */
+	public FieldPrg tossCoins(SecureRandom rand, BigInteger modulus) {
+		byte[] seed = new byte[FieldPrg.SEED_SIZE];
+		rand.nextBytes(seed);
+		byte[] res = new byte[FieldPrg.SEED_SIZE];
+		for (byte[] s : commitAndOpen(seed, rand)) {
+			for (int i = 0; i < res.length; i++) {
+				res[i] ^= s[i];
+			}
+		}
+		return new FieldPrg(res, modulus);
+	}
+
+	/**
+	 * Encodes field elements as a byte array with a fixed size per element.
+	 */
+	public static byte[] encode(BigInteger[] elements, int elementSize) {
+		byte[] res = new byte[elements.length * elementSize];
+		for (int i = 0; i < elements.length; i++) {
+			byte[] b = elements[i].toByteArray();
+			int length = Math.min(b.length, elementSize);
+			System.arraycopy(b, b.length - length, res, (i + 1) * elementSize - length, length);
+		}
+		return res;
+	}
+
+	/**
+	 * Decodes field elements encoded by {@link #encode(BigInteger[], int)}.
+	 * 
+	 * @throws MPCException
+	 *             if the data does not hold the expected number of elements.
+	 */
+	public static BigInteger[] decode(byte[] data, int amount, int elementSize) {
+		if (data == null || data.length != amount * elementSize) {
+			throw new MPCException("Expected " + amount + " field elements");
+		}
+		BigInteger[] res = new BigInteger[amount];
+		byte[] element = new byte[elementSize];
+		for (int i = 0; i < amount; i++) {
+			System.arraycopy(data, i * elementSize, element, 0, elementSize);
+			res[i] = new BigInteger(1, element);
+		}
+		return res;
+	}
+
+	private static byte[] hash(byte[] data) {
+		MessageDigest md = OTExtension.sha256();
+		return md.digest(data);
+	}
+}
@@ -0,0 +1,240 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.mascot;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.Reporter;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.sce.resources.storage.StreamedStorage;
+import dk.alexandra.fresco.framework.sce.resources.threads.ProtocolThreadPool;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSquare;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzStorageConstants;
+
+/**
+ * Generates SPDZ preprocessed data for all VM threads of a party with the
+ * MASCOT protocol (see {@link MascotTripleGenerator}) and puts it into a
+ * {@link StreamedStorage}, in the streams read by the DataSupplierImpl of
+ * each thread.
+ * 
+ * Every VM thread gets its own generator, running as a task on the given
+ * thread pool and communicating on its own channel of the network. Thread t
+ * (counting from 1) uses channel t - 1, so the network must have at least as
+ * many channels as there are threads. All parties must call
+ * {@link #generate(StreamedStorage, int, int, int)} with the same amounts.
+ */
+public class MascotPreprocessing {
+
+	/**
+	 * The default number of elements generated per round of communication.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 16;
+
+	private final int myId;
+	private final int noOfParties;
+	private final int noOfThreads;
+	private final Network network;
+	private final ProtocolThreadPool threadPool;
+	private final BigInteger modulus;
+	private final BigInteger alphaShare;
+	private final MascotTripleGenerator[] generators;
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
+	/**
+	 * @param myId
+	 *            the id of this party.
+	 * @param noOfParties
+	 *            the number of parties.
+	 * @param noOfThreads
+	 *            the number of VM threads to generate data for.
+	 * @param network
+	 *            a connected network with at least noOfThreads channels.
+	 * @param threadPool
+	 *            a thread pool with at least noOfThreads threads.
+	 * @param modulus
+	 *            the prime modulus of the field.
+	 */
+	public MascotPreprocessing(int myId, int noOfParties, int noOfThreads, Network network,
+			ProtocolThreadPool threadPool, BigInteger modulus) {
+		if (threadPool.getThreadCount() < noOfThreads) {
+			throw new MPCException("MASCOT preprocessing for " + noOfThreads
+					+ " threads needs as many protocol threads, but only "
+					+ threadPool.getThreadCount() + " are available");
+		}
+		this.myId = myId;
+		this.noOfParties = noOfParties;
+		this.noOfThreads = noOfThreads;
+		this.network = network;
+		this.threadPool = threadPool;
+		this.modulus = modulus;
+		this.alphaShare = new BigInteger(modulus.bitLength() + 64, new SecureRandom()).mod(modulus);
+		this.generators = new MascotTripleGenerator[noOfThreads];
+	}
+
+	/**
+	 * @return the share of the MAC key of this party.
+	 */
+	public BigInteger getAlphaShare() {
+		return alphaShare;
+	}
+
+	/**
+	 * Sets the number of elements generated per round of communication. A
+	 * larger batch means fewer rounds but more memory.
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Generates the given amounts of preprocessed data for every thread. Can
+	 * be called repeatedly; the base OTs are only done by the first call.
+	 * 
+	 * @param storage
+	 *            the storage to put the data into.
+	 * @param noOfTriples
+	 *            the number of triples per thread.
+	 * @param noOfBits
+	 *            the number of bits per thread.
+	 * @param noOfInputMasks
+	 *            the number of input masks toward each party per thread.
+	 * @throws MPCException
+	 *             if a party cheated or the communication failed.
+	 */
+	public void generate(final StreamedStorage storage, final int noOfTriples,
+			final int noOfBits, final int noOfInputMasks) {
+		generate(storage, noOfTriples, noOfBits, noOfInputMasks, 0);
+	}
+
+	/**
+	 * As {@link #generate(StreamedStorage, int, int, int)}, but also
+	 * generates square pairs.
+	 * 
+	 * @param noOfSquares
+	 *            the number of square pairs per thread.
+	 */
+	public void generate(final StreamedStorage storage, final int noOfTriples,
+			final int noOfBits, final int noOfInputMasks, final int noOfSquares) {
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(noOfThreads);
+		for (int t = 1; t <= noOfThreads; t++) {
+			final int threadId = t;
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					generate(threadId, storage, noOfTriples, noOfBits, noOfInputMasks,
+							noOfSquares);
+					return null;
+				}
+			});
+		}
+		try {
+			for (Future<Void> f : threadPool.submitTasks(tasks)) {
+				f.get();
+			}
+		} catch (InterruptedException e) {
+			throw new MPCException("Interrupted while generating preprocessed data", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof MPCException) {
+				throw (MPCException) e.getCause();
+			}
+			throw new MPCException("Could not generate preprocessed data", e);
+		}
+	}
+
+	private void generate(int threadId, StreamedStorage storage, int noOfTriples,
+			int noOfBits, int noOfInputMasks, int noOfSquares) {
+		String storageName = SpdzStorageConstants.STORAGE_NAME_PREFIX + myId + "_" + threadId;
+		MascotTripleGenerator generator = generators[threadId - 1];
+		if (generator == null) {
+			long then = System.currentTimeMillis();
+			MascotNetwork mascotNetwork = new MascotNetwork(network, "" + (threadId - 1),
+					myId, noOfParties);
+			generator = new MascotTripleGenerator(mascotNetwork, modulus, alphaShare,
+					new SecureRandom());
+			generator.initialize();
+			generators[threadId - 1] = generator;
+			synchronized (storage) {
+				storage.putNext(storageName + SpdzStorageConstants.MODULUS_KEY, modulus);
+				storage.putNext(storageName + SpdzStorageConstants.SSK_KEY, alphaShare);
+			}
+			Reporter.fine("MASCOT setup of thread " + threadId + " took "
+					+ (System.currentTimeMillis() - then) + " ms");
+		}
+
+		long then = System.currentTimeMillis();
+		for (int done = 0; done < noOfTriples; done += batchSize) {
+			List<SpdzTriple> triples = generator.generateTriples(Math.min(batchSize, noOfTriples - done));
+			synchronized (storage) {
+				for (SpdzTriple triple : triples) {
+					storage.putNext(storageName + SpdzStorageConstants.TRIPLE_STORAGE, triple);
+				}
+			}
+		}
+		for (int done = 0; done < noOfBits; done += batchSize) {
+			List<SpdzSInt> bits = generator.generateBits(Math.min(batchSize, noOfBits - done));
+			synchronized (storage) {
+				for (SpdzSInt bit : bits) {
+					storage.putNext(storageName + SpdzStorageConstants.BIT_STORAGE, bit);
+				}
+			}
+		}
+		for (int done = 0; done < noOfSquares; done += batchSize) {
+			List<SpdzSquare> squares = generator.generateSquares(Math.min(batchSize, noOfSquares - done));
+			synchronized (storage) {
+				for (SpdzSquare square : squares) {
+					storage.putNext(storageName + SpdzStorageConstants.SQUARE_STORAGE, square);
+				}
+			}
+		}
+		for (int towardPlayer = 1; towardPlayer <= noOfParties; towardPlayer++) {
+			for (int done = 0; done < noOfInputMasks; done += batchSize) {
+				List<SpdzInputMask> masks = generator.generateInputMasks(towardPlayer,
+						Math.min(batchSize, noOfInputMasks - done));
+				synchronized (storage) {
+					for (SpdzInputMask mask : masks) {
+						storage.putNext(storageName + SpdzStorageConstants.INPUT_STORAGE
+								+ towardPlayer, mask);
+					}
+				}
+			}
+		}
+		Reporter.fine("MASCOT thread " + threadId + " generated " + noOfTriples + " triples, "
+				+ noOfBits + " bits, " + noOfSquares + " squares and " + noOfInputMasks
+				+ " input masks per party in "
+				+ (System.currentTimeMillis() - then) + " ms");
+	}
+}
@@ -0,0 +1,661 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.mascot;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.util.FieldPrg;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSquare;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+
+/**
+ * Generates SPDZ preprocessed data with the MASCOT protocol of Keller, Orsini
+ * and Scholl (CCS 2016), which is actively secure against a dishonest
+ * majority and only relies on oblivious transfer.
+ * 
+ * <ul>
+ * <li>Every ordered pair of parties shares an OT extension (see
+ * {@link OTExtensionReceiver}) set up from base OTs (see {@link BaseOT}).</li>
+ * <li>Values are authenticated with the correlated oblivious product
+ * evaluation COPEe, where the receiver uses the bits of its MAC key share as
+ * fixed choice bits, followed by a random linear combination check.</li>
+ * <li>Triples are multiplied with Gilboa's OT based multiplication on
+ * {@link #TAU} values at once, combined with random coefficients and
+ * verified by sacrificing a second triple.</li>
+ * <li>Bits are made by squaring a random value and dividing it by the square
+ * root of the opened square.</li>
+ * <li>Square pairs are made from a triple (a, b, c) by opening a - b, since
+ * a^2 = c + (a - b)*a.</li>
+ * <li>Input masks are authenticated values only known to one party.</li>
+ * </ul>
+ * 
+ * All opened values are MAC checked before any data is returned. A generator
+ * is not thread safe and needs a channel of its own; use
+ * {@link MascotPreprocessing} to run generators on several threads.
+ */
+public class MascotTripleGenerator {
+
+	/**
+	 * The number of triples combined into each output triple, which limits
+	 * the leakage of selective failure attacks on the OT based
+	 * multiplication.
+	 */
+	public static final int TAU = 3;
+
+	private final MascotNetwork network;
+	private final int myId;
+	private final int noOfParties;
+	private final BigInteger modulus;
+	private final int bitLength;
+	private final int elementSize;
+	private final BigInteger alphaShare;
+	private final boolean[] alphaBits;
+	private final SecureRandom rand;
+
+	private final Map<Integer, OTExtensionSender> otSenders = new HashMap<Integer, OTExtensionSender>();
+	private final Map<Integer, OTExtensionReceiver> otReceivers = new HashMap<Integer, OTExtensionReceiver>();
+	private final Map<Integer, FieldPrg[][]> copeSenders = new HashMap<Integer, FieldPrg[][]>();
+	private final Map<Integer, FieldPrg[]> copeReceivers = new HashMap<Integer, FieldPrg[]>();
+
+	private final List<BigInteger> openedValues = new ArrayList<BigInteger>();
+	private final List<BigInteger> openedMacs = new ArrayList<BigInteger>();
+	private boolean initialized;
+
+	/**
+	 * @param network
+	 *            the network of this generator.
+	 * @param modulus
+	 *            the prime modulus of the field.
+	 * @param alphaShare
+	 *            this party's share of the MAC key.
+	 * @param rand
+	 *            the source of randomness of this party.
+	 */
+	public MascotTripleGenerator(MascotNetwork network, BigInteger modulus,
+			BigInteger alphaShare, SecureRandom rand) {
+		this.network = network;
+		this.myId = network.getMyId();
+		this.noOfParties = network.getNoOfParties();
+		this.modulus = modulus;
+		this.bitLength = modulus.bitLength();
+		this.elementSize = (bitLength + 7) / 8;
+		this.alphaShare = alphaShare;
+		this.rand = rand;
+		this.alphaBits = toBits(alphaShare);
+	}
+
+	public BigInteger getAlphaShare() {
+		return alphaShare;
+	}
+
+	/**
+	 * Runs the base OTs and sets up the OT extensions and the MAC key
+	 * correlations with all other parties. Is called by the first generation
+	 * if not called before.
+	 */
+	public void initialize() {
+		if (initialized) {
+			return;
+		}
+		Map<Integer, BaseOT.Sender> baseSenders = new HashMap<Integer, BaseOT.Sender>();
+		Map<Integer, Serializable> out = new HashMap<Integer, Serializable>();
+		for (int j : others()) {
+			BaseOT.Sender sender = new BaseOT.Sender(rand);
+			baseSenders.put(j, sender);
+			out.put(j, sender.getMessage());
+		}
+		Map<Integer, BigInteger> senderMessages = network.exchange(out);
+
+		Map<Integer, BaseOT.Receiver> baseReceivers = new HashMap<Integer, BaseOT.Receiver>();
+		Map<Integer, boolean[]> baseChoices = new HashMap<Integer, boolean[]>();
+		out.clear();
+		for (int j : others()) {
+			boolean[] choices = new boolean[OTExtension.KAPPA];
+			for (int i = 0; i < choices.length; i++) {
+				choices[i] = rand.nextBoolean();
+			}
+			BaseOT.Receiver receiver = new BaseOT.Receiver(rand, choices);
+			baseChoices.put(j, choices);
+			baseReceivers.put(j, receiver);
+			out.put(j, receiver.getMessage(senderMessages.get(j)));
+		}
+		Map<Integer, BigInteger[]> receiverMessages = network.exchange(out);
+		for (int j : others()) {
+			otReceivers.put(j, new OTExtensionReceiver(baseSenders.get(j).getKeys(receiverMessages.get(j))));
+			otSenders.put(j, new OTExtensionSender(baseChoices.get(j), baseReceivers.get(j).getKeys()));
+		}
+
+		// COPEe: random OTs with the bits of the MAC key share as choices.
+		Map<Integer, byte[][]> keys = new HashMap<Integer, byte[][]>();
+		out.clear();
+		for (int j : others()) {
+			byte[][] k = new byte[bitLength][];
+			out.put(j, otReceivers.get(j).extend(alphaBits, rand, k));
+			keys.put(j, k);
+		}
+		Map<Integer, byte[]> messages = network.exchange(out);
+		for (int j : others()) {
+			byte[][][] pairs = otSenders.get(j).extend(messages.get(j), bitLength);
+			FieldPrg[][] senderPrgs = new FieldPrg[bitLength][2];
+			FieldPrg[] receiverPrgs = new FieldPrg[bitLength];
+			for (int l = 0; l < bitLength; l++) {
+				senderPrgs[l][0] = new FieldPrg(pairs[l][0], modulus);
+				senderPrgs[l][1] = new FieldPrg(pairs[l][1], modulus);
+				receiverPrgs[l] = new FieldPrg(keys.get(j)[l], modulus);
+			}
+			copeSenders.put(j, senderPrgs);
+			copeReceivers.put(j, receiverPrgs);
+		}
+		initialized = true;
+	}
+
+	/**
+	 * Generates multiplication triples.
+	 * 
+	 * @throws MPCException
+	 *             if a party cheated.
+	 */
+	public List<SpdzTriple> generateTriples(int amount) {
+		initialize();
+		BigInteger[][] a = new BigInteger[amount][TAU];
+		BigInteger[] b = new BigInteger[amount];
+		for (int k = 0; k < amount; k++) {
+			for (int t = 0; t < TAU; t++) {
+				a[k][t] = randomElement();
+			}
+			b[k] = randomElement();
+		}
+		BigInteger[][] c = multiply(a, b);
+
+		// Combine: the triple to output and the triple to sacrifice.
+		FieldPrg coins = network.tossCoins(rand, modulus);
+		BigInteger[] values = new BigInteger[5 * amount];
+		for (int k = 0; k < amount; k++) {
+			BigInteger[] r = coins.nextElements(TAU);
+			BigInteger[] rHat = coins.nextElements(TAU);
+			BigInteger resA = BigInteger.ZERO;
+			BigInteger resC = BigInteger.ZERO;
+			BigInteger hatA = BigInteger.ZERO;
+			BigInteger hatC = BigInteger.ZERO;
+			for (int t = 0; t < TAU; t++) {
+				resA = resA.add(r[t].multiply(a[k][t]));
+				resC = resC.add(r[t].multiply(c[k][t]));
+				hatA = hatA.add(rHat[t].multiply(a[k][t]));
+				hatC = hatC.add(rHat[t].multiply(c[k][t]));
+			}
+			values[k] = resA.mod(modulus);
+			values[amount + k] = b[k];
+			values[2 * amount + k] = resC.mod(modulus);
+			values[3 * amount + k] = hatA.mod(modulus);
+			values[4 * amount + k] = hatC.mod(modulus);
+		}
+		BigInteger[] macs = authenticate(values, 0);
+
+		// Sacrifice: open rho = s*a - aHat and check s*c - cHat - rho*b = 0.
+		BigInteger s = network.tossCoins(rand, modulus).nextElement();
+		BigInteger[] rhoShares = new BigInteger[amount];
+		BigInteger[] rhoMacs = new BigInteger[amount];
+		for (int k = 0; k < amount; k++) {
+			rhoShares[k] = s.multiply(values[k]).subtract(values[3 * amount + k]).mod(modulus);
+			rhoMacs[k] = s.multiply(macs[k]).subtract(macs[3 * amount + k]).mod(modulus);
+		}
+		BigInteger[] rho = open(rhoShares, rhoMacs);
+		for (int k = 0; k < amount; k++) {
+			BigInteger sigmaMac = s.multiply(macs[2 * amount + k])
+					.subtract(macs[4 * amount + k])
+					.subtract(rho[k].multiply(macs[amount + k])).mod(modulus);
+			openedValues.add(BigInteger.ZERO);
+			openedMacs.add(sigmaMac);
+		}
+		macCheck();
+
+		List<SpdzTriple> triples = new ArrayList<SpdzTriple>(amount);
+		for (int k = 0; k < amount; k++) {
+			triples.add(new SpdzTriple(
+					new SpdzElement(values[k], macs[k]),
+					new SpdzElement(values[amount + k], macs[amount + k]),
+					new SpdzElement(values[2 * amount + k], macs[2 * amount + k])));
+		}
+		return triples;
+	}
+
+	/**
+	 * Generates random bits.
+	 * 
+	 * @throws MPCException
+	 *             if a party cheated.
+	 */
+	public List<SpdzSInt> generateBits(int amount) {
+		initialize();
+		BigInteger twoInverse = BigInteger.valueOf(2).modInverse(modulus);
+		List<SpdzSInt> bits = new ArrayList<SpdzSInt>(amount);
+		while (bits.size() < amount) {
+			int n = amount - bits.size();
+			List<SpdzTriple> triples = generateTriples(n);
+			BigInteger[] x = new BigInteger[n];
+			for (int k = 0; k < n; k++) {
+				x[k] = randomElement();
+			}
+			BigInteger[] xMacs = authenticate(x, 0);
+
+			// Square x with a triple.
+			BigInteger[] shares = new BigInteger[2 * n];
+			BigInteger[] macs = new BigInteger[2 * n];
+			for (int k = 0; k < n; k++) {
+				SpdzTriple t = triples.get(k);
+				shares[k] = x[k].subtract(t.getA().getShare()).mod(modulus);
+				macs[k] = xMacs[k].subtract(t.getA().getMac()).mod(modulus);
+				shares[n + k] = x[k].subtract(t.getB().getShare()).mod(modulus);
+				macs[n + k] = xMacs[k].subtract(t.getB().getMac()).mod(modulus);
+			}
+			BigInteger[] epsilonDelta = open(shares, macs);
+			BigInteger[] squareShares = new BigInteger[n];
+			BigInteger[] squareMacs = new BigInteger[n];
+			for (int k = 0; k < n; k++) {
+				SpdzTriple t = triples.get(k);
+				BigInteger epsilon = epsilonDelta[k];
+				BigInteger delta = epsilonDelta[n + k];
+				BigInteger product = epsilon.multiply(delta);
+				BigInteger share = t.getC().getShare()
+						.add(epsilon.multiply(t.getB().getShare()))
+						.add(delta.multiply(t.getA().getShare()));
+				if (myId == 1) {
+					share = share.add(product);
+				}
+				squareShares[k] = share.mod(modulus);
+				squareMacs[k] = t.getC().getMac()
+						.add(epsilon.multiply(t.getB().getMac()))
+						.add(delta.multiply(t.getA().getMac()))
+						.add(alphaShare.multiply(product)).mod(modulus);
+			}
+			BigInteger[] squares = open(squareShares, squareMacs);
+			macCheck();
+
+			// x / sqrt(x^2) is 1 or -1 with equal probability.
+			for (int k = 0; k < n; k++) {
+				if (squares[k].signum() == 0) {
+					continue;
+				}
+				BigInteger rootInverse = squareRoot(squares[k]).modInverse(modulus);
+				BigInteger share = x[k].multiply(rootInverse);
+				if (myId == 1) {
+					share = share.add(BigInteger.ONE);
+				}
+				share = share.multiply(twoInverse).mod(modulus);
+				BigInteger mac = xMacs[k].multiply(rootInverse).add(alphaShare)
+						.multiply(twoInverse).mod(modulus);
+				bits.add(new SpdzSInt(new SpdzElement(share, mac)));
+			}
+		}
+		return bits;
+	}
+
+	/**
+	 * Generates square pairs (a, a^2).
+	 * 
+	 * @throws MPCException
+	 *             if a party cheated.
+	 */
+	public List<SpdzSquare> generateSquares(int amount) {
+		initialize();
+		List<SpdzTriple> triples = generateTriples(amount);
+		// b is uniform and independent of a, so a - b reveals nothing.
+		BigInteger[] shares = new BigInteger[amount];
+		BigInteger[] macs = new BigInteger[amount];
+		for (int k = 0; k < amount; k++) {
+			SpdzTriple t = triples.get(k);
+			shares[k] = t.getA().getShare().subtract(t.getB().getShare()).mod(modulus);
+			macs[k] = t.getA().getMac().subtract(t.getB().getMac()).mod(modulus);
+		}
+		BigInteger[] epsilon = open(shares, macs);
+		macCheck();
+		List<SpdzSquare> squares = new ArrayList<SpdzSquare>(amount);
+		for (int k = 0; k < amount; k++) {
+			SpdzTriple t = triples.get(k);
+			BigInteger share = t.getC().getShare()
+					.add(epsilon[k].multiply(t.getA().getShare())).mod(modulus);
+			BigInteger mac = t.getC().getMac()
+					.add(epsilon[k].multiply(t.getA().getMac())).mod(modulus);
+			squares.add(new SpdzSquare(t.getA(), new SpdzElement(share, mac)));
+		}
+		return squares;
+	}
+
+	/**
+	 * Generates input masks toward a party.
+	 * 
+	 * @param towardPlayer
+	 *            the party that will know the value of the masks.
+	 * @throws MPCException
+	 *             if a party cheated.
+	 */
+	public List<SpdzInputMask> generateInputMasks(int towardPlayer, int amount) {
+		initialize();
+		BigInteger[] values = new BigInteger[amount];
+		for (int k = 0; k < amount; k++) {
+			values[k] = myId == towardPlayer ? randomElement() : BigInteger.ZERO;
+		}
+		BigInteger[] macs = authenticate(values, towardPlayer);
+		macCheck();
+		List<SpdzInputMask> masks = new ArrayList<SpdzInputMask>(amount);
+		for (int k = 0; k < amount; k++) {
+			SpdzElement mask = new SpdzElement(values[k], macs[k]);
+			if (myId == towardPlayer) {
+				masks.add(new SpdzInputMask(mask, values[k]));
+			} else {
+				masks.add(new SpdzInputMask(mask));
+			}
+		}
+		return masks;
+	}
+
+	/**
+	 * Gilboa's OT based multiplication: every party learns additive shares of
+	 * a[k][t]*b[k], where a and b are the sums of the parties' inputs.
+	 */
+	private BigInteger[][] multiply(BigInteger[][] a, BigInteger[] b) {
+		int amount = b.length;
+		int m = amount * bitLength;
+		boolean[] choices = new boolean[m];
+		for (int k = 0; k < amount; k++) {
+			for (int l = 0; l < bitLength; l++) {
+				choices[k * bitLength + l] = b[k].testBit(l);
+			}
+		}
+		Map<Integer, byte[][]> receiverKeys = new HashMap<Integer, byte[][]>();
+		Map<Integer, byte[]> out = new HashMap<Integer, byte[]>();
+		for (int j : others()) {
+			byte[][] keys = new byte[m][];
+			out.put(j, otReceivers.get(j).extend(choices, rand, keys));
+			receiverKeys.put(j, keys);
+		}
+		Map<Integer, byte[]> messages = network.exchange(out);
+
+		BigInteger[][] c = new BigInteger[amount][TAU];
+		for (int k = 0; k < amount; k++) {
+			for (int t = 0; t < TAU; t++) {
+				c[k][t] = a[k][t].multiply(b[k]);
+			}
+		}
+		out.clear();
+		for (int j : others()) {
+			byte[][][] pairs = otSenders.get(j).extend(messages.get(j), m);
+			byte[][] keys0 = new byte[m][];
+			byte[][] keys1 = new byte[m][];
+			for (int ot = 0; ot < m; ot++) {
+				keys0[ot] = pairs[ot][0];
+				keys1[ot] = pairs[ot][1];
+			}
+			BigInteger[][] expanded0 = FieldPrg.expand(keys0, TAU, modulus);
+			BigInteger[][] expanded1 = FieldPrg.expand(keys1, TAU, modulus);
+			BigInteger[] corrections = new BigInteger[m * TAU];
+			for (int k = 0; k < amount; k++) {
+				for (int l = 0; l < bitLength; l++) {
+					int ot = k * bitLength + l;
+					BigInteger[] q0 = expanded0[ot];
+					BigInteger[] q1 = expanded1[ot];
+					for (int t = 0; t < TAU; t++) {
+						corrections[ot * TAU + t] = reduce(q0[t].subtract(q1[t]).add(a[k][t]));
+						c[k][t] = c[k][t].subtract(q0[t].shiftLeft(l));
+					}
+				}
+			}
+			out.put(j, MascotNetwork.encode(corrections, elementSize));
+		}
+		Map<Integer, byte[]> corrections = network.exchange(out);
+		for (int j : others()) {
+			BigInteger[] d = MascotNetwork.decode(corrections.get(j), m * TAU, elementSize);
+			BigInteger[][] expanded = FieldPrg.expand(receiverKeys.get(j), TAU, modulus);
+			for (int k = 0; k < amount; k++) {
+				for (int l = 0; l < bitLength; l++) {
+					int ot = k * bitLength + l;
+					BigInteger[] w = expanded[ot];
+					for (int t = 0; t < TAU; t++) {
+						BigInteger v = choices[ot] ? w[t].add(d[ot * TAU + t]) : w[t];
+						c[k][t] = c[k][t].add(v.shiftLeft(l));
+					}
+				}
+			}
+		}
+		for (int k = 0; k < amount; k++) {
+			for (int t = 0; t < TAU; t++) {
+				c[k][t] = c[k][t].mod(modulus);
+			}
+		}
+		return c;
+	}
+
+	/**
+	 * Authenticates the shares of the given values using COPEe, and checks
+	 * the result with a random linear combination of the values together
+	 * with a random value.
+	 * 
+	 * @param shares
+	 *            the shares of this party.
+	 * @param inputter
+	 *            the only party with non-zero shares, or 0 if all parties
+	 *            have shares.
+	 * @return the MAC shares.
+	 */
+	private BigInteger[] authenticate(BigInteger[] shares, int inputter) {
+		int n = shares.length + 1;
+		boolean isInputter = inputter == 0 || inputter == myId;
+		BigInteger[] values = new BigInteger[n];
+		System.arraycopy(shares, 0, values, 0, shares.length);
+		values[n - 1] = isInputter ? randomElement() : BigInteger.ZERO;
+		BigInteger[] macs = new BigInteger[n];
+		for (int k = 0; k < n; k++) {
+			macs[k] = alphaShare.multiply(values[k]);
+		}
+
+		Map<Integer, byte[]> out = new HashMap<Integer, byte[]>();
+		if (isInputter) {
+			for (int j : others()) {
+				FieldPrg[][] prgs = copeSenders.get(j);
+				BigInteger[] u = new BigInteger[bitLength * n];
+				for (int l = 0; l < bitLength; l++) {
+					BigInteger[] t0 = prgs[l][0].nextElements(n);
+					BigInteger[] t1 = prgs[l][1].nextElements(n);
+					for (int k = 0; k < n; k++) {
+						u[l * n + k] = reduce(t0[k].subtract(t1[k]).add(values[k]));
+						macs[k] = macs[k].subtract(t0[k].shiftLeft(l));
+					}
+				}
+				out.put(j, MascotNetwork.encode(u, elementSize));
+			}
+		}
+		Map<Integer, byte[]> in = network.exchange(out);
+		for (int j : others()) {
+			if (inputter != 0 && inputter != j) {
+				continue;
+			}
+			BigInteger[] u = MascotNetwork.decode(in.get(j), bitLength * n, elementSize);
+			FieldPrg[] prgs = copeReceivers.get(j);
+			for (int l = 0; l < bitLength; l++) {
+				BigInteger[] q = prgs[l].nextElements(n);
+				for (int k = 0; k < n; k++) {
+					BigInteger v = alphaBits[l] ? q[k].add(u[l * n + k]) : q[k];
+					macs[k] = macs[k].add(v.shiftLeft(l));
+				}
+			}
+		}
+		for (int k = 0; k < n; k++) {
+			macs[k] = macs[k].mod(modulus);
+		}
+
+		FieldPrg coins = network.tossCoins(rand, modulus);
+		BigInteger y = values[n - 1];
+		BigInteger yMac = macs[n - 1];
+		for (int k = 0; k < n - 1; k++) {
+			BigInteger chi = coins.nextElement();
+			y = y.add(chi.multiply(values[k]));
+			yMac = yMac.add(chi.multiply(macs[k]));
+		}
+		open(new BigInteger[] { y.mod(modulus) }, new BigInteger[] { yMac.mod(modulus) });
+
+		BigInteger[] res = new BigInteger[shares.length];
+		System.arraycopy(macs, 0, res, 0, res.length);
+		return res;
+	}
+
+	/**
+	 * Opens values without checking their MACs, which is deferred to the
+	 * next {@link #macCheck()}.
+	 */
+	private BigInteger[] open(BigInteger[] shares, BigInteger[] macs) {
+		Map<Integer, byte[]> in = network.broadcast(MascotNetwork.encode(shares, elementSize));
+		BigInteger[] values = shares.clone();
+		for (int j : others()) {
+			BigInteger[] other = MascotNetwork.decode(in.get(j), shares.length, elementSize);
+			for (int k = 0; k < values.length; k++) {
+				values[k] = values[k].add(other[k]);
+			}
+		}
+		for (int k = 0; k < values.length; k++) {
+			values[k] = values[k].mod(modulus);
+			openedValues.add(values[k]);
+			openedMacs.add(macs[k]);
+		}
+		return values;
+	}
+
+	/**
+	 * Checks the MACs of all values opened since the last check, using a
+	 * random linear combination of them.
+	 * 
+	 * @throws MPCException
+	 *             if the check fails.
+	 */
+	private void macCheck() {
+		if (openedValues.isEmpty()) {
+			return;
+		}
+		FieldPrg coins = network.tossCoins(rand, modulus);
+		BigInteger value = BigInteger.ZERO;
+		BigInteger mac = BigInteger.ZERO;
+		for (int k = 0; k < openedValues.size(); k++) {
+			BigInteger e = coins.nextElement();
+			value = value.add(e.multiply(openedValues.get(k)));
+			mac = mac.add(e.multiply(openedMacs.get(k)));
+		}
+		openedValues.clear();
+		openedMacs.clear();
+		BigInteger sigma = mac.subtract(alphaShare.multiply(value)).mod(modulus);
+		byte[][] sigmas = network.commitAndOpen(
+				MascotNetwork.encode(new BigInteger[] { sigma }, elementSize), rand);
+		BigInteger sum = BigInteger.ZERO;
+		for (byte[] s : sigmas) {
+			sum = sum.add(MascotNetwork.decode(s, 1, elementSize)[0]);
+		}
+		if (sum.mod(modulus).signum() != 0) {
+			throw new MPCException("MAC check failed in MASCOT preprocessing");
+		}
+	}
+
+	/**
+	 * @return the square root of a quadratic residue, computed with the
+	 *         Tonelli-Shanks algorithm. The smallest of the two roots is
+	 *         returned so all parties agree on it.
+	 */
+	private BigInteger squareRoot(BigInteger a) {
+		BigInteger pMinusOne = modulus.subtract(BigInteger.ONE);
+		int e = pMinusOne.getLowestSetBit();
+		BigInteger q = pMinusOne.shiftRight(e);
+		BigInteger z = BigInteger.valueOf(2);
+		BigInteger halfOrder = pMinusOne.shiftRight(1);
+		while (z.modPow(halfOrder, modulus).equals(BigInteger.ONE)) {
+			z = z.add(BigInteger.ONE);
+		}
+		BigInteger c = z.modPow(q, modulus);
+		BigInteger x = a.modPow(q.add(BigInteger.ONE).shiftRight(1), modulus);
+		BigInteger t = a.modPow(q, modulus);
+		int m = e;
+		while (!t.equals(BigInteger.ONE)) {
+			int i = 0;
+			BigInteger t2 = t;
+			while (!t2.equals(BigInteger.ONE)) {
+				t2 = t2.multiply(t2).mod(modulus);
+				i++;
+				if (i == m) {
+					throw new MPCException(a + " is not a square modulo " + modulus);
+				}
+			}
+			BigInteger b = c.modPow(BigInteger.ONE.shiftLeft(m - i - 1), modulus);
+			x = x.multiply(b).mod(modulus);
+			c = b.multiply(b).mod(modulus);
+			t = t.multiply(c).mod(modulus);
+			m = i;
+		}
+		BigInteger other = modulus.subtract(x);
+		return x.compareTo(other) <= 0 ? x : other;
+	}
+
+	/**
+	 * Reduces a number between -p and 2p modulo p without a division.
+	 */
+	private BigInteger reduce(BigInteger x) {
+		if (x.signum() < 0) {
+			return x.add(modulus);
+		}
+		if (x.compareTo(modulus) >= 0) {
+			return x.subtract(modulus);
+		}
+		return x;
+	}
+
+	private BigInteger randomElement() {
+		return new BigInteger(bitLength + 64, rand).mod(modulus);
+	}
+
+	private boolean[] toBits(BigInteger x) {
+		boolean[] bits = new boolean[bitLength];
+		for (int l = 0; l < bitLength; l++) {
+			bits[l] = x.testBit(l);
+		}
+		return bits;
+	}
+
+	private List<Integer> others() {
+		List<Integer> res = new ArrayList<Integer>(noOfParties - 1);
+		for (int j = 1; j <= noOfParties; j++) {
+			if (j != myId) {
+				res.add(j);
+			}
+		}
+		return res;
+	}
+}
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.mascot;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.util.FieldPrg;
+
+/**
+ * Helpers shared by the two sides of the IKNP OT extension with the
+ * consistency check of Keller, Orsini and Scholl (KOS15).
+ * 
+ * Both sides view the extension as a KAPPA x m' bit matrix, stored as KAPPA
+ * columns of m' bits, where m' is the number of requested OTs rounded up to a
+ * multiple of 64 plus {@link #CHECK_OTS} OTs that are sacrificed in the
+ * consistency check. Rows are elements of GF(2^128), stored as two longs with
+ * bit i being the coefficient of x^i.
+ */
+final class OTExtension {
+
+	/**
+	 * The number of base OTs, i.e. the computational security parameter.
+	 */
+	static final int KAPPA = 128;
+
+	/**
+	 * The number of extra random OTs masking the choice bits in the
+	 * consistency check.
+	 */
+	static final int CHECK_OTS = KAPPA + 64;
+
+	private OTExtension() {
+	}
+
+	/**
+	 * @return the number of OTs actually extended when m are requested.
+	 */
+	static int getExtendedLength(int m) {
+		return (m + 63) / 64 * 64 + CHECK_OTS;
+	}
+
+	/**
+	 * @return the size in bytes of the message the receiver sends when
+	 *         extending m OTs.
+	 */
+	static int getMessageSize(int m) {
+		return KAPPA * getExtendedLength(m) / 8 + 32;
+	}
+
+	/**
+	 * Transposes KAPPA columns of m' bits into m' rows of KAPPA bits.
+	 */
+	static long[][] transpose(byte[][] columns, int extendedLength) {
+		long[][] rows = new long[extendedLength][2];
+		for (int i = 0; i < KAPPA; i++) {
+			byte[] column = columns[i];
+			long bit = 1L << (i & 63);
+			int word = i >> 6;
+			for (int j = 0; j < extendedLength; j++) {
+				if ((column[j >> 3] & (1 << (j & 7))) != 0) {
+					rows[j][word] |= bit;
+				}
+			}
+		}
+		return rows;
+	}
+
+	/**
+	 * Derives the challenge of the consistency check from the first message
+	 * of the receiver (Fiat-Shamir), so the sender cannot choose it.
+	 */
+	static long[][] challenge(byte[] message, long index, int extendedLength) {
+		MessageDigest md = sha256();
+		md.update(ByteBuffer.allocate(8).putLong(index).array());
+		md.update(message, 0, KAPPA * extendedLength / 8);
+		FieldPrg prg = new FieldPrg(Arrays.copyOf(md.digest(), FieldPrg.SEED_SIZE));
+		ByteBuffer bytes = ByteBuffer.wrap(prg.nextBytes(16 * extendedLength));
+		long[][] chi = new long[extendedLength][2];
+		for (int j = 0; j < extendedLength; j++) {
+			chi[j][0] = bytes.getLong();
+			chi[j][1] = bytes.getLong();
+		}
+		return chi;
+	}
+
+	/**
+	 * Multiplies a and b in GF(2^128) modulo x^128 + x^7 + x^2 + x + 1 and
+	 * adds the product to acc.
+	 */
+	static void multiplyAdd(long[] a, long[] b, long[] acc) {
+		long a0 = a[0];
+		long a1 = a[1];
+		long r0 = 0;
+		long r1 = 0;
+		for (int i = 0; i < 128; i++) {
+			if (((b[i >> 6] >>> (i & 63)) & 1) != 0) {
+				r0 ^= a0;
+				r1 ^= a1;
+			}
+			long carry = a1 >>> 63;
+			a1 = (a1 << 1) | (a0 >>> 63);
+			a0 = (a0 << 1) ^ (carry * 0x87L);
+		}
+		acc[0] ^= r0;
+		acc[1] ^= r1;
+	}
+
+	/**
+	 * Breaks the correlation of a row by hashing it together with the global
+	 * index of the OT.
+	 */
+	static byte[] hashRow(MessageDigest md, long index, long row0, long row1) {
+		md.update(ByteBuffer.allocate(24).putLong(index).putLong(row0).putLong(row1).array());
+		return Arrays.copyOf(md.digest(), FieldPrg.SEED_SIZE);
+	}
+
+	static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new MPCException("SHA-256 is not available", e);
+		}
+	}
+}
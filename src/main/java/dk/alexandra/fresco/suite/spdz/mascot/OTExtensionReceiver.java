@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.mascot;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.util.FieldPrg;
+
+/**
+ * The receiver side of an actively secure OT extension (IKNP with the KOS15
+ * consistency check). The receiver acted as sender in the KAPPA base OTs.
+ * Every call to {@link #extend(boolean[], SecureRandom, byte[][])} gives a
+ * batch of random OTs with chosen choice bits in one message to the sender.
+ */
+public class OTExtensionReceiver {
+
+	private final FieldPrg[][] prgs;
+	private long index;
+
+	/**
+	 * @param baseKeys
+	 *            the two keys of each of the KAPPA base OTs where this party
+	 *            was the sender.
+	 */
+	public OTExtensionReceiver(byte[][][] baseKeys) {
+		if (baseKeys.length != OTExtension.KAPPA) {
+			throw new MPCException("OT extension needs " + OTExtension.KAPPA + " base OTs, not "
+					+ baseKeys.length);
+		}
+		this.prgs = new FieldPrg[OTExtension.KAPPA][2];
+		for (int i = 0; i < OTExtension.KAPPA; i++) {
+			prgs[i][0] = new FieldPrg(baseKeys[i][0]);
+			prgs[i][1] = new FieldPrg(baseKeys[i][1]);
+		}
+	}
+
+	/**
+	 * Extends a batch of OTs.
+	 * 
+	 * @param choices
+	 *            the choice bits.
+	 * @param rand
+	 *            randomness for the OTs used in the consistency check.
+	 * @param keys
+	 *            an array of the same length as choices that is filled with
+	 *            the 16 byte key of the choice of each OT.
+	 * @return the message to send to the sender.
+	 */
+	public byte[] extend(boolean[] choices, SecureRandom rand, byte[][] keys) {
+		int m = choices.length;
+		int extendedLength = OTExtension.getExtendedLength(m);
+		int columnSize = extendedLength / 8;
+		byte[] r = new byte[columnSize];
+		rand.nextBytes(r);
+		for (int j = 0; j < m; j++) {
+			if (choices[j]) {
+				r[j >> 3] |= (byte) (1 << (j & 7));
+			} else {
+				r[j >> 3] &= (byte) ~(1 << (j & 7));
+			}
+		}
+		byte[] message = new byte[OTExtension.getMessageSize(m)];
+		byte[][] t = new byte[OTExtension.KAPPA][];
+		for (int i = 0; i < OTExtension.KAPPA; i++) {
+			t[i] = prgs[i][0].nextBytes(columnSize);
+			byte[] u = prgs[i][1].nextBytes(columnSize);
+			int offset = i * columnSize;
+			for (int k = 0; k < columnSize; k++) {
+				message[offset + k] = (byte) (t[i][k] ^ u[k] ^ r[k]);
+			}
+		}
+		long[][] rows = OTExtension.transpose(t, extendedLength);
+		long[][] chi = OTExtension.challenge(message, index, extendedLength);
+		long[] x = new long[2];
+		long[] checkT = new long[2];
+		for (int j = 0; j < extendedLength; j++) {
+			if ((r[j >> 3] & (1 << (j & 7))) != 0) {
+				x[0] ^= chi[j][0];
+				x[1] ^= chi[j][1];
+			}
+			OTExtension.multiplyAdd(chi[j], rows[j], checkT);
+		}
+		ByteBuffer.wrap(message, OTExtension.KAPPA * columnSize, 32)
+				.putLong(x[0]).putLong(x[1]).putLong(checkT[0]).putLong(checkT[1]);
+
+		MessageDigest md = OTExtension.sha256();
+		for (int j = 0; j < m; j++) {
+			keys[j] = OTExtension.hashRow(md, index + j, rows[j][0], rows[j][1]);
+		}
+		index += extendedLength;
+		return message;
+	}
+}
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.mascot;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.util.FieldPrg;
+
+/**
+ * The sender side of an actively secure OT extension (IKNP with the KOS15
+ * consistency check). The sender acted as receiver in the KAPPA base OTs,
+ * using its secret correlation s as choice bits.
+ */
+public class OTExtensionSender {
+
+	private final boolean[] s;
+	private final long[] delta;
+	private final FieldPrg[] prgs;
+	private long index;
+
+	/**
+	 * @param choices
+	 *            the choice bits of the KAPPA base OTs.
+	 * @param baseKeys
+	 *            the keys received in the base OTs.
+	 */
+	public OTExtensionSender(boolean[] choices, byte[][] baseKeys) {
+		if (choices.length != OTExtension.KAPPA || baseKeys.length != OTExtension.KAPPA) {
+			throw new MPCException("OT extension needs " + OTExtension.KAPPA + " base OTs");
+		}
+		this.s = choices.clone();
+		this.delta = new long[2];
+		this.prgs = new FieldPrg[OTExtension.KAPPA];
+		for (int i = 0; i < OTExtension.KAPPA; i++) {
+			prgs[i] = new FieldPrg(baseKeys[i]);
+			if (s[i]) {
+				delta[i >> 6] |= 1L << (i & 63);
+			}
+		}
+	}
+
+	/**
+	 * Extends a batch of OTs.
+	 * 
+	 * @param message
+	 *            the message of the receiver.
+	 * @param m
+	 *            the number of OTs the receiver extended.
+	 * @return the two 16 byte keys of each OT.
+	 * @throws MPCException
+	 *             if the receiver did not use consistent choice bits.
+	 */
+	public byte[][][] extend(byte[] message, int m) {
+		if (message == null || message.length != OTExtension.getMessageSize(m)) {
+			throw new MPCException("Received an OT extension message of wrong size");
+		}
+		int extendedLength = OTExtension.getExtendedLength(m);
+		int columnSize = extendedLength / 8;
+		byte[][] q = new byte[OTExtension.KAPPA][];
+		for (int i = 0; i < OTExtension.KAPPA; i++) {
+			q[i] = prgs[i].nextBytes(columnSize);
+			if (s[i]) {
+				int offset = i * columnSize;
+				for (int k = 0; k < columnSize; k++) {
+					q[i][k] ^= message[offset + k];
+				}
+			}
+		}
+		long[][] rows = OTExtension.transpose(q, extendedLength);
+		long[][] chi = OTExtension.challenge(message, index, extendedLength);
+		long[] checkQ = new long[2];
+		for (int j = 0; j < extendedLength; j++) {
+			OTExtension.multiplyAdd(chi[j], rows[j], checkQ);
+		}
+		ByteBuffer check = ByteBuffer.wrap(message, OTExtension.KAPPA * columnSize, 32);
+		long[] x = new long[] { check.getLong(), check.getLong() };
+		long[] expected = new long[] { check.getLong(), check.getLong() };
+		OTExtension.multiplyAdd(x, delta, expected);
+		if (expected[0] != checkQ[0] || expected[1] != checkQ[1]) {
+			throw new MPCException("OT extension consistency check failed");
+		}
+
+		MessageDigest md = OTExtension.sha256();
+		byte[][][] keys = new byte[m][2][];
+		for (int j = 0; j < m; j++) {
+			keys[j][0] = OTExtension.hashRow(md, index + j, rows[j][0], rows[j][1]);
+			keys[j][1] = OTExtension.hashRow(md, index + j, rows[j][0] ^ delta[0],
+					rows[j][1] ^ delta[1]);
+		}
+		index += extendedLength;
+		return keys;
+	}
+}
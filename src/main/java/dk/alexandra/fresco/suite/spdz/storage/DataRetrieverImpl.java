@@ -44,6 +44,7 @@ import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+import dk.alexandra.fresco.suite.spdz.utils.SpdzField;
 import dk.alexandra.fresco.suite.spdz.utils.Util;
 
 public class DataRetrieverImpl implements DataRetriever {
@@ -56,6 +57,10 @@ public class DataRetrieverImpl implements DataRetriever {
 	private ByteBuffer tripleBuffer, bitBuffer, expBuffer;
 	private FileChannel[] inputChannels;
 	private int n;
+	/**
+	 * Byte size of a field element, known once the modulus has been read.
+	 */
+	private int size;
 	private int tripleCounter, expPipeCounter, bitCounter;
 	private int[] inputCounters;
 	private final int pID;
@@ -173,6 +178,7 @@ public class DataRetrieverImpl implements DataRetriever {
 	private void readGlobalData() {
 		BigInteger modulus = new BigInteger(globalInfoReader.next());
 		BigInteger SSK = new BigInteger(globalInfoReader.next());
+		this.size = new SpdzField(modulus).getSize();
 		this.storage.putNext(SpdzStorageConstants.GLOBAL_STORAGE, modulus);
 		this.storage.putNext(SpdzStorageConstants.GLOBAL_STORAGE, SSK);
 	}
@@ -183,7 +189,7 @@ public class DataRetrieverImpl implements DataRetriever {
 		// Read triples into the buffer if it has been read or is uninitialized
 		if (tripleBuffer == null || !tripleBuffer.hasRemaining()) {
 			// One triple is three shares and three macs
-			int sizeOfTriple = (Util.size) * 6;
+			int sizeOfTriple = (size) * 6;
 			int bytesToRead = sizeOfTriple * TRIPLE_BUFFER_SIZE;
 			if (tripleBuffer == null) {
 				// A direct buffer should be faster
@@ -205,7 +211,7 @@ public class DataRetrieverImpl implements DataRetriever {
 			}
 			tripleBuffer.flip();
 		}
-		byte[] array = new byte[Util.size];
+		byte[] array = new byte[size];
 
 		tripleBuffer.get(array);
 		BigInteger aShare = new BigInteger(1, array);
@@ -231,7 +237,7 @@ public class DataRetrieverImpl implements DataRetriever {
 	public SpdzSInt[] retrieveExpPipe() {
 		if (expBuffer == null || !expBuffer.hasRemaining()) {
 			// One share and one mac for each value of the exp pipe
-			int bytesToRead = Util.size * Util.EXP_PIPE_SIZE * 2
+			int bytesToRead = size * Util.EXP_PIPE_SIZE * 2
 					* EXP_BUFFER_SIZE;
 			int totalBytesRead = 0;
 			if (expBuffer == null) {
@@ -254,7 +260,7 @@ public class DataRetrieverImpl implements DataRetriever {
 			}
 			expBuffer.flip();
 		}
-		byte[] array = new byte[Util.size];
+		byte[] array = new byte[size];
 		SpdzSInt[] pipe = new SpdzSInt[Util.EXP_PIPE_SIZE];
 		for (int i = 0; i < Util.EXP_PIPE_SIZE; i++) {
 			expBuffer.get(array);
@@ -273,7 +279,7 @@ public class DataRetrieverImpl implements DataRetriever {
 		BigInteger share;
 		BigInteger mac;
 		if (id == pID) {
-			int bytesToRead = Util.size * 3;
+			int bytesToRead = size * 3;
 			int totalBytesRead = 0;
 			ByteBuffer bb = ByteBuffer.allocate(bytesToRead);
 			try {
@@ -289,7 +295,7 @@ public class DataRetrieverImpl implements DataRetriever {
 			} catch (IOException e) {
 				throw new MPCException("Could not read inputmasks", e);
 			}
-			byte[] array = new byte[Util.size];
+			byte[] array = new byte[size];
 			bb.flip();
 			bb.get(array);
 			share = new BigInteger(1, array);
@@ -300,7 +306,7 @@ public class DataRetrieverImpl implements DataRetriever {
 			SpdzElement elm = new SpdzElement(share, mac);
 			return new SpdzInputMask(elm, realValue);
 		} else {
-			int bytesToRead = Util.size * 2;
+			int bytesToRead = size * 2;
 			int totalBytesRead = 0;
 			ByteBuffer bb = ByteBuffer.allocate(bytesToRead);
 			try {
@@ -316,7 +322,7 @@ public class DataRetrieverImpl implements DataRetriever {
 			} catch (IOException e) {
 				throw new MPCException("Could not read inputmasks", e);
 			}
-			byte[] array = new byte[Util.size];
+			byte[] array = new byte[size];
 			bb.rewind();
 			bb.get(array);
 			share = new BigInteger(1, array);
@@ -331,7 +337,7 @@ public class DataRetrieverImpl implements DataRetriever {
 	public SpdzSInt retrieveBit() {
 		if (bitBuffer == null || !bitBuffer.hasRemaining()) {
 			// One share and one mac for each bit
-			int bytesToRead = Util.size * 2 * BIT_BUFFER_SIZE;
+			int bytesToRead = size * 2 * BIT_BUFFER_SIZE;
 			int totalBytesRead = 0;
 			if (bitBuffer == null) {
 				bitBuffer = ByteBuffer.allocateDirect(bytesToRead);
@@ -353,7 +359,7 @@ public class DataRetrieverImpl implements DataRetriever {
 			bitBuffer.flip();
 		}
 
-		byte[] array = new byte[Util.size];
+		byte[] array = new byte[size];
 		bitBuffer.get(array);
 		BigInteger share = new BigInteger(1, array);
 		bitBuffer.get(array);
@@ -28,8 +28,12 @@ package dk.alexandra.fresco.suite.spdz.storage;
 
 import java.math.BigInteger;
 
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzEdaBit;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzMatrixTriple;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSquare;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
 
 public interface DataSupplier {
@@ -53,12 +57,70 @@ public interface DataSupplier {
 	 */
 	public abstract SpdzInputMask getNextInputMask(int towardPlayerID);
 
+	/**
+	 * Supplies the next amount input masks for a given input player, in the
+	 * order {@link #getNextInputMask(int)} would supply them.
+	 * @param towardPlayerID the id of the input player
+	 * @param amount the number of masks
+	 * @return the appropriate input masks
+	 */
+	public default SpdzInputMask[] getNextInputMasks(int towardPlayerID, int amount) {
+		SpdzInputMask[] masks = new SpdzInputMask[amount];
+		for (int i = 0; i < amount; i++) {
+			masks[i] = getNextInputMask(towardPlayerID);
+		}
+		return masks;
+	}
+
 	/**
 	 * Supplies the next bit (i.e. a SpdzSInt representing a value in {0, 1})
 	 * @return the next new bit
 	 */
 	public abstract SpdzSInt getNextBit();
 
+	/**
+	 * Supplies the next edaBit, i.e. a random value r of bit length
+	 * bitLength + securityParameter along with its bitLength least
+	 * significant bits. By default it is composed locally from
+	 * {@link #getNextBit()}, which needs no interaction as the bits are
+	 * shared in the field.
+	 * @param bitLength the number of bits of r that are supplied
+	 * @param securityParameter the number of extra random bits of r
+	 * @return the next new edaBit
+	 */
+	public default SpdzEdaBit getNextEdaBit(int bitLength, int securityParameter) {
+		BigInteger modulus = getModulus();
+		SpdzElement[] bits = new SpdzElement[bitLength];
+		BigInteger share = BigInteger.ZERO;
+		BigInteger mac = BigInteger.ZERO;
+		for (int i = bitLength + securityParameter - 1; i >= 0; i--) {
+			SpdzElement bit = getNextBit().value;
+			if (i < bitLength) {
+				bits[i] = bit;
+			}
+			share = share.shiftLeft(1).add(bit.getShare());
+			mac = mac.shiftLeft(1).add(bit.getMac());
+		}
+		return new SpdzEdaBit(new SpdzElement(share.mod(modulus), mac.mod(modulus)), bits);
+	}
+
+	/**
+	 * Supplies the next square pair, i.e. a random value a and its square
+	 * a^2.
+	 * @return the next new square pair
+	 */
+	public abstract SpdzSquare getNextSquare();
+
+	/**
+	 * Supplies the next matrix triple of the given shape, i.e. random matrices
+	 * A and B and their product C = A*B.
+	 * @param rows the number of rows of A and C
+	 * @param inner the number of columns of A and rows of B
+	 * @param columns the number of columns of B and C
+	 * @return the next new matrix triple of the shape
+	 */
+	public abstract SpdzMatrixTriple getNextMatrixTriple(int rows, int inner, int columns);
+
 	/**
 	 * The modulus used for this instance of SPDZ
 	 * @return a modulus
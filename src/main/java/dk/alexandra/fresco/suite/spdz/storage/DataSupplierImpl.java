@@ -30,9 +30,13 @@ import java.math.BigInteger;
 
 import dk.alexandra.fresco.framework.MPCException;
 import dk.alexandra.fresco.framework.sce.resources.storage.StreamedStorage;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzMatrixTriple;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSquare;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+import dk.alexandra.fresco.suite.spdz.utils.Util;
 
 /**
  * Data supplier which supplies the SPDZ protocol suite with preprocessed data.
@@ -40,6 +44,12 @@ import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
  * something else put it there already. See e.g. @NewDataRetriever for a way to
  * do so.
  * 
+ * If the storage holds a {@link SpdzShareSeed} for this thread, the data is
+ * seed compressed: the shares of this party are regenerated from the seed, and
+ * only the real values of the input masks toward this party are taken from the
+ * storage. The number of shares regenerated of each kind is limited by the
+ * counts the storage holds for the streams, if any.
+ * 
  * @author Kasper Damgaard
  *
  */
@@ -47,14 +57,23 @@ public class DataSupplierImpl implements DataSupplier {
 
 	private StreamedStorage storage;
 	private String storageName;
+	private int storageId;
 
 	private int tripleCounter = 0;
 	private int expPipeCounter = 0;
 	private int[] inputMaskCounters;
 	private int bitCounter = 0;
+	private int squareCounter = 0;
 
 	private BigInteger ssk;
 	private BigInteger mod;
+
+	private boolean seedChecked = false;
+	private SpdzShareSeed seed;
+	private SeededShareGenerator tripleGen, bitGen, expPipeGen, squareGen;
+	private SeededShareGenerator[] inputMaskGens;
+	private long tripleLimit, bitLimit, expPipeLimit, squareLimit;
+	private long[] inputMaskLimits;
 	
 	/**
 	 * Creates a new supplier which takes preprocessed data from the native
@@ -77,11 +96,55 @@ public class DataSupplierImpl implements DataSupplier {
 			int storageId, int NoOfThreadsUsed, int noOfParties) {
 		this.storage = storage;
 		this.storageName = storageName+"_"+storageId;
+		this.storageId = storageId;
 		this.inputMaskCounters = new int[noOfParties];
+		this.inputMaskGens = new SeededShareGenerator[noOfParties];
+		this.inputMaskLimits = new long[noOfParties];
+	}
+
+	/**
+	 * @return the seed of this party if the data is seed compressed,
+	 *         otherwise null.
+	 */
+	private SpdzShareSeed getSeed() {
+		if (!seedChecked) {
+			seed = this.storage.getObject(storageName, SpdzStorageConstants.SEED_KEY);
+			if (seed != null) {
+				BigInteger mod = getModulus();
+				tripleGen = seed.newGenerator(mod, storageId, SpdzDataShard.Kind.TRIPLE, 0);
+				bitGen = seed.newGenerator(mod, storageId, SpdzDataShard.Kind.BIT, 0);
+				expPipeGen = seed.newGenerator(mod, storageId, SpdzDataShard.Kind.EXP_PIPE, 0);
+				squareGen = seed.newGenerator(mod, storageId, SpdzDataShard.Kind.SQUARE, 0);
+				tripleLimit = getLimit(SpdzStorageConstants.TRIPLE_STORAGE);
+				bitLimit = getLimit(SpdzStorageConstants.BIT_STORAGE);
+				expPipeLimit = getLimit(SpdzStorageConstants.EXP_PIPE_STORAGE);
+				squareLimit = getLimit(SpdzStorageConstants.SQUARE_STORAGE);
+				for (int i = 0; i < inputMaskGens.length; i++) {
+					inputMaskGens[i] = seed.newGenerator(mod, storageId,
+							SpdzDataShard.Kind.INPUT_MASK, i + 1);
+					inputMaskLimits[i] = getLimit(SpdzStorageConstants.INPUT_STORAGE + (i + 1));
+				}
+			}
+			seedChecked = true;
+		}
+		return seed;
+	}
+
+	private long getLimit(String stream) {
+		Long limit = this.storage.getObject(storageName, stream);
+		return (limit == null) ? Long.MAX_VALUE : limit;
 	}
 
 	@Override
 	public SpdzTriple getNextTriple() {
+		if (getSeed() != null) {
+			if(tripleCounter >= tripleLimit) {
+				throw new MPCException("Triple no. "+tripleCounter+" was not present in the storage "+ storageName);
+			}
+			tripleCounter++;
+			return new SpdzTriple(tripleGen.nextElement(),
+					tripleGen.nextElement(), tripleGen.nextElement());
+		}
 		SpdzTriple trip = this.storage.getNext(storageName+
 				SpdzStorageConstants.TRIPLE_STORAGE);
 		if(trip == null) {
@@ -93,6 +156,17 @@ public class DataSupplierImpl implements DataSupplier {
 
 	@Override
 	public SpdzSInt[] getNextExpPipe() {
+		if (getSeed() != null) {
+			if(expPipeCounter >= expPipeLimit) {
+				throw new MPCException("expPipe no. "+expPipeCounter+" was not present in the storage" + storageName);
+			}
+			SpdzSInt[] expPipe = new SpdzSInt[Util.EXP_PIPE_SIZE];
+			for (int i = 0; i < expPipe.length; i++) {
+				expPipe[i] = new SpdzSInt(expPipeGen.nextElement());
+			}
+			expPipeCounter++;
+			return expPipe;
+		}
 		SpdzSInt[] expPipe = this.storage.getNext(storageName+SpdzStorageConstants.EXP_PIPE_STORAGE);
 		if(expPipe == null) {
 			throw new MPCException("expPipe no. "+expPipeCounter+" was not present in the storage" + storageName);
@@ -103,6 +177,22 @@ public class DataSupplierImpl implements DataSupplier {
 
 	@Override
 	public SpdzInputMask getNextInputMask(int towardPlayerID) {
+		if (getSeed() != null) {
+			if(inputMaskCounters[towardPlayerID-1] >= inputMaskLimits[towardPlayerID-1]) {
+				throw new MPCException("Mask no. "+inputMaskCounters[towardPlayerID-1]+" towards player "+towardPlayerID+" was not present in the storage " + storageName);
+			}
+			inputMaskCounters[towardPlayerID-1]++;
+			SpdzElement share = inputMaskGens[towardPlayerID-1].nextElement();
+			if (towardPlayerID != seed.getPartyId()) {
+				return new SpdzInputMask(share);
+			}
+			BigInteger realValue = this.storage.getNext(storageName +
+					SpdzStorageConstants.INPUT_STORAGE + towardPlayerID);
+			if(realValue == null) {
+				throw new MPCException("Mask no. "+inputMaskCounters[towardPlayerID-1]+" towards player "+towardPlayerID+" was not present in the storage " + storageName);
+			}
+			return new SpdzInputMask(share, realValue);
+		}
 		SpdzInputMask mask = this.storage.getNext(storageName +
 				SpdzStorageConstants.INPUT_STORAGE + towardPlayerID);
 		inputMaskCounters[towardPlayerID-1]++;
@@ -114,6 +204,13 @@ public class DataSupplierImpl implements DataSupplier {
 
 	@Override
 	public SpdzSInt getNextBit() {
+		if (getSeed() != null) {
+			if(bitCounter >= bitLimit) {
+				throw new MPCException("Bit no. "+bitCounter+" was not present in the storage "+ storageName);
+			}
+			bitCounter++;
+			return new SpdzSInt(bitGen.nextElement());
+		}
 		SpdzSInt bit = this.storage.getNext(storageName + 
 				SpdzStorageConstants.BIT_STORAGE);
 		if(bit == null) {
@@ -123,6 +220,39 @@ public class DataSupplierImpl implements DataSupplier {
 		return bit;
 	}
 
+	@Override
+	public SpdzSquare getNextSquare() {
+		if (getSeed() != null) {
+			if(squareCounter >= squareLimit) {
+				throw new MPCException("Square no. "+squareCounter+" was not present in the storage "+ storageName);
+			}
+			squareCounter++;
+			return new SpdzSquare(squareGen.nextElement(), squareGen.nextElement());
+		}
+		SpdzSquare square = this.storage.getNext(storageName +
+				SpdzStorageConstants.SQUARE_STORAGE);
+		if(square == null) {
+			throw new MPCException("Square no. "+squareCounter+" was not present in the storage "+ storageName);
+		}
+		squareCounter++;
+		return square;
+	}
+
+	/**
+	 * Matrix triples are always taken from the storage, also when the data is
+	 * seed compressed, as seeded shards do not hold matrix triples.
+	 */
+	@Override
+	public SpdzMatrixTriple getNextMatrixTriple(int rows, int inner, int columns) {
+		String shape = SpdzMatrixTriple.getShape(rows, inner, columns);
+		SpdzMatrixTriple triple = this.storage.getNext(storageName +
+				SpdzStorageConstants.MATRIX_TRIPLE_STORAGE + shape);
+		if(triple == null) {
+			throw new MPCException("Matrix triple of shape "+shape+" was not present in the storage "+ storageName);
+		}
+		return triple;
+	}
+
 	@Override
 	public BigInteger getModulus() {
 		if(this.mod != null) {
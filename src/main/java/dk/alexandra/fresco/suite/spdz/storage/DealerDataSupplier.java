@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.storage;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzMatrixTriple;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSquare;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+
+/**
+ * Data supplier which receives preprocessed data from a {@link TrustedDealer}
+ * while the computation is running.
+ * 
+ * Each kind of preprocessed data is fetched in batches by a background thread
+ * which is started the first time that kind of data is needed. A fetcher
+ * requests a new batch as soon as the previous one has been queued, and
+ * blocks while its queue is full. This way the dealer works ahead of the
+ * online phase, but never by more than the capacity of the queues.
+ * 
+ */
+public class DealerDataSupplier implements DataSupplier {
+
+	private static final int TRIPLE_BATCH_SIZE = 1024;
+	private static final int BIT_BATCH_SIZE = 1024;
+	private static final int INPUT_MASK_BATCH_SIZE = 256;
+	private static final int EXP_PIPE_BATCH_SIZE = 4;
+	private static final int SQUARE_BATCH_SIZE = 1024;
+
+	/**
+	 * Number of batches each queue can hold.
+	 */
+	private static final int QUEUE_BATCHES = 4;
+
+	private static final long POLL_INTERVAL_MILLIS = 100;
+
+	private final Network network;
+	private final int dealerId;
+	private final int threadId;
+	private final int noOfParties;
+	private final BigInteger modulus;
+	private final BigInteger ssk;
+
+	private final Fetcher[] fetchers;
+
+	/**
+	 * @param network
+	 *            a connected network where the dealer has id noOfParties + 1.
+	 * @param threadId
+	 *            the id of the VM thread using this supplier, starting from 0.
+	 * @param noOfParties
+	 *            the number of computing parties.
+	 * @param globals
+	 *            the modulus and share of the MAC key as returned by
+	 *            {@link #receiveGlobals(Network, int)}.
+	 */
+	public DealerDataSupplier(Network network, int threadId, int noOfParties,
+			BigInteger[] globals) {
+		this.network = network;
+		this.dealerId = noOfParties + 1;
+		this.threadId = threadId;
+		this.noOfParties = noOfParties;
+		this.modulus = globals[0];
+		this.ssk = globals[1];
+		this.fetchers = new Fetcher[TrustedDealer.INPUT_MASK + noOfParties];
+	}
+
+	/**
+	 * Receives the modulus and this party's share of the MAC key from the
+	 * dealer. Must be called once per party before any data is requested.
+	 * 
+	 * @return an array containing the modulus and the key share.
+	 */
+	public static BigInteger[] receiveGlobals(Network network, int noOfParties)
+			throws IOException {
+		return network.receive(TrustedDealer.GLOBAL_CHANNEL, noOfParties + 1);
+	}
+
+	@Override
+	public SpdzTriple getNextTriple() {
+		return next(TrustedDealer.TRIPLE, TRIPLE_BATCH_SIZE);
+	}
+
+	@Override
+	public SpdzSInt[] getNextExpPipe() {
+		return next(TrustedDealer.EXP_PIPE, EXP_PIPE_BATCH_SIZE);
+	}
+
+	@Override
+	public SpdzInputMask getNextInputMask(int towardPlayerID) {
+		return next(TrustedDealer.INPUT_MASK + towardPlayerID - 1,
+				INPUT_MASK_BATCH_SIZE);
+	}
+
+	@Override
+	public SpdzSInt getNextBit() {
+		return next(TrustedDealer.BIT, BIT_BATCH_SIZE);
+	}
+
+	@Override
+	public SpdzSquare getNextSquare() {
+		return next(TrustedDealer.SQUARE, SQUARE_BATCH_SIZE);
+	}
+
+	/**
+	 * The dealer prefetches each kind of data in batches on its own channel,
+	 * which does not fit data of many different shapes, so matrix triples must
+	 * be taken from a storage.
+	 */
+	@Override
+	public SpdzMatrixTriple getNextMatrixTriple(int rows, int inner, int columns) {
+		throw new MPCException("The trusted dealer does not supply matrix triples");
+	}
+
+	@Override
+	public BigInteger getModulus() {
+		return modulus;
+	}
+
+	@Override
+	public BigInteger getSSK() {
+		return ssk;
+	}
+
+	/**
+	 * Stops all background fetching.
+	 */
+	public void shutdown() {
+		synchronized (fetchers) {
+			for (Fetcher f : fetchers) {
+				if (f != null) {
+					f.interrupt();
+				}
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T extends Serializable> T next(int kind, int batchSize) {
+		Fetcher fetcher;
+		synchronized (fetchers) {
+			fetcher = fetchers[kind];
+			if (fetcher == null) {
+				fetcher = new Fetcher(kind, batchSize);
+				fetchers[kind] = fetcher;
+				fetcher.start();
+			}
+		}
+		try {
+			Serializable next;
+			do {
+				if (fetcher.error != null) {
+					throw new MPCException("Could not fetch preprocessed data from the dealer",
+							fetcher.error);
+				}
+				next = fetcher.queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+			} while (next == null);
+			return (T) next;
+		} catch (InterruptedException e) {
+			throw new MPCException("Interrupted while waiting for preprocessed data", e);
+		}
+	}
+
+	private class Fetcher extends Thread {
+
+		private final String channel;
+		private final int batchSize;
+		private final BlockingQueue<Serializable> queue;
+		private volatile Exception error;
+
+		Fetcher(int kind, int batchSize) {
+			super("DealerFetcher-" + threadId + "-" + kind);
+			setDaemon(true);
+			this.channel = TrustedDealer.getChannel(noOfParties, threadId, kind);
+			this.batchSize = batchSize;
+			this.queue = new ArrayBlockingQueue<Serializable>(batchSize * QUEUE_BATCHES);
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (!isInterrupted()) {
+					network.send(channel, dealerId, batchSize);
+					Serializable[] batch = network.receive(channel, dealerId);
+					for (Serializable s : batch) {
+						queue.put(s);
+					}
+				}
+			} catch (InterruptedException e) {
+				// Shut down.
+			} catch (IOException | RuntimeException e) {
+				error = e;
+			}
+		}
+	}
+}
@@ -1,12 +1,15 @@
 package dk.alexandra.fresco.suite.spdz.storage;
 
 import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzMatrixTriple;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSquare;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
 
 public class DummyDataSupplierImpl implements DataSupplier{
@@ -83,6 +86,41 @@ public class DummyDataSupplierImpl implements DataSupplier{
 		throw new RuntimeException("Not implemented yet");
 	}
 
+	/**
+	 * A bit is its own square, so the dummy bit doubles as a square pair.
+	 */
+	@Override
+	public SpdzSquare getNextSquare() {
+		SpdzElement bit = getNextBit().value;
+		return new SpdzSquare(bit, bit);
+	}
+
+	/**
+	 * Built from the dummy triple (a, b, c): A has all entries a and B all
+	 * entries b, so each entry of A*B is inner * c.
+	 */
+	@Override
+	public SpdzMatrixTriple getNextMatrixTriple(int rows, int inner, int columns) {
+		SpdzTriple triple = getNextTriple();
+		BigInteger mod = getModulus();
+		BigInteger scale = BigInteger.valueOf(inner);
+		SpdzElement c = new SpdzElement(triple.getC().getShare().multiply(scale).mod(mod),
+				triple.getC().getMac().multiply(scale).mod(mod));
+		SpdzElement[][] as = new SpdzElement[rows][inner];
+		SpdzElement[][] bs = new SpdzElement[inner][columns];
+		SpdzElement[][] cs = new SpdzElement[rows][columns];
+		for (SpdzElement[] row : as) {
+			Arrays.fill(row, triple.getA());
+		}
+		for (SpdzElement[] row : bs) {
+			Arrays.fill(row, triple.getB());
+		}
+		for (SpdzElement[] row : cs) {
+			Arrays.fill(row, c);
+		}
+		return new SpdzMatrixTriple(as, bs, cs);
+	}
+
 	@Override
 	public BigInteger getModulus() {
 		return new BigInteger("6703903964971298549787012499123814115273848577471136527425966013026501536706464354255445443244279389455058889493431223951165286470575994074291745908195329");
@@ -30,13 +30,16 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Serializable;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -45,8 +48,11 @@ import java.util.Random;
 import dk.alexandra.fresco.framework.MPCException;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzMatrixTriple;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSquare;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+import dk.alexandra.fresco.suite.spdz.forecast.ResourceReport;
 import dk.alexandra.fresco.suite.spdz.utils.Util;
 
 /**
@@ -66,6 +72,10 @@ public class FakeTripGen {
 	private static int numberOfBits;
 	private static int numberOfInputs;
 	private static int numberOfExps;
+	private static int numberOfSquares;
+	private static int numberOfShards;
+	private static boolean seeded;
+	private static String directory;
 
 	private static String triplesFilename = "Triples-p-P";
 	private static String expPipeFilename = "Exp-pipe-p-P";
@@ -75,6 +85,8 @@ public class FakeTripGen {
 	private static String inputsFilename = "Inputs-p-P";
 	private static String bitsFilename = "Bits-p-P";
 
+	private static final int SHARD_WRITE_BUFFER_SIZE = 1 << 20;
+
 	private static final StandardOpenOption WRITE = StandardOpenOption.WRITE;
 	private static final StandardOpenOption CREATE = StandardOpenOption.CREATE;
 
@@ -251,6 +263,109 @@ public class FakeTripGen {
 		return res;
 	}
 
+	/**
+	 * Generates the given amount of square pairs. The list contains an array
+	 * of size noOfParties - one share for each party
+	 * 
+	 * @param amount
+	 * @param noOfParties
+	 * @param modulus
+	 * @param alpha
+	 * @return
+	 */
+	public static List<SpdzSquare[]> generateSquares(int amount,
+			int noOfParties, BigInteger modulus, BigInteger alpha) {
+		FakeTripGen.rand = new Random();
+		FakeTripGen.alpha = alpha;
+		FakeTripGen.mod = modulus;
+
+		List<SpdzSquare[]> squares = new ArrayList<SpdzSquare[]>(amount);
+		for (int i = 0; i < amount; i++) {
+			BigInteger a = sample();
+			List<SpdzElement> elementsA = toShares(a, getMac(a), noOfParties);
+			BigInteger b = a.multiply(a).mod(mod);
+			List<SpdzElement> elementsB = toShares(b, getMac(b), noOfParties);
+
+			SpdzSquare[] arr = new SpdzSquare[noOfParties];
+			for (int j = 0; j < noOfParties; j++) {
+				arr[j] = new SpdzSquare(elementsA.get(j), elementsB.get(j));
+			}
+			squares.add(arr);
+		}
+		return squares;
+	}
+
+	/**
+	 * Generates the given amount of matrix triples of a single shape. The list
+	 * contains an array of size noOfParties - one share for each party
+	 * 
+	 * @param amount
+	 * @param noOfParties
+	 * @param modulus
+	 * @param alpha
+	 * @param rows
+	 *            the number of rows of A and C.
+	 * @param inner
+	 *            the number of columns of A and rows of B.
+	 * @param columns
+	 *            the number of columns of B and C.
+	 * @return
+	 */
+	public static List<SpdzMatrixTriple[]> generateMatrixTriples(int amount,
+			int noOfParties, BigInteger modulus, BigInteger alpha, int rows,
+			int inner, int columns) {
+		FakeTripGen.rand = new Random();
+		FakeTripGen.alpha = alpha;
+		FakeTripGen.mod = modulus;
+
+		List<SpdzMatrixTriple[]> triples = new ArrayList<SpdzMatrixTriple[]>(amount);
+		for (int t = 0; t < amount; t++) {
+			BigInteger[][] a = new BigInteger[rows][inner];
+			BigInteger[][] b = new BigInteger[inner][columns];
+			SpdzElement[][][] as = new SpdzElement[noOfParties][rows][inner];
+			SpdzElement[][][] bs = new SpdzElement[noOfParties][inner][columns];
+			SpdzElement[][][] cs = new SpdzElement[noOfParties][rows][columns];
+			for (int i = 0; i < rows; i++) {
+				for (int k = 0; k < inner; k++) {
+					a[i][k] = sample();
+					share(a[i][k], as, i, k);
+				}
+			}
+			for (int k = 0; k < inner; k++) {
+				for (int j = 0; j < columns; j++) {
+					b[k][j] = sample();
+					share(b[k][j], bs, k, j);
+				}
+			}
+			for (int i = 0; i < rows; i++) {
+				for (int j = 0; j < columns; j++) {
+					BigInteger c = BigInteger.ZERO;
+					for (int k = 0; k < inner; k++) {
+						c = c.add(a[i][k].multiply(b[k][j]));
+					}
+					share(c.mod(mod), cs, i, j);
+				}
+			}
+			SpdzMatrixTriple[] arr = new SpdzMatrixTriple[noOfParties];
+			for (int p = 0; p < noOfParties; p++) {
+				arr[p] = new SpdzMatrixTriple(as[p], bs[p], cs[p]);
+			}
+			triples.add(arr);
+		}
+		return triples;
+	}
+
+	/**
+	 * Shares a value and puts the share of each party p at shares[p][i][j].
+	 */
+	private static void share(BigInteger value, SpdzElement[][][] shares,
+			int i, int j) {
+		List<SpdzElement> elements = toShares(value, getMac(value), shares.length);
+		for (int p = 0; p < shares.length; p++) {
+			shares[p][i][j] = elements.get(p);
+		}
+	}
+
 	/**
 	 * Returns a list of double-arrays where the first array contains the expPipe for that player. i.e. list.get(0)[0] contains the expPipe no. 1 for player 1. 
 	 * @param amount
@@ -310,6 +425,218 @@ public class FakeTripGen {
 		return alphaShares;
 	}
 
+	/**
+	 * Generates sharded preprocessed data and writes it to the given
+	 * directory, such that it can be read by the {@link ShardedDataLoader}.
+	 * Each of the given number of threads gets its own shards holding the
+	 * given amounts of data.
+	 * 
+	 * @param path
+	 *            the directory to write the shards to.
+	 * @param noOfParties
+	 * @param noOfThreads
+	 * @param noOfTriples
+	 *            number of triples per thread.
+	 * @param noOfInputMasks
+	 *            number of input masks toward each player per thread.
+	 * @param noOfBits
+	 *            number of bits per thread.
+	 * @param noOfExpPipes
+	 *            number of exp pipes per thread.
+	 * @param modulus
+	 * @throws IOException
+	 */
+	public static void writeShards(String path, int noOfParties,
+			int noOfThreads, int noOfTriples, int noOfInputMasks, int noOfBits,
+			int noOfExpPipes, BigInteger modulus) throws IOException {
+		writeShards(path, noOfParties, noOfThreads, noOfTriples,
+				noOfInputMasks, noOfBits, noOfExpPipes, modulus, false);
+	}
+
+	/**
+	 * As {@link #writeShards(String, int, int, int, int, int, int, BigInteger)}
+	 * , but can write seed compressed data. In that case, all parties except
+	 * party 1 get a seed from which they regenerate their shares, and only
+	 * party 1 stores its shares explicitly. This divides the size of the
+	 * preprocessed data by roughly the number of parties.
+	 * 
+	 * @param seeded
+	 *            true if the data should be seed compressed.
+	 */
+	public static void writeShards(String path, int noOfParties,
+			int noOfThreads, int noOfTriples, int noOfInputMasks, int noOfBits,
+			int noOfExpPipes, BigInteger modulus, boolean seeded)
+			throws IOException {
+		writeShards(path, noOfParties, noOfThreads, noOfTriples,
+				noOfInputMasks, noOfBits, noOfExpPipes, 0, modulus, seeded);
+	}
+
+	/**
+	 * As
+	 * {@link #writeShards(String, int, int, int, int, int, int, BigInteger, boolean)}
+	 * , but also writes square pairs. No square shards are written if the
+	 * number of square pairs is 0.
+	 * 
+	 * @param noOfSquares
+	 *            number of square pairs per thread.
+	 */
+	public static void writeShards(String path, int noOfParties,
+			int noOfThreads, int noOfTriples, int noOfInputMasks, int noOfBits,
+			int noOfExpPipes, int noOfSquares, BigInteger modulus,
+			boolean seeded) throws IOException {
+		File dir = new File(path);
+		if (!dir.exists()) {
+			dir.mkdirs();
+		}
+		List<BigInteger> alphaShares = generateAlphaShares(noOfParties, modulus);
+		BigInteger a = BigInteger.ZERO;
+		for (BigInteger share : alphaShares) {
+			a = a.add(share);
+		}
+		FakeTripGen.alpha = a.mod(modulus);
+		SpdzShareSeed[] seeds = new SpdzShareSeed[noOfParties];
+		if (seeded) {
+			SecureRandom seedRand = new SecureRandom();
+			for (int i = 1; i < noOfParties; i++) {
+				byte[] seed = new byte[SeededShareGenerator.SEED_SIZE];
+				seedRand.nextBytes(seed);
+				seeds[i] = new SpdzShareSeed(i + 1, seed);
+			}
+		}
+		for (int i = 0; i < noOfParties; i++) {
+			FileWriter fw = new FileWriter(SpdzDataShard.getGlobalFilename(path, i + 1));
+			fw.write(modulus.toString() + " " + alphaShares.get(i).toString());
+			if (seeds[i] != null) {
+				fw.write(" " + seeds[i].toHex());
+			}
+			fw.close();
+		}
+		for (int threadId = 1; threadId <= noOfThreads; threadId++) {
+			writeShard(path, SpdzDataShard.Kind.TRIPLE, threadId, 0, noOfTriples, seeds);
+			writeShard(path, SpdzDataShard.Kind.BIT, threadId, 0, noOfBits, seeds);
+			writeShard(path, SpdzDataShard.Kind.EXP_PIPE, threadId, 0, noOfExpPipes, seeds);
+			if (noOfSquares > 0) {
+				writeShard(path, SpdzDataShard.Kind.SQUARE, threadId, 0, noOfSquares, seeds);
+			}
+			for (int toward = 1; toward <= noOfParties; toward++) {
+				writeShard(path, SpdzDataShard.Kind.INPUT_MASK, threadId, toward,
+						noOfInputMasks, seeds);
+			}
+		}
+	}
+
+	/**
+	 * Writes the shard of the given kind and thread for each party. Parties
+	 * with a seed get a seeded shard, and their shares are generated from the
+	 * seed. Assumes mod and alpha has been set.
+	 */
+	private static void writeShard(String path, SpdzDataShard.Kind kind,
+			int threadId, int towardPlayer, int amount, SpdzShareSeed[] seeds)
+			throws IOException {
+		int noOfParties = seeds.length;
+		SpdzDataShard[] shards = new SpdzDataShard[noOfParties];
+		FileChannel[] channels = new FileChannel[noOfParties];
+		ByteBuffer[] buffers = new ByteBuffer[noOfParties];
+		SeededShareGenerator[] generators = new SeededShareGenerator[noOfParties];
+		for (int i = 0; i < noOfParties; i++) {
+			if (seeds[i] != null) {
+				generators[i] = seeds[i].newGenerator(mod, threadId, kind, towardPlayer);
+			}
+			shards[i] = new SpdzDataShard(kind, i + 1, threadId, towardPlayer,
+					seeds[i] != null, amount, mod);
+			channels[i] = new FileOutputStream(SpdzDataShard.getFilename(path,
+					kind, i + 1, threadId, towardPlayer)).getChannel();
+			shards[i].writeHeader(channels[i]);
+			int records = Math.max(1, SHARD_WRITE_BUFFER_SIZE
+					/ Math.max(1, shards[i].getRecordSize()));
+			buffers[i] = ByteBuffer.allocate(records * shards[i].getRecordSize());
+		}
+		for (int j = 0; j < amount; j++) {
+			Serializable[] records = generateRecords(kind, towardPlayer, generators);
+			for (int i = 0; i < noOfParties; i++) {
+				if (buffers[i].remaining() < shards[i].getRecordSize()) {
+					flush(buffers[i], channels[i]);
+				}
+				shards[i].writeRecord(buffers[i], records[i]);
+			}
+		}
+		for (int i = 0; i < noOfParties; i++) {
+			flush(buffers[i], channels[i]);
+			channels[i].close();
+		}
+	}
+
+	private static void flush(ByteBuffer buffer, FileChannel channel)
+			throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Generates a single piece of preprocessed data, returning each party's
+	 * share of it. Parties with a generator get their shares from it.
+	 */
+	private static Serializable[] generateRecords(SpdzDataShard.Kind kind,
+			int towardPlayer, SeededShareGenerator[] generators) {
+		int noOfParties = generators.length;
+		Serializable[] records = new Serializable[noOfParties];
+		switch (kind) {
+		case TRIPLE:
+			BigInteger a = sample();
+			BigInteger b = sample();
+			List<SpdzElement> as = toShares(a, getMac(a), generators);
+			List<SpdzElement> bs = toShares(b, getMac(b), generators);
+			BigInteger c = a.multiply(b).mod(mod);
+			List<SpdzElement> cs = toShares(c, getMac(c), generators);
+			for (int i = 0; i < noOfParties; i++) {
+				records[i] = new SpdzTriple(as.get(i), bs.get(i), cs.get(i));
+			}
+			break;
+		case BIT:
+			BigInteger bit = new BigInteger(1, rand);
+			List<SpdzElement> bits = toShares(bit, getMac(bit), generators);
+			for (int i = 0; i < noOfParties; i++) {
+				records[i] = new SpdzSInt(bits.get(i));
+			}
+			break;
+		case SQUARE:
+			BigInteger s = sample();
+			List<SpdzElement> ss = toShares(s, getMac(s), generators);
+			BigInteger s2 = s.multiply(s).mod(mod);
+			List<SpdzElement> s2s = toShares(s2, getMac(s2), generators);
+			for (int i = 0; i < noOfParties; i++) {
+				records[i] = new SpdzSquare(ss.get(i), s2s.get(i));
+			}
+			break;
+		case EXP_PIPE:
+			SpdzSInt[][] pipes = new SpdzSInt[noOfParties][Util.EXP_PIPE_SIZE];
+			BigInteger r = sample();
+			BigInteger exp = r.modInverse(mod);
+			for (int k = 0; k < Util.EXP_PIPE_SIZE; k++) {
+				List<SpdzElement> shares = toShares(exp, getMac(exp), generators);
+				for (int i = 0; i < noOfParties; i++) {
+					pipes[i][k] = new SpdzSInt(shares.get(i));
+				}
+				exp = (k == 0) ? r : exp.multiply(r).mod(mod);
+			}
+			for (int i = 0; i < noOfParties; i++) {
+				records[i] = pipes[i];
+			}
+			break;
+		default:
+			BigInteger mask = sample();
+			List<SpdzElement> masks = toShares(mask, getMac(mask), generators);
+			for (int i = 0; i < noOfParties; i++) {
+				records[i] = (i + 1 == towardPlayer) ? new SpdzInputMask(
+						masks.get(i), mask) : new SpdzInputMask(masks.get(i));
+			}
+		}
+		return records;
+	}
+
 	/**
 	 * Generates offline data and writes it to a file according to the given
 	 * arguments. The needed arguments should be explained by running the method
@@ -321,6 +648,16 @@ public class FakeTripGen {
 	 */
 	public static void main(String[] args) {
 		if (handleArgs(args)) {
+			if (numberOfShards > 0) {
+				try {
+					writeShards(directory, numberOfParties, numberOfShards,
+							numberOfTriples, numberOfInputs, numberOfBits,
+							numberOfExps, numberOfSquares, mod, seeded);
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+				return;
+			}
 			// rand = new SecureRandom();
 			rand = new Random(0);
 			alpha = sample();
@@ -380,11 +717,22 @@ public class FakeTripGen {
 		boolean expPresent = false;
 		String dirKey = "-d=";
 		boolean dirPresent = false;
+		String reportKey = "-r=";
+		String shardsKey = "-s=";
+		String seededKey = "-c=";
+		String squaresKey = "-q=";
 		String usage = "Please give the following arguments: " + primeKey
 				+ "[modulus] " + tripKey + "[#triples] " + inputKey
 				+ "[#inputs (per player)] " + bitKey + "[#bits] " + expKey
 				+ "[#exp pipes] " + partiesKey + "[#parties] " + dirKey
-				+ "[directory (to store files)]";
+				+ "[directory (to store files)]. Alternatively " + reportKey
+				+ "[resource report file] can be given instead of the amounts"
+				+ " and number of parties. Give " + shardsKey
+				+ "[#threads] to write sharded data for each thread instead,"
+				+ " in which case the amounts are per thread, and "
+				+ seededKey + "true to seed compress the sharded data. "
+				+ squaresKey + "[#square pairs] is optional and only"
+				+ " used for sharded data.";
 		for (String arg : args) {
 			if (arg.length() < 4) {
 				System.err.println("Malformed argument \"" + arg + "\". "
@@ -410,7 +758,34 @@ public class FakeTripGen {
 			} else if (key.equals(expKey)) {
 				numberOfExps = Integer.parseInt(value);
 				expPresent = true;
+			} else if (key.equals(reportKey)) {
+				ResourceReport report;
+				try {
+					report = ResourceReport.load(new File(value));
+				} catch (IOException e) {
+					System.err.println("Could not read resource report \""
+							+ value + "\": " + e.getMessage());
+					return false;
+				}
+				numberOfTriples = (int) report.getTotalTriples();
+				numberOfInputs = (int) report.getMaxTotalInputMasks();
+				numberOfBits = (int) report.getTotalBits();
+				numberOfExps = (int) report.getTotalExpPipes();
+				numberOfSquares = (int) report.getTotalSquares();
+				numberOfParties = report.getNoOfParties();
+				tripPresent = true;
+				inputPresent = true;
+				bitPresent = true;
+				expPresent = true;
+				partiesPresent = true;
+			} else if (key.equals(shardsKey)) {
+				numberOfShards = Integer.parseInt(value);
+			} else if (key.equals(seededKey)) {
+				seeded = Boolean.parseBoolean(value);
+			} else if (key.equals(squaresKey)) {
+				numberOfSquares = Integer.parseInt(value);
 			} else if (key.equals(dirKey)) {
+				directory = value;
 				if (value.lastIndexOf("/") != value.length() - 1) {
 					value = value + "/";
 				}
@@ -669,6 +1044,32 @@ public class FakeTripGen {
 		return elements;
 	}
 
+	/**
+	 * As {@link #toShares(BigInteger, BigInteger, int)}, but the parties with
+	 * a generator get their shares from it, and the first party without one
+	 * gets the correcting share.
+	 */
+	private static List<SpdzElement> toShares(BigInteger value, BigInteger mac,
+			SeededShareGenerator[] generators) {
+		int correction = -1;
+		SpdzElement[] elements = new SpdzElement[generators.length];
+		for (int i = 0; i < generators.length; i++) {
+			if (generators[i] == null) {
+				if (correction == -1) {
+					correction = i;
+					continue;
+				}
+				elements[i] = new SpdzElement(sample(), sample());
+			} else {
+				elements[i] = generators[i].nextElement();
+			}
+			value = value.subtract(elements[i].getShare()).mod(mod);
+			mac = mac.subtract(elements[i].getMac()).mod(mod);
+		}
+		elements[correction] = new SpdzElement(value, mac);
+		return Arrays.asList(elements);
+	}
+
 	/**
 	 * Get a SPDZ mac on a given value
 	 * 
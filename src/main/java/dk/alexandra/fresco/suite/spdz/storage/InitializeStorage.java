@@ -29,13 +29,19 @@ package dk.alexandra.fresco.suite.spdz.storage;
 import java.io.File;
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import dk.alexandra.fresco.framework.MPCException;
 import dk.alexandra.fresco.framework.sce.resources.storage.Storage;
 import dk.alexandra.fresco.framework.sce.resources.storage.StreamedStorage;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzMatrixTriple;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSquare;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+import dk.alexandra.fresco.suite.spdz.forecast.ResourceReport;
 
 public class InitializeStorage {
 
@@ -130,8 +136,78 @@ public class InitializeStorage {
 		}
 	}
 
+	/**
+	 * Generates the preprocessed data given by a forecast, i.e. the total
+	 * amount used by all threads, and stores it in the given stores.
+	 * 
+	 * @param stores
+	 * @param report
+	 *            a report made by the ResourceForecaster.
+	 */
+	public static void initStorage(Storage[] stores, ResourceReport report) {
+		initStorage(stores, report.getNoOfParties(), toInt(report.getTotalTriples()),
+				toInt(report.getMaxTotalInputMasks()), toInt(report.getTotalBits()),
+				toInt(report.getTotalExpPipes()));
+	}
+
+	/**
+	 * Generates the preprocessed data given by a forecast and stores it in the
+	 * given streamed stores. Every thread gets the amount used by the most
+	 * demanding thread.
+	 * 
+	 * @param streamedStorages
+	 * @param report
+	 *            a report made by the ResourceForecaster.
+	 */
+	public static void initStreamedStorage(StreamedStorage[] streamedStorages, ResourceReport report) {
+		initStreamedStorage(streamedStorages, report.getNoOfParties(), report.getNoOfThreads(),
+				toInt(report.getMaxTriplesPerThread()), toInt(report.getMaxInputMasksPerThread()),
+				toInt(report.getMaxBitsPerThread()), toInt(report.getMaxExpPipesPerThread()),
+				toInt(report.getMaxSquaresPerThread()), getMaxMatrixTriplesPerThread(report));
+	}
+
+	private static Map<String, Integer> getMaxMatrixTriplesPerThread(ResourceReport report) {
+		Map<String, Integer> res = new HashMap<String, Integer>();
+		for (String shape : report.getMatrixTripleShapes()) {
+			res.put(shape, toInt(report.getMaxMatrixTriplesPerThread(shape)));
+		}
+		return res;
+	}
+
+	private static int toInt(long amount) {
+		if (amount > Integer.MAX_VALUE) {
+			throw new MPCException("Cannot generate " + amount + " elements of preprocessed data");
+		}
+		return (int) amount;
+	}
+
 	public static void initStreamedStorage(StreamedStorage[] streamedStorages, int noOfPlayers, int noOfThreads,
 			int noOfTriples, int noOfInputMasks, int noOfBits, int noOfExpPipes) {
+		initStreamedStorage(streamedStorages, noOfPlayers, noOfThreads, noOfTriples, noOfInputMasks, noOfBits,
+				noOfExpPipes, 0);
+	}
+
+	/**
+	 * As {@link #initStreamedStorage(StreamedStorage[], int, int, int, int, int, int)}, but also generates the
+	 * given number of square pairs for each thread.
+	 */
+	public static void initStreamedStorage(StreamedStorage[] streamedStorages, int noOfPlayers, int noOfThreads,
+			int noOfTriples, int noOfInputMasks, int noOfBits, int noOfExpPipes, int noOfSquares) {
+		initStreamedStorage(streamedStorages, noOfPlayers, noOfThreads, noOfTriples, noOfInputMasks, noOfBits,
+				noOfExpPipes, noOfSquares, new HashMap<String, Integer>());
+	}
+
+	/**
+	 * As {@link #initStreamedStorage(StreamedStorage[], int, int, int, int, int, int, int)}, but also generates
+	 * matrix triples for each thread.
+	 * 
+	 * @param noOfMatrixTriples
+	 *            the number of matrix triples of each shape, with shapes as given by
+	 *            {@link SpdzMatrixTriple#getShape(int, int, int)}.
+	 */
+	public static void initStreamedStorage(StreamedStorage[] streamedStorages, int noOfPlayers, int noOfThreads,
+			int noOfTriples, int noOfInputMasks, int noOfBits, int noOfExpPipes, int noOfSquares,
+			Map<String, Integer> noOfMatrixTriples) {
 		List<Storage> tmpStores = new ArrayList<Storage>();
 		for (StreamedStorage s : streamedStorages) {
 			try {
@@ -148,7 +224,7 @@ public class InitializeStorage {
 			return;
 		}
 		System.out.println("Generating preprocessed data!");
-		File f = new File("spdz");
+		File f = new File(SpdzStorageConstants.STORAGE_FOLDER);
 		if(!f.exists()) {
 			f.mkdirs();
 		}
@@ -169,6 +245,13 @@ public class InitializeStorage {
 		List<List<SpdzInputMask[]>> inputMasks = FakeTripGen.generateInputMasks(noOfInputMasks, noOfPlayers, p, alpha);
 		List<SpdzSInt[]> bits = FakeTripGen.generateBits(noOfBits, noOfPlayers, p, alpha);
 		List<SpdzSInt[][]> expPipes = FakeTripGen.generateExpPipes(noOfExpPipes, noOfPlayers, p, alpha);
+		List<SpdzSquare[]> squares = FakeTripGen.generateSquares(noOfSquares, noOfPlayers, p, alpha);
+		Map<String, List<SpdzMatrixTriple[]>> matrixTriples = new HashMap<String, List<SpdzMatrixTriple[]>>();
+		for (Map.Entry<String, Integer> e : noOfMatrixTriples.entrySet()) {
+			int[] shape = SpdzMatrixTriple.parseShape(e.getKey());
+			matrixTriples.put(e.getKey(), FakeTripGen.generateMatrixTriples(e.getValue(), noOfPlayers, p, alpha,
+					shape[0], shape[1], shape[2]));
+		}
 
 		for (StreamedStorage store : storages) {
 			for (int i = 1; i < noOfPlayers + 1; i++) {
@@ -221,6 +304,29 @@ public class InitializeStorage {
 					}
 				}
 			}
+
+			// squares
+			for (SpdzSquare[] square : squares) {
+				for (int i = 0; i < noOfPlayers; i++) {
+					for (int threadId = 1; threadId < noOfThreads + 1; threadId++) {
+						String storageName = SpdzStorageConstants.STORAGE_NAME_PREFIX + (i + 1) + "_" + threadId;
+						store.putNext(storageName + SpdzStorageConstants.SQUARE_STORAGE, square[i]);
+					}
+				}
+			}
+
+			// matrix triples
+			for (Map.Entry<String, List<SpdzMatrixTriple[]>> e : matrixTriples.entrySet()) {
+				for (SpdzMatrixTriple[] triple : e.getValue()) {
+					for (int i = 0; i < noOfPlayers; i++) {
+						for (int threadId = 1; threadId < noOfThreads + 1; threadId++) {
+							String storageName = SpdzStorageConstants.STORAGE_NAME_PREFIX + (i + 1) + "_" + threadId;
+							store.putNext(storageName + SpdzStorageConstants.MATRIX_TRIPLE_STORAGE + e.getKey(),
+									triple[i]);
+						}
+					}
+				}
+			}
 		}
 	}
 }
@@ -0,0 +1,242 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.storage;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.math.ModularArithmetic;
+import dk.alexandra.fresco.framework.math.MontgomeryField;
+import dk.alexandra.fresco.framework.util.FieldPrg;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
+import dk.alexandra.fresco.suite.spdz.utils.SpdzField;
+
+/**
+ * Keeps the running sums of the MAC check as the values are opened, such
+ * that the opened values and their MACs never have to be stored.
+ * 
+ * Values are folded in batches of {@link #BATCH_SIZE}. The coefficients r_i
+ * of a batch are drawn from an AES based PRG seeded by a hash of the epoch
+ * seed, the batch number and the opened values of the batch. The epoch seed
+ * is tossed jointly by the parties, and since the opened values are public
+ * all parties derive the same coefficients. As the coefficients are only
+ * fixed after the values of the batch are opened, an error in an opened
+ * value is caught except with probability about 1/p, as in the check where
+ * all coefficients are drawn at the end.
+ * 
+ * The accumulator is not thread safe. Each evaluation thread folds the
+ * values of its own storage, so the partial sums are computed in parallel.
+ */
+public class MacCheckAccumulator {
+
+	/**
+	 * The number of opened values folded at a time.
+	 */
+	public static final int BATCH_SIZE = 1024;
+
+	private final MessageDigest digest;
+	private final List<BigInteger> opened;
+	private final List<SpdzElement> closed;
+	private SpdzField field;
+	private byte[] seed;
+	private long batches;
+	private long count;
+	private BigInteger openedSum;
+	private BigInteger macSum;
+
+	public MacCheckAccumulator() {
+		try {
+			this.digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new MPCException("SHA-256 is needed for the MAC check", e);
+		}
+		this.opened = new ArrayList<BigInteger>(BATCH_SIZE + 2);
+		this.closed = new ArrayList<SpdzElement>(BATCH_SIZE + 2);
+		this.seed = new byte[FieldPrg.SEED_SIZE];
+		reset();
+	}
+
+	/**
+	 * Discards all values and sums, keeping the field and the seed of the
+	 * current epoch.
+	 */
+	public void reset() {
+		this.opened.clear();
+		this.closed.clear();
+		this.batches = 0;
+		this.count = 0;
+		this.openedSum = BigInteger.ZERO;
+		this.macSum = BigInteger.ZERO;
+	}
+
+	/**
+	 * Discards all values and sums, and starts a new epoch.
+	 * 
+	 * @param field
+	 *            the field the values live in.
+	 * @param seed
+	 *            the seed of the new epoch, which must be the same for all
+	 *            parties.
+	 */
+	public void reset(SpdzField field, byte[] seed) {
+		this.field = field;
+		this.seed = seed.clone();
+		reset();
+	}
+
+	/**
+	 * Adds an opened value.
+	 */
+	public void addOpenedValue(BigInteger value) {
+		opened.add(value);
+		foldIfFull();
+	}
+
+	/**
+	 * Adds the closed value belonging to an opened value.
+	 */
+	public void addClosedValue(SpdzElement element) {
+		closed.add(element);
+		foldIfFull();
+	}
+
+	/**
+	 * Adds a number of opened values, e.g. those of a vector opening.
+	 */
+	public void addOpenedValues(BigInteger[] values) {
+		opened.addAll(Arrays.asList(values));
+		foldIfFull();
+	}
+
+	/**
+	 * Adds the closed values belonging to a number of opened values.
+	 */
+	public void addClosedValues(SpdzElement[] elements) {
+		closed.addAll(Arrays.asList(elements));
+		foldIfFull();
+	}
+
+	/**
+	 * Folds the values of the last, incomplete batch into the sums.
+	 * 
+	 * @throws MPCException
+	 *             if the number of opened and closed values differ.
+	 */
+	public void flush() {
+		if (opened.size() != closed.size()) {
+			throw new MPCException(
+					"Amount of closed values does not equal the amount of partially opened values. Aborting!");
+		}
+		if (!opened.isEmpty()) {
+			fold(opened.size());
+		}
+	}
+
+	/**
+	 * @return the sum of r_i * a_i over the folded opened values a_i.
+	 */
+	public BigInteger getOpenedSum() {
+		return openedSum;
+	}
+
+	/**
+	 * @return the sum of r_i * m_i over the MAC shares m_i of the folded
+	 *         values.
+	 */
+	public BigInteger getMacSum() {
+		return macSum;
+	}
+
+	/**
+	 * @return the number of values folded in this epoch.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	private void foldIfFull() {
+		while (opened.size() >= BATCH_SIZE && closed.size() >= BATCH_SIZE) {
+			fold(BATCH_SIZE);
+		}
+	}
+
+	private void fold(int n) {
+		if (field == null) {
+			throw new MPCException("The MAC check has not been started.");
+		}
+		BigInteger modulus = field.getModulus();
+		BigInteger[] values = opened.subList(0, n).toArray(new BigInteger[n]);
+		BigInteger[] macs = new BigInteger[n];
+		for (int i = 0; i < n; i++) {
+			macs[i] = closed.get(i).getMac();
+		}
+		BigInteger[] rs = new FieldPrg(batchSeed(values), modulus).nextElements(n);
+
+		ModularArithmetic arithmetic = field.getArithmetic();
+		MontgomeryField montgomery = field.getMontgomeryField();
+		BigInteger a;
+		BigInteger gamma;
+		if (montgomery != null) {
+			a = montgomery.innerProduct(values, rs);
+			gamma = montgomery.innerProduct(macs, rs);
+		} else {
+			// Reduce once per batch rather than once per term.
+			a = BigInteger.ZERO;
+			gamma = BigInteger.ZERO;
+			for (int i = 0; i < n; i++) {
+				a = a.add(values[i].multiply(rs[i]));
+				gamma = gamma.add(macs[i].multiply(rs[i]));
+			}
+			a = arithmetic.reduce(a);
+			gamma = arithmetic.reduce(gamma);
+		}
+		openedSum = arithmetic.add(openedSum, a);
+		macSum = arithmetic.add(macSum, gamma);
+
+		opened.subList(0, n).clear();
+		closed.subList(0, n).clear();
+		batches++;
+		count += n;
+	}
+
+	private byte[] batchSeed(BigInteger[] values) {
+		digest.update(seed);
+		digest.update(ByteBuffer.allocate(8).putLong(batches).array());
+		for (BigInteger v : values) {
+			byte[] bytes = v.toByteArray();
+			digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+			digest.update(bytes);
+		}
+		return Arrays.copyOf(digest.digest(), FieldPrg.SEED_SIZE);
+	}
+}
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.storage;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzDataShard.Kind;
+
+/**
+ * Regenerates the pseudorandom shares of a party holding seed compressed
+ * preprocessed data. The shares are sampled from AES in counter mode keyed by
+ * the seed of the party, and each (thread, kind, toward player) gets its own
+ * stream by using these as the upper half of the initial counter block.
+ * 
+ * The dealer (e.g. {@link FakeTripGen}) creates the same generators when
+ * producing the data, and adjusts the shares of the correction party such
+ * that all shares sum to the right values.
+ * 
+ * Not thread safe, each thread should use its own generators.
+ */
+public class SeededShareGenerator {
+
+	/**
+	 * The number of key bytes in a seed.
+	 */
+	public static final int SEED_SIZE = 16;
+
+	private static final int BUFFER_SIZE = 4096;
+
+	private final Cipher cipher;
+	private final BigInteger modulus;
+	private final int elementSize;
+	private final int topBits;
+	private final byte[] zeroes;
+	private final byte[] stream;
+	private int position;
+	private final byte[] element;
+
+	/**
+	 * @param seed
+	 *            the seed of the party.
+	 * @param modulus
+	 *            the modulus which shares are sampled below.
+	 * @param threadId
+	 *            the thread using the shares.
+	 * @param kind
+	 *            the kind of preprocessed data.
+	 * @param towardPlayer
+	 *            the player knowing the input masks, or 0 if kind is not
+	 *            INPUT_MASK.
+	 */
+	public SeededShareGenerator(byte[] seed, BigInteger modulus, int threadId,
+			Kind kind, int towardPlayer) {
+		if (seed.length != SEED_SIZE) {
+			throw new MPCException("Seeds must be " + SEED_SIZE + " bytes, not " + seed.length);
+		}
+		this.modulus = modulus;
+		this.elementSize = SpdzDataShard.getElementSize(modulus);
+		this.topBits = modulus.bitLength() - 8 * (elementSize - 1);
+		this.zeroes = new byte[BUFFER_SIZE];
+		this.stream = new byte[BUFFER_SIZE];
+		this.position = BUFFER_SIZE;
+		this.element = new byte[elementSize];
+		ByteBuffer iv = ByteBuffer.allocate(16);
+		iv.putInt(threadId).putShort((short) kind.ordinal())
+				.putShort((short) towardPlayer);
+		try {
+			this.cipher = Cipher.getInstance("AES/CTR/NoPadding");
+			this.cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(seed, "AES"),
+					new IvParameterSpec(iv.array()));
+		} catch (GeneralSecurityException e) {
+			throw new MPCException("Could not initialize AES-CTR share generator", e);
+		}
+	}
+
+	/**
+	 * @return the next number of the stream, uniformly distributed in {0 ...
+	 *         modulus-1}.
+	 */
+	public BigInteger nextNumber() {
+		while (true) {
+			for (int i = 0; i < elementSize; i++) {
+				if (position == BUFFER_SIZE) {
+					refill();
+				}
+				element[i] = stream[position++];
+			}
+			element[0] &= (byte) ((1 << topBits) - 1);
+			BigInteger res = new BigInteger(1, element);
+			if (res.compareTo(modulus) < 0) {
+				return res;
+			}
+		}
+	}
+
+	/**
+	 * @return the next share and mac share of the stream.
+	 */
+	public SpdzElement nextElement() {
+		BigInteger share = nextNumber();
+		return new SpdzElement(share, nextNumber());
+	}
+
+	private void refill() {
+		try {
+			cipher.update(zeroes, 0, BUFFER_SIZE, stream, 0);
+		} catch (GeneralSecurityException e) {
+			throw new MPCException("Could not generate shares", e);
+		}
+		position = 0;
+	}
+}
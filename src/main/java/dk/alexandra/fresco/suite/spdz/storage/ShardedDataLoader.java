@@ -0,0 +1,328 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.storage;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.Reporter;
+import dk.alexandra.fresco.framework.sce.resources.storage.StreamedStorage;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzDataShard.Kind;
+
+/**
+ * Loads sharded preprocessed data, as written by
+ * {@link FakeTripGen#writeShards}, into the streamed storage read by the
+ * {@link DataSupplierImpl} of each thread. Each thread has its own shard of
+ * triples, bits, exp pipes and input masks toward each player.
+ * 
+ * All shard headers are verified before any data is loaded, and the shards
+ * are then read in parallel.
+ * 
+ * If the global data holds a seed, the data is seed compressed and only the
+ * seed and the real values of input masks toward this party are loaded. The
+ * {@link DataSupplierImpl} then regenerates the shares from the seed.
+ * 
+ */
+public class ShardedDataLoader {
+
+	/**
+	 * Approximate number of bytes read from a shard at a time.
+	 */
+	private static final int READ_BUFFER_SIZE = 1 << 20;
+
+	private final String path;
+	private final int myId;
+	private final int noOfParties;
+	private final int noOfThreads;
+
+	private BigInteger modulus, ssk;
+	private SpdzShareSeed seed;
+	private List<SpdzDataShard> shards;
+
+	/**
+	 * @param path
+	 *            the directory holding the shards.
+	 * @param myId
+	 *            the id of this party.
+	 * @param noOfParties
+	 *            the number of parties.
+	 * @param noOfThreads
+	 *            the number of VM threads, i.e. the number of shards of each
+	 *            kind.
+	 */
+	public ShardedDataLoader(String path, int myId, int noOfParties,
+			int noOfThreads) {
+		this.path = path;
+		this.myId = myId;
+		this.noOfParties = noOfParties;
+		this.noOfThreads = noOfThreads;
+	}
+
+	/**
+	 * @return true if the given directory holds sharded data for the given
+	 *         party.
+	 */
+	public static boolean hasShards(String path, int myId) {
+		return path != null
+				&& new File(SpdzDataShard.getGlobalFilename(path, myId)).exists();
+	}
+
+	/**
+	 * Reads the global data and the headers of all shards, and verifies that
+	 * all shards are present, belong to this party and are complete. Square
+	 * shards are optional, as data written before square pairs were
+	 * introduced has none.
+	 * 
+	 * @return the headers of all shards.
+	 */
+	public List<SpdzDataShard> verify() {
+		if (shards != null) {
+			return shards;
+		}
+		String globalName = SpdzDataShard.getGlobalFilename(path, myId);
+		try (Scanner globalReader = new Scanner(new File(globalName))) {
+			modulus = new BigInteger(globalReader.next());
+			ssk = new BigInteger(globalReader.next());
+			if (globalReader.hasNext()) {
+				seed = SpdzShareSeed.fromHex(myId, globalReader.next());
+			}
+		} catch (IOException | RuntimeException e) {
+			throw new MPCException("Could not read global SPDZ data from " + globalName, e);
+		}
+		List<SpdzDataShard> res = new ArrayList<SpdzDataShard>();
+		for (int threadId = 1; threadId <= noOfThreads; threadId++) {
+			res.add(verify(Kind.TRIPLE, threadId, 0));
+			res.add(verify(Kind.BIT, threadId, 0));
+			res.add(verify(Kind.EXP_PIPE, threadId, 0));
+			if (new File(SpdzDataShard.getFilename(path, Kind.SQUARE, myId, threadId, 0)).exists()) {
+				res.add(verify(Kind.SQUARE, threadId, 0));
+			}
+			for (int toward = 1; toward <= noOfParties; toward++) {
+				res.add(verify(Kind.INPUT_MASK, threadId, toward));
+			}
+		}
+		shards = res;
+		return shards;
+	}
+
+	private SpdzDataShard verify(Kind kind, int threadId, int towardPlayer) {
+		String name = SpdzDataShard.getFilename(path, kind, myId, threadId, towardPlayer);
+		File f = new File(name);
+		if (!f.exists()) {
+			throw new MPCException("Missing shard " + name);
+		}
+		SpdzDataShard shard;
+		try (FileInputStream in = new FileInputStream(f)) {
+			shard = SpdzDataShard.readHeader(in.getChannel(), name);
+		} catch (IOException e) {
+			throw new MPCException("Could not read header of shard " + name, e);
+		}
+		if (shard.getKind() != kind || shard.getPartyId() != myId
+				|| shard.getThreadId() != threadId
+				|| shard.getTowardPlayer() != towardPlayer) {
+			throw new MPCException("Shard " + name + " has unexpected content: " + shard);
+		}
+		if (shard.isSeeded() != (seed != null)) {
+			throw new MPCException("Shard " + name + (shard.isSeeded() ? " is" : " is not")
+					+ " seeded, which does not match the global data");
+		}
+		if (!shard.getModulus().equals(modulus)) {
+			throw new MPCException("Shard " + name + " uses a different modulus than the global data");
+		}
+		if (f.length() != shard.getFileSize()) {
+			throw new MPCException("Shard " + name + " should hold " + shard.getCount()
+					+ " records (" + shard.getFileSize() + " bytes), but has "
+					+ f.length() + " bytes");
+		}
+		return shard;
+	}
+
+	/**
+	 * Verifies and loads all shards in parallel into the given storage.
+	 * 
+	 * @param storage
+	 *            the storage to load the data into.
+	 */
+	public void loadInto(final StreamedStorage storage) {
+		List<SpdzDataShard> toLoad = verify();
+		long start = System.currentTimeMillis();
+		long bytes = 0;
+		for (int threadId = 1; threadId <= noOfThreads; threadId++) {
+			String storageName = getStorageName(threadId);
+			storage.putNext(storageName + SpdzStorageConstants.MODULUS_KEY, modulus);
+			storage.putNext(storageName + SpdzStorageConstants.SSK_KEY, ssk);
+			if (seed != null) {
+				storage.putObject(storageName, SpdzStorageConstants.SEED_KEY, seed);
+				// Without a shard, no squares can be regenerated.
+				storage.putObject(storageName, SpdzStorageConstants.SQUARE_STORAGE, 0L);
+			}
+		}
+		int poolSize = Math.min(toLoad.size(), Runtime.getRuntime().availableProcessors());
+		ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+		try {
+			List<Future<Long>> futures = new ArrayList<Future<Long>>();
+			for (final SpdzDataShard shard : toLoad) {
+				bytes += shard.getFileSize();
+				futures.add(executor.submit(new Callable<Long>() {
+					@Override
+					public Long call() throws IOException {
+						return load(shard, storage);
+					}
+				}));
+			}
+			for (int i = 0; i < futures.size(); i++) {
+				long loaded = futures.get(i).get();
+				if (loaded != toLoad.get(i).getCount()) {
+					throw new MPCException("Loaded " + loaded + " records from "
+							+ toLoad.get(i) + " but expected " + toLoad.get(i).getCount());
+				}
+			}
+		} catch (InterruptedException e) {
+			throw new MPCException("Interrupted while loading preprocessed data", e);
+		} catch (ExecutionException e) {
+			throw new MPCException("Could not load preprocessed data", e);
+		} finally {
+			executor.shutdown();
+		}
+		long millis = Math.max(1, System.currentTimeMillis() - start);
+		Reporter.info("Loaded " + toLoad.size() + " shards (" + bytes / 1024
+				+ " KB) of preprocessed data in " + millis + " ms ("
+				+ (bytes / 1024) * 1000 / millis + " KB/s)");
+		for (int threadId = 1; threadId <= noOfThreads; threadId++) {
+			Reporter.fine("Thread " + threadId + ": " + getCount(Kind.TRIPLE, threadId)
+					+ " triples, " + getCount(Kind.BIT, threadId) + " bits, "
+					+ getCount(Kind.EXP_PIPE, threadId) + " exp pipes");
+		}
+	}
+
+	/**
+	 * @return true if the data of this party is seed compressed.
+	 */
+	public boolean isSeeded() {
+		verify();
+		return seed != null;
+	}
+
+	/**
+	 * @return the number of records of the given kind for the given thread.
+	 *         For input masks, the sum over all players.
+	 */
+	public long getCount(Kind kind, int threadId) {
+		long count = 0;
+		for (SpdzDataShard shard : verify()) {
+			if (shard.getKind() == kind && shard.getThreadId() == threadId) {
+				count += shard.getCount();
+			}
+		}
+		return count;
+	}
+
+	private String getStorageName(int threadId) {
+		return SpdzStorageConstants.STORAGE_NAME_PREFIX + myId + "_" + threadId;
+	}
+
+	private String getStreamName(SpdzDataShard shard) {
+		String name = getStorageName(shard.getThreadId());
+		switch (shard.getKind()) {
+		case TRIPLE:
+			return name + SpdzStorageConstants.TRIPLE_STORAGE;
+		case BIT:
+			return name + SpdzStorageConstants.BIT_STORAGE;
+		case EXP_PIPE:
+			return name + SpdzStorageConstants.EXP_PIPE_STORAGE;
+		case SQUARE:
+			return name + SpdzStorageConstants.SQUARE_STORAGE;
+		default:
+			return name + SpdzStorageConstants.INPUT_STORAGE + shard.getTowardPlayer();
+		}
+	}
+
+	private long load(SpdzDataShard shard, StreamedStorage storage)
+			throws IOException {
+		String name = SpdzDataShard.getFilename(path, shard.getKind(), myId,
+				shard.getThreadId(), shard.getTowardPlayer());
+		String streamName = getStreamName(shard);
+		int recordSize = shard.getRecordSize();
+		if (shard.isSeeded()) {
+			// The shares are regenerated from the seed, but only as many as
+			// the other parties have.
+			String storageName = getStorageName(shard.getThreadId());
+			synchronized (storage) {
+				storage.putObject(storageName, streamName.substring(storageName.length()),
+						shard.getCount());
+			}
+		}
+		if (recordSize == 0) {
+			return shard.getCount();
+		}
+		int recordsPerRead = Math.max(1, READ_BUFFER_SIZE / recordSize);
+		ByteBuffer buffer = ByteBuffer.allocate(recordsPerRead * recordSize);
+		byte[] scratch = shard.newScratch();
+		Serializable[] records = new Serializable[recordsPerRead];
+		long loaded = 0;
+		try (FileInputStream in = new FileInputStream(name)) {
+			FileChannel channel = in.getChannel();
+			channel.position(shard.getHeaderSize());
+			while (loaded < shard.getCount()) {
+				int n = (int) Math.min(recordsPerRead, shard.getCount() - loaded);
+				buffer.clear();
+				buffer.limit(n * recordSize);
+				while (buffer.hasRemaining()) {
+					if (channel.read(buffer) == -1) {
+						return loaded;
+					}
+				}
+				buffer.flip();
+				for (int i = 0; i < n; i++) {
+					records[i] = shard.readRecord(buffer, scratch);
+				}
+				// The storages are not thread safe.
+				synchronized (storage) {
+					for (int i = 0; i < n; i++) {
+						storage.putNext(streamName, records[i]);
+					}
+				}
+				loaded += n;
+			}
+		}
+		return loaded;
+	}
+}
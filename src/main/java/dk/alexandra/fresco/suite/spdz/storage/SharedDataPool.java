@@ -0,0 +1,339 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.storage;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzMatrixTriple;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSquare;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+
+/**
+ * A pool of preprocessed data shared by all VM threads, such that a thread
+ * doing most of the work does not run dry while other threads sit on unused
+ * data.
+ * 
+ * Each kind of data is split into chunks. The chunks are read from the
+ * suppliers of the threads in round robin, always in chunk order, so the
+ * content of a chunk only depends on its index. A thread reserves a whole
+ * chunk at a time. Within a batch, the k'th reservation of thread t is entry
+ * k * noOfThreads + t of a reservation sequence consisting of the chunks left
+ * over by earlier batches followed by unused chunks. This needs no
+ * synchronization between the threads, and as the evaluators give each thread
+ * the same part of each batch in all parties, the parties make the same
+ * reservations without communicating. When a batch is done, {@link #endBatch()}
+ * moves the entries not reserved by any thread to the start of the next
+ * reservation sequence.
+ * 
+ * Only chunks not read from the suppliers before are read under a lock.
+ */
+public class SharedDataPool {
+
+	public static final int TRIPLE_CHUNK_SIZE = 128;
+	public static final int BIT_CHUNK_SIZE = 128;
+	public static final int INPUT_MASK_CHUNK_SIZE = 32;
+	public static final int EXP_PIPE_CHUNK_SIZE = 1;
+	public static final int SQUARE_CHUNK_SIZE = 128;
+
+	private final SpdzStorage[] sources;
+	private final int noOfThreads;
+	private final ChunkedStream<SpdzTriple> triples;
+	private final ChunkedStream<SpdzSInt> bits;
+	private final ChunkedStream<SpdzSInt[]> expPipes;
+	private final ChunkedStream<SpdzSquare> squares;
+	private final List<ChunkedStream<SpdzInputMask>> inputMasks;
+
+	/**
+	 * @param sources
+	 *            the storages of the threads, whose suppliers the pool reads
+	 *            its data from. There must be one storage per thread.
+	 * @param noOfParties
+	 *            the number of parties.
+	 */
+	public SharedDataPool(SpdzStorage[] sources, int noOfParties) {
+		this.sources = sources;
+		this.noOfThreads = sources.length;
+		this.triples = new ChunkedStream<SpdzTriple>("triples", TRIPLE_CHUNK_SIZE) {
+			@Override
+			SpdzTriple read(DataSupplier supplier) {
+				return supplier.getNextTriple();
+			}
+		};
+		this.bits = new ChunkedStream<SpdzSInt>("bits", BIT_CHUNK_SIZE) {
+			@Override
+			SpdzSInt read(DataSupplier supplier) {
+				return supplier.getNextBit();
+			}
+		};
+		this.expPipes = new ChunkedStream<SpdzSInt[]>("exp pipes", EXP_PIPE_CHUNK_SIZE) {
+			@Override
+			SpdzSInt[] read(DataSupplier supplier) {
+				return supplier.getNextExpPipe();
+			}
+		};
+		this.squares = new ChunkedStream<SpdzSquare>("squares", SQUARE_CHUNK_SIZE) {
+			@Override
+			SpdzSquare read(DataSupplier supplier) {
+				return supplier.getNextSquare();
+			}
+		};
+		this.inputMasks = new ArrayList<ChunkedStream<SpdzInputMask>>(noOfParties);
+		for (int i = 0; i < noOfParties; i++) {
+			final int toward = i + 1;
+			this.inputMasks.add(new ChunkedStream<SpdzInputMask>(
+					"input masks toward " + toward, INPUT_MASK_CHUNK_SIZE) {
+				@Override
+				SpdzInputMask read(DataSupplier supplier) {
+					return supplier.getNextInputMask(toward);
+				}
+			});
+		}
+	}
+
+	/**
+	 * @return a supplier which lets the given thread draw from the pool.
+	 */
+	public DataSupplier getSupplier(int threadId) {
+		return new PooledDataSupplier(threadId);
+	}
+
+	/**
+	 * Must be called when all threads are done with a batch, and before the
+	 * next batch is started.
+	 */
+	public void endBatch() {
+		triples.endBatch();
+		bits.endBatch();
+		expPipes.endBatch();
+		squares.endBatch();
+		for (ChunkedStream<SpdzInputMask> masks : inputMasks) {
+			masks.endBatch();
+		}
+	}
+
+	/**
+	 * Shuts down the storages the pool reads from.
+	 */
+	public void shutdown() {
+		for (SpdzStorage source : sources) {
+			source.shutdown();
+		}
+	}
+
+	private class PooledDataSupplier implements DataSupplier {
+
+		private final int threadId;
+
+		private PooledDataSupplier(int threadId) {
+			this.threadId = threadId;
+		}
+
+		@Override
+		public SpdzTriple getNextTriple() {
+			return triples.next(threadId);
+		}
+
+		@Override
+		public SpdzSInt[] getNextExpPipe() {
+			return expPipes.next(threadId);
+		}
+
+		@Override
+		public SpdzInputMask getNextInputMask(int towardPlayerID) {
+			return inputMasks.get(towardPlayerID - 1).next(threadId);
+		}
+
+		@Override
+		public SpdzSInt getNextBit() {
+			return bits.next(threadId);
+		}
+
+		@Override
+		public SpdzSquare getNextSquare() {
+			return squares.next(threadId);
+		}
+
+		/**
+		 * Matrix triples come in many shapes and are not pooled, the thread
+		 * reads them from its own supplier. This is still done under the
+		 * lock of the pool, as other threads may be reading chunks from the
+		 * same supplier.
+		 */
+		@Override
+		public SpdzMatrixTriple getNextMatrixTriple(int rows, int inner, int columns) {
+			synchronized (SharedDataPool.this) {
+				return sources[threadId].getSupplier().getNextMatrixTriple(rows, inner, columns);
+			}
+		}
+
+		@Override
+		public BigInteger getModulus() {
+			return sources[0].getSupplier().getModulus();
+		}
+
+		@Override
+		public BigInteger getSSK() {
+			return sources[0].getSSK();
+		}
+	}
+
+	/**
+	 * The chunks of a single kind of data.
+	 */
+	private abstract class ChunkedStream<T> {
+
+		private final String name;
+		private final int chunkSize;
+		private final ConcurrentHashMap<Long, Object[]> chunks;
+		private final boolean[] exhausted;
+		private long chunksRead = 0;
+
+		// The reservation sequence of the current batch.
+		private long[] leftovers = new long[0];
+		private long nextUnused = 0;
+
+		// Written only by the owning thread while a batch runs.
+		private final int[] reservations;
+		private final Object[][] current;
+		private final int[] position;
+
+		private ChunkedStream(String name, int chunkSize) {
+			this.name = name;
+			this.chunkSize = chunkSize;
+			this.chunks = new ConcurrentHashMap<Long, Object[]>();
+			this.exhausted = new boolean[noOfThreads];
+			this.reservations = new int[noOfThreads];
+			this.current = new Object[noOfThreads][];
+			this.position = new int[noOfThreads];
+		}
+
+		abstract T read(DataSupplier supplier);
+
+		// the chunks only hold values returned by read
+		@SuppressWarnings("unchecked")
+		T next(int threadId) {
+			if (current[threadId] == null || position[threadId] == current[threadId].length) {
+				current[threadId] = reserve(threadId);
+				position[threadId] = 0;
+			}
+			return (T) current[threadId][position[threadId]++];
+		}
+
+		private Object[] reserve(int threadId) {
+			long entry = (long) reservations[threadId] * noOfThreads + threadId;
+			reservations[threadId]++;
+			long chunkId = (entry < leftovers.length) ? leftovers[(int) entry]
+					: nextUnused + entry - leftovers.length;
+			Object[] chunk = chunks.remove(chunkId);
+			if (chunk == null) {
+				readUpTo(chunkId);
+				chunk = chunks.remove(chunkId);
+			}
+			if (chunk == null) {
+				throw new MPCException("The shared pool has run out of " + name);
+			}
+			return chunk;
+		}
+
+		/**
+		 * Reads all chunks up to and including the given one from the
+		 * suppliers. The last chunk may be short, and no chunks are made
+		 * once all suppliers have run dry. The lock is shared by all kinds,
+		 * as the suppliers are not necessarily thread safe.
+		 */
+		private void readUpTo(long chunkId) {
+			synchronized (SharedDataPool.this) {
+				while (chunksRead <= chunkId) {
+					Object[] chunk = new Object[chunkSize];
+					int source = (int) (chunksRead % noOfThreads);
+					int size = 0;
+					while (size < chunkSize) {
+						T element = readFrom(source);
+						if (element == null) {
+							break;
+						}
+						chunk[size++] = element;
+					}
+					if (size == 0) {
+						return;
+					}
+					chunks.put(chunksRead, (size == chunkSize) ? chunk : Arrays.copyOf(chunk, size));
+					chunksRead++;
+				}
+			}
+		}
+
+		/**
+		 * Reads an element from the given source, or the next one if it has
+		 * run dry.
+		 * 
+		 * @return the element, or null if all sources have run dry.
+		 */
+		private T readFrom(int source) {
+			for (int i = 0; i < noOfThreads; i++) {
+				int s = (source + i) % noOfThreads;
+				if (!exhausted[s]) {
+					try {
+						return read(sources[s].getSupplier());
+					} catch (MPCException e) {
+						exhausted[s] = true;
+					}
+				}
+			}
+			return null;
+		}
+
+		void endBatch() {
+			long used = 0;
+			for (int t = 0; t < noOfThreads; t++) {
+				if (reservations[t] > 0) {
+					used = Math.max(used, (long) (reservations[t] - 1) * noOfThreads + t + 1);
+				}
+			}
+			long[] next = new long[leftovers.length + (int) used];
+			int size = 0;
+			for (long entry = 0; entry < Math.max(used, leftovers.length); entry++) {
+				int t = (int) (entry % noOfThreads);
+				if (entry < used && entry / noOfThreads < reservations[t]) {
+					continue;
+				}
+				next[size++] = (entry < leftovers.length) ? leftovers[(int) entry]
+						: nextUnused + entry - leftovers.length;
+			}
+			nextUnused += Math.max(0, used - leftovers.length);
+			leftovers = Arrays.copyOf(next, size);
+			Arrays.fill(reservations, 0);
+		}
+	}
+}
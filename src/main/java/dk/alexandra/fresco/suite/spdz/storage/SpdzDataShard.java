@@ -0,0 +1,373 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.storage;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSquare;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+import dk.alexandra.fresco.suite.spdz.utils.Util;
+
+/**
+ * Describes a shard of preprocessed data, i.e. a file holding one kind of
+ * preprocessed data for a single party and VM thread. A shard starts with a
+ * header describing its content, followed by fixed size records where each
+ * number is written as an unsigned big-endian integer of elementSize bytes.
+ * 
+ * The header consists of: magic number, version, kind, party id, thread id,
+ * toward player id (only for input masks, otherwise 0), seeded flag, number of
+ * records, element size, modulus length and the modulus.
+ * 
+ * A seeded shard belongs to a party regenerating its shares from a
+ * {@link SpdzShareSeed}. Its records are empty, except for input masks toward
+ * the party itself, where the record holds the real value of the mask.
+ * 
+ */
+public class SpdzDataShard {
+
+	/**
+	 * The kinds of preprocessed data. The ordinal is written in the header,
+	 * so new kinds must be added at the end.
+	 */
+	public enum Kind {
+		TRIPLE("Triples"), BIT("Bits"), EXP_PIPE("Exp-pipes"), INPUT_MASK("Inputs"), SQUARE("Squares");
+
+		private final String filePrefix;
+
+		private Kind(String filePrefix) {
+			this.filePrefix = filePrefix;
+		}
+	}
+
+	private static final int MAGIC = 0x46535044;
+	private static final int VERSION = 2;
+
+	private final Kind kind;
+	private final int partyId;
+	private final int threadId;
+	private final int towardPlayer;
+	private final boolean seeded;
+	private final long count;
+	private final int elementSize;
+	private final BigInteger modulus;
+
+	/**
+	 * @param kind
+	 *            the kind of preprocessed data in the shard.
+	 * @param partyId
+	 *            the party owning the shard.
+	 * @param threadId
+	 *            the thread using the shard. Thread ids start from 1 as do
+	 *            the storage ids.
+	 * @param towardPlayer
+	 *            the player knowing the input masks, or 0 if kind is not
+	 *            INPUT_MASK.
+	 * @param count
+	 *            the number of records in the shard.
+	 * @param modulus
+	 *            the modulus.
+	 */
+	public SpdzDataShard(Kind kind, int partyId, int threadId,
+			int towardPlayer, long count, BigInteger modulus) {
+		this(kind, partyId, threadId, towardPlayer, false, count, modulus);
+	}
+
+	/**
+	 * As {@link #SpdzDataShard(Kind, int, int, int, long, BigInteger)}, but
+	 * allows to describe a seeded shard.
+	 */
+	public SpdzDataShard(Kind kind, int partyId, int threadId,
+			int towardPlayer, boolean seeded, long count, BigInteger modulus) {
+		this.kind = kind;
+		this.partyId = partyId;
+		this.threadId = threadId;
+		this.towardPlayer = towardPlayer;
+		this.seeded = seeded;
+		this.count = count;
+		this.modulus = modulus;
+		this.elementSize = getElementSize(modulus);
+	}
+
+	/**
+	 * @return the number of bytes needed to write a number less than the
+	 *         modulus, not counting a sign bit.
+	 */
+	public static int getElementSize(BigInteger modulus) {
+		return (modulus.bitLength() + 7) / 8;
+	}
+
+	public static String getFilename(String path, Kind kind, int partyId,
+			int threadId, int towardPlayer) {
+		String name = path + "/" + kind.filePrefix + "-P" + partyId + "-T" + threadId;
+		if (kind == Kind.INPUT_MASK) {
+			name += "-" + towardPlayer;
+		}
+		return name;
+	}
+
+	/**
+	 * The global data file holds the modulus and the share of the MAC key in
+	 * text, separated by a space. For seeded parties, it is followed by the
+	 * seed in hex.
+	 */
+	public static String getGlobalFilename(String path, int partyId) {
+		return path + "/Global-P" + partyId;
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	public int getPartyId() {
+		return partyId;
+	}
+
+	public int getThreadId() {
+		return threadId;
+	}
+
+	public int getTowardPlayer() {
+		return towardPlayer;
+	}
+
+	public boolean isSeeded() {
+		return seeded;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public BigInteger getModulus() {
+		return modulus;
+	}
+
+	public int getHeaderSize() {
+		return 9 * 4 + 8 + modulus.toByteArray().length;
+	}
+
+	/**
+	 * @return the number of bytes in each record.
+	 */
+	public int getRecordSize() {
+		if (seeded) {
+			return (kind == Kind.INPUT_MASK && towardPlayer == partyId) ? elementSize : 0;
+		}
+		switch (kind) {
+		case TRIPLE:
+			return 6 * elementSize;
+		case BIT:
+			return 2 * elementSize;
+		case SQUARE:
+			return 4 * elementSize;
+		case EXP_PIPE:
+			return 2 * Util.EXP_PIPE_SIZE * elementSize;
+		default:
+			return (towardPlayer == partyId ? 3 : 2) * elementSize;
+		}
+	}
+
+	/**
+	 * @return the size of the file when all records are present.
+	 */
+	public long getFileSize() {
+		return getHeaderSize() + count * getRecordSize();
+	}
+
+	public void writeHeader(FileChannel channel) throws IOException {
+		byte[] mod = modulus.toByteArray();
+		ByteBuffer header = ByteBuffer.allocate(getHeaderSize());
+		header.putInt(MAGIC).putInt(VERSION).putInt(kind.ordinal())
+				.putInt(partyId).putInt(threadId).putInt(towardPlayer)
+				.putInt(seeded ? 1 : 0).putLong(count).putInt(elementSize).putInt(mod.length).put(mod);
+		header.flip();
+		while (header.hasRemaining()) {
+			channel.write(header);
+		}
+	}
+
+	/**
+	 * Reads the header of a shard, leaving the channel at the first record.
+	 */
+	public static SpdzDataShard readHeader(FileChannel channel, String name)
+			throws IOException {
+		ByteBuffer fixed = ByteBuffer.allocate(9 * 4 + 8);
+		readFully(channel, fixed, name);
+		if (fixed.getInt() != MAGIC) {
+			throw new MPCException(name + " is not a SPDZ data shard");
+		}
+		int version = fixed.getInt();
+		if (version != VERSION) {
+			throw new MPCException(name + " has unsupported version " + version);
+		}
+		Kind kind = Kind.values()[fixed.getInt()];
+		int partyId = fixed.getInt();
+		int threadId = fixed.getInt();
+		int towardPlayer = fixed.getInt();
+		boolean seeded = fixed.getInt() != 0;
+		long count = fixed.getLong();
+		int elementSize = fixed.getInt();
+		ByteBuffer mod = ByteBuffer.allocate(fixed.getInt());
+		readFully(channel, mod, name);
+		SpdzDataShard shard = new SpdzDataShard(kind, partyId, threadId,
+				towardPlayer, seeded, count, new BigInteger(mod.array()));
+		if (shard.elementSize != elementSize) {
+			throw new MPCException(name + " has element size " + elementSize
+					+ " which does not fit its modulus");
+		}
+		return shard;
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer,
+			String name) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) == -1) {
+				throw new MPCException("Unexpected end of " + name);
+			}
+		}
+		buffer.flip();
+	}
+
+	/**
+	 * Writes a record, which must be of the kind described by this shard.
+	 */
+	public void writeRecord(ByteBuffer buffer, Serializable record) {
+		if (seeded) {
+			if (getRecordSize() > 0) {
+				writeNumber(buffer, ((SpdzInputMask) record).getRealValue());
+			}
+			return;
+		}
+		switch (kind) {
+		case TRIPLE:
+			SpdzTriple triple = (SpdzTriple) record;
+			writeElement(buffer, triple.getA());
+			writeElement(buffer, triple.getB());
+			writeElement(buffer, triple.getC());
+			break;
+		case BIT:
+			writeElement(buffer, ((SpdzSInt) record).value);
+			break;
+		case SQUARE:
+			SpdzSquare square = (SpdzSquare) record;
+			writeElement(buffer, square.getA());
+			writeElement(buffer, square.getB());
+			break;
+		case EXP_PIPE:
+			for (SpdzSInt s : (SpdzSInt[]) record) {
+				writeElement(buffer, s.value);
+			}
+			break;
+		default:
+			SpdzInputMask mask = (SpdzInputMask) record;
+			writeElement(buffer, mask.getMask());
+			if (towardPlayer == partyId) {
+				writeNumber(buffer, mask.getRealValue());
+			}
+		}
+	}
+
+	/**
+	 * Reads a record of the kind described by this shard. For seeded shards
+	 * this is the real value of an input mask, or null if the record is empty.
+	 */
+	public Serializable readRecord(ByteBuffer buffer, byte[] scratch) {
+		if (seeded) {
+			return (getRecordSize() > 0) ? readNumber(buffer, scratch) : null;
+		}
+		switch (kind) {
+		case TRIPLE:
+			return new SpdzTriple(readElement(buffer, scratch),
+					readElement(buffer, scratch), readElement(buffer, scratch));
+		case BIT:
+			return new SpdzSInt(readElement(buffer, scratch));
+		case SQUARE:
+			return new SpdzSquare(readElement(buffer, scratch),
+					readElement(buffer, scratch));
+		case EXP_PIPE:
+			SpdzSInt[] pipe = new SpdzSInt[Util.EXP_PIPE_SIZE];
+			for (int i = 0; i < pipe.length; i++) {
+				pipe[i] = new SpdzSInt(readElement(buffer, scratch));
+			}
+			return pipe;
+		default:
+			SpdzElement elm = readElement(buffer, scratch);
+			if (towardPlayer == partyId) {
+				return new SpdzInputMask(elm, readNumber(buffer, scratch));
+			}
+			return new SpdzInputMask(elm);
+		}
+	}
+
+	/**
+	 * @return a scratch array to give to
+	 *         {@link #readRecord(ByteBuffer, byte[])}.
+	 */
+	public byte[] newScratch() {
+		return new byte[elementSize];
+	}
+
+	private void writeElement(ByteBuffer buffer, SpdzElement e) {
+		writeNumber(buffer, e.getShare());
+		writeNumber(buffer, e.getMac());
+	}
+
+	private void writeNumber(ByteBuffer buffer, BigInteger b) {
+		byte[] bytes = b.toByteArray();
+		int offset = (bytes.length > elementSize) ? bytes.length - elementSize : 0;
+		int length = bytes.length - offset;
+		for (int i = length; i < elementSize; i++) {
+			buffer.put((byte) 0);
+		}
+		buffer.put(bytes, offset, length);
+	}
+
+	private SpdzElement readElement(ByteBuffer buffer, byte[] scratch) {
+		BigInteger share = readNumber(buffer, scratch);
+		return new SpdzElement(share, readNumber(buffer, scratch));
+	}
+
+	private BigInteger readNumber(ByteBuffer buffer, byte[] scratch) {
+		buffer.get(scratch);
+		return new BigInteger(1, scratch);
+	}
+
+	@Override
+	public String toString() {
+		return "SpdzDataShard [kind=" + kind + ", partyId=" + partyId
+				+ ", threadId=" + threadId + ", towardPlayer=" + towardPlayer
+				+ ", seeded=" + seeded + ", count=" + count + "]";
+	}
+}
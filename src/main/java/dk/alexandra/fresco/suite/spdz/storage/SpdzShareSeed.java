@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.storage;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzDataShard.Kind;
+
+/**
+ * The seed of a party holding seed compressed preprocessed data. Such a party
+ * does not store its shares of triples, bits, exp pipes and input masks, but
+ * regenerates them using a {@link SeededShareGenerator}. It only stores the
+ * real values of the input masks toward itself.
+ * 
+ * The seed is put in the storage of each thread under
+ * {@link SpdzStorageConstants#SEED_KEY}, where {@link DataSupplierImpl} looks
+ * for it.
+ */
+public class SpdzShareSeed implements Serializable {
+
+	private static final long serialVersionUID = 4870526263547152146L;
+
+	private final int partyId;
+	private final byte[] seed;
+
+	public SpdzShareSeed(int partyId, byte[] seed) {
+		this.partyId = partyId;
+		this.seed = seed;
+	}
+
+	public int getPartyId() {
+		return partyId;
+	}
+
+	public byte[] getSeed() {
+		return seed;
+	}
+
+	/**
+	 * @return the seed in hex, as written in the global data file.
+	 */
+	public String toHex() {
+		StringBuilder sb = new StringBuilder();
+		for (byte b : seed) {
+			sb.append(String.format("%02x", b));
+		}
+		return sb.toString();
+	}
+
+	public static SpdzShareSeed fromHex(int partyId, String hex) {
+		if (hex.length() != 2 * SeededShareGenerator.SEED_SIZE) {
+			throw new MPCException("Malformed seed " + hex);
+		}
+		byte[] seed = new byte[SeededShareGenerator.SEED_SIZE];
+		for (int i = 0; i < seed.length; i++) {
+			seed[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+		}
+		return new SpdzShareSeed(partyId, seed);
+	}
+
+	public SeededShareGenerator newGenerator(BigInteger modulus, int threadId,
+			Kind kind, int towardPlayer) {
+		return new SeededShareGenerator(seed, modulus, threadId, kind, towardPlayer);
+	}
+}
@@ -27,14 +27,13 @@
 package dk.alexandra.fresco.suite.spdz.storage;
 
 import java.math.BigInteger;
-import java.util.List;
 
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
 
 
 /**
- * Manages the storage associated with the online phase of SPDZ. This includes all the preprocessed data and the opened and 
- * closed accumulated during the online phase
+ * Manages the storage associated with the online phase of SPDZ. This includes all the preprocessed data and the running
+ * sums of the opened and closed values accumulated during the online phase
  *
  */
 public interface SpdzStorage{
@@ -68,16 +67,22 @@ public interface SpdzStorage{
 	public abstract void addClosedValue(SpdzElement elem);
 
 	/**
-	 * Get the current opened values
-	 * @return a list of opened values
+	 * Adds a number of opened values at once
+	 * @param vals the values to be added, in the order they were opened
 	 */
-	public abstract List<BigInteger> getOpenedValues();
+	public abstract void addOpenedValues(BigInteger[] vals);
 
 	/**
-	 * Get the current closed values
-	 * @return a list of closed values
+	 * Adds a number of closed values at once
+	 * @param elems the elements to add, in the order of their opened values
 	 */
-	public abstract List<SpdzElement> getClosedValues();
+	public abstract void addClosedValues(SpdzElement[] elems);
+
+	/**
+	 * Gets the running sums of the opened and closed values for the MAC check
+	 * @return the accumulator the values are folded into
+	 */
+	public abstract MacCheckAccumulator getAccumulator();
 
 	/**
 	 * Returns the players share of the Secret Shared Key (alpha). 
@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.storage;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import dk.alexandra.fresco.framework.sce.resources.storage.StorageCodec;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+
+/**
+ * Storage codecs for the SPDZ preprocessed data: elements, triples, bits and
+ * input masks.
+ * 
+ * An item is encoded as the number of values it holds, their common width
+ * and then the values as two's complement numbers of that width. As all
+ * values of a stream are reduced modulo the same prime, the records of a
+ * stream have the same size.
+ */
+public class SpdzStorageCodecs {
+
+	public static final StorageCodec<SpdzElement> ELEMENT = new ValuesCodec<SpdzElement>(
+			SpdzElement.class) {
+
+		@Override
+		BigInteger[] getValues(SpdzElement e) {
+			return values(e);
+		}
+
+		@Override
+		SpdzElement create(BigInteger[] values) {
+			return new SpdzElement(values[0], values[1]);
+		}
+	};
+
+	public static final StorageCodec<SpdzTriple> TRIPLE = new ValuesCodec<SpdzTriple>(
+			SpdzTriple.class) {
+
+		@Override
+		BigInteger[] getValues(SpdzTriple t) {
+			return values(t.getA(), t.getB(), t.getC());
+		}
+
+		@Override
+		SpdzTriple create(BigInteger[] values) {
+			return new SpdzTriple(new SpdzElement(values[0], values[1]),
+					new SpdzElement(values[2], values[3]),
+					new SpdzElement(values[4], values[5]));
+		}
+	};
+
+	/**
+	 * Codec of shared values, e.g. bits.
+	 */
+	public static final StorageCodec<SpdzSInt> SINT = new ValuesCodec<SpdzSInt>(
+			SpdzSInt.class) {
+
+		@Override
+		BigInteger[] getValues(SpdzSInt s) {
+			return values(s.value);
+		}
+
+		@Override
+		SpdzSInt create(BigInteger[] values) {
+			return new SpdzSInt(new SpdzElement(values[0], values[1]));
+		}
+	};
+
+	/**
+	 * Codec of input masks. The real value is only present for the party
+	 * owning the mask.
+	 */
+	public static final StorageCodec<SpdzInputMask> INPUT_MASK = new ValuesCodec<SpdzInputMask>(
+			SpdzInputMask.class) {
+
+		@Override
+		BigInteger[] getValues(SpdzInputMask m) {
+			BigInteger[] mask = values(m.getMask());
+			if (mask == null || m.getRealValue() == null) {
+				return mask;
+			}
+			return new BigInteger[] { mask[0], mask[1], m.getRealValue() };
+		}
+
+		@Override
+		SpdzInputMask create(BigInteger[] values) {
+			SpdzElement mask = new SpdzElement(values[0], values[1]);
+			return values.length == 3 ? new SpdzInputMask(mask, values[2])
+					: new SpdzInputMask(mask);
+		}
+	};
+
+	/**
+	 * @return the codecs of all the SPDZ types.
+	 */
+	public static List<StorageCodec<?>> getCodecs() {
+		List<StorageCodec<?>> codecs = new ArrayList<StorageCodec<?>>();
+		codecs.add(ELEMENT);
+		codecs.add(TRIPLE);
+		codecs.add(SINT);
+		codecs.add(INPUT_MASK);
+		return codecs;
+	}
+
+	/**
+	 * @return the shares and macs of the elements, or null if any of them is
+	 *         missing.
+	 */
+	private static BigInteger[] values(SpdzElement... elements) {
+		BigInteger[] values = new BigInteger[2 * elements.length];
+		for (int i = 0; i < elements.length; i++) {
+			SpdzElement e = elements[i];
+			if (e == null || e.getShare() == null || e.getMac() == null) {
+				return null;
+			}
+			values[2 * i] = e.getShare();
+			values[2 * i + 1] = e.getMac();
+		}
+		return values;
+	}
+
+	private abstract static class ValuesCodec<T extends Serializable> implements
+			StorageCodec<T> {
+
+		private final Class<T> type;
+
+		private ValuesCodec(Class<T> type) {
+			this.type = type;
+		}
+
+		/**
+		 * @return the values of the item, or null if it cannot be encoded.
+		 */
+		abstract BigInteger[] getValues(T item);
+
+		abstract T create(BigInteger[] values);
+
+		@Override
+		public Class<T> getType() {
+			return type;
+		}
+
+		@Override
+		public int getSize(T item) {
+			BigInteger[] values = getValues(item);
+			if (values == null) {
+				return -1;
+			}
+			return 1 + 4 + values.length * width(values);
+		}
+
+		@Override
+		public void encode(T item, ByteBuffer buffer) {
+			BigInteger[] values = getValues(item);
+			int width = width(values);
+			buffer.put((byte) values.length);
+			buffer.putInt(width);
+			for (BigInteger v : values) {
+				byte[] bytes = v.toByteArray();
+				byte padding = (byte) (v.signum() < 0 ? 0xff : 0);
+				for (int i = bytes.length; i < width; i++) {
+					buffer.put(padding);
+				}
+				buffer.put(bytes);
+			}
+		}
+
+		@Override
+		public T decode(ByteBuffer buffer) {
+			BigInteger[] values = new BigInteger[buffer.get()];
+			byte[] bytes = new byte[buffer.getInt()];
+			for (int i = 0; i < values.length; i++) {
+				buffer.get(bytes);
+				values[i] = new BigInteger(bytes);
+			}
+			return create(values);
+		}
+
+		/**
+		 * @return the number of bytes of the widest two's complement
+		 *         encoding of the values.
+		 */
+		private static int width(BigInteger[] values) {
+			int width = 0;
+			for (BigInteger v : values) {
+				width = Math.max(width, v.bitLength() / 8 + 1);
+			}
+			return width;
+		}
+	}
+}
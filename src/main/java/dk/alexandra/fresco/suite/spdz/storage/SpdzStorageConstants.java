@@ -28,9 +28,16 @@ package dk.alexandra.fresco.suite.spdz.storage;
 
 public class SpdzStorageConstants {
 
-	public static final String STORAGE_FOLDER = "spdz/";
+	/**
+	 * Folder the SPDZ storages and streams are kept in. Defaults to spdz/ in
+	 * the working directory, but can be changed with the system property
+	 * fresco.spdz.storage.folder, e.g. to keep test data out of the source tree.
+	 */
+	public static final String STORAGE_FOLDER = System.getProperty(
+			"fresco.spdz.storage.folder", "spdz/");
 	public static final String SSK_KEY = "SSK";
 	public static final String MODULUS_KEY = "MOD_P";
+	public static final String SEED_KEY = "SEED";
 	public static final String TRIPLE_KEY_PREFIX = "TRIPLE_";
 	public static final String EXP_PIPE_KEY_PREFIX = "EXP_PIPE_";
 	public static final String SQUARE_KEY_PREFIX = "SQUARE_";
@@ -43,4 +50,11 @@ public class SpdzStorageConstants {
 	public static final String EXP_PIPE_STORAGE = "EXP";
 	public static final String TRIPLE_STORAGE = "TRIPLE";
 	public static final String BIT_STORAGE = "BIT";
+	public static final String SQUARE_STORAGE = "SQUARE";
+	/**
+	 * Matrix triples are stored in a stream per shape, named by this prefix
+	 * followed by the shape, see
+	 * {@link dk.alexandra.fresco.suite.spdz.datatypes.SpdzMatrixTriple#getShape(int, int, int)}.
+	 */
+	public static final String MATRIX_TRIPLE_STORAGE = "MATRIX_TRIPLE_";
 }
@@ -1,21 +1,17 @@
 package dk.alexandra.fresco.suite.spdz.storage;
 
 import java.math.BigInteger;
-import java.util.LinkedList;
-import java.util.List;
 
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
 
 public class SpdzStorageDummyImpl implements SpdzStorage{
 	
-	private List<BigInteger> opened_values;
-	private List<SpdzElement> closed_values;
+	private MacCheckAccumulator accumulator;
 	
 	private DataSupplier supplier;
 	
 	public SpdzStorageDummyImpl(int myId, int numberOfParties) {		
-		opened_values = new LinkedList<BigInteger>();
-		closed_values = new LinkedList<SpdzElement>();
+		accumulator = new MacCheckAccumulator();
 		
 		supplier = new DummyDataSupplierImpl(myId, numberOfParties);
 	}
@@ -27,8 +23,7 @@ public class SpdzStorageDummyImpl implements SpdzStorage{
 
 	@Override
 	public void reset() {
-		opened_values.clear();
-		closed_values.clear();
+		accumulator.reset();
 	}
 
 	@Override
@@ -38,22 +33,27 @@ public class SpdzStorageDummyImpl implements SpdzStorage{
 
 	@Override
 	public void addOpenedValue(BigInteger val) {
-		opened_values.add(val);
+		accumulator.addOpenedValue(val);
 	}
 
 	@Override
 	public void addClosedValue(SpdzElement elem) {
-		closed_values.add(elem);
+		accumulator.addClosedValue(elem);
 	}
 
 	@Override
-	public List<BigInteger> getOpenedValues() {
-		return opened_values;
+	public void addOpenedValues(BigInteger[] vals) {
+		accumulator.addOpenedValues(vals);
 	}
 
 	@Override
-	public List<SpdzElement> getClosedValues() {
-		return closed_values;
+	public void addClosedValues(SpdzElement[] elems) {
+		accumulator.addClosedValues(elems);
+	}
+
+	@Override
+	public MacCheckAccumulator getAccumulator() {
+		return accumulator;
 	}
 
 	@Override
@@ -27,8 +27,6 @@
 package dk.alexandra.fresco.suite.spdz.storage;
 
 import java.math.BigInteger;
-import java.util.LinkedList;
-import java.util.List;
 
 import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
 import dk.alexandra.fresco.framework.sce.resources.storage.Storage;
@@ -45,8 +43,7 @@ public class SpdzStorageImpl implements SpdzStorage {
 
 	private StreamedStorage storage;
 
-	private List<BigInteger> opened_values;
-	private List<SpdzElement> closed_values;
+	private MacCheckAccumulator accumulator;
 
 	private DataSupplier supplier;
 
@@ -66,22 +63,34 @@ public class SpdzStorageImpl implements SpdzStorage {
 
 		String storageName = SpdzStorageConstants.STORAGE_NAME_PREFIX + myId;
 
-		opened_values = new LinkedList<BigInteger>();
-		closed_values = new LinkedList<SpdzElement>();
+		accumulator = new MacCheckAccumulator();
 
 		this.supplier = new DataSupplierImpl(storage, storageName,
 				storageId, noOfThreadsUsed, noOfParties);
 	}
 
+	/**
+	 * Creates a storage which gets its preprocessed data from the given
+	 * supplier, e.g. a {@link DealerDataSupplier}.
+	 * 
+	 * @param supplier
+	 *            the supplier of preprocessed data.
+	 */
+	public SpdzStorageImpl(DataSupplier supplier) {
+		accumulator = new MacCheckAccumulator();
+		this.supplier = supplier;
+	}
+
 	@Override
 	public void shutdown() {
-		
+		if (supplier instanceof DealerDataSupplier) {
+			((DealerDataSupplier) supplier).shutdown();
+		}
 	}
 
 	@Override
 	public void reset() {
-		opened_values.clear();
-		closed_values.clear();
+		accumulator.reset();
 	}
 
 	@Override
@@ -91,22 +100,27 @@ public class SpdzStorageImpl implements SpdzStorage {
 
 	@Override
 	public void addOpenedValue(BigInteger val) {
-		opened_values.add(val);
+		accumulator.addOpenedValue(val);
 	}
 
 	@Override
 	public void addClosedValue(SpdzElement elem) {
-		closed_values.add(elem);
+		accumulator.addClosedValue(elem);
+	}
+
+	@Override
+	public void addOpenedValues(BigInteger[] vals) {
+		accumulator.addOpenedValues(vals);
 	}
 
 	@Override
-	public List<BigInteger> getOpenedValues() {
-		return opened_values;
+	public void addClosedValues(SpdzElement[] elems) {
+		accumulator.addClosedValues(elems);
 	}
 
 	@Override
-	public List<SpdzElement> getClosedValues() {
-		return closed_values;
+	public MacCheckAccumulator getAccumulator() {
+		return accumulator;
 	}
 
 	@Override
@@ -0,0 +1,314 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.storage;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.Reporter;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSquare;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+import dk.alexandra.fresco.suite.spdz.utils.Util;
+
+/**
+ * A trusted dealer generating SPDZ preprocessed data on demand. The dealer is
+ * an extra party with id noOfParties + 1 on a network shared with the
+ * computing parties, and streams each party its shares of the correlated
+ * data.
+ * 
+ * Every VM thread of a party uses its own channel for each kind of
+ * preprocessed data (see {@link #getChannel(int, int, int)}), and the dealer
+ * serves each channel from its own thread. On a channel, the dealer waits
+ * until every party has requested the next batch before generating it, which
+ * keeps the parties in sync and means no data is generated before it is
+ * needed. The parties supply themselves using a {@link DealerDataSupplier}.
+ * 
+ * This is only meant for testing and benchmarking, since the dealer learns
+ * all preprocessed data.
+ * 
+ */
+public class TrustedDealer {
+
+	public static final int TRIPLE = 0;
+	public static final int BIT = 1;
+	public static final int EXP_PIPE = 2;
+	public static final int SQUARE = 3;
+	/**
+	 * The kind of input masks toward player 1. Input masks toward player i
+	 * has kind INPUT_MASK + i - 1.
+	 */
+	public static final int INPUT_MASK = 4;
+
+	/**
+	 * Channel used to hand out the modulus and the shares of the MAC key.
+	 */
+	public static final String GLOBAL_CHANNEL = "0";
+
+	private final Network network;
+	private final int noOfParties;
+	private final int noOfThreads;
+	private final BigInteger modulus;
+	private final BigInteger alpha;
+	private final List<BigInteger> alphaShares;
+	private ExecutorService executor;
+
+	/**
+	 * @param network
+	 *            a connected network where the parties have id 1 to
+	 *            noOfParties and the dealer has id noOfParties + 1. It must
+	 *            have at least {@link #getNoOfChannels(int, int)} channels.
+	 * @param noOfParties
+	 *            the number of computing parties.
+	 * @param noOfThreads
+	 *            the number of VM threads each party uses.
+	 * @param modulus
+	 *            the modulus to generate data for.
+	 */
+	public TrustedDealer(Network network, int noOfParties, int noOfThreads,
+			BigInteger modulus) {
+		this.network = network;
+		this.noOfParties = noOfParties;
+		this.noOfThreads = noOfThreads;
+		this.modulus = modulus;
+		this.alphaShares = FakeTripGen.generateAlphaShares(noOfParties, modulus);
+		BigInteger a = BigInteger.ZERO;
+		for (BigInteger share : alphaShares) {
+			a = a.add(share);
+		}
+		this.alpha = a.mod(modulus);
+	}
+
+	/**
+	 * @return the number of channels needed for the given number of parties
+	 *         and threads.
+	 */
+	public static int getNoOfChannels(int noOfParties, int noOfThreads) {
+		return noOfThreads * (INPUT_MASK + noOfParties);
+	}
+
+	/**
+	 * @return the channel used by the given thread for the given kind of
+	 *         preprocessed data.
+	 */
+	public static String getChannel(int noOfParties, int threadId, int kind) {
+		return "" + (threadId * (INPUT_MASK + noOfParties) + kind);
+	}
+
+	/**
+	 * Hands out the modulus and MAC key shares and starts serving all
+	 * channels. Returns immediately.
+	 * 
+	 * @throws IOException
+	 *             if the global information could not be sent.
+	 */
+	public void start() throws IOException {
+		for (int i = 1; i <= noOfParties; i++) {
+			network.send(GLOBAL_CHANNEL, i, new BigInteger[] { modulus,
+					alphaShares.get(i - 1) });
+		}
+		int kinds = INPUT_MASK + noOfParties;
+		executor = Executors.newFixedThreadPool(noOfThreads * kinds);
+		for (int threadId = 0; threadId < noOfThreads; threadId++) {
+			for (int kind = 0; kind < kinds; kind++) {
+				executor.submit(new ChannelServer(threadId, kind));
+			}
+		}
+		executor.shutdown();
+		Reporter.info("Trusted dealer serving " + noOfParties + " parties with "
+				+ noOfThreads + " threads each.");
+	}
+
+	/**
+	 * Waits until all channels have been closed by the parties.
+	 */
+	public void awaitTermination() throws InterruptedException {
+		executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops serving the parties.
+	 */
+	public void stop() {
+		executor.shutdownNow();
+	}
+
+	private class ChannelServer implements Runnable {
+
+		private final int kind;
+		private final String channel;
+		private final Random rand = new SecureRandom();
+
+		ChannelServer(int threadId, int kind) {
+			this.kind = kind;
+			this.channel = getChannel(noOfParties, threadId, kind);
+		}
+
+		@Override
+		public void run() {
+			while (!Thread.currentThread().isInterrupted()) {
+				int amount;
+				try {
+					amount = receiveRequest();
+				} catch (IOException | RuntimeException e) {
+					// The parties have closed the connection.
+					Reporter.fine("Trusted dealer closing channel " + channel);
+					return;
+				}
+				if (amount <= 0) {
+					return;
+				}
+				Serializable[][] shares = generate(amount);
+				try {
+					for (int i = 1; i <= noOfParties; i++) {
+						network.send(channel, i, shares[i - 1]);
+					}
+				} catch (IOException e) {
+					Reporter.warn("Trusted dealer could not send on channel " + channel);
+					return;
+				}
+			}
+		}
+
+		private int receiveRequest() throws IOException {
+			Integer amount = null;
+			for (int i = 1; i <= noOfParties; i++) {
+				Integer request = network.receive(channel, i);
+				if (request == null) {
+					throw new IOException("Party " + i + " closed channel " + channel);
+				}
+				if (amount != null && !amount.equals(request)) {
+					throw new MPCException("Parties requested different amounts ("
+							+ amount + " and " + request + ") on channel " + channel);
+				}
+				amount = request;
+			}
+			return amount;
+		}
+
+		private Serializable[][] generate(int amount) {
+			switch (kind) {
+			case TRIPLE:
+				SpdzTriple[][] triples = new SpdzTriple[noOfParties][amount];
+				for (int j = 0; j < amount; j++) {
+					BigInteger a = sample();
+					BigInteger b = sample();
+					SpdzElement[] as = share(a);
+					SpdzElement[] bs = share(b);
+					SpdzElement[] cs = share(a.multiply(b).mod(modulus));
+					for (int i = 0; i < noOfParties; i++) {
+						triples[i][j] = new SpdzTriple(as[i], bs[i], cs[i]);
+					}
+				}
+				return triples;
+			case BIT:
+				SpdzSInt[][] bits = new SpdzSInt[noOfParties][amount];
+				for (int j = 0; j < amount; j++) {
+					SpdzElement[] shares = share(new BigInteger(1, rand));
+					for (int i = 0; i < noOfParties; i++) {
+						bits[i][j] = new SpdzSInt(shares[i]);
+					}
+				}
+				return bits;
+			case EXP_PIPE:
+				SpdzSInt[][][] pipes = new SpdzSInt[noOfParties][amount][Util.EXP_PIPE_SIZE];
+				for (int j = 0; j < amount; j++) {
+					BigInteger r = sample();
+					while (r.signum() == 0) {
+						r = sample();
+					}
+					BigInteger exp = r.modInverse(modulus);
+					for (int k = 0; k < Util.EXP_PIPE_SIZE; k++) {
+						SpdzElement[] shares = share(exp);
+						for (int i = 0; i < noOfParties; i++) {
+							pipes[i][j][k] = new SpdzSInt(shares[i]);
+						}
+						exp = (k == 0) ? r : exp.multiply(r).mod(modulus);
+					}
+				}
+				return pipes;
+			case SQUARE:
+				SpdzSquare[][] squares = new SpdzSquare[noOfParties][amount];
+				for (int j = 0; j < amount; j++) {
+					BigInteger a = sample();
+					SpdzElement[] as = share(a);
+					SpdzElement[] bs = share(a.multiply(a).mod(modulus));
+					for (int i = 0; i < noOfParties; i++) {
+						squares[i][j] = new SpdzSquare(as[i], bs[i]);
+					}
+				}
+				return squares;
+			default:
+				int towardPlayer = kind - INPUT_MASK + 1;
+				SpdzInputMask[][] masks = new SpdzInputMask[noOfParties][amount];
+				for (int j = 0; j < amount; j++) {
+					BigInteger mask = sample();
+					SpdzElement[] shares = share(mask);
+					for (int i = 0; i < noOfParties; i++) {
+						masks[i][j] = (i + 1 == towardPlayer) ? new SpdzInputMask(
+								shares[i], mask) : new SpdzInputMask(shares[i]);
+					}
+				}
+				return masks;
+			}
+		}
+
+		private SpdzElement[] share(BigInteger value) {
+			BigInteger mac = value.multiply(alpha).mod(modulus);
+			SpdzElement[] shares = new SpdzElement[noOfParties];
+			for (int i = 0; i < noOfParties - 1; i++) {
+				BigInteger valueShare = sample();
+				BigInteger macShare = sample();
+				value = value.subtract(valueShare);
+				mac = mac.subtract(macShare);
+				shares[i] = new SpdzElement(valueShare, macShare);
+			}
+			shares[noOfParties - 1] = new SpdzElement(value.mod(modulus),
+					mac.mod(modulus));
+			return shares;
+		}
+
+		private BigInteger sample() {
+			BigInteger result;
+			do {
+				result = new BigInteger(modulus.bitLength(), rand);
+			} while (result.compareTo(modulus) >= 0);
+			return result;
+		}
+	}
+}
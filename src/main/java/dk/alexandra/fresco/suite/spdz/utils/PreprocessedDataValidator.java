@@ -26,44 +26,549 @@
  *******************************************************************************/
 package dk.alexandra.fresco.suite.spdz.utils;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.Reporter;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSquare;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+import dk.alexandra.fresco.suite.spdz.storage.SeededShareGenerator;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzDataShard;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzDataShard.Kind;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzShareSeed;
+
 /**
  * Checks that the different components of the preprocessed data is correct.
  * That is, that no malformed triples, inputmasks etc. exists.
  * 
- * NB: CURRENTLY DOES NOT WORK. NEEDS TO CREATE SPDZ STORAGE FROM SCRATCH AND
- * GET PREPRO DATA FROM THAT. DO NOT TRY TO FETCH FROM SCE.
+ * The validator works locally on the sharded data of all parties (see
+ * FakeTripGen.writeShards), e.g. as a pre-flight check before a test run.
+ * The shards are memory mapped, and the shards of the different threads and
+ * kinds are checked in parallel. Each item is reconstructed from the shares
+ * of all parties and checked, together with its MAC under the global key.
+ * Either all items or a random sample of each shard is checked. The
+ * positions of malformed items are reported.
+ * 
+ * Validating between multiple machines is not implemented yet.
  * 
  * @author Kasper Damgaard
  *
  */
 public class PreprocessedDataValidator {
 
-	private static String dataPath;
-	private static int numberOfPlayers;
-	private static int numberOfTriples;
-	private static int numberOfInputMasks;
-	private static int numberOfExpPipes;
-	private static int numberOfBits;
-/*
-	private abstract static class ThreadWithFixture extends TestThread {
+	/**
+	 * The maximal number of errors listed in the result.
+	 */
+	public static final int MAX_REPORTED_ERRORS = 100;
+
+	private static final int ARGS_BEFORE_ADDR = 3 + 4;
+
+	private final String path;
+	private final int noOfParties;
+	private final Random rand;
+
+	private BigInteger modulus, alpha;
+	private SpdzShareSeed[] seeds;
+
+	/**
+	 * @param path
+	 *            the directory holding the shards of all parties.
+	 * @param noOfParties
+	 *            the number of parties.
+	 * @param rand
+	 *            the randomness used to pick samples.
+	 */
+	public PreprocessedDataValidator(String path, int noOfParties, Random rand) {
+		this.path = path;
+		this.noOfParties = noOfParties;
+		this.rand = rand;
+	}
+
+	/**
+	 * The outcome of a validation.
+	 */
+	public static class Result {
+
+		private long checked = 0;
+		private long errorCount = 0;
+		private final List<String> errors = new ArrayList<String>();
+		private long bytes = 0;
+		private long millis = 0;
 
-		protected SCE sce;
-		private String runtime;
+		private synchronized void add(Result other) {
+			checked += other.checked;
+			errorCount += other.errorCount;
+			bytes += other.bytes;
+			for (String error : other.errors) {
+				if (errors.size() < MAX_REPORTED_ERRORS) {
+					errors.add(error);
+				}
+			}
+		}
+
+		private void error(String error) {
+			errorCount++;
+			if (errors.size() < MAX_REPORTED_ERRORS) {
+				errors.add(error);
+			}
+		}
+
+		/**
+		 * @return the number of items checked.
+		 */
+		public long getChecked() {
+			return checked;
+		}
+
+		/**
+		 * @return the number of malformed items found.
+		 */
+		public long getErrorCount() {
+			return errorCount;
+		}
+
+		/**
+		 * @return descriptions of the first malformed items found, giving
+		 *         their positions.
+		 */
+		public List<String> getErrors() {
+			return errors;
+		}
+
+		public boolean isValid() {
+			return errorCount == 0;
+		}
+
+		public long getMillis() {
+			return millis;
+		}
 
 		@Override
-		public void setUp() throws IOException {
-			sce = SCE.getInstance(conf.getMyId());
-			sce.resetInstance();
-			sce.setSCEConfiguration(new TestSCEConfiguration(runtime,
-					new SequentialEvaluator(), 3, conf));
+		public String toString() {
+			long ms = Math.max(1, millis);
+			return "Checked " + checked + " items (" + bytes / 1024 + " KB) in "
+					+ millis + " ms (" + checked * 1000 / ms + " items/s, "
+					+ (bytes / 1024) * 1000 / ms + " KB/s) and found " + errorCount
+					+ " errors";
+		}
+	}
+
+	/**
+	 * Validates the data of all threads found in the directory, checking the
+	 * same number of items of each kind.
+	 * 
+	 * @param samplesPerShard
+	 *            the number of items checked in each shard, or a negative
+	 *            number to check all items.
+	 * @return the result of the validation.
+	 */
+	public Result validate(long samplesPerShard) {
+		return validate(samplesPerShard, samplesPerShard, samplesPerShard,
+				samplesPerShard, samplesPerShard);
+	}
+
+	/**
+	 * Validates the data of all threads found in the directory. The numbers
+	 * of items to check are per shard, i.e. per thread and, for input masks,
+	 * per player. A negative number means that all items are checked.
+	 * 
+	 * @return the result of the validation.
+	 */
+	public Result validate(long triples, long inputMasks, long bits,
+			long expPipes) {
+		return validate(triples, inputMasks, bits, expPipes, triples);
+	}
+
+	/**
+	 * As {@link #validate(long, long, long, long)}, but also gives the number
+	 * of square pairs to check. Square shards are optional, and are only
+	 * validated if present.
+	 * 
+	 * @return the result of the validation.
+	 */
+	public Result validate(long triples, long inputMasks, long bits,
+			long expPipes, long squares) {
+		final long[] samples = new long[Kind.values().length];
+		samples[Kind.TRIPLE.ordinal()] = triples;
+		samples[Kind.INPUT_MASK.ordinal()] = inputMasks;
+		samples[Kind.BIT.ordinal()] = bits;
+		samples[Kind.EXP_PIPE.ordinal()] = expPipes;
+		samples[Kind.SQUARE.ordinal()] = squares;
+		long start = System.currentTimeMillis();
+		readGlobals();
+		int noOfThreads = 0;
+		while (new File(SpdzDataShard.getFilename(path, Kind.TRIPLE, 1,
+				noOfThreads + 1, 0)).exists()) {
+			noOfThreads++;
+		}
+		if (noOfThreads == 0) {
+			throw new MPCException("No shards found in " + path);
+		}
+		List<Callable<Result>> tasks = new ArrayList<Callable<Result>>();
+		for (int threadId = 1; threadId <= noOfThreads; threadId++) {
+			for (Kind kind : Kind.values()) {
+				if (kind == Kind.SQUARE && !new File(SpdzDataShard.getFilename(
+						path, kind, 1, threadId, 0)).exists()) {
+					continue;
+				}
+				int towards = (kind == Kind.INPUT_MASK) ? noOfParties : 1;
+				for (int t = 1; t <= towards; t++) {
+					final int thread = threadId;
+					final Kind k = kind;
+					final int toward = (kind == Kind.INPUT_MASK) ? t : 0;
+					final long sampleSeed = rand.nextLong();
+					tasks.add(new Callable<Result>() {
+						@Override
+						public Result call() throws IOException {
+							return validateShards(k, thread, toward,
+									samples[k.ordinal()], new Random(sampleSeed));
+						}
+					});
+				}
+			}
+		}
+		Result result = new Result();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(
+				tasks.size(), Runtime.getRuntime().availableProcessors()));
+		try {
+			for (Future<Result> f : executor.invokeAll(tasks)) {
+				result.add(f.get());
+			}
+		} catch (InterruptedException e) {
+			throw new MPCException("Interrupted while validating preprocessed data", e);
+		} catch (ExecutionException e) {
+			throw new MPCException("Could not validate preprocessed data", e);
+		} finally {
+			executor.shutdown();
+		}
+		result.millis = System.currentTimeMillis() - start;
+		for (String error : result.getErrors()) {
+			Reporter.warn(error);
+		}
+		Reporter.info(result.toString());
+		return result;
+	}
+
+	private void readGlobals() {
+		BigInteger a = BigInteger.ZERO;
+		seeds = new SpdzShareSeed[noOfParties];
+		for (int i = 0; i < noOfParties; i++) {
+			String name = SpdzDataShard.getGlobalFilename(path, i + 1);
+			try (Scanner globalReader = new Scanner(new File(name))) {
+				BigInteger mod = new BigInteger(globalReader.next());
+				if (modulus != null && !modulus.equals(mod)) {
+					throw new MPCException("Party " + (i + 1) + " uses a different modulus");
+				}
+				modulus = mod;
+				a = a.add(new BigInteger(globalReader.next()));
+				if (globalReader.hasNext()) {
+					seeds[i] = SpdzShareSeed.fromHex(i + 1, globalReader.next());
+				}
+			} catch (IOException | RuntimeException e) {
+				throw new MPCException("Could not read global SPDZ data from " + name, e);
+			}
+		}
+		alpha = a.mod(modulus);
+	}
+
+	/**
+	 * Checks the shards of all parties for the given thread and kind.
+	 */
+	private Result validateShards(Kind kind, int threadId, int toward,
+			long samples, Random sampleRand) throws IOException {
+		Result result = new Result();
+		MappedShard[] shards = new MappedShard[noOfParties];
+		SeededShareGenerator[] generators = new SeededShareGenerator[noOfParties];
+		long count = -1;
+		try {
+			for (int i = 0; i < noOfParties; i++) {
+				shards[i] = new MappedShard(SpdzDataShard.getFilename(path,
+						kind, i + 1, threadId, toward));
+				result.bytes += shards[i].file.length();
+				if (seeds[i] != null) {
+					generators[i] = seeds[i].newGenerator(modulus, threadId, kind, toward);
+				}
+				if (count != -1 && count != shards[i].shard.getCount()) {
+					result.error(shards[i].name + " has " + shards[i].shard.getCount()
+							+ " items, but party 1 has " + count);
+					return result;
+				}
+				count = shards[i].shard.getCount();
+			}
+			boolean all = samples < 0 || samples >= count;
+			long[] picked = all ? null : pickIndices(count, (int) samples, sampleRand);
+			long n = all ? count : picked.length;
+			long generated = 0;
+			Serializable[] records = new Serializable[noOfParties];
+			for (long k = 0; k < n; k++) {
+				long index = all ? k : picked[(int) k];
+				for (int i = 0; i < noOfParties; i++) {
+					if (generators[i] != null) {
+						for (long j = generated; j < index; j++) {
+							generate(generators[i], kind);
+						}
+						records[i] = generate(generators[i], kind);
+						if (kind == Kind.INPUT_MASK && toward == i + 1) {
+							records[i] = new SpdzInputMask(((SpdzInputMask) records[i])
+									.getMask(), (BigInteger) shards[i].read(index));
+						}
+					} else {
+						records[i] = shards[i].read(index);
+					}
+				}
+				generated = index + 1;
+				String error = check(kind, toward, records);
+				if (error != null) {
+					result.error(error + " at position " + index + " of thread "
+							+ threadId);
+				}
+				result.checked++;
+			}
+		} finally {
+			for (MappedShard shard : shards) {
+				if (shard != null) {
+					shard.close();
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return distinct random indices below count in increasing order.
+	 */
+	private static long[] pickIndices(long count, int samples, Random sampleRand) {
+		long[] picked = new long[samples];
+		for (int i = 0; i < picked.length; i++) {
+			picked[i] = (long) (sampleRand.nextDouble() * count);
+		}
+		Arrays.sort(picked);
+		int distinct = 0;
+		for (int i = 0; i < picked.length; i++) {
+			if (distinct == 0 || picked[i] != picked[distinct - 1]) {
+				picked[distinct++] = picked[i];
+			}
+		}
+		return Arrays.copyOf(picked, distinct);
+	}
+
+	private static Serializable generate(SeededShareGenerator gen, Kind kind) {
+		switch (kind) {
+		case TRIPLE:
+			return new SpdzTriple(gen.nextElement(), gen.nextElement(), gen.nextElement());
+		case BIT:
+			return new SpdzSInt(gen.nextElement());
+		case SQUARE:
+			return new SpdzSquare(gen.nextElement(), gen.nextElement());
+		case EXP_PIPE:
+			SpdzSInt[] pipe = new SpdzSInt[Util.EXP_PIPE_SIZE];
+			for (int i = 0; i < pipe.length; i++) {
+				pipe[i] = new SpdzSInt(gen.nextElement());
+			}
+			return pipe;
+		default:
+			return new SpdzInputMask(gen.nextElement());
+		}
+	}
+
+	/**
+	 * Reconstructs an item from the shares of all parties and checks it.
+	 * 
+	 * @return a description of the error, or null if the item is correct.
+	 */
+	private String check(Kind kind, int toward, Serializable[] records) {
+		switch (kind) {
+		case TRIPLE: {
+			SpdzElement[] as = new SpdzElement[noOfParties];
+			SpdzElement[] bs = new SpdzElement[noOfParties];
+			SpdzElement[] cs = new SpdzElement[noOfParties];
+			for (int i = 0; i < noOfParties; i++) {
+				SpdzTriple t = (SpdzTriple) records[i];
+				as[i] = t.getA();
+				bs[i] = t.getB();
+				cs[i] = t.getC();
+			}
+			BigInteger a = open(as);
+			BigInteger b = open(bs);
+			BigInteger c = open(cs);
+			if (a == null || b == null || c == null) {
+				return "Triple with wrong MAC";
+			}
+			if (!a.multiply(b).mod(modulus).equals(c)) {
+				return "Triple with c != ab";
+			}
+			return null;
+		}
+		case BIT: {
+			SpdzElement[] bits = new SpdzElement[noOfParties];
+			for (int i = 0; i < noOfParties; i++) {
+				bits[i] = ((SpdzSInt) records[i]).value;
+			}
+			BigInteger bit = open(bits);
+			if (bit == null) {
+				return "Bit with wrong MAC";
+			}
+			if (bit.signum() != 0 && !bit.equals(BigInteger.ONE)) {
+				return "Bit which is neither 0 nor 1";
+			}
+			return null;
+		}
+		case SQUARE: {
+			SpdzElement[] as = new SpdzElement[noOfParties];
+			SpdzElement[] bs = new SpdzElement[noOfParties];
+			for (int i = 0; i < noOfParties; i++) {
+				SpdzSquare s = (SpdzSquare) records[i];
+				as[i] = s.getA();
+				bs[i] = s.getB();
+			}
+			BigInteger a = open(as);
+			BigInteger b = open(bs);
+			if (a == null || b == null) {
+				return "Square with wrong MAC";
+			}
+			if (!a.multiply(a).mod(modulus).equals(b)) {
+				return "Square with b != a^2";
+			}
+			return null;
+		}
+		case EXP_PIPE: {
+			BigInteger[] values = new BigInteger[Util.EXP_PIPE_SIZE];
+			SpdzElement[] elements = new SpdzElement[noOfParties];
+			for (int k = 0; k < values.length; k++) {
+				for (int i = 0; i < noOfParties; i++) {
+					elements[i] = ((SpdzSInt[]) records[i])[k].value;
+				}
+				values[k] = open(elements);
+				if (values[k] == null) {
+					return "Exp pipe with wrong MAC on element " + k;
+				}
+			}
+			if (!values[0].multiply(values[1]).mod(modulus).equals(BigInteger.ONE)) {
+				return "Exp pipe where the first element is not the inverse of the second";
+			}
+			for (int k = 2; k < values.length; k++) {
+				if (!values[k - 1].multiply(values[1]).mod(modulus).equals(values[k])) {
+					return "Exp pipe with wrong power on element " + k;
+				}
+			}
+			return null;
+		}
+		default: {
+			SpdzElement[] masks = new SpdzElement[noOfParties];
+			for (int i = 0; i < noOfParties; i++) {
+				masks[i] = ((SpdzInputMask) records[i]).getMask();
+			}
+			BigInteger mask = open(masks);
+			if (mask == null) {
+				return "Input mask toward player " + toward + " with wrong MAC";
+			}
+			BigInteger real = ((SpdzInputMask) records[toward - 1]).getRealValue();
+			if (!mask.equals(real)) {
+				return "Input mask toward player " + toward
+						+ " which does not match the value known by the player";
+			}
+			return null;
+		}
+		}
+	}
+
+	/**
+	 * @return the value shared by the elements, or null if the MAC is wrong.
+	 */
+	private BigInteger open(SpdzElement[] elements) {
+		BigInteger value = BigInteger.ZERO;
+		BigInteger mac = BigInteger.ZERO;
+		for (SpdzElement e : elements) {
+			value = value.add(e.getShare());
+			mac = mac.add(e.getMac());
+		}
+		value = value.mod(modulus);
+		if (!value.multiply(alpha).subtract(mac).mod(modulus).equals(BigInteger.ZERO)) {
+			return null;
+		}
+		return value;
+	}
+
+	/**
+	 * A shard mapped into memory in windows of whole records, as a single
+	 * mapping is limited to 2 GB.
+	 */
+	private static class MappedShard {
+
+		private final String name;
+		private final File file;
+		private final RandomAccessFile raf;
+		private final SpdzDataShard shard;
+		private final int recordSize;
+		private final long recordsPerWindow;
+		private final byte[] scratch;
+		private MappedByteBuffer window;
+		private long windowStart = -1;
+
+		private MappedShard(String name) throws IOException {
+			this.name = name;
+			this.file = new File(name);
+			if (!file.exists()) {
+				throw new MPCException("Missing shard " + name);
+			}
+			this.raf = new RandomAccessFile(file, "r");
+			this.shard = SpdzDataShard.readHeader(raf.getChannel(), name);
+			if (file.length() != shard.getFileSize()) {
+				raf.close();
+				throw new MPCException("Shard " + name + " should hold "
+						+ shard.getCount() + " records, but has " + file.length()
+						+ " bytes");
+			}
+			this.recordSize = shard.getRecordSize();
+			this.recordsPerWindow = Math.max(1, Integer.MAX_VALUE / Math.max(1, recordSize));
+			this.scratch = shard.newScratch();
+		}
+
+		private Serializable read(long index) throws IOException {
+			if (recordSize == 0) {
+				return shard.readRecord(null, scratch);
+			}
+			long start = (index / recordsPerWindow) * recordsPerWindow;
+			if (start != windowStart) {
+				long length = Math.min(recordsPerWindow, shard.getCount() - start) * recordSize;
+				window = raf.getChannel().map(FileChannel.MapMode.READ_ONLY,
+						shard.getHeaderSize() + start * recordSize, length);
+				windowStart = start;
+			}
+			ByteBuffer buffer = window.duplicate();
+			buffer.position((int) ((index - start) * recordSize));
+			return shard.readRecord(buffer, scratch);
+		}
+
+		private void close() throws IOException {
+			window = null;
+			raf.close();
 		}
 	}
-*/
-	private static final int ARGS_BEFORE_ADDR = 3 + 4;
 
 	public static void main(String[] args) {
 		boolean single;
-		String[] remoteAddrs;
 
 		if (args.length < ARGS_BEFORE_ADDR) {
 			usage();
@@ -82,174 +587,18 @@ public class PreprocessedDataValidator {
 				}
 			}
 		}
-		numberOfPlayers = Integer.parseInt(args[1]);
-		dataPath = args[0];
-		numberOfTriples = Integer.parseInt(args[3]);
-		numberOfInputMasks = Integer.parseInt(args[4]);
-		numberOfBits = Integer.parseInt(args[5]);
-		numberOfExpPipes = Integer.parseInt(args[6]);
-
 		if (!single) {
-			remoteAddrs = new String[args.length - ARGS_BEFORE_ADDR];
-			for (int i = ARGS_BEFORE_ADDR; i < args.length; i++) {
-				remoteAddrs[i] = args[i];
-			}
-			multipleWay(remoteAddrs);
-		} else {
-			singleWay();
+			multipleWay(Arrays.copyOfRange(args, ARGS_BEFORE_ADDR, args.length));
+			return;
 		}
+		Reporter.init(Level.INFO);
+		String dataPath = args[0];
+		int numberOfPlayers = Integer.parseInt(args[1]);
+		new PreprocessedDataValidator(dataPath, numberOfPlayers, new Random())
+				.validate(Long.parseLong(args[3]), Long.parseLong(args[4]),
+						Long.parseLong(args[5]), Long.parseLong(args[6]));
 	}
-	
-	private static void singleWay() {
-		throw new RuntimeException("Not implemented yet");
-	}
-/*
-	private static void singleWay() {
-		TestThreadRunner.run(new TestThreadFactory() {
-			@Override
-			public TestThread next(NetworkConfiguration conf) {
-				return new ThreadWithFixture() {
-					@Override
-					public void test() throws Exception {
-
-						OInt[] outputs1 = new OInt[numberOfTriples];
-						OInt[] outputs2 = new OInt[numberOfTriples];
-						OInt[] outputs3 = new OInt[numberOfTriples];
-
-						ParallelGateProducer par = new ParallelGateProducer();
-						// Check triples
-						System.out.println("Starting checks of triples");
-						for (int i = 0; i < numberOfTriples; i++) {
-							SpdzTriple triple = supplier.getNextTriple();
-							outputs1[i] = new SpdzOInt();
-							outputs2[i] = new SpdzOInt();
-							outputs3[i] = new SpdzOInt();
-							SpdzOutputToAllGate o1 = new SpdzOutputToAllGate(
-									new SpdzSInt(triple.getA()), outputs1[i]);
-							SpdzOutputToAllGate o2 = new SpdzOutputToAllGate(
-									new SpdzSInt(triple.getB()), outputs2[i]);
-							SpdzOutputToAllGate o3 = new SpdzOutputToAllGate(
-									new SpdzSInt(triple.getC()), outputs3[i]);
-							par.append(o1);
-							par.append(o2);
-							par.append(o3);
-						}
-
-						evaluator.eval(par);
-						for (int i = 0; i < numberOfTriples; i++) {
-							BigInteger ab = outputs1[i].getValue()
-									.multiply(outputs2[i].getValue())
-									.mod(Util.getModulus());
-							if (!Util.convertRepresentation(ab).equals(
-									outputs3[i].getValue())) {
-								System.out.println("Triple no. " + i
-										+ " was not correct");
-							}
-						}
-						System.out.println("Done checking triples");
-						System.out.println("Starting checks of Input masks");
-						// Check input masks
-						for (int towardsPlayerId = 1; towardsPlayerId <= numberOfPlayers; towardsPlayerId++) {
-							BigInteger[] values = new BigInteger[numberOfInputMasks];
-							OInt[] outputs = new OInt[numberOfInputMasks];
-							par = new ParallelGateProducer();
-							for (int i = 0; i < numberOfInputMasks; i++) {
-								SpdzInputMask mask = supplier
-										.getNextInputMask(towardsPlayerId);
-								if (conf.getMyId() == towardsPlayerId) {
-									values[i] = mask.getRealValue();
-								}
-								outputs[i] = new SpdzOInt();
-								SpdzSInt number = new SpdzSInt(mask.getMask());
-								SpdzOutputToAllGate o1 = new SpdzOutputToAllGate(
-										number, outputs[i]);
-								par.append(o1);
-							}
-							evaluator.eval(par);
-							for (int i = 0; i < numberOfInputMasks; i++) {
-								if (conf.getMyId() == towardsPlayerId) {
-									if (!Util.convertRepresentation(values[i])
-											.equals(outputs[i].getValue())) {
-										System.out.println("Input no. " + i
-												+ " was not correct");
-									}
-								}
-							}
-							System.out.println("Checked masks towards player "
-									+ towardsPlayerId);
-						}
-						System.out.println("Done checking Input masks");
-						System.out.println("Starting checks of Bits");
-						// Check bits
-						for (int i = 0; i < numberOfBits; i++) {
-							SpdzSInt bit = supplier.getNextBit();
-
-							SpdzOInt output1 = new SpdzOInt();
-							SpdzOutputToAllGate o1 = new SpdzOutputToAllGate(
-									bit, output1);
-							SequentialProtocolProducer prod = new SequentialProtocolProducer(
-									o1);
-
-							evaluator.eval(prod);
-
-							if (!output1.value.equals(BigInteger.ONE)
-									&& !output1.value.equals(BigInteger.ZERO)) {
-								System.out.println("Bit no " + i
-										+ " was not correct");
-							}
-						}
 
-						System.out.println("Done checking Bits");
-						System.out.println("Starting checks of ExpPipes");
-						// Check expPipe
-						for (int i = 0; i < numberOfExpPipes; i++) {
-							SpdzSInt[] expPipe = supplier.getNextExpPipe();
-							if (!checkExpCircuit(evaluator, expPipe)) {
-								System.out.println("Exp Pipe no " + i
-										+ " was not correct");
-							}
-						}
-						System.out.println("Done checking ExpPipes");
-						network.shutdown();
-					}
-				};
-			}
-		}, numberOfPlayers);
-	}
-
-	private static boolean checkExpCircuit(ProtocolEvaluator evaluator,
-			SInt[] outputs) {
-		BigInteger[] openedVals = new BigInteger[outputs.length];
-		for (int i = 0; i < outputs.length; i++) {
-			SpdzOInt output1 = new SpdzOInt();
-			SpdzOutputToAllGate o1 = new SpdzOutputToAllGate(outputs[i],
-					output1);
-			SequentialProtocolProducer prod = new SequentialProtocolProducer(o1);
-
-			evaluator.eval(prod);
-			openedVals[i] = output1.getValue();
-		}
-		BigInteger R = openedVals[1];
-		BigInteger nextR = R;
-		BigInteger R_inv = openedVals[0];
-		if (!BigInteger.ONE.equals(R.multiply(R_inv).mod(Util.getModulus()))) {
-			return false;
-		}
-		for (int i = 2; i < outputs.length; i++) {
-			nextR = R.multiply(nextR).mod(Util.getModulus());
-			if (!Util.convertRepresentation(nextR).equals(openedVals[i])) {
-				return false;
-			}
-		}
-		BigInteger[] Ms = Util.getClearExpPipe(R);
-		for (int i = 0; i < Ms.length; i++) {
-			if (!Util.convertRepresentation(Ms[i]).equals(openedVals[i + 1])) {
-				return false;
-			}
-		}
-		return true;
-	}
-*/
 	private static void multipleWay(String[] addrs) {
 		throw new RuntimeException("Not implemented yet");
 	}
@@ -263,15 +612,15 @@ public class PreprocessedDataValidator {
 		System.out
 				.println("numberOfPlayers=*The amount of players in the Spdz Setup - must also be specified even if single=true*");
 		System.out
-				.println("single=*Boolean for running this on a single machine (requires all data to be at the data path) or between multiple machines*");
+				.println("single=*Boolean for running this on a single machine (requires the sharded data of all parties to be at the data path) or between multiple machines*");
 		System.out
-				.println("numberOfTriples=*The amount of triples that you would like to check.");
+				.println("numberOfTriples=*The amount of triples that you would like to check in each thread's shard, or -1 to check all.");
 		System.out
-				.println("numberOfInputMasks=*The amount of Input masks that you would like to check.");
+				.println("numberOfInputMasks=*The amount of Input masks toward each player that you would like to check in each thread's shard, or -1 to check all.");
 		System.out
-				.println("numberOfBits=*The amount of Bits that you would like to check.");
+				.println("numberOfBits=*The amount of Bits that you would like to check in each thread's shard, or -1 to check all.");
 		System.out
-				.println("numberOfExpPipes=*The amount of Exp pipes that you would like to check.");
+				.println("numberOfExpPipes=*The amount of Exp pipes that you would like to check in each thread's shard, or -1 to check all.");
 		System.out
 				.println("If single=false, you must specify the remote addresses and ports of the other parties (as e.g. 127.0.0.1:8080)");
 		System.out.println("Thus, a valid run would look something like:");
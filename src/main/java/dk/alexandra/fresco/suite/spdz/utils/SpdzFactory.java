@@ -31,42 +31,81 @@ import java.security.SecureRandom;
 
 import dk.alexandra.fresco.framework.value.KnownSIntProtocol;
 import dk.alexandra.fresco.framework.value.OInt;
+import dk.alexandra.fresco.framework.value.SBool;
+import dk.alexandra.fresco.framework.value.SBoolFactory;
 import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.lib.conversion.BitToNumeralCircuit;
+import dk.alexandra.fresco.lib.conversion.BitToNumeralCircuitFactory;
+import dk.alexandra.fresco.lib.conversion.NumeralToBitCircuit;
+import dk.alexandra.fresco.lib.conversion.NumeralToBitCircuitFactory;
 import dk.alexandra.fresco.lib.field.integer.AddProtocol;
 import dk.alexandra.fresco.lib.field.integer.BasicNumericFactory;
 import dk.alexandra.fresco.lib.field.integer.CloseIntProtocol;
+import dk.alexandra.fresco.lib.field.integer.CloseVectorProtocol;
+import dk.alexandra.fresco.lib.field.integer.ConstantCache;
+import dk.alexandra.fresco.lib.field.integer.LinearCombinationFactory;
+import dk.alexandra.fresco.lib.field.integer.LinearCombinationProtocol;
 import dk.alexandra.fresco.lib.field.integer.MultProtocol;
+import dk.alexandra.fresco.lib.field.integer.MultVectorProtocol;
+import dk.alexandra.fresco.lib.field.integer.NumericVectorFactory;
 import dk.alexandra.fresco.lib.field.integer.OpenIntProtocol;
+import dk.alexandra.fresco.lib.field.integer.OpenVectorProtocol;
+import dk.alexandra.fresco.lib.field.integer.SquareFactory;
 import dk.alexandra.fresco.lib.field.integer.SubtractCircuit;
 import dk.alexandra.fresco.lib.math.PreprocessedNumericBitFactory;
 import dk.alexandra.fresco.lib.math.exp.ExpFromOIntFactory;
 import dk.alexandra.fresco.lib.math.exp.PreprocessedExpPipeFactory;
 import dk.alexandra.fresco.lib.math.inv.LocalInversionCircuit;
 import dk.alexandra.fresco.lib.math.inv.LocalInversionFactory;
+import dk.alexandra.fresco.lib.math.linalg.MatrixFactory;
+import dk.alexandra.fresco.lib.math.linalg.MatrixMultProtocol;
+import dk.alexandra.fresco.lib.math.linalg.MatrixMultProtocolImpl;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzOInt;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSBool;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.evaluation.strategy.SpdzProtocolSuite;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzAddProtocol;
+import dk.alexandra.fresco.suite.spdz.gates.SpdzBitToNumeralProtocol;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzInputProtocol;
+import dk.alexandra.fresco.suite.spdz.gates.SpdzInputVectorProtocol;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzKnownSIntProtocol;
+import dk.alexandra.fresco.suite.spdz.gates.SpdzLinearCombinationProtocol;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzLocalInversionProtocol;
+import dk.alexandra.fresco.suite.spdz.gates.SpdzMatrixMultProtocol;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzMultProtocol;
+import dk.alexandra.fresco.suite.spdz.gates.SpdzMultVectorProtocol;
+import dk.alexandra.fresco.suite.spdz.gates.SpdzNumeralToBitProtocol;
+import dk.alexandra.fresco.suite.spdz.gates.SpdzOpenVectorProtocol;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzOutputProtocol;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzOutputToAllProtocol;
+import dk.alexandra.fresco.suite.spdz.gates.SpdzSquareProtocol;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzSubtractProtocol;
 import dk.alexandra.fresco.suite.spdz.storage.SpdzStorage;
 
 public class SpdzFactory implements BasicNumericFactory, PreprocessedNumericBitFactory,
-		PreprocessedExpPipeFactory, ExpFromOIntFactory, LocalInversionFactory {
+		PreprocessedExpPipeFactory, ExpFromOIntFactory, LocalInversionFactory,
+		LinearCombinationFactory, NumericVectorFactory, SquareFactory, MatrixFactory,
+		SBoolFactory, NumeralToBitCircuitFactory, BitToNumeralCircuitFactory {
+
+	/**
+	 * The number of extra random bits masking a value when it is decomposed
+	 * into bits.
+	 */
+	public static final int CONVERSION_SECURITY_PARAMETER = 40;
 
 	private int maxBitLength;
+	private SpdzProtocolSuite suite;
 	private SpdzStorage storage;
 	private SecureRandom rand;
 	private int pID;
+	private ConstantCache constants;
 
 	/**
 	 * 
-	 * @param storage
+	 * @param suite
+	 *            The suite evaluating the protocols of this factory. The
+	 *            modulus and the MAC key share are taken from it.
 	 * @param pID
 	 * @param maxBitLength
 	 *            The maximum length in bits that the numbers in the
@@ -74,12 +113,17 @@ public class SpdzFactory implements BasicNumericFactory, PreprocessedNumericBitF
 	 *            application, you can create several providers, each with a
 	 *            different maxBitLength to increase performance.
 	 */
-	//TODO: Make SpdzProvider decoupled from the storage.
-	public SpdzFactory(SpdzStorage storage, int pID, int maxBitLength) {
+	public SpdzFactory(SpdzProtocolSuite suite, int pID, int maxBitLength) {
 		this.maxBitLength = maxBitLength;
 		rand = new SecureRandom();
-		this.storage = storage;
+		this.suite = suite;
+		this.storage = suite.getStore(0);
 		this.pID = pID;
+		this.constants = new ConstantCache(this, this);
+	}
+
+	public SpdzProtocolSuite getProtocolSuite() {
+		return suite;
 	}
 
 	@Override
@@ -92,14 +136,14 @@ public class SpdzFactory implements BasicNumericFactory, PreprocessedNumericBitF
 	 */
 
 	public KnownSIntProtocol getSInt(int i, SInt si) {
-		return new SpdzKnownSIntProtocol(i, si);
+		return new SpdzKnownSIntProtocol(i, si, suite);
 	}
 
 	/**
 	 * Careful - This creates a publicly known integer which is secret shared.
 	 */
 	public KnownSIntProtocol getSInt(BigInteger value, SInt sValue) {
-		return new SpdzKnownSIntProtocol(value, sValue);
+		return new SpdzKnownSIntProtocol(value, sValue, suite);
 	}
 
 	/**
@@ -112,7 +156,7 @@ public class SpdzFactory implements BasicNumericFactory, PreprocessedNumericBitF
 	public SInt getSqrtOfMaxValue() {
 		SpdzElement elm;
 		BigInteger two = BigInteger.valueOf(2);
-		BigInteger max = Util.getModulus().subtract(BigInteger.ONE).divide(two);
+		BigInteger max = suite.getModulus().subtract(BigInteger.ONE).divide(two);
 		int bitlength = max.bitLength();
 		BigInteger approxMaxSqrt = two.pow(bitlength / 2);
 
@@ -126,6 +170,16 @@ public class SpdzFactory implements BasicNumericFactory, PreprocessedNumericBitF
 		return new SpdzSInt(elm);
 	}
 
+	@Override
+	public SInt getKnownConstantSInt(int i) {
+		return constants.getSInt(i);
+	}
+
+	@Override
+	public OInt getKnownConstantOInt(int i) {
+		return constants.getOInt(i);
+	}
+
 	@Override
 	public SInt getRandomSecretSharedBit() {
 		return this.storage.getSupplier().getNextBit();
@@ -138,7 +192,7 @@ public class SpdzFactory implements BasicNumericFactory, PreprocessedNumericBitF
 
 	@Override
 	public OInt[] getExpFromOInt(OInt value, int maxBitSize) {
-		BigInteger[] res = Util.getClearExpPipe(value.getValue());
+		BigInteger[] res = Util.getClearExpPipe(value.getValue(), suite.getModulus());
 		OInt[] expPipe = new OInt[res.length];
 		for (int i = 0; i < res.length; i++) {
 			expPipe[i] = new SpdzOInt(res[i]);
@@ -158,18 +212,18 @@ public class SpdzFactory implements BasicNumericFactory, PreprocessedNumericBitF
 
 	@Override
 	public OInt getOInt(BigInteger i) {
-		return new SpdzOInt(i.mod(Util.getModulus()));
+		return new SpdzOInt(i.mod(suite.getModulus()));
 	}
 
 	@Override
 	public OInt getRandomOInt() {
 		return new SpdzOInt(new BigInteger(
-				Util.getModulus().toByteArray().length, rand));
+				suite.getModulus().toByteArray().length, rand));
 	}
 
 	@Override
 	public AddProtocol getAddProtocol(SInt a, SInt b, SInt out) {
-		return new SpdzAddProtocol(a, b, out);
+		return new SpdzAddProtocol(a, b, out, suite);
 	}
 
 	@Override
@@ -189,12 +243,57 @@ public class SpdzFactory implements BasicNumericFactory, PreprocessedNumericBitF
 
 	@Override
 	public MultProtocol getMultCircuit(SInt a, SInt b, SInt out) {
-		return new SpdzMultProtocol(a, b, out);
+		return new SpdzMultProtocol(a, b, out, suite);
 	}
 
 	@Override
 	public MultProtocol getMultCircuit(OInt a, SInt b, SInt out) {
-		return new SpdzMultProtocol(a, b, out);
+		return new SpdzMultProtocol(a, b, out, suite);
+	}
+
+	@Override
+	public LinearCombinationProtocol getLinearCombinationProtocol(OInt[] coefficients,
+			SInt[] values, SInt out) {
+		return new SpdzLinearCombinationProtocol(coefficients, values, out, suite);
+	}
+
+	@Override
+	public MultVectorProtocol getMultVectorProtocol(SInt[] left, SInt[] right, SInt[] out) {
+		return new SpdzMultVectorProtocol(left, right, out, suite);
+	}
+
+	@Override
+	public OpenVectorProtocol getOpenVectorProtocol(SInt[] closed, OInt[] open) {
+		return new SpdzOpenVectorProtocol(closed, open, suite);
+	}
+
+	@Override
+	public CloseVectorProtocol getCloseVectorProtocol(int source, OInt[] open, SInt[] closed) {
+		return new SpdzInputVectorProtocol(open, closed, source, suite);
+	}
+
+	/**
+	 * Squares using a square pair if the configuration says the preprocessed
+	 * data has them, and multiplies the value by itself otherwise.
+	 */
+	@Override
+	public MultProtocol getSquareProtocol(SInt in, SInt out) {
+		if (suite.getConf() != null && suite.getConf().useSquarePairs()) {
+			return new SpdzSquareProtocol(in, out, suite);
+		}
+		return new SpdzMultProtocol(in, in, out, suite);
+	}
+
+	/**
+	 * Multiplies using a matrix triple if the configuration says the
+	 * preprocessed data has them, and entry by entry otherwise.
+	 */
+	@Override
+	public MatrixMultProtocol getMatrixMultProtocol(SInt[][] left, SInt[][] right, SInt[][] out) {
+		if (suite.getConf() != null && suite.getConf().useMatrixTriples()) {
+			return new SpdzMatrixMultProtocol(left, right, out, suite);
+		}
+		return new MatrixMultProtocolImpl(left, right, out, this);
 	}
 
 	@Override
@@ -202,20 +301,25 @@ public class SpdzFactory implements BasicNumericFactory, PreprocessedNumericBitF
 		return this.maxBitLength;
 	}
 
+	@Override
+	public BigInteger getModulus() {
+		return suite.getModulus();
+	}
+
 	/****************************************
 	 * Native gates or circuits to Spdz *
 	 ****************************************/
 
 	@Override
 	public LocalInversionCircuit getLocalInversionCircuit(OInt in, OInt out) {
-		return new SpdzLocalInversionProtocol(in, out);
+		return new SpdzLocalInversionProtocol(in, out, suite);
 	}
 
 	@Override
 	@Deprecated
 	public SInt getSInt(int i) {
 
-		BigInteger b = BigInteger.valueOf(i).mod(Util.getModulus());
+		BigInteger b = BigInteger.valueOf(i).mod(suite.getModulus());
 		SpdzElement elm;
 		if (pID == 1) {
 			elm = new SpdzElement(b, b.multiply(this.storage.getSSK()));
@@ -229,7 +333,7 @@ public class SpdzFactory implements BasicNumericFactory, PreprocessedNumericBitF
 	@Override
 	@Deprecated
 	public SInt getSInt(BigInteger b) {
-		b = b.mod(Util.getModulus());
+		b = b.mod(suite.getModulus());
 		SpdzElement elm;
 		if (pID == 1) {
 			elm = new SpdzElement(b, b.multiply(this.storage.getSSK()));
@@ -240,29 +344,78 @@ public class SpdzFactory implements BasicNumericFactory, PreprocessedNumericBitF
 		return new SpdzSInt(elm);
 	}
 
+	/****************************************
+	 * Bits shared in the field *
+	 ****************************************/
+
+	@Override
+	public SBool getSBool() {
+		return new SpdzSBool();
+	}
+
+	@Override
+	public SBool[] getSBools(int amount) {
+		SBool[] res = new SBool[amount];
+		for (int i = 0; i < amount; i++) {
+			res[i] = new SpdzSBool();
+		}
+		return res;
+	}
+
+	@Override
+	public SBool getKnownConstantSBool(boolean b) {
+		BigInteger value = b ? BigInteger.ONE : BigInteger.ZERO;
+		BigInteger share = pID == 1 ? value : BigInteger.ZERO;
+		return new SpdzSBool(new SpdzElement(share, value.multiply(this.storage.getSSK())
+				.mod(suite.getModulus())));
+	}
+
+	@Override
+	public SBool[] getKnownConstantSBools(boolean[] bools) {
+		SBool[] res = new SBool[bools.length];
+		for (int i = 0; i < bools.length; i++) {
+			res[i] = getKnownConstantSBool(bools[i]);
+		}
+		return res;
+	}
+
+	/**
+	 * Decomposes a value in [0, 2^out.length) using an edaBit, see
+	 * {@link SpdzNumeralToBitProtocol}.
+	 */
+	@Override
+	public NumeralToBitCircuit getNumeralToBitCircuit(SInt in, SBool[] out) {
+		return new SpdzNumeralToBitProtocol(in, out, CONVERSION_SECURITY_PARAMETER, suite);
+	}
+
+	@Override
+	public BitToNumeralCircuit getBitToNumeralCircuit(SBool[] in, SInt out) {
+		return new SpdzBitToNumeralProtocol(in, out, suite);
+	}
+
 	/****************************************
 	 * IO Provider Stuff *
 	 ****************************************/
 
 	public CloseIntProtocol getCloseProtocol(BigInteger open,
 			SInt closed, int targetID) {
-		return new SpdzInputProtocol(open, closed, targetID);
+		return new SpdzInputProtocol(open, closed, targetID, suite);
 	}
 
 
 	@Override
 	public CloseIntProtocol getCloseProtocol(int source, OInt open, SInt closed) {
-		return new SpdzInputProtocol(open, closed, source);
+		return new SpdzInputProtocol(open, closed, source, suite);
 	}
 
 	@Override
 	public OpenIntProtocol getOpenProtocol(int target, SInt closed, OInt open) {
-		return new SpdzOutputProtocol(closed, open, target);
+		return new SpdzOutputProtocol(closed, open, target, suite);
 	}
 
 	@Override
 	public OpenIntProtocol getOpenProtocol(SInt closed, OInt open) {
-		return new SpdzOutputToAllProtocol(closed, open);
+		return new SpdzOutputToAllProtocol(closed, open, suite);
 	}
 
 }
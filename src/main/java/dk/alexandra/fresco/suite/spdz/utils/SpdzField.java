@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.utils;
+
+import java.math.BigInteger;
+
+import dk.alexandra.fresco.framework.math.ModularArithmetic;
+import dk.alexandra.fresco.framework.math.MontgomeryField;
+
+/**
+ * The field a SPDZ computation runs in. Each {@link
+ * dk.alexandra.fresco.suite.spdz.evaluation.strategy.SpdzProtocolSuite} has
+ * its own field, so computations with different moduli can run side by side
+ * in one JVM.
+ */
+public class SpdzField {
+
+	private final BigInteger modulus;
+	private final BigInteger halfModulus;
+	private final int size;
+	private final ModularArithmetic arithmetic;
+	private final MontgomeryField montgomery;
+
+	public SpdzField(BigInteger modulus) {
+		this.modulus = modulus;
+		this.halfModulus = modulus.divide(BigInteger.valueOf(2));
+		byte[] bytes = modulus.toByteArray();
+		this.size = bytes[0] == 0 ? bytes.length - 1 : bytes.length;
+		this.arithmetic = ModularArithmetic.forModulus(modulus);
+		if (modulus.testBit(0) && modulus.bitLength() > ModularArithmetic.WORD_BIT_LENGTH) {
+			this.montgomery = new MontgomeryField(modulus);
+		} else {
+			this.montgomery = null;
+		}
+	}
+
+	public BigInteger getModulus() {
+		return modulus;
+	}
+
+	/**
+	 * @return the number of bytes needed to hold an element.
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return the arithmetic modulo the modulus, chosen to be as fast as
+	 *         possible for the modulus.
+	 */
+	public ModularArithmetic getArithmetic() {
+		return arithmetic;
+	}
+
+	/**
+	 * @return Montgomery arithmetic modulo the modulus, or null if the
+	 *         modulus is even or small enough to be handled by
+	 *         {@link #getArithmetic()} on longs.
+	 */
+	public MontgomeryField getMontgomeryField() {
+		return montgomery;
+	}
+
+	/**
+	 * @return b as a number in the range (-p/2, p/2].
+	 */
+	public BigInteger convertRepresentation(BigInteger b) {
+		BigInteger actual = b.mod(modulus);
+		if (actual.compareTo(halfModulus) > 0) {
+			actual = actual.subtract(modulus);
+		}
+		return actual;
+	}
+}
@@ -52,25 +52,10 @@ import dk.alexandra.fresco.lib.helper.ParallelProtocolProducer;
  */
 public class Util {
 	
-	private static BigInteger p = null; //Should be set by an initiation call
-	private static BigInteger p_half;
-	public static int size = 0; //should be set by an initiation call
 	public static int EXP_PIPE_SIZE = 200+1; //R^-1, R, R^2, ..., R^200		
 	
 	public static final String ENCODING = "UTF-8";	
 	
-	public static BigInteger getModulus() {
-		if(p == null) {
-			throw new IllegalStateException("You need to set the modulus before you can retrieve it.");
-		}
-		return p;
-	}
-
-	public static void setModulus(BigInteger p) {
-		Util.p = p;
-		Util.p_half = p.divide(BigInteger.valueOf(2));
-	}
-
 	private MessageDigest H;
 	
 	public MessageDigest getHashFunction(){
@@ -95,14 +80,6 @@ public class Util {
 //		return is;
 //	}
 	
-	public static BigInteger convertRepresentation(BigInteger b) {
-		BigInteger actual = b.mod(p);
-		if (actual.compareTo(p_half) > 0) {
-			actual = actual.subtract(p);
-		}
-		return actual;
-	}
-
 	public static InputStream getInputStream(String resource) throws IOException{
 		File f = new File(resource);
 		if (!f.exists()) {
@@ -116,13 +93,14 @@ public class Util {
 	/**
 	 * Returns the numbers: M, M^2, M^3, ..., M^maxExp
 	 * @param M
+	 * @param modulus
 	 * @return
 	 */
-	public static BigInteger[] getClearExpPipe(BigInteger M){
+	public static BigInteger[] getClearExpPipe(BigInteger M, BigInteger modulus){
 		BigInteger[] Ms = new BigInteger[EXP_PIPE_SIZE-1];
 		Ms[0] = M;
 		for(int i = 1; i < Ms.length; i++){
-			Ms[i] = Ms[i-1].multiply(M).mod(p);
+			Ms[i] = Ms[i-1].multiply(M).mod(modulus);
 		}
 		return Ms;
 	}
@@ -133,9 +111,10 @@ public class Util {
 	 * the coefficient of the term with the highest degree.
 	 * 
 	 * @param l
+	 * @param modulus
 	 * @return
 	 */
-	public static BigInteger[] constructPolynomial(int l) {
+	public static BigInteger[] constructPolynomial(int l, BigInteger modulus) {
 		BigInteger[] coefficients = new BigInteger[2];
 		BigInteger[] oldCoefficients;
 		
@@ -165,11 +144,11 @@ public class Util {
 		// (x-2)(x-3)...(x-(l+1)) so f(1) = (-1)(-2)(-3)...(-l)
 		BigInteger f = BigInteger.ONE;
 		for (i=1; i<=l; i++)
-			f = f.multiply(BigInteger.valueOf(i)).negate().mod(p);
-		f = f.modInverse(p);
+			f = f.multiply(BigInteger.valueOf(i)).negate().mod(modulus);
+		f = f.modInverse(modulus);
 		
 		for (i=0; i<coefficients.length; i++)
-			coefficients[i] = coefficients[i].multiply(f).mod(p);
+			coefficients[i] = coefficients[i].multiply(f).mod(modulus);
 		
 		return coefficients;
 	}
@@ -243,17 +222,17 @@ public class Util {
 		return vector;
 	}
 	
-	public static BigInteger[][] randomFill(BigInteger[][] matrix, int bitLenght, Random rand) {
+	public static BigInteger[][] randomFill(BigInteger[][] matrix, int bitLenght, BigInteger modulus, Random rand) {
 		for(BigInteger[] vector: matrix) {
-			vector = randomFill(vector, bitLenght, rand);
+			vector = randomFill(vector, bitLenght, modulus, rand);
 		}
 		return matrix;
 	}
 	
-	public static BigInteger[] randomFill(BigInteger[] vector, int bitLength, Random rand) {
+	public static BigInteger[] randomFill(BigInteger[] vector, int bitLength, BigInteger modulus, Random rand) {
 		for(int i = 0; i < vector.length; i++) {
 			vector[i] = new BigInteger(bitLength, rand); 
-			vector[i] = vector[i].subtract(BigInteger.valueOf(2).pow(bitLength-1)).mod(dk.alexandra.fresco.suite.spdz.utils.Util.p);
+			vector[i] = vector[i].subtract(BigInteger.valueOf(2).pow(bitLength-1)).mod(modulus);
 		}
 		return vector;
 	}
@@ -299,9 +278,9 @@ public class Util {
 		return inputGates;
 	}
 	
-	public static BigInteger getRandomNumber(Random rand) {
-		byte[] bytes = new byte[size];
+	public static BigInteger getRandomNumber(BigInteger modulus, Random rand) {
+		byte[] bytes = new byte[new SpdzField(modulus).getSize()];
 		rand.nextBytes(bytes);
-		return new BigInteger(bytes).mod(p);
+		return new BigInteger(bytes).mod(modulus);
 	}
 }
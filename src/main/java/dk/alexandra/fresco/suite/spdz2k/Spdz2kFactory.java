@@ -0,0 +1,251 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz2k;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+import dk.alexandra.fresco.framework.value.KnownSIntProtocol;
+import dk.alexandra.fresco.framework.value.OInt;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.lib.compare.ComparisonProtocol;
+import dk.alexandra.fresco.lib.compare.ComparisonProtocolFactory;
+import dk.alexandra.fresco.lib.compare.eq.EqualityProtocol;
+import dk.alexandra.fresco.lib.field.integer.AddProtocol;
+import dk.alexandra.fresco.lib.field.integer.BasicNumericFactory;
+import dk.alexandra.fresco.lib.field.integer.CloseIntProtocol;
+import dk.alexandra.fresco.lib.field.integer.ConstantCache;
+import dk.alexandra.fresco.lib.field.integer.MultProtocol;
+import dk.alexandra.fresco.lib.field.integer.OpenIntProtocol;
+import dk.alexandra.fresco.lib.field.integer.SubtractCircuit;
+import dk.alexandra.fresco.suite.spdz2k.compare.Spdz2kEqualityProtocol;
+import dk.alexandra.fresco.suite.spdz2k.compare.Spdz2kGreaterThanProtocol;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kElement;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kOInt;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kSInt;
+import dk.alexandra.fresco.suite.spdz2k.gates.Spdz2kAddProtocol;
+import dk.alexandra.fresco.suite.spdz2k.gates.Spdz2kInputProtocol;
+import dk.alexandra.fresco.suite.spdz2k.gates.Spdz2kKnownSIntProtocol;
+import dk.alexandra.fresco.suite.spdz2k.gates.Spdz2kMultProtocol;
+import dk.alexandra.fresco.suite.spdz2k.gates.Spdz2kOutputProtocol;
+import dk.alexandra.fresco.suite.spdz2k.gates.Spdz2kOutputToAllProtocol;
+import dk.alexandra.fresco.suite.spdz2k.gates.Spdz2kSubtractProtocol;
+
+/**
+ * The protocols of the {@link Spdz2kProtocolSuite}. Values are elements of
+ * Z/2^64 read as signed longs, so BigIntegers given to the factory are
+ * reduced modulo 2^64.
+ */
+public class Spdz2kFactory implements BasicNumericFactory, ComparisonProtocolFactory {
+
+	/**
+	 * The bit length of the values, leaving room for the sign bit.
+	 */
+	public static final int MAX_BIT_LENGTH = Long.SIZE - 1;
+
+	private Spdz2kProtocolSuite suite;
+	private SecureRandom rand;
+	private int pID;
+	private ConstantCache constants;
+
+	/**
+	 * @param suite
+	 *            The suite evaluating the protocols of this factory. The MAC
+	 *            key share is taken from it, so it must be initialized.
+	 * @param pID
+	 *            the id of this party.
+	 */
+	public Spdz2kFactory(Spdz2kProtocolSuite suite, int pID) {
+		this.suite = suite;
+		this.rand = new SecureRandom();
+		this.pID = pID;
+		this.constants = new ConstantCache(this, this);
+	}
+
+	public Spdz2kProtocolSuite getProtocolSuite() {
+		return suite;
+	}
+
+	@Override
+	public SInt getSInt() {
+		return new Spdz2kSInt();
+	}
+
+	/**
+	 * Careful - This creates a publicly known integer which is secret shared.
+	 */
+	@Override
+	public KnownSIntProtocol getSInt(int i, SInt si) {
+		return new Spdz2kKnownSIntProtocol(i, si, suite);
+	}
+
+	/**
+	 * Careful - This creates a publicly known integer which is secret shared.
+	 */
+	@Override
+	public KnownSIntProtocol getSInt(BigInteger value, SInt sValue) {
+		return new Spdz2kKnownSIntProtocol(value.longValue(), sValue, suite);
+	}
+
+	@Override
+	@Deprecated
+	public SInt getSInt(int i) {
+		return new Spdz2kSInt(Spdz2kElement.known(i, suite.getKeyShare(), pID));
+	}
+
+	@Override
+	@Deprecated
+	public SInt getSInt(BigInteger b) {
+		return new Spdz2kSInt(Spdz2kElement.known(b.longValue(), suite.getKeyShare(), pID));
+	}
+
+	/**
+	 * Careful - This creates a publicly known integer which is secret shared.
+	 * The square of the value still fits in a signed long.
+	 */
+	@Override
+	public SInt getSqrtOfMaxValue() {
+		return getSInt(1 << (MAX_BIT_LENGTH / 2));
+	}
+
+	@Override
+	public SInt getKnownConstantSInt(int i) {
+		return constants.getSInt(i);
+	}
+
+	@Override
+	public OInt getKnownConstantOInt(int i) {
+		return constants.getOInt(i);
+	}
+
+	@Override
+	public SInt getRandomSInt() {
+		return new Spdz2kSInt(suite.getSupplier(0).getNextRandomElement());
+	}
+
+	@Override
+	public OInt getOInt() {
+		return new Spdz2kOInt();
+	}
+
+	@Override
+	public OInt getOInt(BigInteger i) {
+		return new Spdz2kOInt(i.longValue());
+	}
+
+	@Override
+	public OInt getRandomOInt() {
+		return new Spdz2kOInt(rand.nextLong());
+	}
+
+	@Override
+	public int getMaxBitLength() {
+		return MAX_BIT_LENGTH;
+	}
+
+	/**
+	 * @return 2^64. This is a ring and not a field, so constants needing
+	 *         inverses cannot be computed modulo it.
+	 */
+	@Override
+	public BigInteger getModulus() {
+		return BigInteger.ONE.shiftLeft(Long.SIZE);
+	}
+
+	@Override
+	public AddProtocol getAddProtocol(SInt a, SInt b, SInt out) {
+		return new Spdz2kAddProtocol(a, b, out, suite);
+	}
+
+	@Override
+	public AddProtocol getAddProtocol(SInt a, OInt b, SInt out) {
+		return new Spdz2kAddProtocol(a, b, out, suite);
+	}
+
+	@Override
+	public SubtractCircuit getSubtractCircuit(SInt a, SInt b, SInt out) {
+		return new Spdz2kSubtractProtocol(a, b, out, suite);
+	}
+
+	@Override
+	public SubtractCircuit getSubtractCircuit(OInt a, SInt b, SInt out) {
+		return new Spdz2kSubtractProtocol(a, b, out, suite);
+	}
+
+	@Override
+	public MultProtocol getMultCircuit(SInt a, SInt b, SInt out) {
+		return new Spdz2kMultProtocol(a, b, out, suite);
+	}
+
+	@Override
+	public MultProtocol getMultCircuit(OInt a, SInt b, SInt out) {
+		return new Spdz2kMultProtocol(a, b, out, suite);
+	}
+
+	/**
+	 * Compares signed values, giving [x1 <= x2] as the generic comparison
+	 * does. The difference x2 - x1 must fit in a signed long, so longCompare
+	 * is ignored.
+	 */
+	@Override
+	public ComparisonProtocol getGreaterThanProtocol(SInt x1, SInt x2, SInt result,
+			boolean longCompare) {
+		return new Spdz2kGreaterThanProtocol(x1, x2, result, suite);
+	}
+
+	/**
+	 * Tests all 64 bits, so the bit length is ignored.
+	 */
+	@Override
+	public EqualityProtocol getEqualityProtocol(int bitLength, SInt x, SInt y, SInt result) {
+		return new Spdz2kEqualityProtocol(x, y, result, suite);
+	}
+
+	/****************************************
+	 * IO Provider Stuff *
+	 ****************************************/
+
+	@Override
+	public CloseIntProtocol getCloseProtocol(BigInteger open, SInt closed, int targetID) {
+		return new Spdz2kInputProtocol(open, closed, targetID, suite);
+	}
+
+	@Override
+	public CloseIntProtocol getCloseProtocol(int source, OInt open, SInt closed) {
+		return new Spdz2kInputProtocol(open, closed, source, suite);
+	}
+
+	@Override
+	public OpenIntProtocol getOpenProtocol(int target, SInt closed, OInt open) {
+		return new Spdz2kOutputProtocol(closed, open, target, suite);
+	}
+
+	@Override
+	public OpenIntProtocol getOpenProtocol(SInt closed, OInt open) {
+		return new Spdz2kOutputToAllProtocol(closed, open, suite);
+	}
+}
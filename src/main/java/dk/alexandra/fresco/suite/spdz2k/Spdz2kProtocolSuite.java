@@ -0,0 +1,266 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz2k;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.NativeProtocol;
+import dk.alexandra.fresco.framework.NativeProtocol.EvaluationStatus;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.network.SCENetworkImpl;
+import dk.alexandra.fresco.framework.sce.configuration.ProtocolSuiteConfiguration;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.util.FieldPrg;
+import dk.alexandra.fresco.suite.ProtocolSuite;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzCommitment;
+import dk.alexandra.fresco.suite.spdz.gates.SpdzCommitProtocol;
+import dk.alexandra.fresco.suite.spdz.gates.SpdzOpenCommitProtocol;
+import dk.alexandra.fresco.suite.spdz2k.configuration.Spdz2kConfiguration;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.UInt128;
+import dk.alexandra.fresco.suite.spdz2k.storage.Spdz2kDataSupplier;
+import dk.alexandra.fresco.suite.spdz2k.storage.Spdz2kFakeDataSupplier;
+import dk.alexandra.fresco.suite.spdz2k.storage.Spdz2kMacCheckAccumulator;
+
+/**
+ * A SPDZ2k style protocol suite. Values are elements of the ring Z/2^64 and
+ * are computed on as primitive longs, such that no modular reductions are
+ * needed. Shares and MACs are elements of Z/2^128 and the MAC key is an
+ * element of Z/2^64, which gives 64 bits of statistical security.
+ * 
+ * Preprocessed data is generated on the fly by a
+ * {@link Spdz2kFakeDataSupplier}, so the suite is for testing and
+ * benchmarking only.
+ */
+public class Spdz2kProtocolSuite implements ProtocolSuite {
+
+	private Network network;
+	private Random rand;
+	private ResourcePool rp;
+	private Spdz2kDataSupplier[] suppliers;
+	private Spdz2kMacCheckAccumulator[] accumulators;
+	private MessageDigest[] digs;
+	private UInt128 keyShare;
+	private int gatesEvaluated = 0;
+	private int macCheckThreshold;
+	private byte[] macCheckSeed;
+	private long epoch;
+	private Spdz2kConfiguration conf;
+
+	public Spdz2kProtocolSuite() {
+	}
+
+	public Spdz2kDataSupplier getSupplier(int threadId) {
+		return suppliers[threadId];
+	}
+
+	public Spdz2kMacCheckAccumulator getAccumulator(int threadId) {
+		return accumulators[threadId];
+	}
+
+	public MessageDigest getMessageDigest(int threadId) {
+		return digs[threadId];
+	}
+
+	/**
+	 * @return the share of the MAC key of this party.
+	 */
+	public UInt128 getKeyShare() {
+		return keyShare;
+	}
+
+	public int getMyId() {
+		return rp.getMyId();
+	}
+
+	public Spdz2kConfiguration getConf() {
+		return conf;
+	}
+
+	@Override
+	public void init(ResourcePool resourcePool, ProtocolSuiteConfiguration conf) {
+		this.conf = (Spdz2kConfiguration) conf;
+		this.network = resourcePool.getNetwork();
+		this.rand = resourcePool.getSecureRandom();
+		this.rp = resourcePool;
+		int noOfThreads = resourcePool.getVMThreadCount();
+		this.suppliers = new Spdz2kDataSupplier[noOfThreads];
+		this.accumulators = new Spdz2kMacCheckAccumulator[noOfThreads];
+		this.digs = new MessageDigest[noOfThreads];
+		try {
+			for (int i = 0; i < noOfThreads; i++) {
+				suppliers[i] = new Spdz2kFakeDataSupplier(resourcePool.getMyId(),
+						resourcePool.getNoOfParties(), i);
+				accumulators[i] = new Spdz2kMacCheckAccumulator();
+				digs[i] = MessageDigest.getInstance("SHA-256");
+			}
+		} catch (NoSuchAlgorithmException e) {
+			throw new MPCException("SHA-256 is needed by SPDZ2k", e);
+		}
+		this.keyShare = suppliers[0].getKeyShare();
+		this.macCheckThreshold = this.conf.getMacCheckThreshold();
+
+		try {
+			UInt128 s = new UInt128(rand.nextLong(), rand.nextLong());
+			UInt128 seed = commitAndOpen(s);
+			this.macCheckSeed = ByteBuffer.allocate(FieldPrg.SEED_SIZE)
+					.putLong(seed.getHigh()).putLong(seed.getLow()).array();
+		} catch (IOException e) {
+			throw new MPCException("Could not toss the seed for the MAC check.", e);
+		}
+		this.epoch = 0;
+		startEpoch();
+	}
+
+	@Override
+	public void synchronize(int gatesEvaluated) throws MPCException {
+		this.gatesEvaluated += gatesEvaluated;
+		if (this.gatesEvaluated > macCheckThreshold) {
+			macCheck();
+			this.gatesEvaluated = 0;
+		}
+	}
+
+	@Override
+	public void finishedEval() {
+		macCheck();
+		this.gatesEvaluated = 0;
+	}
+
+	/**
+	 * Checks the MACs of all values opened since the last check. Each party
+	 * commits to z_i = gamma_i - alpha_i * a, where a and gamma_i are the
+	 * random combinations of the opened values and of the MAC shares, and the
+	 * check succeeds if the z_i sum to 0 modulo 2^128.
+	 */
+	private void macCheck() {
+		UInt128 a = UInt128.ZERO;
+		UInt128 gamma = UInt128.ZERO;
+		long t = 0;
+		for (Spdz2kMacCheckAccumulator accumulator : accumulators) {
+			accumulator.flush();
+			a = a.add(accumulator.getOpenedSum());
+			gamma = gamma.add(accumulator.getMacSum());
+			t += accumulator.getCount();
+		}
+		this.epoch++;
+		startEpoch();
+		UInt128 z = gamma.subtract(keyShare.multiply(a));
+		UInt128 zSum;
+		try {
+			zSum = commitAndOpen(z);
+		} catch (IOException e) {
+			throw new MPCException("Could not complete MACCheck.", e);
+		}
+		if (!zSum.isZero()) {
+			throw new MPCException("The sum of z's was not 0. Someone was corrupting something amongst "
+					+ t + " macs. Sum was " + zSum + " Aborting!");
+		}
+	}
+
+	/**
+	 * Resets the MAC check accumulators of all threads with seeds derived
+	 * from the jointly tossed seed, the epoch number and the thread.
+	 */
+	private void startEpoch() {
+		MessageDigest H = this.digs[0];
+		for (int i = 0; i < this.accumulators.length; i++) {
+			H.update(macCheckSeed);
+			H.update(ByteBuffer.allocate(12).putLong(epoch).putInt(i).array());
+			this.accumulators[i].reset(Arrays.copyOf(H.digest(), FieldPrg.SEED_SIZE));
+		}
+	}
+
+	/**
+	 * Commits to the given value, opens all the commitments and returns the
+	 * sum of the values of all parties.
+	 */
+	private UInt128 commitAndOpen(UInt128 value) throws IOException {
+		BigInteger modulus = UInt128.getModulus();
+		MessageDigest H = this.digs[0];
+		SpdzCommitment commitment = new SpdzCommitment(H, value.toBigInteger(), rand, modulus);
+		Map<Integer, BigInteger> comms = new HashMap<Integer, BigInteger>();
+		SpdzCommitProtocol comm = new SpdzCommitProtocol(commitment, comms, H);
+		Map<Integer, BigInteger> ss = new HashMap<Integer, BigInteger>();
+		SpdzOpenCommitProtocol open = new SpdzOpenCommitProtocol(commitment, comms, ss, H, modulus);
+
+		SCENetworkImpl protocolNetwork = new SCENetworkImpl(this.rp.getNoOfParties(), 0);
+		evaluate(comm, protocolNetwork);
+		evaluate(open, protocolNetwork);
+
+		BigInteger sum = BigInteger.ZERO;
+		for (BigInteger v : ss.values()) {
+			sum = sum.add(v);
+		}
+		return UInt128.valueOf(sum);
+	}
+
+	private void evaluate(NativeProtocol protocol, SCENetworkImpl protocolNetwork)
+			throws IOException {
+		EvaluationStatus status;
+		int i = 0;
+		do {
+			status = protocol.evaluate(i, this.rp, protocolNetwork);
+			i++;
+			// send phase
+			Map<Integer, Queue<Serializable>> output = protocolNetwork.getOutputFromThisRound();
+			for (int pId : output.keySet()) {
+				// send array since queue is not serializable
+				network.send("0", pId, output.get(pId).toArray(new Serializable[0]));
+			}
+
+			// receive phase
+			Map<Integer, Queue<Serializable>> inputForThisRound = new HashMap<Integer, Queue<Serializable>>();
+			for (int pId : protocolNetwork.getExpectedInputForNextRound()) {
+				Serializable[] messages = network.receive("0", pId);
+				Queue<Serializable> q = new LinkedBlockingQueue<Serializable>();
+				// convert back from array to queue.
+				for (Serializable message : messages) {
+					q.offer(message);
+				}
+				inputForThisRound.put(pId, q);
+			}
+			protocolNetwork.setInput(inputForThisRound);
+			protocolNetwork.nextRound();
+		} while (status != EvaluationStatus.IS_DONE);
+	}
+
+	@Override
+	public void destroy() {
+	}
+}
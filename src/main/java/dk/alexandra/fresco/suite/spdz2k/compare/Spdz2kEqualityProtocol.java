@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz2k.compare;
+
+import dk.alexandra.fresco.framework.ProtocolProducer;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.framework.value.Value;
+import dk.alexandra.fresco.lib.compare.eq.EqualityProtocol;
+import dk.alexandra.fresco.lib.helper.AbstractRoundBasedProtocol;
+import dk.alexandra.fresco.lib.helper.ParallelProtocolProducer;
+import dk.alexandra.fresco.suite.spdz2k.Spdz2kProtocolSuite;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kElement;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kSInt;
+import dk.alexandra.fresco.suite.spdz2k.gates.Spdz2kMaskedOpenProtocol;
+import dk.alexandra.fresco.suite.spdz2k.gates.Spdz2kMultProtocol;
+
+/**
+ * Computes [x = y]. The parties open c = x - y + r mod 2^64 for shared
+ * random bits r_i, and x = y iff c_i = r_i for all 64 bits. The product of
+ * the bits [c_i = r_i] is computed by a tree in log rounds.
+ */
+public class Spdz2kEqualityProtocol extends AbstractRoundBasedProtocol implements
+		EqualityProtocol {
+
+	private final SInt x, y;
+	private final Spdz2kSInt result;
+	private final Spdz2kProtocolSuite suite;
+	private Spdz2kMaskedOpenProtocol open;
+	private Spdz2kElement[] factors;
+	// The products of the level being evaluated.
+	private Spdz2kSInt[] products;
+	private boolean done = false;
+
+	public Spdz2kEqualityProtocol(SInt x, SInt y, SInt result, Spdz2kProtocolSuite suite) {
+		this.x = x;
+		this.y = y;
+		this.result = (Spdz2kSInt) result;
+		this.suite = suite;
+		setInputValues(new Value[] { x, y });
+		setOutputValues(new Value[] { result });
+	}
+
+	@Override
+	public ProtocolProducer nextGateProducer() {
+		if (open == null) {
+			open = new Spdz2kMaskedOpenProtocol(x, y, suite);
+			return open;
+		}
+		if (factors == null) {
+			initLeaves();
+		} else if (products != null) {
+			finishLevel();
+		}
+		if (factors.length > 1) {
+			int pairs = factors.length / 2;
+			products = new Spdz2kSInt[pairs];
+			ParallelProtocolProducer par = new ParallelProtocolProducer();
+			for (int j = 0; j < pairs; j++) {
+				products[j] = new Spdz2kSInt();
+				par.append(new Spdz2kMultProtocol(new Spdz2kSInt(factors[2 * j]),
+						new Spdz2kSInt(factors[2 * j + 1]), products[j], suite));
+			}
+			return par;
+		}
+		if (!done) {
+			result.value = factors[0];
+			done = true;
+		}
+		return null;
+	}
+
+	private void initLeaves() {
+		long c = open.getOpened();
+		Spdz2kElement[] bits = open.getBits();
+		Spdz2kElement one = Spdz2kElement.known(1, suite.getKeyShare(), suite.getMyId());
+		factors = new Spdz2kElement[bits.length];
+		for (int i = 0; i < bits.length; i++) {
+			boolean ci = ((c >>> i) & 1) == 1;
+			factors[i] = ci ? bits[i] : one.subtract(bits[i]);
+		}
+	}
+
+	private void finishLevel() {
+		int n = factors.length;
+		Spdz2kElement[] next = new Spdz2kElement[(n + 1) / 2];
+		for (int j = 0; j < n / 2; j++) {
+			next[j] = products[j].value;
+		}
+		if (n % 2 == 1) {
+			next[next.length - 1] = factors[n - 1];
+		}
+		factors = next;
+		products = null;
+	}
+}
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz2k.compare;
+
+import dk.alexandra.fresco.framework.ProtocolProducer;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.framework.value.Value;
+import dk.alexandra.fresco.lib.compare.ComparisonProtocol;
+import dk.alexandra.fresco.lib.helper.AbstractRoundBasedProtocol;
+import dk.alexandra.fresco.lib.helper.ParallelProtocolProducer;
+import dk.alexandra.fresco.suite.spdz2k.Spdz2kProtocolSuite;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kElement;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kSInt;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.UInt128;
+import dk.alexandra.fresco.suite.spdz2k.gates.Spdz2kMaskedOpenProtocol;
+import dk.alexandra.fresco.suite.spdz2k.gates.Spdz2kMultProtocol;
+
+/**
+ * Computes [x1 <= x2] for signed 64 bit values whose difference fits in 64
+ * bits, as {@link dk.alexandra.fresco.lib.compare.gt.GreaterThanReducerCircuitImpl}
+ * does. This is the case iff the most significant bit of d = x2 - x1 is 0.
+ * 
+ * The parties open c = d + r mod 2^64 for shared random bits r_i. Then d =
+ * c - r, and the most significant bit of d is c_63 xor r_63 xor b, where b
+ * is the borrow [c' < r'] of the lower 63 bits. The borrow is computed from
+ * the bits of c and r by a tree of carry combinations, each halving the
+ * number of (generate, propagate) pairs, in log rounds.
+ */
+public class Spdz2kGreaterThanProtocol extends AbstractRoundBasedProtocol implements
+		ComparisonProtocol {
+
+	private final SInt x1, x2;
+	private final Spdz2kSInt result;
+	private final Spdz2kProtocolSuite suite;
+	private Spdz2kMaskedOpenProtocol open;
+	// The generate and propagate bits of the current level, lowest first.
+	private Spdz2kElement[] g, p;
+	// The products of the level being evaluated.
+	private Spdz2kSInt[] pg, pp;
+	private Spdz2kSInt r63b;
+	private boolean done = false;
+
+	public Spdz2kGreaterThanProtocol(SInt x1, SInt x2, SInt result, Spdz2kProtocolSuite suite) {
+		this.x1 = x1;
+		this.x2 = x2;
+		this.result = (Spdz2kSInt) result;
+		this.suite = suite;
+		setInputValues(new Value[] { x1, x2 });
+		setOutputValues(new Value[] { result });
+	}
+
+	@Override
+	public ProtocolProducer nextGateProducer() {
+		if (open == null) {
+			open = new Spdz2kMaskedOpenProtocol(x2, x1, suite);
+			return open;
+		}
+		if (g == null) {
+			initLeaves();
+		} else if (pg != null) {
+			finishLevel();
+		}
+		if (g.length > 1) {
+			return startLevel();
+		}
+		Spdz2kElement r63 = open.getBits()[Long.SIZE - 1];
+		if (r63b == null) {
+			r63b = new Spdz2kSInt();
+			return new Spdz2kMultProtocol(new Spdz2kSInt(r63), new Spdz2kSInt(g[0]), r63b, suite);
+		}
+		if (!done) {
+			// t = r63 xor b, and x1 <= x2 iff c63 xor t is 0.
+			Spdz2kElement t = r63.add(g[0]).subtract(r63b.value.multiply(2));
+			result.value = open.getOpened() < 0 ? t : one().subtract(t);
+			done = true;
+		}
+		return null;
+	}
+
+	private Spdz2kElement one() {
+		return Spdz2kElement.known(1, suite.getKeyShare(), suite.getMyId());
+	}
+
+	/**
+	 * Bit i generates a borrow if c_i = 0 and r_i = 1, and propagates the
+	 * borrow from below if c_i = r_i.
+	 */
+	private void initLeaves() {
+		long c = open.getOpened();
+		Spdz2kElement[] bits = open.getBits();
+		Spdz2kElement zero = new Spdz2kElement(UInt128.ZERO, UInt128.ZERO);
+		Spdz2kElement one = one();
+		int n = Long.SIZE - 1;
+		g = new Spdz2kElement[n];
+		p = new Spdz2kElement[n];
+		for (int i = 0; i < n; i++) {
+			boolean ci = ((c >>> i) & 1) == 1;
+			g[i] = ci ? zero : bits[i];
+			p[i] = ci ? bits[i] : one.subtract(bits[i]);
+		}
+	}
+
+	/**
+	 * Combines pairs (lo, hi) into (g_hi + p_hi * g_lo, p_hi * p_lo). The
+	 * propagate bit is not needed when the level gives a single pair.
+	 */
+	private ProtocolProducer startLevel() {
+		int pairs = g.length / 2;
+		boolean last = g.length == 2;
+		pg = new Spdz2kSInt[pairs];
+		pp = new Spdz2kSInt[pairs];
+		ParallelProtocolProducer par = new ParallelProtocolProducer();
+		for (int j = 0; j < pairs; j++) {
+			Spdz2kSInt pHi = new Spdz2kSInt(p[2 * j + 1]);
+			pg[j] = new Spdz2kSInt();
+			par.append(new Spdz2kMultProtocol(pHi, new Spdz2kSInt(g[2 * j]), pg[j], suite));
+			if (!last) {
+				pp[j] = new Spdz2kSInt();
+				par.append(new Spdz2kMultProtocol(pHi, new Spdz2kSInt(p[2 * j]), pp[j], suite));
+			}
+		}
+		return par;
+	}
+
+	private void finishLevel() {
+		int n = g.length;
+		int m = (n + 1) / 2;
+		Spdz2kElement[] nextG = new Spdz2kElement[m];
+		Spdz2kElement[] nextP = new Spdz2kElement[m];
+		for (int j = 0; j < n / 2; j++) {
+			nextG[j] = g[2 * j + 1].add(pg[j].value);
+			nextP[j] = pp[j] == null ? null : pp[j].value;
+		}
+		if (n % 2 == 1) {
+			nextG[m - 1] = g[n - 1];
+			nextP[m - 1] = p[n - 1];
+		}
+		g = nextG;
+		p = nextP;
+		pg = null;
+		pp = null;
+	}
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz2k.configuration;
+
+import java.util.Properties;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+import dk.alexandra.fresco.framework.sce.configuration.ProtocolSuiteConfiguration;
+import dk.alexandra.fresco.framework.sce.configuration.SCEConfiguration;
+
+public interface Spdz2kConfiguration extends ProtocolSuiteConfiguration {
+
+	/**
+	 * The number of gates evaluated between two MAC checks. Outputs are
+	 * always preceded by a check of all values opened so far.
+	 * 
+	 * @return
+	 */
+	default int getMacCheckThreshold() {
+		return 100000;
+	}
+
+	static Spdz2kConfiguration fromCmdArgs(SCEConfiguration sceConf,
+			String[] remainingArgs) throws ParseException {
+		Options options = new Options();
+
+		options.addOption(Option
+				.builder("D")
+				.desc("The number of gates evaluated between two MAC checks. Defaults to 100000.")
+				.longOpt("spdz2k.macCheckThreshold").required(false).hasArgs().build());
+
+		CommandLineParser parser = new DefaultParser();
+		CommandLine cmd = parser.parse(options, remainingArgs);
+
+		Properties p = cmd.getOptionProperties("D");
+		final int macCheckThreshold = Integer.parseInt(p.getProperty("spdz2k.macCheckThreshold", "100000"));
+		if (macCheckThreshold < 1) {
+			throw new ParseException("spdz2k.macCheckThreshold must be > 0");
+		}
+
+		return new Spdz2kConfiguration() {
+
+			@Override
+			public int getMacCheckThreshold() {
+				return macCheckThreshold;
+			}
+		};
+	}
+
+}
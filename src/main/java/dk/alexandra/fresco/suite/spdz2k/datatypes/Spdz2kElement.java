@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz2k.datatypes;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+
+/**
+ * The share of a party of a value x of Z/2^64 together with its share of the
+ * MAC alpha*x. Both are elements of Z/2^128 such that errors in the upper 64
+ * bits are caught by the MAC check.
+ * 
+ * Instances are immutable.
+ */
+public class Spdz2kElement implements Serializable {
+
+	private static final long serialVersionUID = 4308271693826415264L;
+
+	private final UInt128 share;
+	private final UInt128 mac;
+
+	public Spdz2kElement(UInt128 share, UInt128 mac) {
+		this.share = share;
+		this.mac = mac;
+	}
+
+	public Spdz2kElement(byte[] bytes) {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		this.share = new UInt128(buffer.getLong(), buffer.getLong());
+		this.mac = new UInt128(buffer.getLong(), buffer.getLong());
+	}
+
+	/**
+	 * Creates the share of a public value. Only party 1 holds the value, all
+	 * parties hold their share of the MAC.
+	 * 
+	 * @param value
+	 *            the public value.
+	 * @param keyShare
+	 *            the share of the MAC key of this party.
+	 * @param myId
+	 *            the id of this party.
+	 */
+	public static Spdz2kElement known(long value, UInt128 keyShare, int myId) {
+		return known(UInt128.valueOf(value), keyShare, myId);
+	}
+
+	/**
+	 * As {@link #known(long, UInt128, int)} for a public element of Z/2^128,
+	 * e.g., a masked input.
+	 */
+	public static Spdz2kElement known(UInt128 value, UInt128 keyShare, int myId) {
+		return new Spdz2kElement(myId == 1 ? value : UInt128.ZERO,
+				keyShare.multiply(value));
+	}
+
+	public UInt128 getShare() {
+		return share;
+	}
+
+	public UInt128 getMac() {
+		return mac;
+	}
+
+	public Spdz2kElement add(Spdz2kElement other) {
+		return new Spdz2kElement(share.add(other.share), mac.add(other.mac));
+	}
+
+	public Spdz2kElement subtract(Spdz2kElement other) {
+		return new Spdz2kElement(share.subtract(other.share),
+				mac.subtract(other.mac));
+	}
+
+	public Spdz2kElement multiply(long constant) {
+		return new Spdz2kElement(share.multiply(constant), mac.multiply(constant));
+	}
+
+	public Spdz2kElement multiply(UInt128 constant) {
+		return new Spdz2kElement(share.multiply(constant), mac.multiply(constant));
+	}
+
+	/**
+	 * @return this element plus the public value, see
+	 *         {@link #known(long, UInt128, int)}.
+	 */
+	public Spdz2kElement add(long value, UInt128 keyShare, int myId) {
+		return add(known(value, keyShare, myId));
+	}
+
+	public byte[] toByteArray() {
+		return ByteBuffer.allocate(32).putLong(share.getHigh())
+				.putLong(share.getLow()).putLong(mac.getHigh())
+				.putLong(mac.getLow()).array();
+	}
+
+	@Override
+	public int hashCode() {
+		return share.hashCode() * 31 + mac.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof Spdz2kElement)) {
+			return false;
+		}
+		Spdz2kElement other = (Spdz2kElement) obj;
+		return share.equals(other.share) && mac.equals(other.mac);
+	}
+
+	@Override
+	public String toString() {
+		return "Spdz2kElement(" + share + ", " + mac + ")";
+	}
+}
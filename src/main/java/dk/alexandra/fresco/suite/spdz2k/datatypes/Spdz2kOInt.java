@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz2k.datatypes;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+import dk.alexandra.fresco.framework.value.OInt;
+
+/**
+ * A public value of Z/2^64. The value is kept as a long and read as a signed
+ * two's complement number, such that e.g. -1 and 2^64-1 are the same value.
+ */
+public class Spdz2kOInt implements OInt {
+
+	private static final long serialVersionUID = 1880427372155380162L;
+
+	private long value;
+	private boolean ready;
+
+	public Spdz2kOInt() {
+		this.ready = false;
+	}
+
+	public Spdz2kOInt(long value) {
+		setLong(value);
+	}
+
+	public long getLong() {
+		return value;
+	}
+
+	public void setLong(long value) {
+		this.value = value;
+		this.ready = true;
+	}
+
+	@Override
+	public BigInteger getValue() {
+		return ready ? BigInteger.valueOf(value) : null;
+	}
+
+	@Override
+	public void setValue(BigInteger val) {
+		setLong(val.longValue());
+	}
+
+	@Override
+	public boolean isReady() {
+		return ready;
+	}
+
+	@Override
+	public byte[] getSerializableContent() {
+		return ByteBuffer.allocate(8).putLong(value).array();
+	}
+
+	@Override
+	public void setSerializableContent(byte[] val) {
+		setLong(ByteBuffer.wrap(val).getLong());
+	}
+
+	@Override
+	public String toString() {
+		return "Spdz2kOInt(" + (ready ? value : null) + ")";
+	}
+}
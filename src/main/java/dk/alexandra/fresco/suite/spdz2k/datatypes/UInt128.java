@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz2k.datatypes;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+
+/**
+ * An element of the ring Z/2^128 held in two longs. The lower 64 bits are the
+ * value of the computation in Z/2^64, the upper 64 bits give room for the
+ * statistical security of the MACs.
+ * 
+ * Instances are immutable.
+ */
+public final class UInt128 implements Serializable {
+
+	private static final long serialVersionUID = -2719683829145376305L;
+
+	private static final BigInteger MODULUS = BigInteger.ONE.shiftLeft(128);
+
+	public static final UInt128 ZERO = new UInt128(0, 0);
+
+	private final long high;
+	private final long low;
+
+	public UInt128(long high, long low) {
+		this.high = high;
+		this.low = low;
+	}
+
+	/**
+	 * @param value
+	 *            a value of Z/2^64.
+	 * @return the value lifted to Z/2^128 with zero upper bits.
+	 */
+	public static UInt128 valueOf(long value) {
+		return new UInt128(0, value);
+	}
+
+	/**
+	 * @param value
+	 *            any integer.
+	 * @return the integer reduced modulo 2^128.
+	 */
+	public static UInt128 valueOf(BigInteger value) {
+		BigInteger reduced = value.mod(MODULUS);
+		return new UInt128(reduced.shiftRight(64).longValue(), reduced.longValue());
+	}
+
+	/**
+	 * @return the modulus 2^128 of the ring.
+	 */
+	public static BigInteger getModulus() {
+		return MODULUS;
+	}
+
+	public long getHigh() {
+		return high;
+	}
+
+	/**
+	 * @return the value reduced modulo 2^64.
+	 */
+	public long getLow() {
+		return low;
+	}
+
+	public boolean isZero() {
+		return high == 0 && low == 0;
+	}
+
+	public UInt128 add(UInt128 other) {
+		long sumLow = low + other.low;
+		long carry = Long.compareUnsigned(sumLow, low) < 0 ? 1 : 0;
+		return new UInt128(high + other.high + carry, sumLow);
+	}
+
+	public UInt128 subtract(UInt128 other) {
+		long borrow = Long.compareUnsigned(low, other.low) < 0 ? 1 : 0;
+		return new UInt128(high - other.high - borrow, low - other.low);
+	}
+
+	public UInt128 negate() {
+		return ZERO.subtract(this);
+	}
+
+	public UInt128 multiply(UInt128 other) {
+		long productHigh = multiplyHighUnsigned(low, other.low)
+				+ high * other.low + low * other.high;
+		return new UInt128(productHigh, low * other.low);
+	}
+
+	/**
+	 * @param other
+	 *            a value of Z/2^64, lifted with zero upper bits.
+	 */
+	public UInt128 multiply(long other) {
+		long productHigh = multiplyHighUnsigned(low, other) + high * other;
+		return new UInt128(productHigh, low * other);
+	}
+
+	/**
+	 * @return this value times 2^64.
+	 */
+	public UInt128 shiftLeft64() {
+		return new UInt128(low, 0);
+	}
+
+	/**
+	 * @return the value as a non-negative BigInteger below 2^128.
+	 */
+	public BigInteger toBigInteger() {
+		BigInteger res = new BigInteger(Long.toUnsignedString(high)).shiftLeft(64);
+		return res.or(new BigInteger(Long.toUnsignedString(low)));
+	}
+
+	/**
+	 * Computes the upper 64 bits of the 128 bit product of two unsigned longs.
+	 */
+	static long multiplyHighUnsigned(long x, long y) {
+		long x0 = x & 0xFFFFFFFFL;
+		long x1 = x >>> 32;
+		long y0 = y & 0xFFFFFFFFL;
+		long y1 = y >>> 32;
+		long w0 = x0 * y0;
+		long t = x1 * y0 + (w0 >>> 32);
+		long w1 = (t & 0xFFFFFFFFL) + x0 * y1;
+		return x1 * y1 + (t >>> 32) + (w1 >>> 32);
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(high) * 31 + Long.hashCode(low);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof UInt128)) {
+			return false;
+		}
+		UInt128 other = (UInt128) obj;
+		return high == other.high && low == other.low;
+	}
+
+	@Override
+	public String toString() {
+		return toBigInteger().toString();
+	}
+}
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz2k.gates;
+
+import java.math.BigInteger;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.network.SCENetwork;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.value.OInt;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.framework.value.Value;
+import dk.alexandra.fresco.lib.field.integer.CloseIntProtocol;
+import dk.alexandra.fresco.suite.spdz2k.Spdz2kProtocolSuite;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kElement;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kInputMask;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kSInt;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.UInt128;
+
+/**
+ * Inputs a value of Z/2^64. The inputter broadcasts the value minus an input
+ * mask of Z/2^128, which hides all 128 bits, and the parties check that they
+ * got the same masked value.
+ */
+public class Spdz2kInputProtocol extends Spdz2kNativeProtocol implements CloseIntProtocol {
+
+	private Spdz2kInputMask inputMask;
+	private BigInteger input;
+	private UInt128 valueMasked;
+	private Spdz2kSInt out;
+	private int inputter;
+	private byte[] digest;
+	private Spdz2kProtocolSuite suite;
+
+	public Spdz2kInputProtocol(OInt input, SInt out, int inputter, Spdz2kProtocolSuite suite) {
+		this((input == null) ? null : input.getValue(), out, inputter, suite);
+	}
+
+	public Spdz2kInputProtocol(BigInteger input, SInt out, int inputter, Spdz2kProtocolSuite suite) {
+		this.input = input;
+		this.out = (Spdz2kSInt) out;
+		this.inputter = inputter;
+		this.suite = suite;
+	}
+
+	public int getInputter() {
+		return inputter;
+	}
+
+	@Override
+	public EvaluationStatus evaluate(int round, ResourcePool resourcePool,
+			SCENetwork network) {
+		int myId = resourcePool.getMyId();
+		switch (round) {
+		case 0:
+			this.inputMask = suite.getSupplier(network.getThreadId()).getNextInputMask(inputter);
+			if (myId == this.inputter) {
+				UInt128 value = UInt128.valueOf(input.longValue());
+				network.sendToAll(value.subtract(inputMask.getRealValue()));
+			}
+			network.expectInputFromPlayer(inputter);
+			return EvaluationStatus.HAS_MORE_ROUNDS;
+		case 1:
+			this.valueMasked = network.receive(inputter);
+			this.digest = sendBroadcastValidation(
+					suite.getMessageDigest(network.getThreadId()), network, valueMasked);
+			network.expectInputFromAll();
+			return EvaluationStatus.HAS_MORE_ROUNDS;
+		case 2:
+			if (!receiveBroadcastValidation(network, digest)) {
+				throw new MPCException("Broadcast digests did not match");
+			}
+			out.value = inputMask.getMask().add(
+					Spdz2kElement.known(valueMasked, suite.getKeyShare(), myId));
+			return EvaluationStatus.IS_DONE;
+		}
+		throw new MPCException("Cannot evaluate rounds larger than 2");
+	}
+
+	@Override
+	public String toString() {
+		return "Spdz2kInputGate(" + input + ", " + out + ")";
+	}
+
+	@Override
+	public Value[] getInputValues() {
+		return null;
+	}
+
+	@Override
+	public Value[] getOutputValues() {
+		return new Value[] { out };
+	}
+}
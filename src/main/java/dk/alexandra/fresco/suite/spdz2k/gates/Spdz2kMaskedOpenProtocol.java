@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz2k.gates;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.network.SCENetwork;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.framework.value.Value;
+import dk.alexandra.fresco.suite.spdz2k.Spdz2kProtocolSuite;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kElement;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kSInt;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.UInt128;
+import dk.alexandra.fresco.suite.spdz2k.storage.Spdz2kDataSupplier;
+
+/**
+ * Opens c = x - y + r mod 2^64, where r = sum 2^i r_i for 64 random shared
+ * bits r_i. The upper 64 bits are hidden by 2^64 times a random element as
+ * in {@link Spdz2kOutputToAllProtocol}. After evaluation the bits of c and
+ * the shared bits of r can be compared to learn secret facts about x - y.
+ */
+public class Spdz2kMaskedOpenProtocol extends Spdz2kNativeProtocol {
+
+	private Spdz2kSInt left, right;
+	private Spdz2kElement[] bits;
+	private Spdz2kElement masked;
+	private long opened;
+	private Spdz2kProtocolSuite suite;
+
+	public Spdz2kMaskedOpenProtocol(SInt left, SInt right, Spdz2kProtocolSuite suite) {
+		this.left = (Spdz2kSInt) left;
+		this.right = (Spdz2kSInt) right;
+		this.suite = suite;
+	}
+
+	/**
+	 * @return the opened value c.
+	 */
+	public long getOpened() {
+		return opened;
+	}
+
+	/**
+	 * @return the shared bits of the mask r, least significant first.
+	 */
+	public Spdz2kElement[] getBits() {
+		return bits;
+	}
+
+	@Override
+	public EvaluationStatus evaluate(int round, ResourcePool resourcePool,
+			SCENetwork network) {
+		int threadId = network.getThreadId();
+		switch (round) {
+		case 0:
+			Spdz2kDataSupplier supplier = suite.getSupplier(threadId);
+			this.bits = new Spdz2kElement[Long.SIZE];
+			Spdz2kElement mask = supplier.getNextRandomElement()
+					.multiply(Spdz2kOutputToAllProtocol.TWO_TO_64);
+			for (int i = 0; i < bits.length; i++) {
+				bits[i] = supplier.getNextBit();
+				mask = mask.add(bits[i].multiply(1L << i));
+			}
+			this.masked = left.value.subtract(right.value).add(mask);
+			network.sendToAll(masked.getShare());
+			network.expectInputFromAll();
+			return EvaluationStatus.HAS_MORE_ROUNDS;
+		case 1:
+			UInt128 sum = receiveSum(network);
+			suite.getAccumulator(threadId).add(sum, masked);
+			this.opened = sum.getLow();
+			this.masked = null;
+			return EvaluationStatus.IS_DONE;
+		default:
+			throw new MPCException("No more rounds to evaluate.");
+		}
+	}
+
+	@Override
+	public Value[] getInputValues() {
+		return new Value[] { left, right };
+	}
+
+	@Override
+	public Value[] getOutputValues() {
+		return null;
+	}
+}
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz2k.gates;
+
+import java.util.List;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.network.SCENetwork;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.value.OInt;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.framework.value.Value;
+import dk.alexandra.fresco.lib.field.integer.MultProtocol;
+import dk.alexandra.fresco.suite.spdz2k.Spdz2kProtocolSuite;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kElement;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kOInt;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kSInt;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kTriple;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.UInt128;
+
+/**
+ * Multiplies using a Beaver triple. The differences e = x - a and d = y - b
+ * are opened in full, as a and b are uniformly random in Z/2^128.
+ */
+public class Spdz2kMultProtocol extends Spdz2kNativeProtocol implements MultProtocol {
+
+	private Spdz2kSInt in1, in2, out;
+	private Spdz2kOInt oIn1;
+	private Spdz2kTriple triple;
+	private Spdz2kElement epsilon, delta;
+	private Spdz2kProtocolSuite suite;
+
+	public Spdz2kMultProtocol(SInt in1, SInt in2, SInt out, Spdz2kProtocolSuite suite) {
+		this.in1 = (Spdz2kSInt) in1;
+		this.in2 = (Spdz2kSInt) in2;
+		this.out = (Spdz2kSInt) out;
+		this.suite = suite;
+	}
+
+	public Spdz2kMultProtocol(OInt oIn1, SInt in2, SInt out, Spdz2kProtocolSuite suite) {
+		this.oIn1 = (Spdz2kOInt) oIn1;
+		this.in2 = (Spdz2kSInt) in2;
+		this.out = (Spdz2kSInt) out;
+		this.suite = suite;
+	}
+
+	@Override
+	public EvaluationStatus evaluate(int round, ResourcePool resourcePool,
+			SCENetwork network) {
+		int threadId = network.getThreadId();
+		switch (round) {
+		case 0:
+			if (oIn1 != null) {
+				out.value = in2.value.multiply(oIn1.getLong());
+				return EvaluationStatus.IS_DONE;
+			}
+			this.triple = suite.getSupplier(threadId).getNextTriple();
+			this.epsilon = in1.value.subtract(triple.getA());
+			this.delta = in2.value.subtract(triple.getB());
+			network.sendToAll(new UInt128[] { epsilon.getShare(), delta.getShare() });
+			network.expectInputFromAll();
+			return EvaluationStatus.HAS_MORE_ROUNDS;
+		case 1:
+			List<UInt128[]> shares = network.receiveFromAll();
+			UInt128 e = UInt128.ZERO;
+			UInt128 d = UInt128.ZERO;
+			for (UInt128[] share : shares) {
+				e = e.add(share[0]);
+				d = d.add(share[1]);
+			}
+			out.value = triple.getC().add(triple.getB().multiply(e))
+					.add(triple.getA().multiply(d))
+					.add(Spdz2kElement.known(e.multiply(d), suite.getKeyShare(),
+							resourcePool.getMyId()));
+			suite.getAccumulator(threadId).add(e, epsilon);
+			suite.getAccumulator(threadId).add(d, delta);
+			// help the garbage collector.
+			in1 = null;
+			in2 = null;
+			triple = null;
+			epsilon = null;
+			delta = null;
+			return EvaluationStatus.IS_DONE;
+		}
+		throw new MPCException("Cannot evaluate rounds larger than 1");
+	}
+
+	@Override
+	public Value[] getInputValues() {
+		return new Value[] { in1, in2 };
+	}
+
+	@Override
+	public Value[] getOutputValues() {
+		return new Value[] { out };
+	}
+}
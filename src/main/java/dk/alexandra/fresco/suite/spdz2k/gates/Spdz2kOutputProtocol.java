@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz2k.gates;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.network.SCENetwork;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.value.OInt;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.framework.value.Value;
+import dk.alexandra.fresco.lib.field.integer.OpenIntProtocol;
+import dk.alexandra.fresco.suite.spdz2k.Spdz2kProtocolSuite;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kElement;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kInputMask;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kOInt;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kSInt;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.UInt128;
+
+/**
+ * Opens a value to a single party. The value minus an input mask toward the
+ * target is opened to all, and the target adds the mask.
+ */
+public class Spdz2kOutputProtocol extends Spdz2kNativeProtocol implements OpenIntProtocol {
+
+	private Spdz2kSInt in;
+	private Spdz2kOInt out;
+	private int targetPlayer;
+	private Spdz2kInputMask mask;
+	private Spdz2kElement inMinusMask;
+	private Spdz2kProtocolSuite suite;
+
+	public Spdz2kOutputProtocol(SInt in, OInt out, int targetPlayer, Spdz2kProtocolSuite suite) {
+		this.in = (Spdz2kSInt) in;
+		this.out = (Spdz2kOInt) out;
+		this.targetPlayer = targetPlayer;
+		this.suite = suite;
+	}
+
+	public int getTarget() {
+		return targetPlayer;
+	}
+
+	@Override
+	public EvaluationStatus evaluate(int round, ResourcePool resourcePool,
+			SCENetwork network) {
+		int threadId = network.getThreadId();
+		switch (round) {
+		case 0:
+			this.mask = suite.getSupplier(threadId).getNextInputMask(targetPlayer);
+			this.inMinusMask = in.value.subtract(mask.getMask());
+			network.sendToAll(inMinusMask.getShare());
+			network.expectInputFromAll();
+			return EvaluationStatus.HAS_MORE_ROUNDS;
+		case 1:
+			UInt128 opened = receiveSum(network);
+			suite.getAccumulator(threadId).add(opened, inMinusMask);
+			if (targetPlayer == resourcePool.getMyId()) {
+				out.setLong(opened.add(mask.getRealValue()).getLow());
+			}
+			this.inMinusMask = null;
+			return EvaluationStatus.IS_DONE;
+		default:
+			throw new MPCException("No more rounds to evaluate.");
+		}
+	}
+
+	@Override
+	public Value[] getInputValues() {
+		return new Value[] { in };
+	}
+
+	@Override
+	public Value[] getOutputValues() {
+		return new Value[] { out };
+	}
+}
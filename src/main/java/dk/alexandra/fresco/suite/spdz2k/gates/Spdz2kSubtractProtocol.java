@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz2k.gates;
+
+import dk.alexandra.fresco.framework.network.SCENetwork;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.value.OInt;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.framework.value.Value;
+import dk.alexandra.fresco.lib.field.integer.SubtractCircuit;
+import dk.alexandra.fresco.suite.spdz2k.Spdz2kProtocolSuite;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kElement;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kOInt;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kSInt;
+
+public class Spdz2kSubtractProtocol extends Spdz2kNativeProtocol implements SubtractCircuit {
+
+	private Spdz2kSInt left, right, out;
+	private Spdz2kOInt openLeft;
+	private Spdz2kProtocolSuite suite;
+
+	public Spdz2kSubtractProtocol(SInt left, SInt right, SInt out, Spdz2kProtocolSuite suite) {
+		this.left = (Spdz2kSInt) left;
+		this.right = (Spdz2kSInt) right;
+		this.out = (Spdz2kSInt) out;
+		this.suite = suite;
+	}
+
+	public Spdz2kSubtractProtocol(OInt left, SInt right, SInt out, Spdz2kProtocolSuite suite) {
+		this.openLeft = (Spdz2kOInt) left;
+		this.right = (Spdz2kSInt) right;
+		this.out = (Spdz2kSInt) out;
+		this.suite = suite;
+	}
+
+	@Override
+	public EvaluationStatus evaluate(int round, ResourcePool resourcePool,
+			SCENetwork network) {
+		if (openLeft != null) {
+			out.value = Spdz2kElement.known(openLeft.getLong(), suite.getKeyShare(),
+					resourcePool.getMyId()).subtract(right.value);
+		} else {
+			out.value = left.value.subtract(right.value);
+		}
+		return EvaluationStatus.IS_DONE;
+	}
+
+	@Override
+	public String toString() {
+		return "Spdz2kSubtractGate(" + (openLeft != null ? openLeft : left) + ", " + right + ", "
+				+ out + ")";
+	}
+
+	@Override
+	public Value[] getInputValues() {
+		return new Value[] { openLeft != null ? openLeft : left, right };
+	}
+
+	@Override
+	public Value[] getOutputValues() {
+		return new Value[] { out };
+	}
+}
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz2k.storage;
+
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kElement;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kInputMask;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kTriple;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.UInt128;
+
+/**
+ * Supplies the preprocessed data of one thread of a SPDZ2k computation. All
+ * values are shared in Z/2^128 with MACs under a key of Z/2^64.
+ */
+public interface Spdz2kDataSupplier {
+
+	/**
+	 * @return the next multiplication triple.
+	 */
+	public Spdz2kTriple getNextTriple();
+
+	/**
+	 * @param towardPlayerID
+	 *            the id of the player knowing the masked value.
+	 * @return the next input mask toward the given player.
+	 */
+	public Spdz2kInputMask getNextInputMask(int towardPlayerID);
+
+	/**
+	 * @return the share of a random bit, i.e., 0 or 1 in Z/2^128.
+	 */
+	public Spdz2kElement getNextBit();
+
+	/**
+	 * @return the share of a random element of Z/2^128. These hide the upper
+	 *         64 bits of values before they are opened.
+	 */
+	public Spdz2kElement getNextRandomElement();
+
+	/**
+	 * @return the share of the MAC key of this party.
+	 */
+	public UInt128 getKeyShare();
+}
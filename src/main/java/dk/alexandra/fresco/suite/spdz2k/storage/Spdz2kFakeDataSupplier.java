@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz2k.storage;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import dk.alexandra.fresco.framework.util.FieldPrg;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kElement;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kInputMask;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kTriple;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.UInt128;
+
+/**
+ * Fake preprocessed data for SPDZ2k, the counterpart of the fake data of
+ * {@link dk.alexandra.fresco.suite.spdz.storage.FakeTripGen}. Every party
+ * runs the same pseudo random generator from a public seed, generates the
+ * shares of all parties and keeps its own. This gives correct data without
+ * files or communication, but every party can compute the data of the others.
+ * 
+ * Do NOT use in production! Only for testing and benchmarking.
+ */
+public class Spdz2kFakeDataSupplier implements Spdz2kDataSupplier {
+
+	private static final byte[] KEY_SEED = Arrays.copyOf(
+			"SPDZ2k fake key".getBytes(), FieldPrg.SEED_SIZE);
+
+	private final int myId;
+	private final int noOfParties;
+	private final UInt128 key;
+	private final UInt128 keyShare;
+	private final Spdz2kPrg prg;
+
+	/**
+	 * @param myId
+	 *            the id of this party.
+	 * @param noOfParties
+	 *            the number of parties.
+	 * @param threadId
+	 *            the thread using the data. Each thread gets data of its own.
+	 */
+	public Spdz2kFakeDataSupplier(int myId, int noOfParties, int threadId) {
+		this.myId = myId;
+		this.noOfParties = noOfParties;
+		Spdz2kPrg keyPrg = new Spdz2kPrg(KEY_SEED);
+		UInt128 key = UInt128.ZERO;
+		UInt128 keyShare = null;
+		for (int i = 1; i <= noOfParties; i++) {
+			UInt128 share = UInt128.valueOf(keyPrg.nextLong());
+			key = key.add(share);
+			if (i == myId) {
+				keyShare = share;
+			}
+		}
+		this.key = key;
+		this.keyShare = keyShare;
+		byte[] seed = ByteBuffer.allocate(FieldPrg.SEED_SIZE).putInt(threadId)
+				.put("SPDZ2k data".getBytes()).array();
+		this.prg = new Spdz2kPrg(seed);
+	}
+
+	/**
+	 * Shares a value and its MAC among all parties.
+	 * 
+	 * @return the share of this party.
+	 */
+	private Spdz2kElement share(UInt128 value) {
+		UInt128 mac = key.multiply(value);
+		UInt128 shareSum = UInt128.ZERO;
+		UInt128 macSum = UInt128.ZERO;
+		Spdz2kElement mine = null;
+		for (int i = 1; i < noOfParties; i++) {
+			UInt128 share = prg.nextUInt128();
+			UInt128 macShare = prg.nextUInt128();
+			shareSum = shareSum.add(share);
+			macSum = macSum.add(macShare);
+			if (i == myId) {
+				mine = new Spdz2kElement(share, macShare);
+			}
+		}
+		if (myId == noOfParties) {
+			mine = new Spdz2kElement(value.subtract(shareSum), mac.subtract(macSum));
+		}
+		return mine;
+	}
+
+	@Override
+	public Spdz2kTriple getNextTriple() {
+		UInt128 a = prg.nextUInt128();
+		UInt128 b = prg.nextUInt128();
+		return new Spdz2kTriple(share(a), share(b), share(a.multiply(b)));
+	}
+
+	@Override
+	public Spdz2kInputMask getNextInputMask(int towardPlayerID) {
+		UInt128 r = prg.nextUInt128();
+		return new Spdz2kInputMask(share(r), towardPlayerID == myId ? r : null);
+	}
+
+	@Override
+	public Spdz2kElement getNextBit() {
+		return share(UInt128.valueOf(prg.nextLong() & 1));
+	}
+
+	@Override
+	public Spdz2kElement getNextRandomElement() {
+		return share(prg.nextUInt128());
+	}
+
+	@Override
+	public UInt128 getKeyShare() {
+		return keyShare;
+	}
+}
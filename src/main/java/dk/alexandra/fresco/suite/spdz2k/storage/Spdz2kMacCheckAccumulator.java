@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz2k.storage;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.util.FieldPrg;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kElement;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.UInt128;
+
+/**
+ * Keeps the running sums of the SPDZ2k MAC check as the values are opened,
+ * in the way {@link dk.alexandra.fresco.suite.spdz.storage.MacCheckAccumulator}
+ * does for SPDZ.
+ * 
+ * All opened values are elements of Z/2^128. The coefficients of a batch are
+ * elements of Z/2^64 drawn from a PRG seeded by a hash of the epoch seed, the
+ * batch number and the opened values of the batch. An error in the opened
+ * values then survives the check except with probability about 2^-64.
+ * 
+ * The accumulator is not thread safe. Each evaluation thread has its own.
+ */
+public class Spdz2kMacCheckAccumulator {
+
+	/**
+	 * The number of opened values folded at a time.
+	 */
+	public static final int BATCH_SIZE = 1024;
+
+	private final MessageDigest digest;
+	private final List<UInt128> opened;
+	private final List<Spdz2kElement> closed;
+	private byte[] seed;
+	private long batches;
+	private long count;
+	private UInt128 openedSum;
+	private UInt128 macSum;
+
+	public Spdz2kMacCheckAccumulator() {
+		try {
+			this.digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new MPCException("SHA-256 is needed for the MAC check", e);
+		}
+		this.opened = new ArrayList<UInt128>(BATCH_SIZE + 2);
+		this.closed = new ArrayList<Spdz2kElement>(BATCH_SIZE + 2);
+		reset(new byte[FieldPrg.SEED_SIZE]);
+	}
+
+	/**
+	 * Discards all values and sums, and starts a new epoch.
+	 * 
+	 * @param seed
+	 *            the seed of the new epoch, which must be the same for all
+	 *            parties.
+	 */
+	public void reset(byte[] seed) {
+		this.seed = seed.clone();
+		this.opened.clear();
+		this.closed.clear();
+		this.batches = 0;
+		this.count = 0;
+		this.openedSum = UInt128.ZERO;
+		this.macSum = UInt128.ZERO;
+	}
+
+	/**
+	 * Adds an opened value together with the share it was opened from.
+	 */
+	public void add(UInt128 value, Spdz2kElement element) {
+		opened.add(value);
+		closed.add(element);
+		if (opened.size() >= BATCH_SIZE) {
+			fold();
+		}
+	}
+
+	/**
+	 * Folds the values of the last, incomplete batch into the sums.
+	 */
+	public void flush() {
+		if (!opened.isEmpty()) {
+			fold();
+		}
+	}
+
+	/**
+	 * @return the sum of r_i * a_i over the folded opened values a_i.
+	 */
+	public UInt128 getOpenedSum() {
+		return openedSum;
+	}
+
+	/**
+	 * @return the sum of r_i * m_i over the MAC shares m_i of the folded
+	 *         values.
+	 */
+	public UInt128 getMacSum() {
+		return macSum;
+	}
+
+	/**
+	 * @return the number of values folded in this epoch.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	private void fold() {
+		Spdz2kPrg prg = new Spdz2kPrg(batchSeed());
+		UInt128 a = openedSum;
+		UInt128 gamma = macSum;
+		for (int i = 0; i < opened.size(); i++) {
+			long r = prg.nextLong();
+			a = a.add(opened.get(i).multiply(r));
+			gamma = gamma.add(closed.get(i).getMac().multiply(r));
+		}
+		openedSum = a;
+		macSum = gamma;
+		count += opened.size();
+		batches++;
+		opened.clear();
+		closed.clear();
+	}
+
+	private byte[] batchSeed() {
+		ByteBuffer buffer = ByteBuffer.allocate(8 + 16 * opened.size());
+		buffer.putLong(batches);
+		for (UInt128 v : opened) {
+			buffer.putLong(v.getHigh()).putLong(v.getLow());
+		}
+		digest.update(seed);
+		digest.update(buffer.array());
+		return Arrays.copyOf(digest.digest(), FieldPrg.SEED_SIZE);
+	}
+}
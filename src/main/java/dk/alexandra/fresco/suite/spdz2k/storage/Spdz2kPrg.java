@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz2k.storage;
+
+import java.nio.ByteBuffer;
+
+import dk.alexandra.fresco.framework.util.FieldPrg;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.UInt128;
+
+/**
+ * Draws ring elements from the AES-CTR stream of a {@link FieldPrg}. As the
+ * ring has a power of two modulus, no rejection sampling is needed.
+ * 
+ * Not thread safe.
+ */
+public class Spdz2kPrg {
+
+	private static final int BUFFER_SIZE = 4096;
+
+	private final FieldPrg prg;
+	private ByteBuffer buffer;
+
+	/**
+	 * @param seed
+	 *            a {@link FieldPrg#SEED_SIZE} byte seed.
+	 */
+	public Spdz2kPrg(byte[] seed) {
+		this.prg = new FieldPrg(seed);
+		this.buffer = ByteBuffer.allocate(0);
+	}
+
+	/**
+	 * @return the next element of Z/2^64 of the stream.
+	 */
+	public long nextLong() {
+		if (!buffer.hasRemaining()) {
+			buffer = ByteBuffer.wrap(prg.nextBytes(BUFFER_SIZE));
+		}
+		return buffer.getLong();
+	}
+
+	/**
+	 * @return the next element of Z/2^128 of the stream.
+	 */
+	public UInt128 nextUInt128() {
+		long high = nextLong();
+		return new UInt128(high, nextLong());
+	}
+}
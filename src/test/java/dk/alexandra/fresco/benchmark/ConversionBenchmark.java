@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.benchmark;
+
+import java.math.BigInteger;
+import java.util.logging.Level;
+
+import dk.alexandra.fresco.framework.Application;
+import dk.alexandra.fresco.framework.ProtocolFactory;
+import dk.alexandra.fresco.framework.ProtocolProducer;
+import dk.alexandra.fresco.framework.Reporter;
+import dk.alexandra.fresco.framework.value.OInt;
+import dk.alexandra.fresco.framework.value.SBool;
+import dk.alexandra.fresco.framework.value.SBoolFactory;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.lib.compare.ComparisonProtocolFactory;
+import dk.alexandra.fresco.lib.compare.ComparisonProtocolFactoryImpl;
+import dk.alexandra.fresco.lib.conversion.BitToNumeralCircuitFactory;
+import dk.alexandra.fresco.lib.conversion.NumeralToBitCircuitFactory;
+import dk.alexandra.fresco.lib.field.integer.BasicNumericFactory;
+import dk.alexandra.fresco.lib.helper.ParallelProtocolProducer;
+import dk.alexandra.fresco.lib.helper.builder.NumericIOBuilder;
+import dk.alexandra.fresco.lib.helper.sequential.SequentialProtocolProducer;
+import dk.alexandra.fresco.lib.math.PreprocessedNumericBitFactory;
+import dk.alexandra.fresco.lib.math.exp.ExpFromOIntFactory;
+import dk.alexandra.fresco.lib.math.exp.PreprocessedExpPipeFactory;
+import dk.alexandra.fresco.lib.math.inv.LocalInversionFactory;
+import dk.alexandra.fresco.suite.spdz.forecast.ResourceForecaster;
+import dk.alexandra.fresco.suite.spdz.forecast.ResourceReport;
+
+/**
+ * Compares the SPDZ resources used to decompose a secret value of l bits into
+ * its bits using either
+ * 
+ * <ul>
+ * <li>comparisons, where bit i, from the most significant bit and down, is
+ * found by comparing the remaining value with 2^i - 1 and subtracting the
+ * bit times 2^i, or</li>
+ * <li>the native SPDZ decomposition, which opens the value masked by an
+ * edaBit and computes the borrows of the subtraction of the mask bits by a
+ * parallel prefix.</li>
+ * </ul>
+ * 
+ * The resources are counted by the {@link ResourceForecaster}, so no network
+ * or preprocessed data is needed. Run with
+ * 
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *   "-Dexec.args=-cp %classpath dk.alexandra.fresco.benchmark.ConversionBenchmark"
+ * </pre>
+ */
+public class ConversionBenchmark {
+
+	private static final BigInteger MODULUS = new BigInteger(
+			"6703903964971298549787012499123814115273848577471136527425966013026501536706464354255445443244279389455058889493431223951165286470575994074291745908195329");
+
+	private static final int SECURITY_PARAMETER = 40;
+
+	/**
+	 * Inputs a value, decomposes it using the given producer and opens the
+	 * resulting bits.
+	 */
+	private abstract static class DecompositionApplication implements Application {
+
+		private static final long serialVersionUID = -2651407317869017474L;
+
+		protected final int bitLength;
+
+		DecompositionApplication(int bitLength) {
+			this.bitLength = bitLength;
+		}
+
+		protected abstract ProtocolProducer decompose(ProtocolFactory provider,
+				SInt value, SInt[] bits);
+
+		@Override
+		public ProtocolProducer prepareApplication(ProtocolFactory provider) {
+			BasicNumericFactory bnf = (BasicNumericFactory) provider;
+			NumericIOBuilder ioBuilder = new NumericIOBuilder(bnf);
+			SInt value = ioBuilder.input(1, 1);
+			ProtocolProducer input = ioBuilder.getCircuit();
+			SInt[] bits = new SInt[bitLength];
+			for (int i = 0; i < bitLength; i++) {
+				bits[i] = bnf.getSInt();
+			}
+			ProtocolProducer decompose = decompose(provider, value, bits);
+			ioBuilder.reset();
+			ioBuilder.outputArray(bits);
+			return new SequentialProtocolProducer(input, decompose,
+					ioBuilder.getCircuit());
+		}
+	}
+
+	private static Application comparisons(int bitLength) {
+		return new DecompositionApplication(bitLength) {
+
+			private static final long serialVersionUID = 8031624700437813357L;
+
+			@Override
+			protected ProtocolProducer decompose(ProtocolFactory provider,
+					SInt value, SInt[] bits) {
+				BasicNumericFactory bnf = (BasicNumericFactory) provider;
+				ComparisonProtocolFactory cpf = new ComparisonProtocolFactoryImpl(
+						SECURITY_PARAMETER, bnf, (LocalInversionFactory) provider,
+						(PreprocessedNumericBitFactory) provider,
+						(ExpFromOIntFactory) provider,
+						(PreprocessedExpPipeFactory) provider);
+				OInt one = bnf.getOInt(BigInteger.ONE);
+				SequentialProtocolProducer seq = new SequentialProtocolProducer();
+				SInt rest = value;
+				for (int i = bitLength - 1; i >= 0; i--) {
+					// bit i is 1 - [rest <= 2^i - 1]
+					SInt threshold = bnf.getSInt();
+					SInt below = bnf.getSInt();
+					seq.append(bnf.getSInt(BigInteger.ONE.shiftLeft(i).subtract(BigInteger.ONE),
+							threshold));
+					seq.append(cpf.getGreaterThanProtocol(rest, threshold, below, false));
+					seq.append(bnf.getSubtractCircuit(one, below, bits[i]));
+					if (i > 0) {
+						SInt scaled = bnf.getSInt();
+						SInt next = bnf.getSInt();
+						seq.append(bnf.getMultCircuit(bnf.getOInt(BigInteger.ONE.shiftLeft(i)),
+								bits[i], scaled));
+						seq.append(bnf.getSubtractCircuit(rest, scaled, next));
+						rest = next;
+					}
+				}
+				return seq;
+			}
+		};
+	}
+
+	private static Application edaBits(int bitLength) {
+		return new DecompositionApplication(bitLength) {
+
+			private static final long serialVersionUID = -5581213420953262307L;
+
+			@Override
+			protected ProtocolProducer decompose(ProtocolFactory provider,
+					SInt value, SInt[] bits) {
+				SBool[] sbools = ((SBoolFactory) provider).getSBools(bitLength);
+				BitToNumeralCircuitFactory fromBits = (BitToNumeralCircuitFactory) provider;
+				ParallelProtocolProducer convert = new ParallelProtocolProducer();
+				for (int i = 0; i < bitLength; i++) {
+					convert.append(fromBits.getBitToNumeralCircuit(
+							new SBool[] { sbools[i] }, bits[i]));
+				}
+				return new SequentialProtocolProducer(
+						((NumeralToBitCircuitFactory) provider).getNumeralToBitCircuit(value,
+								sbools), convert);
+			}
+		};
+	}
+
+	private static void print(String name, int bitLength, ResourceReport report) {
+		System.out.println(String.format("%-12s %4d %10d %10d %10d %10d %8d %12d",
+				name, bitLength, report.getTotalTriples(), report.getTotalBits(),
+				report.getTotalExpPipes(), report.getTotalOpenedValues(),
+				report.getRounds(), report.getBytesSent()));
+	}
+
+	public static void main(String[] args) {
+		Reporter.init(Level.WARNING);
+		System.out.println(String.format("%-12s %4s %10s %10s %10s %10s %8s %12s",
+				"approach", "l", "triples", "bits", "expPipes", "opened",
+				"rounds", "bytesSent"));
+		for (int bitLength : new int[] { 8, 16, 32, 64 }) {
+			ResourceForecaster forecaster = new ResourceForecaster(1, 2, 1,
+					4096, MODULUS, bitLength);
+			print("comparison", bitLength, forecaster.forecast(comparisons(bitLength)));
+			forecaster = new ResourceForecaster(1, 2, 1, 4096, MODULUS, bitLength);
+			print("edaBit", bitLength, forecaster.forecast(edaBits(bitLength)));
+		}
+	}
+}
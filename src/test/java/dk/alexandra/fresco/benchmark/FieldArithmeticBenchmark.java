@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.benchmark;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import dk.alexandra.fresco.framework.math.MontgomeryField;
+
+/**
+ * Compares BigInteger arithmetic followed by a reduction with the Montgomery
+ * arithmetic of {@link MontgomeryField}, for single operations and for a
+ * linear combination of a batch of elements.
+ * 
+ * Run with
+ * 
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *   "-Dexec.args=-cp %classpath dk.alexandra.fresco.benchmark.FieldArithmeticBenchmark"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldArithmeticBenchmark {
+
+	/**
+	 * The bit length of the prime modulus.
+	 */
+	@Param({ "64", "128", "512" })
+	public int bitLength;
+
+	/**
+	 * The size of the batch in the linear combination benchmarks.
+	 */
+	private static final int BATCH = 1024;
+
+	private BigInteger p;
+	private BigInteger x;
+	private BigInteger y;
+	private BigInteger[] xs;
+	private BigInteger[] ys;
+
+	private MontgomeryField field;
+	private long[] a;
+	private long[] b;
+	private long[] out;
+	private long[][] as;
+	private long[][] bs;
+	private long[] tmp;
+
+	@Setup
+	public void setup() {
+		Random rand = new Random(42);
+		p = BigInteger.probablePrime(bitLength, rand);
+		x = new BigInteger(bitLength, rand).mod(p);
+		y = new BigInteger(bitLength, rand).mod(p);
+		xs = new BigInteger[BATCH];
+		ys = new BigInteger[BATCH];
+		field = new MontgomeryField(p);
+		as = new long[BATCH][];
+		bs = new long[BATCH][];
+		for (int i = 0; i < BATCH; i++) {
+			xs[i] = new BigInteger(bitLength, rand).mod(p);
+			ys[i] = new BigInteger(bitLength, rand).mod(p);
+			as[i] = field.fromBigInteger(xs[i]);
+			bs[i] = field.fromBigInteger(ys[i]);
+		}
+		a = field.fromBigInteger(x);
+		b = field.fromBigInteger(y);
+		out = field.newElement();
+		tmp = field.newElement();
+	}
+
+	@Benchmark
+	public BigInteger bigIntegerAdd() {
+		return x.add(y).mod(p);
+	}
+
+	@Benchmark
+	public long[] montgomeryAdd() {
+		field.add(a, b, out);
+		return out;
+	}
+
+	@Benchmark
+	public BigInteger bigIntegerMultiply() {
+		return x.multiply(y).mod(p);
+	}
+
+	@Benchmark
+	public long[] montgomeryMultiply() {
+		field.multiply(a, b, out);
+		return out;
+	}
+
+	/**
+	 * To and from Montgomery form, costing two multiplications.
+	 */
+	@Benchmark
+	public BigInteger montgomeryConversion() {
+		return field.toBigInteger(field.fromBigInteger(x));
+	}
+
+	/**
+	 * To and from a plain value, without any multiplication.
+	 */
+	@Benchmark
+	public BigInteger plainConversion() {
+		field.setValue(x, out);
+		return field.getValue(out);
+	}
+
+	/**
+	 * sum_i xs[i]*ys[i] mod p, reducing after every operation.
+	 */
+	@Benchmark
+	public BigInteger bigIntegerLinearCombination() {
+		BigInteger res = BigInteger.ZERO;
+		for (int i = 0; i < BATCH; i++) {
+			res = res.add(xs[i].multiply(ys[i])).mod(p);
+		}
+		return res;
+	}
+
+	@Benchmark
+	public long[] montgomeryLinearCombination() {
+		long[] res = out;
+		for (int i = 0; i < res.length; i++) {
+			res[i] = 0;
+		}
+		for (int i = 0; i < BATCH; i++) {
+			field.multiply(as[i], bs[i], tmp);
+			field.add(res, tmp, res);
+		}
+		return res;
+	}
+
+	/**
+	 * The linear combination including conversion of the inputs and output
+	 * from and to BigInteger.
+	 */
+	@Benchmark
+	public BigInteger montgomeryInnerProduct() {
+		return field.innerProduct(xs, ys);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(FieldArithmeticBenchmark.class.getSimpleName()).build()).run();
+	}
+}
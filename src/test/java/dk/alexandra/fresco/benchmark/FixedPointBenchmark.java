@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.benchmark;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.logging.Level;
+
+import dk.alexandra.fresco.framework.Application;
+import dk.alexandra.fresco.framework.ProtocolFactory;
+import dk.alexandra.fresco.framework.ProtocolProducer;
+import dk.alexandra.fresco.framework.Reporter;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.lib.compare.RandomAdditiveMaskFactoryImpl;
+import dk.alexandra.fresco.lib.field.integer.BasicNumericFactory;
+import dk.alexandra.fresco.lib.helper.ParallelProtocolProducer;
+import dk.alexandra.fresco.lib.helper.builder.NumericIOBuilder;
+import dk.alexandra.fresco.lib.helper.sequential.SequentialProtocolProducer;
+import dk.alexandra.fresco.lib.lp.LPFactoryImpl;
+import dk.alexandra.fresco.lib.math.PreprocessedNumericBitFactory;
+import dk.alexandra.fresco.lib.math.exp.ExpFromOIntFactory;
+import dk.alexandra.fresco.lib.math.exp.PreprocessedExpPipeFactory;
+import dk.alexandra.fresco.lib.math.fixed.FixedPointFactory;
+import dk.alexandra.fresco.lib.math.fixed.FixedPointFactoryImpl;
+import dk.alexandra.fresco.lib.math.fixed.SFixed;
+import dk.alexandra.fresco.lib.math.inv.LocalInversionFactory;
+import dk.alexandra.fresco.suite.spdz.forecast.ResourceForecaster;
+import dk.alexandra.fresco.suite.spdz.forecast.ResourceReport;
+
+/**
+ * Compares the SPDZ resources used to find the minimum of n ratios x_i / c_i
+ * of secret x_i and public real c_i, as done in the ratio test of the LP
+ * solver, using either
+ * 
+ * <ul>
+ * <li>the fraction representation, where the c_i are scaled by hand into
+ * integers and the minimum is found by a {@code MinimumFractionCircuit}, which
+ * cross-multiplies and compares at twice the bit length, or</li>
+ * <li>fixed-point numbers, where each x_i is divided by c_i using a
+ * probabilistic truncation and the minimum is found by a
+ * {@code MinimumCircuit}.</li>
+ * </ul>
+ * 
+ * The resources are counted by the {@link ResourceForecaster}, so no network
+ * or preprocessed data is needed. Run with
+ * 
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *   "-Dexec.args=-cp %classpath dk.alexandra.fresco.benchmark.FixedPointBenchmark"
+ * </pre>
+ */
+public class FixedPointBenchmark {
+
+	private static final BigInteger MODULUS = new BigInteger(
+			"6703903964971298549787012499123814115273848577471136527425966013026501536706464354255445443244279389455058889493431223951165286470575994074291745908195329");
+
+	private static final int MAX_BIT_LENGTH = 150;
+	private static final int SECURITY_PARAMETER = 80;
+	private static final int PRECISION = 16;
+	private static final int FIXED_BIT_LENGTH = 64;
+
+	/**
+	 * The number of fractional bits of the fraction representation, i.e.,
+	 * c_i is represented as the integer c_i * 2^PRECISION.
+	 */
+	private static final BigDecimal SCALE = new BigDecimal(
+			BigInteger.ONE.shiftLeft(PRECISION));
+
+	private static BigDecimal denominator(int i) {
+		return BigDecimal.valueOf(i + 1).divide(BigDecimal.valueOf(8));
+	}
+
+	private static SInt[] sints(BasicNumericFactory bnf, int n) {
+		SInt[] res = new SInt[n];
+		for (int i = 0; i < n; i++) {
+			res[i] = bnf.getSInt();
+		}
+		return res;
+	}
+
+	private static LPFactoryImpl getLPFactory(ProtocolFactory provider) {
+		return new LPFactoryImpl(SECURITY_PARAMETER,
+				(BasicNumericFactory) provider, (LocalInversionFactory) provider,
+				(PreprocessedNumericBitFactory) provider,
+				(ExpFromOIntFactory) provider,
+				(PreprocessedExpPipeFactory) provider);
+	}
+
+	private static Application fractions(final int n) {
+		return new Application() {
+
+			private static final long serialVersionUID = 4531207651271530468L;
+
+			@Override
+			public ProtocolProducer prepareApplication(ProtocolFactory provider) {
+				BasicNumericFactory bnf = (BasicNumericFactory) provider;
+				LPFactoryImpl lpf = getLPFactory(provider);
+				NumericIOBuilder ioBuilder = new NumericIOBuilder(bnf);
+				SInt[] xs = ioBuilder.inputArray(new int[n], 1);
+				ProtocolProducer input = ioBuilder.getCircuit();
+				SInt[] ds = new SInt[n];
+				for (int i = 0; i < n; i++) {
+					ds[i] = bnf.getSInt(denominator(i).multiply(SCALE)
+							.toBigIntegerExact());
+				}
+				SInt[] cs = sints(bnf, n);
+				ProtocolProducer min = lpf.getMinimumFractionCircuit(xs, ds,
+						bnf.getSInt(), bnf.getSInt(), cs);
+				ioBuilder.reset();
+				ioBuilder.outputArray(cs);
+				return new SequentialProtocolProducer(input, min,
+						ioBuilder.getCircuit());
+			}
+		};
+	}
+
+	private static Application fixedPoint(final int n) {
+		return new Application() {
+
+			private static final long serialVersionUID = -1843509717253986390L;
+
+			@Override
+			public ProtocolProducer prepareApplication(ProtocolFactory provider) {
+				BasicNumericFactory bnf = (BasicNumericFactory) provider;
+				LPFactoryImpl lpf = getLPFactory(provider);
+				FixedPointFactory fpf = new FixedPointFactoryImpl(PRECISION,
+						FIXED_BIT_LENGTH, SECURITY_PARAMETER, bnf,
+						(LocalInversionFactory) provider,
+						new RandomAdditiveMaskFactoryImpl(bnf,
+								(PreprocessedNumericBitFactory) provider), null);
+				ParallelProtocolProducer input = new ParallelProtocolProducer();
+				ParallelProtocolProducer divide = new ParallelProtocolProducer();
+				SInt[] ratios = new SInt[n];
+				for (int i = 0; i < n; i++) {
+					SFixed x = fpf.getSFixed();
+					SFixed ratio = fpf.getSFixed();
+					input.append(fpf.getCloseProtocol(1, BigDecimal.ZERO, x));
+					divide.append(fpf.getDivisionProtocol(x, denominator(i), ratio));
+					ratios[i] = ratio.getSInt();
+				}
+				NumericIOBuilder ioBuilder = new NumericIOBuilder(bnf);
+				SInt[] cs = sints(bnf, n);
+				ProtocolProducer min = lpf.getMinimumCircuit(ratios,
+						bnf.getSInt(), cs);
+				ioBuilder.outputArray(cs);
+				return new SequentialProtocolProducer(input, divide, min,
+						ioBuilder.getCircuit());
+			}
+		};
+	}
+
+	private static void print(String name, int n, ResourceReport report) {
+		System.out.println(String.format("%-12s %4d %10d %10d %10d %10d %8d %12d",
+				name, n, report.getTotalTriples(), report.getTotalBits(),
+				report.getTotalExpPipes(), report.getTotalOpenedValues(),
+				report.getRounds(), report.getBytesSent()));
+	}
+
+	public static void main(String[] args) {
+		Reporter.init(Level.WARNING);
+		System.out.println(String.format("%-12s %4s %10s %10s %10s %10s %8s %12s",
+				"approach", "n", "triples", "bits", "expPipes", "opened",
+				"rounds", "bytesSent"));
+		for (int n : new int[] { 4, 16, 64 }) {
+			ResourceForecaster forecaster = new ResourceForecaster(1, 2, 1,
+					4096, MODULUS, MAX_BIT_LENGTH);
+			print("fraction", n, forecaster.forecast(fractions(n)));
+			print("fixed-point", n, forecaster.forecast(fixedPoint(n)));
+		}
+	}
+}
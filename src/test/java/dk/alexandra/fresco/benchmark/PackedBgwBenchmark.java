@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.benchmark;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+import dk.alexandra.fresco.framework.Application;
+import dk.alexandra.fresco.framework.ProtocolFactory;
+import dk.alexandra.fresco.framework.ProtocolProducer;
+import dk.alexandra.fresco.framework.Reporter;
+import dk.alexandra.fresco.framework.TestThreadRunner;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThread;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThreadConfiguration;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThreadFactory;
+import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
+import dk.alexandra.fresco.framework.configuration.TestConfiguration;
+import dk.alexandra.fresco.framework.sce.SCE;
+import dk.alexandra.fresco.framework.sce.SCEFactory;
+import dk.alexandra.fresco.framework.sce.configuration.TestSCEConfiguration;
+import dk.alexandra.fresco.framework.sce.evaluator.EvaluationStrategy;
+import dk.alexandra.fresco.framework.sce.resources.storage.InMemoryStorage;
+import dk.alexandra.fresco.framework.value.OInt;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.lib.field.integer.BasicNumericFactory;
+import dk.alexandra.fresco.lib.helper.ParallelProtocolProducer;
+import dk.alexandra.fresco.lib.helper.builder.NumericIOBuilder;
+import dk.alexandra.fresco.lib.helper.builder.NumericProtocolBuilder;
+import dk.alexandra.fresco.lib.helper.sequential.SequentialProtocolProducer;
+import dk.alexandra.fresco.suite.bgw.BgwFactory;
+import dk.alexandra.fresco.suite.bgw.BgwProtocolSuite;
+import dk.alexandra.fresco.suite.bgw.configuration.BgwConfiguration;
+import dk.alexandra.fresco.suite.bgw.packed.BgwPackedFactory;
+import dk.alexandra.fresco.suite.bgw.packed.BgwSIntVector;
+import dk.alexandra.fresco.suite.bgw.packed.PackedShamirSharing;
+
+/**
+ * Compares the throughput of BGW and packed BGW for n parties on localhost,
+ * inputting two vectors, multiplying them entrywise and opening the
+ * products. BGW is run both with the threshold t = (n - 1) / 2 and with t = 1,
+ * and packed BGW with t = 1 and the largest packing k = (n - 1) / 2, so the
+ * packed sharings tolerate as many corrupt parties as the BGW ones with t = 1
+ * and have the same degree as those with t = (n - 1) / 2. Run with
+ * 
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *   "-Dexec.args=-cp %classpath dk.alexandra.fresco.benchmark.PackedBgwBenchmark"
+ * </pre>
+ */
+public class PackedBgwBenchmark {
+
+	private static final BigInteger MODULUS = new BigInteger("618970019642690137449562111");
+	private static final int LENGTH = 2000;
+	private static final int REPETITIONS = 2;
+
+	private static volatile long elapsed;
+
+	private static BigInteger[] values(int factor) {
+		BigInteger[] values = new BigInteger[LENGTH];
+		for (int i = 0; i < LENGTH; i++) {
+			values[i] = BigInteger.valueOf(factor * i + 1);
+		}
+		return values;
+	}
+
+	private static Application bgw() {
+		return new Application() {
+
+			private static final long serialVersionUID = -1208617294541447730L;
+
+			@Override
+			public ProtocolProducer prepareApplication(ProtocolFactory provider) {
+				BasicNumericFactory bnf = (BasicNumericFactory) provider;
+				NumericIOBuilder io = new NumericIOBuilder(bnf);
+				io.beginParScope();
+				SInt[] left = io.inputArray(values(2), 1);
+				SInt[] right = io.inputArray(values(3), 2);
+				io.endCurScope();
+				ProtocolProducer input = io.getCircuit();
+				NumericProtocolBuilder builder = new NumericProtocolBuilder(bnf);
+				SInt[] products = builder.mult(left, right);
+				ProtocolProducer mult = builder.getCircuit();
+				io.reset();
+				io.outputArray(products);
+				return new SequentialProtocolProducer(input, mult, io.getCircuit());
+			}
+		};
+	}
+
+	private static Application packed(final int noOfParties, final int packing) {
+		return new Application() {
+
+			private static final long serialVersionUID = 6406238915262710434L;
+
+			@Override
+			public ProtocolProducer prepareApplication(ProtocolFactory provider) {
+				BgwPackedFactory factory = new BgwPackedFactory((BgwFactory) provider, packing);
+				OInt[] leftOpen = factory.getOIntVector(LENGTH);
+				OInt[] rightOpen = factory.getOIntVector(LENGTH);
+				BigInteger[] leftValues = values(2);
+				BigInteger[] rightValues = values(3);
+				for (int i = 0; i < LENGTH; i++) {
+					leftOpen[i].setValue(leftValues[i]);
+					rightOpen[i].setValue(rightValues[i]);
+				}
+				BgwSIntVector left = factory.getSIntVector(LENGTH);
+				BgwSIntVector right = factory.getSIntVector(LENGTH);
+				BgwSIntVector products = factory.getSIntVector(LENGTH);
+				return new SequentialProtocolProducer(
+						new ParallelProtocolProducer(
+								factory.getCloseCircuit(1, leftOpen, left),
+								factory.getCloseCircuit(2, rightOpen, right)),
+						factory.getMultCircuit(left, right, products),
+						factory.getOpenCircuit(products, factory.getOIntVector(LENGTH)));
+			}
+		};
+	}
+
+	private static class Timed extends TestThreadFactory {
+
+		private final Application app;
+
+		Timed(Application app) {
+			this.app = app;
+		}
+
+		@Override
+		public TestThread next(TestThreadConfiguration conf) {
+			return new TestThread() {
+
+				private SCE sce;
+
+				@Override
+				public void setUp() throws IOException {
+					sce = SCEFactory.getSCEFromConfiguration(conf.sceConf, conf.protocolSuiteConf);
+				}
+
+				@Override
+				public void tearDown() {
+					if (sce != null) {
+						sce.shutdownSCE();
+					}
+				}
+
+				@Override
+				public void test() throws Exception {
+					// the first run warms up the network and the JIT
+					sce.runApplication(app);
+					long start = System.nanoTime();
+					for (int i = 0; i < REPETITIONS; i++) {
+						sce.runApplication(app);
+					}
+					if (conf.getMyId() == 1) {
+						elapsed = (System.nanoTime() - start) / REPETITIONS;
+					}
+				}
+			};
+		}
+	}
+
+	private static void run(String name, Application app, int noOfParties, final int threshold,
+			int packing) {
+		List<Integer> ports = new ArrayList<Integer>(noOfParties);
+		for (int i = 1; i <= noOfParties; i++) {
+			ports.add(9000 + i);
+		}
+		Map<Integer, NetworkConfiguration> netConf = TestConfiguration.getNetworkConfigurations(
+				noOfParties, ports, Level.WARNING);
+		Map<Integer, TestThreadConfiguration> conf = new HashMap<Integer, TestThreadConfiguration>();
+		for (int playerId : netConf.keySet()) {
+			TestThreadConfiguration ttc = new TestThreadConfiguration();
+			ttc.netConf = netConf.get(playerId);
+			ttc.protocolSuiteConf = new BgwConfiguration() {
+				@Override
+				public int getThreshold() {
+					return threshold;
+				}
+
+				@Override
+				public BigInteger getModulus() {
+					return MODULUS;
+				}
+			};
+			ttc.sceConf = new TestSCEConfiguration(new BgwProtocolSuite(),
+					EvaluationStrategy.fromEnum(EvaluationStrategy.SEQUENTIAL_BATCHED), 1, 3,
+					ttc.netConf, new InMemoryStorage(), false);
+			conf.put(playerId, ttc);
+		}
+		TestThreadRunner.run(new Timed(app), conf);
+		double millis = elapsed / 1e6;
+		System.out.println(String.format("%-8s %3d %3d %3d %10.1f %12.0f", name, noOfParties,
+				threshold, packing, millis, LENGTH / (millis / 1000)));
+	}
+
+	public static void main(String[] args) {
+		Reporter.init(Level.WARNING);
+		System.out.println(String.format("%-8s %3s %3s %3s %10s %12s", "suite", "n", "t", "k",
+				"ms", "products/s"));
+		for (int n : new int[] { 5, 7, 9 }) {
+			int k = PackedShamirSharing.getMaxPacking(n, 1);
+			run("bgw", bgw(), n, (n - 1) / 2, 1);
+			run("bgw", bgw(), n, 1, 1);
+			run("packed", packed(n, k), n, 1, k);
+		}
+	}
+}
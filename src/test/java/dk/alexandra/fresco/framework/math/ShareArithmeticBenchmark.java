@@ -0,0 +1,217 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.framework.math;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
+
+/**
+ * Compares the local arithmetic of SPDZ shares stored as BigInteger in
+ * {@link SpdzElement}, going through the word arithmetic of
+ * {@link ModularArithmetic}, with the same arithmetic on shares and MACs
+ * stored as longs. This tells what storing long shares for word sized moduli
+ * would gain. It lives in this package to reach the long operations of the
+ * word arithmetic.
+ * 
+ * Run with
+ * 
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *   "-Dexec.args=-cp %classpath dk.alexandra.fresco.framework.math.ShareArithmeticBenchmark"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShareArithmeticBenchmark {
+
+	/**
+	 * The Mersenne prime 2^61-1 or a 61 bit prime using Montgomery reduction.
+	 */
+	@Param({ "mersenne61", "prime61" })
+	public String modulus;
+
+	/**
+	 * The size of the batch in the linear combination benchmarks.
+	 */
+	private static final int BATCH = 1024;
+
+	private ModularArithmetic arithmetic;
+	private WordArithmetic word;
+	private boolean mersenne;
+
+	private SpdzElement x;
+	private SpdzElement y;
+	private BigInteger c;
+	private SpdzElement[] xs;
+	private BigInteger[] cs;
+
+	private long xShare;
+	private long xMac;
+	private long yShare;
+	private long yMac;
+	private long cWord;
+	private long[] shares;
+	private long[] macs;
+	private long[] coefficients;
+	private long[] out;
+
+	@Setup
+	public void setup() {
+		Random rand = new Random(42);
+		BigInteger p;
+		if (modulus.equals("mersenne61")) {
+			p = Mersenne61Arithmetic.MODULUS;
+		} else {
+			p = BigInteger.probablePrime(61, rand);
+		}
+		arithmetic = ModularArithmetic.forModulus(p);
+		mersenne = arithmetic instanceof Mersenne61Arithmetic;
+		word = mersenne ? null : (WordArithmetic) arithmetic;
+
+		x = randomElement(p, rand);
+		y = randomElement(p, rand);
+		c = new BigInteger(p.bitLength(), rand).mod(p);
+		xs = new SpdzElement[BATCH];
+		cs = new BigInteger[BATCH];
+		shares = new long[BATCH];
+		macs = new long[BATCH];
+		coefficients = new long[BATCH];
+		for (int i = 0; i < BATCH; i++) {
+			xs[i] = randomElement(p, rand);
+			cs[i] = new BigInteger(p.bitLength(), rand).mod(p);
+			shares[i] = xs[i].getShare().longValue();
+			macs[i] = xs[i].getMac().longValue();
+			coefficients[i] = cs[i].longValue();
+		}
+		xShare = x.getShare().longValue();
+		xMac = x.getMac().longValue();
+		yShare = y.getShare().longValue();
+		yMac = y.getMac().longValue();
+		cWord = c.longValue();
+		out = new long[2];
+	}
+
+	private static SpdzElement randomElement(BigInteger p, Random rand) {
+		return new SpdzElement(new BigInteger(p.bitLength(), rand).mod(p),
+				new BigInteger(p.bitLength(), rand).mod(p));
+	}
+
+	@Benchmark
+	public SpdzElement bigIntegerShareAdd() {
+		return x.add(y, arithmetic);
+	}
+
+	@Benchmark
+	public long[] longShareAdd() {
+		if (mersenne) {
+			out[0] = Mersenne61Arithmetic.add(xShare, yShare);
+			out[1] = Mersenne61Arithmetic.add(xMac, yMac);
+		} else {
+			out[0] = word.add(xShare, yShare);
+			out[1] = word.add(xMac, yMac);
+		}
+		return out;
+	}
+
+	@Benchmark
+	public SpdzElement bigIntegerShareMultiply() {
+		return x.multiply(c, arithmetic);
+	}
+
+	@Benchmark
+	public long[] longShareMultiply() {
+		if (mersenne) {
+			out[0] = Mersenne61Arithmetic.multiply(xShare, cWord);
+			out[1] = Mersenne61Arithmetic.multiply(xMac, cWord);
+		} else {
+			out[0] = word.multiply(xShare, cWord);
+			out[1] = word.multiply(xMac, cWord);
+		}
+		return out;
+	}
+
+	/**
+	 * sum_i cs[i]*xs[i] for public coefficients, as in a linear combination.
+	 */
+	@Benchmark
+	public SpdzElement bigIntegerShareLinearCombination() {
+		SpdzElement res = new SpdzElement(BigInteger.ZERO, BigInteger.ZERO);
+		for (int i = 0; i < BATCH; i++) {
+			res = res.add(xs[i].multiply(cs[i], arithmetic), arithmetic);
+		}
+		return res;
+	}
+
+	@Benchmark
+	public long[] longShareLinearCombination() {
+		long share = 0;
+		long mac = 0;
+		if (mersenne) {
+			for (int i = 0; i < BATCH; i++) {
+				share = Mersenne61Arithmetic.add(share,
+						Mersenne61Arithmetic.multiply(shares[i], coefficients[i]));
+				mac = Mersenne61Arithmetic.add(mac,
+						Mersenne61Arithmetic.multiply(macs[i], coefficients[i]));
+			}
+		} else {
+			for (int i = 0; i < BATCH; i++) {
+				share = word.add(share, word.multiply(shares[i], coefficients[i]));
+				mac = word.add(mac, word.multiply(macs[i], coefficients[i]));
+			}
+		}
+		out[0] = share;
+		out[1] = mac;
+		return out;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(ShareArithmeticBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.framework.math;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compares each implementation of {@link ModularArithmetic} with plain
+ * BigInteger arithmetic.
+ */
+public class TestModularArithmetic {
+
+	private static final BigInteger MERSENNE_61 = BigInteger.ONE.shiftLeft(61).subtract(BigInteger.ONE);
+	private static final BigInteger MERSENNE_127 = BigInteger.ONE.shiftLeft(127).subtract(BigInteger.ONE);
+
+	@Test
+	public void testSelection() {
+		Assert.assertTrue(ModularArithmetic.forModulus(MERSENNE_61) instanceof Mersenne61Arithmetic);
+		Assert.assertTrue(ModularArithmetic.forModulus(BigInteger.valueOf(2147483647)) instanceof WordArithmetic);
+		Assert.assertTrue(ModularArithmetic.forModulus(MERSENNE_127) instanceof MersenneArithmetic);
+		Assert.assertTrue(ModularArithmetic.forModulus(BigInteger.ONE.shiftLeft(64)) instanceof BigIntegerArithmetic);
+		Assert.assertTrue(ModularArithmetic.forModulus(BigInteger.valueOf(1024)) instanceof BigIntegerArithmetic);
+	}
+
+	@Test
+	public void testArithmetic() {
+		Random rand = new Random(42);
+		BigInteger[] moduli = new BigInteger[] {
+			BigInteger.valueOf(3),
+			BigInteger.valueOf(1024),
+			BigInteger.valueOf(2147483647),
+			new BigInteger("4611686018427387847"), // largest 62 bit prime
+			BigInteger.ONE.shiftLeft(62).subtract(BigInteger.ONE),
+			MERSENNE_61,
+			MERSENNE_127,
+			BigInteger.ONE.shiftLeft(521).subtract(BigInteger.ONE),
+			BigInteger.probablePrime(128, rand)
+		};
+		for (BigInteger p : moduli) {
+			ModularArithmetic arithmetic = ModularArithmetic.forModulus(p);
+			Assert.assertEquals(p, arithmetic.getModulus());
+			for (int i = 0; i < 1000; i++) {
+				BigInteger x = sample(p, rand, i);
+				BigInteger y = sample(p, rand, i / 10);
+				Assert.assertEquals(x.mod(p), arithmetic.reduce(x));
+				Assert.assertEquals(x.add(y).mod(p), arithmetic.add(x, y));
+				Assert.assertEquals(x.subtract(y).mod(p), arithmetic.subtract(x, y));
+				Assert.assertEquals(x.multiply(y).mod(p), arithmetic.multiply(x, y));
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTooSmallModulus() {
+		ModularArithmetic.forModulus(BigInteger.ONE);
+	}
+
+	/**
+	 * Mostly reduced numbers, but also the edge cases, negative numbers and
+	 * numbers larger than p.
+	 */
+	private static BigInteger sample(BigInteger p, Random rand, int i) {
+		switch (i % 10) {
+		case 0:
+			return BigInteger.ZERO;
+		case 1:
+			return p.subtract(BigInteger.ONE);
+		case 2:
+			return p;
+		case 3:
+			return new BigInteger(p.bitLength() + 70, rand);
+		case 4:
+			return new BigInteger(p.bitLength(), rand).negate();
+		case 5:
+			return BigInteger.valueOf(Long.MAX_VALUE);
+		default:
+			return new BigInteger(p.bitLength() + 8, rand).mod(p);
+		}
+	}
+}
@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.framework.math;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compares the Montgomery field arithmetic with BigInteger arithmetic.
+ */
+public class TestMontgomeryField {
+
+	private static final BigInteger spdzModulus = new BigInteger(
+			"6703903964971298549787012499123814115273848577471136527425966013026501536706464354255445443244279389455058889493431223951165286470575994074291745908195329");
+
+	private static final BigInteger[] moduli = new BigInteger[] {
+		BigInteger.valueOf(3),
+		BigInteger.valueOf(2147483647),
+		BigInteger.valueOf(4294967291L),
+		new BigInteger("18446744073709551557"),
+		BigInteger.ONE.shiftLeft(127).subtract(BigInteger.ONE),
+		spdzModulus,
+		// all limbs of the modulus are 0xFFFFFFFF.
+		BigInteger.ONE.shiftLeft(256).subtract(BigInteger.ONE)
+	};
+
+	@Test
+	public void testArithmetic() {
+		Random rand = new Random(42);
+		for (BigInteger p : moduli) {
+			MontgomeryField field = new MontgomeryField(p);
+			for (int i = 0; i < 500; i++) {
+				BigInteger x = sample(p, rand, i);
+				BigInteger y = sample(p, rand, i + 1);
+				long[] a = field.fromBigInteger(x);
+				long[] b = field.fromBigInteger(y);
+				long[] out = field.newElement();
+				Assert.assertEquals(x, field.toBigInteger(a));
+
+				field.add(a, b, out);
+				Assert.assertEquals(x.add(y).mod(p), field.toBigInteger(out));
+				field.subtract(a, b, out);
+				Assert.assertEquals(x.subtract(y).mod(p), field.toBigInteger(out));
+				field.multiply(a, b, out);
+				Assert.assertEquals(x.multiply(y).mod(p), field.toBigInteger(out));
+				field.negate(a, out);
+				Assert.assertEquals(x.negate().mod(p), field.toBigInteger(out));
+			}
+		}
+	}
+
+	@Test
+	public void testMultiplyWithReusedScratch() {
+		Random rand = new Random(7);
+		for (BigInteger p : moduli) {
+			MontgomeryField field = new MontgomeryField(p);
+			long[] scratch = field.newScratch();
+			long[] out = field.newElement();
+			for (int i = 0; i < 200; i++) {
+				BigInteger x = sample(p, rand, i);
+				BigInteger y = sample(p, rand, i + 1);
+				field.multiply(field.fromBigInteger(x), field.fromBigInteger(y), out, scratch);
+				Assert.assertEquals(x.multiply(y).mod(p), field.toBigInteger(out));
+			}
+		}
+	}
+
+	@Test
+	public void testMultiplyFromSeveralThreads() throws Exception {
+		final MontgomeryField field = new MontgomeryField(spdzModulus);
+		final Throwable[] errors = new Throwable[4];
+		Thread[] threads = new Thread[errors.length];
+		for (int t = 0; t < threads.length; t++) {
+			final int id = t;
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						Random rand = new Random(id);
+						long[] out = field.newElement();
+						for (int i = 0; i < 2000; i++) {
+							BigInteger x = sample(spdzModulus, rand, i);
+							BigInteger y = sample(spdzModulus, rand, i + 1);
+							field.multiply(field.fromBigInteger(x), field.fromBigInteger(y), out);
+							Assert.assertEquals(x.multiply(y).mod(spdzModulus), field.toBigInteger(out));
+						}
+					} catch (Throwable e) {
+						errors[id] = e;
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (int t = 0; t < threads.length; t++) {
+			threads[t].join();
+			Assert.assertNull(errors[t]);
+		}
+	}
+
+	@Test
+	public void testOperandsMayBeOutput() {
+		Random rand = new Random(7);
+		MontgomeryField field = new MontgomeryField(spdzModulus);
+		BigInteger x = new BigInteger(600, rand);
+		BigInteger y = new BigInteger(600, rand);
+		long[] a = field.fromBigInteger(x);
+		long[] b = field.fromBigInteger(y);
+		field.multiply(a, b, a);
+		Assert.assertEquals(x.multiply(y).mod(spdzModulus), field.toBigInteger(a));
+		field.add(a, b, b);
+		Assert.assertEquals(x.multiply(y).add(y).mod(spdzModulus), field.toBigInteger(b));
+		field.multiply(b, b, b);
+		Assert.assertEquals(x.multiply(y).add(y).pow(2).mod(spdzModulus), field.toBigInteger(b));
+	}
+
+	@Test
+	public void testConversions() {
+		MontgomeryField field = new MontgomeryField(spdzModulus);
+		Assert.assertEquals(BigInteger.ONE, field.toBigInteger(field.one()));
+		Assert.assertEquals(BigInteger.ZERO, field.toBigInteger(field.newElement()));
+		Assert.assertTrue(field.isZero(field.fromBigInteger(spdzModulus)));
+		Assert.assertEquals(spdzModulus.subtract(BigInteger.ONE),
+				field.toBigInteger(field.fromBigInteger(BigInteger.ONE.negate())));
+		Assert.assertTrue(field.equals(field.one(), field.fromBigInteger(spdzModulus.add(BigInteger.ONE))));
+	}
+
+	@Test
+	public void testPlainValues() {
+		Random rand = new Random(11);
+		for (BigInteger p : moduli) {
+			MontgomeryField field = new MontgomeryField(p);
+			BigInteger[] xs = new BigInteger[20];
+			BigInteger[] ys = new BigInteger[20];
+			BigInteger expected = BigInteger.ZERO;
+			for (int i = 0; i < xs.length; i++) {
+				xs[i] = sample(p, rand, i);
+				ys[i] = sample(p, rand, i + 3);
+				expected = expected.add(xs[i].multiply(ys[i]));
+
+				long[] plain = field.newElement();
+				field.setValue(xs[i], plain);
+				Assert.assertEquals(xs[i], field.getValue(plain));
+				// plain times Montgomery form is plain.
+				field.multiply(plain, field.fromBigInteger(ys[i]), plain);
+				Assert.assertEquals(xs[i].multiply(ys[i]).mod(p), field.getValue(plain));
+			}
+			Assert.assertEquals(expected.mod(p), field.innerProduct(xs, ys));
+		}
+		MontgomeryField field = new MontgomeryField(spdzModulus);
+		long[] plain = field.newElement();
+		field.setValue(BigInteger.ONE.negate(), plain);
+		Assert.assertEquals(spdzModulus.subtract(BigInteger.ONE), field.getValue(plain));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testEvenModulus() {
+		new MontgomeryField(BigInteger.valueOf(1024));
+	}
+
+	/**
+	 * Samples uniformly, but now and then picks an edge case.
+	 */
+	private static BigInteger sample(BigInteger p, Random rand, int i) {
+		switch (i % 10) {
+		case 0:
+			return BigInteger.ZERO;
+		case 1:
+			return p.subtract(BigInteger.ONE);
+		default:
+			return new BigInteger(p.bitLength() + 8, rand).mod(p);
+		}
+	}
+}
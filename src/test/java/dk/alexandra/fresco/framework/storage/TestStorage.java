@@ -26,8 +26,15 @@
  *******************************************************************************/
 package dk.alexandra.fresco.framework.storage;
 
+import java.io.File;
 import java.io.Serializable;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 
 import org.junit.Assert;
@@ -35,13 +42,17 @@ import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import dk.alexandra.fresco.framework.MPCException;
 import dk.alexandra.fresco.framework.Reporter;
 import dk.alexandra.fresco.framework.sce.resources.storage.FilebasedStreamedStorageImpl;
 import dk.alexandra.fresco.framework.sce.resources.storage.InMemoryStorage;
 import dk.alexandra.fresco.framework.sce.resources.storage.MySQLStorage;
+import dk.alexandra.fresco.framework.sce.resources.storage.OffHeapStorage;
 import dk.alexandra.fresco.framework.sce.resources.storage.Storage;
 import dk.alexandra.fresco.framework.sce.resources.storage.StreamedStorage;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
 
 public class TestStorage {
@@ -75,9 +86,159 @@ public class TestStorage {
 		testStreamedStorage(storage);
 	}
 	
+	@Test
+	public void testOffHeapStorage() {
+		OffHeapStorage storage = new OffHeapStorage();
+		testStorage(storage);
+		testStoreBigInteger(storage);
+		testStreamedStorage(storage);
+		storage.shutdown();
+		Assert.assertEquals(0, storage.getResidentBytes());
+	}
+
+	@Test
+	public void testOffHeapStorageSpillsToDisk() {
+		OffHeapStorage storage = new OffHeapStorage(16 * 1024, 4 * 1024,
+				new File(System.getProperty("java.io.tmpdir")));
+		int amount = 500;
+		for (int i = 0; i < amount; i++) {
+			storage.putNext("a", BigInteger.valueOf(i));
+			storage.putNext("b", new SpdzTriple(new SpdzElement(BigInteger.valueOf(i),
+					BigInteger.ONE), new SpdzElement(BigInteger.ONE, BigInteger.ONE),
+					new SpdzElement(BigInteger.ZERO, BigInteger.ONE)));
+		}
+		Assert.assertTrue(storage.getSpillCount() > 0);
+		Assert.assertTrue(storage.getResidentBytes() <= 16 * 1024);
+		for (int i = 0; i < amount; i++) {
+			Assert.assertEquals(BigInteger.valueOf(i), storage.getNext("a"));
+			SpdzTriple t = storage.getNext("b");
+			Assert.assertEquals(BigInteger.valueOf(i), t.getA().getShare());
+		}
+		try {
+			storage.getNext("a");
+			Assert.fail("Stream should be empty");
+		} catch (MPCException e) {
+			// Expected.
+		}
+		storage.putNext("a", BigInteger.TEN);
+		Assert.assertEquals(BigInteger.TEN, storage.getNext("a"));
+		storage.shutdown();
+	}
+
+	@Test
+	public void testOffHeapStorageConcurrentStreams() throws Exception {
+		final OffHeapStorage storage = new OffHeapStorage(64 * 1024, 4 * 1024,
+				new File(System.getProperty("java.io.tmpdir")));
+		final int amount = 2000;
+		List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
+		for (int t = 0; t < 4; t++) {
+			final String name = "thread" + t;
+			tasks.add(new Callable<Boolean>() {
+				@Override
+				public Boolean call() {
+					for (int i = 0; i < amount; i++) {
+						storage.putNext(name, BigInteger.valueOf(i));
+						if (i % 3 == 0) {
+							Assert.assertEquals(BigInteger.valueOf(i / 3), storage.getNext(name));
+						}
+					}
+					for (int i = (amount + 2) / 3; i < amount; i++) {
+						Assert.assertEquals(BigInteger.valueOf(i), storage.getNext(name));
+					}
+					return true;
+				}
+			});
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+		try {
+			for (Future<Boolean> f : executor.invokeAll(tasks)) {
+				Assert.assertTrue(f.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+		storage.shutdown();
+	}
+
+	@Test
+	public void testOffHeapStorageCodecs() {
+		OffHeapStorage storage = new OffHeapStorage();
+		BigInteger large = BigInteger.ONE.shiftLeft(511).add(BigInteger.TEN);
+		SpdzElement e = new SpdzElement(large, BigInteger.valueOf(-300));
+		SpdzTriple triple = new SpdzTriple(e, new SpdzElement(BigInteger.ZERO,
+				BigInteger.ONE), e);
+		SpdzInputMask mask = new SpdzInputMask(e, BigInteger.valueOf(7));
+		storage.putNext("s", e);
+		storage.putNext("s", triple);
+		storage.putNext("s", new SpdzSInt(e));
+		storage.putNext("s", mask);
+		storage.putNext("s", new SpdzInputMask(e));
+		// Items the codecs cannot encode are serialized.
+		storage.putNext("s", new SpdzSInt());
+		storage.putNext("s", BigInteger.TEN);
+
+		Assert.assertEquals(e, storage.getNext("s"));
+		Assert.assertEquals(triple, storage.getNext("s"));
+		Assert.assertEquals(new SpdzSInt(e), storage.getNext("s"));
+		SpdzInputMask m = storage.getNext("s");
+		Assert.assertEquals(e, m.getMask());
+		Assert.assertEquals(BigInteger.valueOf(7), m.getRealValue());
+		m = storage.getNext("s");
+		Assert.assertEquals(e, m.getMask());
+		Assert.assertNull(m.getRealValue());
+		Assert.assertEquals(new SpdzSInt(), storage.getNext("s"));
+		Assert.assertEquals(BigInteger.TEN, storage.getNext("s"));
+
+		storage.putObject("o", "triple", triple);
+		Assert.assertEquals(triple, storage.getObject("o", "triple"));
+		storage.shutdown();
+	}
+
+	@Test
+	public void testOffHeapStorageConcurrentWritersRespectCap() throws Exception {
+		final int cap = 64 * 1024;
+		final OffHeapStorage storage = new OffHeapStorage(cap, 4 * 1024,
+				new File(System.getProperty("java.io.tmpdir")));
+		final int amount = 2000;
+		List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
+		for (int t = 0; t < 4; t++) {
+			final String name = "writer" + t;
+			tasks.add(new Callable<Boolean>() {
+				@Override
+				public Boolean call() {
+					for (int i = 0; i < amount; i++) {
+						storage.putNext(name, new SpdzElement(BigInteger.valueOf(i),
+								BigInteger.ONE.shiftLeft(512)));
+					}
+					return true;
+				}
+			});
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+		try {
+			for (Future<Boolean> f : executor.invokeAll(tasks)) {
+				Assert.assertTrue(f.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+		Assert.assertTrue(storage.getSpillCount() > 0);
+		Assert.assertTrue(storage.getResidentBytes() <= cap);
+		for (int t = 0; t < 4; t++) {
+			for (int i = 0; i < amount; i++) {
+				SpdzElement e = storage.getNext("writer" + t);
+				Assert.assertEquals(BigInteger.valueOf(i), e.getShare());
+			}
+		}
+		storage.shutdown();
+	}
+
 	private void testStreamedStorage(StreamedStorage storage) {
-		storage.putNext("testName", BigInteger.TEN);
-		Serializable o = storage.getNext("testName");
+		File file = new File(System.getProperty("java.io.tmpdir"), "testName");
+		file.deleteOnExit();
+		String name = file.getPath();
+		storage.putNext(name, BigInteger.TEN);
+		Serializable o = storage.getNext(name);
 		Assert.assertEquals(BigInteger.TEN, o);
 	}
 
@@ -43,6 +43,7 @@ import dk.alexandra.fresco.framework.value.OInt;
 import dk.alexandra.fresco.framework.value.SInt;
 import dk.alexandra.fresco.lib.field.integer.BasicNumericFactory;
 import dk.alexandra.fresco.lib.helper.CopyProtocolImpl;
+import dk.alexandra.fresco.lib.helper.ParallelProtocolProducer;
 import dk.alexandra.fresco.lib.helper.builder.NumericIOBuilder;
 import dk.alexandra.fresco.lib.helper.builder.NumericProtocolBuilder;
 import dk.alexandra.fresco.lib.helper.sequential.SequentialProtocolProducer;
@@ -69,6 +70,13 @@ public class BasicArithmeticTests {
 			sce = SCEFactory.getSCEFromConfiguration(conf.sceConf, conf.protocolSuiteConf);
 		}
 
+		@Override
+		public void tearDown() {
+			if (sce != null) {
+				sce.shutdownSCE();
+			}
+		}
+
 	}
 
 	public static class TestInput extends TestThreadFactory {
@@ -278,6 +286,60 @@ public class BasicArithmeticTests {
 		}
 	};
 	
+	/**
+	 * Tests inputting arrays of different lengths from each party, which
+	 * protocol suites may implement natively as a single batch.
+	 */
+	public static class TestInputVector extends TestThreadFactory {
+
+		@Override
+		public TestThread next(TestThreadConfiguration conf) {
+			return new ThreadWithFixture() {
+				@Override
+				public void test() throws Exception {
+					final BigInteger[] first = new BigInteger[] {
+							BigInteger.ZERO, BigInteger.ONE,
+							BigInteger.ONE.shiftLeft(100), BigInteger.TEN };
+					final BigInteger[] second = new BigInteger[] {
+							BigInteger.valueOf(42) };
+					TestApplication app = new TestApplication() {
+
+						private static final long serialVersionUID = 6093348128201917446L;
+
+						@Override
+						public ProtocolProducer prepareApplication(
+								ProtocolFactory provider) {
+							BasicNumericFactory prov = (BasicNumericFactory) provider;
+							NumericIOBuilder ioBuilder = new NumericIOBuilder(
+									prov);
+							ioBuilder.beginParScope();
+							SInt[] firsts = ioBuilder.inputArray(first, 1);
+							SInt[] seconds = ioBuilder.inputArray(second, 2);
+							ioBuilder.endCurScope();
+							ioBuilder.beginParScope();
+							OInt[] firstOutputs = ioBuilder.outputArray(firsts);
+							OInt[] secondOutputs = ioBuilder.outputArray(seconds);
+							ioBuilder.endCurScope();
+							this.outputs = new OInt[first.length + second.length];
+							System.arraycopy(firstOutputs, 0, outputs, 0,
+									first.length);
+							System.arraycopy(secondOutputs, 0, outputs,
+									first.length, second.length);
+							return ioBuilder.getCircuit();
+						}
+					};
+					sce.runApplication(app);
+					OInt[] outputs = app.getOutputs();
+					for (int i = 0; i < first.length; i++) {
+						Assert.assertEquals(first[i], outputs[i].getValue());
+					}
+					Assert.assertEquals(second[0],
+							outputs[first.length].getValue());
+				}
+			};
+		}
+	};
+
 	public static class TestKnownSInt extends TestThreadFactory {
 
 		@Override
@@ -319,6 +381,64 @@ public class BasicArithmeticTests {
 		}
 	};
 
+	/**
+	 * Tests that known constants are shared and can be used as inputs to
+	 * several protocols.
+	 */
+	public static class TestKnownConstants extends TestThreadFactory {
+
+		@Override
+		public TestThread next(TestThreadConfiguration conf) {
+			return new ThreadWithFixture() {
+				@Override
+				public void test() throws Exception {
+					final int[] openInputs = new int[] { 7, 2, 6, 3 };
+					TestApplication app = new TestApplication() {
+
+						private static final long serialVersionUID = 2804539916262981476L;
+
+						@Override
+						public ProtocolProducer prepareApplication(
+								ProtocolFactory provider) {
+							BasicNumericFactory prov = (BasicNumericFactory) provider;
+							Assert.assertSame(prov.getKnownConstantSInt(7),
+									prov.getKnownConstantSInt(7));
+							Assert.assertSame(prov.getKnownConstantOInt(1),
+									prov.getKnownConstantOInt(1));
+							NumericIOBuilder ioBuilder = new NumericIOBuilder(
+									prov);
+							SInt x = ioBuilder.input(5, 1);
+							ProtocolProducer input = ioBuilder.getCircuit();
+							ioBuilder.reset();
+
+							SInt seven = prov.getKnownConstantSInt(7);
+							SInt difference = prov.getSInt();
+							SInt incremented = prov.getSInt();
+							SInt decremented = prov.getSInt();
+							ProtocolProducer compute = new ParallelProtocolProducer(
+									prov.getSubtractCircuit(seven, x, difference),
+									prov.getAddProtocol(x,
+											prov.getKnownConstantOInt(1),
+											incremented),
+									prov.getSubtractCircuit(x,
+											prov.getKnownConstantSInt(2),
+											decremented));
+							this.outputs = ioBuilder.outputArray(new SInt[] {
+									prov.getKnownConstantSInt(7), difference,
+									incremented, decremented });
+							ProtocolProducer output = ioBuilder.getCircuit();
+							return new SequentialProtocolProducer(input,
+									compute, output);
+						}
+					};
+					sce.runApplication(app);
+
+					checkOutputs(openInputs, app.getOutputs());
+				}
+			};
+		}
+	};
+
 	public static class TestSumAndMult extends TestThreadFactory {
 		@Override
 		public TestThread next(TestThreadConfiguration conf) {
@@ -387,6 +507,276 @@ public class BasicArithmeticTests {
 		};
 	};
 
+	/**
+	 * Tests the sums and linear combinations of the builder, which protocol
+	 * suites may implement natively.
+	 */
+	public static class TestLinearCombination extends TestThreadFactory {
+		@Override
+		public TestThread next(TestThreadConfiguration conf) {
+			return new ThreadWithFixture() {
+				@Override
+				public void test() throws Exception {
+					final int[] openInputs = new int[] { 1, 2, 3, 4, 5, 6 };
+					final int[] coefficients = new int[] { 3, 0, 7, 1, 2, 5 };
+					TestApplication app = new TestApplication() {
+
+						private static final long serialVersionUID = 3513285961312098763L;
+
+						@Override
+						public ProtocolProducer prepareApplication(
+								ProtocolFactory provider) {
+							BasicNumericFactory prov = (BasicNumericFactory) provider;
+							NumericIOBuilder ioBuilder = new NumericIOBuilder(
+									prov);
+							SInt[] inputs = createInputs(ioBuilder, openInputs,
+									1);
+							ProtocolProducer inp = ioBuilder.getCircuit();
+							ioBuilder.reset();
+
+							OInt[] cs = new OInt[coefficients.length];
+							for (int i = 0; i < cs.length; i++) {
+								cs[i] = prov.getOInt(BigInteger.valueOf(coefficients[i]));
+							}
+							NumericProtocolBuilder builder = new NumericProtocolBuilder(
+									prov);
+							SInt sum = builder.sum(inputs);
+							SInt combination = builder.linearCombination(cs, inputs);
+							SInt[] doubled = builder.add(inputs, inputs);
+							SInt innerProduct = builder.innerProduct(inputs, inputs);
+							ProtocolProducer circ = builder.getCircuit();
+
+							this.outputs = new OInt[] { ioBuilder.output(sum),
+									ioBuilder.output(combination),
+									ioBuilder.output(doubled[doubled.length - 1]),
+									ioBuilder.output(innerProduct) };
+							ProtocolProducer io = ioBuilder.getCircuit();
+							return new SequentialProtocolProducer(inp, circ, io);
+						}
+					};
+					sce.runApplication(app);
+					int sum = 0;
+					int combination = 0;
+					int innerProduct = 0;
+					for (int i = 0; i < openInputs.length; i++) {
+						sum += openInputs[i];
+						combination += coefficients[i] * openInputs[i];
+						innerProduct += openInputs[i] * openInputs[i];
+					}
+					OInt[] outputs = app.getOutputs();
+					Assert.assertEquals(BigInteger.valueOf(sum), outputs[0].getValue());
+					Assert.assertEquals(BigInteger.valueOf(combination), outputs[1].getValue());
+					Assert.assertEquals(BigInteger.valueOf(12), outputs[2].getValue());
+					Assert.assertEquals(BigInteger.valueOf(innerProduct), outputs[3].getValue());
+				}
+			};
+		};
+	};
+
+	/**
+	 * Tests the element-wise products and the opening of arrays of the
+	 * builders, which protocol suites may implement natively as vectors.
+	 */
+	public static class TestMultVector extends TestThreadFactory {
+		@Override
+		public TestThread next(TestThreadConfiguration conf) {
+			return new ThreadWithFixture() {
+				@Override
+				public void test() throws Exception {
+					final int n = 1500;
+					final int[] left = new int[n];
+					final int[] right = new int[n];
+					for (int i = 0; i < n; i++) {
+						left[i] = i;
+						right[i] = 3 * i + 1;
+					}
+					TestApplication app = new TestApplication() {
+
+						private static final long serialVersionUID = -4511282960128093617L;
+
+						@Override
+						public ProtocolProducer prepareApplication(
+								ProtocolFactory provider) {
+							BasicNumericFactory prov = (BasicNumericFactory) provider;
+							NumericIOBuilder ioBuilder = new NumericIOBuilder(
+									prov);
+							SInt[] lefts = createInputs(ioBuilder, left, 1);
+							SInt[] rights = createInputs(ioBuilder, right, 2);
+							ProtocolProducer inp = ioBuilder.getCircuit();
+							ioBuilder.reset();
+
+							NumericProtocolBuilder builder = new NumericProtocolBuilder(
+									prov);
+							SInt[] products = builder.mult(lefts, rights);
+							SInt[] scaled = builder.scale(rights[2], lefts);
+							ProtocolProducer circ = builder.getCircuit();
+
+							ioBuilder.beginParScope();
+							OInt[] productOutputs = ioBuilder.outputArray(products);
+							OInt[] scaledOutputs = ioBuilder.outputArray(scaled);
+							ioBuilder.endCurScope();
+							this.outputs = new OInt[2 * n];
+							System.arraycopy(productOutputs, 0, outputs, 0, n);
+							System.arraycopy(scaledOutputs, 0, outputs, n, n);
+							ProtocolProducer io = ioBuilder.getCircuit();
+							return new SequentialProtocolProducer(inp, circ, io);
+						}
+					};
+					sce.runApplication(app);
+					OInt[] outputs = app.getOutputs();
+					for (int i = 0; i < n; i++) {
+						Assert.assertEquals(BigInteger.valueOf((long) left[i] * right[i]),
+								outputs[i].getValue());
+						Assert.assertEquals(BigInteger.valueOf((long) left[i] * right[2]),
+								outputs[n + i].getValue());
+					}
+				}
+			};
+		};
+	};
+
+	public static class TestSquare extends TestThreadFactory {
+		@Override
+		public TestThread next(TestThreadConfiguration conf) {
+			return new ThreadWithFixture() {
+				@Override
+				public void test() throws Exception {
+					final int n = 20;
+					final int[] values = new int[n];
+					for (int i = 0; i < n; i++) {
+						values[i] = 7 * i + 3;
+					}
+					TestApplication app = new TestApplication() {
+
+						private static final long serialVersionUID = 2861430117249830176L;
+
+						@Override
+						public ProtocolProducer prepareApplication(
+								ProtocolFactory provider) {
+							BasicNumericFactory prov = (BasicNumericFactory) provider;
+							NumericIOBuilder ioBuilder = new NumericIOBuilder(
+									prov);
+							SInt[] inputs = createInputs(ioBuilder, values, 1);
+							ProtocolProducer inp = ioBuilder.getCircuit();
+							ioBuilder.reset();
+
+							NumericProtocolBuilder builder = new NumericProtocolBuilder(
+									prov);
+							SInt[] squares = new SInt[n];
+							SInt[] products = new SInt[n];
+							builder.beginParScope();
+							for (int i = 0; i < n; i++) {
+								squares[i] = builder.square(inputs[i]);
+								products[i] = builder.mult(inputs[i], inputs[i]);
+							}
+							builder.endCurScope();
+							ProtocolProducer circ = builder.getCircuit();
+
+							ioBuilder.beginParScope();
+							OInt[] squareOutputs = ioBuilder.outputArray(squares);
+							OInt[] productOutputs = ioBuilder.outputArray(products);
+							ioBuilder.endCurScope();
+							this.outputs = new OInt[2 * n];
+							System.arraycopy(squareOutputs, 0, outputs, 0, n);
+							System.arraycopy(productOutputs, 0, outputs, n, n);
+							ProtocolProducer io = ioBuilder.getCircuit();
+							return new SequentialProtocolProducer(inp, circ, io);
+						}
+					};
+					sce.runApplication(app);
+					OInt[] outputs = app.getOutputs();
+					for (int i = 0; i < n; i++) {
+						BigInteger expected = BigInteger.valueOf((long) values[i] * values[i]);
+						Assert.assertEquals(expected, outputs[i].getValue());
+						Assert.assertEquals(expected, outputs[n + i].getValue());
+					}
+				}
+			};
+		};
+	};
+
+	public static class TestMatrixMult extends TestThreadFactory {
+		@Override
+		public TestThread next(TestThreadConfiguration conf) {
+			return new ThreadWithFixture() {
+				@Override
+				public void test() throws Exception {
+					final int rows = 2, inner = 3, columns = 4;
+					final BigInteger[][] a = new BigInteger[rows][inner];
+					final BigInteger[][] b = new BigInteger[inner][columns];
+					for (int i = 0; i < rows; i++) {
+						for (int k = 0; k < inner; k++) {
+							a[i][k] = BigInteger.valueOf(3 * i + k + 1);
+						}
+					}
+					for (int k = 0; k < inner; k++) {
+						for (int j = 0; j < columns; j++) {
+							b[k][j] = BigInteger.valueOf(5 * k + j + 2);
+						}
+					}
+					final BigInteger[][] column = new BigInteger[inner][1];
+					final BigInteger[][] row = new BigInteger[1][columns];
+					for (int k = 0; k < inner; k++) {
+						column[k][0] = a[0][k];
+					}
+					row[0] = b[0];
+					final OInt[][][] results = new OInt[2][][];
+					TestApplication app = new TestApplication() {
+
+						private static final long serialVersionUID = -5016728380642214478L;
+
+						@Override
+						public ProtocolProducer prepareApplication(
+								ProtocolFactory provider) {
+							BasicNumericFactory prov = (BasicNumericFactory) provider;
+							NumericIOBuilder ioBuilder = new NumericIOBuilder(
+									prov);
+							ioBuilder.beginParScope();
+							SInt[][] sa = ioBuilder.inputMatrix(a, 1);
+							SInt[][] sb = ioBuilder.inputMatrix(b, 2);
+							SInt[][] sColumn = ioBuilder.inputMatrix(column, 1);
+							SInt[][] sRow = ioBuilder.inputMatrix(row, 2);
+							ioBuilder.endCurScope();
+							ProtocolProducer inp = ioBuilder.getCircuit();
+							ioBuilder.reset();
+
+							NumericProtocolBuilder builder = new NumericProtocolBuilder(
+									prov);
+							builder.beginParScope();
+							SInt[][] product = builder.matrixMult(sa, sb);
+							SInt[][] outer = builder.matrixMult(sColumn, sRow);
+							builder.endCurScope();
+							ProtocolProducer circ = builder.getCircuit();
+
+							ioBuilder.beginParScope();
+							results[0] = ioBuilder.outputMatrix(product);
+							results[1] = ioBuilder.outputMatrix(outer);
+							ioBuilder.endCurScope();
+							ProtocolProducer io = ioBuilder.getCircuit();
+							return new SequentialProtocolProducer(inp, circ, io);
+						}
+					};
+					sce.runApplication(app);
+					for (int i = 0; i < rows; i++) {
+						for (int j = 0; j < columns; j++) {
+							BigInteger expected = BigInteger.ZERO;
+							for (int k = 0; k < inner; k++) {
+								expected = expected.add(a[i][k].multiply(b[k][j]));
+							}
+							Assert.assertEquals(expected, results[0][i][j].getValue());
+						}
+					}
+					for (int k = 0; k < inner; k++) {
+						for (int j = 0; j < columns; j++) {
+							Assert.assertEquals(column[k][0].multiply(row[0][j]),
+									results[1][k][j].getValue());
+						}
+					}
+				}
+			};
+		};
+	};
+
 	private static void checkOutputs(int[] openInputs, OInt[] outputs) {
 		for (int i = 0; i < openInputs.length; i++) {
 			Assert.assertEquals(BigInteger.valueOf(openInputs[i]),
@@ -63,6 +63,13 @@ public class ComparisonTests {
 					conf.protocolSuiteConf);
 		}
 
+		@Override
+		public void tearDown() {
+			if (sce != null) {
+				sce.shutdownSCE();
+			}
+		}
+
 	}
 
 	/**
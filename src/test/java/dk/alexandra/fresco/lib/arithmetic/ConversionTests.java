@@ -0,0 +1,202 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.lib.arithmetic;
+
+import java.io.IOException;
+import java.math.BigInteger;
+
+import org.junit.Assert;
+
+import dk.alexandra.fresco.framework.ProtocolFactory;
+import dk.alexandra.fresco.framework.ProtocolProducer;
+import dk.alexandra.fresco.framework.TestApplication;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThread;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThreadConfiguration;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThreadFactory;
+import dk.alexandra.fresco.framework.sce.SCE;
+import dk.alexandra.fresco.framework.sce.SCEFactory;
+import dk.alexandra.fresco.framework.value.OInt;
+import dk.alexandra.fresco.framework.value.SBool;
+import dk.alexandra.fresco.framework.value.SBoolFactory;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.lib.conversion.BitToNumeralCircuitFactory;
+import dk.alexandra.fresco.lib.conversion.NumeralToBitCircuitFactory;
+import dk.alexandra.fresco.lib.field.integer.BasicNumericFactory;
+import dk.alexandra.fresco.lib.helper.ParallelProtocolProducer;
+import dk.alexandra.fresco.lib.helper.builder.NumericIOBuilder;
+import dk.alexandra.fresco.lib.helper.sequential.SequentialProtocolProducer;
+
+/**
+ * Tests of the conversions between secret shared integers and their bits,
+ * for suites whose factory offers both {@link NumeralToBitCircuitFactory} and
+ * {@link BitToNumeralCircuitFactory}. The bits are opened by converting each
+ * of them back to an integer on its own.
+ */
+public class ConversionTests {
+
+	private abstract static class ThreadWithFixture extends TestThread {
+
+		protected SCE sce;
+
+		@Override
+		public void setUp() throws IOException {
+			sce = SCEFactory.getSCEFromConfiguration(conf.sceConf,
+					conf.protocolSuiteConf);
+		}
+	}
+
+	/**
+	 * Decomposes the given values into bitLength bits each, and opens the bits
+	 * followed by the values recomposed from all their bits.
+	 */
+	private static TestApplication decompose(final int[] values, final int bitLength) {
+		return new TestApplication() {
+
+			private static final long serialVersionUID = -3985373806532658186L;
+
+			@Override
+			public ProtocolProducer prepareApplication(ProtocolFactory provider) {
+				BasicNumericFactory bnf = (BasicNumericFactory) provider;
+				SBoolFactory boolFactory = (SBoolFactory) provider;
+				NumeralToBitCircuitFactory toBits = (NumeralToBitCircuitFactory) provider;
+				BitToNumeralCircuitFactory fromBits = (BitToNumeralCircuitFactory) provider;
+				NumericIOBuilder ioBuilder = new NumericIOBuilder(bnf);
+				SInt[] inputs = ioBuilder.inputArray(values, 1);
+				ProtocolProducer input = ioBuilder.getCircuit();
+
+				ParallelProtocolProducer decompose = new ParallelProtocolProducer();
+				ParallelProtocolProducer recompose = new ParallelProtocolProducer();
+				SInt[] results = new SInt[values.length * (bitLength + 1)];
+				for (int i = 0; i < values.length; i++) {
+					SBool[] bits = boolFactory.getSBools(bitLength);
+					decompose.append(toBits.getNumeralToBitCircuit(inputs[i], bits));
+					for (int j = 0; j < bitLength; j++) {
+						results[i * bitLength + j] = bnf.getSInt();
+						recompose.append(fromBits.getBitToNumeralCircuit(
+								new SBool[] { bits[j] }, results[i * bitLength + j]));
+					}
+					int k = values.length * bitLength + i;
+					results[k] = bnf.getSInt();
+					recompose.append(fromBits.getBitToNumeralCircuit(bits, results[k]));
+				}
+				ioBuilder.reset();
+				outputs = ioBuilder.outputArray(results);
+				return new SequentialProtocolProducer(input, decompose, recompose,
+						ioBuilder.getCircuit());
+			}
+		};
+	}
+
+	private static void check(int[] values, int bitLength, OInt[] outputs) {
+		for (int i = 0; i < values.length; i++) {
+			for (int j = 0; j < bitLength; j++) {
+				BigInteger expected = BigInteger.valueOf((values[i] >> j) & 1);
+				Assert.assertEquals("bit " + j + " of " + values[i], expected,
+						outputs[i * bitLength + j].getValue());
+			}
+			Assert.assertEquals(BigInteger.valueOf(values[i]),
+					outputs[values.length * bitLength + i].getValue());
+		}
+	}
+
+	/**
+	 * Decomposes the extremes and a few values in between into 16 bits.
+	 */
+	public static class TestNumeralToBit extends TestThreadFactory {
+		@Override
+		public TestThread next(TestThreadConfiguration conf) {
+			return new ThreadWithFixture() {
+				@Override
+				public void test() throws Exception {
+					int bitLength = 16;
+					int[] values = new int[] { 0, 1, 2, 0x5a5a, 0x8000, 0xfffe, 0xffff };
+					TestApplication app = decompose(values, bitLength);
+					sce.runApplication(app);
+					check(values, bitLength, app.getOutputs());
+				}
+			};
+		}
+	}
+
+	/**
+	 * Decomposes into 1, 2 and 3 bits, where the prefix of the borrows has
+	 * no level, a single level and a level with a partial span.
+	 */
+	public static class TestNumeralToFewBits extends TestThreadFactory {
+		@Override
+		public TestThread next(TestThreadConfiguration conf) {
+			return new ThreadWithFixture() {
+				@Override
+				public void test() throws Exception {
+					for (int bitLength = 1; bitLength <= 3; bitLength++) {
+						int[] values = new int[1 << bitLength];
+						for (int i = 0; i < values.length; i++) {
+							values[i] = i;
+						}
+						TestApplication app = decompose(values, bitLength);
+						sce.runApplication(app);
+						check(values, bitLength, app.getOutputs());
+					}
+				}
+			};
+		}
+	}
+
+	/**
+	 * Recomposes known constant bits into an integer.
+	 */
+	public static class TestBitToNumeral extends TestThreadFactory {
+		@Override
+		public TestThread next(TestThreadConfiguration conf) {
+			return new ThreadWithFixture() {
+				@Override
+				public void test() throws Exception {
+					final boolean[] bits = new boolean[] { true, false, true, true, false, true };
+					TestApplication app = new TestApplication() {
+
+						private static final long serialVersionUID = 1429853404376201245L;
+
+						@Override
+						public ProtocolProducer prepareApplication(ProtocolFactory provider) {
+							BasicNumericFactory bnf = (BasicNumericFactory) provider;
+							SBool[] in = ((SBoolFactory) provider).getKnownConstantSBools(bits);
+							SInt result = bnf.getSInt();
+							ProtocolProducer compose = ((BitToNumeralCircuitFactory) provider)
+									.getBitToNumeralCircuit(in, result);
+							NumericIOBuilder ioBuilder = new NumericIOBuilder(bnf);
+							outputs = new OInt[] { ioBuilder.output(result) };
+							return new SequentialProtocolProducer(compose,
+									ioBuilder.getCircuit());
+						}
+					};
+					sce.runApplication(app);
+					Assert.assertEquals(BigInteger.valueOf(45), app.getOutputs()[0].getValue());
+				}
+			};
+		}
+	}
+}
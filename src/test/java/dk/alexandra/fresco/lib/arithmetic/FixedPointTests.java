@@ -0,0 +1,278 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.lib.arithmetic;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import org.junit.Assert;
+
+import dk.alexandra.fresco.framework.ProtocolFactory;
+import dk.alexandra.fresco.framework.ProtocolProducer;
+import dk.alexandra.fresco.framework.TestApplication;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThread;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThreadConfiguration;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThreadFactory;
+import dk.alexandra.fresco.framework.sce.SCE;
+import dk.alexandra.fresco.framework.sce.SCEFactory;
+import dk.alexandra.fresco.framework.value.OInt;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.lib.compare.ComparisonProtocolFactory;
+import dk.alexandra.fresco.lib.compare.ComparisonProtocolFactoryImpl;
+import dk.alexandra.fresco.lib.compare.RandomAdditiveMaskFactory;
+import dk.alexandra.fresco.lib.compare.RandomAdditiveMaskFactoryImpl;
+import dk.alexandra.fresco.lib.compare.RandomAdditiveMaskFromInputsFactoryImpl;
+import dk.alexandra.fresco.lib.field.integer.BasicNumericFactory;
+import dk.alexandra.fresco.lib.helper.ParallelProtocolProducer;
+import dk.alexandra.fresco.lib.helper.builder.NumericIOBuilder;
+import dk.alexandra.fresco.lib.helper.sequential.SequentialProtocolProducer;
+import dk.alexandra.fresco.lib.math.PreprocessedNumericBitFactory;
+import dk.alexandra.fresco.lib.math.exp.ExpFromOIntFactory;
+import dk.alexandra.fresco.lib.math.exp.PreprocessedExpPipeFactory;
+import dk.alexandra.fresco.lib.math.fixed.FixedPointFactory;
+import dk.alexandra.fresco.lib.math.fixed.FixedPointFactoryImpl;
+import dk.alexandra.fresco.lib.math.fixed.SFixed;
+import dk.alexandra.fresco.lib.math.inv.LocalInversionFactory;
+
+public class FixedPointTests {
+
+	private static final int PRECISION = 16;
+	private static final int BIT_LENGTH = 40;
+	private static final int SECURITY_PARAMETER = 40;
+
+	/**
+	 * Allows one unit in the last place for each truncation and the rounding
+	 * of public constants.
+	 */
+	private static final double DELTA = Math.pow(2, 2 - PRECISION);
+
+	private abstract static class ThreadWithFixture extends TestThread {
+
+		protected SCE sce;
+
+		@Override
+		public void setUp() throws IOException {
+			sce = SCEFactory.getSCEFromConfiguration(conf.sceConf,
+					conf.protocolSuiteConf);
+		}
+
+		/**
+		 * Uses preprocessed bits for masks and comparisons if the suite has
+		 * them, and masks from inputs of all parties otherwise.
+		 */
+		protected FixedPointFactory getFixedPointFactory(ProtocolFactory provider) {
+			BasicNumericFactory bnf = (BasicNumericFactory) provider;
+			LocalInversionFactory localInvFactory = (LocalInversionFactory) provider;
+			RandomAdditiveMaskFactory maskFactory;
+			ComparisonProtocolFactory comparisonFactory = null;
+			if (provider instanceof PreprocessedNumericBitFactory) {
+				PreprocessedNumericBitFactory bitFactory = (PreprocessedNumericBitFactory) provider;
+				maskFactory = new RandomAdditiveMaskFactoryImpl(bnf, bitFactory);
+				comparisonFactory = new ComparisonProtocolFactoryImpl(
+						SECURITY_PARAMETER, bnf, localInvFactory, bitFactory,
+						(ExpFromOIntFactory) provider,
+						(PreprocessedExpPipeFactory) provider);
+			} else {
+				maskFactory = new RandomAdditiveMaskFromInputsFactoryImpl(bnf,
+						conf.netConf.getMyId(), conf.netConf.noOfParties());
+			}
+			return new FixedPointFactoryImpl(PRECISION, BIT_LENGTH,
+					SECURITY_PARAMETER, bnf, localInvFactory, maskFactory,
+					comparisonFactory);
+		}
+	}
+
+	/**
+	 * An application keeping its fixed-point factory, so that the opened
+	 * numbers can be decoded afterwards.
+	 */
+	private abstract static class FixedPointApplication extends TestApplication {
+
+		private static final long serialVersionUID = 4979127000713961345L;
+
+		protected FixedPointFactory fpf;
+
+		public double[] getDecodedOutputs() {
+			double[] res = new double[outputs.length];
+			for (int i = 0; i < res.length; i++) {
+				res[i] = fpf.decode(outputs[i]).doubleValue();
+			}
+			return res;
+		}
+	}
+
+	/**
+	 * Inputs 3.25 from player 1 and -1.5 from player 2, and checks their sum,
+	 * difference and product, the product of 3.25 with a public constant and
+	 * the division of 3.25 by public constants.
+	 */
+	public static class TestFixedPointArithmetic extends TestThreadFactory {
+		@Override
+		public TestThread next(TestThreadConfiguration conf) {
+			return new ThreadWithFixture() {
+				@Override
+				public void test() throws Exception {
+					final double x = 3.25;
+					final double y = -1.5;
+					final double c = 0.375;
+					FixedPointApplication app = new FixedPointApplication() {
+
+						private static final long serialVersionUID = -7340632712318208467L;
+
+						@Override
+						public ProtocolProducer prepareApplication(
+								ProtocolFactory provider) {
+							fpf = getFixedPointFactory(provider);
+							SFixed sx = fpf.getSFixed();
+							SFixed sy = fpf.getSFixed();
+							ProtocolProducer input = new ParallelProtocolProducer(
+									fpf.getCloseProtocol(1, BigDecimal.valueOf(x), sx),
+									fpf.getCloseProtocol(2, BigDecimal.valueOf(y), sy));
+
+							SFixed[] values = new SFixed[6];
+							for (int i = 0; i < values.length; i++) {
+								values[i] = fpf.getSFixed();
+							}
+							ProtocolProducer compute = new ParallelProtocolProducer(
+									fpf.getAddProtocol(sx, sy, values[0]),
+									fpf.getSubtractProtocol(sx, sy, values[1]),
+									fpf.getMultProtocol(sx, sy, values[2]),
+									fpf.getMultProtocol(BigDecimal.valueOf(c), sx, values[3]),
+									fpf.getDivisionProtocol(sx, BigDecimal.valueOf(4), values[4]),
+									fpf.getDivisionProtocol(sx, BigDecimal.valueOf(-3), values[5]));
+
+							outputs = new OInt[values.length];
+							ParallelProtocolProducer output = new ParallelProtocolProducer();
+							for (int i = 0; i < values.length; i++) {
+								outputs[i] = ((BasicNumericFactory) provider).getOInt();
+								output.append(fpf.getOpenProtocol(values[i], outputs[i]));
+							}
+							return new SequentialProtocolProducer(input, compute,
+									output);
+						}
+					};
+					sce.runApplication(app);
+					double[] results = app.getDecodedOutputs();
+					Assert.assertEquals(x + y, results[0], 0.0);
+					Assert.assertEquals(x - y, results[1], 0.0);
+					Assert.assertEquals(x * y, results[2], DELTA);
+					Assert.assertEquals(x * c, results[3], DELTA);
+					Assert.assertEquals(x / 4, results[4], DELTA);
+					Assert.assertEquals(x / -3, results[5], DELTA);
+				}
+			};
+		}
+	}
+
+	/**
+	 * Multiplies a known value with itself repeatedly, truncating after every
+	 * multiplication, and checks that the errors of the truncations do not
+	 * add up beyond one unit in the last place per multiplication.
+	 */
+	public static class TestFixedPointRepeatedMult extends TestThreadFactory {
+		@Override
+		public TestThread next(TestThreadConfiguration conf) {
+			return new ThreadWithFixture() {
+				@Override
+				public void test() throws Exception {
+					final int rounds = 8;
+					final double base = -1.0625;
+					FixedPointApplication app = new FixedPointApplication() {
+
+						private static final long serialVersionUID = 2880405768412094582L;
+
+						@Override
+						public ProtocolProducer prepareApplication(
+								ProtocolFactory provider) {
+							fpf = getFixedPointFactory(provider);
+							SequentialProtocolProducer seq = new SequentialProtocolProducer();
+							SFixed b = fpf.getSFixed();
+							seq.append(fpf.getKnownSFixedProtocol(BigDecimal.valueOf(base), b));
+							SFixed power = b;
+							for (int i = 0; i < rounds; i++) {
+								SFixed next = fpf.getSFixed();
+								seq.append(fpf.getMultProtocol(power, b, next));
+								power = next;
+							}
+							outputs = new OInt[] { ((BasicNumericFactory) provider).getOInt() };
+							seq.append(fpf.getOpenProtocol(power, outputs[0]));
+							return seq;
+						}
+					};
+					sce.runApplication(app);
+					double[] results = app.getDecodedOutputs();
+					Assert.assertEquals(Math.pow(base, rounds + 1),
+							results[0], rounds * 2 * Math.pow(2, -PRECISION));
+				}
+			};
+		}
+	}
+
+	/**
+	 * Compares -1.5 and 3.25 both ways, and a number with itself.
+	 */
+	public static class TestFixedPointComparison extends TestThreadFactory {
+		@Override
+		public TestThread next(TestThreadConfiguration conf) {
+			return new ThreadWithFixture() {
+				@Override
+				public void test() throws Exception {
+					TestApplication app = new TestApplication() {
+
+						private static final long serialVersionUID = 6315620813398524736L;
+
+						@Override
+						public ProtocolProducer prepareApplication(
+								ProtocolFactory provider) {
+							BasicNumericFactory bnf = (BasicNumericFactory) provider;
+							FixedPointFactory fpf = getFixedPointFactory(provider);
+							SFixed sx = fpf.getSFixed();
+							SFixed sy = fpf.getSFixed();
+							ProtocolProducer input = new ParallelProtocolProducer(
+									fpf.getCloseProtocol(1, BigDecimal.valueOf(-1.5), sx),
+									fpf.getCloseProtocol(2, BigDecimal.valueOf(3.25), sy));
+							SInt[] comparisons = new SInt[] { bnf.getSInt(),
+									bnf.getSInt(), bnf.getSInt() };
+							ProtocolProducer compare = new ParallelProtocolProducer(
+									fpf.getComparisonProtocol(sx, sy, comparisons[0]),
+									fpf.getComparisonProtocol(sy, sx, comparisons[1]),
+									fpf.getComparisonProtocol(sx, sx, comparisons[2]));
+							NumericIOBuilder ioBuilder = new NumericIOBuilder(bnf);
+							outputs = ioBuilder.outputArray(comparisons);
+							return new SequentialProtocolProducer(input, compare,
+									ioBuilder.getCircuit());
+						}
+					};
+					sce.runApplication(app);
+					Assert.assertEquals(1, app.getOutputs()[0].getValue().intValue());
+					Assert.assertEquals(0, app.getOutputs()[1].getValue().intValue());
+					Assert.assertEquals(1, app.getOutputs()[2].getValue().intValue());
+				}
+			};
+		}
+	}
+}
@@ -60,6 +60,11 @@ import dk.alexandra.fresco.suite.bgw.configuration.BgwConfiguration;
 public class TestBgwBasicArithmetic {
 
 	private void runTest(TestThreadFactory f, int noPlayers, final int threshold, EvaluationStrategy evalStrategy) throws Exception {
+		runTest(f, noPlayers, threshold, evalStrategy, false);
+	}
+
+	private void runTest(TestThreadFactory f, int noPlayers, final int threshold, EvaluationStrategy evalStrategy,
+			final boolean useDoubleSharings) throws Exception {
 		Level logLevel = Level.FINE;
 		Reporter.init(logLevel);
 		
@@ -85,6 +90,11 @@ public class TestBgwBasicArithmetic {
 				public BigInteger getModulus() {
 					return new BigInteger("618970019642690137449562111");
 				}
+
+				@Override
+				public boolean useDoubleSharings() {
+					return useDoubleSharings;
+				}
 			};
 			NetworkConfiguration net = netConf.get(playerId);
 			boolean useSecureConnection = false; // No tests of secure connection here.
@@ -105,6 +115,30 @@ public class TestBgwBasicArithmetic {
 				EvaluationStrategy.SEQUENTIAL);
 	}
 
+	@Test
+	public void test_Linear_Combination_3_1_Sequential() throws Exception {
+		runTest(new BasicArithmeticTests.TestLinearCombination(), 3, 1,
+				EvaluationStrategy.SEQUENTIAL);
+	}
+
+	@Test
+	public void test_Mult_Vector_3_1_Sequential() throws Exception {
+		runTest(new BasicArithmeticTests.TestMultVector(), 3, 1,
+				EvaluationStrategy.SEQUENTIAL);
+	}
+
+	@Test
+	public void test_Square_3_1_Sequential() throws Exception {
+		runTest(new BasicArithmeticTests.TestSquare(), 3, 1,
+				EvaluationStrategy.SEQUENTIAL);
+	}
+
+	@Test
+	public void test_Matrix_Mult_3_1_Sequential() throws Exception {
+		runTest(new BasicArithmeticTests.TestMatrixMult(), 3, 1,
+				EvaluationStrategy.SEQUENTIAL);
+	}
+
 	@Test
 	public void test_Input_Sequential_3_1() throws Exception {
 		runTest(new BasicArithmeticTests.TestInput(), 3, 1, EvaluationStrategy.SEQUENTIAL);
@@ -130,6 +164,11 @@ public class TestBgwBasicArithmetic {
 		runTest(new BasicArithmeticTests.TestKnownSInt(), 3, 1, EvaluationStrategy.SEQUENTIAL);
 	}
 	
+	@Test
+	public void test_Known_Constants_Sequential() throws Exception {
+		runTest(new BasicArithmeticTests.TestKnownConstants(), 3, 1, EvaluationStrategy.SEQUENTIAL);
+	}
+	
 	@Test
 	public void test_Lots_Of_Inputs_Sequential_5_2() throws Exception {
 		runTest(new BasicArithmeticTests.TestLotsOfInputs(), 5, 2, EvaluationStrategy.SEQUENTIAL);
@@ -224,4 +263,36 @@ public class TestBgwBasicArithmetic {
 	public void test_moderate_arithmetic_Sequential_3_1() throws Exception {
 		runTest(new BasicArithmeticTests.TestSumAndMult(), 3, 1, EvaluationStrategy.SEQUENTIAL);
 	}
+
+	// ======= Multiplication with double sharings =======
+
+	@Test
+	public void test_Mult_Vector_3_1_Sequential_DoubleSharings() throws Exception {
+		runTest(new BasicArithmeticTests.TestMultVector(), 3, 1,
+				EvaluationStrategy.SEQUENTIAL, true);
+	}
+
+	@Test
+	public void test_Matrix_Mult_5_2_Sequential_DoubleSharings() throws Exception {
+		runTest(new BasicArithmeticTests.TestMatrixMult(), 5, 2,
+				EvaluationStrategy.SEQUENTIAL, true);
+	}
+
+	@Test
+	public void test_MultAndAdd_Sequential_7_3_DoubleSharings() throws Exception {
+		runTest(new BasicArithmeticTests.TestSumAndMult(), 7, 3,
+				EvaluationStrategy.SEQUENTIAL, true);
+	}
+
+	@Test
+	public void test_MultAndAdd_SequentialBatched_5_2_DoubleSharings() throws Exception {
+		runTest(new BasicArithmeticTests.TestSumAndMult(), 5, 2,
+				EvaluationStrategy.SEQUENTIAL_BATCHED, true);
+	}
+
+	@Test
+	public void test_MultAndAdd_ParallelBatched_5_2_DoubleSharings() throws Exception {
+		runTest(new BasicArithmeticTests.TestSumAndMult(), 5, 2,
+				EvaluationStrategy.PARALLEL_BATCHED, true);
+	}
 }
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.bgw;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestShamirSharing {
+
+	private static final BigInteger[] MODULI = new BigInteger[] {
+		new BigInteger("2147483647"), // 2^31-1, shared using longs
+		new BigInteger("618970019642690137449562111") // 2^89-1
+	};
+
+	private static ShamirSharing start(BigInteger modulus) {
+		return new ShamirSharing(modulus);
+	}
+
+	@Test
+	public void testLongPathOnlyForSmallPrimes() {
+		Assert.assertTrue(start(MODULI[0]).isLong());
+		Assert.assertFalse(start(MODULI[1]).isLong());
+	}
+
+	@Test
+	public void testRecombineFromThresholdPlusOne() {
+		Random rand = new Random(1);
+		for (BigInteger p : MODULI) {
+			ShamirSharing sharing = start(p);
+			for (int t = 0; t <= 3; t++) {
+				int n = 2 * t + 1;
+				BigInteger secret = new BigInteger(p.bitLength(), rand).mod(p);
+				List<ShamirShare> shares = Arrays.asList(sharing.createShares(secret, n, t));
+				Assert.assertEquals(secret, sharing.recombine(shares, t + 1));
+				Assert.assertEquals(secret, sharing.recombine(shares, n));
+			}
+		}
+	}
+
+	@Test
+	public void testRecombineProductFromTwoThresholdPlusOne() {
+		Random rand = new Random(2);
+		for (BigInteger p : MODULI) {
+			ShamirSharing sharing = start(p);
+			int t = 2;
+			int n = 7;
+			BigInteger x = new BigInteger(p.bitLength(), rand).mod(p);
+			BigInteger y = new BigInteger(p.bitLength(), rand).mod(p);
+			ShamirShare[] xs = sharing.createShares(x, n, t);
+			ShamirShare[] ys = sharing.createShares(y, n, t);
+			List<ShamirShare> products = new ArrayList<ShamirShare>();
+			for (int i = 0; i < n; i++) {
+				products.add(xs[i].mult(ys[i], p));
+			}
+			Assert.assertEquals(x.multiply(y).mod(p), sharing.recombine(products, 2 * t + 1));
+		}
+	}
+
+	@Test
+	public void testRecombineFromSubset() {
+		for (BigInteger p : MODULI) {
+			ShamirSharing sharing = start(p);
+			BigInteger secret = BigInteger.valueOf(123456789);
+			ShamirShare[] shares = sharing.createShares(secret, 5, 2);
+			int[] points = new int[] { 2, 4, 5 };
+			ShamirShare[] subset = new ShamirShare[] { shares[1], shares[3], shares[4] };
+			Assert.assertEquals(secret, sharing.recombine(subset, points));
+			// the coefficients follow the order of the points
+			int[] reversed = new int[] { 5, 4, 2 };
+			ShamirShare[] reversedSubset = new ShamirShare[] { shares[4], shares[3], shares[1] };
+			Assert.assertEquals(secret, sharing.recombine(reversedSubset, reversed));
+		}
+	}
+
+	@Test
+	public void testCoefficientsCachedPerSet() {
+		ShamirSharing sharing = start(MODULI[1]);
+		Assert.assertSame(sharing.getCoefficients(3), sharing.getCoefficients(3));
+		Assert.assertNotSame(sharing.getCoefficients(3), sharing.getCoefficients(5));
+		Assert.assertSame(sharing.getCoefficients(new int[] { 1, 3 }),
+				sharing.getCoefficients(new int[] { 1, 3 }));
+		Assert.assertArrayEquals(sharing.getCoefficients(3),
+				sharing.getCoefficients(new int[] { 1, 2, 3 }));
+		// the points 1, 3 and 1, 2 have different coefficients
+		Assert.assertFalse(Arrays.equals(sharing.getCoefficients(new int[] { 1, 3 }),
+				sharing.getCoefficients(2)));
+	}
+
+	@Test
+	public void testConcurrentSharing() throws Exception {
+		final ShamirSharing sharing = start(MODULI[0]);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+		for (int thread = 0; thread < 4; thread++) {
+			final int t = thread % 3 + 1;
+			results.add(executor.submit(() -> {
+				for (int i = 0; i < 200; i++) {
+					BigInteger secret = BigInteger.valueOf(i);
+					List<ShamirShare> shares = Arrays.asList(sharing.createShares(secret,
+							2 * t + 1, t));
+					if (!secret.equals(sharing.recombine(shares, t + 1))) {
+						return false;
+					}
+				}
+				return true;
+			}));
+		}
+		executor.shutdown();
+		Assert.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+		for (Future<Boolean> result : results) {
+			Assert.assertTrue(result.get());
+		}
+	}
+}
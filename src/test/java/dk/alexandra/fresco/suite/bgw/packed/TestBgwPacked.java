@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.bgw.packed;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import dk.alexandra.fresco.framework.ProtocolEvaluator;
+import dk.alexandra.fresco.framework.ProtocolFactory;
+import dk.alexandra.fresco.framework.ProtocolProducer;
+import dk.alexandra.fresco.framework.Reporter;
+import dk.alexandra.fresco.framework.TestApplication;
+import dk.alexandra.fresco.framework.TestThreadRunner;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThread;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThreadConfiguration;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThreadFactory;
+import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
+import dk.alexandra.fresco.framework.configuration.TestConfiguration;
+import dk.alexandra.fresco.framework.sce.SCE;
+import dk.alexandra.fresco.framework.sce.SCEFactory;
+import dk.alexandra.fresco.framework.sce.configuration.TestSCEConfiguration;
+import dk.alexandra.fresco.framework.sce.evaluator.EvaluationStrategy;
+import dk.alexandra.fresco.framework.sce.resources.storage.InMemoryStorage;
+import dk.alexandra.fresco.framework.value.OInt;
+import dk.alexandra.fresco.lib.helper.ParallelProtocolProducer;
+import dk.alexandra.fresco.lib.helper.sequential.SequentialProtocolProducer;
+import dk.alexandra.fresco.suite.bgw.BgwFactory;
+import dk.alexandra.fresco.suite.bgw.BgwProtocolSuite;
+import dk.alexandra.fresco.suite.bgw.configuration.BgwConfiguration;
+
+/**
+ * Tests of the packed variant of BGW, computing xy + x and xy^2 on vectors
+ * input by two parties.
+ */
+public class TestBgwPacked {
+
+	private static class TestPackedArithmetic extends TestThreadFactory {
+
+		private final int packing;
+		private final int length;
+
+		TestPackedArithmetic(int packing, int length) {
+			this.packing = packing;
+			this.length = length;
+		}
+
+		@Override
+		public TestThread next(TestThreadConfiguration conf) {
+			return new TestThread() {
+
+				private SCE sce;
+
+				@Override
+				public void setUp() throws IOException {
+					sce = SCEFactory.getSCEFromConfiguration(conf.sceConf, conf.protocolSuiteConf);
+				}
+
+				@Override
+				public void tearDown() {
+					if (sce != null) {
+						sce.shutdownSCE();
+					}
+				}
+
+				@Override
+				public void test() throws Exception {
+					final BigInteger[] x = new BigInteger[length];
+					final BigInteger[] y = new BigInteger[length];
+					for (int i = 0; i < length; i++) {
+						x[i] = BigInteger.valueOf(i);
+						y[i] = BigInteger.valueOf(3 * i + 1);
+					}
+					TestApplication app = new TestApplication() {
+
+						private static final long serialVersionUID = 2734093411209472611L;
+
+						@Override
+						public ProtocolProducer prepareApplication(ProtocolFactory provider) {
+							BgwPackedFactory factory = new BgwPackedFactory((BgwFactory) provider, packing);
+							OInt[] xOpen = factory.getOIntVector(length);
+							OInt[] yOpen = factory.getOIntVector(length);
+							for (int i = 0; i < length; i++) {
+								xOpen[i].setValue(x[i]);
+								yOpen[i].setValue(y[i]);
+							}
+							BgwSIntVector xs = factory.getSIntVector(length);
+							BgwSIntVector ys = factory.getSIntVector(length);
+							BgwSIntVector xy = factory.getSIntVector(length);
+							BgwSIntVector xyx = factory.getSIntVector(length);
+							BgwSIntVector xyy = factory.getSIntVector(length);
+							OInt[] sums = factory.getOIntVector(length);
+							OInt[] products = factory.getOIntVector(length);
+							this.outputs = new OInt[2 * length];
+							System.arraycopy(sums, 0, outputs, 0, length);
+							System.arraycopy(products, 0, outputs, length, length);
+							return new SequentialProtocolProducer(
+									new ParallelProtocolProducer(
+											factory.getCloseCircuit(1, xOpen, xs),
+											factory.getCloseCircuit(2, yOpen, ys)),
+									factory.getMultCircuit(xs, ys, xy),
+									new ParallelProtocolProducer(
+											factory.getAddCircuit(xy, xs, xyx),
+											factory.getMultCircuit(xy, ys, xyy)),
+									new ParallelProtocolProducer(
+											factory.getOpenCircuit(xyx, sums),
+											factory.getOpenCircuit(xyy, products)));
+						}
+					};
+					sce.runApplication(app);
+					OInt[] outputs = app.getOutputs();
+					for (int i = 0; i < length; i++) {
+						Assert.assertEquals(x[i].multiply(y[i]).add(x[i]), outputs[i].getValue());
+						Assert.assertEquals(x[i].multiply(y[i]).multiply(y[i]),
+								outputs[length + i].getValue());
+					}
+				}
+			};
+		}
+	}
+
+	private void runTest(TestThreadFactory f, int noPlayers, final int threshold,
+			EvaluationStrategy evalStrategy) throws Exception {
+		Level logLevel = Level.FINE;
+		Reporter.init(logLevel);
+		List<Integer> ports = new ArrayList<Integer>(noPlayers);
+		for (int i = 1; i <= noPlayers; i++) {
+			ports.add(9000 + i);
+		}
+		Map<Integer, NetworkConfiguration> netConf = TestConfiguration.getNetworkConfigurations(noPlayers, ports, logLevel);
+		Map<Integer, TestThreadConfiguration> conf = new HashMap<Integer, TestThreadConfiguration>();
+		for (int playerId : netConf.keySet()) {
+			TestThreadConfiguration ttc = new TestThreadConfiguration();
+			ttc.netConf = netConf.get(playerId);
+			ttc.protocolSuiteConf = new BgwConfiguration() {
+				@Override
+				public int getThreshold() {
+					return threshold;
+				}
+
+				@Override
+				public BigInteger getModulus() {
+					return new BigInteger("618970019642690137449562111");
+				}
+			};
+			ProtocolEvaluator evaluator = EvaluationStrategy.fromEnum(evalStrategy);
+			ttc.sceConf = new TestSCEConfiguration(new BgwProtocolSuite(), evaluator, 1, 3,
+					ttc.netConf, new InMemoryStorage(), false);
+			conf.put(playerId, ttc);
+		}
+		TestThreadRunner.run(f, conf);
+	}
+
+	@Test
+	public void test_Packed_3_1_1_Sequential() throws Exception {
+		runTest(new TestPackedArithmetic(1, 20), 3, 1, EvaluationStrategy.SEQUENTIAL);
+	}
+
+	@Test
+	public void test_Packed_5_1_2_Sequential() throws Exception {
+		runTest(new TestPackedArithmetic(2, 101), 5, 1, EvaluationStrategy.SEQUENTIAL);
+	}
+
+	@Test
+	public void test_Packed_7_2_2_SequentialBatched() throws Exception {
+		runTest(new TestPackedArithmetic(2, 101), 7, 2, EvaluationStrategy.SEQUENTIAL_BATCHED);
+	}
+
+	@Test
+	public void test_Packed_9_1_4_Sequential() throws Exception {
+		runTest(new TestPackedArithmetic(4, 1001), 9, 1, EvaluationStrategy.SEQUENTIAL);
+	}
+}
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.bgw.packed;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.suite.bgw.ShamirSharing;
+
+public class TestPackedShamirSharing {
+
+	private static final BigInteger MODULUS = new BigInteger("618970019642690137449562111");
+
+	private static BigInteger[] randomValues(int count, Random rand) {
+		BigInteger[] values = new BigInteger[count];
+		for (int i = 0; i < count; i++) {
+			values[i] = new BigInteger(MODULUS.bitLength(), rand).mod(MODULUS);
+		}
+		return values;
+	}
+
+	@Test
+	public void testMaxPacking() {
+		Assert.assertEquals(1, PackedShamirSharing.getMaxPacking(3, 1));
+		Assert.assertEquals(2, PackedShamirSharing.getMaxPacking(5, 1));
+		Assert.assertEquals(4, PackedShamirSharing.getMaxPacking(9, 1));
+		Assert.assertEquals(2, PackedShamirSharing.getMaxPacking(7, 2));
+	}
+
+	@Test(expected = MPCException.class)
+	public void testTooMuchPacking() {
+		new PackedShamirSharing(new ShamirSharing(MODULUS), 5, 1, 3);
+	}
+
+	@Test
+	public void testShareAndOpen() {
+		Random rand = new Random(1);
+		ShamirSharing base = new ShamirSharing(MODULUS);
+		int[][] parameters = { { 3, 1, 1 }, { 5, 1, 2 }, { 9, 1, 4 }, { 7, 2, 2 } };
+		for (int[] nt : parameters) {
+			PackedShamirSharing sharing = new PackedShamirSharing(base, nt[0], nt[1], nt[2]);
+			BigInteger[] secrets = randomValues(nt[2], rand);
+			Assert.assertArrayEquals(secrets, sharing.open(sharing.share(secrets)));
+		}
+	}
+
+	@Test
+	public void testPadding() {
+		PackedShamirSharing sharing = new PackedShamirSharing(new ShamirSharing(MODULUS), 9, 1, 4);
+		BigInteger[] secrets = { BigInteger.ONE, BigInteger.TEN };
+		BigInteger[] opened = sharing.open(sharing.share(secrets));
+		Assert.assertArrayEquals(
+				new BigInteger[] { BigInteger.ONE, BigInteger.TEN, BigInteger.ZERO, BigInteger.ZERO },
+				opened);
+	}
+
+	@Test
+	public void testMultiplyAndReduce() {
+		Random rand = new Random(2);
+		int n = 9;
+		int k = 3;
+		PackedShamirSharing sharing = new PackedShamirSharing(new ShamirSharing(MODULUS), n, 1, k);
+		BigInteger[] x = randomValues(k, rand);
+		BigInteger[] y = randomValues(k, rand);
+		BigInteger[] xShares = sharing.share(x);
+		BigInteger[] yShares = sharing.share(y);
+		BigInteger[] reduced = new BigInteger[n];
+		Arrays.fill(reduced, BigInteger.ZERO);
+		for (int dealer = 1; dealer <= 2 * sharing.getDegree() + 1; dealer++) {
+			BigInteger product = xShares[dealer - 1].multiply(yShares[dealer - 1]);
+			BigInteger[] secrets = new BigInteger[k];
+			for (int s = 0; s < k; s++) {
+				secrets[s] = sharing.getReductionCoefficient(s, dealer).multiply(product);
+			}
+			BigInteger[] dealt = sharing.share(secrets);
+			for (int i = 0; i < n; i++) {
+				reduced[i] = reduced[i].add(dealt[i]).mod(MODULUS);
+			}
+		}
+		BigInteger[] opened = sharing.open(reduced);
+		for (int s = 0; s < k; s++) {
+			Assert.assertEquals(x[s].multiply(y[s]).mod(MODULUS), opened[s]);
+		}
+	}
+}
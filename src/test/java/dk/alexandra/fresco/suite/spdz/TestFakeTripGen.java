@@ -32,7 +32,9 @@ import java.util.List;
 import org.junit.Assert;
 import org.junit.Test;
 
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzMatrixTriple;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
 import dk.alexandra.fresco.suite.spdz.storage.FakeTripGen;
 
@@ -62,6 +64,65 @@ public class TestFakeTripGen {
 		}
 	}
 	
+	@Test
+	public void testMatrixTripleGen() {
+		int amount = 20;
+		int noOfParties = 3;
+		BigInteger modulus = new BigInteger("6703903964971298549787012499123814115273848577471136527425966013026501536706464354255445443244279389455058889493431223951165286470575994074291745908195329");
+		BigInteger alpha = new BigInteger("5081587041441179438932635098620319894716368628029284292880408086703438041331200877980213770035569812296677935118715454650749402237663859711459266577679205");
+		List<SpdzMatrixTriple[]> triples = FakeTripGen.generateMatrixTriples(amount, noOfParties, modulus, alpha, 2, 3, 4);
+		Assert.assertEquals(amount, triples.size());
+		for(SpdzMatrixTriple[] t : triples) {
+			Assert.assertEquals("2x3x4", t[0].getShape());
+			BigInteger[][] a = open(t, 0, modulus, alpha);
+			BigInteger[][] b = open(t, 1, modulus, alpha);
+			BigInteger[][] c = open(t, 2, modulus, alpha);
+			for (int i = 0; i < 2; i++) {
+				for (int j = 0; j < 4; j++) {
+					BigInteger expected = BigInteger.ZERO;
+					for (int k = 0; k < 3; k++) {
+						expected = expected.add(a[i][k].multiply(b[k][j]));
+					}
+					Assert.assertEquals(expected.mod(modulus), c[i][j]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Opens matrix A, B or C (0, 1 or 2) of a matrix triple and checks the
+	 * MACs.
+	 */
+	private static BigInteger[][] open(SpdzMatrixTriple[] shares, int matrix,
+			BigInteger modulus, BigInteger alpha) {
+		SpdzElement[][] first = getMatrix(shares[0], matrix);
+		BigInteger[][] res = new BigInteger[first.length][first[0].length];
+		for (int i = 0; i < res.length; i++) {
+			for (int j = 0; j < res[i].length; j++) {
+				BigInteger value = BigInteger.ZERO;
+				BigInteger mac = BigInteger.ZERO;
+				for (SpdzMatrixTriple share : shares) {
+					value = value.add(getMatrix(share, matrix)[i][j].getShare());
+					mac = mac.add(getMatrix(share, matrix)[i][j].getMac());
+				}
+				res[i][j] = value.mod(modulus);
+				Assert.assertEquals(res[i][j].multiply(alpha).mod(modulus), mac.mod(modulus));
+			}
+		}
+		return res;
+	}
+
+	private static SpdzElement[][] getMatrix(SpdzMatrixTriple triple, int matrix) {
+		switch (matrix) {
+		case 0:
+			return triple.getA();
+		case 1:
+			return triple.getB();
+		default:
+			return triple.getC();
+		}
+	}
+
 	@Test
 	public void testInputMasks() {
 		int amount = 100000;
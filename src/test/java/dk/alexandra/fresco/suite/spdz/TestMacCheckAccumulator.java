@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
+import dk.alexandra.fresco.suite.spdz.storage.MacCheckAccumulator;
+import dk.alexandra.fresco.suite.spdz.utils.SpdzField;
+
+/**
+ * Checks the running sums of the MAC check from the point of view of a
+ * single party holding all shares, such that the MAC of a value x is
+ * alpha*x.
+ */
+public class TestMacCheckAccumulator {
+
+	private static final BigInteger[] MODULI = new BigInteger[] {
+		BigInteger.ONE.shiftLeft(61).subtract(BigInteger.ONE),
+		BigInteger.probablePrime(128, new Random(1))
+	};
+
+	private static final int AMOUNT = 2 * MacCheckAccumulator.BATCH_SIZE + 17;
+
+	@Test
+	public void testCorrectMacsPass() {
+		for (BigInteger p : MODULI) {
+			Random rand = new Random(42);
+			BigInteger alpha = new BigInteger(p.bitLength(), rand).mod(p);
+			MacCheckAccumulator accumulator = start(p, new byte[16]);
+			for (int i = 0; i < AMOUNT; i++) {
+				add(accumulator, new BigInteger(p.bitLength(), rand).mod(p), alpha, BigInteger.ZERO, p);
+			}
+			accumulator.flush();
+			Assert.assertEquals(AMOUNT, accumulator.getCount());
+			Assert.assertEquals(BigInteger.ZERO, delta(accumulator, alpha, p));
+		}
+	}
+
+	@Test
+	public void testWrongMacIsCaught() {
+		for (BigInteger p : MODULI) {
+			Random rand = new Random(42);
+			BigInteger alpha = new BigInteger(p.bitLength(), rand).mod(p);
+			for (int wrong : new int[] {0, MacCheckAccumulator.BATCH_SIZE + 3, AMOUNT - 1}) {
+				MacCheckAccumulator accumulator = start(p, new byte[16]);
+				for (int i = 0; i < AMOUNT; i++) {
+					BigInteger error = i == wrong ? BigInteger.ONE : BigInteger.ZERO;
+					add(accumulator, BigInteger.valueOf(i), alpha, error, p);
+				}
+				accumulator.flush();
+				Assert.assertNotEquals(BigInteger.ZERO, delta(accumulator, alpha, p));
+			}
+		}
+	}
+
+	@Test
+	public void testCoefficientsDependOnSeed() {
+		BigInteger p = MODULI[1];
+		byte[] seed = new byte[16];
+		MacCheckAccumulator first = start(p, seed);
+		MacCheckAccumulator second = start(p, seed);
+		seed[0] = 1;
+		MacCheckAccumulator third = start(p, seed);
+		for (int i = 0; i < AMOUNT; i++) {
+			for (MacCheckAccumulator accumulator : new MacCheckAccumulator[] {first, second, third}) {
+				add(accumulator, BigInteger.valueOf(i), BigInteger.ONE, BigInteger.ZERO, p);
+			}
+		}
+		first.flush();
+		second.flush();
+		third.flush();
+		Assert.assertEquals(first.getOpenedSum(), second.getOpenedSum());
+		Assert.assertNotEquals(first.getOpenedSum(), third.getOpenedSum());
+
+		first.reset();
+		Assert.assertEquals(0, first.getCount());
+		Assert.assertEquals(BigInteger.ZERO, first.getOpenedSum());
+	}
+
+	/**
+	 * Two computations over different fields may run in the same JVM, so
+	 * interleaving them must not mix up their fields.
+	 */
+	@Test
+	public void testInterleavedModuli() {
+		Random rand = new Random(7);
+		MacCheckAccumulator[] accumulators = new MacCheckAccumulator[MODULI.length];
+		BigInteger[] alphas = new BigInteger[MODULI.length];
+		for (int j = 0; j < MODULI.length; j++) {
+			accumulators[j] = start(MODULI[j], new byte[16]);
+			alphas[j] = new BigInteger(MODULI[j].bitLength(), rand).mod(MODULI[j]);
+		}
+		for (int i = 0; i < AMOUNT; i++) {
+			for (int j = 0; j < MODULI.length; j++) {
+				BigInteger p = MODULI[j];
+				add(accumulators[j], new BigInteger(p.bitLength(), rand).mod(p), alphas[j], BigInteger.ZERO, p);
+			}
+		}
+		for (int j = 0; j < MODULI.length; j++) {
+			accumulators[j].flush();
+			Assert.assertEquals(BigInteger.ZERO, delta(accumulators[j], alphas[j], MODULI[j]));
+		}
+	}
+
+	@Test(expected = MPCException.class)
+	public void testMissingClosedValue() {
+		MacCheckAccumulator accumulator = start(MODULI[0], new byte[16]);
+		accumulator.addOpenedValue(BigInteger.ONE);
+		accumulator.flush();
+	}
+
+	private static MacCheckAccumulator start(BigInteger p, byte[] seed) {
+		MacCheckAccumulator accumulator = new MacCheckAccumulator();
+		accumulator.reset(new SpdzField(p), seed);
+		return accumulator;
+	}
+
+	private static void add(MacCheckAccumulator accumulator, BigInteger x, BigInteger alpha, BigInteger error,
+			BigInteger p) {
+		accumulator.addOpenedValue(x);
+		accumulator.addClosedValue(new SpdzElement(x, alpha.multiply(x).add(error).mod(p)));
+	}
+
+	private static BigInteger delta(MacCheckAccumulator accumulator, BigInteger alpha, BigInteger p) {
+		return accumulator.getMacSum().subtract(alpha.multiply(accumulator.getOpenedSum())).mod(p);
+	}
+}
@@ -0,0 +1,294 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.Reporter;
+import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
+import dk.alexandra.fresco.framework.configuration.TestConfiguration;
+import dk.alexandra.fresco.framework.network.ScapiNetworkImpl;
+import dk.alexandra.fresco.framework.sce.resources.storage.InMemoryStorage;
+import dk.alexandra.fresco.framework.sce.resources.storage.InMemoryStreamedStorage;
+import dk.alexandra.fresco.framework.sce.resources.storage.StreamedStorage;
+import dk.alexandra.fresco.framework.sce.resources.threads.ThreadPoolImpl;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSquare;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+import dk.alexandra.fresco.suite.spdz.mascot.BaseOT;
+import dk.alexandra.fresco.suite.spdz.mascot.MascotPreprocessing;
+import dk.alexandra.fresco.suite.spdz.mascot.OTExtensionReceiver;
+import dk.alexandra.fresco.suite.spdz.mascot.OTExtensionSender;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzStorageConstants;
+
+/**
+ * Runs the MASCOT preprocessing with all parties as threads on localhost, and
+ * checks that the generated data is correlated and correctly MAC'ed.
+ */
+public class TestMascotPreprocessing {
+
+	private static final int timeoutMillis = 10000;
+	private static final BigInteger modulus = new BigInteger(
+			"6703903964971298549787012499123814115273848577471136527425966013026501536706464354255445443244279389455058889493431223951165286470575994074291745908195329");
+
+	/**
+	 * Runs the preprocessing for all parties and returns their storages.
+	 * 
+	 * @return the time the slowest party spent generating, in ms.
+	 */
+	private static long runParties(final int noOfParties, final int noOfThreads,
+			final int triples, final int bits, final int masks, final int squares,
+			final StreamedStorage[] storages, final BigInteger[] alphaShares) throws Exception {
+		Reporter.init(Level.INFO);
+		List<Integer> ports = new ArrayList<Integer>();
+		for (int i = 1; i <= noOfParties; i++) {
+			ports.add(9200 + i);
+		}
+		final Map<Integer, NetworkConfiguration> netConfs = TestConfiguration
+				.getNetworkConfigurations(noOfParties, ports, Level.INFO);
+		final List<Throwable> errors = new ArrayList<Throwable>();
+		final long[] times = new long[noOfParties];
+		Thread[] parties = new Thread[noOfParties];
+		for (int p = 1; p <= noOfParties; p++) {
+			final int myId = p;
+			parties[p - 1] = new Thread() {
+				@Override
+				public void run() {
+					ScapiNetworkImpl network = new ScapiNetworkImpl(netConfs.get(myId), noOfThreads);
+					ThreadPoolImpl threadPool = new ThreadPoolImpl(1, noOfThreads);
+					try {
+						network.connect(timeoutMillis);
+						MascotPreprocessing mascot = new MascotPreprocessing(myId, noOfParties,
+								noOfThreads, network, threadPool, modulus);
+						// Setup is not part of the benchmark.
+						mascot.generate(storages[myId - 1], 0, 0, 0);
+						long then = System.currentTimeMillis();
+						mascot.generate(storages[myId - 1], triples, bits, masks, squares);
+						times[myId - 1] = System.currentTimeMillis() - then;
+						alphaShares[myId - 1] = mascot.getAlphaShare();
+						network.close();
+					} catch (IOException | RuntimeException e) {
+						synchronized (errors) {
+							errors.add(e);
+						}
+					} finally {
+						threadPool.shutdown();
+					}
+				}
+			};
+			parties[p - 1].start();
+		}
+		for (Thread t : parties) {
+			t.join();
+		}
+		Assert.assertTrue(errors.toString(), errors.isEmpty());
+		long max = 0;
+		for (long t : times) {
+			max = Math.max(max, t);
+		}
+		return max;
+	}
+
+	private static StreamedStorage[] newStorages(int noOfParties) {
+		StreamedStorage[] storages = new StreamedStorage[noOfParties];
+		for (int i = 0; i < noOfParties; i++) {
+			storages[i] = new InMemoryStreamedStorage(new InMemoryStorage());
+		}
+		return storages;
+	}
+
+	@Test
+	public void testGeneratedDataIsCorrelated() throws Exception {
+		int noOfParties = 3;
+		int noOfThreads = 2;
+		int amount = 5;
+		StreamedStorage[] storages = newStorages(noOfParties);
+		BigInteger[] alphaShares = new BigInteger[noOfParties];
+		runParties(noOfParties, noOfThreads, amount, amount, amount, amount, storages, alphaShares);
+
+		BigInteger alpha = BigInteger.ZERO;
+		for (BigInteger share : alphaShares) {
+			alpha = alpha.add(share);
+		}
+		alpha = alpha.mod(modulus);
+		for (int threadId = 1; threadId <= noOfThreads; threadId++) {
+			for (int i = 1; i <= noOfParties; i++) {
+				String name = getStorageName(i, threadId);
+				Assert.assertEquals(modulus, storages[i - 1].getNext(name + SpdzStorageConstants.MODULUS_KEY));
+				Assert.assertEquals(alphaShares[i - 1], storages[i - 1].getNext(name + SpdzStorageConstants.SSK_KEY));
+			}
+			for (int k = 0; k < amount; k++) {
+				SpdzElement[] a = new SpdzElement[noOfParties];
+				SpdzElement[] b = new SpdzElement[noOfParties];
+				SpdzElement[] c = new SpdzElement[noOfParties];
+				SpdzElement[] bit = new SpdzElement[noOfParties];
+				SpdzElement[] x = new SpdzElement[noOfParties];
+				SpdzElement[] xSquared = new SpdzElement[noOfParties];
+				for (int i = 1; i <= noOfParties; i++) {
+					String name = getStorageName(i, threadId);
+					SpdzTriple t = storages[i - 1].getNext(name + SpdzStorageConstants.TRIPLE_STORAGE);
+					a[i - 1] = t.getA();
+					b[i - 1] = t.getB();
+					c[i - 1] = t.getC();
+					SpdzSInt s = storages[i - 1].getNext(name + SpdzStorageConstants.BIT_STORAGE);
+					bit[i - 1] = s.value;
+					SpdzSquare square = storages[i - 1].getNext(name + SpdzStorageConstants.SQUARE_STORAGE);
+					x[i - 1] = square.getA();
+					xSquared[i - 1] = square.getB();
+				}
+				Assert.assertEquals(open(a, alpha).multiply(open(b, alpha)).mod(modulus), open(c, alpha));
+				BigInteger bitValue = open(bit, alpha);
+				Assert.assertTrue(bitValue.equals(BigInteger.ZERO) || bitValue.equals(BigInteger.ONE));
+				BigInteger xValue = open(x, alpha);
+				Assert.assertEquals(xValue.multiply(xValue).mod(modulus), open(xSquared, alpha));
+			}
+			for (int toward = 1; toward <= noOfParties; toward++) {
+				for (int k = 0; k < amount; k++) {
+					SpdzElement[] mask = new SpdzElement[noOfParties];
+					BigInteger realValue = null;
+					for (int i = 1; i <= noOfParties; i++) {
+						String name = getStorageName(i, threadId);
+						SpdzInputMask m = storages[i - 1].getNext(name + SpdzStorageConstants.INPUT_STORAGE + toward);
+						mask[i - 1] = m.getMask();
+						if (i == toward) {
+							realValue = m.getRealValue();
+						} else {
+							Assert.assertNull(m.getRealValue());
+						}
+					}
+					Assert.assertEquals(realValue, open(mask, alpha));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reports the number of triples generated per second per thread.
+	 */
+	@Test
+	public void benchmarkTriples() throws Exception {
+		int noOfParties = 2;
+		int amount = 64;
+		// Warm up the JIT compiler.
+		runParties(noOfParties, 1, amount, 0, 0, 0, newStorages(noOfParties),
+				new BigInteger[noOfParties]);
+		for (int noOfThreads = 1; noOfThreads <= 2; noOfThreads++) {
+			StreamedStorage[] storages = newStorages(noOfParties);
+			long time = runParties(noOfParties, noOfThreads, amount, 0, 0, 0, storages,
+					new BigInteger[noOfParties]);
+			System.out.println("MASCOT with " + noOfParties + " parties and " + noOfThreads
+					+ " threads generated " + amount + " triples per thread in " + time + " ms, i.e. "
+					+ String.format("%.1f", amount * 1000.0 / time) + " triples per second per thread ("
+					+ modulus.bitLength() + " bit modulus)");
+		}
+	}
+
+	@Test
+	public void testOTExtension() {
+		SecureRandom rand = new SecureRandom();
+		setUpExtension(rand);
+		for (int round = 0; round < 2; round++) {
+			boolean[] choices = new boolean[1000];
+			for (int j = 0; j < choices.length; j++) {
+				choices[j] = rand.nextBoolean();
+			}
+			byte[][] keys = new byte[choices.length][];
+			byte[] message = receiver.extend(choices, rand, keys);
+			byte[][][] pairs = sender.extend(message, choices.length);
+			for (int j = 0; j < choices.length; j++) {
+				Assert.assertArrayEquals(pairs[j][choices[j] ? 1 : 0], keys[j]);
+				Assert.assertFalse(Arrays.equals(pairs[j][choices[j] ? 0 : 1], keys[j]));
+			}
+		}
+	}
+
+	@Test(expected = MPCException.class)
+	public void testOTExtensionDetectsInconsistentChoices() {
+		SecureRandom rand = new SecureRandom();
+		setUpExtension(rand);
+		boolean[] choices = new boolean[100];
+		byte[] message = receiver.extend(choices, rand, new byte[choices.length][]);
+		// Use another choice bit in a single column.
+		message[3] ^= 1;
+		sender.extend(message, choices.length);
+	}
+
+	private OTExtensionSender sender;
+	private OTExtensionReceiver receiver;
+
+	/**
+	 * Runs the base OTs locally and sets up both sides of an OT extension.
+	 */
+	private void setUpExtension(SecureRandom rand) {
+		boolean[] s = new boolean[128];
+		for (int i = 0; i < s.length; i++) {
+			s[i] = rand.nextBoolean();
+		}
+		BaseOT.Sender baseSender = new BaseOT.Sender(rand);
+		BaseOT.Receiver baseReceiver = new BaseOT.Receiver(rand, s);
+		BigInteger[] message = baseReceiver.getMessage(baseSender.getMessage());
+		byte[][][] pairs = baseSender.getKeys(message);
+		byte[][] keys = baseReceiver.getKeys();
+		for (int i = 0; i < s.length; i++) {
+			Assert.assertArrayEquals(pairs[i][s[i] ? 1 : 0], keys[i]);
+		}
+		receiver = new OTExtensionReceiver(pairs);
+		sender = new OTExtensionSender(s, keys);
+	}
+
+	private static String getStorageName(int myId, int threadId) {
+		return SpdzStorageConstants.STORAGE_NAME_PREFIX + myId + "_" + threadId;
+	}
+
+	/**
+	 * Opens a value and checks its MAC.
+	 */
+	private static BigInteger open(SpdzElement[] shares, BigInteger alpha) {
+		BigInteger value = BigInteger.ZERO;
+		BigInteger mac = BigInteger.ZERO;
+		for (SpdzElement e : shares) {
+			value = value.add(e.getShare());
+			mac = mac.add(e.getMac());
+		}
+		value = value.mod(modulus);
+		Assert.assertEquals(value.multiply(alpha).mod(modulus), mac.mod(modulus));
+		return value;
+	}
+}
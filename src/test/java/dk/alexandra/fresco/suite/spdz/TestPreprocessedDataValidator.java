@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz;
+
+import java.io.RandomAccessFile;
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.logging.Level;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import dk.alexandra.fresco.framework.Reporter;
+import dk.alexandra.fresco.suite.spdz.storage.FakeTripGen;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzDataShard;
+import dk.alexandra.fresco.suite.spdz.utils.PreprocessedDataValidator;
+import dk.alexandra.fresco.suite.spdz.utils.PreprocessedDataValidator.Result;
+
+public class TestPreprocessedDataValidator {
+
+	private static final BigInteger modulus = new BigInteger(
+			"6703903964971298549787012499123814115273848577471136527425966013026501536706464354255445443244279389455058889493431223951165286470575994074291745908195329");
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@BeforeClass
+	public static void initReporter() {
+		Reporter.init(Level.INFO);
+	}
+
+	@Test
+	public void testValidDataCheckingAll() throws Exception {
+		String path = folder.getRoot().getAbsolutePath();
+		FakeTripGen.writeShards(path, 2, 2, 50, 20, 30, 2, modulus);
+		Result result = new PreprocessedDataValidator(path, 2, new Random(0)).validate(-1);
+		Assert.assertTrue(result.getErrors().toString(), result.isValid());
+		// Per thread: 50 triples, 30 bits, 2 exp pipes and 20 masks toward
+		// each of the 2 players.
+		Assert.assertEquals(2 * (50 + 30 + 2 + 2 * 20), result.getChecked());
+	}
+
+	@Test
+	public void testValidSeededDataSampling() throws Exception {
+		String path = folder.getRoot().getAbsolutePath();
+		FakeTripGen.writeShards(path, 3, 1, 200, 20, 30, 2, modulus, true);
+		Result result = new PreprocessedDataValidator(path, 3, new Random(0))
+				.validate(10, -1, 10, 1);
+		Assert.assertTrue(result.getErrors().toString(), result.isValid());
+		Assert.assertTrue(result.getChecked() <= 10 + 3 * 20 + 10 + 1);
+		Assert.assertTrue(result.getChecked() > 3 * 20);
+	}
+
+	@Test
+	public void testSeededSquaresAreValidated() throws Exception {
+		String path = folder.getRoot().getAbsolutePath();
+		FakeTripGen.writeShards(path, 3, 1, 1, 1, 1, 1, 40, modulus, true);
+		Result result = new PreprocessedDataValidator(path, 3, new Random(0))
+				.validate(-1, -1, -1, -1, -1);
+		Assert.assertTrue(result.getErrors().toString(), result.isValid());
+		Assert.assertEquals(1 + 3 * 1 + 1 + 1 + 40, result.getChecked());
+	}
+
+	@Test
+	public void testCorruptedTripleIsReported() throws Exception {
+		String path = folder.getRoot().getAbsolutePath();
+		FakeTripGen.writeShards(path, 2, 1, 50, 1, 1, 1, modulus);
+		String name = SpdzDataShard.getFilename(path, SpdzDataShard.Kind.TRIPLE, 2, 1, 0);
+		SpdzDataShard shard;
+		try (RandomAccessFile f = new RandomAccessFile(name, "rw")) {
+			shard = SpdzDataShard.readHeader(f.getChannel(), name);
+			// Flip a bit in the last byte of triple no. 17, i.e. in the MAC
+			// of c.
+			long pos = shard.getHeaderSize() + 18L * shard.getRecordSize() - 1;
+			f.seek(pos);
+			int b = f.read();
+			f.seek(pos);
+			f.write(b ^ 1);
+		}
+		Result result = new PreprocessedDataValidator(path, 2, new Random(0)).validate(-1);
+		Assert.assertFalse(result.isValid());
+		Assert.assertEquals(1, result.getErrorCount());
+		Assert.assertTrue(result.getErrors().get(0), result.getErrors().get(0)
+				.contains("position 17"));
+	}
+}
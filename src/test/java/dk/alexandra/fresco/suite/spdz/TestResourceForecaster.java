@@ -0,0 +1,305 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz;
+
+import java.math.BigInteger;
+import java.util.logging.Level;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import dk.alexandra.fresco.framework.Application;
+import dk.alexandra.fresco.framework.ProtocolFactory;
+import dk.alexandra.fresco.framework.ProtocolProducer;
+import dk.alexandra.fresco.framework.Reporter;
+import dk.alexandra.fresco.framework.value.OInt;
+import dk.alexandra.fresco.framework.value.SBool;
+import dk.alexandra.fresco.framework.value.SBoolFactory;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.lib.conversion.BitToNumeralCircuitFactory;
+import dk.alexandra.fresco.lib.conversion.NumeralToBitCircuitFactory;
+import dk.alexandra.fresco.lib.field.integer.BasicNumericFactory;
+import dk.alexandra.fresco.lib.helper.ParallelProtocolProducer;
+import dk.alexandra.fresco.lib.helper.sequential.SequentialProtocolProducer;
+import dk.alexandra.fresco.lib.helper.builder.NumericIOBuilder;
+import dk.alexandra.fresco.lib.helper.builder.NumericProtocolBuilder;
+import dk.alexandra.fresco.suite.spdz.forecast.ResourceForecaster;
+import dk.alexandra.fresco.suite.spdz.forecast.ResourceReport;
+import dk.alexandra.fresco.suite.spdz.utils.SpdzFactory;
+import dk.alexandra.fresco.suite.spdz.utils.SpdzField;
+
+public class TestResourceForecaster {
+
+	private static final BigInteger MODULUS = new BigInteger(
+			"6703903964971298549787012499123814115273848577471136527425966013026501536706464354255445443244279389455058889493431223951165286470575994074291745908195329");
+
+	@BeforeClass
+	public static void initReporter() {
+		Reporter.init(Level.INFO);
+	}
+
+	/**
+	 * Inputs 2*pairs values from player 1, multiplies them pairwise in
+	 * parallel and opens the products.
+	 */
+	private static Application multiplyPairs(final int pairs) {
+		return new Application() {
+
+			private static final long serialVersionUID = -3093612407813652733L;
+
+			@Override
+			public ProtocolProducer prepareApplication(ProtocolFactory provider) {
+				BasicNumericFactory factory = (BasicNumericFactory) provider;
+				NumericIOBuilder ioBuilder = new NumericIOBuilder(factory);
+				SInt[] inputs = ioBuilder.inputArray(new int[2 * pairs], 1);
+				ProtocolProducer input = ioBuilder.getCircuit();
+				SInt[] products = new SInt[pairs];
+				ParallelProtocolProducer mults = new ParallelProtocolProducer();
+				for (int i = 0; i < pairs; i++) {
+					products[i] = factory.getSInt();
+					mults.append(factory.getMultCircuit(inputs[2 * i],
+							inputs[2 * i + 1], products[i]));
+				}
+				ioBuilder.reset();
+				OInt[] outputs = ioBuilder.outputArray(products);
+				ProtocolProducer output = ioBuilder.getCircuit();
+				return new SequentialProtocolProducer(input, mults, output);
+			}
+		};
+	}
+
+	/**
+	 * Inputs values from player 1, squares them in parallel and opens the
+	 * squares.
+	 */
+	private static Application squareValues(final int values) {
+		return new Application() {
+
+			private static final long serialVersionUID = 5206412983517312154L;
+
+			@Override
+			public ProtocolProducer prepareApplication(ProtocolFactory provider) {
+				BasicNumericFactory factory = (BasicNumericFactory) provider;
+				NumericIOBuilder ioBuilder = new NumericIOBuilder(factory);
+				SInt[] inputs = ioBuilder.inputArray(new int[values], 1);
+				ProtocolProducer input = ioBuilder.getCircuit();
+				NumericProtocolBuilder builder = new NumericProtocolBuilder(factory);
+				builder.beginParScope();
+				SInt[] squares = new SInt[values];
+				for (int i = 0; i < values; i++) {
+					squares[i] = builder.square(inputs[i]);
+				}
+				builder.endCurScope();
+				ProtocolProducer square = builder.getCircuit();
+				ioBuilder.reset();
+				OInt[] outputs = ioBuilder.outputArray(squares);
+				ProtocolProducer output = ioBuilder.getCircuit();
+				return new SequentialProtocolProducer(input, square, output);
+			}
+		};
+	}
+
+	/**
+	 * Inputs a 2x3 and a 3x2 matrix from player 1, multiplies them and opens
+	 * the product.
+	 */
+	private static Application multiplyMatrices() {
+		return new Application() {
+
+			private static final long serialVersionUID = 3374912066730829761L;
+
+			@Override
+			public ProtocolProducer prepareApplication(ProtocolFactory provider) {
+				BasicNumericFactory factory = (BasicNumericFactory) provider;
+				NumericIOBuilder ioBuilder = new NumericIOBuilder(factory);
+				SInt[][] left = ioBuilder.inputMatrix(2, 3, 1);
+				SInt[][] right = ioBuilder.inputMatrix(3, 2, 1);
+				ProtocolProducer input = ioBuilder.getCircuit();
+				NumericProtocolBuilder builder = new NumericProtocolBuilder(factory);
+				SInt[][] product = builder.matrixMult(left, right);
+				ProtocolProducer mult = builder.getCircuit();
+				ioBuilder.reset();
+				OInt[][] outputs = ioBuilder.outputMatrix(product);
+				ProtocolProducer output = ioBuilder.getCircuit();
+				return new SequentialProtocolProducer(input, mult, output);
+			}
+		};
+	}
+
+	/**
+	 * Inputs a value from player 1, decomposes it into bits, converts each
+	 * bit to an integer and opens them.
+	 */
+	private static Application decompose(final int bitLength) {
+		return new Application() {
+
+			private static final long serialVersionUID = -6290148279017462150L;
+
+			@Override
+			public ProtocolProducer prepareApplication(ProtocolFactory provider) {
+				BasicNumericFactory factory = (BasicNumericFactory) provider;
+				NumericIOBuilder ioBuilder = new NumericIOBuilder(factory);
+				SInt value = ioBuilder.input(1, 1);
+				ProtocolProducer input = ioBuilder.getCircuit();
+				SBool[] bits = ((SBoolFactory) provider).getSBools(bitLength);
+				ProtocolProducer decompose = ((NumeralToBitCircuitFactory) provider)
+						.getNumeralToBitCircuit(value, bits);
+				ParallelProtocolProducer convert = new ParallelProtocolProducer();
+				SInt[] values = new SInt[bitLength];
+				for (int i = 0; i < bitLength; i++) {
+					values[i] = factory.getSInt();
+					convert.append(((BitToNumeralCircuitFactory) provider)
+							.getBitToNumeralCircuit(new SBool[] { bits[i] }, values[i]));
+				}
+				ioBuilder.reset();
+				OInt[] outputs = ioBuilder.outputArray(values);
+				return new SequentialProtocolProducer(input, decompose, convert,
+						ioBuilder.getCircuit());
+			}
+		};
+	}
+
+	@Test
+	public void testSingleThreadCounts() {
+		ResourceForecaster forecaster = new ResourceForecaster(1, 2, 1, 4096, MODULUS, 150);
+		ResourceReport report = forecaster.forecast(multiplyPairs(2));
+		Assert.assertEquals(2, report.getTotalTriples());
+		Assert.assertEquals(4, report.getTotalInputMasks(1));
+		Assert.assertEquals(0, report.getTotalInputMasks(2));
+		Assert.assertEquals(0, report.getTotalBits());
+		Assert.assertEquals(0, report.getTotalExpPipes());
+		Assert.assertEquals(2 * 2 + 2, report.getTotalOpenedValues());
+		// one vector input, 2 multiplications and one vector opening
+		Assert.assertEquals(1 + 2 + 1, report.getNativeProtocols());
+		// input: 3 rounds, mult: 2 rounds, output: 2 rounds
+		Assert.assertEquals(3 + 2 + 2, report.getRounds());
+
+		int size = new SpdzField(MODULUS).getSize();
+		// the top bit of the modulus is set, but no sign byte is sent
+		Assert.assertEquals(64, size);
+		long inputBytes = 4 * size + 32;
+		long multBytes = 2 * 2 * size;
+		long outputBytes = 2 * size;
+		Assert.assertEquals(inputBytes + multBytes + outputBytes, report.getBytesSent());
+	}
+
+	@Test
+	public void testNonInputtingPartySendsNoInputs() {
+		ResourceForecaster forecaster = new ResourceForecaster(2, 2, 1, 4096, MODULUS, 150);
+		ResourceReport report = forecaster.forecast(multiplyPairs(2));
+		int size = new SpdzField(MODULUS).getSize();
+		Assert.assertEquals(32 + 2 * 2 * size + 2 * size, report.getBytesSent());
+		Assert.assertEquals(4, report.getTotalInputMasks(1));
+	}
+
+	@Test
+	public void testVectorInputSendsOneDigestPerBatch() {
+		ResourceForecaster forecaster = new ResourceForecaster(1, 2, 1, 4096, MODULUS, 150);
+		ResourceReport small = forecaster.forecast(multiplyPairs(2));
+		forecaster = new ResourceForecaster(1, 2, 1, 4096, MODULUS, 150);
+		ResourceReport large = forecaster.forecast(multiplyPairs(8));
+		Assert.assertEquals(16, large.getTotalInputMasks(1));
+		Assert.assertEquals(small.getRounds(), large.getRounds());
+		// only the masked values grow with the batch, not the digests
+		int size = new SpdzField(MODULUS).getSize();
+		Assert.assertEquals(12 * size + 6 * 2 * size + 6 * size,
+				large.getBytesSent() - small.getBytesSent());
+	}
+
+	@Test
+	public void testBatchSplitAcrossThreads() {
+		ResourceForecaster forecaster = new ResourceForecaster(1, 2, 2, 4096, MODULUS, 150);
+		ResourceReport report = forecaster.forecast(multiplyPairs(8));
+		Assert.assertEquals(8, report.getTotalTriples());
+		Assert.assertEquals(16, report.getTotalInputMasks(1));
+		Assert.assertEquals(4, report.getTriples(0));
+		Assert.assertEquals(4, report.getTriples(1));
+		// the inputs are a single vector protocol, evaluated by one thread
+		Assert.assertEquals(16, report.getInputMasks(0, 1)
+				+ report.getInputMasks(1, 1));
+		Assert.assertEquals(4, report.getMaxTriplesPerThread());
+	}
+
+	@Test
+	public void testPropertiesRoundTrip() {
+		ResourceForecaster forecaster = new ResourceForecaster(1, 2, 2, 4096, MODULUS, 150);
+		ResourceReport report = forecaster.forecast(multiplyPairs(8));
+		ResourceReport copy = ResourceReport.fromProperties(report.toProperties());
+		Assert.assertEquals(report.toString(), copy.toString());
+		String[] args = copy.toFakeTripGenArgs(MODULUS, "spdz");
+		Assert.assertEquals("-t=8", args[1]);
+		Assert.assertEquals("-i=16", args[2]);
+		Assert.assertEquals("-p=2", args[5]);
+		Assert.assertEquals("-q=0", args[7]);
+	}
+
+	@Test
+	public void testSquaresCountedWhenSquarePairsUsed() {
+		ResourceForecaster forecaster = new ResourceForecaster(1, 2, 1, 4096,
+				MODULUS, 150, true);
+		ResourceReport report = forecaster.forecast(squareValues(3));
+		Assert.assertEquals(3, report.getTotalSquares());
+		Assert.assertEquals(0, report.getTotalTriples());
+		Assert.assertEquals(3 + 3, report.getTotalOpenedValues());
+
+		forecaster = new ResourceForecaster(1, 2, 1, 4096, MODULUS, 150);
+		report = forecaster.forecast(squareValues(3));
+		Assert.assertEquals(0, report.getTotalSquares());
+		Assert.assertEquals(3, report.getTotalTriples());
+	}
+
+	@Test
+	public void testMatrixTriplesCountedWhenUsed() {
+		ResourceForecaster forecaster = new ResourceForecaster(1, 2, 1, 4096,
+				MODULUS, 150, false, true);
+		ResourceReport report = forecaster.forecast(multiplyMatrices());
+		Assert.assertEquals(1, report.getTotalMatrixTriples("2x3x2"));
+		Assert.assertEquals(0, report.getTotalTriples());
+		Assert.assertEquals(6 + 6 + 4, report.getTotalOpenedValues());
+		ResourceReport copy = ResourceReport.fromProperties(report.toProperties());
+		Assert.assertEquals(report.toString(), copy.toString());
+		Assert.assertEquals(1, copy.getMaxMatrixTriplesPerThread("2x3x2"));
+
+		forecaster = new ResourceForecaster(1, 2, 1, 4096, MODULUS, 150);
+		report = forecaster.forecast(multiplyMatrices());
+		Assert.assertTrue(report.getMatrixTripleShapes().isEmpty());
+		Assert.assertEquals(2 * 3 * 2, report.getTotalTriples());
+	}
+
+	@Test
+	public void testNumeralToBitCounts() {
+		ResourceForecaster forecaster = new ResourceForecaster(1, 2, 1, 4096, MODULUS, 150);
+		ResourceReport report = forecaster.forecast(decompose(8));
+		Assert.assertEquals(8 + SpdzFactory.CONVERSION_SECURITY_PARAMETER,
+				report.getTotalBits());
+		// prefix levels of span 1, 2 and 4, followed by the XORs
+		int triples = (7 + 6) + (6 + 4) + 4 + 7;
+		Assert.assertEquals(triples, report.getTotalTriples());
+		Assert.assertEquals(1 + 2 * triples + 8, report.getTotalOpenedValues());
+	}
+}
@@ -0,0 +1,308 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.logging.Level;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.ProtocolEvaluator;
+import dk.alexandra.fresco.framework.Reporter;
+import dk.alexandra.fresco.framework.TestThreadRunner;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThreadConfiguration;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThreadFactory;
+import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
+import dk.alexandra.fresco.framework.configuration.TestConfiguration;
+import dk.alexandra.fresco.framework.sce.configuration.TestSCEConfiguration;
+import dk.alexandra.fresco.framework.sce.evaluator.EvaluationStrategy;
+import dk.alexandra.fresco.framework.sce.resources.storage.InMemoryStorage;
+import dk.alexandra.fresco.framework.sce.resources.storage.InMemoryStreamedStorage;
+import dk.alexandra.fresco.lib.arithmetic.BasicArithmeticTests;
+import dk.alexandra.fresco.suite.ProtocolSuite;
+import dk.alexandra.fresco.suite.spdz.configuration.SpdzConfiguration;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSquare;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+import dk.alexandra.fresco.suite.spdz.evaluation.strategy.SpdzProtocolSuite;
+import dk.alexandra.fresco.suite.spdz.storage.DataSupplierImpl;
+import dk.alexandra.fresco.suite.spdz.storage.FakeTripGen;
+import dk.alexandra.fresco.suite.spdz.storage.ShardedDataLoader;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzDataShard;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzStorageConstants;
+import dk.alexandra.fresco.suite.spdz.utils.PreprocessedDataValidator;
+
+public class TestShardedData {
+
+	private static final int noOfParties = 2;
+	private static final int noOfThreads = 2;
+	private static final BigInteger modulus = new BigInteger(
+			"6703903964971298549787012499123814115273848577471136527425966013026501536706464354255445443244279389455058889493431223951165286470575994074291745908195329");
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@BeforeClass
+	public static void initReporter() {
+		Reporter.init(Level.INFO);
+	}
+
+	@Test
+	public void testShardsLoadIntoEachThread() throws Exception {
+		String path = folder.getRoot().getAbsolutePath();
+		FakeTripGen.writeShards(path, noOfParties, noOfThreads, 20, 10, 5, 2, modulus);
+
+		List<DataSupplierImpl> suppliers = new ArrayList<DataSupplierImpl>();
+		for (int myId = 1; myId <= noOfParties; myId++) {
+			Assert.assertTrue(ShardedDataLoader.hasShards(path, myId));
+			ShardedDataLoader loader = new ShardedDataLoader(path, myId, noOfParties, noOfThreads);
+			Assert.assertEquals(3 + noOfParties, loader.verify().size() / noOfThreads);
+			Assert.assertEquals(20, loader.getCount(SpdzDataShard.Kind.TRIPLE, 2));
+			Assert.assertEquals(2 * 10, loader.getCount(SpdzDataShard.Kind.INPUT_MASK, 1));
+			InMemoryStreamedStorage storage = new InMemoryStreamedStorage(new InMemoryStorage());
+			loader.loadInto(storage);
+			suppliers.add(new DataSupplierImpl(storage,
+					SpdzStorageConstants.STORAGE_NAME_PREFIX + myId, 2, noOfThreads, noOfParties));
+		}
+		DataSupplierImpl s1 = suppliers.get(0);
+		DataSupplierImpl s2 = suppliers.get(1);
+		Assert.assertEquals(modulus, s1.getModulus());
+		BigInteger alpha = s1.getSSK().add(s2.getSSK()).mod(modulus);
+		for (int i = 0; i < 20; i++) {
+			SpdzTriple t1 = s1.getNextTriple();
+			SpdzTriple t2 = s2.getNextTriple();
+			BigInteger a = t1.getA().getShare().add(t2.getA().getShare()).mod(modulus);
+			BigInteger b = t1.getB().getShare().add(t2.getB().getShare()).mod(modulus);
+			BigInteger c = t1.getC().getShare().add(t2.getC().getShare()).mod(modulus);
+			BigInteger cMac = t1.getC().getMac().add(t2.getC().getMac()).mod(modulus);
+			Assert.assertEquals(a.multiply(b).mod(modulus), c);
+			Assert.assertEquals(c.multiply(alpha).mod(modulus), cMac);
+		}
+		for (int i = 0; i < 10; i++) {
+			SpdzInputMask m1 = s1.getNextInputMask(2);
+			SpdzInputMask m2 = s2.getNextInputMask(2);
+			Assert.assertNull(m1.getRealValue());
+			Assert.assertEquals(m2.getRealValue(), m1.getMask().getShare()
+					.add(m2.getMask().getShare()).mod(modulus));
+		}
+		Assert.assertNotNull(s1.getNextExpPipe());
+		Assert.assertNotNull(s2.getNextBit());
+	}
+
+	@Test
+	public void testSeededShardsCombineToSharings() throws Exception {
+		String path = folder.getRoot().getAbsolutePath();
+		int parties = 3;
+		FakeTripGen.writeShards(path, parties, 1, 20, 10, 5, 2, 5, modulus, true);
+
+		List<DataSupplierImpl> suppliers = new ArrayList<DataSupplierImpl>();
+		for (int myId = 1; myId <= parties; myId++) {
+			ShardedDataLoader loader = new ShardedDataLoader(path, myId, parties, 1);
+			Assert.assertEquals(myId != 1, loader.isSeeded());
+			File triples = new File(SpdzDataShard.getFilename(path,
+					SpdzDataShard.Kind.TRIPLE, myId, 1, 0));
+			for (SpdzDataShard shard : loader.verify()) {
+				if (shard.getKind() == SpdzDataShard.Kind.TRIPLE && myId != 1) {
+					Assert.assertEquals(shard.getHeaderSize(), triples.length());
+				}
+			}
+			InMemoryStreamedStorage storage = new InMemoryStreamedStorage(new InMemoryStorage());
+			loader.loadInto(storage);
+			suppliers.add(new DataSupplierImpl(storage,
+					SpdzStorageConstants.STORAGE_NAME_PREFIX + myId, 1, 1, parties));
+		}
+		BigInteger alpha = BigInteger.ZERO;
+		for (DataSupplierImpl s : suppliers) {
+			alpha = alpha.add(s.getSSK());
+		}
+		alpha = alpha.mod(modulus);
+		for (int i = 0; i < 20; i++) {
+			BigInteger a = BigInteger.ZERO, b = BigInteger.ZERO;
+			BigInteger c = BigInteger.ZERO, cMac = BigInteger.ZERO;
+			for (DataSupplierImpl s : suppliers) {
+				SpdzTriple t = s.getNextTriple();
+				a = a.add(t.getA().getShare());
+				b = b.add(t.getB().getShare());
+				c = c.add(t.getC().getShare());
+				cMac = cMac.add(t.getC().getMac());
+			}
+			c = c.mod(modulus);
+			Assert.assertEquals(a.multiply(b).mod(modulus), c);
+			Assert.assertEquals(c.multiply(alpha).mod(modulus), cMac.mod(modulus));
+		}
+		for (int i = 0; i < 10; i++) {
+			BigInteger mask = BigInteger.ZERO;
+			BigInteger realValue = null;
+			for (int p = 0; p < parties; p++) {
+				SpdzInputMask m = suppliers.get(p).getNextInputMask(2);
+				mask = mask.add(m.getMask().getShare());
+				if (p == 1) {
+					realValue = m.getRealValue();
+				} else {
+					Assert.assertNull(m.getRealValue());
+				}
+			}
+			Assert.assertEquals(mask.mod(modulus), realValue);
+		}
+		for (int i = 0; i < 5; i++) {
+			BigInteger bit = BigInteger.ZERO;
+			for (DataSupplierImpl s : suppliers) {
+				bit = bit.add(s.getNextBit().value.getShare());
+			}
+			bit = bit.mod(modulus);
+			Assert.assertTrue(bit.equals(BigInteger.ZERO) || bit.equals(BigInteger.ONE));
+		}
+		for (int i = 0; i < 5; i++) {
+			BigInteger a = BigInteger.ZERO, b = BigInteger.ZERO, bMac = BigInteger.ZERO;
+			for (DataSupplierImpl s : suppliers) {
+				SpdzSquare square = s.getNextSquare();
+				a = a.add(square.getA().getShare());
+				b = b.add(square.getB().getShare());
+				bMac = bMac.add(square.getB().getMac());
+			}
+			b = b.mod(modulus);
+			Assert.assertEquals(a.multiply(a).mod(modulus), b);
+			Assert.assertEquals(b.multiply(alpha).mod(modulus), bMac.mod(modulus));
+		}
+	}
+
+	/**
+	 * Data written without square pairs still loads, but supplies no squares,
+	 * also not to the parties regenerating their shares from a seed.
+	 */
+	@Test
+	public void testSeededShardsWithoutSquares() throws Exception {
+		String path = folder.getRoot().getAbsolutePath();
+		FakeTripGen.writeShards(path, 2, 1, 1, 1, 1, 1, modulus, true);
+		for (int myId = 1; myId <= 2; myId++) {
+			InMemoryStreamedStorage storage = new InMemoryStreamedStorage(new InMemoryStorage());
+			new ShardedDataLoader(path, myId, 2, 1).loadInto(storage);
+			DataSupplierImpl supplier = new DataSupplierImpl(storage,
+					SpdzStorageConstants.STORAGE_NAME_PREFIX + myId, 1, 1, 2);
+			supplier.getNextTriple();
+			try {
+				supplier.getNextSquare();
+				Assert.fail("Party " + myId + " got a square pair");
+			} catch (MPCException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test(expected = MPCException.class)
+	public void testTruncatedShardIsRejected() throws Exception {
+		String path = folder.getRoot().getAbsolutePath();
+		FakeTripGen.writeShards(path, noOfParties, noOfThreads, 20, 10, 5, 2, modulus);
+		File bits = new File(SpdzDataShard.getFilename(path, SpdzDataShard.Kind.BIT, 1, 2, 0));
+		try (RandomAccessFile f = new RandomAccessFile(bits, "rw")) {
+			f.setLength(f.length() - 1);
+		}
+		new ShardedDataLoader(path, 1, noOfParties, noOfThreads).verify();
+	}
+
+	@Test(expected = MPCException.class)
+	public void testMissingShardIsRejected() throws Exception {
+		String path = folder.getRoot().getAbsolutePath();
+		FakeTripGen.writeShards(path, noOfParties, 1, 20, 10, 5, 2, modulus);
+		new ShardedDataLoader(path, 1, noOfParties, noOfThreads).verify();
+	}
+
+	private void runTest(TestThreadFactory f, EvaluationStrategy evalStrategy,
+			boolean seeded) throws Exception {
+		final String path = folder.getRoot().getAbsolutePath();
+		FakeTripGen.writeShards(path, noOfParties, noOfThreads, 1000, 100, 100, 5,
+				modulus, seeded);
+		// Pre-flight check of the data of all parties.
+		Assert.assertTrue(new PreprocessedDataValidator(path, noOfParties,
+				new Random()).validate(50).isValid());
+
+		List<Integer> ports = new ArrayList<Integer>(noOfParties);
+		for (int i = 1; i <= noOfParties; i++) {
+			ports.add(9000 + i);
+		}
+		Map<Integer, NetworkConfiguration> netConf = TestConfiguration
+				.getNetworkConfigurations(noOfParties, ports, Level.INFO);
+		Map<Integer, TestThreadConfiguration> conf = new HashMap<Integer, TestThreadConfiguration>();
+		for (int playerId : netConf.keySet()) {
+			TestThreadConfiguration ttc = new TestThreadConfiguration();
+			ttc.netConf = netConf.get(playerId);
+			ttc.protocolSuiteConf = new SpdzConfiguration() {
+
+				@Override
+				public boolean useDummyData() {
+					return false;
+				}
+
+				@Override
+				public String getTriplePath() {
+					return path;
+				}
+
+				@Override
+				public int getMaxBitLength() {
+					return 150;
+				}
+			};
+			ProtocolSuite suite = new SpdzProtocolSuite();
+			ProtocolEvaluator evaluator = EvaluationStrategy.fromEnum(evalStrategy);
+			ttc.sceConf = new TestSCEConfiguration(suite, evaluator, noOfThreads,
+					noOfThreads, ttc.netConf, new InMemoryStreamedStorage(new InMemoryStorage()), false);
+			conf.put(playerId, ttc);
+		}
+		TestThreadRunner.run(f, conf);
+	}
+
+	@Test
+	public void test_Lots_Of_Inputs_ParallelBatched() throws Exception {
+		runTest(new BasicArithmeticTests.TestLotsOfInputs(),
+				EvaluationStrategy.PARALLEL_BATCHED, false);
+	}
+
+	@Test
+	public void test_Sum_And_Output_Sequential() throws Exception {
+		runTest(new BasicArithmeticTests.TestSumAndMult(),
+				EvaluationStrategy.SEQUENTIAL, false);
+	}
+
+	@Test
+	public void test_Lots_Of_Inputs_Seeded_ParallelBatched() throws Exception {
+		runTest(new BasicArithmeticTests.TestLotsOfInputs(),
+				EvaluationStrategy.PARALLEL_BATCHED, true);
+	}
+}
@@ -0,0 +1,268 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import dk.alexandra.fresco.framework.MPCException;
+import dk.alexandra.fresco.framework.ProtocolEvaluator;
+import dk.alexandra.fresco.framework.ProtocolFactory;
+import dk.alexandra.fresco.framework.ProtocolProducer;
+import dk.alexandra.fresco.framework.Reporter;
+import dk.alexandra.fresco.framework.TestApplication;
+import dk.alexandra.fresco.framework.TestThreadRunner;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThread;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThreadConfiguration;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThreadFactory;
+import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
+import dk.alexandra.fresco.framework.configuration.TestConfiguration;
+import dk.alexandra.fresco.framework.sce.SCE;
+import dk.alexandra.fresco.framework.sce.SCEFactory;
+import dk.alexandra.fresco.framework.sce.configuration.TestSCEConfiguration;
+import dk.alexandra.fresco.framework.sce.evaluator.EvaluationStrategy;
+import dk.alexandra.fresco.framework.sce.resources.storage.InMemoryStorage;
+import dk.alexandra.fresco.framework.sce.resources.storage.InMemoryStreamedStorage;
+import dk.alexandra.fresco.framework.value.OInt;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.lib.field.integer.BasicNumericFactory;
+import dk.alexandra.fresco.lib.helper.builder.NumericIOBuilder;
+import dk.alexandra.fresco.lib.helper.sequential.SequentialProtocolProducer;
+import dk.alexandra.fresco.suite.ProtocolSuite;
+import dk.alexandra.fresco.suite.spdz.configuration.SpdzConfiguration;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+import dk.alexandra.fresco.suite.spdz.evaluation.strategy.SpdzProtocolSuite;
+import dk.alexandra.fresco.suite.spdz.storage.DataSupplier;
+import dk.alexandra.fresco.suite.spdz.storage.DataSupplierImpl;
+import dk.alexandra.fresco.suite.spdz.storage.FakeTripGen;
+import dk.alexandra.fresco.suite.spdz.storage.ShardedDataLoader;
+import dk.alexandra.fresco.suite.spdz.storage.SharedDataPool;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzStorage;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzStorageConstants;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzStorageImpl;
+
+public class TestSharedDataPool {
+
+	private static final int noOfParties = 2;
+	private static final int noOfThreads = 2;
+	private static final BigInteger modulus = new BigInteger(
+			"6703903964971298549787012499123814115273848577471136527425966013026501536706464354255445443244279389455058889493431223951165286470575994074291745908195329");
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@BeforeClass
+	public static void initReporter() {
+		Reporter.init(Level.INFO);
+	}
+
+	private abstract static class ThreadWithFixture extends TestThread {
+
+		protected SCE sce;
+
+		@Override
+		public void setUp() throws IOException {
+			sce = SCEFactory.getSCEFromConfiguration(conf.sceConf, conf.protocolSuiteConf);
+		}
+	}
+
+	private SharedDataPool createPool(String path, int myId) {
+		ShardedDataLoader loader = new ShardedDataLoader(path, myId, noOfParties, noOfThreads);
+		InMemoryStreamedStorage storage = new InMemoryStreamedStorage(new InMemoryStorage());
+		loader.loadInto(storage);
+		SpdzStorage[] stores = new SpdzStorage[noOfThreads];
+		for (int i = 0; i < noOfThreads; i++) {
+			stores[i] = new SpdzStorageImpl(new DataSupplierImpl(storage,
+					SpdzStorageConstants.STORAGE_NAME_PREFIX + myId, i + 1,
+					noOfThreads, noOfParties));
+		}
+		return new SharedDataPool(stores, noOfParties);
+	}
+
+	private static List<SpdzTriple> take(DataSupplier supplier, int amount) {
+		List<SpdzTriple> res = new ArrayList<SpdzTriple>();
+		for (int i = 0; i < amount; i++) {
+			res.add(supplier.getNextTriple());
+		}
+		return res;
+	}
+
+	/**
+	 * The threads of the two parties reserve data in opposite orders, and
+	 * thread 0 uses more triples than it has of its own.
+	 */
+	@Test
+	public void testReservationsAgreeAcrossParties() throws Exception {
+		String path = folder.getRoot().getAbsolutePath();
+		FakeTripGen.writeShards(path, noOfParties, noOfThreads, 100, 10, 10, 1, modulus);
+		SharedDataPool pool1 = createPool(path, 1);
+		SharedDataPool pool2 = createPool(path, 2);
+		DataSupplier[] p1 = { pool1.getSupplier(0), pool1.getSupplier(1) };
+		DataSupplier[] p2 = { pool2.getSupplier(0), pool2.getSupplier(1) };
+
+		List<SpdzTriple> t0p1 = take(p1[0], 50);
+		List<SpdzTriple> t1p1 = take(p1[1], 10);
+		List<SpdzTriple> t1p2 = take(p2[1], 10);
+		List<SpdzTriple> t0p2 = take(p2[0], 50);
+		pool1.endBatch();
+		pool2.endBatch();
+		t1p2.addAll(take(p2[1], 60));
+		t0p2.addAll(take(p2[0], 70));
+		t0p1.addAll(take(p1[0], 70));
+		t1p1.addAll(take(p1[1], 60));
+		pool1.endBatch();
+		pool2.endBatch();
+
+		BigInteger alpha = p1[0].getSSK().add(p2[0].getSSK()).mod(modulus);
+		checkTriples(t0p1, t0p2, alpha);
+		checkTriples(t1p1, t1p2, alpha);
+		try {
+			take(p1[0], 20);
+			Assert.fail("The pool should have run dry");
+		} catch (MPCException e) {
+			// Expected.
+		}
+	}
+
+	private static void checkTriples(List<SpdzTriple> l1, List<SpdzTriple> l2,
+			BigInteger alpha) {
+		Assert.assertEquals(l1.size(), l2.size());
+		for (int i = 0; i < l1.size(); i++) {
+			SpdzTriple t1 = l1.get(i);
+			SpdzTriple t2 = l2.get(i);
+			BigInteger a = t1.getA().getShare().add(t2.getA().getShare());
+			BigInteger b = t1.getB().getShare().add(t2.getB().getShare());
+			BigInteger c = t1.getC().getShare().add(t2.getC().getShare()).mod(modulus);
+			BigInteger cMac = t1.getC().getMac().add(t2.getC().getMac()).mod(modulus);
+			Assert.assertEquals(a.multiply(b).mod(modulus), c);
+			Assert.assertEquals(c.multiply(alpha).mod(modulus), cMac);
+		}
+	}
+
+	/**
+	 * Runs sequential inputs and multiplications, which all end up in thread
+	 * 0, with too little data for thread 0 alone.
+	 */
+	private static class TestSkewedWork extends TestThreadFactory {
+
+		private static final int amount = 60;
+
+		@Override
+		public TestThread next(TestThreadConfiguration conf) {
+			return new ThreadWithFixture() {
+				@Override
+				public void test() throws Exception {
+					TestApplication app = new TestApplication() {
+
+						private static final long serialVersionUID = 2436416574352735241L;
+
+						@Override
+						public ProtocolProducer prepareApplication(
+								ProtocolFactory provider) {
+							BasicNumericFactory prov = (BasicNumericFactory) provider;
+							NumericIOBuilder ioBuilder = new NumericIOBuilder(prov);
+							SequentialProtocolProducer seq = new SequentialProtocolProducer();
+							SInt product = ioBuilder.input(1, 1);
+							seq.append(ioBuilder.getCircuit());
+							ioBuilder.reset();
+							for (int i = 1; i < amount; i++) {
+								SInt input = ioBuilder.input(1, 1);
+								seq.append(ioBuilder.getCircuit());
+								ioBuilder.reset();
+								seq.append(prov.getMultCircuit(product, input, product));
+							}
+							this.outputs = new OInt[] { ioBuilder.output(product) };
+							seq.append(ioBuilder.getCircuit());
+							return seq;
+						}
+					};
+					sce.runApplication(app);
+					Assert.assertEquals(BigInteger.ONE, app.getOutputs()[0].getValue());
+				}
+			};
+		}
+	}
+
+	@Test
+	public void testSkewedWorkUsesDataOfOtherThreads() throws Exception {
+		final String path = folder.getRoot().getAbsolutePath();
+		FakeTripGen.writeShards(path, noOfParties, noOfThreads, 40, 40, 1, 1, modulus);
+
+		List<Integer> ports = new ArrayList<Integer>(noOfParties);
+		for (int i = 1; i <= noOfParties; i++) {
+			ports.add(9000 + i);
+		}
+		Map<Integer, NetworkConfiguration> netConf = TestConfiguration
+				.getNetworkConfigurations(noOfParties, ports, Level.INFO);
+		Map<Integer, TestThreadConfiguration> conf = new HashMap<Integer, TestThreadConfiguration>();
+		for (int playerId : netConf.keySet()) {
+			TestThreadConfiguration ttc = new TestThreadConfiguration();
+			ttc.netConf = netConf.get(playerId);
+			ttc.protocolSuiteConf = new SpdzConfiguration() {
+
+				@Override
+				public boolean useDummyData() {
+					return false;
+				}
+
+				@Override
+				public String getTriplePath() {
+					return path;
+				}
+
+				@Override
+				public int getMaxBitLength() {
+					return 150;
+				}
+
+				@Override
+				public boolean useSharedPreprocessingPool() {
+					return true;
+				}
+			};
+			ProtocolSuite suite = new SpdzProtocolSuite();
+			ProtocolEvaluator evaluator = EvaluationStrategy
+					.fromEnum(EvaluationStrategy.PARALLEL_BATCHED);
+			ttc.sceConf = new TestSCEConfiguration(suite, evaluator, noOfThreads,
+					noOfThreads, ttc.netConf,
+					new InMemoryStreamedStorage(new InMemoryStorage()), false);
+			conf.put(playerId, ttc);
+		}
+		TestThreadRunner.run(new TestSkewedWork(), conf);
+	}
+}
@@ -68,6 +68,28 @@ public class TestSpdzBasicArithmetic2Parties {
 
 	private void runTest(TestThreadFactory f, EvaluationStrategy evalStrategy,
 			StorageStrategy storageStrategy) throws Exception {
+		runTest(f, evalStrategy, storageStrategy, 100000, false);
+	}
+
+	private void runTest(TestThreadFactory f, EvaluationStrategy evalStrategy,
+			StorageStrategy storageStrategy, final int macCheckThreshold,
+			final boolean asyncMacCheck) throws Exception {
+		runTest(f, evalStrategy, storageStrategy, macCheckThreshold,
+				asyncMacCheck, false);
+	}
+
+	private void runTest(TestThreadFactory f, EvaluationStrategy evalStrategy,
+			StorageStrategy storageStrategy, final int macCheckThreshold,
+			final boolean asyncMacCheck, final boolean useSquarePairs)
+			throws Exception {
+		runTest(f, evalStrategy, storageStrategy, macCheckThreshold,
+				asyncMacCheck, useSquarePairs, false);
+	}
+
+	private void runTest(TestThreadFactory f, EvaluationStrategy evalStrategy,
+			StorageStrategy storageStrategy, final int macCheckThreshold,
+			final boolean asyncMacCheck, final boolean useSquarePairs,
+			final boolean useMatrixTriples) throws Exception {
 		Level logLevel = Level.FINE;
 		Reporter.init(logLevel);
 
@@ -102,6 +124,26 @@ public class TestSpdzBasicArithmetic2Parties {
 				public int getMaxBitLength() {
 					return 150;
 				}
+
+				@Override
+				public int getMacCheckThreshold() {
+					return macCheckThreshold;
+				}
+
+				@Override
+				public boolean useAsynchronousMacCheck() {
+					return asyncMacCheck;
+				}
+
+				@Override
+				public boolean useSquarePairs() {
+					return useSquarePairs;
+				}
+
+				@Override
+				public boolean useMatrixTriples() {
+					return useMatrixTriples;
+				}
 			};
 			ttc.protocolSuiteConf = spdzConf;
 			boolean useSecureConnection = false; // No tests of secure
@@ -151,12 +193,74 @@ public class TestSpdzBasicArithmetic2Parties {
 				EvaluationStrategy.SEQUENTIAL, StorageStrategy.IN_MEMORY);
 	}
 
+	@Test
+	public void test_Linear_Combination_Sequential() throws Exception {
+		runTest(new BasicArithmeticTests.TestLinearCombination(),
+				EvaluationStrategy.SEQUENTIAL, StorageStrategy.IN_MEMORY);
+	}
+
+	@Test
+	public void test_Mult_Vector_Sequential() throws Exception {
+		runTest(new BasicArithmeticTests.TestMultVector(),
+				EvaluationStrategy.SEQUENTIAL, StorageStrategy.IN_MEMORY);
+	}
+
+	@Test
+	public void test_Mult_Vector_Parallel_Batched() throws Exception {
+		runTest(new BasicArithmeticTests.TestMultVector(),
+				EvaluationStrategy.PARALLEL_BATCHED, StorageStrategy.IN_MEMORY);
+	}
+
+	@Test
+	public void test_Square_Sequential() throws Exception {
+		runTest(new BasicArithmeticTests.TestSquare(),
+				EvaluationStrategy.SEQUENTIAL, StorageStrategy.IN_MEMORY,
+				100000, false, true);
+	}
+
+	@Test
+	public void test_Square_As_Mult_Sequential() throws Exception {
+		runTest(new BasicArithmeticTests.TestSquare(),
+				EvaluationStrategy.SEQUENTIAL, StorageStrategy.IN_MEMORY);
+	}
+
+	@Test
+	public void test_Matrix_Mult_Sequential() throws Exception {
+		runTest(new BasicArithmeticTests.TestMatrixMult(),
+				EvaluationStrategy.SEQUENTIAL, StorageStrategy.IN_MEMORY,
+				100000, false, false, true);
+	}
+
+	@Test
+	public void test_Matrix_Mult_Entrywise_Sequential() throws Exception {
+		runTest(new BasicArithmeticTests.TestMatrixMult(),
+				EvaluationStrategy.SEQUENTIAL, StorageStrategy.IN_MEMORY);
+	}
+
 	@Test
 	public void test_Input_Sequential() throws Exception {
 		runTest(new BasicArithmeticTests.TestInput(),
 				EvaluationStrategy.SEQUENTIAL, StorageStrategy.IN_MEMORY);
 	}
 	
+	@Test
+	public void test_Input_Vector_Sequential() throws Exception {
+		runTest(new BasicArithmeticTests.TestInputVector(),
+				EvaluationStrategy.SEQUENTIAL, StorageStrategy.IN_MEMORY);
+	}
+
+	@Test
+	public void test_Input_Vector_Parallel_Batched() throws Exception {
+		runTest(new BasicArithmeticTests.TestInputVector(),
+				EvaluationStrategy.PARALLEL_BATCHED, StorageStrategy.IN_MEMORY);
+	}
+	
+	@Test
+	public void test_Known_Constants_Sequential() throws Exception {
+		runTest(new BasicArithmeticTests.TestKnownConstants(),
+				EvaluationStrategy.SEQUENTIAL, StorageStrategy.IN_MEMORY);
+	}
+
 	@Test
 	public void test_OutputToTarget_Sequential() throws Exception {
 		runTest(new BasicArithmeticTests.TestOutputToSingleParty(),
@@ -193,6 +297,30 @@ public class TestSpdzBasicArithmetic2Parties {
 				EvaluationStrategy.PARALLEL_BATCHED, StorageStrategy.IN_MEMORY);
 	}
 
+	@Test
+	public void test_Lots_Of_Inputs_Sequential_Frequent_MacChecks() throws Exception {
+		runTest(new BasicArithmeticTests.TestLotsOfInputs(),
+				EvaluationStrategy.SEQUENTIAL_BATCHED, StorageStrategy.IN_MEMORY, 100, false);
+	}
+
+	@Test
+	public void test_Lots_Of_Inputs_Sequential_Async_MacChecks() throws Exception {
+		runTest(new BasicArithmeticTests.TestLotsOfInputs(),
+				EvaluationStrategy.SEQUENTIAL_BATCHED, StorageStrategy.IN_MEMORY, 100, true);
+	}
+
+	@Test
+	public void test_Lots_Of_Inputs_Parallel_Async_MacChecks() throws Exception {
+		runTest(new BasicArithmeticTests.TestLotsOfInputs(),
+				EvaluationStrategy.PARALLEL_BATCHED, StorageStrategy.IN_MEMORY, 100, true);
+	}
+
+	@Test
+	public void test_Sum_And_Output_Async_MacChecks() throws Exception {
+		runTest(new BasicArithmeticTests.TestSumAndMult(),
+				EvaluationStrategy.SEQUENTIAL_BATCHED, StorageStrategy.IN_MEMORY, 10, true);
+	}
+
 	@Test
 	public void test_Sum_And_Output_Sequential() throws Exception {
 		runTest(new BasicArithmeticTests.TestSumAndMult(),
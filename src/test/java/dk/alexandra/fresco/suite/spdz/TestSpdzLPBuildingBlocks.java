@@ -54,6 +54,7 @@ import dk.alexandra.fresco.suite.ProtocolSuite;
 import dk.alexandra.fresco.suite.spdz.configuration.SpdzConfiguration;
 import dk.alexandra.fresco.suite.spdz.evaluation.strategy.SpdzProtocolSuite;
 import dk.alexandra.fresco.suite.spdz.storage.InitializeStorage;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzStorageConstants;
 
 public class TestSpdzLPBuildingBlocks {	
 	
@@ -102,7 +103,7 @@ public class TestSpdzLPBuildingBlocks {
 													// here.
 			int noOfVMThreads = 3;
 			int noOfThreads = 3;
-			ProtocolSuite suite = SpdzProtocolSuite.getInstance(playerId);
+			ProtocolSuite suite = new SpdzProtocolSuite();
 			ProtocolEvaluator evaluator = EvaluationStrategy
 					.fromEnum(evalStrategy);
 			dk.alexandra.fresco.framework.sce.resources.storage.Storage storage = null;
@@ -139,13 +140,18 @@ public class TestSpdzLPBuildingBlocks {
 		Storage[] storages = new Storage[] { inMemStore };
 		InitializeStorage.initStorage(storages, noOfParties, 10000, 10000,
 				1000000, 10000);
-	}	
+	}
+
+	private static BigInteger getModulus() {
+		return inMemStore.getObject(SpdzStorageConstants.STORAGE_NAME_PREFIX + 1,
+				SpdzStorageConstants.MODULUS_KEY);
+	}
 	
 	@Test
 	public void test_Exiting_Variable_Sequential() throws Exception {
 		configure(EvaluationStrategy.SEQUENTIAL, StorageStrategy.IN_MEMORY);
 		runTest(new LPBuildingBlockTests.TestDummy());
-		BigInteger mod = SpdzProtocolSuite.getInstance(1).getModulus();
+		BigInteger mod = getModulus();
 		runTest(new LPBuildingBlockTests.TestDanzigEnteringVariable(mod));
 	}
 	
@@ -153,7 +159,7 @@ public class TestSpdzLPBuildingBlocks {
 	public void test_Exiting_Variable_Parallel() throws Exception {
 		configure(EvaluationStrategy.PARALLEL, StorageStrategy.IN_MEMORY);
 		runTest(new LPBuildingBlockTests.TestDummy());
-		BigInteger mod = SpdzProtocolSuite.getInstance(1).getModulus();
+		BigInteger mod = getModulus();
 		runTest(new LPBuildingBlockTests.TestDanzigEnteringVariable(mod));
 	}
 	
@@ -161,7 +167,7 @@ public class TestSpdzLPBuildingBlocks {
 	public void test_Exiting_Variable_Sequential_Batched() throws Exception {
 		configure(EvaluationStrategy.PARALLEL_BATCHED, StorageStrategy.IN_MEMORY);
 		runTest(new LPBuildingBlockTests.TestDummy());
-		BigInteger mod = SpdzProtocolSuite.getInstance(1).getModulus();
+		BigInteger mod = getModulus();
 		runTest(new LPBuildingBlockTests.TestDanzigEnteringVariable(mod));
 	}
 	
@@ -169,7 +175,7 @@ public class TestSpdzLPBuildingBlocks {
 	public void test_Exiting_Variable_Parallel_Batched() throws Exception {
 		configure(EvaluationStrategy.PARALLEL_BATCHED, StorageStrategy.IN_MEMORY);
 		runTest(new LPBuildingBlockTests.TestDummy());
-		BigInteger mod = SpdzProtocolSuite.getInstance(1).getModulus();
+		BigInteger mod = getModulus();
 		runTest(new LPBuildingBlockTests.TestDanzigEnteringVariable(mod));
 	}
 	
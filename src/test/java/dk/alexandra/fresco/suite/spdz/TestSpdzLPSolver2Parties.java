@@ -99,7 +99,7 @@ public class TestSpdzLPSolver2Parties {
 			boolean useSecureConnection = false; // No tests of secure connection
 												// here.
 			int noOfPSThreads = 3;
-			ProtocolSuite suite = SpdzProtocolSuite.getInstance(playerId);
+			ProtocolSuite suite = new SpdzProtocolSuite();
 			ProtocolEvaluator evaluator = EvaluationStrategy.fromEnum(evalStrategy);			
 			Storage storage = null;
 			switch (storageStrategy) {
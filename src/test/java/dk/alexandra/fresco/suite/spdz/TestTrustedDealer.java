@@ -0,0 +1,323 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import dk.alexandra.fresco.framework.ProtocolEvaluator;
+import dk.alexandra.fresco.framework.Reporter;
+import dk.alexandra.fresco.framework.TestThreadRunner;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThreadConfiguration;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThreadFactory;
+import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
+import dk.alexandra.fresco.framework.configuration.TestConfiguration;
+import dk.alexandra.fresco.framework.network.ScapiNetworkImpl;
+import dk.alexandra.fresco.framework.sce.configuration.TestSCEConfiguration;
+import dk.alexandra.fresco.framework.sce.evaluator.EvaluationStrategy;
+import dk.alexandra.fresco.lib.arithmetic.BasicArithmeticTests;
+import dk.alexandra.fresco.lib.arithmetic.ComparisonTests;
+import dk.alexandra.fresco.suite.ProtocolSuite;
+import dk.alexandra.fresco.suite.spdz.configuration.SpdzConfiguration;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSquare;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+import dk.alexandra.fresco.suite.spdz.evaluation.strategy.SpdzProtocolSuite;
+import dk.alexandra.fresco.suite.spdz.storage.DealerDataSupplier;
+import dk.alexandra.fresco.suite.spdz.storage.TrustedDealer;
+
+/**
+ * Runs SPDZ with preprocessed data streamed from a trusted dealer. All parties
+ * and the dealer run on localhost.
+ */
+public class TestTrustedDealer {
+
+	private static final int noOfParties = 2;
+	private static final int noOfThreads = 2;
+	private static final int timeoutMillis = 10000;
+	private static final BigInteger modulus = new BigInteger(
+			"6703903964971298549787012499123814115273848577471136527425966013026501536706464354255445443244279389455058889493431223951165286470575994074291745908195329");
+	private static final BigInteger mersenne61 = BigInteger.ONE.shiftLeft(61).subtract(BigInteger.ONE);
+
+	private static final BigInteger mersenne521 = BigInteger.ONE.shiftLeft(521).subtract(BigInteger.ONE);
+
+	private static Map<Integer, NetworkConfiguration> getDealerConfigurations() {
+		return getDealerConfigurations(0);
+	}
+
+	private static Map<Integer, NetworkConfiguration> getDealerConfigurations(int portOffset) {
+		List<Integer> ports = new ArrayList<Integer>();
+		for (int i = 1; i <= noOfParties + 1; i++) {
+			ports.add(9100 + portOffset + i);
+		}
+		return TestConfiguration.getNetworkConfigurations(noOfParties + 1,
+				ports, Level.INFO);
+	}
+
+	/**
+	 * Starts a dealer in a separate thread.
+	 */
+	private static Thread startDealer(final NetworkConfiguration dealerConf,
+			final BigInteger modulus, final List<Throwable> errors) {
+		Thread t = new Thread() {
+			@Override
+			public void run() {
+				ScapiNetworkImpl network = new ScapiNetworkImpl(dealerConf,
+						TrustedDealer.getNoOfChannels(noOfParties, noOfThreads));
+				try {
+					network.connect(timeoutMillis);
+					TrustedDealer dealer = new TrustedDealer(network, noOfParties,
+							noOfThreads, modulus);
+					dealer.start();
+					dealer.awaitTermination();
+					network.close();
+				} catch (IOException | InterruptedException e) {
+					errors.add(e);
+				}
+			}
+		};
+		t.start();
+		return t;
+	}
+
+	@Test
+	public void testSuppliedDataIsCorrelated() throws Exception {
+		Reporter.init(Level.INFO);
+		final Map<Integer, NetworkConfiguration> dealerConfs = getDealerConfigurations();
+		final List<Throwable> errors = new ArrayList<Throwable>();
+		Thread dealer = startDealer(dealerConfs.get(noOfParties + 1), modulus, errors);
+
+		final int amount = 1500;
+		final Map<Integer, SpdzTriple[]> triples = new HashMap<Integer, SpdzTriple[]>();
+		final Map<Integer, SpdzInputMask[]> masks = new HashMap<Integer, SpdzInputMask[]>();
+		final Map<Integer, SpdzSquare[]> squares = new HashMap<Integer, SpdzSquare[]>();
+		final Map<Integer, SpdzSInt[]> pipes = new HashMap<Integer, SpdzSInt[]>();
+		final Map<Integer, BigInteger> keyShares = new HashMap<Integer, BigInteger>();
+		Thread[] parties = new Thread[noOfParties];
+		for (int p = 1; p <= noOfParties; p++) {
+			final int myId = p;
+			parties[p - 1] = new Thread() {
+				@Override
+				public void run() {
+					ScapiNetworkImpl network = new ScapiNetworkImpl(dealerConfs.get(myId),
+							TrustedDealer.getNoOfChannels(noOfParties, noOfThreads));
+					try {
+						network.connect(timeoutMillis);
+						BigInteger[] globals = DealerDataSupplier.receiveGlobals(network, noOfParties);
+						DealerDataSupplier supplier = new DealerDataSupplier(network, 1,
+								noOfParties, globals);
+						SpdzTriple[] ts = new SpdzTriple[amount];
+						SpdzInputMask[] ms = new SpdzInputMask[amount];
+						SpdzSquare[] sq = new SpdzSquare[amount];
+						for (int i = 0; i < amount; i++) {
+							ts[i] = supplier.getNextTriple();
+							ms[i] = supplier.getNextInputMask(2);
+							sq[i] = supplier.getNextSquare();
+						}
+						SpdzSInt[] pipe = supplier.getNextExpPipe();
+						supplier.shutdown();
+						network.close();
+						synchronized (triples) {
+							triples.put(myId, ts);
+							masks.put(myId, ms);
+							squares.put(myId, sq);
+							pipes.put(myId, pipe);
+							keyShares.put(myId, globals[1]);
+						}
+					} catch (IOException e) {
+						synchronized (errors) {
+							errors.add(e);
+						}
+					}
+				}
+			};
+			parties[p - 1].start();
+		}
+		for (Thread t : parties) {
+			t.join();
+		}
+		dealer.join();
+		Assert.assertTrue(errors.toString(), errors.isEmpty());
+
+		BigInteger alpha = keyShares.get(1).add(keyShares.get(2)).mod(modulus);
+		for (int i = 0; i < amount; i++) {
+			BigInteger a = open(triples.get(1)[i].getA(), triples.get(2)[i].getA(), alpha);
+			BigInteger b = open(triples.get(1)[i].getB(), triples.get(2)[i].getB(), alpha);
+			BigInteger c = open(triples.get(1)[i].getC(), triples.get(2)[i].getC(), alpha);
+			Assert.assertEquals(a.multiply(b).mod(modulus), c);
+
+			BigInteger mask = open(masks.get(1)[i].getMask(), masks.get(2)[i].getMask(), alpha);
+			Assert.assertNull(masks.get(1)[i].getRealValue());
+			Assert.assertEquals(mask, masks.get(2)[i].getRealValue());
+
+			BigInteger sa = open(squares.get(1)[i].getA(), squares.get(2)[i].getA(), alpha);
+			BigInteger sb = open(squares.get(1)[i].getB(), squares.get(2)[i].getB(), alpha);
+			Assert.assertEquals(sa.multiply(sa).mod(modulus), sb);
+		}
+		BigInteger rInv = open(pipes.get(1)[0].value, pipes.get(2)[0].value, alpha);
+		BigInteger r = open(pipes.get(1)[1].value, pipes.get(2)[1].value, alpha);
+		BigInteger r2 = open(pipes.get(1)[2].value, pipes.get(2)[2].value, alpha);
+		Assert.assertEquals(BigInteger.ONE, r.multiply(rInv).mod(modulus));
+		Assert.assertEquals(r.multiply(r).mod(modulus), r2);
+	}
+
+	/**
+	 * Opens a value and checks its MAC.
+	 */
+	private static BigInteger open(SpdzElement e1, SpdzElement e2, BigInteger alpha) {
+		BigInteger value = e1.getShare().add(e2.getShare()).mod(modulus);
+		BigInteger mac = e1.getMac().add(e2.getMac()).mod(modulus);
+		Assert.assertEquals(value.multiply(alpha).mod(modulus), mac);
+		return value;
+	}
+
+	private void runTest(TestThreadFactory f, EvaluationStrategy evalStrategy)
+			throws Exception {
+		runTest(f, evalStrategy, modulus);
+	}
+
+	private void runTest(TestThreadFactory f, EvaluationStrategy evalStrategy,
+			BigInteger modulus) throws Exception {
+		runTest(f, evalStrategy, modulus, 0);
+	}
+
+	/**
+	 * Runs the test in a session of its own, using ports offset by the given
+	 * amount so that several sessions can run at the same time.
+	 */
+	private void runTest(TestThreadFactory f, EvaluationStrategy evalStrategy,
+			BigInteger modulus, int portOffset) throws Exception {
+		Level logLevel = Level.INFO;
+		Reporter.init(logLevel);
+		final Map<Integer, NetworkConfiguration> dealerConfs = getDealerConfigurations(portOffset);
+		List<Throwable> errors = new ArrayList<Throwable>();
+		Thread dealer = startDealer(dealerConfs.get(noOfParties + 1), modulus, errors);
+
+		List<Integer> ports = new ArrayList<Integer>(noOfParties);
+		for (int i = 1; i <= noOfParties; i++) {
+			ports.add(9000 + portOffset + i);
+		}
+		Map<Integer, NetworkConfiguration> netConf = TestConfiguration
+				.getNetworkConfigurations(noOfParties, ports, logLevel);
+		Map<Integer, TestThreadConfiguration> conf = new HashMap<Integer, TestThreadConfiguration>();
+		for (final int playerId : netConf.keySet()) {
+			TestThreadConfiguration ttc = new TestThreadConfiguration();
+			ttc.netConf = netConf.get(playerId);
+			ttc.protocolSuiteConf = new SpdzConfiguration() {
+
+				@Override
+				public boolean useDummyData() {
+					return false;
+				}
+
+				@Override
+				public String getTriplePath() {
+					return null;
+				}
+
+				@Override
+				public int getMaxBitLength() {
+					return 150;
+				}
+
+				@Override
+				public NetworkConfiguration getDealerConfiguration() {
+					return dealerConfs.get(playerId);
+				}
+			};
+			ProtocolSuite suite = new SpdzProtocolSuite();
+			ProtocolEvaluator evaluator = EvaluationStrategy.fromEnum(evalStrategy);
+			ttc.sceConf = new TestSCEConfiguration(suite, evaluator, noOfThreads,
+					noOfThreads, ttc.netConf, null, false);
+			conf.put(playerId, ttc);
+		}
+		// The test threads shut down their SCEs, which disconnects them from
+		// the dealer.
+		TestThreadRunner.run(f, conf);
+		dealer.join();
+		Assert.assertTrue(errors.toString(), errors.isEmpty());
+	}
+
+	@Test
+	public void test_Sum_And_Output_Sequential() throws Exception {
+		runTest(new BasicArithmeticTests.TestSumAndMult(),
+				EvaluationStrategy.SEQUENTIAL);
+	}
+
+	@Test
+	public void test_Lots_Of_Inputs_ParallelBatched() throws Exception {
+		runTest(new BasicArithmeticTests.TestLotsOfInputs(),
+				EvaluationStrategy.PARALLEL_BATCHED);
+	}
+
+	/**
+	 * Runs with the Mersenne prime 2^61-1, where SPDZ uses long arithmetic.
+	 */
+	@Test
+	public void test_Sum_And_Output_Mersenne61() throws Exception {
+		runTest(new BasicArithmeticTests.TestSumAndMult(),
+				EvaluationStrategy.SEQUENTIAL, mersenne61);
+	}
+
+	/**
+	 * Runs comparisons in two sessions with different primes at the same
+	 * time in one JVM. The public constants of the comparison must be
+	 * computed in the field of each session.
+	 */
+	@Test
+	public void test_Compare_Two_Primes_Concurrently() throws Exception {
+		final List<Throwable> errors = new ArrayList<Throwable>();
+		Thread other = new Thread() {
+			@Override
+			public void run() {
+				try {
+					runTest(new ComparisonTests.TestCompareEQ(),
+							EvaluationStrategy.SEQUENTIAL, mersenne521, 20);
+				} catch (Throwable e) {
+					synchronized (errors) {
+						errors.add(e);
+					}
+				}
+			}
+		};
+		other.start();
+		runTest(new ComparisonTests.TestCompareEQ(),
+				EvaluationStrategy.SEQUENTIAL, modulus, 0);
+		other.join();
+		Assert.assertTrue(errors.toString(), errors.isEmpty());
+	}
+}
@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz.gates;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks the digests the parties exchange to validate a broadcast.
+ */
+public class TestSpdzNativeProtocol {
+
+	/**
+	 * (0x01, 0x0100) and (0x0101, 0x00) have the same concatenated encoding,
+	 * so their broadcast digests must not depend on concatenation alone.
+	 */
+	@Test
+	public void testConcatenationCollisionGivesDifferentDigests() throws Exception {
+		MessageDigest dig = MessageDigest.getInstance("SHA-256");
+		byte[] d1 = SpdzNativeProtocol.digest(dig, Arrays.asList(
+				BigInteger.valueOf(0x01), BigInteger.valueOf(0x0100)));
+		byte[] d2 = SpdzNativeProtocol.digest(dig, Arrays.asList(
+				BigInteger.valueOf(0x0101), BigInteger.valueOf(0x00)));
+		Assert.assertFalse(Arrays.equals(d1, d2));
+	}
+
+	@Test
+	public void testEqualVectorsGiveEqualDigests() throws Exception {
+		MessageDigest dig = MessageDigest.getInstance("SHA-256");
+		byte[] d1 = SpdzNativeProtocol.digest(dig, Arrays.asList(
+				BigInteger.valueOf(0x01), BigInteger.valueOf(0x0100)));
+		byte[] d2 = SpdzNativeProtocol.digest(dig, Arrays.asList(
+				BigInteger.valueOf(0x01), BigInteger.valueOf(0x0100)));
+		Assert.assertArrayEquals(d1, d2);
+	}
+}
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz2k;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+import org.junit.Test;
+
+import dk.alexandra.fresco.framework.ProtocolEvaluator;
+import dk.alexandra.fresco.framework.Reporter;
+import dk.alexandra.fresco.framework.TestThreadRunner;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThreadConfiguration;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThreadFactory;
+import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
+import dk.alexandra.fresco.framework.configuration.TestConfiguration;
+import dk.alexandra.fresco.framework.sce.configuration.TestSCEConfiguration;
+import dk.alexandra.fresco.framework.sce.evaluator.EvaluationStrategy;
+import dk.alexandra.fresco.framework.sce.resources.storage.InMemoryStorage;
+import dk.alexandra.fresco.framework.sce.resources.storage.Storage;
+import dk.alexandra.fresco.lib.arithmetic.BasicArithmeticTests;
+import dk.alexandra.fresco.suite.ProtocolSuite;
+import dk.alexandra.fresco.suite.spdz2k.configuration.Spdz2kConfiguration;
+
+/**
+ * Basic arithmetic tests using the SPDZ2k protocol suite. All values of the
+ * tests fit in 64 bits.
+ */
+public class TestSpdz2kBasicArithmetic {
+
+	static void runTest(TestThreadFactory f, int noPlayers, EvaluationStrategy evalStrategy,
+			final int macCheckThreshold) throws Exception {
+		Level logLevel = Level.FINE;
+		Reporter.init(logLevel);
+
+		// Since SCAPI currently does not work with ports > 9999 we use fixed ports
+		// here instead of relying on ephemeral ports which are often > 9999.
+		List<Integer> ports = new ArrayList<Integer>(noPlayers);
+		for (int i = 1; i <= noPlayers; i++) {
+			ports.add(9000 + i);
+		}
+
+		Map<Integer, NetworkConfiguration> netConf = TestConfiguration.getNetworkConfigurations(noPlayers, ports, logLevel);
+		Map<Integer, TestThreadConfiguration> conf = new HashMap<Integer, TestThreadConfiguration>();
+		for (int playerId : netConf.keySet()) {
+			TestThreadConfiguration ttc = new TestThreadConfiguration();
+			ttc.netConf = netConf.get(playerId);
+			ttc.protocolSuiteConf = new Spdz2kConfiguration() {
+				@Override
+				public int getMacCheckThreshold() {
+					return macCheckThreshold;
+				}
+			};
+			boolean useSecureConnection = false; // No tests of secure connection here.
+			ProtocolSuite suite = new Spdz2kProtocolSuite();
+			ProtocolEvaluator evaluator = EvaluationStrategy.fromEnum(evalStrategy);
+			Storage storage = new InMemoryStorage();
+			int noOfThreads = 3;
+			int noOfVMThreads = 3;
+			ttc.sceConf = new TestSCEConfiguration(suite, evaluator, noOfThreads, noOfVMThreads,
+					ttc.netConf, storage, useSecureConnection);
+			conf.put(playerId, ttc);
+		}
+		TestThreadRunner.run(f, conf);
+	}
+
+	private void runTest(TestThreadFactory f, int noPlayers, EvaluationStrategy evalStrategy)
+			throws Exception {
+		runTest(f, noPlayers, evalStrategy, 100000);
+	}
+
+	@Test
+	public void test_Copy_Sequential() throws Exception {
+		runTest(new BasicArithmeticTests.TestCopyProtocol(), 2, EvaluationStrategy.SEQUENTIAL);
+	}
+
+	@Test
+	public void test_Input_Sequential() throws Exception {
+		runTest(new BasicArithmeticTests.TestInput(), 2, EvaluationStrategy.SEQUENTIAL);
+	}
+
+	@Test
+	public void test_Input_Sequential_3() throws Exception {
+		runTest(new BasicArithmeticTests.TestInput(), 3, EvaluationStrategy.SEQUENTIAL);
+	}
+
+	@Test
+	public void test_OutputToTarget_Sequential() throws Exception {
+		runTest(new BasicArithmeticTests.TestOutputToSingleParty(), 2, EvaluationStrategy.SEQUENTIAL);
+	}
+
+	@Test
+	public void test_AddPublicValue_Sequential() throws Exception {
+		runTest(new BasicArithmeticTests.TestAddPublicValue(), 2, EvaluationStrategy.SEQUENTIAL);
+	}
+
+	@Test
+	public void test_Known_SInt_Sequential() throws Exception {
+		runTest(new BasicArithmeticTests.TestKnownSInt(), 2, EvaluationStrategy.SEQUENTIAL);
+	}
+
+	@Test
+	public void test_Known_Constants_Sequential() throws Exception {
+		runTest(new BasicArithmeticTests.TestKnownConstants(), 2, EvaluationStrategy.SEQUENTIAL);
+	}
+
+	@Test
+	public void test_Linear_Combination_Sequential() throws Exception {
+		runTest(new BasicArithmeticTests.TestLinearCombination(), 2, EvaluationStrategy.SEQUENTIAL);
+	}
+
+	@Test
+	public void test_Mult_Vector_Sequential() throws Exception {
+		runTest(new BasicArithmeticTests.TestMultVector(), 2, EvaluationStrategy.SEQUENTIAL);
+	}
+
+	@Test
+	public void test_Square_Sequential() throws Exception {
+		runTest(new BasicArithmeticTests.TestSquare(), 2, EvaluationStrategy.SEQUENTIAL);
+	}
+
+	@Test
+	public void test_Matrix_Mult_Sequential() throws Exception {
+		runTest(new BasicArithmeticTests.TestMatrixMult(), 2, EvaluationStrategy.SEQUENTIAL);
+	}
+
+	@Test
+	public void test_Lots_Of_Inputs_Sequential() throws Exception {
+		runTest(new BasicArithmeticTests.TestLotsOfInputs(), 2, EvaluationStrategy.SEQUENTIAL);
+	}
+
+	@Test
+	public void test_Lots_Of_Inputs_Sequential_3() throws Exception {
+		runTest(new BasicArithmeticTests.TestLotsOfInputs(), 3, EvaluationStrategy.SEQUENTIAL);
+	}
+
+	@Test
+	public void test_Lots_Of_Inputs_Parallel() throws Exception {
+		runTest(new BasicArithmeticTests.TestLotsOfInputs(), 2, EvaluationStrategy.PARALLEL);
+	}
+
+	@Test
+	public void test_Lots_Of_Inputs_ParallelBatched() throws Exception {
+		runTest(new BasicArithmeticTests.TestLotsOfInputs(), 2, EvaluationStrategy.PARALLEL_BATCHED);
+	}
+
+	@Test
+	public void test_Lots_Of_Inputs_Sequential_Frequent_MacChecks() throws Exception {
+		runTest(new BasicArithmeticTests.TestLotsOfInputs(), 2, EvaluationStrategy.SEQUENTIAL, 10);
+	}
+
+	@Test
+	public void test_Sum_And_Output_Sequential() throws Exception {
+		runTest(new BasicArithmeticTests.TestSumAndMult(), 2, EvaluationStrategy.SEQUENTIAL);
+	}
+
+	@Test
+	public void test_Simple_Arithmetic_Sequential() throws Exception {
+		runTest(new BasicArithmeticTests.TestSimpleMultAndAdd(), 2, EvaluationStrategy.SEQUENTIAL);
+	}
+
+	@Test
+	public void test_Alternating_Mult_Add_Sequential() throws Exception {
+		runTest(new BasicArithmeticTests.TestAlternatingMultAdd(), 2, EvaluationStrategy.SEQUENTIAL);
+	}
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz2k;
+
+import java.io.IOException;
+import java.math.BigInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import dk.alexandra.fresco.framework.ProtocolFactory;
+import dk.alexandra.fresco.framework.ProtocolProducer;
+import dk.alexandra.fresco.framework.TestApplication;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThread;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThreadConfiguration;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThreadFactory;
+import dk.alexandra.fresco.framework.sce.SCE;
+import dk.alexandra.fresco.framework.sce.SCEFactory;
+import dk.alexandra.fresco.framework.sce.evaluator.EvaluationStrategy;
+import dk.alexandra.fresco.framework.value.OInt;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.lib.helper.builder.ComparisonProtocolBuilder;
+import dk.alexandra.fresco.lib.helper.builder.NumericIOBuilder;
+import dk.alexandra.fresco.lib.helper.sequential.SequentialProtocolProducer;
+
+/**
+ * Tests the native comparisons of the SPDZ2k suite on signed values.
+ */
+public class TestSpdz2kComparison {
+
+	private static final long[] VALUES = { -1000000000000L, -7, 0, 3, 5, 5 };
+
+	/**
+	 * Compares all pairs of {@link #VALUES} for both x <= y and x == y.
+	 */
+	private static class TestCompareAll extends TestThreadFactory {
+
+		@Override
+		public TestThread next(TestThreadConfiguration conf) {
+			return new TestThread() {
+
+				private SCE sce;
+
+				@Override
+				public void setUp() throws IOException {
+					sce = SCEFactory.getSCEFromConfiguration(conf.sceConf, conf.protocolSuiteConf);
+				}
+
+				@Override
+				public void tearDown() {
+					if (sce != null) {
+						sce.shutdownSCE();
+					}
+				}
+
+				@Override
+				public void test() throws Exception {
+					final int n = VALUES.length;
+					TestApplication app = new TestApplication() {
+
+						private static final long serialVersionUID = 6417291504563618201L;
+
+						@Override
+						public ProtocolProducer prepareApplication(ProtocolFactory provider) {
+							Spdz2kFactory factory = (Spdz2kFactory) provider;
+							NumericIOBuilder ioBuilder = new NumericIOBuilder(factory);
+							BigInteger[] open = new BigInteger[n];
+							for (int i = 0; i < n; i++) {
+								open[i] = BigInteger.valueOf(VALUES[i]);
+							}
+							SInt[] inputs = ioBuilder.inputArray(open, 1);
+							ProtocolProducer inp = ioBuilder.getCircuit();
+							ioBuilder.reset();
+
+							ComparisonProtocolBuilder compBuilder = new ComparisonProtocolBuilder(factory,
+									factory);
+							compBuilder.beginParScope();
+							SInt[] results = new SInt[2 * n * n];
+							for (int i = 0; i < n; i++) {
+								for (int j = 0; j < n; j++) {
+									results[2 * (i * n + j)] = compBuilder.compare(inputs[i], inputs[j]);
+									results[2 * (i * n + j) + 1] = compBuilder.compareEqual(inputs[i],
+											inputs[j]);
+								}
+							}
+							compBuilder.endCurScope();
+							ProtocolProducer comp = compBuilder.getCircuit();
+
+							this.outputs = ioBuilder.outputArray(results);
+							return new SequentialProtocolProducer(inp, comp, ioBuilder.getCircuit());
+						}
+					};
+					sce.runApplication(app);
+					OInt[] outputs = app.getOutputs();
+					for (int i = 0; i < n; i++) {
+						for (int j = 0; j < n; j++) {
+							String pair = VALUES[i] + ", " + VALUES[j];
+							Assert.assertEquals("<= of " + pair,
+									BigInteger.valueOf(VALUES[i] <= VALUES[j] ? 1 : 0),
+									outputs[2 * (i * n + j)].getValue());
+							Assert.assertEquals("== of " + pair,
+									BigInteger.valueOf(VALUES[i] == VALUES[j] ? 1 : 0),
+									outputs[2 * (i * n + j) + 1].getValue());
+						}
+					}
+				}
+			};
+		}
+	}
+
+	@Test
+	public void test_Compare_Sequential() throws Exception {
+		TestSpdz2kBasicArithmetic.runTest(new TestCompareAll(), 2, EvaluationStrategy.SEQUENTIAL,
+				100000);
+	}
+
+	@Test
+	public void test_Compare_Parallel_Batched_3() throws Exception {
+		TestSpdz2kBasicArithmetic.runTest(new TestCompareAll(), 3,
+				EvaluationStrategy.PARALLEL_BATCHED, 100);
+	}
+}
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz2k;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kElement;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kInputMask;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kTriple;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.UInt128;
+import dk.alexandra.fresco.suite.spdz2k.storage.Spdz2kFakeDataSupplier;
+
+/**
+ * Checks that the shares of the fake data of all parties combine to valid
+ * MACed values.
+ */
+public class TestSpdz2kFakeDataSupplier {
+
+	private static final int PARTIES = 3;
+
+	private Spdz2kFakeDataSupplier[] suppliers(int threadId) {
+		Spdz2kFakeDataSupplier[] suppliers = new Spdz2kFakeDataSupplier[PARTIES];
+		for (int i = 0; i < PARTIES; i++) {
+			suppliers[i] = new Spdz2kFakeDataSupplier(i + 1, PARTIES, threadId);
+		}
+		return suppliers;
+	}
+
+	private UInt128 key(Spdz2kFakeDataSupplier[] suppliers) {
+		UInt128 key = UInt128.ZERO;
+		for (Spdz2kFakeDataSupplier supplier : suppliers) {
+			Assert.assertEquals(0, supplier.getKeyShare().getHigh());
+			key = key.add(supplier.getKeyShare());
+		}
+		return key;
+	}
+
+	/**
+	 * @return the value of the shares, after checking its MAC.
+	 */
+	private UInt128 open(UInt128 key, Spdz2kElement... shares) {
+		Spdz2kElement sum = new Spdz2kElement(UInt128.ZERO, UInt128.ZERO);
+		for (Spdz2kElement share : shares) {
+			sum = sum.add(share);
+		}
+		Assert.assertEquals(key.multiply(sum.getShare()), sum.getMac());
+		return sum.getShare();
+	}
+
+	@Test
+	public void testDataIsConsistent() {
+		Spdz2kFakeDataSupplier[] suppliers = suppliers(1);
+		UInt128 key = key(suppliers);
+		for (int n = 0; n < 100; n++) {
+			Spdz2kTriple[] triples = new Spdz2kTriple[PARTIES];
+			Spdz2kInputMask[] masks = new Spdz2kInputMask[PARTIES];
+			Spdz2kElement[] bits = new Spdz2kElement[PARTIES];
+			Spdz2kElement[] randoms = new Spdz2kElement[PARTIES];
+			for (int i = 0; i < PARTIES; i++) {
+				triples[i] = suppliers[i].getNextTriple();
+				masks[i] = suppliers[i].getNextInputMask(2);
+				bits[i] = suppliers[i].getNextBit();
+				randoms[i] = suppliers[i].getNextRandomElement();
+			}
+			UInt128 a = open(key, triples[0].getA(), triples[1].getA(), triples[2].getA());
+			UInt128 b = open(key, triples[0].getB(), triples[1].getB(), triples[2].getB());
+			UInt128 c = open(key, triples[0].getC(), triples[1].getC(), triples[2].getC());
+			Assert.assertEquals(a.multiply(b), c);
+
+			UInt128 r = open(key, masks[0].getMask(), masks[1].getMask(), masks[2].getMask());
+			Assert.assertEquals(r, masks[1].getRealValue());
+			Assert.assertNull(masks[0].getRealValue());
+
+			UInt128 bit = open(key, bits);
+			Assert.assertTrue(bit.isZero() || bit.equals(UInt128.valueOf(1)));
+			open(key, randoms);
+		}
+	}
+
+	@Test
+	public void testThreadsShareKeyButNotData() {
+		Spdz2kFakeDataSupplier[] first = suppliers(0);
+		Spdz2kFakeDataSupplier[] second = suppliers(1);
+		Assert.assertEquals(key(first), key(second));
+		Assert.assertNotEquals(first[0].getNextRandomElement(), second[0].getNextRandomElement());
+	}
+}
@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright (c) 2015 FRESCO (http://github.com/aicis/fresco).
+ *
+ * This file is part of the FRESCO project.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * FRESCO uses SCAPI - http://crypto.biu.ac.il/SCAPI, Crypto++, Miracl, NTL,
+ * and Bouncy Castle. Please see these projects for any further licensing issues.
+ *******************************************************************************/
+package dk.alexandra.fresco.suite.spdz2k;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import dk.alexandra.fresco.suite.spdz2k.datatypes.UInt128;
+
+public class TestUInt128 {
+
+	private static final BigInteger MODULUS = UInt128.getModulus();
+
+	private static UInt128 random(Random rand) {
+		return new UInt128(rand.nextLong(), rand.nextLong());
+	}
+
+	@Test
+	public void testArithmeticMatchesBigInteger() {
+		Random rand = new Random(42);
+		long[] special = { 0, 1, -1, Long.MIN_VALUE, Long.MAX_VALUE };
+		for (int i = 0; i < 1000; i++) {
+			UInt128 a = random(rand);
+			UInt128 b = random(rand);
+			if (i < special.length * special.length) {
+				a = new UInt128(special[i % special.length], special[i / special.length]);
+				b = new UInt128(special[i / special.length], special[i % special.length]);
+			}
+			BigInteger x = a.toBigInteger();
+			BigInteger y = b.toBigInteger();
+			Assert.assertEquals(x.add(y).mod(MODULUS), a.add(b).toBigInteger());
+			Assert.assertEquals(x.subtract(y).mod(MODULUS), a.subtract(b).toBigInteger());
+			Assert.assertEquals(x.negate().mod(MODULUS), a.negate().toBigInteger());
+			Assert.assertEquals(x.multiply(y).mod(MODULUS), a.multiply(b).toBigInteger());
+			long c = b.getLow();
+			BigInteger unsigned = BigInteger.valueOf(c).and(BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE));
+			Assert.assertEquals(x.multiply(unsigned).mod(MODULUS), a.multiply(c).toBigInteger());
+			Assert.assertEquals(a, UInt128.valueOf(x));
+		}
+	}
+
+	@Test
+	public void testValueOfReduces() {
+		Assert.assertEquals(UInt128.ZERO, UInt128.valueOf(MODULUS));
+		Assert.assertEquals(new UInt128(-1, -1), UInt128.valueOf(BigInteger.ONE.negate()));
+		Assert.assertEquals(new UInt128(0, -1), UInt128.valueOf(-1L));
+	}
+}